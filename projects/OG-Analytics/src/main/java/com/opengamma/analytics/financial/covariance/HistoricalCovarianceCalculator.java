@@ -5,8 +5,6 @@
  */
 package com.opengamma.analytics.financial.covariance;
 
-import java.util.Iterator;
-
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.util.timeseries.DoubleTimeSeries;
@@ -41,12 +39,11 @@ public class HistoricalCovarianceCalculator extends CovarianceCalculator {
     double xyMean = 0;
     double xMean = 0;
     double yMean = 0;
-    final Iterator<Double> iter1 = returnTS1.valuesIterator();
-    final Iterator<Double> iter2 = returnTS2.valuesIterator();
-    double x, y;
-    while (iter1.hasNext()) {
-      x = iter1.next();
-      y = iter2.next();
+    final double[] xs = returnTS1.valuesArrayFast();
+    final double[] ys = returnTS2.valuesArrayFast();
+    for (int i = 0; i < n; i++) {
+      final double x = xs[i];
+      final double y = ys[i];
       xyMean += x * y;
       xMean += x;
       yMean += y;
@@ -5,8 +5,16 @@
  */
 package com.opengamma.analytics.financial.credit.creditdefaultswap.pricing;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import javax.time.calendar.ZonedDateTime;
 
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.credit.SpreadBumpType;
 import com.opengamma.analytics.financial.credit.cds.ISDACurve;
 import com.opengamma.analytics.financial.credit.creditdefaultswap.definition.LegacyCreditDefaultSwapDefinition;
@@ -27,6 +35,24 @@ public class CS01LegacyCreditDefaultSwap {
 
   private static final DayCount ACT365 = new ActualThreeSixtyFive();
 
+  // The maximum number of CDS's valued by a single task when computing the CS01 of a book
+  private static final int BOOK_BLOCK_SIZE = 100;
+
+  // The executor service used to compute the bumped curves and value the book in parallel, null to compute on the calling thread
+  private final ExecutorService _executorService;
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Ctor to compute the CS01 on the calling thread
+  public CS01LegacyCreditDefaultSwap() {
+    this(null);
+  }
+
+  // Ctor to compute the bumped curves and the CS01 of a book in parallel on the executor service, e.g. a jsr166y ForkJoinPool (which is not shut down by this class)
+  public CS01LegacyCreditDefaultSwap(ExecutorService executorService) {
+    _executorService = executorService;
+  }
+
   //-------------------------------------------------------------------------------------------------
 
   // TODO : Lots of ongoing work to do in this class - Work In Progress
@@ -141,21 +167,254 @@ public class CS01LegacyCreditDefaultSwap {
 
   // -------------------------------------------------------------------------------------------------
 
-  public double[] getCS01BucketedCfreditDefaultSwap(LegacyCreditDefaultSwapDefinition cds, ISDACurve yieldCurve, HazardRateCurve hazardRateCurve) {
+  // Public method to compute the bucketed CS01 of a CDS (the change in PV for a bump of each of the market spreads in turn, divided by the bump)
+
+  public double[] getCS01BucketedCreditDefaultSwap(
+      LegacyCreditDefaultSwapDefinition cds,
+      ISDACurve yieldCurve,
+      ZonedDateTime[] marketTenors,
+      double[] marketSpreads,
+      double spreadBump,
+      SpreadBumpType spreadBumpType) {
+
+    ArgumentChecker.notNull(cds, "LegacyCreditDefaultSwapDefinition");
+
+    // The CDS itself is used to calibrate the hazard rate curve
+    return calculateCS01(cds, new LegacyCreditDefaultSwapDefinition[] {cds }, yieldCurve, marketTenors, marketSpreads, spreadBump, spreadBumpType, true)[0];
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Public method to compute the parallel shift CS01 of a book of CDS's against the hazard rate curve calibrated with the calibration CDS
+
+  public double[] getCS01ParallelShiftCreditDefaultSwaps(
+      LegacyCreditDefaultSwapDefinition calibrationCDS,
+      LegacyCreditDefaultSwapDefinition[] cdsBook,
+      ISDACurve yieldCurve,
+      ZonedDateTime[] marketTenors,
+      double[] marketSpreads,
+      double spreadBump,
+      SpreadBumpType spreadBumpType) {
+
+    final double[][] cs01 = calculateCS01(calibrationCDS, cdsBook, yieldCurve, marketTenors, marketSpreads, spreadBump, spreadBumpType, false);
+
+    final double[] parallelCS01 = new double[cs01.length];
+
+    for (int i = 0; i < cs01.length; i++) {
+      parallelCS01[i] = cs01[i][0];
+    }
+
+    return parallelCS01;
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Public method to compute the bucketed CS01 of a book of CDS's against the hazard rate curve calibrated with the calibration CDS (indexed by CDS then by tenor)
+
+  public double[][] getCS01BucketedCreditDefaultSwaps(
+      LegacyCreditDefaultSwapDefinition calibrationCDS,
+      LegacyCreditDefaultSwapDefinition[] cdsBook,
+      ISDACurve yieldCurve,
+      ZonedDateTime[] marketTenors,
+      double[] marketSpreads,
+      double spreadBump,
+      SpreadBumpType spreadBumpType) {
+
+    return calculateCS01(calibrationCDS, cdsBook, yieldCurve, marketTenors, marketSpreads, spreadBump, spreadBumpType, true);
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Private method to compute the CS01 of a book of CDS's for either a single parallel bump or a bump of each tenor in turn
+  // The schedules and discount factors of the calibration CDS's and of each CDS in the book are built once and shared between the base and bumped
+  // hazard rate curves, and the bumped curves and the book are computed in parallel if an executor service is available
+
+  private double[][] calculateCS01(
+      final LegacyCreditDefaultSwapDefinition calibrationCDS,
+      final LegacyCreditDefaultSwapDefinition[] cdsBook,
+      final ISDACurve yieldCurve,
+      final ZonedDateTime[] marketTenors,
+      final double[] marketSpreads,
+      final double spreadBump,
+      final SpreadBumpType spreadBumpType,
+      final boolean bucketed) {
 
     // -------------------------------------------------------------
 
-    // Check input CDS, YieldCurve and SurvivalCurve objects are not null
+    // Check input CDS, YieldCurve and market data objects are not null
 
-    ArgumentChecker.notNull(cds, "LegacyCreditDefaultSwapDefinition");
+    ArgumentChecker.notNull(calibrationCDS, "Calibration LegacyCreditDefaultSwapDefinition");
+    ArgumentChecker.noNulls(cdsBook, "CDS book");
     ArgumentChecker.notNull(yieldCurve, "YieldCurve");
-    ArgumentChecker.notNull(hazardRateCurve, "HazardRateCurve");
+    ArgumentChecker.notNull(marketTenors, "Market tenors");
+    ArgumentChecker.notNull(marketSpreads, "Market spreads");
+    ArgumentChecker.notNull(spreadBumpType, "Spread bump type");
+    ArgumentChecker.notZero(spreadBump, _tolerance, "Spread bump");
+
+    // Check that the number of input tenors matches the number of input spreads
+    ArgumentChecker.isTrue(marketTenors.length == marketSpreads.length, "Number of tenors and number of spreads should be equal");
+
+    // The market data itself is checked by the calibration
 
     // -------------------------------------------------------------
 
-    double[] bucketedCS01 = new double[10];
+    final int numberOfTenors = marketTenors.length;
+    final int numberOfBumps = bucketed ? numberOfTenors : 1;
+
+    final double[] times = new double[numberOfTenors];
+
+    times[0] = 0.0;
+    for (int m = 1; m < numberOfTenors; m++) {
+      times[m] = ACT365.getDayCountFraction(calibrationCDS.getValuationDate(), marketTenors[m]);
+    }
+
+    // -------------------------------------------------------------
+
+    // Call the constructor to create a calibrate hazard rate curve object
+    final CalibrateHazardRateCurve hazardRateCurve = new CalibrateHazardRateCurve();
+
+    // Build the calibration CDS schedules once, they do not depend on the (bumped) spreads
+    final LegacyCreditDefaultSwapPricingSchedule[] calibrationSchedules = hazardRateCurve.getCalibrationSchedules(calibrationCDS, marketTenors, yieldCurve);
+
+    // Calibrate the hazard rate curve to the market observed par CDS spreads
+    final double[] calibratedHazardRates = hazardRateCurve.getCalibratedHazardRateTermStructure(calibrationCDS, marketTenors, marketSpreads, calibrationSchedules,
+        new double[numberOfTenors], 0);
+
+    final HazardRateCurve calibratedHazardRateCurve = new HazardRateCurve(times, calibratedHazardRates, 0.0);
+
+    // -------------------------------------------------------------
+
+    // Calibrate a hazard rate curve to each set of bumped spreads (only the tenors from the first bumped one onwards need recalibrating)
+    final List<Callable<HazardRateCurve>> calibrationTasks = new ArrayList<Callable<HazardRateCurve>>(numberOfBumps);
+
+    for (int k = 0; k < numberOfBumps; k++) {
+
+      final int firstBumpedTenor = bucketed ? k : 0;
+      final int lastBumpedTenor = bucketed ? k : numberOfTenors - 1;
+
+      calibrationTasks.add(new Callable<HazardRateCurve>() {
+        @Override
+        public HazardRateCurve call() {
+
+          final double[] bumpedMarketSpreads = marketSpreads.clone();
+
+          for (int m = firstBumpedTenor; m <= lastBumpedTenor; m++) {
+            bumpedMarketSpreads[m] = getBumpedSpread(marketSpreads[m], spreadBump, spreadBumpType);
+          }
+
+          final double[] bumpedCalibratedHazardRates = hazardRateCurve.getCalibratedHazardRateTermStructure(calibrationCDS, marketTenors, bumpedMarketSpreads,
+              calibrationSchedules, calibratedHazardRates, firstBumpedTenor);
+
+          return new HazardRateCurve(times, bumpedCalibratedHazardRates, 0.0);
+        }
+      });
+    }
+
+    final List<HazardRateCurve> bumpedCalibratedHazardRateCurves = execute(calibrationTasks);
+
+    // -------------------------------------------------------------
+
+    // Value the book against the base and bumped curves, in blocks of CDS's
+    final double[][] cs01 = new double[cdsBook.length][];
+
+    final int blockSize = Math.max(1, Math.min(BOOK_BLOCK_SIZE, cdsBook.length / 32));
+
+    final List<Callable<Object>> valuationTasks = new ArrayList<Callable<Object>>();
+
+    for (int start = 0; start < cdsBook.length; start += blockSize) {
+
+      final int blockStart = start;
+      final int blockEnd = Math.min(start + blockSize, cdsBook.length);
+
+      valuationTasks.add(new Callable<Object>() {
+        @Override
+        public Object call() {
+
+          // Call the constructor to create a CDS present value object
+          final PresentValueLegacyCreditDefaultSwap creditDefaultSwap = new PresentValueLegacyCreditDefaultSwap();
+
+          for (int i = blockStart; i < blockEnd; i++) {
+
+            // The schedules and discount factors of the CDS are the same for the base and bumped curves
+            final LegacyCreditDefaultSwapPricingSchedule pricingSchedule = new LegacyCreditDefaultSwapPricingSchedule(cdsBook[i], yieldCurve, calibratedHazardRateCurve);
+
+            // Calculate the unbumped CDS PV using the calibrated hazard rate term structure
+            final double presentValue = creditDefaultSwap.getPresentValueCreditDefaultSwap(cdsBook[i], pricingSchedule, calibratedHazardRateCurve);
+
+            cs01[i] = new double[numberOfBumps];
+
+            for (int k = 0; k < numberOfBumps; k++) {
+
+              // Calculate the bumped CDS PV using the calibrated bumped hazard rate term structure
+              final double bumpedPresentValue = creditDefaultSwap.getPresentValueCreditDefaultSwap(cdsBook[i], pricingSchedule, bumpedCalibratedHazardRateCurves.get(k));
+
+              cs01[i][k] = (bumpedPresentValue - presentValue) / spreadBump;
+            }
+          }
+
+          return null;
+        }
+      });
+    }
+
+    execute(valuationTasks);
+
+    // -------------------------------------------------------------
+
+    return cs01;
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Method to bump a market spread
+  private static double getBumpedSpread(double marketSpread, double spreadBump, SpreadBumpType spreadBumpType) {
+
+    switch (spreadBumpType) {
+      case ADDITIVE_PARALLEL:
+      case ADDITIVE_BUCKETED:
+        return marketSpread + spreadBump;
+      case MULTIPLICATIVE_PARALLEL:
+      case MULTIPLICATIVE_BUCKETED:
+        return marketSpread * (1 + spreadBump);
+      default:
+        throw new IllegalArgumentException("Cannot handle spread bump type " + spreadBumpType);
+    }
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Method to run a set of tasks on the executor service (or on the calling thread if there is no executor service), returning the results in order
+  private <T> List<T> execute(List<Callable<T>> tasks) {
+
+    final List<T> results = new ArrayList<T>(tasks.size());
+
+    try {
+
+      if (_executorService == null || tasks.size() == 1) {
+        for (Callable<T> task : tasks) {
+          results.add(task.call());
+        }
+      } else {
+        for (Future<T> future : _executorService.invokeAll(tasks)) {
+          results.add(future.get());
+        }
+      }
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted while computing CS01", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new OpenGammaRuntimeException("Unable to compute CS01", ex.getCause());
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new OpenGammaRuntimeException("Unable to compute CS01", ex);
+    }
 
-    return bucketedCS01;
+    return results;
   }
 
   // -------------------------------------------------------------------------------------------------
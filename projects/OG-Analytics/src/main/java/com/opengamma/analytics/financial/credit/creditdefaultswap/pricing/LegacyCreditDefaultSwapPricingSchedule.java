@@ -0,0 +1,296 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.credit.creditdefaultswap.pricing;
+
+import java.util.Arrays;
+
+import javax.time.calendar.ZonedDateTime;
+
+import com.opengamma.analytics.financial.credit.PriceType;
+import com.opengamma.analytics.financial.credit.cds.ISDACurve;
+import com.opengamma.analytics.financial.credit.creditdefaultswap.definition.LegacyCreditDefaultSwapDefinition;
+import com.opengamma.analytics.financial.credit.hazardratemodel.HazardRateCurve;
+import com.opengamma.analytics.financial.credit.schedulegeneration.GenerateCreditDefaultSwapIntegrationSchedule;
+import com.opengamma.analytics.financial.credit.schedulegeneration.GenerateCreditDefaultSwapPremiumLegSchedule;
+import com.opengamma.analytics.util.time.TimeCalculator;
+import com.opengamma.financial.convention.daycount.DayCount;
+import com.opengamma.financial.convention.daycount.DayCountFactory;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Class holding the parts of a vanilla Legacy CDS valuation that do not depend on the hazard rates : the premium leg cashflow schedule,
+ * the accrued and contingent leg integration schedules and the discount factors at all of these points
+ * <p>
+ * The integration schedules depend on the time nodes of the hazard rate curve but not on its hazard rates, so a schedule built once can be
+ * used to value the CDS against any number of hazard rate curves with the same time nodes (e.g. the bumped curves of a CS01 calculation or
+ * the trial curves of a hazard rate calibration) without regenerating the schedules or re-interpolating the yield curve
+ * <p>
+ * The contractual spread is not part of the schedule, so the schedule can also be used for CDS's that differ from the original only by their spread
+ * <p>
+ * This class is immutable and thread-safe
+ */
+public class LegacyCreditDefaultSwapPricingSchedule {
+
+  // -------------------------------------------------------------------------------------------------
+
+  private static final DayCount ACT_365 = DayCountFactory.INSTANCE.getDayCount("ACT/365");
+
+  // -------------------------------------------------------------------------------------------------
+
+  // The (shifted) time nodes of the hazard rate curve the integration schedules were built for
+  private final double[] _hazardRateTimePoints;
+
+  // Flag to indicate that the valuation date is the adjusted maturity date (the premium leg has no value)
+  private final boolean _matured;
+
+  // The premium leg survival probability times, daycount fractions and discount factors for the coupons remaining after the valuation date
+  private final double[] _premiumLegTimes;
+  private final double[] _premiumLegDayCountFractions;
+  private final double[] _premiumLegDiscountFactors;
+
+  // The range of the accrued leg integration schedule covered by each remaining coupon (null if the accrued premium is not included)
+  private final int[] _accruedLegStartIndices;
+  private final int[] _accruedLegEndIndices;
+
+  // The accrued leg integration schedule and the discount factors at each point
+  private final double[] _accruedLegIntegrationSchedule;
+  private final double[] _accruedLegDiscountFactors;
+
+  private final double _offsetStepinTime;
+
+  // The contingent leg integration schedule and the discount factors at each point
+  private final double[] _contingentLegIntegrationSchedule;
+  private final double[] _contingentLegDiscountFactors;
+
+  // The daycount fraction between the previous coupon date and the stepin date (zero unless the clean price is required)
+  private final double _accruedInterestDayCountFraction;
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Ctor to build the schedules of a CDS for valuation against hazard rate curves with the same time nodes as the input hazard rate curve
+  public LegacyCreditDefaultSwapPricingSchedule(LegacyCreditDefaultSwapDefinition cds, ISDACurve yieldCurve, HazardRateCurve hazardRateCurve) {
+
+    // -------------------------------------------------------------
+
+    // Check input CDS, YieldCurve and SurvivalCurve objects are not null
+
+    ArgumentChecker.notNull(cds, "LegacyCreditDefaultSwapDefinition");
+    ArgumentChecker.notNull(yieldCurve, "YieldCurve");
+    ArgumentChecker.notNull(hazardRateCurve, "HazardRateCurve");
+
+    // -------------------------------------------------------------
+
+    _hazardRateTimePoints = hazardRateCurve.getShiftedTimePoints().clone();
+
+    // Construct a cashflow schedule object for the premium leg
+    final GenerateCreditDefaultSwapPremiumLegSchedule cashflowSchedule = new GenerateCreditDefaultSwapPremiumLegSchedule();
+
+    // Build the premium leg cashflow schedule from the contract specification
+    final ZonedDateTime[] premiumLegSchedule = cashflowSchedule.constructCreditDefaultSwapPremiumLegSchedule(cds);
+
+    // Construct a schedule object for the accrued and contingent legs
+    final GenerateCreditDefaultSwapIntegrationSchedule integrationSchedule = new GenerateCreditDefaultSwapIntegrationSchedule();
+
+    // Build the integration schedules and compute the discount factors at each of the time nodes
+    _accruedLegIntegrationSchedule = integrationSchedule.constructCreditDefaultSwapAccruedLegIntegrationSchedule(cds, yieldCurve, hazardRateCurve);
+    _accruedLegDiscountFactors = getDiscountFactors(yieldCurve, _accruedLegIntegrationSchedule);
+
+    _contingentLegIntegrationSchedule = integrationSchedule.constructCreditDefaultSwapContingentLegIntegrationSchedule(cds, yieldCurve, hazardRateCurve);
+    _contingentLegDiscountFactors = getDiscountFactors(yieldCurve, _contingentLegIntegrationSchedule);
+
+    // Calculate the stepin time with the appropriate offset
+    _offsetStepinTime = integrationSchedule.calculateCreditDefaultSwapOffsetStepinTime(cds, ACT_365);
+
+    // -------------------------------------------------------------
+
+    // Get the date on which we want to calculate the MtM
+    final ZonedDateTime valuationDate = cds.getValuationDate();
+
+    // Get the (adjusted) maturity date of the trade
+    final ZonedDateTime adjustedMaturityDate = cashflowSchedule.getAdjustedMaturityDate(cds);
+
+    // If the valuationDate is after the adjusted maturity date then throw an exception (differs from check in ctor because of the adjusted maturity date)
+    ArgumentChecker.isTrue(!valuationDate.isAfter(adjustedMaturityDate), "Valuation date {} must be on or before the adjusted maturity date {}", valuationDate, adjustedMaturityDate);
+
+    _matured = valuationDate.equals(adjustedMaturityDate);
+
+    // -------------------------------------------------------------
+
+    // Determine where in the cashflow schedule the valuationDate is
+    final int startCashflowIndex = _matured ? premiumLegSchedule.length : getCashflowIndex(cds, premiumLegSchedule, 1, 1);
+
+    final int numberOfCoupons = premiumLegSchedule.length - startCashflowIndex;
+
+    _premiumLegTimes = new double[numberOfCoupons];
+    _premiumLegDayCountFractions = new double[numberOfCoupons];
+    _premiumLegDiscountFactors = new double[numberOfCoupons];
+
+    _accruedLegStartIndices = cds.getIncludeAccruedPremium() ? new int[numberOfCoupons] : null;
+    _accruedLegEndIndices = cds.getIncludeAccruedPremium() ? new int[numberOfCoupons] : null;
+
+    int endIndex = 0;
+
+    for (int i = startCashflowIndex; i < premiumLegSchedule.length; i++) {
+
+      final int coupon = i - startCashflowIndex;
+
+      // Get the beginning and end dates of the current coupon
+      ZonedDateTime accrualStart = premiumLegSchedule[i - 1];
+      ZonedDateTime accrualEnd = premiumLegSchedule[i];
+
+      // Calculate the time between the valuation date (time at which survival probability is unity) and the current cashflow
+      double t = TimeCalculator.getTimeBetween(valuationDate, accrualEnd, ACT_365);
+
+      // Calculate the discount factor at time t
+      _premiumLegDiscountFactors[coupon] = yieldCurve.getDiscountFactor(t);
+
+      // If protection starts at the beginning of the period ...
+      if (cds.getProtectionStart()) {
+
+        // ... Roll all but the last date back by 1/365 of a year
+        if (i < premiumLegSchedule.length - 1) {
+          t -= cds.getProtectionOffset();
+        }
+
+        // This is a bit of a hack - need a more elegant way of dealing with the timing nuances
+        if (i == 1) {
+          accrualStart = accrualStart.minusDays(1);
+        }
+
+        // ... Roll the final maturity date forward by one day
+        if (i == premiumLegSchedule.length - 1) {
+          accrualEnd = accrualEnd.plusDays(1);
+        }
+      }
+
+      _premiumLegTimes[coupon] = t;
+
+      // Compute the daycount fraction for the current accrual period
+      _premiumLegDayCountFractions[coupon] = cds.getDayCountFractionConvention().getDayCountFraction(accrualStart, accrualEnd);
+
+      // Find the part of the accrued leg integration schedule covered by this coupon
+      if (cds.getIncludeAccruedPremium()) {
+
+        _accruedLegStartIndices[coupon] = endIndex;
+
+        while (_accruedLegIntegrationSchedule[endIndex] < t) {
+          ++endIndex;
+        }
+
+        _accruedLegEndIndices[coupon] = endIndex;
+      }
+    }
+
+    // -------------------------------------------------------------
+
+    // If we require the clean price, then calculate the daycount fraction between the last coupon before the valuation date and the stepin date
+    if (cds.getPriceType() == PriceType.CLEAN) {
+
+      // Assume the stepin date is the valuation date + 1 day (this is not business day adjusted)
+      final ZonedDateTime stepinDate = valuationDate.plusDays(1);
+
+      // Get the date of the last coupon before the current valuation date
+      final ZonedDateTime previousPeriod = premiumLegSchedule[getCashflowIndex(cds, premiumLegSchedule, 0, 1) - 1];
+
+      _accruedInterestDayCountFraction = cds.getDayCountFractionConvention().getDayCountFraction(previousPeriod, stepinDate);
+    } else {
+      _accruedInterestDayCountFraction = 0.0;
+    }
+
+    // -------------------------------------------------------------
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Check that a hazard rate curve has the time nodes this schedule was built for
+  public boolean isCompatible(HazardRateCurve hazardRateCurve) {
+
+    ArgumentChecker.notNull(hazardRateCurve, "HazardRateCurve");
+
+    return Arrays.equals(_hazardRateTimePoints, hazardRateCurve.getShiftedTimePoints());
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  boolean isMatured() {
+    return _matured;
+  }
+
+  double[] getPremiumLegTimes() {
+    return _premiumLegTimes;
+  }
+
+  double[] getPremiumLegDayCountFractions() {
+    return _premiumLegDayCountFractions;
+  }
+
+  double[] getPremiumLegDiscountFactors() {
+    return _premiumLegDiscountFactors;
+  }
+
+  int[] getAccruedLegStartIndices() {
+    return _accruedLegStartIndices;
+  }
+
+  int[] getAccruedLegEndIndices() {
+    return _accruedLegEndIndices;
+  }
+
+  double[] getAccruedLegIntegrationSchedule() {
+    return _accruedLegIntegrationSchedule;
+  }
+
+  double[] getAccruedLegDiscountFactors() {
+    return _accruedLegDiscountFactors;
+  }
+
+  double getOffsetStepinTime() {
+    return _offsetStepinTime;
+  }
+
+  double[] getContingentLegIntegrationSchedule() {
+    return _contingentLegIntegrationSchedule;
+  }
+
+  double[] getContingentLegDiscountFactors() {
+    return _contingentLegDiscountFactors;
+  }
+
+  double getAccruedInterestDayCountFraction() {
+    return _accruedInterestDayCountFraction;
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Method to compute the discount factors at each point of a schedule
+  private static double[] getDiscountFactors(ISDACurve yieldCurve, double[] schedule) {
+
+    final double[] discountFactors = new double[schedule.length];
+
+    for (int i = 0; i < schedule.length; i++) {
+      discountFactors[i] = yieldCurve.getDiscountFactor(schedule[i]);
+    }
+
+    return discountFactors;
+  }
+
+  // -------------------------------------------------------------------------------------------------
+
+  // Method to determine where in the premium leg cashflow schedule the valuation date is
+  private static int getCashflowIndex(LegacyCreditDefaultSwapDefinition cds, ZonedDateTime[] premiumLegSchedule, final int startIndex, final int deltaDays) {
+
+    int counter = startIndex;
+
+    // Determine where in the cashflow schedule the valuationDate is
+    while (!cds.getValuationDate().isBefore(premiumLegSchedule[counter].minusDays(deltaDays))) {
+      counter++;
+    }
+
+    return counter;
+  }
+
+  // -------------------------------------------------------------------------------------------------
+}
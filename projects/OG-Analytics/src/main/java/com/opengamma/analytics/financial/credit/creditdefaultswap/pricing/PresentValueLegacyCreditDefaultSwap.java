@@ -12,7 +12,6 @@ import com.opengamma.analytics.financial.credit.PriceType;
 import com.opengamma.analytics.financial.credit.cds.ISDACurve;
 import com.opengamma.analytics.financial.credit.creditdefaultswap.definition.LegacyCreditDefaultSwapDefinition;
 import com.opengamma.analytics.financial.credit.hazardratemodel.HazardRateCurve;
-import com.opengamma.analytics.financial.credit.schedulegeneration.GenerateCreditDefaultSwapIntegrationSchedule;
 import com.opengamma.analytics.financial.credit.schedulegeneration.GenerateCreditDefaultSwapPremiumLegSchedule;
 import com.opengamma.analytics.util.time.TimeCalculator;
 import com.opengamma.financial.convention.daycount.DayCount;
@@ -50,7 +49,6 @@ public class PresentValueLegacyCreditDefaultSwap {
   // TODO : Fix the bug when val date is very close to mat date
   // TODO : Need to add the code for when the settlement date > 0 business days (just a discount factor)
   // TODO : Replace the while with a binary search function
-  // TODO : Should build the cashflow schedules outside of the leg valuation routines to avoid repitition of calculations
   // TODO : Eventually replace the ISDACurve with a YieldCurve object (currently using ISDACurve built by RiskCare as this allows exact comparison with the ISDA model)
   // TODO : Replace the accrued schedule double with a ZonedDateTime object to make it consistent with other calculations
   // TODO : Tidy up the calculatePremiumLeg, valueFeeLegAccrualOnDefault and methods
@@ -71,33 +69,35 @@ public class PresentValueLegacyCreditDefaultSwap {
 
     // -------------------------------------------------------------
 
-    // Calculate the value of the premium leg (including accrued if required)
-    double presentValuePremiumLeg = calculatePremiumLeg(cds, yieldCurve, hazardRateCurve);
+    // Build the cashflow and integration schedules (and the discount factors) for this CDS
+    final LegacyCreditDefaultSwapPricingSchedule pricingSchedule = new LegacyCreditDefaultSwapPricingSchedule(cds, yieldCurve, hazardRateCurve);
 
-    // Calculate the value of the contingent leg
-    double presentValueContingentLeg = calculateContingentLeg(cds, yieldCurve, hazardRateCurve);
+    return calculatePresentValue(cds, pricingSchedule, hazardRateCurve);
+  }
 
-    // Calculate the PV of the CDS (assumes we are buying protection i.e. paying the premium leg, receiving the contingent leg)
-    double presentValue = -(cds.getParSpread() / 10000.0) * presentValuePremiumLeg + presentValueContingentLeg;
+  //-------------------------------------------------------------------------------------------------
+
+  // Public method for computing the PV of a CDS using previously built schedules (with a hazard rate curve with the same time nodes as the one the schedules were built for)
+  // The CDS must be the one the schedules were built for, or differ from it only by its contractual spread
+  public double getPresentValueCreditDefaultSwap(LegacyCreditDefaultSwapDefinition cds, LegacyCreditDefaultSwapPricingSchedule pricingSchedule, HazardRateCurve hazardRateCurve) {
 
     // -------------------------------------------------------------
 
-    // If we require the clean price, then calculate the accrued interest and add this to the PV
-    if (cds.getPriceType() == PriceType.CLEAN) {
-      presentValue += calculateAccruedInterest(cds, yieldCurve, hazardRateCurve);
-    }
+    // Check input CDS, schedule and SurvivalCurve objects are not null
 
-    // If we are selling protection, then reverse the direction of the premium and contingent leg cashflows
-    if (cds.getBuySellProtection() == BuySellProtection.SELL) {
-      presentValue = -1 * presentValue;
-    }
+    ArgumentChecker.notNull(cds, "LegacyCreditDefaultSwapDefinition");
+    ArgumentChecker.notNull(pricingSchedule, "LegacyCreditDefaultSwapPricingSchedule");
+    ArgumentChecker.notNull(hazardRateCurve, "HazardRateCurve");
+
+    // Check the integration schedules are valid for this hazard rate curve
+    ArgumentChecker.isTrue(pricingSchedule.isCompatible(hazardRateCurve), "Hazard rate curve time nodes differ from those of the pricing schedule");
 
     // -------------------------------------------------------------
 
-    return presentValue;
+    return calculatePresentValue(cds, pricingSchedule, hazardRateCurve);
   }
 
-  //-------------------------------------------------------------------------------------------------  
+  //-------------------------------------------------------------------------------------------------
 
   // Public method to calculate the par spread of a CDS at contract inception (with a hazard rate curve calibrated to market observed data)
   public double getParSpreadCreditDefaultSwap(LegacyCreditDefaultSwapDefinition cds, ISDACurve yieldCurve, HazardRateCurve hazardRateCurve) {
@@ -121,13 +121,16 @@ public class PresentValueLegacyCreditDefaultSwap {
     // Check if the valuationDate equals the adjusted effective date (have to do this after the schedule is constructed)
     ArgumentChecker.isTrue(cds.getValuationDate().equals(cashflowSchedule.getAdjustedEffectiveDate(cds)), "Valuation Date should equal the adjusted effective date when computing par spreads");
 
+    // Build the cashflow and integration schedules (and the discount factors) for this CDS
+    final LegacyCreditDefaultSwapPricingSchedule pricingSchedule = new LegacyCreditDefaultSwapPricingSchedule(cds, yieldCurve, hazardRateCurve);
+
     // -------------------------------------------------------------
 
     // Calculate the value of the premium leg
-    double presentValuePremiumLeg = calculatePremiumLeg(cds, yieldCurve, hazardRateCurve);
+    double presentValuePremiumLeg = calculatePremiumLeg(cds, pricingSchedule, hazardRateCurve);
 
     // Calculate the value of the contingent leg
-    double presentValueContingentLeg = calculateContingentLeg(cds, yieldCurve, hazardRateCurve);
+    double presentValueContingentLeg = calculateContingentLeg(cds, pricingSchedule, hazardRateCurve);
 
     // -------------------------------------------------------------
 
@@ -145,107 +148,69 @@ public class PresentValueLegacyCreditDefaultSwap {
 
   // -------------------------------------------------------------------------------------------------
 
-  // Method to calculate the value of the premium leg of a CDS (with a hazard rate curve calibrated to market observed data)
-  // The code for the accrued calc has just been lifted from RiskCare's implementation for now because it exactly reproduces the ISDA model - will replace with a better model in due course
-  private double calculatePremiumLeg(LegacyCreditDefaultSwapDefinition cds, ISDACurve yieldCurve, HazardRateCurve hazardRateCurve) {
+  // Method to calculate the PV of a CDS from its schedules
+  private double calculatePresentValue(LegacyCreditDefaultSwapDefinition cds, LegacyCreditDefaultSwapPricingSchedule pricingSchedule, HazardRateCurve hazardRateCurve) {
 
     // -------------------------------------------------------------
 
-    // Local variable definitions
-    int startIndex = 0;
-    int endIndex = 0;
-
-    double presentValuePremiumLeg = 0.0;
-    double presentValueAccruedInterest = 0.0;
-
-    // -------------------------------------------------------------
+    // Calculate the value of the premium leg (including accrued if required)
+    double presentValuePremiumLeg = calculatePremiumLeg(cds, pricingSchedule, hazardRateCurve);
 
-    // Construct a cashflow schedule object for the premium leg
-    final GenerateCreditDefaultSwapPremiumLegSchedule cashflowSchedule = new GenerateCreditDefaultSwapPremiumLegSchedule();
+    // Calculate the value of the contingent leg
+    double presentValueContingentLeg = calculateContingentLeg(cds, pricingSchedule, hazardRateCurve);
 
-    // Build the premium leg cashflow schedule from the contract specification
-    ZonedDateTime[] premiumLegSchedule = cashflowSchedule.constructCreditDefaultSwapPremiumLegSchedule(cds);
+    // Calculate the PV of the CDS (assumes we are buying protection i.e. paying the premium leg, receiving the contingent leg)
+    double presentValue = -(cds.getParSpread() / 10000.0) * presentValuePremiumLeg + presentValueContingentLeg;
 
-    // Construct a schedule object for the accrued leg (this is not a cashflow schedule per se, but a set of time nodes for evaluating the accrued payment integral)
-    GenerateCreditDefaultSwapIntegrationSchedule accruedSchedule = new GenerateCreditDefaultSwapIntegrationSchedule();
+    // -------------------------------------------------------------
 
-    // Build the integration schedule for the calculation of the accrued leg 
-    double[] accruedLegIntegrationSchedule = accruedSchedule.constructCreditDefaultSwapAccruedLegIntegrationSchedule(cds, yieldCurve, hazardRateCurve);
+    // If we require the clean price, then calculate the accrued interest and add this to the PV
+    if (cds.getPriceType() == PriceType.CLEAN) {
+      presentValue += calculateAccruedInterest(cds, pricingSchedule);
+    }
 
-    // Calculate the stepin time with the appropriate offset
-    double offsetStepinTime = accruedSchedule.calculateCreditDefaultSwapOffsetStepinTime(cds, ACT_365);
+    // If we are selling protection, then reverse the direction of the premium and contingent leg cashflows
+    if (cds.getBuySellProtection() == BuySellProtection.SELL) {
+      presentValue = -1 * presentValue;
+    }
 
     // -------------------------------------------------------------
 
-    // Get the date on which we want to calculate the MtM
-    ZonedDateTime valuationDate = cds.getValuationDate();
+    return presentValue;
+  }
 
-    // Get the (adjusted) maturity date of the trade
-    ZonedDateTime adjustedMaturityDate = cashflowSchedule.getAdjustedMaturityDate(cds);
+  // -------------------------------------------------------------------------------------------------
 
-    // -------------------------------------------------------------
+  // Method to calculate the value of the premium leg of a CDS (with a hazard rate curve calibrated to market observed data)
+  // The code for the accrued calc has just been lifted from RiskCare's implementation for now because it exactly reproduces the ISDA model - will replace with a better model in due course
+  private double calculatePremiumLeg(LegacyCreditDefaultSwapDefinition cds, LegacyCreditDefaultSwapPricingSchedule pricingSchedule, HazardRateCurve hazardRateCurve) {
 
-    // If the valuationDate is after the adjusted maturity date then throw an exception (differs from check in ctor because of the adjusted maturity date)
-    ArgumentChecker.isTrue(!valuationDate.isAfter(adjustedMaturityDate), "Valuation date {} must be on or before the adjusted maturity date {}", valuationDate, adjustedMaturityDate);
+    // -------------------------------------------------------------
 
     // If the valuation date is exactly the adjusted maturity date then simply return zero
-    if (valuationDate.equals(adjustedMaturityDate)) {
+    if (pricingSchedule.isMatured()) {
       return 0.0;
     }
 
     // -------------------------------------------------------------
 
-    // Determine where in the cashflow schedule the valuationDate is
-    int startCashflowIndex = getCashflowIndex(cds, premiumLegSchedule, 1, 1);
-
-    // -------------------------------------------------------------
-
-    // Calculate the value of the remaining premium and accrual payments (due after valuationDate) 
-    for (int i = startCashflowIndex; i < premiumLegSchedule.length; i++) {
-
-      // Get the beginning and end dates of the current coupon
-      ZonedDateTime accrualStart = premiumLegSchedule[i - 1];
-      ZonedDateTime accrualEnd = premiumLegSchedule[i];
-
-      // -------------------------------------------------------------
-
-      // Calculate the time between the valuation date (time at which survival probability is unity) and the current cashflow
-      double t = TimeCalculator.getTimeBetween(valuationDate, accrualEnd, ACT_365);
-
-      // Calculate the discount factor at time t
-      double discountFactor = yieldCurve.getDiscountFactor(t);
-
-      // -------------------------------------------------------------
-
-      // If protection starts at the beginning of the period ...
-      if (cds.getProtectionStart()) {
-
-        // ... Roll all but the last date back by 1/365 of a year 
-        if (i < premiumLegSchedule.length - 1) {
-          t -= cds.getProtectionOffset();
-        }
-
-        // This is a bit of a hack - need a more elegant way of dealing with the timing nuances
-        if (i == 1) {
-          accrualStart = accrualStart.minusDays(1);
-        }
+    double presentValuePremiumLeg = 0.0;
+    double presentValueAccruedInterest = 0.0;
 
-        // ... Roll the final maturity date forward by one day
-        if (i == premiumLegSchedule.length - 1) {
-          accrualEnd = accrualEnd.plusDays(1);
-        }
-      }
+    final double[] times = pricingSchedule.getPremiumLegTimes();
+    final double[] dayCountFractions = pricingSchedule.getPremiumLegDayCountFractions();
+    final double[] discountFactors = pricingSchedule.getPremiumLegDiscountFactors();
 
-      // -------------------------------------------------------------
+    // -------------------------------------------------------------
 
-      // Compute the daycount fraction for the current accrual period
-      double dcf = cds.getDayCountFractionConvention().getDayCountFraction(accrualStart, accrualEnd);
+    // Calculate the value of the remaining premium and accrual payments (due after valuationDate)
+    for (int i = 0; i < times.length; i++) {
 
-      // Calculate the survival probability at the modified time t
-      double survivalProbability = hazardRateCurve.getSurvivalProbability(t);
+      // Calculate the survival probability at the (modified) time of the cashflow
+      double survivalProbability = hazardRateCurve.getSurvivalProbability(times[i]);
 
       // Add this discounted cashflow to the running total for the value of the premium leg
-      presentValuePremiumLeg += dcf * discountFactor * survivalProbability;
+      presentValuePremiumLeg += dayCountFractions[i] * discountFactors[i] * survivalProbability;
 
       // -------------------------------------------------------------
 
@@ -255,14 +220,8 @@ public class PresentValueLegacyCreditDefaultSwap {
 
         double stepinDiscountFactor = 1.0;
 
-        startIndex = endIndex;
-
-        while (accruedLegIntegrationSchedule[endIndex] < t) {
-          ++endIndex;
-        }
-
-        presentValueAccruedInterest += valueFeeLegAccrualOnDefault(dcf, accruedLegIntegrationSchedule, yieldCurve, hazardRateCurve, startIndex, endIndex,
-            offsetStepinTime, stepinDiscountFactor);
+        presentValueAccruedInterest += valueFeeLegAccrualOnDefault(dayCountFractions[i], pricingSchedule, hazardRateCurve, pricingSchedule.getAccruedLegStartIndices()[i],
+            pricingSchedule.getAccruedLegEndIndices()[i], pricingSchedule.getOffsetStepinTime(), stepinDiscountFactor);
       }
 
       // -------------------------------------------------------------
@@ -278,10 +237,11 @@ public class PresentValueLegacyCreditDefaultSwap {
   //-------------------------------------------------------------------------------------------------
 
   // Need to re-write this code completely!!
-  private double valueFeeLegAccrualOnDefault(final double amount, final double[] timeline, final ISDACurve yieldCurve, final HazardRateCurve hazardRateCurve, final int startIndex,
+  private double valueFeeLegAccrualOnDefault(final double amount, final LegacyCreditDefaultSwapPricingSchedule pricingSchedule, final HazardRateCurve hazardRateCurve, final int startIndex,
       final int endIndex, final double stepinTime, final double stepinDiscountFactor) {
 
-    final double[] timePoints = timeline; //timeline.getTimePoints();
+    final double[] timePoints = pricingSchedule.getAccruedLegIntegrationSchedule();
+    final double[] discountFactors = pricingSchedule.getAccruedLegDiscountFactors();
 
     final double startTime = timePoints[startIndex];
     final double endTime = timePoints[endIndex];
@@ -296,7 +256,7 @@ public class PresentValueLegacyCreditDefaultSwap {
 
     double PRICING_TIME = 0.0;
 
-    discount0 = startTime < stepinTime || startTime < PRICING_TIME ? stepinDiscountFactor : yieldCurve.getDiscountFactor(timePoints[startIndex]); //discountFactors[startIndex];
+    discount0 = startTime < stepinTime || startTime < PRICING_TIME ? stepinDiscountFactor : discountFactors[startIndex];
 
     value = 0.0;
 
@@ -310,7 +270,7 @@ public class PresentValueLegacyCreditDefaultSwap {
       dt = t1 - t0;
 
       survival1 = hazardRateCurve.getSurvivalProbability(timePoints[i]);
-      discount1 = yieldCurve.getDiscountFactor(timePoints[i]); //discountFactors[i];
+      discount1 = discountFactors[i];
 
       lambda = Math.log(survival0 / survival1) / dt;
       fwdRate = Math.log(discount0 / discount1) / dt;
@@ -331,51 +291,18 @@ public class PresentValueLegacyCreditDefaultSwap {
   // -------------------------------------------------------------------------------------------------
 
   // If the cleanPrice flag is TRUE then this function is called to calculate the accrued interest between valuationDate and the previous coupon date 
-  private double calculateAccruedInterest(LegacyCreditDefaultSwapDefinition cds, ISDACurve yieldCurve, HazardRateCurve hazardRateCurve) {
-
-    // Construct a cashflow schedule object
-    final GenerateCreditDefaultSwapPremiumLegSchedule cashflowSchedule = new GenerateCreditDefaultSwapPremiumLegSchedule();
-
-    // Build the premium leg cashflow schedule from the contract specification
-    ZonedDateTime[] premiumLegSchedule = cashflowSchedule.constructCreditDefaultSwapPremiumLegSchedule(cds);
-
-    // Assume the stepin date is the valuation date + 1 day (this is not business day adjusted)
-    ZonedDateTime stepinDate = cds.getValuationDate().plusDays(1);
-
-    // Determine where in the premium leg cashflow schedule the current valuation date is
-    int startCashflowIndex = getCashflowIndex(cds, premiumLegSchedule, 0, 1);
+  private double calculateAccruedInterest(LegacyCreditDefaultSwapDefinition cds, LegacyCreditDefaultSwapPricingSchedule pricingSchedule) {
 
-    // Get the date of the last coupon before the current valuation date
-    ZonedDateTime previousPeriod = premiumLegSchedule[startCashflowIndex - 1];
-
-    // Compute the amount of time between previousPeriod and stepinDate
-    double dcf = cds.getDayCountFractionConvention().getDayCountFraction(previousPeriod, stepinDate);
-
-    // Calculate the accrued interest gained in this period of time
-    double accruedInterest = (cds.getParSpread() / 10000.0) * dcf * cds.getNotional();
+    // Calculate the accrued interest gained between the previous coupon date and the stepin date
+    double accruedInterest = (cds.getParSpread() / 10000.0) * pricingSchedule.getAccruedInterestDayCountFraction() * cds.getNotional();
 
     return accruedInterest;
   }
 
   // -------------------------------------------------------------------------------------------------
 
-  // Method to determine where in the premium leg cashflow schedule the valuation date is
-  private int getCashflowIndex(LegacyCreditDefaultSwapDefinition cds, ZonedDateTime[] premiumLegSchedule, final int startIndex, final int deltaDays) {
-
-    int counter = startIndex;
-
-    // Determine where in the cashflow schedule the valuationDate is
-    while (!cds.getValuationDate().isBefore(premiumLegSchedule[counter].minusDays(deltaDays))) {
-      counter++;
-    }
-
-    return counter;
-  }
-
-  // -------------------------------------------------------------------------------------------------
-
   // Method to calculate the contingent leg (replicates the calculation in the ISDA model)
-  private double calculateContingentLeg(LegacyCreditDefaultSwapDefinition cds, ISDACurve yieldCurve, HazardRateCurve hazardRateCurve) {
+  private double calculateContingentLeg(LegacyCreditDefaultSwapDefinition cds, LegacyCreditDefaultSwapPricingSchedule pricingSchedule, HazardRateCurve hazardRateCurve) {
 
     // -------------------------------------------------------------
 
@@ -384,11 +311,9 @@ public class PresentValueLegacyCreditDefaultSwap {
 
     // -------------------------------------------------------------
 
-    // Construct an integration schedule object for the contingent leg
-    GenerateCreditDefaultSwapIntegrationSchedule contingentLegSchedule = new GenerateCreditDefaultSwapIntegrationSchedule();
-
-    // Build the integration schedule for the calculation of the contingent leg 
-    double[] contingentLegIntegrationSchedule = contingentLegSchedule.constructCreditDefaultSwapContingentLegIntegrationSchedule(cds, yieldCurve, hazardRateCurve);
+    // Get the integration schedule for the calculation of the contingent leg and the discount factors at each point
+    final double[] contingentLegIntegrationSchedule = pricingSchedule.getContingentLegIntegrationSchedule();
+    final double[] discountFactors = pricingSchedule.getContingentLegDiscountFactors();
 
     // -------------------------------------------------------------
 
@@ -396,7 +321,7 @@ public class PresentValueLegacyCreditDefaultSwap {
     double survivalProbability = hazardRateCurve.getSurvivalProbability(contingentLegIntegrationSchedule[0]);
 
     // Get the discount factor at the first point in the integration schedule
-    double discountFactor = yieldCurve.getDiscountFactor(contingentLegIntegrationSchedule[0]);
+    double discountFactor = discountFactors[0];
 
     // -------------------------------------------------------------
 
@@ -416,7 +341,7 @@ public class PresentValueLegacyCreditDefaultSwap {
       survivalProbability = hazardRateCurve.getSurvivalProbability(contingentLegIntegrationSchedule[i]);
 
       // Get the discount factor at this point in the integration schedule
-      discountFactor = yieldCurve.getDiscountFactor(contingentLegIntegrationSchedule[i]);
+      discountFactor = discountFactors[i];
 
       // Calculate the forward hazard rate over the interval deltat (assumes the hazard rate is constant over this period)
       double hazardRate = Math.log(survivalProbabilityPrevious / survivalProbability) / deltat;
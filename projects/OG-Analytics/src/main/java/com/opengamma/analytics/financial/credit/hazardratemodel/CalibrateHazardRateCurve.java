@@ -9,6 +9,7 @@ import javax.time.calendar.ZonedDateTime;
 
 import com.opengamma.analytics.financial.credit.cds.ISDACurve;
 import com.opengamma.analytics.financial.credit.creditdefaultswap.definition.LegacyCreditDefaultSwapDefinition;
+import com.opengamma.analytics.financial.credit.creditdefaultswap.pricing.LegacyCreditDefaultSwapPricingSchedule;
 import com.opengamma.analytics.financial.credit.creditdefaultswap.pricing.PresentValueLegacyCreditDefaultSwap;
 import com.opengamma.analytics.financial.credit.schedulegeneration.GenerateCreditDefaultSwapPremiumLegSchedule;
 import com.opengamma.financial.convention.daycount.DayCountFactory;
@@ -69,35 +70,97 @@ public class CalibrateHazardRateCurve {
     // ----------------------------------------------------------------------------
 
     // Check the input arguments
+    ArgumentChecker.notNull(yieldCurve, "YieldCurve field");
+
+    checkMarketData(cds, tenors, marketSpreads);
+
+    // ----------------------------------------------------------------------------
+
+    // Build the schedules of the calibration CDS's and calibrate all of the tenors
+    return calibrateHazardRateTermStructure(cds, tenors, marketSpreads, getCalibrationSchedules(cds, tenors, yieldCurve), new double[tenors.length], 0);
+  }
+
+  // ------------------------------------------------------------------------
+
+  // Member function to recalibrate a hazard rate term structure after the market spreads from tenor firstTenor onwards have changed
+  // The hazard rates for the tenors before firstTenor only depend on the (unchanged) spreads of those tenors, so are taken from the input calibrated hazard rates
+  // The calibration schedules (from getCalibrationSchedules) do not depend on the market spreads, so can be shared between any number of recalibrations
+
+  public double[] getCalibratedHazardRateTermStructure(
+      LegacyCreditDefaultSwapDefinition cds,
+      ZonedDateTime[] tenors,
+      double[] marketSpreads,
+      LegacyCreditDefaultSwapPricingSchedule[] calibrationSchedules,
+      double[] calibratedHazardRates,
+      int firstTenor) {
+
+    // ----------------------------------------------------------------------------
+
+    // Check the input arguments
+    checkMarketData(cds, tenors, marketSpreads);
+
+    ArgumentChecker.notNull(calibrationSchedules, "Calibration schedules field");
+    ArgumentChecker.notNull(calibratedHazardRates, "Calibrated hazard rates field");
+
+    ArgumentChecker.isTrue(calibrationSchedules.length == tenors.length, "Number of tenors and number of calibration schedules should be equal");
+    ArgumentChecker.isTrue(calibratedHazardRates.length == tenors.length, "Number of tenors and number of calibrated hazard rates should be equal");
+    ArgumentChecker.isTrue(firstTenor >= 0 && firstTenor <= tenors.length, "First tenor to calibrate should be between 0 and the number of tenors");
+
+    // ----------------------------------------------------------------------------
+
+    return calibrateHazardRateTermStructure(cds, tenors, marketSpreads, calibrationSchedules, calibratedHazardRates.clone(), firstTenor);
+  }
+
+  // ------------------------------------------------------------------------
+
+  // Member function to build the cashflow and integration schedules of the CDS used to calibrate each tenor of the hazard rate term structure
+  // These depend on the tenors but not on the market spreads, so can be shared between calibrations to different (e.g. bumped) spreads
+
+  public LegacyCreditDefaultSwapPricingSchedule[] getCalibrationSchedules(LegacyCreditDefaultSwapDefinition cds, ZonedDateTime[] tenors, ISDACurve yieldCurve) {
+
+    // ----------------------------------------------------------------------------
 
-    // Check input CDS and YieldCurve objects are not null
     ArgumentChecker.notNull(cds, "CDS field");
+    ArgumentChecker.notNull(tenors, "Tenors field");
     ArgumentChecker.notNull(yieldCurve, "YieldCurve field");
 
-    // Check user data input is not null
-    ArgumentChecker.notNull(tenors, "Tenors field");
-    ArgumentChecker.notNull(marketSpreads, "Market observed CDS spreads field");
+    // ----------------------------------------------------------------------------
 
-    // Check that the number of input tenors matches the number of input spreads
-    ArgumentChecker.isTrue(tenors.length == marketSpreads.length, "Number of tenors and number of spreads should be equal");
+    LegacyCreditDefaultSwapPricingSchedule[] calibrationSchedules = new LegacyCreditDefaultSwapPricingSchedule[tenors.length];
 
-    // Check the efficacy of the input market data
+    // Convert the ZonedDateTime tenors into doubles (measured from valuationDate)
+    double[] tenorsAsDoubles = new GenerateCreditDefaultSwapPremiumLegSchedule().convertTenorsToDoubles(tenors, cds.getValuationDate(), DayCountFactory.INSTANCE.getDayCount("ACT/365"));
+
+    // ----------------------------------------------------------------------------
+
+    // Loop through each of the input tenors
     for (int m = 0; m < tenors.length; m++) {
 
-      ArgumentChecker.isTrue(tenors[m].isAfter(cds.getValuationDate()), "Calibration instrument of tenor {} is before the valuation date {}", tenors[m], cds.getValuationDate());
+      // Construct a temporary vector of the first m tenors (only the time nodes of the hazard rate curve affect the integration schedules)
+      double[] runningTenors = new double[m + 1];
 
-      if (tenors.length > 1 && m > 0) {
-        ArgumentChecker.isTrue(tenors[m].isAfter(tenors[m - 1]), "Tenors not in ascending order");
-      }
+      System.arraycopy(tenorsAsDoubles, 0, runningTenors, 0, m + 1);
 
-      ArgumentChecker.notNegative(marketSpreads[m], "Market spread at tenor " + tenors[m]);
-      ArgumentChecker.notZero(marketSpreads[m], _tolerance, "Market spread at tenor " + tenors[m]);
+      // Build the schedules of the calibration CDS with a maturity of tenor[m]
+      calibrationSchedules[m] = new LegacyCreditDefaultSwapPricingSchedule(cds.withMaturityDate(tenors[m]), yieldCurve, new HazardRateCurve(runningTenors, new double[m + 1], 0.0));
     }
 
     // ----------------------------------------------------------------------------
 
-    // Vector of (calibrated) piecewise constant hazard rates that we compute from the solver
-    double[] hazardRates = new double[tenors.length];
+    return calibrationSchedules;
+  }
+
+  // ------------------------------------------------------------------------
+
+  // Private method to bootstrap the hazard rates from tenor firstTenor onwards (the hazard rates for the earlier tenors are already in the hazardRates vector)
+
+  private double[] calibrateHazardRateTermStructure(
+      LegacyCreditDefaultSwapDefinition cds,
+      ZonedDateTime[] tenors,
+      double[] marketSpreads,
+      LegacyCreditDefaultSwapPricingSchedule[] calibrationSchedules,
+      double[] hazardRates,
+      int firstTenor) {
 
     // ----------------------------------------------------------------------------
 
@@ -117,8 +180,8 @@ public class CalibrateHazardRateCurve {
 
     // ----------------------------------------------------------------------------
 
-    // Loop through each of the input tenors
-    for (int m = 0; m < tenors.length; m++) {
+    // Loop through each of the input tenors that need calibrating
+    for (int m = firstTenor; m < tenors.length; m++) {
 
       // Construct a temporary vector of the first m tenors (note size of array)
       double[] runningTenors = new double[m + 1];
@@ -138,7 +201,7 @@ public class CalibrateHazardRateCurve {
       calibrationCDS = calibrationCDS.withSpread(marketSpreads[m]);
 
       // Compute the calibrated hazard rate for tenor[m] (using the calibrated hazard rates for tenors 1, ..., m - 1) 
-      hazardRates[m] = calibrateHazardRate(calibrationCDS, presentValueCDS, yieldCurve, runningTenors, runningHazardRates);
+      hazardRates[m] = calibrateHazardRate(calibrationCDS, presentValueCDS, calibrationSchedules[m], runningTenors, runningHazardRates);
     }
 
     // ----------------------------------------------------------------------------
@@ -148,12 +211,42 @@ public class CalibrateHazardRateCurve {
 
   // ------------------------------------------------------------------------
 
+  // Private method to check the efficacy of the market data to calibrate to
+
+  private void checkMarketData(LegacyCreditDefaultSwapDefinition cds, ZonedDateTime[] tenors, double[] marketSpreads) {
+
+    // Check input CDS object is not null
+    ArgumentChecker.notNull(cds, "CDS field");
+
+    // Check user data input is not null
+    ArgumentChecker.notNull(tenors, "Tenors field");
+    ArgumentChecker.notNull(marketSpreads, "Market observed CDS spreads field");
+
+    // Check that the number of input tenors matches the number of input spreads
+    ArgumentChecker.isTrue(tenors.length == marketSpreads.length, "Number of tenors and number of spreads should be equal");
+
+    // Check the efficacy of the input market data
+    for (int m = 0; m < tenors.length; m++) {
+
+      ArgumentChecker.isTrue(tenors[m].isAfter(cds.getValuationDate()), "Calibration instrument of tenor {} is before the valuation date {}", tenors[m], cds.getValuationDate());
+
+      if (tenors.length > 1 && m > 0) {
+        ArgumentChecker.isTrue(tenors[m].isAfter(tenors[m - 1]), "Tenors not in ascending order");
+      }
+
+      ArgumentChecker.notNegative(marketSpreads[m], "Market spread at tenor " + tenors[m]);
+      ArgumentChecker.notZero(marketSpreads[m], _tolerance, "Market spread at tenor " + tenors[m]);
+    }
+  }
+
+  // ------------------------------------------------------------------------
+
   // Private method to do the root search to find the hazard rate for tenor m which gives the CDS a PV of zero
 
   private double calibrateHazardRate(
       LegacyCreditDefaultSwapDefinition calibrationCDS,
       PresentValueLegacyCreditDefaultSwap presentValueCDS,
-      ISDACurve yieldCurve,
+      LegacyCreditDefaultSwapPricingSchedule calibrationSchedule,
       double[] runningTenors,
       double[] hazardRates) {
 
@@ -192,10 +285,10 @@ public class CalibrateHazardRateCurve {
     // Now do the root search (in hazard rate space) - simple bisection method for the moment (guaranteed to work and we are not concerned with speed at the moment)
 
     // Calculate the CDS PV at the lower hazard rate bound
-    double cdsPresentValueAtLowerPoint = calculateCDSPV(calibrationCDS, presentValueCDS, runningTenors, hazardRates, lowerHazardRate, yieldCurve, hazardRateCurve);
+    double cdsPresentValueAtLowerPoint = calculateCDSPV(calibrationCDS, presentValueCDS, runningTenors, hazardRates, lowerHazardRate, calibrationSchedule, hazardRateCurve);
 
     // Calculate the CDS PV at the upper hazard rate bound
-    double cdsPresentValueAtMidPoint = calculateCDSPV(calibrationCDS, presentValueCDS, runningTenors, hazardRates, upperHazardRate, yieldCurve, hazardRateCurve);
+    double cdsPresentValueAtMidPoint = calculateCDSPV(calibrationCDS, presentValueCDS, runningTenors, hazardRates, upperHazardRate, calibrationSchedule, hazardRateCurve);
 
     // Orient the search
     if (cdsPresentValueAtLowerPoint < 0.0) {
@@ -220,7 +313,7 @@ public class CalibrateHazardRateCurve {
       double hazardRateMidpoint = calibratedHazardRate + deltaHazardRate;
 
       // Calculate the CDS PV at the hazard rate range midpoint
-      cdsPresentValueAtMidPoint = calculateCDSPV(calibrationCDS, presentValueCDS, runningTenors, hazardRates, hazardRateMidpoint, yieldCurve, hazardRateCurve);
+      cdsPresentValueAtMidPoint = calculateCDSPV(calibrationCDS, presentValueCDS, runningTenors, hazardRates, hazardRateMidpoint, calibrationSchedule, hazardRateCurve);
 
       if (Double.doubleToLongBits(cdsPresentValueAtMidPoint) <= 0.0) {
         calibratedHazardRate = hazardRateMidpoint;
@@ -246,7 +339,7 @@ public class CalibrateHazardRateCurve {
       double[] tenors,
       double[] hazardRates,
       double hazardRateMidPoint,
-      ISDACurve yieldCurve,
+      LegacyCreditDefaultSwapPricingSchedule calibrationSchedule,
       HazardRateCurve hazardRateCurve) {
 
     // How many tenors in the hazard rate term structure have been previously calibrated
@@ -258,8 +351,8 @@ public class CalibrateHazardRateCurve {
     // Modify the survival curve so that it has the modified vector of hazard rates as an input to the ctor
     hazardRateCurve = hazardRateCurve.bootstrapHelperHazardRateCurve(tenors, hazardRates);
 
-    // Compute the PV of the CDS with this term structure of hazard rates
-    double cdsPresentValueAtMidpoint = presentValueCDS.getPresentValueCreditDefaultSwap(calibrationCDS, yieldCurve, hazardRateCurve);
+    // Compute the PV of the CDS with this term structure of hazard rates (the schedules and discount factors do not depend on the hazard rates so are reused)
+    double cdsPresentValueAtMidpoint = presentValueCDS.getPresentValueCreditDefaultSwap(calibrationCDS, calibrationSchedule, hazardRateCurve);
 
     return cdsPresentValueAtMidpoint;
   }
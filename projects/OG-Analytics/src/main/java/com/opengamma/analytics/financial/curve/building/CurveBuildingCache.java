@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.curve.building;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.ObjectsPair;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * The calibrated parameters and Jacobian of units of curves, used as the starting point of the next calibration of the same units.
+ * <p>
+ * A unit is identified by the names of its curves. When the market data moves a little between two calibrations,
+ * starting from the previous solution and Jacobian avoids most of the root finder steps and Jacobian evaluations.
+ * <p>
+ * This class is thread-safe.
+ */
+public class CurveBuildingCache {
+
+  /**
+   * The parameters and the Jacobian of the unit instruments with respect to those parameters, by unit curve names.
+   */
+  private final ConcurrentMap<List<String>, Pair<double[], DoubleMatrix2D>> _units = new ConcurrentHashMap<List<String>, Pair<double[], DoubleMatrix2D>>();
+
+  /**
+   * Returns the previous calibration of a unit.
+   * @param curveNames The names of the curves in the unit, in the order of the unit. Not null.
+   * @return The parameters and Jacobian, null if the unit has not been calibrated.
+   */
+  public Pair<double[], DoubleMatrix2D> getUnit(final List<String> curveNames) {
+    ArgumentChecker.notNull(curveNames, "curve names");
+    return _units.get(curveNames);
+  }
+
+  /**
+   * Stores the calibration of a unit, replacing any previous one.
+   * @param curveNames The names of the curves in the unit, in the order of the unit. Not null.
+   * @param parameters The calibrated parameters. Not null.
+   * @param jacobian The Jacobian of the unit instruments with respect to the parameters. Not null.
+   */
+  public void putUnit(final List<String> curveNames, final double[] parameters, final DoubleMatrix2D jacobian) {
+    ArgumentChecker.notNull(curveNames, "curve names");
+    ArgumentChecker.notNull(parameters, "parameters");
+    ArgumentChecker.notNull(jacobian, "Jacobian");
+    _units.put(new ArrayList<String>(curveNames), new ObjectsPair<double[], DoubleMatrix2D>(parameters.clone(), jacobian));
+  }
+
+  /**
+   * Returns the number of units stored.
+   * @return The number of units.
+   */
+  public int size() {
+    return _units.size();
+  }
+
+  /**
+   * Removes all the stored calibrations.
+   */
+  public void clear() {
+    _units.clear();
+  }
+
+}
@@ -11,6 +11,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.opengamma.analytics.financial.curve.generator.GeneratorYDCurve;
 import com.opengamma.analytics.financial.curve.sensitivity.ParameterUnderlyingSensitivityCalculator;
@@ -18,13 +20,19 @@ import com.opengamma.analytics.financial.interestrate.AbstractInstrumentDerivati
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivity;
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
+import com.opengamma.analytics.math.MathException;
 import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.Decomposition;
 import com.opengamma.analytics.math.linearalgebra.DecompositionFactory;
 import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
 import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.rootfinding.newton.BroydenMatrixUpdateFunction;
 import com.opengamma.analytics.math.rootfinding.newton.BroydenVectorRootFinder;
+import com.opengamma.analytics.math.rootfinding.newton.JacobianDirectionFunction;
+import com.opengamma.analytics.math.rootfinding.newton.NewtonRootFinderMatrixInitializationFunction;
+import com.opengamma.analytics.math.rootfinding.newton.NewtonVectorRootFinder;
 import com.opengamma.util.tuple.ObjectsPair;
 import com.opengamma.util.tuple.Pair;
 
@@ -34,6 +42,9 @@ import com.opengamma.util.tuple.Pair;
  */
 public class CurveBuildingFunction {
 
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(CurveBuildingFunction.class);
+
   /**
    * The absolute tolerance for the root finder.
    */
@@ -46,6 +57,10 @@ public class CurveBuildingFunction {
    * The relative tolerance for the root finder.
    */
   private final int _stepMaximum;
+  /**
+   * The decomposition used by the root finder.
+   */
+  private final Decomposition<?> _decomposition;
   /**
    * The root finder used for curve calibration.
    */
@@ -65,7 +80,8 @@ public class CurveBuildingFunction {
     _toleranceAbs = toleranceAbs;
     _toleranceRel = toleranceRel;
     _stepMaximum = stepMaximum;
-    _rootFinder = new BroydenVectorRootFinder(_toleranceAbs, _toleranceRel, _stepMaximum, DecompositionFactory.getDecomposition(DecompositionFactory.SV_COLT_NAME));
+    _decomposition = DecompositionFactory.getDecomposition(DecompositionFactory.SV_COLT_NAME);
+    _rootFinder = new BroydenVectorRootFinder(_toleranceAbs, _toleranceRel, _stepMaximum, _decomposition);
     // TODO: make the root finder flexible.
   }
 
@@ -89,6 +105,42 @@ public class CurveBuildingFunction {
     return new ObjectsPair<YieldCurveBundle, Double[]>(newCurves, ArrayUtils.toObject(parameters));
   }
 
+  /**
+   * Build a unit of curves, starting from a previous calibration of the same unit if available.
+   * The previous parameters are used as the initial guess and the previous Jacobian as the initial Jacobian estimate,
+   * so that a small change in the market data typically converges in a couple of steps without evaluating the Jacobian.
+   * If the root finder fails from the previous calibration, the unit is built from the initial guess.
+   * @param instruments The instruments used for the unit calibration.
+   * @param initGuess The initial parameters guess, used if there is no previous calibration.
+   * @param curveGenerators The map of curve names to curve generators used to build the unit.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @param previous The previous calibration of the unit, null if none.
+   * @return The new curves and the calibrated parameters.
+   */
+  private Pair<YieldCurveBundle, Double[]> makeUnit(InstrumentDerivative[] instruments, double[] initGuess, LinkedHashMap<String, GeneratorYDCurve> curveGenerators, YieldCurveBundle knownData,
+      final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, Double> calculator, final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, InterestRateCurveSensitivity> sensitivityCalculator,
+      final Pair<double[], DoubleMatrix2D> previous) {
+    if (previous == null || previous.getFirst().length != initGuess.length) {
+      return makeUnit(instruments, initGuess, curveGenerators, knownData, calculator, sensitivityCalculator);
+    }
+    final MultipleYieldCurveFinderGeneratorDataBundle data = new MultipleYieldCurveFinderGeneratorDataBundle(instruments, knownData, curveGenerators);
+    final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = new MultipleYieldCurveFinderGeneratorFunction(calculator, data);
+    final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = new MultipleYieldCurveFinderGeneratorJacobian(new ParameterUnderlyingSensitivityCalculator(sensitivityCalculator), data);
+    final NewtonVectorRootFinder rootFinder = new NewtonVectorRootFinder(_toleranceAbs, _toleranceRel, _stepMaximum, new JacobianDirectionFunction(_decomposition),
+        new PreviousJacobianInitializationFunction(previous.getSecond()), new BroydenMatrixUpdateFunction());
+    final double[] parameters;
+    try {
+      parameters = rootFinder.getRoot(curveCalculator, jacobianCalculator, new DoubleMatrix1D(previous.getFirst())).getData();
+    } catch (MathException ex) {
+      s_logger.debug("Unable to calibrate from the previous parameters, using the initial guess", ex);
+      return makeUnit(instruments, initGuess, curveGenerators, knownData, calculator, sensitivityCalculator);
+    }
+    final YieldCurveBundle newCurves = data.getBuildingFunction().evaluate(new DoubleMatrix1D(parameters));
+    return new ObjectsPair<YieldCurveBundle, Double[]>(newCurves, ArrayUtils.toObject(parameters));
+  }
+
   /**
    * Build the Jacobian matrixes associated to a unit of curves.
    * @param instruments The instruments used for the block calibration.
@@ -136,13 +188,40 @@ public class CurveBuildingFunction {
   public Pair<YieldCurveBundle, CurveBuildingBlockBundle> makeCurvesFromDerivatives(final InstrumentDerivative[][][] instruments, GeneratorYDCurve[][] curveGenerators, String[][] curveNames,
       double[][] parametersGuess, YieldCurveBundle knownData, final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, Double> calculator,
       final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, InterestRateCurveSensitivity> sensitivityCalculator) {
+    return makeCurvesFromDerivatives(instruments, curveGenerators, curveNames, parametersGuess, knownData, calculator, sensitivityCalculator, null);
+  }
+
+  /**
+   * Build a block of curves, reusing a previous calibration of the same units.
+   * <p>
+   * The units are calibrated in order, each one using the curves of the previous units as known data. The Jacobian of the
+   * instruments with respect to the parameters is therefore block lower triangular: the instruments of a unit do not depend
+   * on the curves of the later units. The inverse Jacobian is built one unit at a time from the inverse of the previous units,
+   * only inverting the diagonal block of the new unit and skipping the zero sensitivities to the curves of the previous units.
+   * <p>
+   * When a cache is provided, each unit found in it is calibrated starting from its previous parameters and Jacobian,
+   * and the cache is updated with the new calibration. This makes recalibration on small market data changes cheap.
+   * @param instruments The instruments used for the block calibration.
+   * @param curveGenerators The curve generators (final version). As an array of arrays, representing the units and the curves within the units.
+   * @param curveNames The names of the different curves. As an array of arrays, representing the units and the curves within the units.
+   * @param parametersGuess The initial guess for the parameters, used for the units not in the cache. As an array of arrays, representing the units and the parameters for one unit (all the curves of the unit concatenated).
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @param cache The previous calibrations, updated with the new ones. Null to calibrate from the initial guess.
+   * @return A pair with the calibrated yield curve bundle (including the known data) and the CurveBuildingBlckBundle with the relevant inverse Jacobian Matrix.
+   */
+  public Pair<YieldCurveBundle, CurveBuildingBlockBundle> makeCurvesFromDerivatives(final InstrumentDerivative[][][] instruments, GeneratorYDCurve[][] curveGenerators, String[][] curveNames,
+      double[][] parametersGuess, YieldCurveBundle knownData, final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, Double> calculator,
+      final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, InterestRateCurveSensitivity> sensitivityCalculator, final CurveBuildingCache cache) {
     int nbUnits = curveGenerators.length;
     YieldCurveBundle knownSoFarData = knownData.copy();
-    List<InstrumentDerivative> instrumentsSoFar = new ArrayList<InstrumentDerivative>();
     LinkedHashMap<String, GeneratorYDCurve> generatorsSoFar = new LinkedHashMap<String, GeneratorYDCurve>();
     LinkedHashMap<String, Pair<CurveBuildingBlock, DoubleMatrix2D>> unitBundleSoFar = new LinkedHashMap<String, Pair<CurveBuildingBlock, DoubleMatrix2D>>();
     List<Double> parametersSoFar = new ArrayList<Double>();
     LinkedHashMap<String, Pair<Integer, Integer>> unitMap = new LinkedHashMap<String, Pair<Integer, Integer>>();
+    // The rows of the inverse Jacobian so far. Each row stops at the end of its unit, the remaining elements being zero.
+    List<double[]> inverseSoFar = new ArrayList<double[]>();
     int startUnit = 0;
     for (int loopunit = 0; loopunit < nbUnits; loopunit++) {
       int nbCurve = curveGenerators[loopunit].length;
@@ -154,10 +233,8 @@ public class CurveBuildingFunction {
         startCurve[loopcurve] = nbInsUnit;
         nbIns[loopcurve] = instruments[loopunit][loopcurve].length;
         nbInsUnit += nbIns[loopcurve];
-        instrumentsSoFar.addAll(Arrays.asList(instruments[loopunit][loopcurve]));
       }
       InstrumentDerivative[] instrumentsUnit = new InstrumentDerivative[nbInsUnit];
-      InstrumentDerivative[] instrumentsSoFarArray = instrumentsSoFar.toArray(new InstrumentDerivative[0]);
       for (int loopcurve = 0; loopcurve < nbCurve; loopcurve++) {
         System.arraycopy(instruments[loopunit][loopcurve], 0, instrumentsUnit, startCurve[loopcurve], nbIns[loopcurve]);
       }
@@ -167,16 +244,118 @@ public class CurveBuildingFunction {
         generatorsSoFar.put(curveNames[loopunit][loopcurve], tmp);
         unitMap.put(curveNames[loopunit][loopcurve], new ObjectsPair<Integer, Integer>(startUnit + startCurve[loopcurve], nbIns[loopcurve]));
       }
-      Pair<YieldCurveBundle, Double[]> unitCal = makeUnit(instrumentsUnit, parametersGuess[loopunit], gen, knownSoFarData, calculator, sensitivityCalculator);
+      final List<String> unitNames = Arrays.asList(curveNames[loopunit]);
+      final Pair<double[], DoubleMatrix2D> previous = (cache != null) ? cache.getUnit(unitNames) : null;
+      Pair<YieldCurveBundle, Double[]> unitCal = makeUnit(instrumentsUnit, parametersGuess[loopunit], gen, knownSoFarData, calculator, sensitivityCalculator, previous);
       parametersSoFar.addAll(Arrays.asList(unitCal.getSecond()));
-      DoubleMatrix2D[] mat = makeCurveMatrix(instrumentsSoFarArray, generatorsSoFar, startUnit, nbIns, parametersSoFar.toArray(new Double[0]), knownData, sensitivityCalculator);
-      for (int loopcurve = 0; loopcurve < curveGenerators[loopunit].length; loopcurve++) {
-        unitBundleSoFar.put(curveNames[loopunit][loopcurve], new ObjectsPair<CurveBuildingBlock, DoubleMatrix2D>(new CurveBuildingBlock(unitMap), mat[loopcurve]));
+      final double[][] unitJacobian = makeUnitJacobian(instrumentsUnit, generatorsSoFar, parametersSoFar.toArray(new Double[parametersSoFar.size()]), knownData, sensitivityCalculator);
+      addUnitInverse(inverseSoFar, unitJacobian, startUnit);
+      if (cache != null) {
+        final double[][] unitDiagonal = new double[nbInsUnit][];
+        for (int loopins = 0; loopins < nbInsUnit; loopins++) {
+          unitDiagonal[loopins] = Arrays.copyOfRange(unitJacobian[loopins], startUnit, startUnit + nbInsUnit);
+        }
+        cache.putUnit(unitNames, ArrayUtils.toPrimitive(unitCal.getSecond()), new DoubleMatrix2D(unitDiagonal));
+      }
+      final int nbParametersSoFar = startUnit + nbInsUnit;
+      for (int loopcurve = 0; loopcurve < nbCurve; loopcurve++) {
+        double[][] matrixCurve = new double[nbIns[loopcurve]][];
+        for (int loopparam = 0; loopparam < nbIns[loopcurve]; loopparam++) {
+          matrixCurve[loopparam] = Arrays.copyOf(inverseSoFar.get(startUnit + startCurve[loopcurve] + loopparam), nbParametersSoFar);
+        }
+        unitBundleSoFar.put(curveNames[loopunit][loopcurve], new ObjectsPair<CurveBuildingBlock, DoubleMatrix2D>(new CurveBuildingBlock(unitMap), new DoubleMatrix2D(matrixCurve)));
       }
       knownSoFarData.addAll(unitCal.getFirst());
-      startUnit = startUnit + nbInsUnit;
+      startUnit = nbParametersSoFar;
     }
     return new ObjectsPair<YieldCurveBundle, CurveBuildingBlockBundle>(knownSoFarData, new CurveBuildingBlockBundle(unitBundleSoFar));
   }
 
+  /**
+   * Computes the Jacobian of the instruments of a unit with respect to the parameters of all the curves built so far.
+   * @param instruments The instruments of the unit.
+   * @param curveGenerators The map of curve names to curve generators of all the curves built so far.
+   * @param parameters The parameters of all the curves built so far.
+   * @param knownData The known data (FX rates, other curves, model parameters, ...) for the block calibration.
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @return The Jacobian rows of the unit instruments.
+   */
+  private double[][] makeUnitJacobian(InstrumentDerivative[] instruments, LinkedHashMap<String, GeneratorYDCurve> curveGenerators, Double[] parameters, YieldCurveBundle knownData,
+      final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, InterestRateCurveSensitivity> sensitivityCalculator) {
+    final MultipleYieldCurveFinderGeneratorDataBundle data = new MultipleYieldCurveFinderGeneratorDataBundle(instruments, knownData, curveGenerators);
+    final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = new MultipleYieldCurveFinderGeneratorJacobian(new ParameterUnderlyingSensitivityCalculator(sensitivityCalculator), data);
+    return jacobianCalculator.evaluate(new DoubleMatrix1D(parameters)).getData();
+  }
+
+  /**
+   * Adds the rows of a new unit to the inverse of a block lower triangular Jacobian.
+   * <p>
+   * With the Jacobian of the previous units A, and the rows of the new unit [C D], the new rows of the inverse are
+   * [-D<sup>-1</sup> C A<sup>-1</sup>, D<sup>-1</sup>]. Only D is inverted, and the zero elements of C, the instruments of the unit
+   * being insensitive to most of the previous curves, are skipped.
+   * @param inverse The rows of the inverse of A, each one stopping at the end of its unit. The new rows are added.
+   * @param unitJacobian The rows [C D] of the new unit.
+   * @param startUnit The number of parameters of the previous units.
+   */
+  private static void addUnitInverse(final List<double[]> inverse, final double[][] unitJacobian, final int startUnit) {
+    final int nbInsUnit = unitJacobian.length;
+    final int nbParameters = startUnit + nbInsUnit;
+    final double[][] diagonal = new double[nbInsUnit][];
+    for (int loopins = 0; loopins < nbInsUnit; loopins++) {
+      diagonal[loopins] = Arrays.copyOfRange(unitJacobian[loopins], startUnit, nbParameters);
+    }
+    final double[][] diagonalInverse = MATRIX_ALGEBRA.getInverse(new DoubleMatrix2D(diagonal)).getData();
+    // C A^-1
+    final double[][] coupling = new double[nbInsUnit][startUnit];
+    for (int loopins = 0; loopins < nbInsUnit; loopins++) {
+      final double[] row = unitJacobian[loopins];
+      final double[] couplingRow = coupling[loopins];
+      for (int loopparam = 0; loopparam < startUnit; loopparam++) {
+        final double c = row[loopparam];
+        if (c != 0.0) {
+          final double[] inverseRow = inverse.get(loopparam);
+          for (int k = 0; k < inverseRow.length; k++) {
+            couplingRow[k] += c * inverseRow[k];
+          }
+        }
+      }
+    }
+    for (int loopins = 0; loopins < nbInsUnit; loopins++) {
+      final double[] newRow = new double[nbParameters];
+      final double[] diagonalInverseRow = diagonalInverse[loopins];
+      for (int j = 0; j < nbInsUnit; j++) {
+        final double d = diagonalInverseRow[j];
+        newRow[startUnit + j] = d;
+        if (d != 0.0) {
+          final double[] couplingRow = coupling[j];
+          for (int k = 0; k < startUnit; k++) {
+            newRow[k] -= d * couplingRow[k];
+          }
+        }
+      }
+      inverse.add(newRow);
+    }
+  }
+
+  /**
+   * Initializes the root finder with a given Jacobian, then uses the Jacobian function for any later reinitialization.
+   */
+  private static final class PreviousJacobianInitializationFunction implements NewtonRootFinderMatrixInitializationFunction {
+    private DoubleMatrix2D _jacobian;
+
+    private PreviousJacobianInitializationFunction(final DoubleMatrix2D jacobian) {
+      _jacobian = jacobian;
+    }
+
+    @Override
+    public DoubleMatrix2D getInitializedMatrix(final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction, final DoubleMatrix1D x) {
+      if (_jacobian != null) {
+        final DoubleMatrix2D jacobian = _jacobian;
+        _jacobian = null;
+        return jacobian;
+      }
+      return jacobianFunction.evaluate(x);
+    }
+  }
+
 }
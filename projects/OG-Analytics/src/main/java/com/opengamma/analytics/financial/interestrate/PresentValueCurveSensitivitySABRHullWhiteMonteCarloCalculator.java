@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.interestrate;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponIborRatchet;
+import com.opengamma.analytics.financial.interestrate.swaption.derivative.SwaptionPhysicalFixedIbor;
+import com.opengamma.analytics.financial.model.interestrate.definition.HullWhiteOneFactorPiecewiseConstantDataBundle;
+import com.opengamma.analytics.financial.model.option.definition.SABRInterestRateDataBundle;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Present value curve sensitivity calculator for interest rate instruments using a Hull-White one factor model calibrated to SABR prices.
+ * The sensitivities are computed by adjoint algorithmic differentiation along the Monte Carlo paths, with the model parameters calibrated
+ * on the unbumped curves (the impact of the curves on the calibration is not included).
+ */
+public final class PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator extends PresentValueCurveSensitivityCalculator {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator.class);
+
+  /**
+   * The instance of the calculator.
+   */
+  private static final PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator INSTANCE = new PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator();
+
+  /**
+   * Return the instance of the calculator.
+   * @return The calculator.
+   */
+  public static PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Private constructor.
+   */
+  private PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator() {
+  }
+
+  /**
+   * The calculator is for test purposes only! It calibrates a Hull-White on a swaption priced with SABR and then computes the curve sensitivity of the same swaption
+   * in the Hull-White model by Monte Carlo. Do not use this calculator in production.
+   */
+  @Override
+  public Map<String, List<DoublesPair>> visitSwaptionPhysicalFixedIbor(final SwaptionPhysicalFixedIbor swaption, final YieldCurveBundle curves) {
+    LOGGER.warn("This calculator should be used for test purposes only, not in production!");
+    Validate.notNull(swaption);
+    Validate.notNull(curves);
+    if (!(curves instanceof SABRInterestRateDataBundle)) {
+      throw new UnsupportedOperationException("The PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator visitor visitSwaptionPhysicalFixedIbor requires a SABRInterestRateDataBundle as data.");
+    }
+    final HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = PresentValueSABRHullWhiteMonteCarloCalculator.calibrate(swaption, curves);
+    return PresentValueSABRHullWhiteMonteCarloCalculator.monteCarloMethod()
+        .presentValueCurveSensitivity(swaption, swaption.getUnderlyingSwap().getFirstLeg().getDiscountCurve(), hwBundle).getSensitivities();
+  }
+
+  @Override
+  public Map<String, List<DoublesPair>> visitAnnuityCouponIborRatchet(final AnnuityCouponIborRatchet annuity, final YieldCurveBundle curves) {
+    Validate.notNull(annuity);
+    Validate.notNull(curves);
+    if (!(curves instanceof SABRInterestRateDataBundle)) {
+      throw new UnsupportedOperationException("The PresentValueCurveSensitivitySABRHullWhiteMonteCarloCalculator visitor visitAnnuityCouponIborRatchet requires a SABRInterestRateDataBundle as data.");
+    }
+    final HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = PresentValueSABRHullWhiteMonteCarloCalculator.calibrate(annuity, curves);
+    return PresentValueSABRHullWhiteMonteCarloCalculator.monteCarloMethod().presentValueCurveSensitivity(annuity, annuity.getDiscountCurve(), hwBundle).getSensitivities();
+  }
+
+}
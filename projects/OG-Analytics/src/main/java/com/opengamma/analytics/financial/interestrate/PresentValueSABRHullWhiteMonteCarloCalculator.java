@@ -78,16 +78,9 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
     if (!(curves instanceof SABRInterestRateDataBundle)) {
       throw new UnsupportedOperationException("The PresentValueSABRHullWhiteMonteCarloCalculator visitor visitSwaptionPhysicalFixedIbor requires a SABRInterestRateDataBundle as data.");
     }
-    HullWhiteOneFactorPiecewiseConstantParameters hwParameters = new HullWhiteOneFactorPiecewiseConstantParameters(DEFAULT_MEAN_REVERSION, new double[] {0.01}, new double[0]);
-    SwaptionPhysicalHullWhiteCalibrationObjective objective = new SwaptionPhysicalHullWhiteCalibrationObjective(hwParameters);
-    SuccessiveRootFinderCalibrationEngine calibrationEngine = new SwaptionPhysicalHullWhiteSuccessiveRootFinderCalibrationEngine(objective);
-    // Calibration instruments
-    calibrationEngine.addInstrument(swaption, METHOD_SWAPTION_SABR);
-    // Calibration
-    calibrationEngine.calibrate(curves);
-    HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = new HullWhiteOneFactorPiecewiseConstantDataBundle(hwParameters, curves);
+    HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = calibrate(swaption, curves);
     // Pricing
-    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH);
+    HullWhiteMonteCarloMethod methodMC = monteCarloMethod();
     CurrencyAmount pvMC = methodMC.presentValue(swaption, swaption.getCurrency(), swaption.getUnderlyingSwap().getFirstLeg().getDiscountCurve(), hwBundle);
     return pvMC.getAmount();
   }
@@ -99,6 +92,37 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
     if (!(curves instanceof SABRInterestRateDataBundle)) {
       throw new UnsupportedOperationException("The PresentValueSABRHullWhiteMonteCarloCalculator visitor visitSwaptionPhysicalFixedIbor requires a SABRInterestRateDataBundle as data.");
     }
+    HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = calibrate(annuity, curves);
+    // Pricing
+    HullWhiteMonteCarloMethod methodMC = monteCarloMethod();
+    CurrencyAmount pvMC = methodMC.presentValue(annuity, annuity.getCurrency(), annuity.getDiscountCurve(), hwBundle);
+    return pvMC.getAmount();
+  }
+
+  /**
+   * Calibrates a Hull-White one factor model on a swaption priced with SABR.
+   * @param swaption The swaption.
+   * @param curves The SABR data bundle.
+   * @return The Hull-White data bundle with the calibrated parameters.
+   */
+  static HullWhiteOneFactorPiecewiseConstantDataBundle calibrate(final SwaptionPhysicalFixedIbor swaption, final YieldCurveBundle curves) {
+    HullWhiteOneFactorPiecewiseConstantParameters hwParameters = new HullWhiteOneFactorPiecewiseConstantParameters(DEFAULT_MEAN_REVERSION, new double[] {0.01}, new double[0]);
+    SwaptionPhysicalHullWhiteCalibrationObjective objective = new SwaptionPhysicalHullWhiteCalibrationObjective(hwParameters);
+    SuccessiveRootFinderCalibrationEngine calibrationEngine = new SwaptionPhysicalHullWhiteSuccessiveRootFinderCalibrationEngine(objective);
+    // Calibration instruments
+    calibrationEngine.addInstrument(swaption, METHOD_SWAPTION_SABR);
+    // Calibration
+    calibrationEngine.calibrate(curves);
+    return new HullWhiteOneFactorPiecewiseConstantDataBundle(hwParameters, curves);
+  }
+
+  /**
+   * Calibrates a Hull-White one factor model on the forward coupons of a ratchet priced with SABR as caps/floors.
+   * @param annuity The ratchet annuity.
+   * @param curves The SABR data bundle.
+   * @return The Hull-White data bundle with the calibrated parameters.
+   */
+  static HullWhiteOneFactorPiecewiseConstantDataBundle calibrate(final AnnuityCouponIborRatchet annuity, final YieldCurveBundle curves) {
     HullWhiteOneFactorPiecewiseConstantParameters hwParameters = new HullWhiteOneFactorPiecewiseConstantParameters(DEFAULT_MEAN_REVERSION, new double[] {0.01}, new double[0]);
     CapFloorHullWhiteCalibrationObjective objective = new CapFloorHullWhiteCalibrationObjective(hwParameters);
     SuccessiveRootFinderCalibrationEngine calibrationEngine = new CapFloorHullWhiteSuccessiveRootFinderCalibrationEngine(objective);
@@ -108,11 +132,15 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
     calibrationEngine.addInstrument(calibrationBasket, METHOD_CAP_SABR);
     // Calibration
     calibrationEngine.calibrate(curves);
-    HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = new HullWhiteOneFactorPiecewiseConstantDataBundle(hwParameters, curves);
-    // Pricing
-    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH);
-    CurrencyAmount pvMC = methodMC.presentValue(annuity, annuity.getCurrency(), annuity.getDiscountCurve(), hwBundle);
-    return pvMC.getAmount();
+    return new HullWhiteOneFactorPiecewiseConstantDataBundle(hwParameters, curves);
+  }
+
+  /**
+   * Returns the Monte Carlo method used for the pricing in the calibrated model.
+   * @return The method.
+   */
+  static HullWhiteMonteCarloMethod monteCarloMethod() {
+    return new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH);
   }
 
 }
@@ -79,6 +79,9 @@ public class CrankNicolsonFiniteDifference2D implements ConvectionDiffusionPDESo
     double t = 0.0;
     double a, b, c, d, e, f;
     final double[][] w = new double[size][9];
+    // The boundary conditions, reused at each time step
+    final double[][][] yBoundary = new double[2][xSteps + 1][];
+    final double[][][] xBoundary = new double[2][ySteps - 1][];
 
     for (int n = 0; n < tSteps; n++) {
       t += dt;
@@ -135,8 +138,6 @@ public class CrankNicolsonFiniteDifference2D implements ConvectionDiffusionPDESo
       }
 
       // The y boundary conditions
-      final double[][][] yBoundary = new double[2][xSteps + 1][];
-
       for (int i = 0; i <= xSteps; i++) {
         yBoundary[0][i] = yLowerBoundary.getLeftMatrixCondition(pdeData, t, x[i]);
         yBoundary[1][i] = yUpperBoundary.getLeftMatrixCondition(pdeData, t, x[i]);
@@ -159,8 +160,6 @@ public class CrankNicolsonFiniteDifference2D implements ConvectionDiffusionPDESo
       }
 
       // The x boundary conditions
-      final double[][][] xBoundary = new double[2][ySteps - 1][];
-
       for (int j = 1; j < ySteps; j++) {
         xBoundary[0][j - 1] = xLowerBoundary.getLeftMatrixCondition(pdeData, t, y[j]);
         xBoundary[1][j - 1] = xUpperBoundary.getLeftMatrixCondition(pdeData, t, y[j]);
@@ -364,6 +363,9 @@ public class CrankNicolsonFiniteDifference2D implements ConvectionDiffusionPDESo
 
     double a, b, c, d, e, f;
     final double[][] w = new double[size][9];
+    // The boundary conditions, reused at each time step
+    final double[][][] yBoundary = new double[2][xNodes][];
+    final double[][][] xBoundary = new double[2][yNodes - 2][];
 
     for (int n = 1; n < tNodes; n++) {
 
@@ -409,8 +411,6 @@ public class CrankNicolsonFiniteDifference2D implements ConvectionDiffusionPDESo
       }
 
       // The y boundary conditions
-      final double[][][] yBoundary = new double[2][xNodes][];
-
       for (int i = 0; i < xNodes; i++) {
         yBoundary[0][i] = yLowerBoundary.getLeftMatrixCondition(pdeData, timeGrid[n], xGrid[i]);
         yBoundary[1][i] = yUpperBoundary.getLeftMatrixCondition(pdeData, timeGrid[n], xGrid[i]);
@@ -433,8 +433,6 @@ public class CrankNicolsonFiniteDifference2D implements ConvectionDiffusionPDESo
       }
 
       // The x boundary conditions
-      final double[][][] xBoundary = new double[2][yNodes - 2][];
-
       for (int j = 1; j < yNodes - 1; j++) {
         xBoundary[0][j - 1] = xLowerBoundary.getLeftMatrixCondition(pdeData, timeGrid[n], yGrid[j]);
         xBoundary[1][j - 1] = xUpperBoundary.getLeftMatrixCondition(pdeData, timeGrid[n], yGrid[j]);
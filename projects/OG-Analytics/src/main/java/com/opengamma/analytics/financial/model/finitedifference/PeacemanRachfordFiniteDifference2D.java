@@ -5,8 +5,6 @@
  */
 package com.opengamma.analytics.financial.model.finitedifference;
 
-import org.apache.commons.lang.Validate;
-
 import com.opengamma.analytics.math.cube.Cube;
 
 /**
@@ -46,8 +44,8 @@ public class PeacemanRachfordFiniteDifference2D implements ConvectionDiffusionPD
 
     final double[] q = new double[xSteps + 1];
     final double[] r = new double[ySteps + 1];
-    final double[][] mx = new double[xSteps + 1][xSteps + 1];
-    final double[][] my = new double[ySteps + 1][ySteps + 1];
+    final TridiagonalSystem mx = new TridiagonalSystem(xSteps + 1);
+    final TridiagonalSystem my = new TridiagonalSystem(ySteps + 1);
 
     double currentX = 0;
     double currentY = 0;
@@ -91,23 +89,15 @@ public class PeacemanRachfordFiniteDifference2D implements ConvectionDiffusionPD
           b = pdeData.getB(t, x[i], y[j]);
           c = pdeData.getC(t, x[i], y[j]);
 
-          mx[i][i - 1] = 0.5 * (dtdx2 * a - 0.5 * dtdx * b);
-          mx[i][i] = 1 + 0.5 * (-2 * dtdx2 * a + 0.5 * dt * c);
-          mx[i][i + 1] = 0.5 * (dtdx2 * a + 0.5 * dtdx * b);
+          mx.setRow(i, 0.5 * (dtdx2 * a - 0.5 * dtdx * b), 1 + 0.5 * (-2 * dtdx2 * a + 0.5 * dt * c), 0.5 * (dtdx2 * a + 0.5 * dtdx * b));
 
           q[i] = vRight[i][j];
         }
 
-        double[] temp = xLowerBoundary.getLeftMatrixCondition(pdeData, t, y[j]);
-        for (int k = 0; k < temp.length; k++) {
-          mx[0][k] = temp[k];
-        }
-        temp = xUpperBoundary.getLeftMatrixCondition(pdeData, t, y[j]);
-        for (int k = 0; k < temp.length; k++) {
-          mx[xSteps][xSteps - k] = temp[k];
-        }
+        mx.setFirstRow(xLowerBoundary.getLeftMatrixCondition(pdeData, t, y[j]));
+        mx.setLastRowReversed(xUpperBoundary.getLeftMatrixCondition(pdeData, t, y[j]));
 
-        temp = xLowerBoundary.getRightMatrixCondition(pdeData, t, y[j]);
+        double[] temp = xLowerBoundary.getRightMatrixCondition(pdeData, t, y[j]);
         double sum = 0;
         for (int k = 0; k < temp.length; k++) {
           sum += temp[k] * v[k][j];
@@ -121,34 +111,10 @@ public class PeacemanRachfordFiniteDifference2D implements ConvectionDiffusionPD
         }
         q[xSteps] = sum + xUpperBoundary.getConstant(pdeData, t, y[j], dx);
 
-        // SOR
-        final double omega = 1.5;
-        double scale = 1.0;
-        double errorSqr = Double.POSITIVE_INFINITY;
-        int min, max;
-        int count = 0;
-        while (errorSqr / (scale + 1e-10) > 1e-18 && count < 1000) {
-          errorSqr = 0.0;
-          scale = 0.0;
-          for (int l = 0; l <= xSteps; l++) {
-            min = (l == xSteps ? 0 : Math.max(0, l - 1));
-            max = (l == 0 ? xSteps : Math.min(xSteps, l + 1));
-            sum = 0;
-            // for (int k = 0; k <= xSteps; k++) {
-            for (int k = min; k <= max; k++) { // mx is tri-diagonal so only need 3 steps here
-              sum += mx[l][k] * v[k][j];
-            }
-            final double correction = omega / mx[l][l] * (q[l] - sum);
-            // if (freeBoundary != null) {
-            // correction = Math.max(correction, freeBoundary.getZValue(t, x[j]) - f[j]);
-            // }
-            errorSqr += correction * correction;
-            v[l][j] += correction;
-            scale += v[l][j] * v[l][j];
-          }
-          count++;
+        mx.solve(q, q);
+        for (int l = 0; l <= xSteps; l++) {
+          v[l][j] = q[l];
         }
-        Validate.isTrue(count < 1000, "SOR exceeded max interations");
       }
 
       // get the y = 0 and y = yStep boundaries
@@ -210,23 +176,15 @@ public class PeacemanRachfordFiniteDifference2D implements ConvectionDiffusionPD
           d = pdeData.getD(t, x[i], y[j]);
           f = pdeData.getF(t, x[i], y[j]);
 
-          my[j][j - 1] = 0.5 * (dtdy2 * d - 0.5 * dtdy * f);
-          my[j][j] = 1 + 0.5 * (-2 * dtdy2 * d + 0.5 * dt * c);
-          my[j][j + 1] = 0.5 * (dtdy2 * d + 0.5 * dtdy * f);
+          my.setRow(j, 0.5 * (dtdy2 * d - 0.5 * dtdy * f), 1 + 0.5 * (-2 * dtdy2 * d + 0.5 * dt * c), 0.5 * (dtdy2 * d + 0.5 * dtdy * f));
 
           r[j] = vRight[i][j];
         }
 
-        double[] temp = yLowerBoundary.getLeftMatrixCondition(pdeData, t, x[i]);
-        for (int k = 0; k < temp.length; k++) {
-          my[0][k] = temp[k];
-        }
-        temp = yUpperBoundary.getLeftMatrixCondition(pdeData, t, x[i]);
-        for (int k = 0; k < temp.length; k++) {
-          my[ySteps][ySteps - k] = temp[k];
-        }
+        my.setFirstRow(yLowerBoundary.getLeftMatrixCondition(pdeData, t, x[i]));
+        my.setLastRowReversed(yUpperBoundary.getLeftMatrixCondition(pdeData, t, x[i]));
 
-        temp = yLowerBoundary.getRightMatrixCondition(pdeData, t, x[i]);
+        double[] temp = yLowerBoundary.getRightMatrixCondition(pdeData, t, x[i]);
         double sum = 0;
         for (int k = 0; k < temp.length; k++) {
           sum += temp[k] * v[i][k];
@@ -240,34 +198,7 @@ public class PeacemanRachfordFiniteDifference2D implements ConvectionDiffusionPD
         }
         r[ySteps] = sum + yUpperBoundary.getConstant(pdeData, t, x[i], dy);
 
-        // SOR
-        final double omega = 1.5;
-        double scale = 1.0;
-        double errorSqr = Double.POSITIVE_INFINITY;
-        int count = 0;
-        while (errorSqr / (scale + 1e-10) > 1e-18 && count < 1000) {
-          errorSqr = 0.0;
-          scale = 0.0;
-          int min, max;
-          for (int l = 0; l <= ySteps; l++) {
-            min = (l == ySteps ? 0 : Math.max(0, l - 1));
-            max = (l == 0 ? ySteps : Math.min(ySteps, l + 1));
-            sum = 0;
-            // for (int k = 0; k <= ySteps; k++) {
-            for (int k = min; k <= max; k++) {
-              sum += my[l][k] * v[i][k];
-            }
-            final double correction = omega / my[l][l] * (r[l] - sum);
-            // if (freeBoundary != null) {
-            // correction = Math.max(correction, freeBoundary.getZValue(t, x[j]) - f[j]);
-            // }
-            errorSqr += correction * correction;
-            v[i][l] += correction;
-            scale += v[i][l] * v[i][l];
-          }
-          count++;
-        }
-        Validate.isTrue(count < 1000, "SOR exceeded max interations");
+        my.solve(r, v[i]);
       }
 
       // still have to handle the i = 0 and i = xSteps boundary
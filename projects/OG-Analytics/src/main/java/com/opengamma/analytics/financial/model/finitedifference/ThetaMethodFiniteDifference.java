@@ -10,18 +10,14 @@ import java.util.Arrays;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.function.Function1D;
-import com.opengamma.analytics.math.linearalgebra.Decomposition;
-import com.opengamma.analytics.math.linearalgebra.DecompositionResult;
-import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
-import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.surface.Surface;
 
 /**
- * A theta (i.e. weighted between explicit and implicit time stepping) scheme using SOR algorithm to solve the matrix system at each time step
+ * A theta (i.e. weighted between explicit and implicit time stepping) scheme solving the tridiagonal matrix system at each time step directly (Thomas algorithm),
+ * in buffers allocated once per solve.
  * This uses the exponentially fitted scheme of duffy
  */
 public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver {
-  private static final Decomposition<?> DCOMP = new LUDecompositionCommons();
   private final double _theta;
   private final boolean _showFullResults;
 
@@ -169,12 +165,11 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     private final PDEGrid1D _grid;
     private final BoundaryCondition _lowerBoundary;
     private final BoundaryCondition _upperBoundary;
-    private final Surface<Double, Double, Double> _freeBoundary;
     private double[] _f;
     private double[][] _full;
 
     private final double[] _q;
-    private final double[][] _m;
+    private final TridiagonalSystem _system;
 
     private final double[] _rho;
     private final double[] _a;
@@ -190,7 +185,6 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
       _initialCondition = initialCondition;
       _lowerBoundary = lowerBoundary;
       _upperBoundary = upperBoundary;
-      _freeBoundary = freeBoundary;
       _grid = grid;
 
       final int tNodes = _grid.getNumTimeNodes();
@@ -202,7 +196,7 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
       }
 
       _q = new double[xNodes];
-      _m = new double[xNodes][xNodes];
+      _system = new TridiagonalSystem(xNodes);
       _rho = new double[xNodes - 2];
       _a = new double[xNodes - 2];
       _b = new double[xNodes - 2];
@@ -303,22 +297,19 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
         x1st = getGrid().getFirstDerivativeCoefficients(i);
         x2nd = getGrid().getSecondDerivativeCoefficients(i);
 
-        setM(i, i - 1, _theta * dt * (x2nd[0] * getRho(i - 1) + x1st[0] * getB(i - 1)));
-        setM(i, i, 1 + _theta * dt * (x2nd[1] * getRho(i - 1) + x1st[1] * getB(i - 1) + getC(i - 1)));
-        setM(i, i + 1, _theta * dt * (x2nd[2] * getRho(i - 1) + x1st[2] * getB(i - 1)));
+        _system.setRow(i, _theta * dt * (x2nd[0] * getRho(i - 1) + x1st[0] * getB(i - 1)),
+            1 + _theta * dt * (x2nd[1] * getRho(i - 1) + x1st[1] * getB(i - 1) + getC(i - 1)),
+            _theta * dt * (x2nd[2] * getRho(i - 1) + x1st[2] * getB(i - 1)));
       }
     }
 
     void updateLHSBoundary() {
-      double[] temp = _lowerBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2());
-      for (int k = 0; k < temp.length; k++) {
-        setM(0, k, temp[k]);
-      }
+      _system.setFirstRow(_lowerBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2()));
+      _system.setLastRow(_upperBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2()));
+    }
 
-      temp = _upperBoundary.getLeftMatrixCondition(_coefficients, getGrid(), getT2());
-      for (int k = 0; k < temp.length; k++) {
-        setM(getGrid().getNumSpaceNodes() - 1, getGrid().getNumSpaceNodes() - temp.length + k, temp[k]);
-      }
+    void setLHSRow(final int i, final double lower, final double diag, final double upper) {
+      _system.setRow(i, lower, diag, upper);
     }
 
     void updateCoefficents() {
@@ -335,59 +326,7 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     }
 
     private void solveMatrixSystem() {
-      final double omega = 1.0;
-      //   @SuppressWarnings("unused")
-      //NOTE get this working again with dynamic omega
-      //final int count = solveBySOR(omega);
-      solveByLU();
-      //      if (oldCount > 0) {
-      //        if ((omegaIncrease && count > oldCount) || (!omegaIncrease && count < oldCount)) {
-      //          omega = Math.max(1.0, omega * 0.9);
-      //          omegaIncrease = false;
-      //        } else {
-      //          omega = 1.1 * omega;
-      //          omegaIncrease = true;
-      //        }
-      //      }
-      //      oldCount = count;
-
-    }
-
-    @SuppressWarnings({"unused", "synthetic-access" })
-    private void solveByLU() {
-      DoubleMatrix2D temp = new DoubleMatrix2D(_m);
-      DecompositionResult res = DCOMP.evaluate(temp);
-      double[] f = res.solve(_q);
-      for (int i = 0; i < f.length; i++) {
-        _f[i] = f[i];
-      }
-    }
-
-    private int solveBySOR(final double omega) {
-
-      double sum;
-      int count = 0;
-      double scale = 1.0;
-      double errorSqr = Double.POSITIVE_INFINITY;
-      while (errorSqr / (scale + 1e-10) > 1e-18) {
-        errorSqr = 0.0;
-        scale = 0.0;
-        for (int j = 0; j < getGrid().getNumSpaceNodes(); j++) {
-          sum = 0;
-          for (int k = 0; k < getGrid().getNumSpaceNodes(); k++) {
-            sum += getM(j, k) * getF(k);
-          }
-          double correction = omega / getM(j, j) * (getQ(j) - sum);
-          if (_freeBoundary != null) {
-            correction = Math.max(correction, _freeBoundary.getZValue(getT2(), getGrid().getSpaceNode(j)) - getF(j));
-          }
-          errorSqr += correction * correction;
-          setF(j, getF(j) + correction); //TODO don't like this
-          scale += getF(j) * getF(j);
-        }
-        count++;
-      }
-      return count;
+      _system.solve(_q, _f);
     }
 
     /**
@@ -459,14 +398,6 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
       _q[i] = value;
     }
 
-    public double getM(final int i, final int j) {
-      return _m[i][j];
-    }
-
-    public void setM(final int i, final int j, final double value) {
-      _m[i][j] = value;
-    }
-
     public double getF(final int i) {
       return _f[i];
     }
@@ -578,9 +509,9 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
         x1st = getGrid().getFirstDerivativeCoefficients(i);
         x2nd = getGrid().getSecondDerivativeCoefficients(i);
 
-        setM(i, i - 1, getTheta() * dt * (x2nd[0] * getA(i - 1) * _alpha[i - 1] + x1st[0] * getB(i - 1) * _beta[i - 1]));
-        setM(i, i, 1 + getTheta() * dt * (x2nd[1] * getA(i - 1) * _alpha[i] + x1st[1] * getB(i - 1) * _beta[i] + getC(i - 1)));
-        setM(i, i + 1, getTheta() * dt * (x2nd[2] * getA(i - 1) * _alpha[i + 1] + x1st[2] * getB(i - 1) * _beta[i + 1]));
+        setLHSRow(i, getTheta() * dt * (x2nd[0] * getA(i - 1) * _alpha[i - 1] + x1st[0] * getB(i - 1) * _beta[i - 1]),
+            1 + getTheta() * dt * (x2nd[1] * getA(i - 1) * _alpha[i] + x1st[1] * getB(i - 1) * _beta[i] + getC(i - 1)),
+            getTheta() * dt * (x2nd[2] * getA(i - 1) * _alpha[i + 1] + x1st[2] * getB(i - 1) * _beta[i + 1]));
       }
     }
 
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.linearalgebra.TridiagonalSolver;
+
+/**
+ * Reusable workspace for the implicit step of a finite difference scheme in one space dimension: a tridiagonal system whose first and last rows
+ * (the boundary conditions) may have one extra coefficient, as given by three point one-sided derivatives.
+ * The extra coefficients are eliminated against the neighbouring rows and the system is solved in place by the Thomas algorithm,
+ * so no memory is allocated after construction.
+ * <p>
+ * This class is not thread-safe; each solver instance uses its own workspace.
+ */
+final class TridiagonalSystem {
+
+  private final int _n;
+  private final double[] _a;
+  private final double[] _b;
+  private final double[] _c;
+  private final double[] _y;
+  private final double[] _work;
+  private double _firstExtra;
+  private double _lastExtra;
+
+  /**
+   * @param n The size of the system, at least 3
+   */
+  TridiagonalSystem(final int n) {
+    Validate.isTrue(n > 2, "need at least 3 nodes");
+    _n = n;
+    _a = new double[n];
+    _b = new double[n - 1];
+    _c = new double[n - 1];
+    _y = new double[n];
+    _work = new double[n];
+  }
+
+  /**
+   * Sets an interior row.
+   * @param i The row, 0 &lt; i &lt; n - 1
+   * @param lower The coefficient of the node i - 1
+   * @param diag The coefficient of the node i
+   * @param upper The coefficient of the node i + 1
+   */
+  void setRow(final int i, final double lower, final double diag, final double upper) {
+    _c[i - 1] = lower;
+    _a[i] = diag;
+    _b[i] = upper;
+  }
+
+  /**
+   * Sets the first row from the coefficients of the nodes 0, 1 and 2 (the missing coefficients are zero).
+   * @param coef The coefficients, length 1 to 3
+   */
+  void setFirstRow(final double[] coef) {
+    Validate.isTrue(coef.length > 0 && coef.length < 4, "boundary condition must have 1 to 3 coefficients");
+    _a[0] = coef[0];
+    _b[0] = coef.length > 1 ? coef[1] : 0.0;
+    _firstExtra = coef.length > 2 ? coef[2] : 0.0;
+  }
+
+  /**
+   * Sets the last row from the coefficients of the last nodes, in increasing node order (the coefficient of the node n - 1 is the last one).
+   * @param coef The coefficients, length 1 to 3
+   */
+  void setLastRow(final double[] coef) {
+    final int m = coef.length;
+    Validate.isTrue(m > 0 && m < 4, "boundary condition must have 1 to 3 coefficients");
+    _a[_n - 1] = coef[m - 1];
+    _c[_n - 2] = m > 1 ? coef[m - 2] : 0.0;
+    _lastExtra = m > 2 ? coef[m - 3] : 0.0;
+  }
+
+  /**
+   * Sets the last row from the coefficients of the last nodes, in decreasing node order (the coefficient of the node n - 1 is the first one).
+   * @param coef The coefficients, length 1 to 3
+   */
+  void setLastRowReversed(final double[] coef) {
+    final int m = coef.length;
+    Validate.isTrue(m > 0 && m < 4, "boundary condition must have 1 to 3 coefficients");
+    _a[_n - 1] = coef[0];
+    _c[_n - 2] = m > 1 ? coef[1] : 0.0;
+    _lastExtra = m > 2 ? coef[2] : 0.0;
+  }
+
+  /**
+   * Solves the system. The matrix coefficients are modified by the elimination of the extra boundary coefficients, so they must be set again before the next solve.
+   * @param rhs The right hand side, length n. Not modified
+   * @param x The array to fill with the solution, length n. Can be the same array as rhs
+   */
+  void solve(final double[] rhs, final double[] x) {
+    System.arraycopy(rhs, 0, _y, 0, _n);
+    if (_firstExtra != 0.0) {
+      // eliminate the coefficient of node 2 in the first row with the second row
+      final double ratio = _firstExtra / _b[1];
+      _a[0] -= ratio * _c[0];
+      _b[0] -= ratio * _a[1];
+      _y[0] -= ratio * _y[1];
+    }
+    if (_lastExtra != 0.0) {
+      // eliminate the coefficient of node n - 3 in the last row with the row before
+      final double ratio = _lastExtra / _c[_n - 3];
+      _c[_n - 2] -= ratio * _a[_n - 2];
+      _a[_n - 1] -= ratio * _b[_n - 2];
+      _y[_n - 1] -= ratio * _y[_n - 2];
+    }
+    TridiagonalSolver.solveInPlace(_a, _b, _c, _y, _work);
+    System.arraycopy(_y, 0, x, 0, _n);
+  }
+
+}
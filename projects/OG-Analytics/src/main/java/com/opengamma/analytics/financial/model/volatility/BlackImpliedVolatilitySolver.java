@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.volatility;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.MathException;
+import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
+import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
+
+/**
+ * Log-normal (Black) implied volatility from <b>forward</b> option prices, by third order Householder iterations from a closed-form initial guess.
+ * <p>
+ * The price is normalised as the price of the out-the-money option divided by sqrt(forward * strike), a function b(x, s) of the log-moneyness
+ * x = -|ln(forward / strike)| and the total volatility s = sigma * sqrt(T) only. The initial guess is the inverse of the rational (in ln(b)) and
+ * normal-quantile approximations of b on each side of its inflexion point s = sqrt(2|x|), as in P. J&auml;ckel, <i>By Implication</i>, Wilmott, 2006.
+ * Below the inflexion point, the iterations solve ln(b) = ln(price) to keep the convergence for very small prices.
+ * Two or three iterations are usually enough to reach machine precision.
+ */
+public final class BlackImpliedVolatilitySolver {
+  private static final ProbabilityDistribution<Double> NORMAL = new NormalDistribution(0, 1);
+  private static final double ONE_OVER_SQRT_TWO_PI = 1 / Math.sqrt(2 * Math.PI);
+  private static final int MAX_ITERATIONS = 50;
+  private static final double REL_TOL = 1e-13;
+  /** The iterations converge with order three, so a relative step below this is already within machine precision of the root once taken */
+  private static final double FINAL_STEP_TOL = 1e-6;
+
+  private BlackImpliedVolatilitySolver() {
+  }
+
+  /**
+   * Get the log-normal (Black) implied volatility of a European option.
+   * @param price The <b>forward</b> price - i.e. the market price divided by the numeraire
+   * @param forward The forward value of the underlying, positive
+   * @param strike The strike, positive
+   * @param timeToExpiry The time-to-expiry, positive
+   * @param isCall True for calls, false for puts
+   * @return The log-normal implied volatility
+   */
+  public static double impliedVolatility(final double price, final double forward, final double strike, final double timeToExpiry, final boolean isCall) {
+    Validate.isTrue(strike > 0, "Cannot find an implied volatility when strike is zero as there is no optionality");
+    final double intrinsicPrice = Math.max(0, (isCall ? 1 : -1) * (forward - strike));
+    final double otmPrice = price - intrinsicPrice;
+    if (Math.abs(otmPrice) <= REL_TOL * intrinsicPrice || otmPrice == 0) {
+      return 0;
+    }
+    Validate.isTrue(otmPrice > 0.0, "price of " + price + " less than intrinsic price of " + intrinsicPrice);
+    Validate.isTrue(otmPrice < Math.min(forward, strike), "otmPrice of " + otmPrice + " exceeded upper bound of " + Math.min(forward, strike));
+    Validate.isTrue(timeToExpiry > 0, "time to expiry must be positive");
+    final double x = -Math.abs(Math.log(forward / strike));
+    return normalisedImpliedVolatility(otmPrice / Math.sqrt(forward * strike), x) / Math.sqrt(timeToExpiry);
+  }
+
+  /**
+   * Get the log-normal (Black) implied volatilities of European options with the same forward and expiry.
+   * @param prices The <b>forward</b> prices, not null
+   * @param forward The forward value of the underlying, positive
+   * @param strikes The strikes, not null
+   * @param timeToExpiry The time-to-expiry, positive
+   * @param isCall True for calls, false for puts, not null
+   * @return The log-normal implied volatilities
+   */
+  public static double[] impliedVolatility(final double[] prices, final double forward, final double[] strikes, final double timeToExpiry, final boolean[] isCall) {
+    Validate.notNull(prices, "prices");
+    Validate.notNull(strikes, "strikes");
+    Validate.notNull(isCall, "isCall");
+    final int n = prices.length;
+    Validate.isTrue(strikes.length == n, "strikes not the same length as prices");
+    Validate.isTrue(isCall.length == n, "isCall not the same length as prices");
+    final double[] vols = new double[n];
+    for (int i = 0; i < n; i++) {
+      vols[i] = impliedVolatility(prices[i], forward, strikes[i], timeToExpiry, isCall[i]);
+    }
+    return vols;
+  }
+
+  /**
+   * Get the log-normal (Black) implied volatilities of European options.
+   * @param prices The <b>forward</b> prices, not null
+   * @param forwards The forward values of the underlyings, not null
+   * @param strikes The strikes, not null
+   * @param timesToExpiry The times-to-expiry, not null
+   * @param isCall True for calls, false for puts, not null
+   * @return The log-normal implied volatilities
+   */
+  public static double[] impliedVolatility(final double[] prices, final double[] forwards, final double[] strikes, final double[] timesToExpiry, final boolean[] isCall) {
+    Validate.notNull(prices, "prices");
+    Validate.notNull(forwards, "forwards");
+    Validate.notNull(strikes, "strikes");
+    Validate.notNull(timesToExpiry, "timesToExpiry");
+    Validate.notNull(isCall, "isCall");
+    final int n = prices.length;
+    Validate.isTrue(forwards.length == n, "forwards not the same length as prices");
+    Validate.isTrue(strikes.length == n, "strikes not the same length as prices");
+    Validate.isTrue(timesToExpiry.length == n, "timesToExpiry not the same length as prices");
+    Validate.isTrue(isCall.length == n, "isCall not the same length as prices");
+    final double[] vols = new double[n];
+    for (int i = 0; i < n; i++) {
+      vols[i] = impliedVolatility(prices[i], forwards[i], strikes[i], timesToExpiry[i], isCall[i]);
+    }
+    return vols;
+  }
+
+  /**
+   * The total implied volatility s = sigma * sqrt(T) of a normalised out-the-money price.
+   * @param beta The normalised price, 0 &lt; beta &lt; exp(x / 2)
+   * @param x The log-moneyness, non-positive
+   * @return The total implied volatility
+   */
+  static double normalisedImpliedVolatility(final double beta, final double x) {
+    if (x == 0) {
+      return 2 * NORMAL.getInverseCDF(0.5 * (beta + 1));
+    }
+    final double sigmaC = Math.sqrt(-2 * x);
+    final double bC = normalisedPrice(x, sigmaC);
+    final boolean lowerBranch = beta < bC;
+    double sigma;
+    if (lowerBranch) {
+      sigma = Math.sqrt(2 * x * x / (-x - 4 * Math.log(beta / bC)));
+    } else {
+      final double bMax = Math.exp(0.5 * x);
+      sigma = -2 * NORMAL.getInverseCDF((bMax - beta) / (bMax - bC) * NORMAL.getCDF(-Math.sqrt(-0.5 * x)));
+    }
+    // the price is increasing in sigma, so each iteration also narrows a bracket used as a safeguard
+    double lower = lowerBranch ? 0 : sigmaC;
+    double upper = lowerBranch ? sigmaC : Double.POSITIVE_INFINITY;
+    final double logBeta = lowerBranch ? Math.log(beta) : 0;
+    for (int i = 0; i < MAX_ITERATIONS; i++) {
+      final double b = normalisedPrice(x, sigma);
+      if (b < beta) {
+        lower = sigma;
+      } else {
+        upper = sigma;
+      }
+      final double vega = ONE_OVER_SQRT_TWO_PI * Math.exp(-0.5 * (x * x / (sigma * sigma) + 0.25 * sigma * sigma));
+      // b'' / b' and b''' / b'
+      final double h2 = x * x / (sigma * sigma * sigma) - 0.25 * sigma;
+      final double h3 = h2 * h2 - 3 * x * x / (sigma * sigma * sigma * sigma) - 0.25;
+      final double nu;
+      final double g2;
+      final double g3;
+      if (lowerBranch) {
+        final double r = vega / b;
+        nu = -(Math.log(b) - logBeta) / r;
+        g2 = h2 - r;
+        g3 = h3 - 3 * h2 * r + 2 * r * r;
+      } else {
+        nu = -(b - beta) / vega;
+        g2 = h2;
+        g3 = h3;
+      }
+      final double step = nu * (1 + 0.5 * g2 * nu) / (1 + nu * (g2 + g3 * nu / 6));
+      if (Math.abs(step) <= FINAL_STEP_TOL * sigma) {
+        return sigma + step;
+      }
+      if (upper - lower <= REL_TOL * sigma) {
+        return 0.5 * (lower + upper);
+      }
+      final double next = sigma + step;
+      if (next > lower && next < upper) {
+        sigma = next;
+      } else {
+        sigma = upper == Double.POSITIVE_INFINITY ? 2 * sigma : 0.5 * (lower + upper);
+      }
+    }
+    throw new MathException("Implied volatility did not converge in " + MAX_ITERATIONS + " iterations for normalised price " + beta + " and log-moneyness " + x);
+  }
+
+  /**
+   * The normalised out-the-money price exp(x / 2) * N(x / s + s / 2) - exp(-x / 2) * N(x / s - s / 2).
+   * @param x The log-moneyness, non-positive
+   * @param sigma The total volatility
+   * @return The normalised price
+   */
+  static double normalisedPrice(final double x, final double sigma) {
+    if (sigma == 0) {
+      return 0;
+    }
+    final double d = x / sigma;
+    final double halfSigma = 0.5 * sigma;
+    return Math.exp(0.5 * x) * NORMAL.getCDF(d + halfSigma) - Math.exp(-0.5 * x) * NORMAL.getCDF(d - halfSigma);
+  }
+
+}
@@ -5,6 +5,14 @@
  */
 package com.opengamma.analytics.financial.model.volatility.local;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.model.finitedifference.PDETerminalResults1D;
 import com.opengamma.analytics.financial.model.interestrate.curve.ForwardCurve;
 import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.EuropeanVanillaOption;
@@ -17,7 +25,11 @@ import com.opengamma.analytics.math.interpolation.Interpolator1D;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
- * 
+ * Computes the bucketed vega of a European option priced by the forward PDE in a local volatility model, by bumping each point of the
+ * market implied volatility surface and solving the PDE again with the bumped local volatility.
+ * <p>
+ * The bumped solves are independent; when an executor is provided, they are run concurrently on it. The bumped surfaces are still built on
+ * the calling thread, as the smile fitting of the surface interpolator is not thread-safe.
  */
 public class LocalVolatilityForwardPDEBucketedVegaCalculator {
   private static final double SHIFT = 1e-4;
@@ -25,19 +37,31 @@ public class LocalVolatilityForwardPDEBucketedVegaCalculator {
   private final Interpolator1D _interpolator;
   private final DupireLocalVolatilityCalculator _dupireCalculator;
   private final VolatilitySurfaceInterpolator _surfaceInterpolator;
+  private final ExecutorService _executor;
 
   public LocalVolatilityForwardPDEBucketedVegaCalculator(final LocalVolatilityForwardPDECalculator pdeCalculator, final Interpolator1D interpolator,
       final DupireLocalVolatilityCalculator dupireCalculator, final VolatilitySurfaceInterpolator surfaceInterpolator) {
+    this(pdeCalculator, interpolator, dupireCalculator, surfaceInterpolator, null);
+  }
+
+  /**
+   * @param pdeCalculator The PDE calculator
+   * @param interpolator The interpolator of the implied volatilities between the space nodes
+   * @param dupireCalculator The local volatility calculator
+   * @param surfaceInterpolator The implied volatility surface interpolator
+   * @param executor The executor running the bumped solves, null to run them on the calling thread
+   */
+  public LocalVolatilityForwardPDEBucketedVegaCalculator(final LocalVolatilityForwardPDECalculator pdeCalculator, final Interpolator1D interpolator,
+      final DupireLocalVolatilityCalculator dupireCalculator, final VolatilitySurfaceInterpolator surfaceInterpolator, final ExecutorService executor) {
     _pdeCalculator = pdeCalculator;
     _interpolator = interpolator;
     _dupireCalculator = dupireCalculator;
     _surfaceInterpolator = surfaceInterpolator;
+    _executor = executor;
   }
 
   public double[][] getResult(final LocalVolatilitySurfaceMoneyness localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption option,
       final StandardSmileSurfaceDataBundle marketData) {
-    final int n = marketData.getNumExpiries();
-    final double[][] strikes = marketData.getStrikes();
     final double expiry = option.getTimeToExpiry();
     final double forward = forwardCurve.getForward(expiry);
     final double x = option.getStrike() / forward;
@@ -61,32 +85,13 @@ public class LocalVolatilityForwardPDEBucketedVegaCalculator {
       vols[i] = BlackFormulaRepository.impliedVolatility(pdeGrid.getFunctionValue(index + i), 1.0, moneyness[i],
           expiry, option.isCall());
     }
-    Interpolator1DDataBundle db = _interpolator.getDataBundle(moneyness, vols);
+    final Interpolator1DDataBundle db = _interpolator.getDataBundle(moneyness, vols);
     final double exampleVol = _interpolator.interpolate(db, x);
-    final double[][] res = new double[n][];
-    for (int i = 0; i < n; i++) {
-      final int m = strikes[i].length;
-      res[i] = new double[m];
-      for (int j = 0; j < m; j++) {
-        final BlackVolatilitySurfaceMoneyness bumpedSurface = _surfaceInterpolator.getBumpedVolatilitySurface(marketData, i, j, SHIFT);
-        final LocalVolatilitySurfaceMoneyness bumpedLV = _dupireCalculator.getLocalVolatility(bumpedSurface);
-        final PDETerminalResults1D pdeResBumped = _pdeCalculator.runPDESolver(bumpedLV, option);
-        for (int k = 0; k < 4; k++) {
-          vols[k] = BlackFormulaRepository.impliedVolatility(pdeResBumped.getFunctionValue(index + k), 1.0, moneyness[k],
-              expiry, option.isCall());
-        }
-        db = _interpolator.getDataBundle(moneyness, vols);
-        final double vol = _interpolator.interpolate(db, x);
-        res[i][j] = (vol - exampleVol) / SHIFT;
-      }
-    }
-    return res;
+    return getBucketedVega(option, marketData, index, moneyness, x, exampleVol);
   }
 
   public double[][] getResult(final LocalVolatilitySurfaceStrike localVolatility, final ForwardCurve forwardCurve, final EuropeanVanillaOption option,
       final StandardSmileSurfaceDataBundle marketData) {
-    final int n = marketData.getNumExpiries();
-    final double[][] strikes = marketData.getStrikes();
     final double expiry = option.getTimeToExpiry();
     final double forward = forwardCurve.getForward(expiry);
     final double x = option.getStrike() / forward;
@@ -110,25 +115,61 @@ public class LocalVolatilityForwardPDEBucketedVegaCalculator {
       vols[i] = BlackFormulaRepository.impliedVolatility(pdeGrid.getFunctionValue(index + i), 1.0, moneyness[i],
           expiry, option.isCall());
     }
-    Interpolator1DDataBundle db = _interpolator.getDataBundle(moneyness, vols);
+    final Interpolator1DDataBundle db = _interpolator.getDataBundle(moneyness, vols);
     final double exampleVol = _interpolator.interpolate(db, x);
+    return getBucketedVega(option, marketData, index, moneyness, x, exampleVol);
+  }
+
+  private double[][] getBucketedVega(final EuropeanVanillaOption option, final StandardSmileSurfaceDataBundle marketData, final int index, final double[] moneyness,
+      final double x, final double exampleVol) {
+    final int n = marketData.getNumExpiries();
+    final double[][] strikes = marketData.getStrikes();
     final double[][] res = new double[n][];
+    final List<Future<Double>> futures = new ArrayList<Future<Double>>();
     for (int i = 0; i < n; i++) {
       final int m = strikes[i].length;
       res[i] = new double[m];
       for (int j = 0; j < m; j++) {
         final BlackVolatilitySurfaceMoneyness bumpedSurface = _surfaceInterpolator.getBumpedVolatilitySurface(marketData, i, j, SHIFT);
         final LocalVolatilitySurfaceMoneyness bumpedLV = _dupireCalculator.getLocalVolatility(bumpedSurface);
-        final PDETerminalResults1D pdeResBumped = _pdeCalculator.runPDESolver(bumpedLV, option);
-        for (int k = 0; k < 4; k++) {
-          vols[k] = BlackFormulaRepository.impliedVolatility(pdeResBumped.getFunctionValue(index + k), 1.0, moneyness[k],
-              expiry, option.isCall());
+        if (_executor == null) {
+          res[i][j] = (getVolatility(bumpedLV, option, index, moneyness, x) - exampleVol) / SHIFT;
+        } else {
+          futures.add(_executor.submit(new Callable<Double>() {
+            @Override
+            public Double call() {
+              return getVolatility(bumpedLV, option, index, moneyness, x);
+            }
+          }));
         }
-        db = _interpolator.getDataBundle(moneyness, vols);
-        final double vol = _interpolator.interpolate(db, x);
-        res[i][j] = (vol - exampleVol) / SHIFT;
+      }
+    }
+    if (_executor != null) {
+      try {
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+          for (int j = 0; j < res[i].length; j++) {
+            res[i][j] = (futures.get(k++).get() - exampleVol) / SHIFT;
+          }
+        }
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OpenGammaRuntimeException("Interrupted while computing bucketed vega", ex);
+      } catch (final ExecutionException ex) {
+        throw new OpenGammaRuntimeException("Error while computing bucketed vega", ex.getCause());
       }
     }
     return res;
   }
+
+  private double getVolatility(final LocalVolatilitySurfaceMoneyness localVolatility, final EuropeanVanillaOption option, final int index, final double[] moneyness,
+      final double x) {
+    final PDETerminalResults1D pdeRes = _pdeCalculator.runPDESolver(localVolatility, option);
+    final double[] vols = new double[4];
+    for (int k = 0; k < 4; k++) {
+      vols[k] = BlackFormulaRepository.impliedVolatility(pdeRes.getFunctionValue(index + k), 1.0, moneyness[k], option.getTimeToExpiry(), option.isCall());
+    }
+    return _interpolator.interpolate(_interpolator.getDataBundle(moneyness, vols), x);
+  }
+
 }
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.volatility.smile.fitting;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.analytics.financial.model.volatility.smile.function.SABRFormulaData;
+import com.opengamma.analytics.financial.model.volatility.smile.function.VolatilityFunctionProvider;
+import com.opengamma.analytics.math.MathException;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.statistics.leastsquare.LeastSquareResultsWithTransform;
+
+/**
+ * Calibrates the SABR model to all the smiles of a swaption volatility cube (one smile for each expiry and underlying swap maturity).
+ * <p>
+ * Each smile is fitted by a {@link SABRModelFitter}, which uses the model adjoint of the volatility function for the Jacobian
+ * (analytic for {@link com.opengamma.analytics.financial.model.volatility.smile.function.SABRHaganVolatilityFunction}).
+ * The fits are warm-started from the neighbouring smiles: the smiles of the first expiry are fitted along the maturities, then
+ * the other smiles of each maturity are fitted along the expiries, starting from the fitted parameters of the previous expiry.
+ * The maturities are independent at the second stage and are fitted concurrently when an executor is provided.
+ * If a warm-started fit fails, it is run again from the default starting point.
+ */
+public class SABRModelCubeFitter {
+  private final double[] _expiries;
+  private final double[] _maturities;
+  private final double[] _forwards;
+  private final double[][] _strikes;
+  private final double[][] _impliedVols;
+  private final double[][] _errors;
+  private final VolatilityFunctionProvider<SABRFormulaData> _model;
+  /** The indices of the smiles, by maturity and then expiry */
+  private final int[][] _smiles;
+
+  /**
+   * @param expiries The expiry of each smile, not null
+   * @param maturities The underlying swap maturity of each smile, not null
+   * @param forwards The forward of each smile, not null
+   * @param strikes The strikes of each smile, not null
+   * @param impliedVols The market implied volatilities of each smile, not null
+   * @param errors The errors of the market volatilities of each smile, not null
+   * @param model The SABR volatility function, not null
+   */
+  public SABRModelCubeFitter(final double[] expiries, final double[] maturities, final double[] forwards, final double[][] strikes, final double[][] impliedVols,
+      final double[][] errors, final VolatilityFunctionProvider<SABRFormulaData> model) {
+    Validate.notNull(expiries, "null expiries");
+    Validate.notNull(maturities, "null maturities");
+    Validate.notNull(forwards, "null forwards");
+    Validate.notNull(strikes, "null strikes");
+    Validate.notNull(impliedVols, "null implied vols");
+    Validate.notNull(errors, "null errors");
+    Validate.notNull(model, "null model");
+    final int n = expiries.length;
+    Validate.isTrue(n == maturities.length, "maturities not the same length as expiries");
+    Validate.isTrue(n == forwards.length, "forwards not the same length as expiries");
+    Validate.isTrue(n == strikes.length, "strikes not the same length as expiries");
+    Validate.isTrue(n == impliedVols.length, "vols not the same length as expiries");
+    Validate.isTrue(n == errors.length, "errors not the same length as expiries");
+    _expiries = expiries;
+    _maturities = maturities;
+    _forwards = forwards;
+    _strikes = strikes;
+    _impliedVols = impliedVols;
+    _errors = errors;
+    _model = model;
+    final SortedMap<Double, SortedMap<Double, Integer>> smiles = new TreeMap<Double, SortedMap<Double, Integer>>();
+    for (int i = 0; i < n; i++) {
+      SortedMap<Double, Integer> smilesForMaturity = smiles.get(maturities[i]);
+      if (smilesForMaturity == null) {
+        smilesForMaturity = new TreeMap<Double, Integer>();
+        smiles.put(maturities[i], smilesForMaturity);
+      }
+      Validate.isTrue(smilesForMaturity.put(expiries[i], i) == null, "more than one smile for expiry " + expiries[i] + " and maturity " + maturities[i]);
+    }
+    _smiles = new int[smiles.size()][];
+    int index = 0;
+    for (final Map.Entry<Double, SortedMap<Double, Integer>> entry : smiles.entrySet()) {
+      final int[] smilesForMaturity = new int[entry.getValue().size()];
+      int j = 0;
+      for (final Integer i : entry.getValue().values()) {
+        smilesForMaturity[j++] = i;
+      }
+      _smiles[index++] = smilesForMaturity;
+    }
+  }
+
+  /**
+   * Fits all the smiles on the calling thread.
+   * @param start The default starting point of the fits, not null
+   * @param fixed The parameters fixed to their starting value, not null
+   * @return The fit results, in the order of the smiles
+   */
+  public LeastSquareResultsWithTransform[] solve(final DoubleMatrix1D start, final BitSet fixed) {
+    return solve(start, fixed, null);
+  }
+
+  /**
+   * Fits all the smiles.
+   * @param start The default starting point of the fits, not null
+   * @param fixed The parameters fixed to their starting value, not null
+   * @param executor The executor fitting the maturities concurrently, null to fit them on the calling thread
+   * @return The fit results, in the order of the smiles
+   */
+  public LeastSquareResultsWithTransform[] solve(final DoubleMatrix1D start, final BitSet fixed, final ExecutorService executor) {
+    Validate.notNull(start, "null start");
+    Validate.notNull(fixed, "null fixed");
+    final LeastSquareResultsWithTransform[] results = new LeastSquareResultsWithTransform[_expiries.length];
+    DoubleMatrix1D previous = start;
+    for (final int[] smilesForMaturity : _smiles) {
+      results[smilesForMaturity[0]] = fit(smilesForMaturity[0], previous, start, fixed);
+      previous = results[smilesForMaturity[0]].getModelParameters();
+    }
+    if (executor == null) {
+      for (final int[] smilesForMaturity : _smiles) {
+        fitAlongExpiries(smilesForMaturity, start, fixed, results);
+      }
+    } else {
+      final List<Future<?>> futures = new ArrayList<Future<?>>(_smiles.length);
+      for (final int[] smilesForMaturity : _smiles) {
+        if (smilesForMaturity.length > 1) {
+          futures.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+              fitAlongExpiries(smilesForMaturity, start, fixed, results);
+              return null;
+            }
+          }));
+        }
+      }
+      try {
+        for (final Future<?> future : futures) {
+          future.get();
+        }
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OpenGammaRuntimeException("Interrupted while fitting SABR cube", ex);
+      } catch (final ExecutionException ex) {
+        throw new OpenGammaRuntimeException("Error while fitting SABR cube", ex.getCause());
+      }
+    }
+    return results;
+  }
+
+  private void fitAlongExpiries(final int[] smilesForMaturity, final DoubleMatrix1D start, final BitSet fixed, final LeastSquareResultsWithTransform[] results) {
+    for (int j = 1; j < smilesForMaturity.length; j++) {
+      results[smilesForMaturity[j]] = fit(smilesForMaturity[j], results[smilesForMaturity[j - 1]].getModelParameters(), start, fixed);
+    }
+  }
+
+  private LeastSquareResultsWithTransform fit(final int index, final DoubleMatrix1D warmStart, final DoubleMatrix1D start, final BitSet fixed) {
+    final SABRModelFitter fitter = new SABRModelFitter(_forwards[index], _strikes[index], _expiries[index], _impliedVols[index], _errors[index], _model);
+    if (warmStart == start) {
+      return fitter.solve(start, fixed);
+    }
+    try {
+      return fitter.solve(warmStart, fixed);
+    } catch (final MathException e) {
+      return fitter.solve(start, fixed);
+    }
+  }
+
+}
@@ -12,6 +12,7 @@ import com.opengamma.analytics.financial.model.volatility.curve.VolatilityCurve;
 import com.opengamma.analytics.math.Axis;
 import com.opengamma.analytics.math.curve.Curve;
 import com.opengamma.analytics.math.interpolation.Interpolator1D;
+import com.opengamma.analytics.math.surface.InterpolatedDoublesSurface;
 import com.opengamma.analytics.math.surface.Surface;
 import com.opengamma.analytics.math.surface.SurfaceShiftFunctionFactory;
 import com.opengamma.analytics.math.surface.SurfaceSliceFunction;
@@ -23,6 +24,8 @@ import com.opengamma.util.tuple.DoublesPair;
  */
 public class VolatilitySurface implements VolatilityModel<DoublesPair> {
   private final Surface<Double, Double, Double> _surface;
+  /** The surface if it is interpolated, which is looked up without boxing, null otherwise */
+  private final InterpolatedDoublesSurface _interpolatedSurface;
   /** x-axis */
   public static final Axis EXPIRY_AXIS = Axis.X; // TODO Review
   /** y-axis */
@@ -31,11 +34,15 @@ public class VolatilitySurface implements VolatilityModel<DoublesPair> {
   public VolatilitySurface(final Surface<Double, Double, Double> surface) {
     ArgumentChecker.notNull(surface, "surface");
     _surface = surface;
+    _interpolatedSurface = surface instanceof InterpolatedDoublesSurface ? (InterpolatedDoublesSurface) surface : null;
   }
 
   @Override
   public Double getVolatility(final DoublesPair xy) {
     ArgumentChecker.notNull(xy, "xy pair");
+    if (_interpolatedSurface != null) {
+      return _interpolatedSurface.getZValue(xy.first, xy.second);
+    }
     return _surface.getZValue(xy);
   }
 
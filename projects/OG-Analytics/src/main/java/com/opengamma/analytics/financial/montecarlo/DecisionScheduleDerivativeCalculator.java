@@ -6,6 +6,8 @@
 package com.opengamma.analytics.financial.montecarlo;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.Validate;
@@ -18,8 +20,11 @@ import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivi
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponIborRatchet;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityPaymentFixed;
+import com.opengamma.analytics.financial.interestrate.payments.derivative.CapFloorIbor;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.CouponFloating;
 import com.opengamma.analytics.financial.interestrate.swaption.derivative.SwaptionPhysicalFixedIbor;
+import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
+import com.opengamma.util.tuple.DoublesPair;
 
 /**
  * Calculator of decision schedule for different instruments. Used in particular for Monte Carlo pricing.
@@ -73,6 +78,36 @@ public class DecisionScheduleDerivativeCalculator extends AbstractInstrumentDeri
     return decision;
   }
 
+  @Override
+  public DecisionScheduleDerivative visitCapFloorIbor(final CapFloorIbor payment, final YieldCurveBundle curves) {
+    double[] decisionTime = new double[] {payment.getFixingTime()};
+    double fixingStartTime = payment.getFixingPeriodStartTime();
+    double fixingEndTime = payment.getFixingPeriodEndTime();
+    double paymentTime = payment.getPaymentTime();
+    double[][] impactTime = new double[1][];
+    impactTime[0] = new double[] {fixingStartTime, fixingEndTime, paymentTime};
+    double[][] impactAmount = new double[1][];
+    final YieldAndDiscountCurve forwardCurve = curves.getCurve(payment.getForwardCurveName());
+    final YieldAndDiscountCurve discountingCurve = curves.getCurve(payment.getFundingCurveName());
+    final double beta = forwardCurve.getDiscountFactor(fixingStartTime) / forwardCurve.getDiscountFactor(fixingEndTime) * discountingCurve.getDiscountFactor(fixingEndTime)
+        / discountingCurve.getDiscountFactor(fixingStartTime);
+    impactAmount[0] = new double[] {beta, -1.0, 1.0};
+    // Only the first reference amount depends on the curves.
+    final List<DoublesPair> listForward = new ArrayList<DoublesPair>();
+    listForward.add(new DoublesPair(fixingStartTime, -fixingStartTime * beta));
+    listForward.add(new DoublesPair(fixingEndTime, fixingEndTime * beta));
+    final List<DoublesPair> listDiscounting = new ArrayList<DoublesPair>();
+    listDiscounting.add(new DoublesPair(fixingStartTime, fixingStartTime * beta));
+    listDiscounting.add(new DoublesPair(fixingEndTime, -fixingEndTime * beta));
+    final InterestRateCurveSensitivity betaSensitivity = InterestRateCurveSensitivity.of(payment.getForwardCurveName(), listForward).plus(payment.getFundingCurveName(), listDiscounting);
+    final Map<Double, InterestRateCurveSensitivity> amountDerivative = new HashMap<Double, InterestRateCurveSensitivity>();
+    amountDerivative.put(fixingStartTime, betaSensitivity);
+    ArrayList<Map<Double, InterestRateCurveSensitivity>> impactAmountDerivative = new ArrayList<Map<Double, InterestRateCurveSensitivity>>();
+    impactAmountDerivative.add(amountDerivative);
+    DecisionScheduleDerivative decision = new DecisionScheduleDerivative(decisionTime, impactTime, impactAmount, impactAmountDerivative);
+    return decision;
+  }
+
   @Override
   public DecisionScheduleDerivative visitAnnuityCouponIborRatchet(final AnnuityCouponIborRatchet annuity, final YieldCurveBundle curves) {
     int nbCpn = annuity.getNumberOfPayments();
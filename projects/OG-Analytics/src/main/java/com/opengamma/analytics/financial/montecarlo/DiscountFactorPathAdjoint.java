@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.montecarlo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
+import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivity;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Adjoint algorithmic differentiation of the Monte Carlo methods simulating discount factors.
+ * <p>
+ * The simulated discount factors are the initial discount factors (rebased by the numeraire) times a model factor that does not depend on the curves,
+ * so the adjoint of an initial discount factor is the sum over the paths of the simulated discount factor times its adjoint divided by the initial discount factor.
+ * The adjoints are accumulated path by path in the forward sweep of each block, without storing the adjoints of the paths.
+ * <p>
+ * The block results are vectors with the price times the number of paths, the adjoints of the reference amounts (step/cash-flow, flattened)
+ * and the adjoints of the initial discount factors (step/cash-flow, flattened).
+ */
+final class DiscountFactorPathAdjoint {
+
+  /**
+   * The calculator of price and derivatives from discount factors and reference amounts.
+   */
+  private static final MonteCarloDiscountFactorDerivativeCalculator MCDC = MonteCarloDiscountFactorDerivativeCalculator.getInstance();
+
+  /**
+   * Private constructor.
+   */
+  private DiscountFactorPathAdjoint() {
+  }
+
+  /**
+   * Returns the size of the block result vectors.
+   * @param impactAmount The reference amounts. step/cash-flow
+   * @return The size.
+   */
+  static int size(final double[][] impactAmount) {
+    return 1 + 2 * nbImpact(impactAmount);
+  }
+
+  /**
+   * Prices a block of paths and computes the adjoints of the price.
+   * @param instrument The instrument.
+   * @param pD The simulated discount factors. path/step/cash-flow
+   * @param initDiscountFactor The initial discount factors. step/cash-flow
+   * @param impactAmount The reference amounts. step/cash-flow
+   * @param result The block result vector.
+   */
+  static void evaluate(final InstrumentDerivative instrument, final Double[][][] pD, final double[][] initDiscountFactor, final double[][] impactAmount, final double[] result) {
+    final int nbPath = pD.length;
+    final int nbImpact = nbImpact(impactAmount);
+    final MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
+    result[0] = MCDC.visit(instrument, mcdDB) * nbPath;
+    final double[][] impactAmountBar = mcdDB.getImpactAmountDerivative();
+    final Double[][][] pDBar = mcdDB.getPathDiscountingFactorDerivative();
+    int index = 1;
+    for (int loopjump = 0; loopjump < impactAmount.length; loopjump++) {
+      for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
+        result[index] = impactAmountBar[loopjump][loopimp] * nbPath;
+        double pDIBar = 0.0;
+        for (int looppath = 0; looppath < nbPath; looppath++) {
+          final Double bar = pDBar[looppath][loopjump][loopimp];
+          if (bar != null) {
+            pDIBar += pD[looppath][loopjump][loopimp] * bar;
+          }
+        }
+        result[nbImpact + index] = pDIBar * nbPath / initDiscountFactor[loopjump][loopimp];
+        index++;
+      }
+    }
+  }
+
+  /**
+   * Computes the curve sensitivity from the sum of the block results.
+   * @param dscName The discounting curve name.
+   * @param decision The decision schedule, with the reference amounts derivatives.
+   * @param numeraireTime The numeraire time.
+   * @param pDN The discount factor to the numeraire time.
+   * @param initDiscountFactor The initial discount factors (rebased by the numeraire). step/cash-flow
+   * @param sum The sum of the block results.
+   * @param nbPath The total number of paths.
+   * @return The curve sensitivity.
+   */
+  static InterestRateCurveSensitivity curveSensitivity(final String dscName, final DecisionScheduleDerivative decision, final double numeraireTime, final double pDN,
+      final double[][] initDiscountFactor, final double[] sum, final int nbPath) {
+    final double[][] impactTime = decision.getImpactTime();
+    final int nbJump = impactTime.length;
+    final int nbImpact = nbImpact(impactTime);
+    final double pv = sum[0] * pDN / nbPath;
+    // Backward sweep
+    final double pvBar = 1.0;
+    final double pvBlockBar = pDN / nbPath * pvBar;
+    double pDNBar = pv / pDN * pvBar;
+    final List<DoublesPair> listDiscounting = new ArrayList<DoublesPair>();
+    int index = 1;
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      for (int loopimp = 0; loopimp < impactTime[loopjump].length; loopimp++) {
+        final double pDIBar = sum[nbImpact + index] * pvBlockBar;
+        pDNBar += -initDiscountFactor[loopjump][loopimp] / pDN * pDIBar;
+        listDiscounting.add(new DoublesPair(impactTime[loopjump][loopimp], -impactTime[loopjump][loopimp] * initDiscountFactor[loopjump][loopimp] * pDIBar));
+        index++;
+      }
+    }
+    listDiscounting.add(0, new DoublesPair(numeraireTime, -numeraireTime * pDN * pDNBar));
+    final Map<String, List<DoublesPair>> resultMap = new HashMap<String, List<DoublesPair>>();
+    resultMap.put(dscName, listDiscounting);
+    InterestRateCurveSensitivity result = new InterestRateCurveSensitivity(resultMap);
+    // Adding sensitivity due to cash flow equivalent sensitivity to curves.
+    index = 1;
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      final Map<Double, InterestRateCurveSensitivity> impactAmountDerivative = decision.getImpactAmountDerivative().get(loopjump);
+      for (int loopimp = 0; loopimp < impactTime[loopjump].length; loopimp++) {
+        final InterestRateCurveSensitivity sensiCfe = impactAmountDerivative.get(impactTime[loopjump][loopimp]);
+        if (sensiCfe != null) { // There is some sensitivity to that cfe.
+          result = result.plus(sensiCfe.multipliedBy(sum[index] * pvBlockBar));
+        }
+        index++;
+      }
+    }
+    return result.cleaned();
+  }
+
+  private static int nbImpact(final double[][] impact) {
+    int nbImpact = 0;
+    for (final double[] impactJump : impact) {
+      nbImpact += impactJump.length;
+    }
+    return nbImpact;
+  }
+
+}
@@ -5,7 +5,10 @@
  */
 package com.opengamma.analytics.financial.montecarlo;
 
+import java.util.concurrent.ExecutorService;
+
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
+import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivity;
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
 import com.opengamma.analytics.financial.model.interestrate.G2ppPiecewiseConstantModel;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
@@ -13,6 +16,7 @@ import com.opengamma.analytics.financial.model.interestrate.definition.G2ppPiece
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionCommons;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.random.PathRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.CurrencyAmount;
@@ -27,26 +31,18 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
    * The decision schedule calculator (calculate the exercise dates, the cash flow dates and the reference amounts).
    */
   private static final DecisionScheduleCalculator DC = DecisionScheduleCalculator.getInstance();
-  //  /**
-  //   * The decision schedule derivative calculator (calculate the exercise dates, the cash flow dates, the reference amounts and the sensitivity of the reference amount to the curves).
-  //   */
-  //  private static final DecisionScheduleDerivativeCalculator DDC = DecisionScheduleDerivativeCalculator.getInstance();
+  /**
+   * The decision schedule derivative calculator (calculate the exercise dates, the cash flow dates, the reference amounts and the sensitivity of the reference amount to the curves).
+   */
+  private static final DecisionScheduleDerivativeCalculator DDC = DecisionScheduleDerivativeCalculator.getInstance();
   /**
    * The calculator from discount factors (calculate the price from simulated discount factors and the reference amounts).
    */
   private static final MonteCarloDiscountFactorCalculator MCC = MonteCarloDiscountFactorCalculator.getInstance();
-  //  /**
-  //   * The calculator of price and derivatives from discount factors and reference amounts.
-  //   */
-  //  private static final MonteCarloDiscountFactorDerivativeCalculator MCDC = MonteCarloDiscountFactorDerivativeCalculator.getInstance();
   /**
    * The Hull-White one factor model.
    */
   private static final G2ppPiecewiseConstantModel MODEL = new G2ppPiecewiseConstantModel();
-  /**
-   * The number of paths in one block.
-   */
-  private static final int BLOCK_SIZE = 1000;
 
   /**
    * @param numberGenerator The random number generator.
@@ -56,10 +52,19 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
     super(numberGenerator, nbPath);
   }
 
+  /**
+   * @param pathGenerator The path random number generator.
+   * @param nbPath The number of paths.
+   * @param executor The executor used to simulate the blocks of paths, null to use the calling thread.
+   */
+  public G2ppMonteCarloMethod(PathRandomNumberGenerator pathGenerator, int nbPath, ExecutorService executor) {
+    super(pathGenerator, nbPath, executor);
+  }
+
   /**
    * Computes the present value in the G2++ two factors model by Monte-Carlo.
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
-   * block price is the total price. 
+   * block price is the total price. The blocks are run in parallel when the method has a path generator and an executor.
    * @param instrument The swaption.
    * @param ccy The currency
    * @param dscName The discounting curve name.
@@ -72,11 +77,11 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
     DecisionSchedule decision = DC.visit(instrument, g2Data);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -85,7 +90,7 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
       }
     }
     final double rhog2pp = g2Data.getG2ppParameter().getCorrelation();
-    double[][][] h = MODEL.volatilityMaturityPart(g2Data.getG2ppParameter(), numeraireTime, impactTime); // factor/jump/cf
+    final double[][][] h = MODEL.volatilityMaturityPart(g2Data.getG2ppParameter(), numeraireTime, impactTime); // factor/jump/cf
     double[][][] gamma = new double[nbJump][2][2]; // jump/factor/factor
     double[][] cov = new double[2 * nbJump][2 * nbJump]; // factor 0 - factor 1
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
@@ -102,7 +107,7 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
       }
     }
     double[][][] alpha = new double[2][nbJump][]; // factor/jump/cf
-    double[][] tau2 = new double[nbJump][];
+    final double[][] tau2 = new double[nbJump][];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       tau2[loopjump] = new double[impactTime[loopjump].length];
       alpha[0][loopjump] = new double[impactTime[loopjump].length];
@@ -116,49 +121,122 @@ public class G2ppMonteCarloMethod extends MonteCarloMethod {
     }
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr = cd.evaluate(new DoubleMatrix2D(cov));
-    double[][] covCD = cdr.getL().getData();
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(2 * nbJump, nbPath2[loopblock]);
-      double[][] y = new double[2 * nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < 2 * nbJump; i++) {
-          for (int j = 0; j < 2 * nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
+    final double[][] covCD = cdr.getL().getData();
+    final double[][] impactAmount = decision.getImpactAmount();
+    double pv = sumBlocks(nbJump, 2, new BlockCalculator() {
+      @Override
+      public double evaluate(final double[][] z) {
+        // The normal variables are by jump then factor (row 2 * jump + factor) and the covariance by factor then jump (row factor * nbJump + jump).
+        int nbPathBlock = z[0].length;
+        double[][] x = new double[2 * nbJump][];
+        for (int j = 0; j < 2 * nbJump; j++) {
+          x[j] = z[2 * (j % nbJump) + j / nbJump];
+        }
+        double[][] y = new double[2 * nbJump][nbPathBlock]; // jump/path
+        for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+          for (int i = 0; i < 2 * nbJump; i++) {
+            for (int j = 0; j < 2 * nbJump; j++) {
+              y[i][looppath] += x[j][looppath] * covCD[i][j];
+            }
           }
         }
+        Double[][][] pD = pathGeneratorDiscount(pDI, y, h, tau2);
+        return MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPathBlock;
       }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, tau2);
-      pv += MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath2[loopblock];
-    }
+    });
     pv *= pDN / getNbPath(); // Multiply by the numeraire.
     return CurrencyAmount.of(ccy, pv);
   }
 
-  @Override
-  public CurrencyAmount presentValue(InstrumentDerivative instrument, YieldCurveBundle curves) {
-    return null;
-  }
-
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   * Computes the present value curve sensitivity in the G2++ two factors model by Monte-Carlo. The sensitivity is computed by Adjoint Algorithmic Differentiation.
+   * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
+   * block price is the total price. The adjoints are accumulated path by path with the price, so the cost is a small multiple of the present value cost
+   * whatever the number of curve nodes. The blocks are run in parallel when the method has a path generator and an executor.
+   * @param instrument The swaption.
+   * @param dscName The discounting curve name.
+   * @param g2Data The G2++ data (curves and G2++ parameters).
+   * @return The curve sensitivity.
    */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
+  public InterestRateCurveSensitivity presentValueCurveSensitivity(final InstrumentDerivative instrument, final String dscName, final G2ppPiecewiseConstantDataBundle g2Data) {
+    // TODO: remove dsc curve name (should be available from the instrument)
+    YieldAndDiscountCurve dsc = g2Data.getCurve(dscName);
+    final DecisionScheduleDerivative decision = DDC.visit(instrument, g2Data);
+    double[] decisionTime = decision.getDecisionTime();
+    double[][] impactTime = decision.getImpactTime();
+    final int nbJump = decisionTime.length;
+    double numeraireTime = decisionTime[nbJump - 1];
+    double pDN = dsc.getDiscountFactor(numeraireTime);
+    // Discount factor to numeraire date for rebasing.
+    final double[][] pDI = new double[nbJump][];
+    // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+      pDI[loopjump] = new double[impactTime[loopjump].length];
+      for (int i = 0; i < impactTime[loopjump].length; i++) {
+        pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
+      }
     }
-    return result;
+    final double rhog2pp = g2Data.getG2ppParameter().getCorrelation();
+    final double[][][] h = MODEL.volatilityMaturityPart(g2Data.getG2ppParameter(), numeraireTime, impactTime); // factor/jump/cf
+    double[][][] gamma = new double[nbJump][2][2]; // jump/factor/factor
+    double[][] cov = new double[2 * nbJump][2 * nbJump]; // factor 0 - factor 1
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      gamma[loopjump] = MODEL.gamma(g2Data.getG2ppParameter(), 0.0, decisionTime[loopjump]);
+      for (int j = loopjump; j < nbJump; j++) {
+        cov[j][loopjump] = gamma[loopjump][0][0];
+        cov[loopjump][j] = gamma[loopjump][0][0];
+        cov[nbJump + j][nbJump + loopjump] = gamma[loopjump][1][1];
+        cov[nbJump + loopjump][nbJump + j] = gamma[loopjump][1][1];
+        cov[j][nbJump + loopjump] = rhog2pp * gamma[loopjump][0][1];
+        cov[loopjump][nbJump + j] = rhog2pp * gamma[loopjump][0][1];
+        cov[nbJump + j][loopjump] = rhog2pp * gamma[loopjump][0][1];
+        cov[nbJump + loopjump][j] = rhog2pp * gamma[loopjump][0][1];
+      }
+    }
+    double[][][] alpha = new double[2][nbJump][]; // factor/jump/cf
+    final double[][] tau2 = new double[nbJump][];
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      tau2[loopjump] = new double[impactTime[loopjump].length];
+      alpha[0][loopjump] = new double[impactTime[loopjump].length];
+      alpha[1][loopjump] = new double[impactTime[loopjump].length];
+      for (int loopcf = 0; loopcf < impactTime[loopjump].length; loopcf++) {
+        alpha[0][loopjump][loopcf] = Math.sqrt(gamma[loopjump][0][0]) * h[0][loopjump][loopcf];
+        alpha[1][loopjump][loopcf] = Math.sqrt(gamma[loopjump][1][1]) * h[1][loopjump][loopcf];
+        tau2[loopjump][loopcf] = alpha[0][loopjump][loopcf] * alpha[0][loopjump][loopcf] + alpha[1][loopjump][loopcf] * alpha[1][loopjump][loopcf] + 2 * rhog2pp * gamma[loopjump][0][1]
+            * h[0][loopjump][loopcf] * h[1][loopjump][loopcf];
+      }
+    }
+    CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
+    CholeskyDecompositionResult cdr = cd.evaluate(new DoubleMatrix2D(cov));
+    final double[][] covCD = cdr.getL().getData();
+    final double[][] impactAmount = decision.getImpactAmount();
+    double[] sum = sumBlocks(nbJump, 2, DiscountFactorPathAdjoint.size(impactAmount), new BlockVectorCalculator() {
+      @Override
+      public void evaluate(final double[][] z, final double[] result) {
+        int nbPathBlock = z[0].length;
+        double[][] x = new double[2 * nbJump][];
+        for (int j = 0; j < 2 * nbJump; j++) {
+          x[j] = z[2 * (j % nbJump) + j / nbJump];
+        }
+        double[][] y = new double[2 * nbJump][nbPathBlock]; // jump/path
+        for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+          for (int i = 0; i < 2 * nbJump; i++) {
+            for (int j = 0; j < 2 * nbJump; j++) {
+              y[i][looppath] += x[j][looppath] * covCD[i][j];
+            }
+          }
+        }
+        Double[][][] pD = pathGeneratorDiscount(pDI, y, h, tau2);
+        DiscountFactorPathAdjoint.evaluate(instrument, pD, pDI, impactAmount, result);
+      }
+    });
+    // Backward sweep
+    return DiscountFactorPathAdjoint.curveSensitivity(dscName, decision, numeraireTime, pDN, pDI, sum, getNbPath());
+  }
+
+  @Override
+  public CurrencyAmount presentValue(InstrumentDerivative instrument, YieldCurveBundle curves) {
+    return null;
   }
 
   /**
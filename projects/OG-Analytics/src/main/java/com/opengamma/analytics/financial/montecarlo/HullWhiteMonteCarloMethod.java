@@ -5,10 +5,7 @@
  */
 package com.opengamma.analytics.financial.montecarlo;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang.Validate;
 
@@ -21,10 +18,10 @@ import com.opengamma.analytics.financial.model.interestrate.definition.HullWhite
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionCommons;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.random.PathRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.CurrencyAmount;
-import com.opengamma.util.tuple.DoublesPair;
 
 /**
  * Monte Carlo pricing method in the hull-White one factor model.
@@ -44,18 +41,10 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
    * The calculator from discount factors (calculate the price from simulated discount factors and the reference amounts).
    */
   private static final MonteCarloDiscountFactorCalculator MCC = MonteCarloDiscountFactorCalculator.getInstance();
-  /**
-   * The calculator of price and derivatives from discount factors and reference amounts.
-   */
-  private static final MonteCarloDiscountFactorDerivativeCalculator MCDC = MonteCarloDiscountFactorDerivativeCalculator.getInstance();
   /**
    * The Hull-White one factor model.
    */
   private static final HullWhiteOneFactorPiecewiseConstantInterestRateModel MODEL = new HullWhiteOneFactorPiecewiseConstantInterestRateModel();
-  /**
-   * The number of paths in one block.
-   */
-  private static final int BLOCK_SIZE = 1000;
 
   /**
    * @param numberGenerator The random number generator.
@@ -65,10 +54,19 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     super(numberGenerator, nbPath);
   }
 
+  /**
+   * @param pathGenerator The path random number generator.
+   * @param nbPath The number of paths.
+   * @param executor The executor used to simulate the blocks of paths, null to use the calling thread.
+   */
+  public HullWhiteMonteCarloMethod(PathRandomNumberGenerator pathGenerator, int nbPath, ExecutorService executor) {
+    super(pathGenerator, nbPath, executor);
+  }
+
   /**
    * Computes the present value in the Hull-White one factor model by Monte-Carlo.
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
-   * block price is the total price. 
+   * block price is the total price. The blocks are run in parallel when the method has a path generator and an executor.
    * @param instrument The swaption.
    * @param ccy The currency
    * @param dscName The discounting curve name.
@@ -81,11 +79,11 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     DecisionSchedule decision = DC.visit(instrument, hwData);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -93,7 +91,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
       }
     }
-    double[] gamma = new double[nbJump];
+    final double[] gamma = new double[nbJump];
     double[][] cov = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       gamma[loopjump] = MODEL.beta(hwData.getHullWhiteParameter(), 0.0, decisionTime[loopjump]);
@@ -104,8 +102,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         cov[loopjump][j] = gamma[loopjump];
       }
     }
-    double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
-    double[][] h2 = new double[nbJump][];
+    final double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
+    final double[][] h2 = new double[nbJump][];
     for (int i = 0; i < nbJump; i++) {
       h2[i] = new double[h[i].length];
       for (int j = 0; j < h[i].length; j++) {
@@ -126,33 +124,29 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr2 = cd.evaluate(new DoubleMatrix2D(cov2));
     double[][] covCD2 = cdr2.getL().toArray();
-    double[][] covCD = new double[nbJump][nbJump];
+    final double[][] covCD = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump - nbZero; loopjump++) {
       for (int loopjump2 = 0; loopjump2 < nbJump - nbZero; loopjump2++) {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
+    final double[][] impactAmount = decision.getImpactAmount();
+    double pv = sumBlocks(nbJump, 1, new BlockCalculator() {
+      @Override
+      public double evaluate(final double[][] x) {
+        int nbPathBlock = x[0].length;
+        double[][] y = new double[nbJump][nbPathBlock]; // jump/path
+        for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+          for (int i = 0; i < nbJump; i++) {
+            for (int j = 0; j < nbJump; j++) {
+              y[i][looppath] += x[j][looppath] * covCD[i][j];
+            }
           }
         }
+        Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        return MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPathBlock;
       }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      pv += MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath2[loopblock];
-    }
+    });
     pv *= pDN / getNbPath(); // Multiply by the numeraire.
     return CurrencyAmount.of(ccy, pv);
   }
@@ -160,7 +154,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   /**
    * Computes the present value curve sensitivity in the Hull-White one factor model by Monte-Carlo. The sensitivity is computed by Adjoint Algorithmic Differentiation. 
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
-   * block price is the total price. 
+   * block price is the total price. The adjoints are accumulated path by path with the price, so the cost is a small multiple of the present value cost
+   * whatever the number of curve nodes. The blocks are run in parallel when the method has a path generator and an executor.
    * @param instrument The swaption.
    * @param dscName The discounting curve name.
    * @param hwData The Hull-White data (curves and Hull-White parameters).
@@ -170,14 +165,14 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     YieldAndDiscountCurve dsc = hwData.getCurve(dscName);
     // TODO: remove dsc curve name
     // Forward sweep
-    DecisionScheduleDerivative decision = DDC.visit(instrument, hwData);
+    final DecisionScheduleDerivative decision = DDC.visit(instrument, hwData);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -185,7 +180,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
       }
     }
-    double[] gamma = new double[nbJump];
+    final double[] gamma = new double[nbJump];
     double[][] cov = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       gamma[loopjump] = MODEL.beta(hwData.getHullWhiteParameter(), 0.0, decisionTime[loopjump]);
@@ -196,8 +191,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         cov[loopjump][j] = gamma[loopjump];
       }
     }
-    double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
-    double[][] h2 = new double[nbJump][];
+    final double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
+    final double[][] h2 = new double[nbJump][];
     for (int i = 0; i < nbJump; i++) {
       h2[i] = new double[h[i].length];
       for (int j = 0; j < h[i].length; j++) {
@@ -218,116 +213,31 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr2 = cd.evaluate(new DoubleMatrix2D(cov2));
     double[][] covCD2 = cdr2.getL().toArray();
-    double[][] covCD = new double[nbJump][nbJump];
+    final double[][] covCD = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump - nbZero; loopjump++) {
       for (int loopjump2 = 0; loopjump2 < nbJump - nbZero; loopjump2++) {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    double[] pvBlock = new double[nbBlock];
-    // Backward sweep (init)
-    double pvBar = 1.0;
-    double[] pvBlockBar = new double[nbBlock];
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      pvBlockBar[loopblock] = pDN / getNbPath() * pvBar;
-    }
-    double[][] impactAmountBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
-    }
-    // Forward sweep (end) and backward sweep (main)
-    double[][] pDIBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      pDIBar[loopjump] = new double[impactAmount[loopjump].length];
-    }
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
-      }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
-      pvBlock[loopblock] = MCDC.visit(instrument, mcdDB) * nbPath2[loopblock];
-      pv += pvBlock[loopblock];
-      // Backward sweep (in block loop)
-      for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-        for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-          impactAmountBar[loopjump][loopimp] += mcdDB.getImpactAmountDerivative()[loopjump][loopimp] * nbPath2[loopblock] * pvBlockBar[loopblock];
-        }
-      }
-      Double[][][] pDBar = new Double[nbPath2[loopblock]][nbJump][];
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-          pDBar[looppath][loopjump] = new Double[impactAmount[loopjump].length];
-          for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-            pDBar[looppath][loopjump][loopimp] = mcdDB.getPathDiscountingFactorDerivative()[looppath][loopjump][loopimp] * nbPath2[loopblock] * pvBlockBar[loopblock];
+    final double[][] impactAmount = decision.getImpactAmount();
+    double[] sum = sumBlocks(nbJump, 1, DiscountFactorPathAdjoint.size(impactAmount), new BlockVectorCalculator() {
+      @Override
+      public void evaluate(final double[][] x, final double[] result) {
+        int nbPathBlock = x[0].length;
+        double[][] y = new double[nbJump][nbPathBlock]; // jump/path
+        for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+          for (int i = 0; i < nbJump; i++) {
+            for (int j = 0; j < nbJump; j++) {
+              y[i][looppath] += x[j][looppath] * covCD[i][j];
+            }
           }
         }
+        Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        DiscountFactorPathAdjoint.evaluate(instrument, pD, pDI, impactAmount, result);
       }
-      double[][] pDIBarTemp = pathGeneratorDiscountAdjointIDF(pDI, y, h, h2, gamma, pDBar);
-      for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-        for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-          pDIBar[loopjump][loopimp] += pDIBarTemp[loopjump][loopimp];
-        }
-      }
-    }
-    pv *= pDN / getNbPath(); // Multiply by the numeraire.
-    // Backward sweep (end)
-    double pDNBar = pv / pDN * pvBar;
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      for (int loopimp = 0; loopimp < impactTime[loopjump].length; loopimp++) {
-        pDNBar += -dsc.getDiscountFactor(impactTime[loopjump][loopimp]) / (pDN * pDN) * pDIBar[loopjump][loopimp];
-      }
-    }
-    final Map<String, List<DoublesPair>> resultMap = new HashMap<String, List<DoublesPair>>();
-    final List<DoublesPair> listDiscounting = new ArrayList<DoublesPair>();
-    listDiscounting.add(new DoublesPair(numeraireTime, -numeraireTime * pDN * pDNBar));
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      for (int loopimp = 0; loopimp < impactTime[loopjump].length; loopimp++) {
-        listDiscounting.add(new DoublesPair(impactTime[loopjump][loopimp], -impactTime[loopjump][loopimp] * pDI[loopjump][loopimp] * pDIBar[loopjump][loopimp]));
-      }
-    }
-    resultMap.put(dscName, listDiscounting);
-    InterestRateCurveSensitivity result = new InterestRateCurveSensitivity(resultMap);
-    // Adding sensitivity due to cash flow equivalent sensitivity to curves.
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      Map<Double, InterestRateCurveSensitivity> impactAmountDerivative = decision.getImpactAmountDerivative().get(loopjump);
-      for (int loopimp = 0; loopimp < impactTime[loopjump].length; loopimp++) {
-        InterestRateCurveSensitivity sensiCfe = impactAmountDerivative.get(impactTime[loopjump][loopimp]);
-        if (!(sensiCfe == null)) { // There is some sensitivity to that cfe.
-          result = result.plus(sensiCfe.multipliedBy(impactAmountBar[loopjump][loopimp]));
-        }
-      }
-    }
-    result = result.cleaned();
-    return result;
-  }
-
-  /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
-   */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
-    }
-    return result;
+    });
+    // Backward sweep
+    return DiscountFactorPathAdjoint.curveSensitivity(dscName, decision, numeraireTime, pDN, pDI, sum, getNbPath());
   }
 
   /**
@@ -360,38 +270,6 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     return pD;
   }
 
-  /**
-   * Computes the initial discount factors adjoint values with respect to the initDiscountFactor.
-   * @param initDiscountFactor The initial discount factors.
-   * @param y The correlated random variables.
-   * @param h The H parameters.
-   * @param h2 The H^2 parameters.
-   * @param gamma The gamma parameters.
-   * @param pDBar The simulated discount factor adjoints (path/jump/cf).
-   * @return The initial discount factor adjoints (jump/cf).
-   */
-  private double[][] pathGeneratorDiscountAdjointIDF(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, Double[][][] pDBar) {
-    int nbJump = y.length;
-    int nbPath = y[0].length;
-    double[] h2gamma;
-    double[][] initDiscountFactorBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      int nbCF = h[loopjump].length;
-      h2gamma = new double[nbCF];
-      for (int loopcf = 0; loopcf < nbCF; loopcf++) {
-        h2gamma[loopcf] = h2[loopjump][loopcf] * gamma[loopjump];
-      }
-      // Backward sweep
-      initDiscountFactorBar[loopjump] = new double[nbCF];
-      for (int looppath = 0; looppath < nbPath; looppath++) {
-        for (int loopcf = 0; loopcf < nbCF; loopcf++) {
-          initDiscountFactorBar[loopjump][loopcf] += Math.exp(-h[loopjump][loopcf] * y[loopjump][looppath] - h2gamma[loopcf]) * pDBar[looppath][loopjump][loopcf];
-        }
-      }
-    }
-    return initDiscountFactorBar;
-  }
-
   //  /**
   //   * Computes the initial discount factors adjoint values with respect to y.
   //   * @param initDiscountFactor The initial discount factors.
@@ -6,6 +6,7 @@
 package com.opengamma.analytics.financial.montecarlo;
 
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
 
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
@@ -15,6 +16,7 @@ import com.opengamma.analytics.financial.model.interestrate.definition.LiborMark
 import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.random.PathRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.CurrencyAmount;
@@ -37,10 +39,6 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
    * The calculator from discount factors (calculate the price from simulated discount factors and the reference amounts).
    */
   private static final MonteCarloIborRateCalculator MCC = MonteCarloIborRateCalculator.getInstance();
-  /**
-   * The number of paths in one block.
-   */
-  private static final int BLOCK_SIZE = 1000;
   /**
    * The default maximum length of a jump in the path generation.
    */
@@ -67,14 +65,26 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
     _maxJump = maxJump;
   }
 
+  /**
+   * Constructor.
+   * @param pathGenerator The path random number generator.
+   * @param nbPath The number of paths.
+   * @param maxJump The maximum length of a jump in the path generation.
+   * @param executor The executor used to simulate the blocks of paths, null to use the calling thread.
+   */
+  public LiborMarketModelMonteCarloMethod(PathRandomNumberGenerator pathGenerator, int nbPath, double maxJump, ExecutorService executor) {
+    super(pathGenerator, nbPath, executor);
+    _maxJump = maxJump;
+  }
+
   public CurrencyAmount presentValue(final InstrumentDerivative instrument, Currency ccy, YieldAndDiscountCurve dsc, final LiborMarketModelDisplacedDiffusionDataBundle lmmData) {
     // The numeraire is the last time in the LMM description.
-    DecisionSchedule decision = DC.visit(instrument, lmmData);
-    int[][] impactIndex = index(decision.getImpactTime(), lmmData.getLmmParameter());
+    final DecisionSchedule decision = DC.visit(instrument, lmmData);
+    final int[][] impactIndex = index(decision.getImpactTime(), lmmData.getLmmParameter());
 
-    int nbPeriodLMM = lmmData.getLmmParameter().getNbPeriod();
-    double[] initL = new double[nbPeriodLMM];
-    double[] deltaLMM = lmmData.getLmmParameter().getAccrualFactor();
+    final int nbPeriodLMM = lmmData.getLmmParameter().getNbPeriod();
+    final double[] initL = new double[nbPeriodLMM];
+    final double[] deltaLMM = lmmData.getLmmParameter().getAccrualFactor();
     double[] dfL = new double[nbPeriodLMM + 1];
     for (int loopper = 0; loopper < nbPeriodLMM + 1; loopper++) {
       dfL[loopper] = dsc.getDiscountFactor(lmmData.getLmmParameter().getIborTime()[loopper]);
@@ -83,24 +93,25 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       initL[loopper] = (dfL[loopper] / dfL[loopper + 1] - 1.0) / deltaLMM[loopper];
     }
 
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
+    final double[][] jumpIn = intermediaryJumps(decision.getDecisionTime());
+    int nbStep = 0;
+    for (final double[] jump : jumpIn) {
+      nbStep += jump.length - 1;
     }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-
-    double price = 0.0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] initLPath = new double[nbPeriodLMM][nbPath2[loopblock]];
-      for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
-        for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-          initLPath[loopper][looppath] = initL[loopper];
+    double price = sumBlocks(nbStep, lmmData.getLmmParameter().getNbFactor(), new BlockCalculator() {
+      @Override
+      public double evaluate(final double[][] dw) {
+        int nbPathBlock = dw[0].length;
+        double[][] initLPath = new double[nbPeriodLMM][nbPathBlock];
+        for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+          for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+            initLPath[loopper][looppath] = initL[loopper];
+          }
         }
+        double[][][] pathIbor = pathgeneratorlibor(jumpIn, initLPath, lmmData.getLmmParameter(), dw);
+        return MCC.visit(instrument, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
       }
-      double[][][] pathIbor = pathgeneratorlibor(decision.getDecisionTime(), initLPath, lmmData.getLmmParameter());
-      price += MCC.visit(instrument, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
-    }
+    });
     price *= dsc.getDiscountFactor(lmmData.getLmmParameter().getIborTime()[lmmData.getLmmParameter().getIborTime().length - 1]) / getNbPath();
     return CurrencyAmount.of(ccy, price);
   }
@@ -125,9 +136,12 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
    * Create one step in the LMM diffusion. The step is done through several jump times. The diffusion is approximated with a predictor-corrector approach.
    * @param jumpTime The jump times.
    * @param initIbor Rate at the start of the period. Size: nbPeriodLMM x nbPath.
+   * @param lmm The LMM parameters.
+   * @param dw The normal variables of all the jumps of the path (row jump * nbFactorLMM + factor).
+   * @param firstJump The index in the path of the first jump of the step.
    * @return The Ibor rates at the end of the jump period. Size: nbPeriodLMM x nbPath.
    */
-  private double[][] stepPC(double[] jumpTime, double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
+  private double[][] stepPC(double[] jumpTime, double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm, final double[][] dw, final int firstJump) {
     double amr = lmm.getMeanReversion();
     double[] iborTime = lmm.getIborTime();
     double[] almm = lmm.getDisplacement();
@@ -166,7 +180,7 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       }
       DoubleMatrix2D salpha2 = new DoubleMatrix2D(salpha2Array);
       // Random seed
-      double[][] dw = getNormalArray(nbFactorLMM, nbPath);
+      int dwRow = (firstJump + loopjump) * nbFactorLMM;
       // Common figures
       double[] dr1 = new double[nI];
       for (int loopn = 0; loopn < nI; loopn++) {
@@ -176,7 +190,7 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       for (int loopn = 0; loopn < nI; loopn++) {
         for (int looppath = 0; looppath < nbPath; looppath++) {
           for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
-            cc[loopn][looppath] += gammaLMM.getEntry(index + loopn, loopfact) * dw[loopfact][looppath] * sqrtDt * alpha[loopjump];
+            cc[loopn][looppath] += gammaLMM.getEntry(index + loopn, loopfact) * dw[dwRow + loopfact][looppath] * sqrtDt * alpha[loopjump];
           }
           cc[loopn][looppath] += dr1[loopn];
         }
@@ -215,57 +229,56 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * 
+   * Computes the jumps of the path generation: the mandatory jumps, divided into intermediary jumps of maximum length maxJump.
    * @param jumpTime The time of the mandatory jumps.
-   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
-   * @param lmm The LMM parameters.
-   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
+   * @return For each mandatory jump, the times of its intermediary jumps, starting with the previous mandatory jump time (or 0).
    */
-  private double[][][] pathgeneratorlibor(double[] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
-    int nbPeriod = initIbor.length;
-    int nbPath = initIbor[0].length;
+  private double[][] intermediaryJumps(double[] jumpTime) {
     int nbJump = jumpTime.length;
-    double[][] initTmp = new double[nbPeriod][nbPath];
-    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
-    }
     double[] jumpTimeA = new double[nbJump + 1];
     jumpTimeA[0] = 0;
     System.arraycopy(jumpTime, 0, jumpTimeA, 1, nbJump);
-    double[][][] result = new double[nbJump][nbPeriod][nbPath];
-    // TODO: add intermediary jump dates if necessary
+    double[][] jumpIn = new double[nbJump][];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      // Intermediary jumps
-      double[] jumpIn;
       if (jumpTimeA[loopjump + 1] - jumpTimeA[loopjump] < _maxJump) {
-        jumpIn = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
+        jumpIn[loopjump] = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
       } else {
         double jump = jumpTimeA[loopjump + 1] - jumpTimeA[loopjump];
         int nbJumpIn = (int) Math.ceil(jump / _maxJump);
-        jumpIn = new double[nbJumpIn + 1];
-        jumpIn[0] = jumpTimeA[loopjump];
+        jumpIn[loopjump] = new double[nbJumpIn + 1];
+        jumpIn[loopjump][0] = jumpTimeA[loopjump];
         for (int loopJumpIn = 1; loopJumpIn <= nbJumpIn; loopJumpIn++) {
-          jumpIn[loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
+          jumpIn[loopjump][loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
         }
       }
-      initTmp = stepPC(jumpIn, initTmp, lmm);
-      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-        System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
-      }
     }
-    return result;
+    return jumpIn;
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   * 
+   * @param jumpIn The intermediary jump times of each mandatory jump, see {@link #intermediaryJumps(double[])}.
+   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
+   * @param lmm The LMM parameters.
+   * @param dw The normal variables of all the intermediary jumps (row jump * nbFactorLMM + factor).
+   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
    */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
+  private double[][][] pathgeneratorlibor(double[][] jumpIn, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm, final double[][] dw) {
+    int nbPeriod = initIbor.length;
+    int nbPath = initIbor[0].length;
+    int nbJump = jumpIn.length;
+    double[][] initTmp = new double[nbPeriod][nbPath];
+    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
+    }
+    double[][][] result = new double[nbJump][nbPeriod][nbPath];
+    int firstJump = 0;
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+      initTmp = stepPC(jumpIn[loopjump], initTmp, lmm, dw, firstJump);
+      firstJump += jumpIn[loopjump].length - 1;
+      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+        System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
+      }
     }
     return result;
   }
@@ -10,6 +10,7 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.analytics.financial.interestrate.AbstractInstrumentDerivativeVisitor;
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.interestrate.annuity.derivative.AnnuityCouponIborRatchet;
+import com.opengamma.analytics.financial.interestrate.payments.derivative.CapFloorIbor;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.CouponFixed;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.CouponIborGearing;
 import com.opengamma.analytics.financial.interestrate.payments.derivative.CouponIborRatchet;
@@ -46,6 +47,44 @@ public class MonteCarloDiscountFactorDerivativeCalculator extends AbstractInstru
     return derivative.accept(this, mcResults);
   }
 
+  @Override
+  public Double visitCapFloorIbor(final CapFloorIbor payment, final MonteCarloDiscountFactorDerivativeDataBundle mcResults) {
+    // Forward sweep
+    Double[][][] pathDiscountFactors = mcResults.getPathDiscountingFactor();
+    double[][] impactAmount = mcResults.getImpactAmount();
+    Validate.isTrue(pathDiscountFactors[0].length == 1, "Only one decision date for cap/floor.");
+    double price = 0;
+    int nbPath = pathDiscountFactors.length;
+    double omega = (payment.isCap() ? 1.0 : -1.0);
+    double tau = payment.getFixingYearFraction();
+    double[] ibor = new double[nbPath];
+    double[] payoff = new double[nbPath];
+    for (int looppath = 0; looppath < nbPath; looppath++) {
+      ibor[looppath] = (-impactAmount[0][0] * pathDiscountFactors[looppath][0][0] / (impactAmount[0][1] * pathDiscountFactors[looppath][0][1]) - 1.0) / tau;
+      payoff[looppath] = Math.max(omega * (ibor[looppath] - payment.getStrike()), 0);
+      price += payoff[looppath] * pathDiscountFactors[looppath][0][2];
+    }
+    price = price / nbPath * payment.getNotional() * payment.getPaymentYearFraction();
+    // Backward sweep
+    double priceBar = 1.0;
+    double pathBar = payment.getNotional() * payment.getPaymentYearFraction() / nbPath * priceBar;
+    double[][] impactAmountBar = new double[1][3];
+    Double[][][] pathDiscountFactorsBar = new Double[nbPath][1][];
+    for (int looppath = 0; looppath < nbPath; looppath++) {
+      double iborBar = ((payoff[looppath] > 0) ? omega : 0.0) * pathDiscountFactors[looppath][0][2] * pathBar;
+      double ratio = impactAmount[0][0] * pathDiscountFactors[looppath][0][0] / (impactAmount[0][1] * pathDiscountFactors[looppath][0][1]);
+      impactAmountBar[0][0] += -ratio / impactAmount[0][0] / tau * iborBar;
+      impactAmountBar[0][1] += ratio / impactAmount[0][1] / tau * iborBar;
+      pathDiscountFactorsBar[looppath][0] = new Double[3];
+      pathDiscountFactorsBar[looppath][0][0] = -ratio / pathDiscountFactors[looppath][0][0] / tau * iborBar;
+      pathDiscountFactorsBar[looppath][0][1] = ratio / pathDiscountFactors[looppath][0][1] / tau * iborBar;
+      pathDiscountFactorsBar[looppath][0][2] = payoff[looppath] * pathBar;
+    }
+    mcResults.setImpactAmountDerivative(impactAmountBar);
+    mcResults.setPathDiscountingFactorDerivative(pathDiscountFactorsBar);
+    return price;
+  }
+
   @Override
   public Double visitSwaptionPhysicalFixedIbor(final SwaptionPhysicalFixedIbor swaption, final MonteCarloDiscountFactorDerivativeDataBundle mcResults) {
     // Forward sweep
@@ -5,18 +5,45 @@
  */
 package com.opengamma.analytics.financial.montecarlo;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.interestrate.method.PricingMethod;
+import com.opengamma.analytics.math.random.PathRandomNumberGenerator;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * Generic Monte-Carlo pricing method.
+ * <p>
+ * The paths are simulated by blocks of BLOCK_SIZE paths. With a {@link RandomNumberGenerator}, the blocks are simulated one after the other on the calling thread.
+ * With a {@link PathRandomNumberGenerator}, the random variables of a block depend only on its position in the simulation, so the blocks are shared between
+ * the threads of the executor (if any), each thread reusing its own buffer, and the result does not depend on the number of threads.
  */
 public abstract class MonteCarloMethod implements PricingMethod {
 
+  /**
+   * The number of paths in one block.
+   */
+  protected static final int BLOCK_SIZE = 1000;
+
   /**
    * The random number generator.
    */
   private final RandomNumberGenerator _numberGenerator;
+  /**
+   * The path random number generator.
+   */
+  private final PathRandomNumberGenerator _pathGenerator;
+  /**
+   * The executor used to simulate the blocks, null to use the calling thread.
+   */
+  private final ExecutorService _executor;
   /**
    * The number of paths.
    */
@@ -29,17 +56,49 @@ public abstract class MonteCarloMethod implements PricingMethod {
    */
   public MonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath) {
     _numberGenerator = numberGenerator;
+    _pathGenerator = null;
+    _executor = null;
+    _nbPath = nbPath;
+  }
+
+  /**
+   * Constructor.
+   * @param pathGenerator The path random number generator, not null.
+   * @param nbPath The number of paths.
+   * @param executor The executor used to simulate the blocks of paths, null to use the calling thread.
+   */
+  public MonteCarloMethod(PathRandomNumberGenerator pathGenerator, int nbPath, ExecutorService executor) {
+    ArgumentChecker.notNull(pathGenerator, "path generator");
+    _numberGenerator = null;
+    _pathGenerator = pathGenerator;
+    _executor = executor;
     _nbPath = nbPath;
   }
 
   /**
    * Gets the _numberGenerator field.
-   * @return the _numberGenerator
+   * @return the _numberGenerator, null if the method uses a path generator.
    */
   public RandomNumberGenerator getNumberGenerator() {
     return _numberGenerator;
   }
 
+  /**
+   * Gets the _pathGenerator field.
+   * @return the _pathGenerator, null if the method uses a random number generator.
+   */
+  public PathRandomNumberGenerator getPathGenerator() {
+    return _pathGenerator;
+  }
+
+  /**
+   * Gets the _executor field.
+   * @return the _executor, null if the blocks are simulated on the calling thread.
+   */
+  public ExecutorService getExecutor() {
+    return _executor;
+  }
+
   /**
    * Gets the _nbPath field.
    * @return the _nbPath
@@ -48,4 +107,138 @@ public abstract class MonteCarloMethod implements PricingMethod {
     return _nbPath;
   }
 
+  /**
+   * Calculator of the contribution of one block of paths to a Monte Carlo result.
+   */
+  protected interface BlockCalculator {
+
+    /**
+     * Computes the contribution of a block.
+     * @param normals The independent standard normal variables of the block. The rows are the steps and factors (row step * nbFactor + factor), the columns the paths.
+     * The array may be reused for the next blocks.
+     * @return The contribution of the block.
+     */
+    double evaluate(double[][] normals);
+
+  }
+
+  /**
+   * Calculator of the contribution of one block of paths to a vector of Monte Carlo results, typically a present value and its adjoints.
+   */
+  protected interface BlockVectorCalculator {
+
+    /**
+     * Computes the contribution of a block.
+     * @param normals The independent standard normal variables of the block. The rows are the steps and factors (row step * nbFactor + factor), the columns the paths.
+     * The array may be reused for the next blocks.
+     * @param result The array to fill with the contribution of the block, initially zero.
+     */
+    void evaluate(double[][] normals, double[] result);
+
+  }
+
+  /**
+   * Simulates all the paths by blocks and returns the sum of the contributions of the blocks. The contributions are summed in the block order,
+   * so the result does not depend on the threads.
+   * @param nbStep The number of steps of the paths.
+   * @param nbFactor The number of factors at each step.
+   * @param calculator The block calculator. Called concurrently when the method has an executor.
+   * @return The sum of the contributions.
+   */
+  protected double sumBlocks(final int nbStep, final int nbFactor, final BlockCalculator calculator) {
+    return sumBlocks(nbStep, nbFactor, 1, new BlockVectorCalculator() {
+      @Override
+      public void evaluate(final double[][] normals, final double[] result) {
+        result[0] = calculator.evaluate(normals);
+      }
+    })[0];
+  }
+
+  /**
+   * Simulates all the paths by blocks and returns the sum of the vector contributions of the blocks. The contributions are summed in the block order,
+   * so the result does not depend on the threads.
+   * @param nbStep The number of steps of the paths.
+   * @param nbFactor The number of factors at each step.
+   * @param size The size of the vector of results.
+   * @param calculator The block calculator. Called concurrently when the method has an executor.
+   * @return The sum of the contributions.
+   */
+  protected double[] sumBlocks(final int nbStep, final int nbFactor, final int size, final BlockVectorCalculator calculator) {
+    final int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
+    final double[][] blockValue = new double[nbBlock][size];
+    if (_pathGenerator == null || _executor == null || nbBlock == 1) {
+      evaluateBlocks(nbStep, nbFactor, calculator, 0, 1, blockValue);
+    } else {
+      final int nbTask = Math.min(nbBlock, Runtime.getRuntime().availableProcessors());
+      final List<Future<?>> futures = new ArrayList<Future<?>>(nbTask);
+      for (int looptask = 0; looptask < nbTask; looptask++) {
+        final int firstBlock = looptask;
+        futures.add(_executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            evaluateBlocks(nbStep, nbFactor, calculator, firstBlock, nbTask, blockValue);
+            return null;
+          }
+        }));
+      }
+      try {
+        for (final Future<?> future : futures) {
+          future.get();
+        }
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new OpenGammaRuntimeException("Interrupted while simulating paths", ex);
+      } catch (final ExecutionException ex) {
+        throw new OpenGammaRuntimeException("Error while simulating paths", ex.getCause());
+      }
+    }
+    final double[] sum = new double[size];
+    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
+      for (int loopsize = 0; loopsize < size; loopsize++) {
+        sum[loopsize] += blockValue[loopblock][loopsize];
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Fills a buffer with the independent standard normal variables of a block of paths.
+   * @param firstPath The index of the first path of the block.
+   * @param nbFactor The number of factors at each step.
+   * @param normals The buffer. The rows are the steps and factors, the columns the paths.
+   */
+  protected void fillNormals(final long firstPath, final int nbFactor, final double[][] normals) {
+    if (_pathGenerator != null) {
+      _pathGenerator.fillNormals(firstPath, nbFactor, normals);
+    } else {
+      // Same draws, in the same order, as the original block by block implementation
+      final int nbPath = normals[0].length;
+      for (int looprow = 0; looprow < normals.length; looprow++) {
+        System.arraycopy(_numberGenerator.getVector(nbPath), 0, normals[looprow], 0, nbPath);
+      }
+    }
+  }
+
+  /**
+   * Evaluates the blocks firstBlock, firstBlock + stride, ... reusing one buffer for all the full blocks.
+   */
+  private void evaluateBlocks(final int nbStep, final int nbFactor, final BlockVectorCalculator calculator, final int firstBlock, final int stride, final double[][] blockValue) {
+    final int nbBlock = blockValue.length;
+    double[][] buffer = null;
+    for (int loopblock = firstBlock; loopblock < nbBlock; loopblock += stride) {
+      final int nbPathBlock = Math.min(BLOCK_SIZE, getNbPath() - loopblock * BLOCK_SIZE);
+      final double[][] normals;
+      if (nbPathBlock == BLOCK_SIZE) {
+        if (buffer == null) {
+          buffer = new double[nbStep * nbFactor][BLOCK_SIZE];
+        }
+        normals = buffer;
+      } else {
+        normals = new double[nbStep * nbFactor][nbPathBlock];
+      }
+      fillNormals((long) loopblock * BLOCK_SIZE, nbFactor, normals);
+      calculator.evaluate(normals, blockValue[loopblock]);
+    }
+  }
+
 }
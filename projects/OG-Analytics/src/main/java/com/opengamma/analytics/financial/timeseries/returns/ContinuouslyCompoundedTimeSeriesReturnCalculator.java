@@ -10,6 +10,7 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.CalculationMode;
 import com.opengamma.util.timeseries.TimeSeriesException;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeriesOperators;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
@@ -68,37 +69,23 @@ public class ContinuouslyCompoundedTimeSeriesReturnCalculator extends TimeSeries
 
     final int[] times = ts.timesArrayFast();
     final double[] values = ts.valuesArrayFast();
-    
+    if (d == null && areValuesNonZero(values)) {
+      final int[] resultTimes = getReturnTimes(times);
+      return getSeries(x[0], resultTimes, FastArrayIntDoubleTimeSeriesOperators.logReturns(values, values), resultTimes.length);
+    }
+    final double[] dividends = d == null ? new double[times.length] : getAlignedDividends(times, d);
+
     final int[] resultTimes = new int[times.length];
     final double[] resultValues = new double[times.length];
-    
-    int index = 0;
-    //int previousTime = times[index];
-    double previousValue = values[index];
-    index++;
-    
-    double dividend;
-    Double dividendTSData;
     int resultIndex = 0;
-    
-    while (index < times.length) {
-      int time = times[index];
-      double value = values[index];
-      index++;
-      
+    for (int index = 1; index < times.length; index++) {
+      final double previousValue = values[index - 1];
+      final double value = values[index];
       if (isValueNonZero(previousValue) && isValueNonZero(value)) {
-        resultTimes[resultIndex] = time;
-        if (d == null) {
-          dividend = 0;
-        } else {
-          dividendTSData = d.getValue(time); // Arghh, this makes it n log(n) instead of n...  Improve this.
-          dividend = dividendTSData == null ? 0 : dividendTSData;
-        }
-        resultValues[resultIndex] = Math.log((value + dividend) / previousValue);
+        resultTimes[resultIndex] = times[index];
+        resultValues[resultIndex] = Math.log((value + dividends[index]) / previousValue);
         resultIndex++;
       }
-      //previousTime = time;
-      previousValue = value;
     }
     return getSeries(x[0], resultTimes, resultValues, resultIndex);
   }
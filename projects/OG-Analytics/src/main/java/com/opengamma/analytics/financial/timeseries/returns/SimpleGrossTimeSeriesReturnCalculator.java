@@ -5,9 +5,6 @@
  */
 package com.opengamma.analytics.financial.timeseries.returns;
 
-import java.util.Iterator;
-import java.util.Map;
-
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.util.ArgumentChecker;
@@ -70,27 +67,19 @@ public class SimpleGrossTimeSeriesReturnCalculator extends TimeSeriesReturnCalcu
       }
     }
     final int n = ts.size();
+    final int[] tsTimes = ts.timesArrayFast();
+    final double[] tsValues = ts.valuesArrayFast();
+    final double[] dividends = d == null ? new double[n] : getAlignedDividends(tsTimes, d);
     final int[] times = new int[n];
     final double[] data = new double[n];
-    final Iterator<Map.Entry<Integer, Double>> iter = ts.iterator();
-    Map.Entry<Integer, Double> previousEntry = iter.next();
-    Map.Entry<Integer, Double> entry;
-    double dividend;
-    Double dividendTSData;
     int i = 0;
-    while (iter.hasNext()) {
-      entry = iter.next();
-      if (isValueNonZero(previousEntry.getValue()) && isValueNonZero(entry.getValue())) {
-        times[i] = entry.getKey();
-        if (d == null) {
-          dividend = 0;
-        } else {
-          dividendTSData = d.getValue(entry.getKey());
-          dividend = dividendTSData == null ? 0 : dividendTSData;
-        }
-        data[i++] = (entry.getValue() + dividend) / previousEntry.getValue();
+    for (int j = 1; j < n; j++) {
+      final double previousValue = tsValues[j - 1];
+      final double value = tsValues[j];
+      if (isValueNonZero(previousValue) && isValueNonZero(value)) {
+        times[i] = tsTimes[j];
+        data[i++] = (value + dividends[j]) / previousValue;
       }
-      previousEntry = entry;
     }
     return getSeries(x[0], times, data, i);
   }
@@ -10,6 +10,7 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.CalculationMode;
 import com.opengamma.util.timeseries.TimeSeriesException;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeriesOperators;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
@@ -68,25 +69,19 @@ public class SimpleNetTimeSeriesReturnCalculator extends TimeSeriesReturnCalcula
     final int n = ts.size();
     int[] tsTimes = ts.timesArrayFast();
     double[] tsValues = ts.valuesArrayFast();
+    if (d == null && areValuesNonZero(tsValues)) {
+      return getSeries(x[0], getReturnTimes(tsTimes), FastArrayIntDoubleTimeSeriesOperators.simpleReturns(tsValues, tsValues), n - 1);
+    }
+    final double[] dividends = d == null ? new double[n] : getAlignedDividends(tsTimes, d);
     final int[] times = new int[n - 1];
     final double[] data = new double[n - 1];
-    double dividend;
-    Double dividendTSData;
     int i = 0;
     for (int j = 1; j < n; j++) {
       double prevValue = tsValues[j - 1];
       double value = tsValues[j];
-      int time = tsTimes[j];
-      
       if (isValueNonZero(prevValue) && isValueNonZero(value)) {
-        times[i] = time;
-        if (d == null) {
-          dividend = 0;
-        } else {
-          dividendTSData = d.getValue(time);
-          dividend = dividendTSData == null ? 0 : dividendTSData;
-        }
-        data[i++] = (value + dividend) / prevValue - 1;
+        times[i] = tsTimes[j];
+        data[i++] = (value + dividends[j]) / prevValue - 1;
       }
     }
     return getSeries(x[0], times, data, i);
@@ -13,6 +13,8 @@ import com.opengamma.util.CalculationMode;
 import com.opengamma.util.CompareUtils;
 import com.opengamma.util.timeseries.TimeSeriesException;
 import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
 import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 
@@ -44,6 +46,41 @@ public abstract class TimeSeriesReturnCalculator implements Function<LocalDateDo
     return true;
   }
 
+  /**
+   * Tests every value of a series with {@link #isValueNonZero(double)}, so in strict mode this throws on the first zero.
+   * @param values The values
+   * @return true if none of the values are zero
+   */
+  protected boolean areValuesNonZero(final double[] values) {
+    for (final double value : values) {
+      if (!isValueNonZero(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Lines a dividend series up with the dates of a price series in a single merge pass.
+   * @param times The dates of the price series
+   * @param d The dividend series, not null
+   * @return The dividend on each of the price dates, zero where there is none
+   */
+  protected double[] getAlignedDividends(final int[] times, final FastIntDoubleTimeSeries d) {
+    return FastArrayIntDoubleTimeSeriesOperators.align(times, d.timesArrayFast(), d.valuesArrayFast(), 0, new double[times.length]);
+  }
+
+  /**
+   * Drops the first date of a series, giving the dates on which one-period returns are defined.
+   * @param times The dates of the price series
+   * @return The dates of the return series
+   */
+  protected int[] getReturnTimes(final int[] times) {
+    final int[] result = new int[times.length - 1];
+    System.arraycopy(times, 1, result, 0, result.length);
+    return result;
+  }
+
   protected CalculationMode getMode() {
     return _mode;
   }
@@ -5,9 +5,14 @@
  */
 package com.opengamma.analytics.financial.timeseries.util;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.util.timeseries.DoubleTimeSeries;
+import com.opengamma.util.timeseries.FastBackedDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.FastTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
 
 /**
  * Utility class for test that are performed often on time series.
@@ -49,6 +54,17 @@ public class TimeSeriesDataTestUtils {
     if (n != ts2.size()) {
       throw new IllegalArgumentException("Time series were not the same length; have " + ts1.size() + " and " + ts2.size());
     }
+    if (ts1 instanceof FastBackedDoubleTimeSeries<?> && ts2 instanceof FastBackedDoubleTimeSeries<?>) {
+      final FastTimeSeries<?> fast1 = ((FastBackedDoubleTimeSeries<?>) ts1).getFastSeries();
+      final FastTimeSeries<?> fast2 = ((FastBackedDoubleTimeSeries<?>) ts2).getFastSeries();
+      if (fast1 instanceof FastIntDoubleTimeSeries && fast2 instanceof FastIntDoubleTimeSeries && fast1.getEncoding() == fast2.getEncoding()) {
+        // compare the primitive dates rather than converting every one to an object
+        if (!Arrays.equals(((FastIntDoubleTimeSeries) fast1).timesArrayFast(), ((FastIntDoubleTimeSeries) fast2).timesArrayFast())) {
+          throw new IllegalArgumentException("Time series did not contain the same dates");
+        }
+        return;
+      }
+    }
     final Object[] times1 = ts1.timesArray();
     final Object[] times2 = ts2.timesArray();
     for (int i = 0; i < n; i++) {
@@ -5,8 +5,6 @@
  */
 package com.opengamma.analytics.financial.var;
 
-import java.util.Arrays;
-
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.timeseries.DoubleTimeSeries;
 
@@ -21,9 +19,8 @@ public class EmpiricalDistributionVaRCalculator implements VaRCalculator<Empiric
     ArgumentChecker.notNull(returns, "time series");
     ArgumentChecker.notNull(returns, "returns");
     ArgumentChecker.isTrue(returns.length > 0, "No return series data");
-    final double[] data = returns[0].valuesArrayFast();
-    Arrays.sort(data);
-    final double result = -parameters.getMult() * parameters.getPercentileCalculator().evaluate(data);
+    // selects the percentile from a copy, leaving the series data untouched
+    final double result = -parameters.getMult() * EmpiricalQuantiles.percentile(returns[0].valuesArrayFast(), 1 - parameters.getQuantile());
     return new VaRCalculationResult(result, null);
   }
 
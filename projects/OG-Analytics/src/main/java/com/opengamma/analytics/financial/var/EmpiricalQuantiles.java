@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.statistics.descriptive.PercentileCalculator;
+
+/**
+ * Percentiles and tail means of empirical distributions found by selection rather than by sorting the data.
+ * <p>
+ * The percentiles use the same definition as {@link PercentileCalculator}. Each percentile only needs the order statistics either
+ * side of it, which quickselect finds in linear expected time. When several percentiles are wanted, they are selected from the
+ * highest down, each selection leaving the values below it in the front of the array for the next one.
+ * <p>
+ * The methods taking a work array reorder it; the others work on a copy of the data.
+ */
+public final class EmpiricalQuantiles {
+
+  private EmpiricalQuantiles() {
+  }
+
+  /**
+   * @param data The data, not null or empty
+   * @param percentile The percentile, 0 &lt; percentile &lt; 1
+   * @return The percentile of the data
+   */
+  public static double percentile(final double[] data, final double percentile) {
+    Validate.notNull(data, "data");
+    return percentiles(Arrays.copyOf(data, data.length), new double[] {percentile})[0];
+  }
+
+  /**
+   * @param data The data, not null or empty
+   * @param percentiles The percentiles, each 0 &lt; percentile &lt; 1, not null
+   * @return The percentiles of the data, in the same order as the input
+   */
+  public static double[] percentiles(final double[] data, final double[] percentiles) {
+    Validate.notNull(data, "data");
+    return percentilesInPlace(Arrays.copyOf(data, data.length), percentiles);
+  }
+
+  /**
+   * Computes percentiles, reordering the data.
+   * @param work The data, reordered by the selections, not null or empty
+   * @param percentiles The percentiles, each 0 &lt; percentile &lt; 1, not null
+   * @return The percentiles of the data, in the same order as the input
+   */
+  public static double[] percentilesInPlace(final double[] work, final double[] percentiles) {
+    Validate.notNull(work, "data");
+    Validate.notNull(percentiles, "percentiles");
+    Validate.isTrue(work.length > 0, "data cannot be empty");
+    final int m = percentiles.length;
+    final Integer[] order = new Integer[m];
+    for (int i = 0; i < m; i++) {
+      Validate.isTrue(percentiles[i] > 0 && percentiles[i] < 1, "Percentile must be between 0 and 1");
+      order[i] = i;
+    }
+    // from the highest percentile down, so that each selection only has to search below the previous one
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer i, final Integer j) {
+        return Double.compare(percentiles[j], percentiles[i]);
+      }
+    });
+    final int length = work.length;
+    final double[] result = new double[m];
+    // invariant: work[0, end) holds the end smallest values, with the largest of them, the lower order statistic of the previous
+    // percentile, at end - 1
+    int end = length;
+    int previousLower = -1;
+    double previousLowerValue = 0;
+    double previousUpperValue = 0;
+    for (final Integer i : order) {
+      final int lower = lowerIndex(length, percentiles[i]);
+      final double d = fraction(length, percentiles[i]);
+      if (lower != previousLower) {
+        previousLowerValue = select(work, end, lower);
+        if (lower + 1 < end) {
+          // the values after the selected one are larger, so the next order statistic is their minimum
+          previousUpperValue = work[lower + 1];
+          for (int j = lower + 2; j < end; j++) {
+            previousUpperValue = Math.min(previousUpperValue, work[j]);
+          }
+        }
+        previousLower = lower;
+        end = lower + 1;
+      }
+      result[i] = d == 0 ? previousLowerValue : previousLowerValue + d * (previousUpperValue - previousLowerValue);
+    }
+    return result;
+  }
+
+  /**
+   * The mean of the values strictly below a percentile, or the percentile itself if there are none. This is the mean loss used by
+   * the conditional (expected shortfall) VaR calculators, with the losses as negative values.
+   * @param data The data, not null or empty
+   * @param percentile The percentile, 0 &lt; percentile &lt; 1
+   * @return The mean of the tail below the percentile
+   */
+  public static double tailMean(final double[] data, final double percentile) {
+    Validate.notNull(data, "data");
+    return tailMeansInPlace(Arrays.copyOf(data, data.length), new double[] {percentile})[0];
+  }
+
+  /**
+   * Computes the means of the values strictly below percentiles, reordering the data.
+   * @param work The data, reordered by the selections, not null or empty
+   * @param percentiles The percentiles, each 0 &lt; percentile &lt; 1, not null
+   * @return The tail means, in the same order as the input
+   */
+  public static double[] tailMeansInPlace(final double[] work, final double[] percentiles) {
+    return tailMeans(work, percentiles, percentilesInPlace(work, percentiles));
+  }
+
+  /**
+   * @param work The data, as reordered by {@link #percentilesInPlace(double[], double[])}
+   * @param percentiles The percentiles
+   * @param values The percentiles of the data
+   * @return The tail means
+   */
+  static double[] tailMeans(final double[] work, final double[] percentiles, final double[] values) {
+    final double[] result = new double[percentiles.length];
+    for (int i = 0; i < percentiles.length; i++) {
+      // every value below a percentile is one of the smallest values, which the selections keep in front of its lower order statistic
+      final int end = lowerIndex(work.length, percentiles[i]) + 1;
+      double sum = 0;
+      int count = 0;
+      for (int j = 0; j < end; j++) {
+        if (work[j] < values[i]) {
+          sum += work[j];
+          count++;
+        }
+      }
+      result[i] = count == 0 ? values[i] : sum / count;
+    }
+    return result;
+  }
+
+  /**
+   * The index of the order statistic below a percentile, as in {@link PercentileCalculator}.
+   */
+  private static int lowerIndex(final int length, final double percentile) {
+    final double n = percentile * (length - 1) + 1;
+    if (Math.round(n) == 1) {
+      return 0;
+    }
+    if (Math.round(n) == length) {
+      return length - 1;
+    }
+    return (int) Math.round(n - n % 1) - 1;
+  }
+
+  /**
+   * The weight of the order statistic above a percentile, as in {@link PercentileCalculator}.
+   */
+  private static double fraction(final int length, final double percentile) {
+    final double n = percentile * (length - 1) + 1;
+    if (Math.round(n) == 1 || Math.round(n) == length) {
+      return 0;
+    }
+    return n % 1;
+  }
+
+  /**
+   * Moves the k-th smallest value of work[0, to) to index k, with smaller values before it and larger values after it. The partitions
+   * are three-way, as P&amp;L vectors often hold many equal (typically zero) values.
+   */
+  private static double select(final double[] work, final int to, final int k) {
+    int lo = 0;
+    int hi = to - 1;
+    while (hi > lo) {
+      final double a = work[lo];
+      final double b = work[(lo + hi) >>> 1];
+      final double c = work[hi];
+      final double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+      int lt = lo;
+      int gt = hi;
+      int i = lo;
+      while (i <= gt) {
+        if (work[i] < pivot) {
+          swap(work, lt++, i++);
+        } else if (work[i] > pivot) {
+          swap(work, i, gt--);
+        } else {
+          i++;
+        }
+      }
+      if (k < lt) {
+        hi = lt - 1;
+      } else if (k > gt) {
+        lo = gt + 1;
+      } else {
+        return pivot;
+      }
+    }
+    return work[k];
+  }
+
+  private static void swap(final double[] work, final int i, final int j) {
+    final double temp = work[i];
+    work[i] = work[j];
+    work[j] = temp;
+  }
+
+}
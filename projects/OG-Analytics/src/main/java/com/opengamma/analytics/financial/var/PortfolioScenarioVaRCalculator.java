@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.OpenGammaRuntimeException;
+
+/**
+ * Empirical VaR and expected shortfall for every node of a portfolio from a matrix of position P&amp;L scenarios, historical or simulated.
+ * <p>
+ * The position and node P&amp;L are held in single arrays, one row of scenarios after another. The nodes are aggregated from the deepest up,
+ * each node adding its own positions and then itself to its parent, so every position and node row is added exactly once. The
+ * aggregation is split into blocks of scenarios and the risk measures into blocks of nodes, which run concurrently when an executor is
+ * provided. The percentiles are found by selection with {@link EmpiricalQuantiles} rather than by sorting each node's scenarios.
+ */
+public class PortfolioScenarioVaRCalculator {
+  /** The number of scenarios aggregated together, sized to keep the rows of a node and its positions in cache */
+  private static final int SCENARIO_BLOCK_SIZE = 512;
+  private final ExecutorService _executor;
+
+  /**
+   * Calculates on the calling thread.
+   */
+  public PortfolioScenarioVaRCalculator() {
+    this(null);
+  }
+
+  /**
+   * @param executor The executor for the scenario and node blocks, null to calculate on the calling thread
+   */
+  public PortfolioScenarioVaRCalculator(final ExecutorService executor) {
+    _executor = executor;
+  }
+
+  /**
+   * @param positionPnL The P&amp;L of each position in each scenario, position by position, not null
+   * @param nScenarios The number of scenarios, greater than zero
+   * @param positionNodes The index of the node holding each position, not null
+   * @param parentNodes The index of the parent of each node, -1 for the root nodes, not null
+   * @param parameters The VaR parameters, not null or empty
+   * @return The VaR and expected shortfall of each node for each set of parameters
+   */
+  public PortfolioScenarioVaRResult evaluate(final double[] positionPnL, final int nScenarios, final int[] positionNodes, final int[] parentNodes,
+      final EmpiricalDistributionVaRParameters... parameters) {
+    Validate.notEmpty(parameters, "parameters");
+    final double[] nodePnL = aggregate(positionPnL, nScenarios, positionNodes, parentNodes);
+    final int nNodes = parentNodes.length;
+    final double[] percentiles = new double[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      Validate.notNull(parameters[i], "parameters");
+      percentiles[i] = 1 - parameters[i].getQuantile();
+    }
+    final double[][] var = new double[nNodes][];
+    final double[][] expectedShortfall = new double[nNodes][];
+    final int nodeBlockSize = Math.max(1, nNodes / (4 * Runtime.getRuntime().availableProcessors()));
+    final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int start = 0; start < nNodes; start += nodeBlockSize) {
+      final int from = start;
+      final int to = Math.min(nNodes, start + nodeBlockSize);
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          final double[] work = new double[nScenarios];
+          for (int node = from; node < to; node++) {
+            System.arraycopy(nodePnL, node * nScenarios, work, 0, nScenarios);
+            final double[] values = EmpiricalQuantiles.percentilesInPlace(work, percentiles);
+            final double[] tailMeans = EmpiricalQuantiles.tailMeans(work, percentiles, values);
+            var[node] = new double[parameters.length];
+            expectedShortfall[node] = new double[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+              var[node][i] = -parameters[i].getMult() * values[i];
+              expectedShortfall[node][i] = -parameters[i].getMult() * tailMeans[i];
+            }
+          }
+          return null;
+        }
+      });
+    }
+    run(tasks);
+    return new PortfolioScenarioVaRResult(nodePnL, nScenarios, var, expectedShortfall);
+  }
+
+  /**
+   * Sums the P&amp;L of the positions into their nodes and of each node into its parent.
+   * @param positionPnL The P&amp;L of each position in each scenario, position by position, not null
+   * @param nScenarios The number of scenarios, greater than zero
+   * @param positionNodes The index of the node holding each position, not null
+   * @param parentNodes The index of the parent of each node, -1 for the root nodes, not null
+   * @return The P&amp;L of each node in each scenario, node by node
+   */
+  public double[] aggregate(final double[] positionPnL, final int nScenarios, final int[] positionNodes, final int[] parentNodes) {
+    Validate.notNull(positionPnL, "position P&L");
+    Validate.notNull(positionNodes, "position nodes");
+    Validate.notNull(parentNodes, "parent nodes");
+    Validate.isTrue(nScenarios > 0, "must have at least one scenario");
+    Validate.isTrue(positionPnL.length == positionNodes.length * nScenarios, "position P&L must have one value per position and scenario");
+    final int nNodes = parentNodes.length;
+    final int[] order = getDeepestFirst(parentNodes);
+    final int[][] nodePositions = getNodePositions(positionNodes, nNodes);
+    final double[] nodePnL = new double[nNodes * nScenarios];
+    final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int start = 0; start < nScenarios; start += SCENARIO_BLOCK_SIZE) {
+      final int from = start;
+      final int to = Math.min(nScenarios, start + SCENARIO_BLOCK_SIZE);
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (final int node : order) {
+            final int nodeOffset = node * nScenarios;
+            for (final int position : nodePositions[node]) {
+              final int positionOffset = position * nScenarios;
+              for (int j = from; j < to; j++) {
+                nodePnL[nodeOffset + j] += positionPnL[positionOffset + j];
+              }
+            }
+            final int parent = parentNodes[node];
+            if (parent >= 0) {
+              final int parentOffset = parent * nScenarios;
+              for (int j = from; j < to; j++) {
+                nodePnL[parentOffset + j] += nodePnL[nodeOffset + j];
+              }
+            }
+          }
+          return null;
+        }
+      });
+    }
+    run(tasks);
+    return nodePnL;
+  }
+
+  private void run(final List<Callable<Void>> tasks) {
+    if (_executor == null) {
+      for (final Callable<Void> task : tasks) {
+        try {
+          task.call();
+        } catch (final RuntimeException e) {
+          throw e;
+        } catch (final Exception e) {
+          throw new OpenGammaRuntimeException("Error calculating VaR", e);
+        }
+      }
+      return;
+    }
+    final List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+    for (final Callable<Void> task : tasks) {
+      futures.add(_executor.submit(task));
+    }
+    try {
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted while calculating VaR", e);
+    } catch (final ExecutionException e) {
+      throw new OpenGammaRuntimeException("Error calculating VaR", e.getCause());
+    }
+  }
+
+  /**
+   * Orders the nodes so that every node comes before its parent.
+   */
+  private static int[] getDeepestFirst(final int[] parentNodes) {
+    final int nNodes = parentNodes.length;
+    final int[] depths = new int[nNodes];
+    for (int node = 0; node < nNodes; node++) {
+      int depth = 0;
+      for (int parent = parentNodes[node]; parent >= 0; parent = parentNodes[parent]) {
+        Validate.isTrue(parent < nNodes, "parent node index out of range");
+        Validate.isTrue(++depth < nNodes, "the parent nodes do not form a tree");
+      }
+      depths[node] = depth;
+    }
+    final Integer[] order = new Integer[nNodes];
+    for (int node = 0; node < nNodes; node++) {
+      order[node] = node;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer i, final Integer j) {
+        return depths[j] - depths[i];
+      }
+    });
+    final int[] result = new int[nNodes];
+    for (int i = 0; i < nNodes; i++) {
+      result[i] = order[i];
+    }
+    return result;
+  }
+
+  private static int[][] getNodePositions(final int[] positionNodes, final int nNodes) {
+    final int[] counts = new int[nNodes];
+    for (final int node : positionNodes) {
+      Validate.isTrue(node >= 0 && node < nNodes, "position node index out of range");
+      counts[node]++;
+    }
+    final int[][] result = new int[nNodes][];
+    for (int node = 0; node < nNodes; node++) {
+      result[node] = new int[counts[node]];
+      counts[node] = 0;
+    }
+    for (int position = 0; position < positionNodes.length; position++) {
+      final int node = positionNodes[position];
+      result[node][counts[node]++] = position;
+    }
+    return result;
+  }
+
+}
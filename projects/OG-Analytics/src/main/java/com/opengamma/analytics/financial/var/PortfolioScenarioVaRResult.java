@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * The VaR and expected shortfall of each node of a portfolio, for each set of VaR parameters, calculated by {@link PortfolioScenarioVaRCalculator}.
+ */
+public class PortfolioScenarioVaRResult {
+  private final double[] _nodePnL;
+  private final int _nScenarios;
+  private final double[][] _var;
+  private final double[][] _expectedShortfall;
+
+  /**
+   * @param nodePnL The P&amp;L of each node in each scenario, node by node, not null
+   * @param nScenarios The number of scenarios
+   * @param var The VaR of each node for each set of parameters, not null
+   * @param expectedShortfall The expected shortfall of each node for each set of parameters, not null
+   */
+  public PortfolioScenarioVaRResult(final double[] nodePnL, final int nScenarios, final double[][] var, final double[][] expectedShortfall) {
+    Validate.notNull(nodePnL, "node P&L");
+    Validate.notNull(var, "VaR");
+    Validate.notNull(expectedShortfall, "expected shortfall");
+    Validate.isTrue(var.length == expectedShortfall.length, "must have the same number of nodes for VaR and expected shortfall");
+    Validate.isTrue(nodePnL.length == var.length * nScenarios, "node P&L must have one value per node and scenario");
+    _nodePnL = nodePnL;
+    _nScenarios = nScenarios;
+    _var = var;
+    _expectedShortfall = expectedShortfall;
+  }
+
+  /**
+   * @param node The node index
+   * @return The P&amp;L of the node in each scenario
+   */
+  public double[] getNodePnL(final int node) {
+    final double[] pnl = new double[_nScenarios];
+    System.arraycopy(_nodePnL, node * _nScenarios, pnl, 0, _nScenarios);
+    return pnl;
+  }
+
+  /**
+   * @param node The node index
+   * @param parameters The index of the VaR parameters
+   * @return The VaR of the node
+   */
+  public double getVaR(final int node, final int parameters) {
+    return _var[node][parameters];
+  }
+
+  /**
+   * @param node The node index
+   * @param parameters The index of the VaR parameters
+   * @return The expected shortfall (conditional VaR) of the node
+   */
+  public double getExpectedShortfall(final int node, final int parameters) {
+    return _expectedShortfall[node][parameters];
+  }
+
+  /**
+   * @return The number of nodes
+   */
+  public int getNumberOfNodes() {
+    return _var.length;
+  }
+
+}
@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.math.interpolation;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
@@ -69,22 +71,70 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(data, "data");
     Validate.notNull(value, "value");
+    return interpolateValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolateValue(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
     if (value < data.firstKey()) {
       if (_leftExtrapolator != null) {
-        return _leftExtrapolator.interpolate(data, value);
+        return _leftExtrapolator.interpolateValue(data, value);
       }
     } else if (value > data.lastKey()) {
       if (_rightExtrapolator != null) {
-        return _rightExtrapolator.interpolate(data, value);
+        return _rightExtrapolator.interpolateValue(data, value);
       }
     }
-    return _interpolator.interpolate(data, value);
+    return _interpolator.interpolateValue(data, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Values outside the data are extrapolated individually, and the remaining values are passed
+   * to the interpolator together.
+   */
+  @Override
+  public double[] interpolateValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double first = data.firstKey();
+    final double last = data.lastKey();
+    final double[] result = new double[values.length];
+    final int[] interiorIndices = new int[values.length];
+    final double[] interiorValues = new double[values.length];
+    int interior = 0;
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < first && _leftExtrapolator != null) {
+        result[i] = _leftExtrapolator.interpolateValue(data, value);
+      } else if (value > last && _rightExtrapolator != null) {
+        result[i] = _rightExtrapolator.interpolateValue(data, value);
+      } else {
+        interiorIndices[interior] = i;
+        interiorValues[interior++] = value;
+      }
+    }
+    if (interior > 0) {
+      final double[] interpolated = _interpolator.interpolateValues(data, interior == values.length ? interiorValues : Arrays.copyOf(interiorValues, interior));
+      for (int i = 0; i < interior; i++) {
+        result[interiorIndices[i]] = interpolated[i];
+      }
+    }
+    return result;
   }
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(data, "data");
     Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
     if (value < data.firstKey()) {
       if (_leftExtrapolator != null) {
         return _leftExtrapolator.getNodeSensitivitiesForValue(data, value);
@@ -57,6 +57,54 @@ public class GridInterpolator2D extends Interpolator2D {
     return _xInterpolator.interpolate(_xInterpolator.getDataBundle(xData), value.getKey());
   }
 
+  /**
+   * Interpolates from slices held in arrays, without building maps or boxing.
+   * @param xKeys The x values of the slices, sorted in ascending order, not null
+   * @param yData The interpolation data in the y direction of each slice, not null
+   * @param x The x value
+   * @param y The y value
+   * @return The interpolated value
+   */
+  public double interpolate(final double[] xKeys, final Interpolator1DDataBundle[] yData, final double x, final double y) {
+    final int n = xKeys.length;
+    final double[] xValues = new double[n];
+    for (int i = 0; i < n; i++) {
+      xValues[i] = _yInterpolator.interpolateValue(yData[i], y);
+    }
+    return _xInterpolator.interpolateValue(_xInterpolator.getDataBundleFromSortedArrays(xKeys, xValues), x);
+  }
+
+  /**
+   * Interpolates on a grid of points from slices held in arrays. Each slice is swept once for all the y values, and the
+   * interpolation data in the x direction is built once for each y value rather than once for each point.
+   * @param xKeys The x values of the slices, sorted in ascending order, not null
+   * @param yData The interpolation data in the y direction of each slice, not null
+   * @param x The x values of the grid, not null
+   * @param y The y values of the grid, not null
+   * @return The interpolated values, indexed by x then y
+   */
+  public double[][] interpolate(final double[] xKeys, final Interpolator1DDataBundle[] yData, final double[] x, final double[] y) {
+    Validate.notNull(x, "x");
+    Validate.notNull(y, "y");
+    final int n = xKeys.length;
+    final double[][] sliceValues = new double[n][];
+    for (int i = 0; i < n; i++) {
+      sliceValues[i] = _yInterpolator.interpolateValues(yData[i], y);
+    }
+    final double[][] result = new double[x.length][y.length];
+    for (int j = 0; j < y.length; j++) {
+      final double[] xValues = new double[n];
+      for (int i = 0; i < n; i++) {
+        xValues[i] = sliceValues[i][j];
+      }
+      final double[] z = _xInterpolator.interpolateValues(_xInterpolator.getDataBundleFromSortedArrays(xKeys, xValues), x);
+      for (int k = 0; k < x.length; k++) {
+        result[k][j] = z[k];
+      }
+    }
+    return result;
+  }
+
   @Override
   public Map<DoublesPair, Double> getNodeSensitivitiesForValue(final Map<Double, Interpolator1DDataBundle> dataBundle, final DoublesPair value) {
     Validate.notNull(value);
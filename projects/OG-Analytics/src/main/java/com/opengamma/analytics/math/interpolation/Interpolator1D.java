@@ -6,6 +6,7 @@
 package com.opengamma.analytics.math.interpolation;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.SortedMap;
 
@@ -21,10 +22,47 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
 
   private static final long serialVersionUID = 1L;
   private static final double EPS = 1e-6;
+  /**
+   * The number of nodes to step through linearly when sweeping before switching to a binary search.
+   */
+  private static final int MAX_LINEAR_STEPS = 8;
 
   @Override
   public abstract Double interpolate(Interpolator1DDataBundle data, Double value);
 
+  /**
+   * Interpolates a single value without boxing.
+   * <p>
+   * The default implementation delegates to {@link #interpolate(Interpolator1DDataBundle, Double)};
+   * interpolators used in pricing loops override it to avoid the boxing.
+   * @param data The interpolation data, not null
+   * @param value The value for which the interpolation is computed
+   * @return The interpolated value
+   */
+  public double interpolateValue(final Interpolator1DDataBundle data, final double value) {
+    return interpolate(data, Double.valueOf(value));
+  }
+
+  /**
+   * Interpolates an array of values.
+   * <p>
+   * The values are most efficiently handled in ascending order, when implementations sweep through the
+   * data once, starting the search for each bracketing node from the one found for the previous value.
+   * The default implementation interpolates each value in turn.
+   * @param data The interpolation data, not null
+   * @param values The values for which the interpolation is computed, not null
+   * @return The interpolated values, in the same order as the input
+   */
+  public double[] interpolateValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = interpolateValue(data, values[i]);
+    }
+    return result;
+  }
+
   public double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value, boolean useFiniteDifferenceSensitivities) {
     return useFiniteDifferenceSensitivities ? getFiniteDifferenceSensitivities(data, value) : getNodeSensitivitiesForValue(data, value);
   }
@@ -37,6 +75,54 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
    */
   public abstract double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value);
 
+  /**
+   * Computes the sensitivities of the interpolated value to the input data y without boxing the value.
+   * <p>
+   * The default implementation delegates to {@link #getNodeSensitivitiesForValue(Interpolator1DDataBundle, Double)}.
+   * @param data The interpolation data.
+   * @param value The value for which the interpolation is computed.
+   * @return The sensitivity.
+   */
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    return getNodeSensitivitiesForValue(data, Double.valueOf(value));
+  }
+
+  /**
+   * Finds the index of the largest node less than or equal to a value, searching forward from a previously found index.
+   * <p>
+   * This allows a sorted array of values to be bracketed in a single sweep through the nodes. If the value is
+   * below the node at the starting index, the nodes are searched from the beginning.
+   * @param keys The sorted nodes, not null
+   * @param value The value
+   * @param fromIndex The index to start searching from, typically the index found for the previous value
+   * @return The index of the lower bound node
+   * @throws IllegalArgumentException if the value lies outside the nodes
+   */
+  protected static int getLowerBoundIndex(final double[] keys, final double value, final int fromIndex) {
+    final int n = keys.length;
+    if (value < keys[0]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": lowest x-value is " + keys[0]);
+    }
+    if (value > keys[n - 1]) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": highest x-value is " + keys[n - 1]);
+    }
+    int index = fromIndex;
+    if (index >= n || value < keys[index]) {
+      index = 0;
+    }
+    final int limit = Math.min(n - 1, index + MAX_LINEAR_STEPS);
+    while (index < limit && keys[index + 1] <= value) {
+      index++;
+    }
+    if (index == limit && index < n - 1 && keys[index + 1] <= value) {
+      index = Arrays.binarySearch(keys, index + 1, n, value);
+      if (index < 0) {
+        index = -(index + 1) - 1;
+      }
+    }
+    return index;
+  }
+
   protected double[] getFiniteDifferenceSensitivities(Interpolator1DDataBundle data, Double value) {
     Validate.notNull(data, "data");
     final double[] x = data.getKeys();
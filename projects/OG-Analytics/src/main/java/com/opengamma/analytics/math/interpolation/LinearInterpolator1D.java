@@ -8,7 +8,6 @@ package com.opengamma.analytics.math.interpolation;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
-import com.opengamma.analytics.math.interpolation.data.InterpolationBoundedValues;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
@@ -24,31 +23,55 @@ public class LinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "Value to be interpolated must not be null");
+    return interpolateValue(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolateValue(final Interpolator1DDataBundle model, final double value) {
+    Validate.notNull(model, "Data bundle must not be null");
+    return interpolate(model.getKeys(), model.getValues(), model.getLowerBoundIndex(value), value);
+  }
+
+  @Override
+  public double[] interpolateValues(final Interpolator1DDataBundle model, final double[] values) {
     Validate.notNull(model, "Data bundle must not be null");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
-      return y1;
+    Validate.notNull(values, "Values to be interpolated must not be null");
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    final double[] result = new double[values.length];
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      result[i] = interpolate(x, y, index, values[i]);
+    }
+    return result;
+  }
+
+  private static double interpolate(final double[] x, final double[] y, final int index, final double value) {
+    if (index == x.length - 1) {
+      return y[index];
     }
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double y2 = boundedValues.getHigherBoundValue();
-    return y1 + (value - x1) / (x2 - x1) * (y2 - y1);
+    return y[index] + (value - x[index]) / (x[index + 1] - x[index]) * (y[index + 1] - y[index]);
   }
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
     final int n = data.size();
     final double[] result = new double[n];
-    final InterpolationBoundedValues boundedValues = data.getBoundedValues(value);
-    if (boundedValues.getHigherBoundKey() == null) {
+    final int index = data.getLowerBoundIndex(value);
+    if (index == n - 1) {
       result[n - 1] = 1.0;
       return result;
     }
-    final int index = data.getLowerBoundIndex(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double x2 = boundedValues.getHigherBoundKey();
+    final double[] x = data.getKeys();
+    final double x1 = x[index];
+    final double x2 = x[index + 1];
     final double dx = x2 - x1;
     final double a = (x2 - value) / dx;
     final double b = 1 - a;
@@ -8,7 +8,6 @@ package com.opengamma.analytics.math.interpolation;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
-import com.opengamma.analytics.math.interpolation.data.InterpolationBoundedValues;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
@@ -28,16 +27,35 @@ public class LogLinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "value");
+    return interpolateValue(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolateValue(final Interpolator1DDataBundle model, final double value) {
+    Validate.notNull(model, "data bundle");
+    return interpolate(model.getKeys(), model.getValues(), model.getLowerBoundIndex(value), value);
+  }
+
+  @Override
+  public double[] interpolateValues(final Interpolator1DDataBundle model, final double[] values) {
     Validate.notNull(model, "data bundle");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final Double x1 = boundedValues.getLowerBoundKey();
-    final Double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
-      return y1;
+    Validate.notNull(values, "values");
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    final double[] result = new double[values.length];
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      result[i] = interpolate(x, y, index, values[i]);
+    }
+    return result;
+  }
+
+  private static double interpolate(final double[] x, final double[] y, final int index, final double value) {
+    if (index == x.length - 1) {
+      return y[index];
     }
-    final Double x2 = boundedValues.getHigherBoundKey();
-    final Double y2 = boundedValues.getHigherBoundValue();
-    return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1;
+    return Math.pow(y[index + 1] / y[index], (value - x[index]) / (x[index + 1] - x[index])) * y[index];
   }
 
   @Override
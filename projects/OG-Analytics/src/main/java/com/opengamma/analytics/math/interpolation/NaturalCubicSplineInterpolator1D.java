@@ -30,40 +30,68 @@ public class NaturalCubicSplineInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
+    return interpolateValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolateValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data bundle");
     Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
-    Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
-    final int low = data.getLowerBoundIndex(value);
-    final int high = low + 1;
-    final int n = data.size() - 1;
+    final Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
+    return interpolate(data.getKeys(), data.getValues(), splineData.getSecondDerivatives(), data.getLowerBoundIndex(value), value);
+  }
+
+  @Override
+  public double[] interpolateValues(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data bundle");
+    Validate.notNull(values, "values");
+    Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
+    final Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
     final double[] xData = data.getKeys();
     final double[] yData = data.getValues();
-    if (data.getLowerBoundIndex(value) == n) {
+    final double[] y2 = splineData.getSecondDerivatives();
+    final double[] result = new double[values.length];
+    int low = 0;
+    for (int i = 0; i < values.length; i++) {
+      low = getLowerBoundIndex(xData, values[i], low);
+      result[i] = interpolate(xData, yData, y2, low, values[i]);
+    }
+    return result;
+  }
+
+  private double interpolate(final double[] xData, final double[] yData, final double[] y2, final int low, final double value) {
+    final int n = xData.length - 1;
+    if (low == n) {
       return yData[n];
     }
+    final int high = low + 1;
     final double delta = xData[high] - xData[low];
     if (Math.abs(delta) < _eps) {
       throw new MathException("x data points were not distinct");
     }
     final double a = (xData[high] - value) / delta;
     final double b = (value - xData[low]) / delta;
-    final double[] y2 = splineData.getSecondDerivatives();
     return a * yData[low] + b * yData[high] + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[high]) * delta * delta / 6.;
   }
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
     Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
     Interpolator1DCubicSplineDataBundle cubicData = (Interpolator1DCubicSplineDataBundle) data;
     final int n = cubicData.size();
     final double[] result = new double[n];
-    if (cubicData.getLowerBoundIndex(value) == n - 1) {
+    final int low = cubicData.getLowerBoundIndex(value);
+    if (low == n - 1) {
       result[n - 1] = 1.0;
       return result;
     }
     final double[] xData = cubicData.getKeys();
-    final int low = cubicData.getLowerBoundIndex(value);
     final int high = low + 1;
     final double delta = xData[high] - xData[low];
     final double a = (xData[high] - value) / delta;
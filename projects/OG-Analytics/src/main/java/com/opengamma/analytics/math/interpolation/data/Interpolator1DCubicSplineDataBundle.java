@@ -81,7 +81,7 @@ public class Interpolator1DCubicSplineDataBundle implements Interpolator1DDataBu
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     return _underlyingData.getLowerBoundIndex(value);
   }
 
@@ -16,7 +16,7 @@ public interface Interpolator1DDataBundle {
 
   Double getLowerBoundKey(Double value);
 
-  int getLowerBoundIndex(Double value);
+  int getLowerBoundIndex(double value);
 
   Double get(Double key);
 
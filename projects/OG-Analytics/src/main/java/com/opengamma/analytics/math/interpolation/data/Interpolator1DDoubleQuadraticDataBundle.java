@@ -91,7 +91,7 @@ public class Interpolator1DDoubleQuadraticDataBundle implements Interpolator1DDa
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     return _underlyingData.getLowerBoundIndex(value);
   }
 
@@ -39,7 +39,7 @@ public class NavigableMapInterpolator1DDataBundle implements Interpolator1DDataB
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     final Double lower = getLowerBoundKey(value);
     int i = 0;
     final Iterator<Double> iter = _backingMap.keySet().iterator();
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.MathException;
+
+/**
+ * Solves a tridiagonal system of linear equations with the Thomas algorithm (Gaussian elimination without pivoting).
+ * The cost is linear in the size of the system. The algorithm is stable for diagonally dominant matrices, which is the case
+ * for the implicit steps of the finite difference schemes.
+ * <p>
+ * The arrays follow the convention of {@link TridiagonalMatrix}: a is the diagonal, b the upper sub-diagonal and c the lower sub-diagonal.
+ */
+public final class TridiagonalSolver {
+
+  private TridiagonalSolver() {
+  }
+
+  /**
+   * Solves the system m.x = y.
+   * @param m The tridiagonal matrix, not null
+   * @param y The right hand side, not null
+   * @return The solution x
+   */
+  public static double[] solve(final TridiagonalMatrix m, final double[] y) {
+    Validate.notNull(m, "m");
+    Validate.notNull(y, "y");
+    final double[] a = m.getDiagonal();
+    final int n = a.length;
+    Validate.isTrue(y.length == n, "vector y is the wrong length");
+    final double[] x = new double[n];
+    System.arraycopy(y, 0, x, 0, n);
+    solveInPlace(a, m.getUpperSubDiagonal(), m.getLowerSubDiagonal(), x, new double[n]);
+    return x;
+  }
+
+  /**
+   * Solves the system in place, without any allocation. The matrix is not modified; the right hand side is overwritten by the solution.
+   * @param a The diagonal, length n
+   * @param b The upper sub-diagonal, length at least n - 1
+   * @param c The lower sub-diagonal, length at least n - 1
+   * @param y The right hand side on entry, the solution on exit, length n
+   * @param work A work array, length at least n
+   */
+  public static void solveInPlace(final double[] a, final double[] b, final double[] c, final double[] y, final double[] work) {
+    final int n = y.length;
+    if (a[0] == 0.0) {
+      throw new MathException("Zero pivot in tridiagonal system");
+    }
+    double pivot = a[0];
+    y[0] /= pivot;
+    for (int i = 1; i < n; i++) {
+      work[i - 1] = b[i - 1] / pivot;
+      pivot = a[i] - c[i - 1] * work[i - 1];
+      if (pivot == 0.0) {
+        throw new MathException("Zero pivot in tridiagonal system");
+      }
+      y[i] = (y[i] - c[i - 1] * y[i - 1]) / pivot;
+    }
+    for (int i = n - 2; i >= 0; i--) {
+      y[i] -= work[i] * y[i + 1];
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Brownian bridge construction of a Brownian motion path from independent standard normal variables.
+ * <p>
+ * The first variable gives the value of the path at the last time, the second one the value at the middle time conditional on the
+ * last value, and so on by bisection. Used with a low-discrepancy sequence, the first (and best distributed) dimensions of the sequence
+ * then drive most of the variance of the path.
+ * <p>
+ * The result is returned as the standardized increments of the path, (W(t<sub>i</sub>) - W(t<sub>i-1</sub>)) / sqrt(t<sub>i</sub> - t<sub>i-1</sub>),
+ * which are independent standard normal variables and can replace the input variables of any path generation scheme.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public class BrownianBridge {
+
+  /**
+   * The times of the path, strictly increasing and positive.
+   */
+  private final double[] _times;
+  /**
+   * The index of the point of the path constructed at each stage.
+   */
+  private final int[] _bridgeIndex;
+  /**
+   * The index of the point to the left of the point constructed at each stage.
+   */
+  private final int[] _leftIndex;
+  /**
+   * The index of the point to the right of the point constructed at each stage.
+   */
+  private final int[] _rightIndex;
+  /**
+   * The weight of the left point at each stage.
+   */
+  private final double[] _leftWeight;
+  /**
+   * The weight of the right point at each stage.
+   */
+  private final double[] _rightWeight;
+  /**
+   * The conditional standard deviation at each stage.
+   */
+  private final double[] _stdDev;
+
+  /**
+   * Creates a bridge on the equally spaced times 1, 2, ..., nbSteps.
+   * @param nbSteps The number of steps, greater than zero.
+   */
+  public BrownianBridge(final int nbSteps) {
+    this(equallySpaced(nbSteps));
+  }
+
+  /**
+   * Creates a bridge on the given times.
+   * @param times The times of the path, strictly increasing and positive. Not null or empty.
+   */
+  public BrownianBridge(final double[] times) {
+    ArgumentChecker.notEmpty(times, "times");
+    final int n = times.length;
+    ArgumentChecker.isTrue(times[0] > 0, "Times should be positive");
+    for (int i = 1; i < n; i++) {
+      ArgumentChecker.isTrue(times[i] > times[i - 1], "Times should be strictly increasing");
+    }
+    _times = times.clone();
+    _bridgeIndex = new int[n];
+    _leftIndex = new int[n];
+    _rightIndex = new int[n];
+    _leftWeight = new double[n];
+    _rightWeight = new double[n];
+    _stdDev = new double[n];
+    final int[] map = new int[n];
+    map[n - 1] = 1;
+    _bridgeIndex[0] = n - 1;
+    _stdDev[0] = Math.sqrt(times[n - 1]);
+    int j = 0;
+    for (int i = 1; i < n; i++) {
+      while (map[j] != 0) {
+        j++;
+      }
+      int k = j;
+      while (map[k] == 0) {
+        k++;
+      }
+      // The point l is constructed between the known points j - 1 (or the origin) and k
+      final int l = j + ((k - 1 - j) >> 1);
+      map[l] = i + 1;
+      _bridgeIndex[i] = l;
+      _leftIndex[i] = j;
+      _rightIndex[i] = k;
+      final double left = j == 0 ? 0.0 : times[j - 1];
+      _leftWeight[i] = (times[k] - times[l]) / (times[k] - left);
+      _rightWeight[i] = (times[l] - left) / (times[k] - left);
+      _stdDev[i] = Math.sqrt((times[l] - left) * (times[k] - times[l]) / (times[k] - left));
+      j = k + 1;
+      if (j >= n) {
+        j = 0;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of steps of the path.
+   * @return The number of steps.
+   */
+  public int getNbSteps() {
+    return _times.length;
+  }
+
+  /**
+   * Constructs a path and returns its standardized increments.
+   * @param normals The independent standard normal variables, in the order of the bridge construction. Not null.
+   * @param increments The array to fill with the standardized increments of the path, in time order. Not null and distinct from the variables.
+   */
+  public void transform(final double[] normals, final double[] increments) {
+    ArgumentChecker.notNull(normals, "normals");
+    ArgumentChecker.notNull(increments, "increments");
+    final int n = _times.length;
+    ArgumentChecker.isTrue(normals.length == n && increments.length == n, "Arrays should have one element per step");
+    ArgumentChecker.isTrue(normals != increments, "Arrays should be distinct");
+    // Path values
+    increments[n - 1] = _stdDev[0] * normals[0];
+    for (int i = 1; i < n; i++) {
+      final int j = _leftIndex[i];
+      final int k = _rightIndex[i];
+      final int l = _bridgeIndex[i];
+      if (j == 0) {
+        increments[l] = _rightWeight[i] * increments[k] + _stdDev[i] * normals[i];
+      } else {
+        increments[l] = _leftWeight[i] * increments[j - 1] + _rightWeight[i] * increments[k] + _stdDev[i] * normals[i];
+      }
+    }
+    // Standardized increments, in place from the end
+    for (int i = n - 1; i > 0; i--) {
+      increments[i] = (increments[i] - increments[i - 1]) / Math.sqrt(_times[i] - _times[i - 1]);
+    }
+    increments[0] /= Math.sqrt(_times[0]);
+  }
+
+  private static double[] equallySpaced(final int nbSteps) {
+    ArgumentChecker.notNegativeOrZero(nbSteps, "number of steps");
+    final double[] times = new double[nbSteps];
+    for (int i = 0; i < nbSteps; i++) {
+      times[i] = i + 1;
+    }
+    return times;
+  }
+
+}
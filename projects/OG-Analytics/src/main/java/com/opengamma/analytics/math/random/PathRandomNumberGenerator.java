@@ -0,0 +1,26 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+/**
+ * Generator of the independent standard normal variables driving the paths of a Monte Carlo simulation.
+ * <p>
+ * The variables of a block of paths depend only on the index of the first path of the block and on the shape of the block,
+ * never on the blocks generated before. Blocks can therefore be generated on several threads, in any order, with reproducible results.
+ * Implementations must be thread-safe.
+ */
+public interface PathRandomNumberGenerator {
+
+  /**
+   * Fills a block of paths with independent standard normal variables.
+   * @param firstPath The index of the first path of the block in the simulation, not negative.
+   * @param nbFactor The number of factors at each step of the paths.
+   * @param result The array to fill. The rows are the steps and factors (row step * nbFactor + factor) and the columns the paths of the block.
+   * The number of rows should be a multiple of the number of factors.
+   */
+  void fillNormals(long firstPath, int nbFactor, double[][] result);
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import cern.jet.random.Normal;
+import cern.jet.random.engine.MersenneTwister;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Path generator based on pseudo-random normal variables.
+ * <p>
+ * Each block is generated by its own Mersenne twister, seeded from the generator seed and the index of the first path of the block.
+ * The simulation is therefore reproducible for a given seed and block size, whatever the number of threads.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public class PseudoRandomPathGenerator implements PathRandomNumberGenerator {
+
+  /**
+   * The seed.
+   */
+  private final long _seed;
+
+  /**
+   * Creates a generator.
+   * @param seed The seed.
+   */
+  public PseudoRandomPathGenerator(final long seed) {
+    _seed = seed;
+  }
+
+  /**
+   * Gets the seed.
+   * @return The seed.
+   */
+  public long getSeed() {
+    return _seed;
+  }
+
+  @Override
+  public void fillNormals(final long firstPath, final int nbFactor, final double[][] result) {
+    ArgumentChecker.notNegative(firstPath, "first path");
+    ArgumentChecker.notNull(result, "result");
+    ArgumentChecker.notNegativeOrZero(nbFactor, "number of factors");
+    ArgumentChecker.isTrue(result.length % nbFactor == 0, "Number of rows should be a multiple of the number of factors");
+    final Normal normal = new Normal(0.0, 1.0, new MersenneTwister(blockSeed(_seed, firstPath)));
+    for (final double[] row : result) {
+      for (int looppath = 0; looppath < row.length; looppath++) {
+        row[looppath] = normal.nextDouble();
+      }
+    }
+  }
+
+  /**
+   * Mixes the seed and the first path index of a block (SplitMix64 finalizer), so nearby blocks get unrelated streams.
+   * @param seed The seed.
+   * @param firstPath The first path index.
+   * @return The seed of the block.
+   */
+  private static int blockSeed(final long seed, final long firstPath) {
+    long z = seed + (firstPath + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    z = z ^ (z >>> 31);
+    return (int) (z ^ (z >>> 32));
+  }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cern.jet.stat.Probability;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Path generator based on a Sobol sequence, with an optional Brownian bridge construction of the paths of each factor.
+ * <p>
+ * The path with index n is the point n of the Sobol sequence of dimension nbStep * nbFactor, mapped to normal variables by the inverse cumulative
+ * distribution. With the Brownian bridge, the stage j of the bridge of the factor f uses the dimension j * nbFactor + f, so the first dimensions
+ * of the sequence give the terminal values of all the factors.
+ * <p>
+ * This class is thread-safe.
+ */
+public class SobolPathGenerator implements PathRandomNumberGenerator {
+
+  /**
+   * Whether the paths are constructed with a Brownian bridge.
+   */
+  private final boolean _brownianBridge;
+  /**
+   * The Sobol generators, by dimension.
+   */
+  private final ConcurrentMap<Integer, SobolSequenceGenerator> _sequences = new ConcurrentHashMap<Integer, SobolSequenceGenerator>();
+
+  /**
+   * Creates a generator using a Brownian bridge construction.
+   */
+  public SobolPathGenerator() {
+    this(true);
+  }
+
+  /**
+   * Creates a generator.
+   * @param brownianBridge Whether the paths are constructed with a Brownian bridge.
+   */
+  public SobolPathGenerator(final boolean brownianBridge) {
+    _brownianBridge = brownianBridge;
+  }
+
+  /**
+   * Gets the Brownian bridge flag.
+   * @return Whether the paths are constructed with a Brownian bridge.
+   */
+  public boolean isBrownianBridge() {
+    return _brownianBridge;
+  }
+
+  @Override
+  public void fillNormals(final long firstPath, final int nbFactor, final double[][] result) {
+    ArgumentChecker.notNull(result, "result");
+    ArgumentChecker.notNegativeOrZero(nbFactor, "number of factors");
+    ArgumentChecker.isTrue(result.length % nbFactor == 0, "Number of rows should be a multiple of the number of factors");
+    final int dimension = result.length;
+    final int nbStep = dimension / nbFactor;
+    final int nbPath = result[0].length;
+    getSequence(dimension).fillPoints(firstPath, result);
+    for (int i = 0; i < dimension; i++) {
+      final double[] row = result[i];
+      for (int looppath = 0; looppath < nbPath; looppath++) {
+        row[looppath] = Probability.normalInverse(row[looppath]);
+      }
+    }
+    if (_brownianBridge && nbStep > 1) {
+      final BrownianBridge bridge = new BrownianBridge(nbStep);
+      final double[] normals = new double[nbStep];
+      final double[] increments = new double[nbStep];
+      for (int looppath = 0; looppath < nbPath; looppath++) {
+        for (int loopfact = 0; loopfact < nbFactor; loopfact++) {
+          for (int loopstep = 0; loopstep < nbStep; loopstep++) {
+            normals[loopstep] = result[loopstep * nbFactor + loopfact][looppath];
+          }
+          bridge.transform(normals, increments);
+          for (int loopstep = 0; loopstep < nbStep; loopstep++) {
+            result[loopstep * nbFactor + loopfact][looppath] = increments[loopstep];
+          }
+        }
+      }
+    }
+  }
+
+  private SobolSequenceGenerator getSequence(final int dimension) {
+    SobolSequenceGenerator sequence = _sequences.get(dimension);
+    if (sequence == null) {
+      sequence = new SobolSequenceGenerator(dimension);
+      final SobolSequenceGenerator existing = _sequences.putIfAbsent(dimension, sequence);
+      if (existing != null) {
+        sequence = existing;
+      }
+    }
+    return sequence;
+  }
+
+}
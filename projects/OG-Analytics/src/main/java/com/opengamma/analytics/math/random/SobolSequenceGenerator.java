@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Generates the points of a Sobol low-discrepancy sequence in the unit hypercube.
+ * <p>
+ * The points are generated with the Gray code construction of Antonov and Saleev. The primitive polynomials are enumerated by degree.
+ * The initial direction numbers are those of Joe and Kuo for the first 21 dimensions; the higher dimensions use
+ * odd initial direction numbers drawn from a fixed linear congruential sequence, as suggested by Jaeckel.
+ * <p>
+ * Any point can be generated directly from its index, so disjoint ranges of the sequence can be generated independently, in any order.
+ * The point with index 0 (the origin) is never returned: index 0 is the first point after the origin.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public class SobolSequenceGenerator {
+
+  /** The number of bits of the generated integers. */
+  private static final int BITS = 32;
+  /** The scale from the generated integers to the unit interval. */
+  private static final double SCALE = 1.0 / (1L << BITS);
+  /** The initial direction numbers of Joe and Kuo for the dimensions 2 to 21 (the first dimension is the van der Corput sequence). */
+  private static final int[][] JOE_KUO_INITIAL_NUMBERS = {
+    {1 }, {1, 3 }, {1, 3, 1 }, {1, 1, 1 }, {1, 1, 3, 3 }, {1, 3, 5, 13 }, {1, 1, 5, 5, 17 }, {1, 1, 5, 5, 5 }, {1, 1, 7, 11, 19 }, {1, 1, 5, 1, 1 },
+    {1, 1, 1, 3, 11 }, {1, 3, 5, 5, 31 }, {1, 3, 3, 9, 7, 49 }, {1, 1, 1, 15, 21, 21 }, {1, 3, 1, 13, 27, 49 }, {1, 1, 1, 15, 7, 5 }, {1, 3, 1, 15, 13, 25 },
+    {1, 1, 5, 5, 19, 61 }, {1, 3, 7, 11, 23, 15, 103 }, {1, 3, 7, 13, 13, 15, 69 } };
+
+  /**
+   * The dimension.
+   */
+  private final int _dimension;
+  /**
+   * The direction numbers, by dimension then bit.
+   */
+  private final long[][] _directions;
+
+  /**
+   * Creates a generator.
+   * @param dimension The dimension of the points, greater than zero.
+   */
+  public SobolSequenceGenerator(final int dimension) {
+    ArgumentChecker.notNegativeOrZero(dimension, "dimension");
+    _dimension = dimension;
+    _directions = new long[dimension][BITS + 1];
+    for (int k = 1; k <= BITS; k++) {
+      _directions[0][k] = 1L << (BITS - k);
+    }
+    long lcg = 1;
+    int degree = 0;
+    int coefficients = 0;
+    for (int d = 1; d < dimension; d++) {
+      // Next primitive polynomial by degree then coefficients
+      do {
+        coefficients++;
+        if (coefficients >= 1 << Math.max(degree - 1, 0)) {
+          degree++;
+          coefficients = 0;
+        }
+      } while (!isPrimitive(degree, coefficients));
+      final long[] m = new long[BITS + 1];
+      for (int k = 1; k <= degree && k <= BITS; k++) {
+        if (d <= JOE_KUO_INITIAL_NUMBERS.length) {
+          m[k] = JOE_KUO_INITIAL_NUMBERS[d - 1][k - 1];
+        } else {
+          lcg = (lcg * 6364136223846793005L + 1442695040888963407L);
+          m[k] = (((lcg >>> 33) % (1L << (k - 1))) << 1) | 1;
+        }
+      }
+      for (int k = degree + 1; k <= BITS; k++) {
+        m[k] = m[k - degree] ^ (m[k - degree] << degree);
+        for (int j = 1; j < degree; j++) {
+          if (((coefficients >> (degree - 1 - j)) & 1) != 0) {
+            m[k] ^= m[k - j] << j;
+          }
+        }
+      }
+      for (int k = 1; k <= BITS; k++) {
+        _directions[d][k] = m[k] << (BITS - k);
+      }
+    }
+  }
+
+  /**
+   * Gets the dimension of the points.
+   * @return The dimension.
+   */
+  public int getDimension() {
+    return _dimension;
+  }
+
+  /**
+   * Generates a point of the sequence.
+   * @param index The index of the point, not negative.
+   * @return The point, with coordinates in (0, 1).
+   */
+  public double[] getPoint(final long index) {
+    final double[][] result = new double[_dimension][1];
+    fillPoints(index, result);
+    final double[] point = new double[_dimension];
+    for (int d = 0; d < _dimension; d++) {
+      point[d] = result[d][0];
+    }
+    return point;
+  }
+
+  /**
+   * Generates consecutive points of the sequence.
+   * @param firstIndex The index of the first point, not negative.
+   * @param result The array to fill, by dimension then point. The number of points is the length of the rows.
+   */
+  public void fillPoints(final long firstIndex, final double[][] result) {
+    ArgumentChecker.notNegative(firstIndex, "first index");
+    ArgumentChecker.notNull(result, "result");
+    ArgumentChecker.isTrue(result.length == _dimension, "Result should have one row per dimension");
+    final int nbPoints = result[0].length;
+    ArgumentChecker.isTrue(firstIndex + nbPoints < 1L << BITS, "Sobol sequence has at most 2^32 - 1 points");
+    // The integer coordinates of the point n are the exclusive or of the direction numbers of the bits of the Gray code of n
+    long n = firstIndex + 1;
+    final long gray = n ^ (n >> 1);
+    final long[] x = new long[_dimension];
+    for (int k = 1; k <= BITS; k++) {
+      if (((gray >> (k - 1)) & 1) != 0) {
+        for (int d = 0; d < _dimension; d++) {
+          x[d] ^= _directions[d][k];
+        }
+      }
+    }
+    for (int p = 0; p < nbPoints; p++) {
+      if (p > 0) {
+        // The Gray codes of n and n + 1 differ by the bit of the lowest zero of n
+        final int c = Long.numberOfTrailingZeros(~n) + 1;
+        for (int d = 0; d < _dimension; d++) {
+          x[d] ^= _directions[d][c];
+        }
+        n++;
+      }
+      for (int d = 0; d < _dimension; d++) {
+        result[d][p] = x[d] * SCALE;
+      }
+    }
+  }
+
+  /**
+   * Checks if a polynomial over GF(2) is primitive, i.e. if x has order 2^degree - 1 modulo the polynomial.
+   * @param degree The degree.
+   * @param coefficients The coefficients of the terms of degree 1 to degree - 1, highest degree first.
+   * @return True if the polynomial is primitive.
+   */
+  private static boolean isPrimitive(final int degree, final int coefficients) {
+    if (degree == 0) {
+      return false;
+    }
+    final long polynomial = (1L << degree) | ((long) coefficients << 1) | 1;
+    final long period = (1L << degree) - 1;
+    long power = 1;
+    for (long i = 1; i <= period; i++) {
+      power <<= 1;
+      if ((power & (1L << degree)) != 0) {
+        power ^= polynomial;
+      }
+      if (power == 1) {
+        return i == period;
+      }
+    }
+    return false;
+  }
+
+}
@@ -22,6 +22,9 @@ import com.opengamma.util.tuple.Triple;
 /**
  * A surface that is defined by a set of nodal points (i.e. <i>x-y-z</i> data) and an interpolator to return values of <i>z</i> for values 
  * of <i>(x, y)</i> that do not lie on nodal <i>(x, y)</i> values. 
+ * <p>
+ * The interpolation data of each slice of constant <i>x</i> is built once, when the surface is constructed, and held in arrays
+ * so that repeated lookups only interpolate along the slices and then across them.
  */
 public class InterpolatedDoublesSurface extends DoublesSurface {
 
@@ -225,6 +228,8 @@ public class InterpolatedDoublesSurface extends DoublesSurface {
 
   private final GridInterpolator2D _interpolator;
   private Map<Double, Interpolator1DDataBundle> _data;
+  private double[] _xKeys;
+  private Interpolator1DDataBundle[] _yData;
 
   /**
    * @param xData An array of <i>x</i> data points, not null 
@@ -455,6 +460,14 @@ public class InterpolatedDoublesSurface extends DoublesSurface {
       map.put(DoublesPair.of(x[i], y[i]), z[i]);
     }
     _data = _interpolator.getDataBundle(map);
+    final int n = _data.size();
+    _xKeys = new double[n];
+    _yData = new Interpolator1DDataBundle[n];
+    int i = 0;
+    for (final Map.Entry<Double, Interpolator1DDataBundle> entry : _data.entrySet()) {
+      _xKeys[i] = entry.getKey();
+      _yData[i++] = entry.getValue();
+    }
   }
 
   /**
@@ -464,7 +477,7 @@ public class InterpolatedDoublesSurface extends DoublesSurface {
   public Double getZValue(final Double x, final Double y) {
     Validate.notNull(x, "x");
     Validate.notNull(y, "y");
-    return _interpolator.interpolate(_data, new DoublesPair(x, y));
+    return getZValue(x.doubleValue(), y.doubleValue());
   }
 
   /**
@@ -473,7 +486,28 @@ public class InterpolatedDoublesSurface extends DoublesSurface {
   @Override
   public Double getZValue(final Pair<Double, Double> xy) {
     Validate.notNull(xy, "xy");
-    return _interpolator.interpolate(_data, DoublesPair.of(xy));
+    return getZValue(xy.getFirst(), xy.getSecond());
+  }
+
+  /**
+   * Gets the <i>z</i> value without boxing.
+   * @param x The <i>x</i> value
+   * @param y The <i>y</i> value
+   * @return The <i>z</i> value
+   */
+  public double getZValue(final double x, final double y) {
+    return _interpolator.interpolate(_xKeys, _yData, x, y);
+  }
+
+  /**
+   * Gets the <i>z</i> values on a grid of points. This is much faster than looking the points up one at a time, as the
+   * interpolation across the slices is set up once for each <i>y</i> value.
+   * @param x The <i>x</i> values of the grid, not null
+   * @param y The <i>y</i> values of the grid, not null
+   * @return The <i>z</i> values, indexed by <i>x</i> then <i>y</i>
+   */
+  public double[][] getZValues(final double[] x, final double[] y) {
+    return _interpolator.interpolate(_xKeys, _yData, x, y);
   }
 
   /**
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.credit.creditdefaultswap;
+
+import javax.time.calendar.ZonedDateTime;
+
+import jsr166y.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.credit.BuySellProtection;
+import com.opengamma.analytics.financial.credit.DebtSeniority;
+import com.opengamma.analytics.financial.credit.PriceType;
+import com.opengamma.analytics.financial.credit.RestructuringClause;
+import com.opengamma.analytics.financial.credit.SpreadBumpType;
+import com.opengamma.analytics.financial.credit.StubType;
+import com.opengamma.analytics.financial.credit.cds.ISDACurve;
+import com.opengamma.analytics.financial.credit.creditdefaultswap.definition.LegacyCreditDefaultSwapDefinition;
+import com.opengamma.analytics.financial.credit.creditdefaultswap.pricing.CS01LegacyCreditDefaultSwap;
+import com.opengamma.analytics.financial.credit.obligormodel.CreditRating;
+import com.opengamma.analytics.financial.credit.obligormodel.CreditRatingFitch;
+import com.opengamma.analytics.financial.credit.obligormodel.CreditRatingMoodys;
+import com.opengamma.analytics.financial.credit.obligormodel.CreditRatingStandardAndPoors;
+import com.opengamma.analytics.financial.credit.obligormodel.Region;
+import com.opengamma.analytics.financial.credit.obligormodel.Sector;
+import com.opengamma.analytics.financial.credit.obligormodel.definition.Obligor;
+import com.opengamma.financial.convention.businessday.BusinessDayConventionFactory;
+import com.opengamma.financial.convention.calendar.MondayToFridayCalendar;
+import com.opengamma.financial.convention.daycount.DayCountFactory;
+import com.opengamma.financial.convention.frequency.PeriodFrequency;
+import com.opengamma.util.money.Currency;
+import com.opengamma.util.time.DateUtils;
+
+/**
+ * Measures the bucketed CS01 of a book of legacy CDS's computed sequentially and on a fork-join pool.
+ * <p>
+ * Increase the cycle counts to obtain meaningful figures.
+ */
+public class CS01LegacyCreditDefaultSwapSpeedTest {
+  private static final Logger s_logger = LoggerFactory.getLogger(CS01LegacyCreditDefaultSwapSpeedTest.class);
+  private static final int HOTSPOT_WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
+  private static final int BOOK_SIZE = 10000;
+
+  private static final ZonedDateTime VALUATION_DATE = DateUtils.getUTCDate(2008, 9, 18);
+  private static final ISDACurve YIELD_CURVE = new ISDACurve("IR_CURVE", new double[] {0.1, 0.5, 1, 2, 3, 5, 7, 10, 20, 30 },
+      new double[] {0.005, 0.01, 0.015, 0.02, 0.023, 0.027, 0.03, 0.033, 0.035, 0.035 }, 0.0);
+  private static final ZonedDateTime[] TENORS = new ZonedDateTime[] {DateUtils.getUTCDate(2008, 12, 20), DateUtils.getUTCDate(2009, 6, 20), DateUtils.getUTCDate(2010, 6, 20),
+    DateUtils.getUTCDate(2011, 6, 20), DateUtils.getUTCDate(2012, 6, 20), DateUtils.getUTCDate(2013, 6, 20), DateUtils.getUTCDate(2015, 6, 20), DateUtils.getUTCDate(2018, 6, 20) };
+  private static final double[] SPREADS = new double[] {550, 560, 570, 580, 590, 600, 610, 620 };
+  private static final double SPREAD_BUMP = 1.0;
+
+  private static final LegacyCreditDefaultSwapDefinition CDS;
+  private static final LegacyCreditDefaultSwapDefinition[] BOOK = new LegacyCreditDefaultSwapDefinition[BOOK_SIZE];
+
+  static {
+    final Obligor obligor = new Obligor("BT", "British telecom", "123ABC", CreditRating.AA, CreditRating.A, CreditRatingMoodys.AA, CreditRatingStandardAndPoors.A, CreditRatingFitch.AA,
+        false, Sector.INDUSTRIALS, Region.EUROPE, "United Kingdom");
+    CDS = new LegacyCreditDefaultSwapDefinition(BuySellProtection.BUY, obligor, obligor, obligor, Currency.USD, DebtSeniority.SENIOR, RestructuringClause.NORE,
+        new MondayToFridayCalendar("TestCalendar"), DateUtils.getUTCDate(2008, 3, 20), DateUtils.getUTCDate(2008, 3, 20), DateUtils.getUTCDate(2013, 3, 20), VALUATION_DATE,
+        StubType.FRONTSHORT, PeriodFrequency.QUARTERLY, DayCountFactory.INSTANCE.getDayCount("ACT/360"), BusinessDayConventionFactory.INSTANCE.getBusinessDayConvention("Following"),
+        true, true, true, 10000000.0, 0.40, false, PriceType.CLEAN, true, 100.0);
+    for (int i = 0; i < BOOK_SIZE; i++) {
+      BOOK[i] = CDS.withMaturityDate(DateUtils.getUTCDate(2009 + i % 10, 3 + 3 * ((i / 10) % 4), 20)).withSpread(50.0 + i % 500);
+    }
+  }
+
+  @Test
+  public void testBucketedCS01() {
+    final ForkJoinPool pool = new ForkJoinPool();
+    try {
+      final CS01LegacyCreditDefaultSwap sequential = new CS01LegacyCreditDefaultSwap();
+      final CS01LegacyCreditDefaultSwap parallel = new CS01LegacyCreditDefaultSwap(pool);
+      for (int i = 0; i < HOTSPOT_WARMUP_CYCLES; i++) {
+        doBook(sequential);
+        doBook(parallel);
+      }
+      if (BENCHMARK_CYCLES > 0) {
+        long t = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          doBook(sequential);
+        }
+        report("sequential", System.nanoTime() - t);
+        t = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          doBook(parallel);
+        }
+        report("fork-join pool of " + pool.getParallelism(), System.nanoTime() - t);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static void report(final String name, final long nanos) {
+    s_logger.info("{}: {}ms per {} CDS book", new Object[] {name, nanos / (BENCHMARK_CYCLES * 1000000L), BOOK_SIZE });
+  }
+
+  private static double[][] doBook(final CS01LegacyCreditDefaultSwap cs01) {
+    return cs01.getCS01BucketedCreditDefaultSwaps(CDS, BOOK, YIELD_CURVE, TENORS, SPREADS, SPREAD_BUMP, SpreadBumpType.ADDITIVE_BUCKETED);
+  }
+
+}
@@ -5,9 +5,13 @@
  */
 package com.opengamma.analytics.financial.credit.creditdefaultswap;
 
+import static org.testng.AssertJUnit.assertEquals;
+
 import javax.time.calendar.TimeZone;
 import javax.time.calendar.ZonedDateTime;
 
+import jsr166y.ForkJoinPool;
+
 import org.testng.annotations.Test;
 
 import com.opengamma.analytics.financial.credit.BuySellProtection;
@@ -56,6 +60,8 @@ public class CS01LegacyCreditDefaultSwapTest {
   // Flag to control if any test results are output to the console
   private static final boolean outputResults = false;
 
+  private static final double TOLERANCE = 1e-8;
+
   // ----------------------------------------------------------------------------------
 
   // CDS contract parameters
@@ -602,4 +608,107 @@ public class CS01LegacyCreditDefaultSwapTest {
     // -------------------------------------------------------------------------------------
   }
 
+  // -----------------------------------------------------------------------------------------------
+
+  @Test
+  public void testCS01CalculationBucketedParallel() {
+
+    // -------------------------------------------------------------------------------------
+
+    if (outputResults) {
+      System.out.println("Running parallel bucketed CS01 calculation test ...");
+    }
+
+    // -------------------------------------------------------------------------------------
+
+    // The type of spread bump to apply
+    final SpreadBumpType spreadBumpType = SpreadBumpType.ADDITIVE_BUCKETED;
+
+    // The magnitude (but not direction) of bump to apply (in bps)
+    final double spreadBump = 1.0;
+
+    // The CDS tenors to calibrate to
+    final ZonedDateTime[] tenors = new ZonedDateTime[] {
+        DateUtils.getUTCDate(2008, 12, 20),
+        DateUtils.getUTCDate(2009, 6, 20),
+        DateUtils.getUTCDate(2010, 6, 20),
+        DateUtils.getUTCDate(2011, 6, 20),
+        DateUtils.getUTCDate(2012, 6, 20),
+        DateUtils.getUTCDate(2013, 6, 20),
+        DateUtils.getUTCDate(2015, 6, 20),
+        DateUtils.getUTCDate(2018, 6, 20) };
+
+    // The market observed par CDS spreads at these tenors
+    final double[] marketSpreads = new double[] {550.0, 560.0, 570.0, 580.0, 590.0, 600.0, 610.0, 620.0 };
+
+    // -------------------------------------------------------------------------------------
+
+    // Compute the bucketed CS01 on the calling thread and on a fork-join pool
+    final double[] bucketedCS01 = new CS01LegacyCreditDefaultSwap().getCS01BucketedCreditDefaultSwap(cds, yieldCurve, tenors, marketSpreads, spreadBump, spreadBumpType);
+
+    final ForkJoinPool pool = new ForkJoinPool();
+    final double[] parallelBucketedCS01;
+    final double[][] bookBucketedCS01;
+
+    try {
+      final CS01LegacyCreditDefaultSwap cs01 = new CS01LegacyCreditDefaultSwap(pool);
+      parallelBucketedCS01 = cs01.getCS01BucketedCreditDefaultSwap(cds, yieldCurve, tenors, marketSpreads, spreadBump, spreadBumpType);
+      bookBucketedCS01 = cs01.getCS01BucketedCreditDefaultSwaps(cds, new LegacyCreditDefaultSwapDefinition[] {cds, cds.withSpread(2 * parSpread) }, yieldCurve, tenors,
+          marketSpreads, spreadBump, spreadBumpType);
+    } finally {
+      pool.shutdown();
+    }
+
+    // -------------------------------------------------------------------------------------
+
+    // Compute the bucketed CS01 by recalibrating the whole hazard rate curve for each bump
+    final PresentValueLegacyCreditDefaultSwap creditDefaultSwap = new PresentValueLegacyCreditDefaultSwap();
+    final CalibrateHazardRateCurve hazardRateCurve = new CalibrateHazardRateCurve();
+
+    final double[] times = new double[tenors.length];
+
+    for (int m = 1; m < tenors.length; m++) {
+      times[m] = s_act365.getDayCountFraction(valuationDate, tenors[m]);
+    }
+
+    final double[] calibratedHazardRates = hazardRateCurve.getCalibratedHazardRateTermStructure(cds, tenors, marketSpreads, yieldCurve);
+    final double presentValue = creditDefaultSwap.getPresentValueCreditDefaultSwap(cds, yieldCurve, new HazardRateCurve(times, calibratedHazardRates, 0.0));
+
+    assertEquals(tenors.length, bucketedCS01.length);
+    assertEquals(2, bookBucketedCS01.length);
+
+    for (int m = 0; m < tenors.length; m++) {
+
+      final double[] bumpedMarketSpreads = marketSpreads.clone();
+      bumpedMarketSpreads[m] += spreadBump;
+
+      final double[] bumpedCalibratedHazardRates = hazardRateCurve.getCalibratedHazardRateTermStructure(cds, tenors, bumpedMarketSpreads, yieldCurve);
+      final double bumpedPresentValue = creditDefaultSwap.getPresentValueCreditDefaultSwap(cds, yieldCurve, new HazardRateCurve(times, bumpedCalibratedHazardRates, 0.0));
+
+      final double expectedCS01 = (bumpedPresentValue - presentValue) / spreadBump;
+
+      assertEquals(expectedCS01, bucketedCS01[m], TOLERANCE);
+      assertEquals(expectedCS01, parallelBucketedCS01[m], TOLERANCE);
+      assertEquals(expectedCS01, bookBucketedCS01[0][m], TOLERANCE);
+
+      if (outputResults) {
+        System.out.println("Tenor " + tenors[m] + " CS01 = " + bucketedCS01[m]);
+      }
+    }
+
+    // -------------------------------------------------------------------------------------
+
+    // The parallel shift CS01 of the book matches the single CDS calculation
+    final double parallelCS01 = new CS01LegacyCreditDefaultSwap().getCS01ParallelShiftCreditDefaultSwap(cds, yieldCurve, tenors, marketSpreads, spreadBump,
+        SpreadBumpType.ADDITIVE_PARALLEL);
+    final double[] bookParallelCS01 = new CS01LegacyCreditDefaultSwap().getCS01ParallelShiftCreditDefaultSwaps(cds, new LegacyCreditDefaultSwapDefinition[] {cds }, yieldCurve,
+        tenors, marketSpreads, spreadBump, SpreadBumpType.ADDITIVE_PARALLEL);
+
+    assertEquals(parallelCS01, bookParallelCS01[0], TOLERANCE);
+
+    // -------------------------------------------------------------------------------------
+  }
+
+  // -----------------------------------------------------------------------------------------------
+
 }
@@ -26,6 +26,7 @@ import com.opengamma.analytics.financial.calculator.PresentValueCurveSensitivity
 import com.opengamma.analytics.financial.calculator.PresentValueCurveSensitivityMCSCalculator;
 import com.opengamma.analytics.financial.calculator.PresentValueMCACalculator;
 import com.opengamma.analytics.financial.curve.building.CurveBuildingBlockBundle;
+import com.opengamma.analytics.financial.curve.building.CurveBuildingCache;
 import com.opengamma.analytics.financial.curve.building.CurveBuildingFunction;
 import com.opengamma.analytics.financial.curve.generator.GeneratorCurveAddYield;
 import com.opengamma.analytics.financial.curve.generator.GeneratorCurveAddYieldExisiting;
@@ -354,6 +355,7 @@ public class CurveConstructionSpreadTest {
   private static final SwapFixedCoupon<Coupon> SWAP = SWAP_DEFINITION.toDerivative(NOW, new String[] {CURVE_NAME_DSC_USD, CURVE_NAME_FWD3_USD});
 
   private static final double TOLERANCE_CAL = 1.0E-9;
+  private static final double TOLERANCE_JACOBIAN = 1.0E-6;
   private static final double TOLERANCE_PNL = 1.0E+0;
 
   @BeforeSuite
@@ -405,6 +407,34 @@ public class CurveConstructionSpreadTest {
     }
   }
 
+  @Test
+  /**
+   * Tests that a calibration starting from a previous one gives the same curves and inverse Jacobian matrices.
+   */
+  public void curveConstructionWarmStart() {
+    final CurveBuildingCache cache = new CurveBuildingCache();
+    for (int loopblock = 0; loopblock < NB_BLOCKS; loopblock++) {
+      makeCurvesFromDefinitions(DEFINITIONS_UNITS[loopblock], GENERATORS_UNITS[loopblock], NAMES_UNITS[loopblock], KNOWN_DATA, PSMQ_CALCULATOR, PSMQCS_CALCULATOR, false, loopblock, cache);
+      final Pair<YieldCurveBundle, CurveBuildingBlockBundle> warm = makeCurvesFromDefinitions(DEFINITIONS_UNITS[loopblock], GENERATORS_UNITS[loopblock], NAMES_UNITS[loopblock], KNOWN_DATA,
+          PSMQ_CALCULATOR, PSMQCS_CALCULATOR, false, loopblock, cache);
+      curveConstructionTest(NAMES_UNITS[loopblock], DEFINITIONS_UNITS[loopblock], warm.getFirst(), false, loopblock);
+      final CurveBuildingBlockBundle cold = CURVES_PAR_SPREAD_MQ_WITHOUT_TODAY_BLOCK.get(loopblock).getSecond();
+      for (final String[] unitNames : NAMES_UNITS[loopblock]) {
+        for (final String name : unitNames) {
+          final double[][] expected = cold.getBlock(name).getSecond().getData();
+          final double[][] actual = warm.getSecond().getBlock(name).getSecond().getData();
+          assertEquals("Warm start: block " + loopblock + ", curve " + name, expected.length, actual.length);
+          for (int looprow = 0; looprow < expected.length; looprow++) {
+            assertEquals("Warm start: block " + loopblock + ", curve " + name, expected[looprow].length, actual[looprow].length);
+            for (int loopcol = 0; loopcol < expected[looprow].length; loopcol++) {
+              assertEquals("Warm start: block " + loopblock + ", curve " + name, expected[looprow][loopcol], actual[looprow][loopcol], TOLERANCE_JACOBIAN * Math.max(1.0, Math.abs(expected[looprow][loopcol])));
+            }
+          }
+        }
+      }
+    }
+  }
+
   @Test
   /**
    * Test the market quote sensitivity by comparison to a finite difference (bump and recompute)
@@ -609,6 +639,12 @@ public class CurveConstructionSpreadTest {
   private static Pair<YieldCurveBundle, CurveBuildingBlockBundle> makeCurvesFromDefinitions(final InstrumentDefinition<?>[][][] definitions, GeneratorYDCurve[][] curveGenerators, String[][] curveNames,
       YieldCurveBundle knownData, final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, Double> calculator,
       final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, InterestRateCurveSensitivity> sensitivityCalculator, boolean withToday, int block) {
+    return makeCurvesFromDefinitions(definitions, curveGenerators, curveNames, knownData, calculator, sensitivityCalculator, withToday, block, null);
+  }
+
+  private static Pair<YieldCurveBundle, CurveBuildingBlockBundle> makeCurvesFromDefinitions(final InstrumentDefinition<?>[][][] definitions, GeneratorYDCurve[][] curveGenerators, String[][] curveNames,
+      YieldCurveBundle knownData, final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, Double> calculator,
+      final AbstractInstrumentDerivativeVisitor<YieldCurveBundle, InterestRateCurveSensitivity> sensitivityCalculator, boolean withToday, int block, CurveBuildingCache cache) {
     int nbUnits = curveGenerators.length;
     double[][] parametersGuess = new double[nbUnits][];
     GeneratorYDCurve[][] generatorFinal = new GeneratorYDCurve[nbUnits][];
@@ -632,7 +668,7 @@ public class CurveConstructionSpreadTest {
         parametersGuess[loopunit] = new double[] {0.012, -0.003, 0.018, 1.60, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0};
       }
     }
-    return CURVE_BUILDING_FUNCTION.makeCurvesFromDerivatives(instruments, generatorFinal, curveNames, parametersGuess, knownData, calculator, sensitivityCalculator);
+    return CURVE_BUILDING_FUNCTION.makeCurvesFromDerivatives(instruments, generatorFinal, curveNames, parametersGuess, knownData, calculator, sensitivityCalculator, cache);
   }
 
   @SuppressWarnings("unchecked")
@@ -203,6 +203,26 @@ public class CapFloorIborHullWhiteMethodTest {
     assertEquals("Swaption physical - Hull-White - Monte Carlo", -pvMC.getAmount(), pvShortMC.getAmount(), 1.0E-2);
   }
 
+  @Test
+  /**
+   * Tests the curve sensitivity in Monte Carlo approach (adjoint along the paths) against the explicit formula.
+   */
+  public void monteCarloCurveSensitivity() {
+    double toleranceDelta = 5.0E+5; // 50 USD by bp
+    InterestRateCurveSensitivity pvcsExplicit = METHOD_HW.presentValueCurveSensitivity(CAP_LONG, BUNDLE_HW);
+    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), 10 * NB_PATH);
+    InterestRateCurveSensitivity pvcsMC = methodMC.presentValueCurveSensitivity(CAP_LONG, CURVES_NAME[0], BUNDLE_HW);
+    InterestRateCurveSensitivity diff = pvcsExplicit.cleaned().plus(pvcsMC.multipliedBy(-1)).cleaned();
+    for (String name : CURVES_NAME) {
+      final List<DoublesPair> sensi = diff.getSensitivities().get(name);
+      if (sensi != null) {
+        for (int loopnode = 0; loopnode < sensi.size(); loopnode++) {
+          assertEquals("Cap/floor - Hull-White - Monte Carlo curve sensitivity: " + name + " node " + loopnode, 0.0, sensi.get(loopnode).second, toleranceDelta);
+        }
+      }
+    }
+  }
+
   @Test(enabled = false)
   /**
    * Performance for a high number of paths.
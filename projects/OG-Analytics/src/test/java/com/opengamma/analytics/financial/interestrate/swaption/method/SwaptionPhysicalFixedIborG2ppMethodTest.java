@@ -7,6 +7,8 @@ package com.opengamma.analytics.financial.interestrate.swaption.method;
 
 import static org.testng.AssertJUnit.assertEquals;
 
+import java.util.List;
+
 import javax.time.calendar.Period;
 import javax.time.calendar.ZonedDateTime;
 
@@ -20,6 +22,7 @@ import com.opengamma.analytics.financial.instrument.index.IborIndex;
 import com.opengamma.analytics.financial.instrument.index.IndexSwap;
 import com.opengamma.analytics.financial.instrument.swap.SwapFixedIborDefinition;
 import com.opengamma.analytics.financial.instrument.swaption.SwaptionPhysicalFixedIborDefinition;
+import com.opengamma.analytics.financial.interestrate.InterestRateCurveSensitivity;
 import com.opengamma.analytics.financial.interestrate.ParRateCalculator;
 import com.opengamma.analytics.financial.interestrate.PresentValueCalculator;
 import com.opengamma.analytics.financial.interestrate.TestsDataSetsSABR;
@@ -39,6 +42,7 @@ import com.opengamma.analytics.financial.montecarlo.G2ppMonteCarloMethod;
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
 import com.opengamma.analytics.math.curve.ConstantDoublesCurve;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.PseudoRandomPathGenerator;
 import com.opengamma.financial.convention.businessday.BusinessDayConvention;
 import com.opengamma.financial.convention.businessday.BusinessDayConventionFactory;
 import com.opengamma.financial.convention.calendar.Calendar;
@@ -48,6 +52,7 @@ import com.opengamma.financial.convention.daycount.DayCountFactory;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.money.CurrencyAmount;
 import com.opengamma.util.time.DateUtils;
+import com.opengamma.util.tuple.DoublesPair;
 
 /**
  * Tests related to the pricing of physical delivery swaption in G2++ model.
@@ -175,6 +180,30 @@ public class SwaptionPhysicalFixedIborG2ppMethodTest {
     assertEquals("Swaption physical - G2++ - present value - approximation vs Monte Carlo", pvApproximation.getAmount(), pvMC.getAmount(), 2.5E+4);
   }
 
+  @Test
+  /**
+   * Tests the Monte Carlo curve sensitivity (adjoint along the paths) against the finite difference of the Monte Carlo present value with the same paths.
+   * The curves are constant, the test uses a parallel shift of both curves.
+   */
+  public void presentValueCurveSensitivityMonteCarlo() {
+    int nbPath = 12500;
+    double shift = 1.0E-6;
+    G2ppMonteCarloMethod methodMC = new G2ppMonteCarloMethod(new PseudoRandomPathGenerator(0), nbPath, null);
+    InterestRateCurveSensitivity pvcsMC = methodMC.presentValueCurveSensitivity(SWAPTION_PAYER_LONG, FUNDING_CURVE_NAME, BUNDLE_G2PP);
+    double pvcsParallel = 0.0;
+    for (final List<DoublesPair> sensi : pvcsMC.getSensitivities().values()) {
+      for (final DoublesPair pair : sensi) {
+        pvcsParallel += pair.second;
+      }
+    }
+    final YieldCurveBundle curvesBumped = new YieldCurveBundle();
+    curvesBumped.setCurve(FUNDING_CURVE_NAME, YieldCurve.from(ConstantDoublesCurve.from(0.05 + shift)));
+    curvesBumped.setCurve(FORWARD_CURVE_NAME, YieldCurve.from(ConstantDoublesCurve.from(0.04 + shift)));
+    CurrencyAmount pvMC = methodMC.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_G2PP);
+    CurrencyAmount pvMCBumped = methodMC.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, new G2ppPiecewiseConstantDataBundle(PARAMETERS_G2PP, curvesBumped));
+    assertEquals("Swaption physical - G2++ - Monte Carlo curve sensitivity vs finite difference", (pvMCBumped.getAmount() - pvMC.getAmount()) / shift, pvcsParallel, 1.0E+4);
+  }
+
   @Test(enabled = false)
   /**
    * Test the present value by approximation vs Monte Carlo: convergence.
@@ -10,6 +10,8 @@ import static org.testng.AssertJUnit.assertEquals;
 import it.unimi.dsi.fastutil.doubles.DoubleAVLTreeSet;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.time.calendar.Period;
 import javax.time.calendar.ZonedDateTime;
@@ -46,6 +48,8 @@ import com.opengamma.analytics.financial.model.volatility.BlackImpliedVolatility
 import com.opengamma.analytics.financial.montecarlo.HullWhiteMonteCarloMethod;
 import com.opengamma.analytics.financial.schedule.ScheduleCalculator;
 import com.opengamma.analytics.math.random.NormalRandomNumberGenerator;
+import com.opengamma.analytics.math.random.PseudoRandomPathGenerator;
+import com.opengamma.analytics.math.random.SobolPathGenerator;
 import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
 import com.opengamma.financial.convention.businessday.BusinessDayConvention;
@@ -251,6 +255,32 @@ public class SwaptionPhysicalFixedIborHullWhiteMethodTest {
     assertEquals("Swaption physical - Hull-White - Monte Carlo - payer/receiver/swap parity", pvReceiverLongMC.getAmount() + pvPayerShortMC.getAmount(), pvSwap, 1.0E+5);
   }
 
+  @Test
+  /**
+   * Compare explicit formula with Monte-Carlo on Sobol paths and check that the parallel simulation gives the same price as the sequential one.
+   */
+  public void presentValueMonteCarloSobol() {
+    int nbPath = 12500;
+    CurrencyAmount pvPayerLongExplicit = METHOD_HW.presentValue(SWAPTION_PAYER_LONG, BUNDLE_HW);
+    HullWhiteMonteCarloMethod methodSobol = new HullWhiteMonteCarloMethod(new SobolPathGenerator(), nbPath, null);
+    CurrencyAmount pvPayerLongSobol = methodSobol.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    assertEquals("Swaption physical - Hull-White - Monte Carlo Sobol", pvPayerLongExplicit.getAmount(), pvPayerLongSobol.getAmount(), 1.0E+4);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      HullWhiteMonteCarloMethod methodSobolParallel = new HullWhiteMonteCarloMethod(new SobolPathGenerator(), nbPath, executor);
+      CurrencyAmount pvPayerLongSobolParallel = methodSobolParallel.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+      assertEquals("Swaption physical - Hull-White - Monte Carlo Sobol - parallel", pvPayerLongSobol.getAmount(), pvPayerLongSobolParallel.getAmount(), 1.0E-2);
+      HullWhiteMonteCarloMethod methodPseudo = new HullWhiteMonteCarloMethod(new PseudoRandomPathGenerator(0), nbPath, null);
+      HullWhiteMonteCarloMethod methodPseudoParallel = new HullWhiteMonteCarloMethod(new PseudoRandomPathGenerator(0), nbPath, executor);
+      CurrencyAmount pvPayerLongPseudo = methodPseudo.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+      assertEquals("Swaption physical - Hull-White - Monte Carlo", pvPayerLongExplicit.getAmount(), pvPayerLongPseudo.getAmount(), 1.0E+5);
+      assertEquals("Swaption physical - Hull-White - Monte Carlo - parallel", pvPayerLongPseudo.getAmount(),
+          methodPseudoParallel.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW).getAmount(), 1.0E-2);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   /**
    * Tests the Hull-White parameters sensitivity for the explicit formula.
@@ -440,6 +470,48 @@ public class SwaptionPhysicalFixedIborHullWhiteMethodTest {
     System.out.println("HW sensitivity: " + Arrays.toString(pvhws));
   }
 
+  @Test(enabled = false)
+  /**
+   * Tests of performance of the Monte Carlo path generators. "enabled = false" for the standard testing.
+   */
+  public void performanceMonteCarloSobol() {
+    long startTime, endTime;
+    final int nbTest = 25;
+    final int nbPathPseudo = 50000;
+    final int nbPathSobol = 4000;
+    CurrencyAmount pvPayerLongExplicit = METHOD_HW.presentValue(SWAPTION_PAYER_LONG, BUNDLE_HW);
+    CurrencyAmount pvMC = CurrencyAmount.of(CUR, 0.0);
+    HullWhiteMonteCarloMethod methodPseudo = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), nbPathPseudo);
+    startTime = System.currentTimeMillis();
+    for (int looptest = 0; looptest < nbTest; looptest++) {
+      pvMC = methodPseudo.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    }
+    endTime = System.currentTimeMillis();
+    System.out.println(nbTest + " swaption Hull-White Monte Carlo pseudo-random (" + nbPathPseudo + " paths): " + (endTime - startTime) + " ms / error:"
+        + (pvMC.getAmount() - pvPayerLongExplicit.getAmount()));
+    HullWhiteMonteCarloMethod methodSobol = new HullWhiteMonteCarloMethod(new SobolPathGenerator(), nbPathSobol, null);
+    startTime = System.currentTimeMillis();
+    for (int looptest = 0; looptest < nbTest; looptest++) {
+      pvMC = methodSobol.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+    }
+    endTime = System.currentTimeMillis();
+    System.out.println(nbTest + " swaption Hull-White Monte Carlo Sobol (" + nbPathSobol + " paths): " + (endTime - startTime) + " ms / error:"
+        + (pvMC.getAmount() - pvPayerLongExplicit.getAmount()));
+    ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try {
+      HullWhiteMonteCarloMethod methodPseudoParallel = new HullWhiteMonteCarloMethod(new PseudoRandomPathGenerator(0), nbPathPseudo, executor);
+      startTime = System.currentTimeMillis();
+      for (int looptest = 0; looptest < nbTest; looptest++) {
+        pvMC = methodPseudoParallel.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+      }
+      endTime = System.currentTimeMillis();
+      System.out.println(nbTest + " swaption Hull-White Monte Carlo pseudo-random parallel (" + nbPathPseudo + " paths): " + (endTime - startTime) + " ms / error:"
+          + (pvMC.getAmount() - pvPayerLongExplicit.getAmount()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test(enabled = false)
   /**
    * Tests of performance. "enabled = false" for the standard testing.
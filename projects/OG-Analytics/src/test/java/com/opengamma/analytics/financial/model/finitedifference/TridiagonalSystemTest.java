@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * Tests the boundary elimination of {@link TridiagonalSystem} against a dense solve.
+ */
+public class TridiagonalSystemTest {
+  private static final int N = 6;
+  private static final double[] LOWER = new double[] {0, -1.5, -0.7, -2.0, -1.1, 0};
+  private static final double[] DIAG = new double[] {0, 4.0, 5.5, 6.0, 4.5, 0};
+  private static final double[] UPPER = new double[] {0, -1.2, -2.1, -0.9, -1.8, 0};
+  private static final double[] RHS = new double[] {0.3, 1, -2, 3, 0.5, -0.8};
+  private static final double EPS = 1e-12;
+
+  private static TridiagonalSystem interior() {
+    final TridiagonalSystem system = new TridiagonalSystem(N);
+    for (int i = 1; i < N - 1; i++) {
+      system.setRow(i, LOWER[i], DIAG[i], UPPER[i]);
+    }
+    return system;
+  }
+
+  /**
+   * Builds the dense matrix of the system, with the first row's coefficients for the nodes 0, 1, 2... and the last row's for the nodes ..., n - 2, n - 1.
+   */
+  private static double[][] dense(final double[] first, final double[] last) {
+    final double[][] m = new double[N][N];
+    for (int i = 1; i < N - 1; i++) {
+      m[i][i - 1] = LOWER[i];
+      m[i][i] = DIAG[i];
+      m[i][i + 1] = UPPER[i];
+    }
+    for (int j = 0; j < first.length; j++) {
+      m[0][j] = first[j];
+    }
+    for (int j = 0; j < last.length; j++) {
+      m[N - 1][N - last.length + j] = last[j];
+    }
+    return m;
+  }
+
+  private static void assertDenseSolve(final double[][] m, final double[] x) {
+    final double[] expected = new LUDecompositionCommons().evaluate(new DoubleMatrix2D(m)).solve(RHS);
+    for (int i = 0; i < N; i++) {
+      assertEquals(expected[i], x[i], EPS);
+    }
+  }
+
+  @Test
+  public void testThreePointBoundaries() {
+    final double[] first = new double[] {-1.5, 2.0, -0.5};
+    final double[] last = new double[] {0.5, -2.0, 1.5};
+    final TridiagonalSystem system = interior();
+    system.setFirstRow(first);
+    system.setLastRow(last);
+    final double[] x = new double[N];
+    system.solve(RHS, x);
+    assertDenseSolve(dense(first, last), x);
+  }
+
+  @Test
+  public void testReversedLastRow() {
+    final double[] first = new double[] {-1.5, 2.0, -0.5};
+    final TridiagonalSystem system = interior();
+    system.setFirstRow(first);
+    system.setLastRowReversed(new double[] {1.5, -2.0, 0.5});
+    final double[] x = new double[N];
+    system.solve(RHS, x);
+    assertDenseSolve(dense(first, new double[] {0.5, -2.0, 1.5}), x);
+  }
+
+  @Test
+  public void testShortBoundaries() {
+    final double[] first = new double[] {1.0};
+    final double[] last = new double[] {-1.0, 1.0};
+    final TridiagonalSystem system = interior();
+    system.setFirstRow(first);
+    system.setLastRow(last);
+    final double[] x = new double[N];
+    system.solve(RHS, x);
+    assertDenseSolve(dense(first, last), x);
+  }
+
+  @Test
+  public void testSolveInPlace() {
+    final double[] first = new double[] {-1.5, 2.0, -0.5};
+    final double[] last = new double[] {0.5, -2.0, 1.5};
+    final TridiagonalSystem system = interior();
+    system.setFirstRow(first);
+    system.setLastRow(last);
+    final double[] x = RHS.clone();
+    system.solve(x, x);
+    assertDenseSolve(dense(first, last), x);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTooManyCoefficients() {
+    new TridiagonalSystem(N).setFirstRow(new double[] {1, 2, 3, 4});
+  }
+
+}
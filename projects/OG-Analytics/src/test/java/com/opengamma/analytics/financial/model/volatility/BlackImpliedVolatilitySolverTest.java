@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.volatility;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ *
+ */
+public class BlackImpliedVolatilitySolverTest {
+  private static final Logger s_logger = LoggerFactory.getLogger(BlackImpliedVolatilitySolverTest.class);
+  private static final int HOTSPOT_WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
+  private static final double FORWARD = 0.04;
+  private static final double[] EXPIRIES = new double[] {1. / 52, 0.25, 1, 5, 30};
+  private static final double[] STRIKES = new double[] {0.005, 0.01, 0.02, 0.03, 0.039, 0.04, 0.041, 0.05, 0.07, 0.1, 0.15};
+  private static final double[] VOLS = new double[] {0.02, 0.1, 0.2, 0.5, 1.0, 2.0};
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroStrike() {
+    BlackImpliedVolatilitySolver.impliedVolatility(0.01, FORWARD, 0, 1, true);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBelowIntrinsic() {
+    BlackImpliedVolatilitySolver.impliedVolatility(0.009, FORWARD, 0.03, 1, true);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testAboveUpperBound() {
+    BlackImpliedVolatilitySolver.impliedVolatility(FORWARD, FORWARD, 0.03, 1, true);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongLength() {
+    BlackImpliedVolatilitySolver.impliedVolatility(new double[] {0.01, 0.02}, FORWARD, new double[] {0.03}, 1, new boolean[] {true, true});
+  }
+
+  @Test
+  public void testIntrinsic() {
+    assertEquals(0.0, BlackImpliedVolatilitySolver.impliedVolatility(0.01, FORWARD, 0.03, 1, true), 0.0);
+    assertEquals(0.0, BlackImpliedVolatilitySolver.impliedVolatility(0.0, FORWARD, 0.05, 1, true), 0.0);
+  }
+
+  @Test
+  public void testRecoverVolatility() {
+    for (final double t : EXPIRIES) {
+      for (final double k : STRIKES) {
+        for (final double vol : VOLS) {
+          for (final boolean isCall : new boolean[] {true, false}) {
+            final double price = BlackFormulaRepository.price(FORWARD, k, t, vol, isCall);
+            final double otmPrice = price - Math.max(0, (isCall ? 1 : -1) * (FORWARD - k));
+            if (otmPrice < 1e-8 * Math.min(FORWARD, k)) {
+              continue; // the price does not hold enough information on the volatility
+            }
+            final double impliedVol = BlackImpliedVolatilitySolver.impliedVolatility(price, FORWARD, k, t, isCall);
+            assertEquals("t=" + t + ", k=" + k + ", vol=" + vol + ", " + (isCall ? "call" : "put"), vol, impliedVol, 1e-8 * vol);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAgainstRepository() {
+    for (final double t : EXPIRIES) {
+      for (final double k : STRIKES) {
+        for (final double vol : new double[] {0.1, 0.3, 0.6}) {
+          final boolean isCall = k >= FORWARD;
+          final double price = BlackFormulaRepository.price(FORWARD, k, t, vol, isCall);
+          if (price < 1e-8 * Math.min(FORWARD, k)) {
+            continue;
+          }
+          assertEquals(BlackFormulaRepository.impliedVolatility(price, FORWARD, k, t, 0.3), BlackImpliedVolatilitySolver.impliedVolatility(price, FORWARD, k, t, isCall), 1e-8);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testArrays() {
+    final int n = STRIKES.length;
+    final double t = 2.0;
+    final double[] prices = new double[n];
+    final double[] forwards = new double[n];
+    final double[] times = new double[n];
+    final boolean[] isCall = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      isCall[i] = i % 2 == 0;
+      forwards[i] = FORWARD;
+      times[i] = t;
+      prices[i] = BlackFormulaRepository.price(FORWARD, STRIKES[i], t, 0.25, isCall[i]);
+    }
+    final double[] vols = BlackImpliedVolatilitySolver.impliedVolatility(prices, FORWARD, STRIKES, t, isCall);
+    final double[] vols2 = BlackImpliedVolatilitySolver.impliedVolatility(prices, forwards, STRIKES, times, isCall);
+    for (int i = 0; i < n; i++) {
+      final double expected = BlackImpliedVolatilitySolver.impliedVolatility(prices[i], FORWARD, STRIKES[i], t, isCall[i]);
+      assertEquals(expected, vols[i], 0.0);
+      assertEquals(expected, vols2[i], 0.0);
+      assertEquals(0.25, vols[i], 1e-8);
+    }
+  }
+
+  /**
+   * Compares the time to invert a grid of prices with the bracketed Newton solver of {@link BlackFormulaRepository}.
+   */
+  @Test(enabled = false)
+  public void timeImpliedVolatility() {
+    final int n = 100000;
+    final double[] prices = new double[n];
+    final double[] strikes = new double[n];
+    final double[] times = new double[n];
+    final boolean[] isCall = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      strikes[i] = STRIKES[i % STRIKES.length];
+      times[i] = EXPIRIES[(i / STRIKES.length) % EXPIRIES.length];
+      isCall[i] = strikes[i] >= FORWARD;
+      prices[i] = BlackFormulaRepository.price(FORWARD, strikes[i], times[i], 0.05 + 0.5 * (i % 97) / 97., isCall[i]);
+    }
+    for (int i = 0; i < HOTSPOT_WARMUP_CYCLES; i++) {
+      invertWithRepository(prices, strikes, times);
+      invertWithSolver(prices, strikes, times, isCall);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles of " + n + " implied volatilities with BlackFormulaRepository", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        invertWithRepository(prices, strikes, times);
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "processing {} cycles of " + n + " implied volatilities with BlackImpliedVolatilitySolver", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        invertWithSolver(prices, strikes, times, isCall);
+      }
+      timer.finished();
+    }
+  }
+
+  private static void invertWithRepository(final double[] prices, final double[] strikes, final double[] times) {
+    for (int i = 0; i < prices.length; i++) {
+      BlackFormulaRepository.impliedVolatility(prices[i], FORWARD, strikes[i], times[i], 0.3);
+    }
+  }
+
+  private static void invertWithSolver(final double[] prices, final double[] strikes, final double[] times, final boolean[] isCall) {
+    final double[] forwards = new double[prices.length];
+    Arrays.fill(forwards, FORWARD);
+    BlackImpliedVolatilitySolver.impliedVolatility(prices, forwards, strikes, times, isCall);
+  }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.volatility.local;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.model.interestrate.curve.ForwardCurve;
+import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.EuropeanVanillaOption;
+import com.opengamma.analytics.financial.model.volatility.smile.fitting.interpolation.SmileInterpolatorSpline;
+import com.opengamma.analytics.financial.model.volatility.smile.fitting.sabr.StandardSmileSurfaceDataBundle;
+import com.opengamma.analytics.financial.model.volatility.surface.VolatilitySurfaceInterpolator;
+import com.opengamma.analytics.math.interpolation.DoubleQuadraticInterpolator1D;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ *
+ */
+public class LocalVolatilityForwardPDEBucketedVegaCalculatorTest {
+  private static final Logger s_logger = LoggerFactory.getLogger(LocalVolatilityForwardPDEBucketedVegaCalculatorTest.class);
+  private static final int WARMUP_CYCLES = 1;
+  private static final int BENCHMARK_CYCLES = 5;
+
+  private static final ForwardCurve FORWARD_CURVE = new ForwardCurve(1.0, 0.02);
+  private static final double[] EXPIRIES = new double[] {0.25, 0.5, 1.0, 2.0, 5.0};
+  private static final double[][] STRIKES = new double[][] { {0.8, 0.9, 1.0, 1.1, 1.2}, {0.75, 0.9, 1.0, 1.1, 1.3}, {0.7, 0.85, 1.0, 1.15, 1.35},
+    {0.6, 0.8, 1.0, 1.2, 1.5}, {0.5, 0.75, 1.0, 1.3, 1.8}};
+  private static final double[][] VOLS = new double[][] { {0.28, 0.25, 0.23, 0.22, 0.225}, {0.27, 0.245, 0.23, 0.222, 0.225}, {0.265, 0.243, 0.23, 0.223, 0.224},
+    {0.26, 0.24, 0.228, 0.222, 0.222}, {0.25, 0.235, 0.226, 0.22, 0.22}};
+  private static final StandardSmileSurfaceDataBundle MARKET_DATA = new StandardSmileSurfaceDataBundle(FORWARD_CURVE, EXPIRIES, STRIKES, VOLS);
+  private static final VolatilitySurfaceInterpolator SURFACE_INTERPOLATOR = new VolatilitySurfaceInterpolator(new SmileInterpolatorSpline());
+  private static final DupireLocalVolatilityCalculator DUPIRE = new DupireLocalVolatilityCalculator();
+  private static final LocalVolatilityForwardPDECalculator PDE_CALCULATOR = new LocalVolatilityForwardPDECalculator(0.5, 50, 100, 5.0, 0.05, 3.5, 1.0);
+  private static final DoubleQuadraticInterpolator1D INTERPOLATOR = new DoubleQuadraticInterpolator1D();
+  private static final LocalVolatilitySurfaceMoneyness LOCAL_VOL = DUPIRE.getLocalVolatility(SURFACE_INTERPOLATOR.getVolatilitySurface(MARKET_DATA));
+  private static final EuropeanVanillaOption OPTION = new EuropeanVanillaOption(1.05, 1.5, true);
+
+  @Test
+  public void parallelSolves() {
+    final double[][] expected = new LocalVolatilityForwardPDEBucketedVegaCalculator(PDE_CALCULATOR, INTERPOLATOR, DUPIRE, SURFACE_INTERPOLATOR)
+        .getResult(LOCAL_VOL, FORWARD_CURVE, OPTION, MARKET_DATA);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final double[][] vega = new LocalVolatilityForwardPDEBucketedVegaCalculator(PDE_CALCULATOR, INTERPOLATOR, DUPIRE, SURFACE_INTERPOLATOR, executor)
+          .getResult(LOCAL_VOL, FORWARD_CURVE, OPTION, MARKET_DATA);
+      assertEquals(expected.length, vega.length);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(expected[i].length, vega[i].length);
+        for (int j = 0; j < expected[i].length; j++) {
+          assertEquals("expiry " + i + ", strike " + j, expected[i][j], vega[i][j], 1e-12);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Compares the time of a bucketed vega run with the bumped solves on the calling thread and on a thread pool.
+   */
+  @Test(enabled = false)
+  public void performance() {
+    final LocalVolatilityForwardPDEBucketedVegaCalculator sequential = new LocalVolatilityForwardPDEBucketedVegaCalculator(PDE_CALCULATOR, INTERPOLATOR, DUPIRE,
+        SURFACE_INTERPOLATOR);
+    final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    final LocalVolatilityForwardPDEBucketedVegaCalculator parallel = new LocalVolatilityForwardPDEBucketedVegaCalculator(PDE_CALCULATOR, INTERPOLATOR, DUPIRE,
+        SURFACE_INTERPOLATOR, executor);
+    try {
+      for (int i = 0; i < WARMUP_CYCLES; i++) {
+        sequential.getResult(LOCAL_VOL, FORWARD_CURVE, OPTION, MARKET_DATA);
+        parallel.getResult(LOCAL_VOL, FORWARD_CURVE, OPTION, MARKET_DATA);
+      }
+      OperationTimer timer = new OperationTimer(s_logger, "processing {} bucketed vega runs on the calling thread", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        sequential.getResult(LOCAL_VOL, FORWARD_CURVE, OPTION, MARKET_DATA);
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "processing {} bucketed vega runs on a thread pool", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        parallel.getResult(LOCAL_VOL, FORWARD_CURVE, OPTION, MARKET_DATA);
+      }
+      timer.finished();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
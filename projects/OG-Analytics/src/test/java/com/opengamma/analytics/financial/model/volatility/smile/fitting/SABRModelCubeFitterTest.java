@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.volatility.smile.fitting;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.model.option.pricing.analytic.formula.EuropeanVanillaOption;
+import com.opengamma.analytics.financial.model.volatility.smile.function.SABRFormulaData;
+import com.opengamma.analytics.financial.model.volatility.smile.function.SABRHaganVolatilityFunction;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.statistics.leastsquare.LeastSquareResultsWithTransform;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ *
+ */
+public class SABRModelCubeFitterTest {
+  private static final Logger s_logger = LoggerFactory.getLogger(SABRModelCubeFitterTest.class);
+  private static final int HOTSPOT_WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
+  private static final SABRHaganVolatilityFunction SABR = new SABRHaganVolatilityFunction();
+  private static final double[] EXPIRY_GRID = new double[] {0.25, 0.5, 1, 2, 3, 5, 7, 10, 15, 20};
+  private static final double[] MATURITY_GRID = new double[] {1, 2, 3, 5, 7, 10, 15, 20, 30};
+  private static final double[] RELATIVE_STRIKES = new double[] {-0.015, -0.01, -0.005, -0.0025, 0, 0.0025, 0.005, 0.01, 0.015, 0.02};
+  private static final double BETA = 0.5;
+  private static final DoubleMatrix1D START = new DoubleMatrix1D(new double[] {0.05, BETA, 0.0, 0.3});
+  private static final BitSet FIXED = new BitSet();
+  private static final double[] EXPIRIES;
+  private static final double[] MATURITIES;
+  private static final double[] FORWARDS;
+  private static final double[][] STRIKES;
+  private static final double[][] VOLS;
+  private static final double[][] ERRORS;
+  private static final SABRFormulaData[] PARAMETERS;
+
+  static {
+    FIXED.set(1);
+    final int n = EXPIRY_GRID.length * MATURITY_GRID.length;
+    EXPIRIES = new double[n];
+    MATURITIES = new double[n];
+    FORWARDS = new double[n];
+    STRIKES = new double[n][];
+    VOLS = new double[n][];
+    ERRORS = new double[n][];
+    PARAMETERS = new SABRFormulaData[n];
+    int index = 0;
+    // The smiles are not in the order of the maturities or expiries
+    for (int i = EXPIRY_GRID.length - 1; i >= 0; i--) {
+      for (final double maturity : MATURITY_GRID) {
+        final double expiry = EXPIRY_GRID[i];
+        EXPIRIES[index] = expiry;
+        MATURITIES[index] = maturity;
+        FORWARDS[index] = 0.02 + 0.002 * Math.sqrt(expiry + maturity);
+        PARAMETERS[index] = new SABRFormulaData(0.04 + 0.01 * Math.exp(-0.1 * expiry), BETA, -0.1 - 0.2 * Math.exp(-0.1 * maturity), 0.5 * Math.exp(-0.05 * expiry) + 0.1);
+        final int m = RELATIVE_STRIKES.length;
+        STRIKES[index] = new double[m];
+        VOLS[index] = new double[m];
+        ERRORS[index] = new double[m];
+        Arrays.fill(ERRORS[index], 0.0001);
+        for (int j = 0; j < m; j++) {
+          STRIKES[index][j] = FORWARDS[index] + RELATIVE_STRIKES[j];
+          VOLS[index][j] = SABR.getVolatility(new EuropeanVanillaOption(STRIKES[index][j], expiry, true), FORWARDS[index], PARAMETERS[index]);
+        }
+        index++;
+      }
+    }
+  }
+
+  private static final SABRModelCubeFitter FITTER = new SABRModelCubeFitter(EXPIRIES, MATURITIES, FORWARDS, STRIKES, VOLS, ERRORS, SABR);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongLength() {
+    new SABRModelCubeFitter(EXPIRIES, MATURITIES, new double[] {0.02}, STRIKES, VOLS, ERRORS, SABR);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDuplicateSmile() {
+    new SABRModelCubeFitter(new double[] {1, 1}, new double[] {5, 5}, new double[] {0.02, 0.02}, new double[][] {STRIKES[0], STRIKES[0]},
+        new double[][] {VOLS[0], VOLS[0]}, new double[][] {ERRORS[0], ERRORS[0]}, SABR);
+  }
+
+  @Test
+  public void testExactFit() {
+    final LeastSquareResultsWithTransform[] results = FITTER.solve(START, FIXED);
+    assertEquals(EXPIRIES.length, results.length);
+    for (int i = 0; i < results.length; i++) {
+      assertEquals(0.0, results[i].getChiSq(), 1e-4);
+      final DoubleMatrix1D parameters = results[i].getModelParameters();
+      assertEquals(PARAMETERS[i].getAlpha(), parameters.getEntry(0), 1e-5);
+      assertEquals(BETA, parameters.getEntry(1), 0.0);
+      assertEquals(PARAMETERS[i].getRho(), parameters.getEntry(2), 1e-4);
+      assertEquals(PARAMETERS[i].getNu(), parameters.getEntry(3), 1e-4);
+    }
+  }
+
+  @Test
+  public void testParallel() {
+    final LeastSquareResultsWithTransform[] expected = FITTER.solve(START, FIXED);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final LeastSquareResultsWithTransform[] results = FITTER.solve(START, FIXED, executor);
+      for (int i = 0; i < results.length; i++) {
+        for (int j = 0; j < 4; j++) {
+          assertEquals(expected[i].getModelParameters().getEntry(j), results[i].getModelParameters().getEntry(j), 0.0);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(enabled = false)
+  public void timeCube() {
+    final int nProcessors = Runtime.getRuntime().availableProcessors();
+    final ExecutorService executor = Executors.newFixedThreadPool(nProcessors);
+    try {
+      for (int i = 0; i < HOTSPOT_WARMUP_CYCLES; i++) {
+        FITTER.solve(START, FIXED, executor);
+      }
+      if (BENCHMARK_CYCLES > 0) {
+        OperationTimer timer = new OperationTimer(s_logger, "fitting {} cubes of " + EXPIRIES.length + " smiles, one point at a time", BENCHMARK_CYCLES);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          for (int j = 0; j < EXPIRIES.length; j++) {
+            new SABRModelFitter(FORWARDS[j], STRIKES[j], EXPIRIES[j], VOLS[j], ERRORS[j], SABR).solve(START, FIXED);
+          }
+        }
+        timer.finished();
+        timer = new OperationTimer(s_logger, "fitting {} cubes of " + EXPIRIES.length + " smiles, warm started on " + nProcessors + " threads", BENCHMARK_CYCLES);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          FITTER.solve(START, FIXED, executor);
+        }
+        timer.finished();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister;
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.analytics.math.statistics.descriptive.PercentileCalculator;
+
+/**
+ *
+ */
+public class EmpiricalQuantilesTest {
+  private static final RandomEngine RANDOM = new MersenneTwister64(MersenneTwister.DEFAULT_SEED);
+  private static final double[] PERCENTILES = new double[] {0.05, 0.001, 0.5, 0.01, 0.05, 0.999, 0.025, 0.3333};
+  private static final double EPS = 1e-15;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullData() {
+    EmpiricalQuantiles.percentile(null, 0.05);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testEmptyData() {
+    EmpiricalQuantiles.percentile(new double[0], 0.05);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testPercentile() {
+    EmpiricalQuantiles.percentiles(new double[] {1, 2}, new double[] {0.05, 1});
+  }
+
+  @Test
+  public void testAgainstPercentileCalculator() {
+    for (final int n : new int[] {1, 2, 3, 10, 101, 1000, 2500}) {
+      final double[] data = getData(n, false);
+      final double[] copy = Arrays.copyOf(data, n);
+      final double[] percentiles = EmpiricalQuantiles.percentiles(data, PERCENTILES);
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        final double expected = new PercentileCalculator(PERCENTILES[i]).evaluate(data);
+        assertEquals(expected, percentiles[i], EPS);
+        assertEquals(expected, EmpiricalQuantiles.percentile(data, PERCENTILES[i]), EPS);
+      }
+      for (int i = 0; i < n; i++) {
+        assertEquals(copy[i], data[i], 0);
+      }
+    }
+  }
+
+  @Test
+  public void testTies() {
+    final double[] data = getData(2500, true);
+    final double[] percentiles = EmpiricalQuantiles.percentiles(data, PERCENTILES);
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      assertEquals(new PercentileCalculator(PERCENTILES[i]).evaluate(data), percentiles[i], EPS);
+    }
+  }
+
+  @Test
+  public void testTailMeans() {
+    for (final boolean ties : new boolean[] {false, true}) {
+      final double[] data = getData(1000, ties);
+      final double[] tailMeans = EmpiricalQuantiles.tailMeansInPlace(Arrays.copyOf(data, data.length), PERCENTILES);
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        final double percentile = new PercentileCalculator(PERCENTILES[i]).evaluate(data);
+        double sum = 0;
+        int count = 0;
+        for (final double x : data) {
+          if (x < percentile) {
+            sum += x;
+            count++;
+          }
+        }
+        final double expected = count == 0 ? percentile : sum / count;
+        assertEquals(expected, tailMeans[i], 1e-12);
+        assertEquals(expected, EmpiricalQuantiles.tailMean(data, PERCENTILES[i]), 1e-12);
+      }
+    }
+  }
+
+  private static double[] getData(final int n, final boolean ties) {
+    final double[] data = new double[n];
+    for (int i = 0; i < n; i++) {
+      final double x = RANDOM.nextDouble() - 0.5;
+      data[i] = ties ? Math.round(20 * x) / 20. : x;
+    }
+    return data;
+  }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.var;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister;
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.analytics.financial.var.conditional.EmpiricalDistributionConditionalVaRCalculator;
+import com.opengamma.analytics.math.statistics.descriptive.MeanCalculator;
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.timeseries.DoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.longint.FastArrayLongDoubleTimeSeries;
+
+/**
+ *
+ */
+public class PortfolioScenarioVaRCalculatorTest {
+  private static final Logger s_logger = LoggerFactory.getLogger(PortfolioScenarioVaRCalculatorTest.class);
+  private static final int HOTSPOT_WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
+  private static final RandomEngine RANDOM = new MersenneTwister64(MersenneTwister.DEFAULT_SEED);
+  private static final EmpiricalDistributionVaRParameters[] PARAMETERS = new EmpiricalDistributionVaRParameters[] {
+    new EmpiricalDistributionVaRParameters(1, 1, 0.99), new EmpiricalDistributionVaRParameters(10, 250, 0.95), new EmpiricalDistributionVaRParameters(1, 1, 0.975)};
+  // root 0 with children 1 and 2, node 3 under 1, and a second root 4
+  private static final int[] PARENT_NODES = new int[] {-1, 0, 0, 1, -1};
+  private static final int[] POSITION_NODES = new int[] {3, 1, 2, 3, 0, 4, 2, 3};
+  private static final int N_SCENARIOS = 1300;
+  private static final double[] POSITION_PNL = getPnL(POSITION_NODES.length, N_SCENARIOS);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongLength() {
+    new PortfolioScenarioVaRCalculator().aggregate(new double[10], 3, POSITION_NODES, PARENT_NODES);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testCycle() {
+    new PortfolioScenarioVaRCalculator().aggregate(POSITION_PNL, N_SCENARIOS, POSITION_NODES, new int[] {-1, 3, 0, 1, -1});
+  }
+
+  @Test
+  public void testAggregate() {
+    final double[] nodePnL = new PortfolioScenarioVaRCalculator().aggregate(POSITION_PNL, N_SCENARIOS, POSITION_NODES, PARENT_NODES);
+    for (int node = 0; node < PARENT_NODES.length; node++) {
+      for (int j = 0; j < N_SCENARIOS; j++) {
+        double expected = 0;
+        for (int position = 0; position < POSITION_NODES.length; position++) {
+          if (isUnder(POSITION_NODES[position], node)) {
+            expected += POSITION_PNL[position * N_SCENARIOS + j];
+          }
+        }
+        assertEquals(expected, nodePnL[node * N_SCENARIOS + j], 1e-12);
+      }
+    }
+  }
+
+  @Test
+  public void testAgainstSeriesCalculators() {
+    final PortfolioScenarioVaRResult result = new PortfolioScenarioVaRCalculator().evaluate(POSITION_PNL, N_SCENARIOS, POSITION_NODES, PARENT_NODES, PARAMETERS);
+    final EmpiricalDistributionVaRCalculator varCalculator = new EmpiricalDistributionVaRCalculator();
+    final EmpiricalDistributionConditionalVaRCalculator conditionalCalculator = new EmpiricalDistributionConditionalVaRCalculator(new MeanCalculator());
+    final long[] times = new long[N_SCENARIOS];
+    for (int j = 0; j < N_SCENARIOS; j++) {
+      times[j] = j;
+    }
+    for (int node = 0; node < PARENT_NODES.length; node++) {
+      final DoubleTimeSeries<?> ts = new FastArrayLongDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, times, result.getNodePnL(node));
+      for (int i = 0; i < PARAMETERS.length; i++) {
+        assertEquals(varCalculator.evaluate(PARAMETERS[i], ts).getVaRValue(), result.getVaR(node, i), 1e-14);
+        if (PARAMETERS[i].getMult() == 1) {
+          // the conditional calculator compares the unscaled P&L with the scaled VaR
+          assertEquals(conditionalCalculator.evaluate(PARAMETERS[i], ts).getVaRValue(), result.getExpectedShortfall(node, i), 1e-12);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParallel() {
+    final PortfolioScenarioVaRResult expected = new PortfolioScenarioVaRCalculator().evaluate(POSITION_PNL, N_SCENARIOS, POSITION_NODES, PARENT_NODES, PARAMETERS);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final PortfolioScenarioVaRResult result = new PortfolioScenarioVaRCalculator(executor).evaluate(POSITION_PNL, N_SCENARIOS, POSITION_NODES, PARENT_NODES, PARAMETERS);
+      for (int node = 0; node < PARENT_NODES.length; node++) {
+        for (int i = 0; i < PARAMETERS.length; i++) {
+          assertEquals(expected.getVaR(node, i), result.getVaR(node, i), 0);
+          assertEquals(expected.getExpectedShortfall(node, i), result.getExpectedShortfall(node, i), 0);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * 10,000 positions in 1,000 nodes of a three-level tree, with 2,500 scenarios.
+   */
+  @Test(enabled = false)
+  public void timeLargePortfolio() {
+    final int nPositions = 10000;
+    final int nScenarios = 2500;
+    final int[] parentNodes = new int[1000];
+    parentNodes[0] = -1;
+    for (int node = 1; node < parentNodes.length; node++) {
+      parentNodes[node] = node < 32 ? 0 : 1 + node % 31;
+    }
+    final int[] positionNodes = new int[nPositions];
+    for (int position = 0; position < nPositions; position++) {
+      positionNodes[position] = 32 + position % (parentNodes.length - 32);
+    }
+    final double[] pnl = getPnL(nPositions, nScenarios);
+    final int nProcessors = Runtime.getRuntime().availableProcessors();
+    final ExecutorService executor = Executors.newFixedThreadPool(nProcessors);
+    try {
+      final PortfolioScenarioVaRCalculator sequential = new PortfolioScenarioVaRCalculator();
+      final PortfolioScenarioVaRCalculator parallel = new PortfolioScenarioVaRCalculator(executor);
+      for (int i = 0; i < HOTSPOT_WARMUP_CYCLES; i++) {
+        sequential.evaluate(pnl, nScenarios, positionNodes, parentNodes, PARAMETERS);
+        parallel.evaluate(pnl, nScenarios, positionNodes, parentNodes, PARAMETERS);
+      }
+      if (BENCHMARK_CYCLES > 0) {
+        OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles of VaR on the calling thread", BENCHMARK_CYCLES);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          sequential.evaluate(pnl, nScenarios, positionNodes, parentNodes, PARAMETERS);
+        }
+        timer.finished();
+        timer = new OperationTimer(s_logger, "processing {} cycles of VaR on " + nProcessors + " threads", BENCHMARK_CYCLES);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          parallel.evaluate(pnl, nScenarios, positionNodes, parentNodes, PARAMETERS);
+        }
+        timer.finished();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static boolean isUnder(final int positionNode, final int node) {
+    for (int n = positionNode; n >= 0; n = PARENT_NODES[n]) {
+      if (n == node) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static double[] getPnL(final int nPositions, final int nScenarios) {
+    final double[] pnl = new double[nPositions * nScenarios];
+    for (int i = 0; i < pnl.length; i++) {
+      pnl[i] = 1000 * (RANDOM.nextDouble() - 0.5);
+    }
+    return pnl;
+  }
+
+}
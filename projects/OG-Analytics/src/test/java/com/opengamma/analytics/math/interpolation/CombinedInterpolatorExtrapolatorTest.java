@@ -136,4 +136,14 @@ public class CombinedInterpolatorExtrapolatorTest {
     assertEquals(COMBINED3.interpolate(DATA, x - 100), F.evaluate(0.), 1e-15);
     assertEquals(COMBINED3.interpolate(DATA, x + 100), F.evaluate(x + 100), 1e-5);
   }
+
+  @Test
+  public void testInterpolateValues() {
+    final double[] values = new double[] {-100, 0, 3.6, 7.2, 9, 109};
+    final double[] result = COMBINED3.interpolateValues(DATA, values);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(COMBINED3.interpolate(DATA, values[i]), result[i], 1e-15);
+      assertEquals(COMBINED3.interpolate(DATA, values[i]), COMBINED3.interpolateValue(DATA, values[i]), 1e-15);
+    }
+  }
 }
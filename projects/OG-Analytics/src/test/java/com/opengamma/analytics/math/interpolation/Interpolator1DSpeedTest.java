@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.interpolation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
+
+/**
+ * Compares the lookup rate of the boxed, primitive and array interpolation methods.
+ * <p>
+ * Increase the cycle counts to obtain meaningful figures.
+ */
+public class Interpolator1DSpeedTest {
+  private static final Logger s_logger = LoggerFactory.getLogger(Interpolator1DSpeedTest.class);
+  private static final int HOTSPOT_WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
+  private static final int NODES = 40;
+  private static final int LOOKUPS = 10000;
+
+  private static final Interpolator1D LINEAR = new LinearInterpolator1D();
+  private static final Interpolator1D LOG_LINEAR = new LogLinearInterpolator1D();
+  private static final Interpolator1D NATURAL_CUBIC_SPLINE = new NaturalCubicSplineInterpolator1D();
+  private static final Interpolator1D COMBINED = new CombinedInterpolatorExtrapolator(LINEAR, new FlatExtrapolator1D());
+  private static final double[] X = new double[NODES];
+  private static final double[] Y = new double[NODES];
+  private static final double[] VALUES = new double[LOOKUPS];
+
+  static {
+    for (int i = 0; i < NODES; i++) {
+      X[i] = i * 0.75;
+      Y[i] = Math.exp(-0.03 * X[i]);
+    }
+    for (int i = 0; i < LOOKUPS; i++) {
+      VALUES[i] = X[NODES - 1] * i / LOOKUPS;
+    }
+  }
+
+  @Test
+  public void testLinear() {
+    doHotSpot(LINEAR, "linear");
+  }
+
+  @Test
+  public void testLogLinear() {
+    doHotSpot(LOG_LINEAR, "log-linear");
+  }
+
+  @Test
+  public void testNaturalCubicSpline() {
+    doHotSpot(NATURAL_CUBIC_SPLINE, "natural cubic spline");
+  }
+
+  @Test
+  public void testCombined() {
+    doHotSpot(COMBINED, "combined linear/flat");
+  }
+
+  private void doHotSpot(final Interpolator1D interpolator, final String name) {
+    final Interpolator1DDataBundle data = interpolator.getDataBundleFromSortedArrays(X, Y);
+    for (int i = 0; i < HOTSPOT_WARMUP_CYCLES; i++) {
+      doBoxed(interpolator, data);
+      doPrimitive(interpolator, data);
+      doArray(interpolator, data);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      long t = System.nanoTime();
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        doBoxed(interpolator, data);
+      }
+      report(name, "boxed", System.nanoTime() - t);
+      t = System.nanoTime();
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        doPrimitive(interpolator, data);
+      }
+      report(name, "primitive", System.nanoTime() - t);
+      t = System.nanoTime();
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        doArray(interpolator, data);
+      }
+      report(name, "array", System.nanoTime() - t);
+    }
+  }
+
+  private static void report(final String name, final String method, final long nanos) {
+    final double lookups = (double) BENCHMARK_CYCLES * LOOKUPS;
+    s_logger.info("{} {}: {} lookups per second", new Object[] {name, method, (long) (lookups * 1e9 / Math.max(nanos, 1)) });
+  }
+
+  private static double doBoxed(final Interpolator1D interpolator, final Interpolator1DDataBundle data) {
+    double sum = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      sum += interpolator.interpolate(data, VALUES[i]);
+    }
+    return sum;
+  }
+
+  private static double doPrimitive(final Interpolator1D interpolator, final Interpolator1DDataBundle data) {
+    double sum = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      sum += interpolator.interpolateValue(data, VALUES[i]);
+    }
+    return sum;
+  }
+
+  private static double doArray(final Interpolator1D interpolator, final Interpolator1DDataBundle data) {
+    double sum = 0;
+    final double[] result = interpolator.interpolateValues(data, VALUES);
+    for (int i = 0; i < LOOKUPS; i++) {
+      sum += result[i];
+    }
+    return sum;
+  }
+
+}
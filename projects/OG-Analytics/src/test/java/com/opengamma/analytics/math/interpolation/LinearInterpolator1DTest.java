@@ -69,4 +69,44 @@ public class LinearInterpolator1DTest {
     }
     assertEquals(INTERPOLATOR.interpolate(INTERPOLATOR.getDataBundle(data), 3.4), FUNCTION.evaluate(3.4), 1e-15);
   }
+
+  @Test
+  public void testInterpolateValues() {
+    final double[] values = new double[] {1, 1.5, 2, 2.25, 2.75, 3};
+    final double[] result = INTERPOLATOR.interpolateValues(MODEL, values);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(INTERPOLATOR.interpolate(MODEL, values[i]), result[i], 1e-15);
+      assertEquals(INTERPOLATOR.interpolate(MODEL, values[i]), INTERPOLATOR.interpolateValue(MODEL, values[i]), 1e-15);
+    }
+  }
+
+  @Test
+  public void testInterpolateValuesUnsorted() {
+    final double[] values = new double[] {2.75, 1, 3, 1.5};
+    final double[] result = INTERPOLATOR.interpolateValues(MODEL, values);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(INTERPOLATOR.interpolate(MODEL, values[i]), result[i], 1e-15);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInterpolateValuesHighValue() {
+    INTERPOLATOR.interpolateValues(MODEL, new double[] {2., 10.});
+  }
+
+  @Test
+  public void testSweepOverManyNodes() {
+    final double[] x = new double[100];
+    final double[] y = new double[100];
+    for (int i = 0; i < 100; i++) {
+      x[i] = i;
+      y[i] = FUNCTION.evaluate(x[i]);
+    }
+    final Interpolator1DDataBundle data = INTERPOLATOR.getDataBundleFromSortedArrays(x, y);
+    final double[] values = new double[] {0.5, 1, 30.5, 31, 98.5, 99};
+    final double[] result = INTERPOLATOR.interpolateValues(data, values);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(FUNCTION.evaluate(values[i]), result[i], 1e-12);
+    }
+  }
 }
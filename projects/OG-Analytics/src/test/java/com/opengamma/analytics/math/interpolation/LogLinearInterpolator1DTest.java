@@ -79,4 +79,14 @@ public class LogLinearInterpolator1DTest {
   public void test() {
     assertEquals(Math.log(INTERPOLATOR.interpolate(MODEL, 3.4)), LINEAR.interpolate(TRANSFORMED_MODEL, 3.4), EPS);
   }
+
+  @Test
+  public void testInterpolateValues() {
+    final double[] values = new double[] {1.5, 3.4, 3.9, 6.2};
+    final double[] result = INTERPOLATOR.interpolateValues(MODEL, values);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(INTERPOLATOR.interpolate(MODEL, values[i]), result[i], EPS);
+      assertEquals(INTERPOLATOR.interpolate(MODEL, values[i]), INTERPOLATOR.interpolateValue(MODEL, values[i]), EPS);
+    }
+  }
 }
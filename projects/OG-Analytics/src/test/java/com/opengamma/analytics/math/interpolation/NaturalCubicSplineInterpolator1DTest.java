@@ -79,4 +79,16 @@ public class NaturalCubicSplineInterpolator1DTest {
       assertEquals(CUBIC.evaluate(x), INTERPOLATOR.interpolate(MODEL, x), EPS);
     }
   }
+
+  @Test
+  public void testInterpolateValues() {
+    final double[] values = new double[100];
+    for (int i = 0; i < 100; i++) {
+      values[i] = i / 100.;
+    }
+    final double[] result = INTERPOLATOR.interpolateValues(MODEL, values);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(INTERPOLATOR.interpolate(MODEL, values[i]), result[i], 1e-15);
+    }
+  }
 }
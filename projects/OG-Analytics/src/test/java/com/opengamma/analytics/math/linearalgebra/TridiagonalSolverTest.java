@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.MathException;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.MatrixAlgebraFactory;
+
+/**
+ *
+ */
+public class TridiagonalSolverTest {
+  private static final double[] A = new double[] {10, 12, 13, 14, 15, 16, 17, 18, 19, 20};
+  private static final double[] B = new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9};
+  private static final double[] C = new double[] {2, 3, 4, 5, 6, 7, 8, 9, 10};
+  private static final double[] Y = new double[] {1, -2, 3, 0.5, 7, -1, 0, 2, 3, -4};
+  private static final TridiagonalMatrix M = new TridiagonalMatrix(A, B, C);
+  private static final double EPS = 1e-12;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullMatrix() {
+    TridiagonalSolver.solve(null, Y);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullVector() {
+    TridiagonalSolver.solve(M, null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongLength() {
+    TridiagonalSolver.solve(M, new double[] {1, 2, 3});
+  }
+
+  @Test(expectedExceptions = MathException.class)
+  public void testZeroPivot() {
+    TridiagonalSolver.solve(new TridiagonalMatrix(new double[] {0, 1}, new double[] {1}, new double[] {1}), new double[] {1, 1});
+  }
+
+  @Test
+  public void testSolve() {
+    final double[] x = TridiagonalSolver.solve(M, Y);
+    final DoubleMatrix1D y = (DoubleMatrix1D) MatrixAlgebraFactory.OG_ALGEBRA.multiply(M.toDoubleMatrix2D(), new DoubleMatrix1D(x));
+    for (int i = 0; i < Y.length; i++) {
+      assertEquals(Y[i], y.getEntry(i), EPS);
+    }
+  }
+
+  @Test
+  public void testAgainstLU() {
+    final double[] x = TridiagonalSolver.solve(M, Y);
+    final DoubleMatrix2D m = M.toDoubleMatrix2D();
+    final double[] expected = new LUDecompositionCommons().evaluate(m).solve(Y);
+    for (int i = 0; i < Y.length; i++) {
+      assertEquals(expected[i], x[i], EPS);
+    }
+  }
+
+  @Test
+  public void testInPlace() {
+    final double[] x = Y.clone();
+    final double[] work = new double[Y.length];
+    TridiagonalSolver.solveInPlace(A, B, C, x, work);
+    final double[] expected = TridiagonalSolver.solve(M, Y);
+    for (int i = 0; i < Y.length; i++) {
+      assertEquals(expected[i], x[i], 0.0);
+    }
+    // the matrix is not modified, so the work array can be reused
+    TridiagonalSolver.solveInPlace(A, B, C, x, work);
+    final double[] expected2 = TridiagonalSolver.solve(M, expected);
+    for (int i = 0; i < Y.length; i++) {
+      assertEquals(expected2[i], x[i], 0.0);
+    }
+  }
+
+}
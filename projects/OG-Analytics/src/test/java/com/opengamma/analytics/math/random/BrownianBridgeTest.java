@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class BrownianBridgeTest {
+  private static final double[] TIMES = new double[] {0.25, 0.5, 1.0, 2.0, 3.0, 5.0, 7.0, 10.0 };
+  private static final BrownianBridge BRIDGE = new BrownianBridge(TIMES);
+  private static final double EPS = 1e-12;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeTime() {
+    new BrownianBridge(new double[] {-1, 1 });
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDecreasingTimes() {
+    new BrownianBridge(new double[] {1, 2, 2 });
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadLength() {
+    BRIDGE.transform(new double[TIMES.length], new double[TIMES.length - 1]);
+  }
+
+  @Test
+  public void testOneStep() {
+    final double[] increments = new double[1];
+    new BrownianBridge(1).transform(new double[] {0.3 }, increments);
+    assertEquals(0.3, increments[0], EPS);
+  }
+
+  @Test
+  public void testTerminalValue() {
+    final double[] normals = new double[] {0.7, -1.2, 0.1, 0.4, 2.1, -0.3, -0.8, 1.5 };
+    final double[] increments = new double[TIMES.length];
+    BRIDGE.transform(normals, increments);
+    double terminal = increments[0] * Math.sqrt(TIMES[0]);
+    for (int i = 1; i < TIMES.length; i++) {
+      terminal += increments[i] * Math.sqrt(TIMES[i] - TIMES[i - 1]);
+    }
+    assertEquals(Math.sqrt(TIMES[TIMES.length - 1]) * normals[0], terminal, EPS);
+  }
+
+  @Test
+  public void testOrthogonal() {
+    // The standardized increments are an orthogonal transformation of the normal variables, so they are independent standard normal variables
+    final int n = TIMES.length;
+    final double[][] columns = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      final double[] unit = new double[n];
+      unit[i] = 1.0;
+      BRIDGE.transform(unit, columns[i]);
+    }
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        double product = 0;
+        for (int k = 0; k < n; k++) {
+          product += columns[i][k] * columns[j][k];
+        }
+        assertEquals(i == j ? 1.0 : 0.0, product, EPS);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class SobolPathGeneratorTest {
+  private static final int NB_STEP = 6;
+  private static final int NB_FACTOR = 2;
+  private static final int NB_PATH = 4095;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadRows() {
+    new SobolPathGenerator().fillNormals(0, NB_FACTOR, new double[NB_STEP * NB_FACTOR + 1][10]);
+  }
+
+  @Test
+  public void testBlocks() {
+    testBlocks(new SobolPathGenerator());
+    testBlocks(new SobolPathGenerator(false));
+    testBlocks(new PseudoRandomPathGenerator(123));
+  }
+
+  @Test
+  public void testMoments() {
+    testMoments(new SobolPathGenerator(), 1.0E-2);
+    testMoments(new SobolPathGenerator(false), 1.0E-2);
+    testMoments(new PseudoRandomPathGenerator(123), 1.0E-1);
+  }
+
+  private void testBlocks(final PathRandomNumberGenerator generator) {
+    // The same block gives the same variables, whatever was generated before
+    final double[][] block1 = new double[NB_STEP * NB_FACTOR][1000];
+    final double[][] block2 = new double[NB_STEP * NB_FACTOR][1000];
+    generator.fillNormals(2000, NB_FACTOR, block1);
+    generator.fillNormals(0, NB_FACTOR, block2);
+    generator.fillNormals(2000, NB_FACTOR, block2);
+    for (int i = 0; i < NB_STEP * NB_FACTOR; i++) {
+      for (int j = 0; j < 1000; j++) {
+        assertEquals(block1[i][j], block2[i][j], 0);
+      }
+    }
+  }
+
+  private void testMoments(final PathRandomNumberGenerator generator, final double tolerance) {
+    final int n = NB_STEP * NB_FACTOR;
+    final double[][] normals = new double[n][NB_PATH];
+    generator.fillNormals(0, NB_FACTOR, normals);
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j <= i; j++) {
+        double mean = 0;
+        double product = 0;
+        for (int k = 0; k < NB_PATH; k++) {
+          mean += normals[i][k];
+          product += normals[i][k] * normals[j][k];
+        }
+        assertEquals(0.0, mean / NB_PATH, tolerance);
+        assertEquals(i == j ? 1.0 : 0.0, product / NB_PATH, tolerance);
+      }
+    }
+  }
+
+}
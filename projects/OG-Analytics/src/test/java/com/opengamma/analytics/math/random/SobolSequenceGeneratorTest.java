@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class SobolSequenceGeneratorTest {
+  private static final int DIMENSION = 40;
+  private static final SobolSequenceGenerator GENERATOR = new SobolSequenceGenerator(DIMENSION);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadDimension() {
+    new SobolSequenceGenerator(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadIndex() {
+    GENERATOR.getPoint(-1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadResult() {
+    GENERATOR.fillPoints(0, new double[DIMENSION - 1][10]);
+  }
+
+  @Test
+  public void testFirstPoints() {
+    final double[][] expected = new double[][] { {0.5, 0.5, 0.5 }, {0.75, 0.25, 0.25 }, {0.25, 0.75, 0.75 }, {0.375, 0.375, 0.625 }, {0.875, 0.875, 0.125 },
+      {0.625, 0.125, 0.875 } };
+    for (int i = 0; i < expected.length; i++) {
+      final double[] point = GENERATOR.getPoint(i);
+      assertEquals(DIMENSION, point.length);
+      for (int d = 0; d < expected[i].length; d++) {
+        assertEquals(expected[i][d], point[d], 0);
+      }
+    }
+  }
+
+  @Test
+  public void testSkipAhead() {
+    final double[][] all = new double[DIMENSION][1500];
+    GENERATOR.fillPoints(0, all);
+    final double[][] block = new double[DIMENSION][700];
+    GENERATOR.fillPoints(777, block);
+    for (int d = 0; d < DIMENSION; d++) {
+      for (int i = 0; i < 700; i++) {
+        assertEquals(all[d][777 + i], block[d][i], 0);
+      }
+    }
+  }
+
+  @Test
+  public void testStratification() {
+    // The first 2^k - 1 points take each of the values j / 2^k, j = 1, ..., 2^k - 1 once in every dimension
+    final int n = 1024;
+    final double[][] points = new double[DIMENSION][n - 1];
+    GENERATOR.fillPoints(0, points);
+    for (int d = 0; d < DIMENSION; d++) {
+      final boolean[] seen = new boolean[n];
+      for (int i = 0; i < n - 1; i++) {
+        assertTrue(points[d][i] > 0 && points[d][i] < 1);
+        final int j = (int) (points[d][i] * n);
+        assertEquals(j, points[d][i] * n, 0);
+        assertTrue(!seen[j]);
+        seen[j] = true;
+      }
+    }
+  }
+
+}
@@ -9,19 +9,32 @@ import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.internal.junit.ArrayAsserts.assertArrayEquals;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
 
+import com.opengamma.analytics.math.interpolation.CombinedInterpolatorExtrapolatorFactory;
 import com.opengamma.analytics.math.interpolation.GridInterpolator2D;
+import com.opengamma.analytics.math.interpolation.Interpolator1D;
 import com.opengamma.analytics.math.interpolation.Interpolator1DFactory;
 import com.opengamma.analytics.math.interpolation.Interpolator2D;
 import com.opengamma.analytics.math.interpolation.LinearInterpolator1D;
 import com.opengamma.analytics.math.interpolation.StepInterpolator1D;
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.tuple.DoublesPair;
 import com.opengamma.util.tuple.Pair;
 
 /**
  * 
  */
 public class InterpolatedDoublesSurfaceTest extends DoublesSurfaceTestCase {
+  private static final Logger s_logger = LoggerFactory.getLogger(InterpolatedDoublesSurfaceTest.class);
+  private static final int HOTSPOT_WARMUP_CYCLES = 0;
+  private static final int BENCHMARK_CYCLES = 1;
   private static final LinearInterpolator1D INTERPOLATOR_1D = Interpolator1DFactory.LINEAR_INSTANCE;
   private static final Interpolator2D INTERPOLATOR = new GridInterpolator2D(INTERPOLATOR_1D, INTERPOLATOR_1D);
   private static final InterpolatedDoublesSurface SURFACE = new InterpolatedDoublesSurface(XYZ_LIST, INTERPOLATOR);
@@ -223,4 +236,104 @@ public class InterpolatedDoublesSurfaceTest extends DoublesSurfaceTestCase {
   public void testNullY2() {
     SURFACE.getZValue(Pair.of(1., (Double) null));
   }
+
+  @Test
+  public void testSplineSurface() {
+    final InterpolatedDoublesSurface surface = getSplineSurface();
+    final GridInterpolator2D interpolator = (GridInterpolator2D) surface.getInterpolator();
+    final Map<Double, Interpolator1DDataBundle> data = getSliceData(surface);
+    final double[] x = new double[] {0.05, 0.5, 1.3, 2.0, 4.5, 9.9, 12};
+    final double[] y = new double[] {0.4, 0.55, 0.8, 1.0, 1.07, 1.6, 2.5};
+    final double[][] z = surface.getZValues(x, y);
+    for (int i = 0; i < x.length; i++) {
+      for (int j = 0; j < y.length; j++) {
+        final double expected = interpolator.interpolate(data, DoublesPair.of(x[i], y[j]));
+        assertEquals(expected, surface.getZValue(x[i], y[j]), 1e-14);
+        assertEquals(expected, surface.getZValue(Double.valueOf(x[i]), Double.valueOf(y[j])), 1e-14);
+        assertEquals(expected, z[i][j], 1e-14);
+      }
+    }
+  }
+
+  /**
+   * Compares point lookups on the slice maps, point lookups on the pre-built slices and a grid lookup.
+   */
+  @Test(enabled = false)
+  public void timeSplineSurface() {
+    final InterpolatedDoublesSurface surface = getSplineSurface();
+    final GridInterpolator2D interpolator = (GridInterpolator2D) surface.getInterpolator();
+    final Map<Double, Interpolator1DDataBundle> data = getSliceData(surface);
+    final int nX = 100;
+    final int nY = 200;
+    final double[] x = new double[nX];
+    final double[] y = new double[nY];
+    for (int i = 0; i < nX; i++) {
+      x[i] = 0.1 * (i + 1);
+    }
+    for (int j = 0; j < nY; j++) {
+      y[j] = 0.5 + 0.005 * j;
+    }
+    for (int i = 0; i < HOTSPOT_WARMUP_CYCLES; i++) {
+      lookUpOnMaps(data, interpolator, x, y);
+      lookUpPoints(surface, x, y);
+      surface.getZValues(x, y);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles of " + nX * nY + " lookups on the slice maps", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        lookUpOnMaps(data, interpolator, x, y);
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "processing {} cycles of " + nX * nY + " lookups on the pre-built slices", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        lookUpPoints(surface, x, y);
+      }
+      timer.finished();
+      timer = new OperationTimer(s_logger, "processing {} cycles of a " + nX + " by " + nY + " grid lookup", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        surface.getZValues(x, y);
+      }
+      timer.finished();
+    }
+  }
+
+  private static void lookUpOnMaps(final Map<Double, Interpolator1DDataBundle> data, final GridInterpolator2D interpolator, final double[] x, final double[] y) {
+    for (final double element : x) {
+      for (final double element2 : y) {
+        interpolator.interpolate(data, DoublesPair.of(element, element2));
+      }
+    }
+  }
+
+  private static void lookUpPoints(final InterpolatedDoublesSurface surface, final double[] x, final double[] y) {
+    for (final double element : x) {
+      for (final double element2 : y) {
+        surface.getZValue(element, element2);
+      }
+    }
+  }
+
+  private static Map<Double, Interpolator1DDataBundle> getSliceData(final InterpolatedDoublesSurface surface) {
+    final Map<DoublesPair, Double> points = new HashMap<DoublesPair, Double>();
+    for (int i = 0; i < surface.size(); i++) {
+      points.put(DoublesPair.of(surface.getXDataAsPrimitive()[i], surface.getYDataAsPrimitive()[i]), surface.getZDataAsPrimitive()[i]);
+    }
+    return ((GridInterpolator2D) surface.getInterpolator()).getDataBundle(points);
+  }
+
+  private static InterpolatedDoublesSurface getSplineSurface() {
+    final Interpolator1D interpolator = CombinedInterpolatorExtrapolatorFactory.getInterpolator(Interpolator1DFactory.NATURAL_CUBIC_SPLINE,
+        Interpolator1DFactory.FLAT_EXTRAPOLATOR, Interpolator1DFactory.LINEAR_EXTRAPOLATOR);
+    final double[] expiries = new double[] {0.1, 0.25, 0.5, 1, 2, 3, 5, 7, 10};
+    final double[] strikes = new double[] {0.5, 0.7, 0.8, 0.9, 1.0, 1.1, 1.2, 1.4, 1.7};
+    final double[] vols = new double[expiries.length * strikes.length];
+    for (int i = 0; i < expiries.length; i++) {
+      for (int j = 0; j < strikes.length; j++) {
+        final double m = Math.log(strikes[j]);
+        vols[i + j * expiries.length] = 0.2 + 0.05 * Math.exp(-expiries[i]) + (0.3 * m * m - 0.1 * m) / Math.sqrt(expiries[i]);
+      }
+    }
+    return InterpolatedDoublesSurface.fromGrid(expiries, strikes, vols, new GridInterpolator2D(interpolator, interpolator));
+  }
+
 }
@@ -5,6 +5,7 @@
  */
 package com.opengamma.bbg;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -102,6 +103,12 @@ public class BloombergHistoricalTimeSeriesSource implements HistoricalTimeSeries
     throw new UnsupportedOperationException("Unable to retrieve historical time-series from Bloomberg using unique identifier");
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    throw new UnsupportedOperationException("Unable to retrieve historical time-series from Bloomberg using unique identifier");
+  }
+
   @Override
   public Pair<LocalDate, Double> getLatestDataPoint(UniqueId uniqueId) {
     throw new UnsupportedOperationException("Unable to retrieve historical time-series from Bloomberg using unique identifier");
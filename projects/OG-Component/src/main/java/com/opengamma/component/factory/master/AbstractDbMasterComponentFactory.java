@@ -20,9 +20,12 @@ import org.slf4j.LoggerFactory;
 
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.component.factory.AbstractComponentFactory;
+import com.opengamma.core.change.BatchingJmsChangeManager;
+import com.opengamma.core.change.JmsChangeManager;
 import com.opengamma.masterdb.AbstractDbMaster;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.db.tool.DbSchemaVersionUtils;
+import com.opengamma.util.jms.JmsConnector;
 
 /**
  * Base component factory for all {@link AbstractDbMaster} implementations.
@@ -39,6 +42,16 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
    */
   @PropertyDefinition
   private boolean _enforceSchemaVersion = true;
+  /**
+   * The time the JMS change manager holds events for before sending them as a batch, in milliseconds.
+   */
+  @PropertyDefinition
+  private long _jmsChangeManagerBatchWindowMillis = BatchingJmsChangeManager.DEFAULT_BATCH_WINDOW_MILLIS;
+  /**
+   * The maximum number of events the JMS change manager sends in a batch.
+   */
+  @PropertyDefinition
+  private int _jmsChangeManagerMaxBatchSize = BatchingJmsChangeManager.DEFAULT_MAX_BATCH_SIZE;
   
   //-------------------------------------------------------------------------
   protected void checkSchemaVersion(int actualSchemaVersion, String schemaName) {
@@ -61,7 +74,20 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
       s_logger.warn(message);
     }
   }
-  
+
+  /**
+   * Creates the change manager sending events from the master by JMS.
+   * <p>
+   * Events are sent in batches, held for the configured window.
+   *
+   * @param jmsConnector  the JMS connector, not null
+   * @param topicName  the topic name, not null
+   * @return the change manager, not null
+   */
+  protected JmsChangeManager createJmsChangeManager(JmsConnector jmsConnector, String topicName) {
+    return new BatchingJmsChangeManager(jmsConnector, topicName, getJmsChangeManagerBatchWindowMillis(), getJmsChangeManagerMaxBatchSize());
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   ///CLOVER:OFF
   /**
@@ -85,6 +111,10 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
     switch (propertyName.hashCode()) {
       case 2128193333:  // enforceSchemaVersion
         return isEnforceSchemaVersion();
+      case -1986828797:  // jmsChangeManagerBatchWindowMillis
+        return getJmsChangeManagerBatchWindowMillis();
+      case -1205555676:  // jmsChangeManagerMaxBatchSize
+        return getJmsChangeManagerMaxBatchSize();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -95,6 +125,12 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
       case 2128193333:  // enforceSchemaVersion
         setEnforceSchemaVersion((Boolean) newValue);
         return;
+      case -1986828797:  // jmsChangeManagerBatchWindowMillis
+        setJmsChangeManagerBatchWindowMillis((Long) newValue);
+        return;
+      case -1205555676:  // jmsChangeManagerMaxBatchSize
+        setJmsChangeManagerMaxBatchSize((Integer) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -107,6 +143,8 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
     if (obj != null && obj.getClass() == this.getClass()) {
       AbstractDbMasterComponentFactory other = (AbstractDbMasterComponentFactory) obj;
       return JodaBeanUtils.equal(isEnforceSchemaVersion(), other.isEnforceSchemaVersion()) &&
+          JodaBeanUtils.equal(getJmsChangeManagerBatchWindowMillis(), other.getJmsChangeManagerBatchWindowMillis()) &&
+          JodaBeanUtils.equal(getJmsChangeManagerMaxBatchSize(), other.getJmsChangeManagerMaxBatchSize()) &&
           super.equals(obj);
     }
     return false;
@@ -116,6 +154,8 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
   public int hashCode() {
     int hash = 7;
     hash += hash * 31 + JodaBeanUtils.hashCode(isEnforceSchemaVersion());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getJmsChangeManagerBatchWindowMillis());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getJmsChangeManagerMaxBatchSize());
     return hash ^ super.hashCode();
   }
 
@@ -144,6 +184,56 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
     return metaBean().enforceSchemaVersion().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the time the JMS change manager holds events for before sending them as a batch, in milliseconds.
+   * @return the value of the property
+   */
+  public long getJmsChangeManagerBatchWindowMillis() {
+    return _jmsChangeManagerBatchWindowMillis;
+  }
+
+  /**
+   * Sets the time the JMS change manager holds events for before sending them as a batch, in milliseconds.
+   * @param jmsChangeManagerBatchWindowMillis  the new value of the property
+   */
+  public void setJmsChangeManagerBatchWindowMillis(long jmsChangeManagerBatchWindowMillis) {
+    this._jmsChangeManagerBatchWindowMillis = jmsChangeManagerBatchWindowMillis;
+  }
+
+  /**
+   * Gets the the {@code jmsChangeManagerBatchWindowMillis} property.
+   * @return the property, not null
+   */
+  public final Property<Long> jmsChangeManagerBatchWindowMillis() {
+    return metaBean().jmsChangeManagerBatchWindowMillis().createProperty(this);
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the maximum number of events the JMS change manager sends in a batch.
+   * @return the value of the property
+   */
+  public int getJmsChangeManagerMaxBatchSize() {
+    return _jmsChangeManagerMaxBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of events the JMS change manager sends in a batch.
+   * @param jmsChangeManagerMaxBatchSize  the new value of the property
+   */
+  public void setJmsChangeManagerMaxBatchSize(int jmsChangeManagerMaxBatchSize) {
+    this._jmsChangeManagerMaxBatchSize = jmsChangeManagerMaxBatchSize;
+  }
+
+  /**
+   * Gets the the {@code jmsChangeManagerMaxBatchSize} property.
+   * @return the property, not null
+   */
+  public final Property<Integer> jmsChangeManagerMaxBatchSize() {
+    return metaBean().jmsChangeManagerMaxBatchSize().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code AbstractDbMasterComponentFactory}.
@@ -159,12 +249,24 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
      */
     private final MetaProperty<Boolean> _enforceSchemaVersion = DirectMetaProperty.ofReadWrite(
         this, "enforceSchemaVersion", AbstractDbMasterComponentFactory.class, Boolean.TYPE);
+    /**
+     * The meta-property for the {@code jmsChangeManagerBatchWindowMillis} property.
+     */
+    private final MetaProperty<Long> _jmsChangeManagerBatchWindowMillis = DirectMetaProperty.ofReadWrite(
+        this, "jmsChangeManagerBatchWindowMillis", AbstractDbMasterComponentFactory.class, Long.TYPE);
+    /**
+     * The meta-property for the {@code jmsChangeManagerMaxBatchSize} property.
+     */
+    private final MetaProperty<Integer> _jmsChangeManagerMaxBatchSize = DirectMetaProperty.ofReadWrite(
+        this, "jmsChangeManagerMaxBatchSize", AbstractDbMasterComponentFactory.class, Integer.TYPE);
     /**
      * The meta-properties.
      */
     private final Map<String, MetaProperty<?>> _metaPropertyMap$ = new DirectMetaPropertyMap(
       this, (DirectMetaPropertyMap) super.metaPropertyMap(),
-        "enforceSchemaVersion");
+        "enforceSchemaVersion",
+        "jmsChangeManagerBatchWindowMillis",
+        "jmsChangeManagerMaxBatchSize");
 
     /**
      * Restricted constructor.
@@ -177,6 +279,10 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
       switch (propertyName.hashCode()) {
         case 2128193333:  // enforceSchemaVersion
           return _enforceSchemaVersion;
+        case -1986828797:  // jmsChangeManagerBatchWindowMillis
+          return _jmsChangeManagerBatchWindowMillis;
+        case -1205555676:  // jmsChangeManagerMaxBatchSize
+          return _jmsChangeManagerMaxBatchSize;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -205,6 +311,22 @@ public abstract class AbstractDbMasterComponentFactory extends AbstractComponent
       return _enforceSchemaVersion;
     }
 
+    /**
+     * The meta-property for the {@code jmsChangeManagerBatchWindowMillis} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Long> jmsChangeManagerBatchWindowMillis() {
+      return _jmsChangeManagerBatchWindowMillis;
+    }
+
+    /**
+     * The meta-property for the {@code jmsChangeManagerMaxBatchSize} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Integer> jmsChangeManagerMaxBatchSize() {
+      return _jmsChangeManagerMaxBatchSize;
+    }
+
   }
 
   ///CLOVER:ON
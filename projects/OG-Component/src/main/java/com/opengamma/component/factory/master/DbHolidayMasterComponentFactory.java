@@ -85,7 +85,7 @@ public class DbHolidayMasterComponentFactory extends AbstractDbMasterComponentFa
       master.setMaxRetries(getMaxRetries());
     }
     if (getJmsChangeManagerTopic() != null) {
-      JmsChangeManager cm = new JmsChangeManager(getJmsConnector(), getJmsChangeManagerTopic());
+      JmsChangeManager cm = createJmsChangeManager(getJmsConnector(), getJmsChangeManagerTopic());
       master.setChangeManager(cm);
       repo.registerLifecycle(cm);
       if (getJmsConnector().getClientBrokerUri() != null) {
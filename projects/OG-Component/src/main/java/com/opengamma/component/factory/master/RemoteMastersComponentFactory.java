@@ -27,6 +27,7 @@ import com.opengamma.component.ComponentServer;
 import com.opengamma.component.factory.AbstractComponentFactory;
 import com.opengamma.component.factory.ComponentInfoAttributes;
 import com.opengamma.component.rest.RemoteComponentServer;
+import com.opengamma.core.change.BatchingJmsChangeManager;
 import com.opengamma.core.change.ChangeManager;
 import com.opengamma.core.change.JmsChangeManager;
 import com.opengamma.util.ReflectionUtils;
@@ -53,6 +54,16 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
    */
   @PropertyDefinition
   private JmsConnector _jmsConnector;
+  /**
+   * The time the JMS change managers hold events for before sending them as a batch, in milliseconds.
+   */
+  @PropertyDefinition
+  private long _jmsChangeManagerBatchWindowMillis = BatchingJmsChangeManager.DEFAULT_BATCH_WINDOW_MILLIS;
+  /**
+   * The maximum number of events the JMS change managers send in a batch.
+   */
+  @PropertyDefinition
+  private int _jmsChangeManagerMaxBatchSize = BatchingJmsChangeManager.DEFAULT_MAX_BATCH_SIZE;
 
   //-------------------------------------------------------------------------
   @Override
@@ -83,7 +94,7 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
       if (_jmsConnector != null && jmsTopic != null && ObjectUtils.equals(jmsBrokerUri, _jmsConnector.getClientBrokerUri().toString())) {
         // only sets up JMS if supplied connector matches that needed
         // this approach could be enhanced...
-        JmsChangeManager changeManager = new JmsChangeManager(_jmsConnector, jmsTopic);
+        JmsChangeManager changeManager = new BatchingJmsChangeManager(_jmsConnector, jmsTopic, _jmsChangeManagerBatchWindowMillis, _jmsChangeManagerMaxBatchSize);
         repo.registerLifecycle(changeManager);
         Constructor<?> con = ReflectionUtils.findConstructor(remoteType, URI.class, ChangeManager.class);
         target = ReflectionUtils.newInstance(con, componentUri, changeManager);
@@ -126,6 +137,10 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
         return isPublishRest();
       case -1495762275:  // jmsConnector
         return getJmsConnector();
+      case -1986828797:  // jmsChangeManagerBatchWindowMillis
+        return getJmsChangeManagerBatchWindowMillis();
+      case -1205555676:  // jmsChangeManagerMaxBatchSize
+        return getJmsChangeManagerMaxBatchSize();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -142,6 +157,12 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
       case -1495762275:  // jmsConnector
         setJmsConnector((JmsConnector) newValue);
         return;
+      case -1986828797:  // jmsChangeManagerBatchWindowMillis
+        setJmsChangeManagerBatchWindowMillis((Long) newValue);
+        return;
+      case -1205555676:  // jmsChangeManagerMaxBatchSize
+        setJmsChangeManagerMaxBatchSize((Integer) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -162,6 +183,8 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
       return JodaBeanUtils.equal(getBaseUri(), other.getBaseUri()) &&
           JodaBeanUtils.equal(isPublishRest(), other.isPublishRest()) &&
           JodaBeanUtils.equal(getJmsConnector(), other.getJmsConnector()) &&
+          JodaBeanUtils.equal(getJmsChangeManagerBatchWindowMillis(), other.getJmsChangeManagerBatchWindowMillis()) &&
+          JodaBeanUtils.equal(getJmsChangeManagerMaxBatchSize(), other.getJmsChangeManagerMaxBatchSize()) &&
           super.equals(obj);
     }
     return false;
@@ -173,6 +196,8 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
     hash += hash * 31 + JodaBeanUtils.hashCode(getBaseUri());
     hash += hash * 31 + JodaBeanUtils.hashCode(isPublishRest());
     hash += hash * 31 + JodaBeanUtils.hashCode(getJmsConnector());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getJmsChangeManagerBatchWindowMillis());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getJmsChangeManagerMaxBatchSize());
     return hash ^ super.hashCode();
   }
 
@@ -252,6 +277,56 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
     return metaBean().jmsConnector().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the time the JMS change managers hold events for before sending them as a batch, in milliseconds.
+   * @return the value of the property
+   */
+  public long getJmsChangeManagerBatchWindowMillis() {
+    return _jmsChangeManagerBatchWindowMillis;
+  }
+
+  /**
+   * Sets the time the JMS change managers hold events for before sending them as a batch, in milliseconds.
+   * @param jmsChangeManagerBatchWindowMillis  the new value of the property
+   */
+  public void setJmsChangeManagerBatchWindowMillis(long jmsChangeManagerBatchWindowMillis) {
+    this._jmsChangeManagerBatchWindowMillis = jmsChangeManagerBatchWindowMillis;
+  }
+
+  /**
+   * Gets the the {@code jmsChangeManagerBatchWindowMillis} property.
+   * @return the property, not null
+   */
+  public final Property<Long> jmsChangeManagerBatchWindowMillis() {
+    return metaBean().jmsChangeManagerBatchWindowMillis().createProperty(this);
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the maximum number of events the JMS change managers send in a batch.
+   * @return the value of the property
+   */
+  public int getJmsChangeManagerMaxBatchSize() {
+    return _jmsChangeManagerMaxBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of events the JMS change managers send in a batch.
+   * @param jmsChangeManagerMaxBatchSize  the new value of the property
+   */
+  public void setJmsChangeManagerMaxBatchSize(int jmsChangeManagerMaxBatchSize) {
+    this._jmsChangeManagerMaxBatchSize = jmsChangeManagerMaxBatchSize;
+  }
+
+  /**
+   * Gets the the {@code jmsChangeManagerMaxBatchSize} property.
+   * @return the property, not null
+   */
+  public final Property<Integer> jmsChangeManagerMaxBatchSize() {
+    return metaBean().jmsChangeManagerMaxBatchSize().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code RemoteMastersComponentFactory}.
@@ -277,6 +352,16 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
      */
     private final MetaProperty<JmsConnector> _jmsConnector = DirectMetaProperty.ofReadWrite(
         this, "jmsConnector", RemoteMastersComponentFactory.class, JmsConnector.class);
+    /**
+     * The meta-property for the {@code jmsChangeManagerBatchWindowMillis} property.
+     */
+    private final MetaProperty<Long> _jmsChangeManagerBatchWindowMillis = DirectMetaProperty.ofReadWrite(
+        this, "jmsChangeManagerBatchWindowMillis", RemoteMastersComponentFactory.class, Long.TYPE);
+    /**
+     * The meta-property for the {@code jmsChangeManagerMaxBatchSize} property.
+     */
+    private final MetaProperty<Integer> _jmsChangeManagerMaxBatchSize = DirectMetaProperty.ofReadWrite(
+        this, "jmsChangeManagerMaxBatchSize", RemoteMastersComponentFactory.class, Integer.TYPE);
     /**
      * The meta-properties.
      */
@@ -284,7 +369,9 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
       this, (DirectMetaPropertyMap) super.metaPropertyMap(),
         "baseUri",
         "publishRest",
-        "jmsConnector");
+        "jmsConnector",
+        "jmsChangeManagerBatchWindowMillis",
+        "jmsChangeManagerMaxBatchSize");
 
     /**
      * Restricted constructor.
@@ -301,6 +388,10 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
           return _publishRest;
         case -1495762275:  // jmsConnector
           return _jmsConnector;
+        case -1986828797:  // jmsChangeManagerBatchWindowMillis
+          return _jmsChangeManagerBatchWindowMillis;
+        case -1205555676:  // jmsChangeManagerMaxBatchSize
+          return _jmsChangeManagerMaxBatchSize;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -345,6 +436,22 @@ public class RemoteMastersComponentFactory extends AbstractComponentFactory {
       return _jmsConnector;
     }
 
+    /**
+     * The meta-property for the {@code jmsChangeManagerBatchWindowMillis} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Long> jmsChangeManagerBatchWindowMillis() {
+      return _jmsChangeManagerBatchWindowMillis;
+    }
+
+    /**
+     * The meta-property for the {@code jmsChangeManagerMaxBatchSize} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Integer> jmsChangeManagerMaxBatchSize() {
+      return _jmsChangeManagerMaxBatchSize;
+    }
+
   }
 
   ///CLOVER:ON
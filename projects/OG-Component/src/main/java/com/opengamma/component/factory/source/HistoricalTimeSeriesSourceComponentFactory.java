@@ -28,6 +28,7 @@ import com.opengamma.core.config.ConfigSource;
 import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
 import com.opengamma.core.historicaltimeseries.impl.DataHistoricalTimeSeriesSourceResource;
 import com.opengamma.core.historicaltimeseries.impl.EHCachingHistoricalTimeSeriesSource;
+import com.opengamma.core.historicaltimeseries.impl.OffHeapCachingHistoricalTimeSeriesSource;
 import com.opengamma.core.historicaltimeseries.impl.RemoteHistoricalTimeSeriesSource;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesResolver;
@@ -71,6 +72,11 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
    */
   @PropertyDefinition(validate = "notNull")
   private ConfigSource _configSource;
+  /**
+   * The maximum off-heap memory in bytes for caching time-series data points, zero or less for no off-heap cache.
+   */
+  @PropertyDefinition
+  private long _offHeapCacheSize;
 
   //-------------------------------------------------------------------------
   @Override
@@ -84,6 +90,11 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
     if (getCacheManager() != null) {
       source = new EHCachingHistoricalTimeSeriesSource(source, getCacheManager());
     }
+    if (getOffHeapCacheSize() > 0) {
+      final OffHeapCachingHistoricalTimeSeriesSource offHeapSource = new OffHeapCachingHistoricalTimeSeriesSource(source, getOffHeapCacheSize());
+      repo.registerMBean(offHeapSource);
+      source = offHeapSource;
+    }
     
     final ComponentInfo infoSource = new ComponentInfo(HistoricalTimeSeriesSource.class, getClassifier());
     infoSource.addAttribute(ComponentInfoAttributes.LEVEL, 1);
@@ -141,6 +152,8 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
         return getHistoricalTimeSeriesMaster();
       case 195157501:  // configSource
         return getConfigSource();
+      case 1496693992:  // offHeapCacheSize
+        return getOffHeapCacheSize();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -163,6 +176,9 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
       case 195157501:  // configSource
         setConfigSource((ConfigSource) newValue);
         return;
+      case 1496693992:  // offHeapCacheSize
+        setOffHeapCacheSize((Long) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -187,6 +203,7 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
           JodaBeanUtils.equal(getCacheManager(), other.getCacheManager()) &&
           JodaBeanUtils.equal(getHistoricalTimeSeriesMaster(), other.getHistoricalTimeSeriesMaster()) &&
           JodaBeanUtils.equal(getConfigSource(), other.getConfigSource()) &&
+          JodaBeanUtils.equal(getOffHeapCacheSize(), other.getOffHeapCacheSize()) &&
           super.equals(obj);
     }
     return false;
@@ -200,6 +217,7 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
     hash += hash * 31 + JodaBeanUtils.hashCode(getCacheManager());
     hash += hash * 31 + JodaBeanUtils.hashCode(getHistoricalTimeSeriesMaster());
     hash += hash * 31 + JodaBeanUtils.hashCode(getConfigSource());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getOffHeapCacheSize());
     return hash ^ super.hashCode();
   }
 
@@ -331,6 +349,31 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
     return metaBean().configSource().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the maximum off-heap memory in bytes for caching time-series data points, zero or less for no off-heap cache.
+   * @return the value of the property
+   */
+  public long getOffHeapCacheSize() {
+    return _offHeapCacheSize;
+  }
+
+  /**
+   * Sets the maximum off-heap memory in bytes for caching time-series data points, zero or less for no off-heap cache.
+   * @param offHeapCacheSize  the new value of the property
+   */
+  public void setOffHeapCacheSize(long offHeapCacheSize) {
+    this._offHeapCacheSize = offHeapCacheSize;
+  }
+
+  /**
+   * Gets the the {@code offHeapCacheSize} property.
+   * @return the property, not null
+   */
+  public final Property<Long> offHeapCacheSize() {
+    return metaBean().offHeapCacheSize().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code HistoricalTimeSeriesSourceComponentFactory}.
@@ -366,6 +409,11 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
      */
     private final MetaProperty<ConfigSource> _configSource = DirectMetaProperty.ofReadWrite(
         this, "configSource", HistoricalTimeSeriesSourceComponentFactory.class, ConfigSource.class);
+    /**
+     * The meta-property for the {@code offHeapCacheSize} property.
+     */
+    private final MetaProperty<Long> _offHeapCacheSize = DirectMetaProperty.ofReadWrite(
+        this, "offHeapCacheSize", HistoricalTimeSeriesSourceComponentFactory.class, Long.TYPE);
     /**
      * The meta-properties.
      */
@@ -375,7 +423,8 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
         "publishRest",
         "cacheManager",
         "historicalTimeSeriesMaster",
-        "configSource");
+        "configSource",
+        "offHeapCacheSize");
 
     /**
      * Restricted constructor.
@@ -396,6 +445,8 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
           return _historicalTimeSeriesMaster;
         case 195157501:  // configSource
           return _configSource;
+        case 1496693992:  // offHeapCacheSize
+          return _offHeapCacheSize;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -456,6 +507,14 @@ public class HistoricalTimeSeriesSourceComponentFactory extends AbstractComponen
       return _configSource;
     }
 
+    /**
+     * The meta-property for the {@code offHeapCacheSize} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Long> offHeapCacheSize() {
+      return _offHeapCacheSize;
+    }
+
   }
 
   ///CLOVER:ON
@@ -28,6 +28,10 @@ import com.opengamma.component.factory.ComponentInfoAttributes;
 import com.opengamma.component.rest.RemoteComponentServer;
 import com.opengamma.core.change.ChangeManager;
 import com.opengamma.core.change.JmsChangeManager;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.core.security.impl.BatchingSecuritySource;
+import com.opengamma.financial.security.BatchingFinancialSecuritySource;
+import com.opengamma.financial.security.FinancialSecuritySource;
 import com.opengamma.util.ReflectionUtils;
 import com.opengamma.util.jms.JmsConnector;
 
@@ -52,6 +56,11 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
    */
   @PropertyDefinition
   private JmsConnector _jmsConnector;
+  /**
+   * The flag determining whether single security lookups from concurrent threads are batched into bulk requests (default true).
+   */
+  @PropertyDefinition
+  private boolean _batchSecurityLookups = true;
 
   //-------------------------------------------------------------------------
   @Override
@@ -86,6 +95,9 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
         Constructor<?> con = ReflectionUtils.findConstructor(remoteType, URI.class);
         target = ReflectionUtils.newInstance(con, componentUri);
       }
+      if (isBatchSecurityLookups()) {
+        target = batchSecurityLookups(target);
+      }
       repo.registerComponent(info, target);
       if (isPublishRest()) {
         repo.getRestComponents().republish(info);
@@ -93,6 +105,23 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
     }
   }
 
+  /**
+   * Wraps a remote security source so that the single lookups made by concurrent threads, such as those
+   * resolving targets while a view is compiled, are sent as bulk requests.
+   * 
+   * @param target  the remote source, not null
+   * @return the source to register, not null
+   */
+  protected Object batchSecurityLookups(Object target) {
+    if (target instanceof FinancialSecuritySource) {
+      return new BatchingFinancialSecuritySource((FinancialSecuritySource) target);
+    }
+    if (target instanceof SecuritySource) {
+      return new BatchingSecuritySource((SecuritySource) target);
+    }
+    return target;
+  }
+
   //------------------------- AUTOGENERATED START -------------------------
   ///CLOVER:OFF
   /**
@@ -120,6 +149,8 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
         return isPublishRest();
       case -1495762275:  // jmsConnector
         return getJmsConnector();
+      case -1064680385:  // batchSecurityLookups
+        return isBatchSecurityLookups();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -136,6 +167,9 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
       case -1495762275:  // jmsConnector
         setJmsConnector((JmsConnector) newValue);
         return;
+      case -1064680385:  // batchSecurityLookups
+        setBatchSecurityLookups((Boolean) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -156,6 +190,7 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
       return JodaBeanUtils.equal(getBaseUri(), other.getBaseUri()) &&
           JodaBeanUtils.equal(isPublishRest(), other.isPublishRest()) &&
           JodaBeanUtils.equal(getJmsConnector(), other.getJmsConnector()) &&
+          JodaBeanUtils.equal(isBatchSecurityLookups(), other.isBatchSecurityLookups()) &&
           super.equals(obj);
     }
     return false;
@@ -167,6 +202,7 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
     hash += hash * 31 + JodaBeanUtils.hashCode(getBaseUri());
     hash += hash * 31 + JodaBeanUtils.hashCode(isPublishRest());
     hash += hash * 31 + JodaBeanUtils.hashCode(getJmsConnector());
+    hash += hash * 31 + JodaBeanUtils.hashCode(isBatchSecurityLookups());
     return hash ^ super.hashCode();
   }
 
@@ -246,6 +282,31 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
     return metaBean().jmsConnector().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the flag determining whether single security lookups from concurrent threads are batched into bulk requests (default true).
+   * @return the value of the property
+   */
+  public boolean isBatchSecurityLookups() {
+    return _batchSecurityLookups;
+  }
+
+  /**
+   * Sets the flag determining whether single security lookups from concurrent threads are batched into bulk requests (default true).
+   * @param batchSecurityLookups  the new value of the property
+   */
+  public void setBatchSecurityLookups(boolean batchSecurityLookups) {
+    this._batchSecurityLookups = batchSecurityLookups;
+  }
+
+  /**
+   * Gets the the {@code batchSecurityLookups} property.
+   * @return the property, not null
+   */
+  public final Property<Boolean> batchSecurityLookups() {
+    return metaBean().batchSecurityLookups().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code RemoteSourcesComponentFactory}.
@@ -271,6 +332,11 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
      */
     private final MetaProperty<JmsConnector> _jmsConnector = DirectMetaProperty.ofReadWrite(
         this, "jmsConnector", RemoteSourcesComponentFactory.class, JmsConnector.class);
+    /**
+     * The meta-property for the {@code batchSecurityLookups} property.
+     */
+    private final MetaProperty<Boolean> _batchSecurityLookups = DirectMetaProperty.ofReadWrite(
+        this, "batchSecurityLookups", RemoteSourcesComponentFactory.class, Boolean.TYPE);
     /**
      * The meta-properties.
      */
@@ -278,7 +344,8 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
       this, (DirectMetaPropertyMap) super.metaPropertyMap(),
         "baseUri",
         "publishRest",
-        "jmsConnector");
+        "jmsConnector",
+        "batchSecurityLookups");
 
     /**
      * Restricted constructor.
@@ -295,6 +362,8 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
           return _publishRest;
         case -1495762275:  // jmsConnector
           return _jmsConnector;
+        case -1064680385:  // batchSecurityLookups
+          return _batchSecurityLookups;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -339,6 +408,14 @@ public class RemoteSourcesComponentFactory extends AbstractComponentFactory {
       return _jmsConnector;
     }
 
+    /**
+     * The meta-property for the {@code batchSecurityLookups} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<Boolean> batchSecurityLookups() {
+      return _batchSecurityLookups;
+    }
+
   }
 
   ///CLOVER:ON
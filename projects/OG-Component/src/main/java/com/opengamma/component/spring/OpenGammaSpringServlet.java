@@ -22,6 +22,7 @@ import com.opengamma.component.ComponentRepository;
 import com.opengamma.util.rest.HttpMethodFilter;
 import com.opengamma.util.rest.NoCachingFilter;
 import com.opengamma.util.rest.UrlSuffixFilter;
+import com.sun.jersey.api.container.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.core.DefaultResourceConfig;
 import com.sun.jersey.api.core.ResourceConfig;
 import com.sun.jersey.spi.container.WebApplication;
@@ -60,10 +61,10 @@ public class OpenGammaSpringServlet extends SpringServlet {
   protected ResourceConfig getDefaultResourceConfig(Map<String, Object> props, WebConfig webConfig) throws ServletException {
     DefaultResourceConfig cfg = new DefaultResourceConfig();
     if (props.containsKey(ResourceConfig.PROPERTY_CONTAINER_REQUEST_FILTERS) == false) {
-      props.put(ResourceConfig.PROPERTY_CONTAINER_REQUEST_FILTERS, new ArrayList<Object>(Arrays.asList(new HttpMethodFilter(), new UrlSuffixFilter())));
+      props.put(ResourceConfig.PROPERTY_CONTAINER_REQUEST_FILTERS, new ArrayList<Object>(Arrays.asList(new HttpMethodFilter(), new UrlSuffixFilter(), new GZIPContentEncodingFilter())));
     }
     if (props.containsKey(ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS) == false) {
-      props.put(ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS, new ArrayList<Object>(Arrays.asList(new NoCachingFilter())));
+      props.put(ResourceConfig.PROPERTY_CONTAINER_RESPONSE_FILTERS, new ArrayList<Object>(Arrays.asList(new NoCachingFilter(), new GZIPContentEncodingFilter())));
     }
     cfg.setPropertiesAndFeatures(props);
     return cfg;
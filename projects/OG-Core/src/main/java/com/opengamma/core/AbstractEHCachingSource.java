@@ -8,24 +8,20 @@ package com.opengamma.core;
 import static com.google.common.collect.Maps.newHashMap;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Callable;
 
-import javax.time.Instant;
 import javax.time.calendar.Period;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.google.common.collect.MapMaker;
 import com.opengamma.DataNotFoundException;
 import com.opengamma.core.change.BasicChangeManager;
+import com.opengamma.core.change.BatchChangeListener;
+import com.opengamma.core.change.CacheInvalidatingChangeListener;
 import com.opengamma.core.change.ChangeEvent;
 import com.opengamma.core.change.ChangeListener;
 import com.opengamma.core.change.ChangeManager;
@@ -35,16 +31,17 @@ import com.opengamma.id.UniqueId;
 import com.opengamma.id.UniqueIdentifiable;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
-import com.opengamma.util.map.HashDeepMap2;
-import com.opengamma.util.map.Map2;
-import com.opengamma.util.map.SoftValueHashMap2;
 import com.opengamma.util.tuple.Pair;
 
 /**
- * A cache decorating a {@code FinancialSecuritySource}.
+ * A cache decorating a {@code Source}.
  * <p>
- * The cache is implemented using {@code EHCache}.
+ * The items are held in {@link ConcurrentCache}s sized from the {@code EHCache} configuration of the cache manager,
+ * using the cache names of the earlier {@code EHCache} implementation. Changes reported by the underlying source
+ * invalidate the cached copies of the changed item and are passed on to listeners of this source.
  * 
  * @param <V> the type returned by the source
  * @param <S> the source
@@ -52,32 +49,11 @@ import com.opengamma.util.tuple.Pair;
 public abstract class AbstractEHCachingSource<V extends UniqueIdentifiable, S extends Source<V> & ChangeProvider>  // CSIGNORE
     implements Source<V>, ChangeProvider {
 
-  /** Logger. */
-  private static final Logger s_logger = LoggerFactory.getLogger(AbstractEHCachingSource.class);
-
   /** The oid cache key. */
   private final String _oidCacheName = getClass().getName() + "-oid-cache";
   /** The uid cache key. */
   private final String _uidCacheName = getClass().getName() + "-uid-cache";
 
-  /**
-   * EHCache doesn't like being hammered repeatedly for the same objects. Also, if the window of objects being requested is bigger than the in memory window then new objects get created as the on-disk
-   * values get deserialized. The solution is to maintain a soft referenced buffer so that all the while the objects we have previously returned are in use we won't requery EHCache for them.
-   */
-  private final ConcurrentMap<UniqueId, V> _frontCache = new MapMaker().weakValues().makeMap();
-
-  /**
-   * EHCache doesn't like being hammered repeatedly for the same objects. Also, if the window of objects being requested is bigger than the in memory window then new objects get created as the on-disk
-   * values get deserialized. The solution is to maintain a soft referenced buffer so that all the while the objects we have previously returned are in use we won't requery EHCache for them.
-   */
-  private final Map2<Object, VersionCorrection, V> _frontCache2 = new SoftValueHashMap2<Object, VersionCorrection, V>();
-
-  private final HashDeepMap2<ObjectId, UniqueId, V> _frontCache3 = new HashDeepMap2<ObjectId, UniqueId, V>() {
-    protected MapMaker mapMaker() {
-      return super.mapMaker().softValues();
-    }
-  };
-
   /**
    * The underlying cache.
    */
@@ -87,13 +63,17 @@ public abstract class AbstractEHCachingSource<V extends UniqueIdentifiable, S ex
    */
   private final CacheManager _manager;
   /**
-   * The oid cache.
+   * The cache of items by object identifier and version-correction.
+   */
+  private final ConcurrentCache<Pair<ObjectId, VersionCorrection>, V> _oidCache;
+  /**
+   * The cache of items by unique identifier.
    */
-  private final Cache _oidCache;
+  private final ConcurrentCache<UniqueId, V> _uidCache;
   /**
-   * The uid cache.
+   * Invalidates the caches when the underlying items change.
    */
-  private final Cache _uidCache;
+  private final CacheInvalidatingChangeListener _cacheInvalidator;
   /**
    * Listens for changes in the underlying security source.
    */
@@ -101,7 +81,7 @@ public abstract class AbstractEHCachingSource<V extends UniqueIdentifiable, S ex
   /**
    * The local change manager.
    */
-  private final ChangeManager _changeManager;
+  private final BasicChangeManager _changeManager;
 
   /**
    * Creates an instance over an underlying source specifying the cache manager.
@@ -113,22 +93,24 @@ public abstract class AbstractEHCachingSource<V extends UniqueIdentifiable, S ex
     ArgumentChecker.notNull(underlying, "underlying");
     ArgumentChecker.notNull(cacheManager, "cacheManager");
     _underlying = underlying;
-    EHCacheUtils.addCache(cacheManager, _oidCacheName);
-    EHCacheUtils.addCache(cacheManager, _uidCacheName);
-    _oidCache = EHCacheUtils.getCacheFromManager(cacheManager, _oidCacheName);
-    _uidCache = EHCacheUtils.getCacheFromManager(cacheManager, _uidCacheName);
+    _oidCache = EHCacheUtils.createConcurrentCache(cacheManager, _oidCacheName);
+    _uidCache = EHCacheUtils.createConcurrentCache(cacheManager, _uidCacheName);
+    _cacheInvalidator = new CacheInvalidatingChangeListener().addObjectCache(_oidCache).addObjectCache(_uidCache);
     
     _manager = cacheManager;
     _changeManager = new BasicChangeManager();
-    _changeListener = new ChangeListener() {
+    _changeListener = new BatchChangeListener() {
       @Override
       public void entityChanged(ChangeEvent event) {
-        final ObjectId oid = event.getObjectId();
-        final Instant versionFrom = event.getVersionFrom();
-        final Instant versionTo = event.getVersionTo();
-        cleanCaches(oid, versionFrom, versionTo);
+        _cacheInvalidator.entityChanged(event);
         _changeManager.entityChanged(event.getType(), event.getObjectId(), event.getVersionFrom(), event.getVersionTo(), event.getVersionInstant());
       }
+
+      @Override
+      public void entitiesChanged(List<ChangeEvent> events) {
+        _cacheInvalidator.entitiesChanged(events);
+        _changeManager.entitiesChanged(events);
+      }
     };
     underlying.changeManager().addChangeListener(_changeListener);
   }
@@ -153,121 +135,67 @@ public abstract class AbstractEHCachingSource<V extends UniqueIdentifiable, S ex
   }
 
   /**
-   * Gets the front cache.
+   * Gets the oid cache.
    *
-   * @return the front cache, not null
+   * @return the oid cache, not null
    */
-  protected ConcurrentMap<UniqueId, V> getFrontCache() {
-    return _frontCache;
+  protected ConcurrentCache<Pair<ObjectId, VersionCorrection>, V> getOidCache() {
+    return _oidCache;
   }
 
   /**
-   * Gets the front cache.
+   * Gets the uid cache.
    *
-   * @return the front cache, not null
+   * @return the uid cache, not null
    */
-  protected Map2<Object, VersionCorrection, V> getFrontCache2() {
-    return _frontCache2;
+  protected ConcurrentCache<UniqueId, V> getUidCache() {
+    return _uidCache;
   }
 
   /**
-   * Gets the oid cache.
+   * Gets the invalidator of the caches, which subclasses should add any caches of their own to.
    *
-   * @return the oid cache, not null
+   * @return the invalidator, not null
    */
-  protected Cache getOidCache() {
-    return _oidCache;
+  protected CacheInvalidatingChangeListener getCacheInvalidator() {
+    return _cacheInvalidator;
   }
 
   /**
-   * Gets the uid cache.
+   * Gets the statistics of the caches.
    *
-   * @return the uid cache, not null
+   * @return the statistics of each cache, not null
    */
-  protected Cache getUidCache() {
-    return _uidCache;
+  public List<CacheStatistics> getCacheStatistics() {
+    return Arrays.asList(_uidCache.getStatistics(), _oidCache.getStatistics());
   }
 
   //-------------------------------------------------------------------------
-  @SuppressWarnings("unchecked")
   @Override
-  public V get(UniqueId uid) {
+  public V get(final UniqueId uid) {
     ArgumentChecker.notNull(uid, "uid");
-    V result = _frontCache.get(uid);
-    if (result != null) {
-      return result;
-    }
-    Element e = _uidCache.get(uid);
-    if (e != null) {
-      result = (V) e.getValue();
-      s_logger.debug("retrieved object: {} from uid-cache", result);
-      final V existing = _frontCache.putIfAbsent(uid, result);
-      if (existing != null) {
-        return existing;
-      } else {
-        return result;
-      }
-    } else {
-      result = getUnderlying().get(uid);
-      final V existing = _frontCache.putIfAbsent(uid, result);
-      if (existing != null) {
-        return existing;
-      } else {
-        _uidCache.put(new Element(uid, result));
-        return result;
-      }
-    }
-  }
-
-  @SuppressWarnings("unchecked")
-  protected Map<VersionCorrection, V> getObjectIdCacheEntry(final ObjectId objectId) {
-    final Element e = _oidCache.get(objectId);
-    if (e != null) {
-      if (e.getObjectValue() instanceof Map<?, ?>) {
-        return (Map<VersionCorrection, V>) e.getObjectValue();
+    return _uidCache.get(uid, new Callable<V>() {
+      @Override
+      public V call() {
+        return getUnderlying().get(uid);
       }
-    }
-    return null;
+    });
   }
 
   @Override
   public V get(final ObjectId objectId, final VersionCorrection versionCorrection) {
     ArgumentChecker.notNull(objectId, "objectId");
     ArgumentChecker.notNull(versionCorrection, "versionCorrection");
-    V result = _frontCache2.get(objectId, versionCorrection);
-    if (result != null) {
-      return result;
-    }
-    Map<VersionCorrection, V> items = getObjectIdCacheEntry(objectId);
-    if (items != null) {
-      result = items.get(versionCorrection);
-      if (result != null) {
-        final V existing = _frontCache2.putIfAbsent(objectId, versionCorrection, result);
-        if (existing != null) {
-          return existing;
-        }
-      }
-    }
-    if (result == null) {
-      result = getUnderlying().get(objectId, versionCorrection);
-      if (result != null) {
-        final V existing = _frontCache2.putIfAbsent(objectId, versionCorrection, result);
-        if (existing != null) {
-          return existing;
-        }
-        _uidCache.put(new Element(result.getUniqueId(), result));
-      }
-      final Map<VersionCorrection, V> newitems = new HashMap<VersionCorrection, V>();
-      synchronized (this) {
-        items = getObjectIdCacheEntry(objectId);
-        if (items != null) {
-          newitems.putAll(items);
+    return _oidCache.get(Pair.of(objectId, versionCorrection), new Callable<V>() {
+      @Override
+      public V call() {
+        final V result = getUnderlying().get(objectId, versionCorrection);
+        if (result != null) {
+          _uidCache.put(result.getUniqueId(), result);
         }
-        newitems.put(versionCorrection, result);
-        _oidCache.put(new Element(objectId, newitems));
+        return result;
       }
-    }
-    return result;
+    });
   }
 
   static final Period s_versionCorrectionBucketSize = Period.ofDays(1); //This is an attempt to avoid thrashing if we get conflicting queries
@@ -295,46 +223,20 @@ public abstract class AbstractEHCachingSource<V extends UniqueIdentifiable, S ex
   }
 
   /**
-   * Call this at the end of a unit test run to clear the state of EHCache. It should not be part of a generic lifecycle method.
+   * Call this at the end of a unit test run to clear the state of the caches. It should not be part of a generic lifecycle method.
    */
   public void shutdown() {
     _underlying.changeManager().removeChangeListener(_changeListener);
+    _uidCache.invalidateAll();
+    _oidCache.invalidateAll();
     _manager.removeCache(_uidCacheName);
     _manager.removeCache(_oidCacheName);
   }
 
   //-------------------------------------------------------------------------
-  protected void cleanCaches(ObjectId oid, Instant versionFrom, Instant versionTo) {
-    _frontCache3.remove(oid);
-    
-    // Note: this is very inefficient
-    for (Pair<Object, VersionCorrection> key : _frontCache2.keySet()) {
-      if (key.getFirst() instanceof ObjectId) {
-        ObjectId objectId = (ObjectId) key.getFirst();
-        VersionCorrection vc = key.getSecond();
-        if (objectId.equals(oid) && vc.getCorrectedTo() == null &&
-            !vc.getVersionAsOf().isBefore(versionFrom) && !vc.getVersionAsOf().isAfter(versionTo)) {
-          _frontCache2.remove(key);
-        }
-      } else {
-        _frontCache2.remove(key);
-      }
-    }
-    
-    for (Object key : _uidCache.getKeys()) {
-      if (key instanceof UniqueId && ((UniqueId) key).getObjectId().equals(oid)) {
-        _uidCache.remove(key);
-        _frontCache.remove(key);
-      }
-    }
-    
-    // Destroy all version/correction cached values for the object
-    _oidCache.remove(oid);
-  }
-
   protected void cacheItems(Collection<V> items) {
-    for (V security : items) {
-      _uidCache.put(new Element(security.getUniqueId(), security));
+    for (V item : items) {
+      _uidCache.put(item.getUniqueId(), item);
     }
   }
 
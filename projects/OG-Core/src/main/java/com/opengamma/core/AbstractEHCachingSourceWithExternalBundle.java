@@ -6,15 +6,17 @@
 package com.opengamma.core;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import javax.time.Instant;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,13 +28,16 @@ import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueIdentifiable;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.tuple.Pair;
 import com.opengamma.util.tuple.Triple;
 
 /**
- * A cache decorating a {@code FinancialSecuritySource}.
+ * A cache decorating a {@code SourceWithExternalBundle}.
  * <p>
- * The cache is implemented using {@code EHCache}.
+ * The results of searches by bundle are cleared whenever the underlying source reports a change.
  * 
  * @param <V> the type returned by the source
  * @param <S> the source
@@ -45,6 +50,8 @@ public abstract class AbstractEHCachingSourceWithExternalBundle<V extends Unique
   private static final String BUNDLE_CACHE = "-bundle-cache";
   /** The Bundle hint cache key. */
   private static final String BUNDLE_HINT_CACHE = "-bundle-hint-cache";
+  /** The single item by bundle cache key. */
+  private static final String BUNDLE_SINGLE_CACHE = "-bundle-single-cache";
 
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(AbstractEHCachingSourceWithExternalBundle.class);
@@ -52,12 +59,15 @@ public abstract class AbstractEHCachingSourceWithExternalBundle<V extends Unique
   /**
    * The bundle cache.
    */
-  private final Cache _bundleCache;
-
+  private final ConcurrentCache<ExternalIdBundle, Collection<V>> _bundleCache;
+  /**
+   * The cache of single items by bundle and version-correction.
+   */
+  private final ConcurrentCache<Pair<ExternalIdBundle, VersionCorrection>, V> _bundleSingleCache;
   /**
    * The bundle hint cache.
    */
-  private final Cache _bundleHintCache;
+  private final ConcurrentCache<Triple<ExternalIdBundle, BigInteger, BigInteger>, ObjectId> _bundleHintCache;
 
   /**
    * Creates an instance over an underlying source specifying the cache manager.
@@ -67,33 +77,38 @@ public abstract class AbstractEHCachingSourceWithExternalBundle<V extends Unique
    */
   public AbstractEHCachingSourceWithExternalBundle(final S underlying, final CacheManager cacheManager) {
     super(underlying, cacheManager);
-    EHCacheUtils.addCache(cacheManager, this.getClass().getName() + BUNDLE_CACHE);
-    EHCacheUtils.addCache(cacheManager, this.getClass().getName() + BUNDLE_HINT_CACHE);
-    _bundleCache = EHCacheUtils.getCacheFromManager(cacheManager, this.getClass().getName() + BUNDLE_CACHE);
-    _bundleHintCache = EHCacheUtils.getCacheFromManager(cacheManager, this.getClass().getName() + BUNDLE_HINT_CACHE);
+    _bundleCache = EHCacheUtils.createConcurrentCache(cacheManager, getClass().getName() + BUNDLE_CACHE);
+    _bundleSingleCache = EHCacheUtils.createConcurrentCache(cacheManager, getClass().getName() + BUNDLE_SINGLE_CACHE);
+    // the hints are checked when they're used so they don't need invalidating, only expiring with their bucket
+    _bundleHintCache = EHCacheUtils.<Triple<ExternalIdBundle, BigInteger, BigInteger>, ObjectId>concurrentCacheBuilder(cacheManager, getClass().getName() + BUNDLE_HINT_CACHE)
+        .expireAfterWrite(s_versionCorrectionBucketSizeInSeconds, TimeUnit.SECONDS).build();
+    getCacheInvalidator().addQueryCache(_bundleCache).addQueryCache(_bundleSingleCache);
   }
 
   //-------------------------------------------------------------------------
-  @SuppressWarnings("unchecked")
   @Override
-  public Collection<V> get(ExternalIdBundle bundle) {
+  public List<CacheStatistics> getCacheStatistics() {
+    final List<CacheStatistics> statistics = new ArrayList<CacheStatistics>(super.getCacheStatistics());
+    statistics.add(_bundleCache.getStatistics());
+    statistics.add(_bundleSingleCache.getStatistics());
+    statistics.add(_bundleHintCache.getStatistics());
+    return statistics;
+  }
+
+  @Override
+  public Collection<V> get(final ExternalIdBundle bundle) {
     ArgumentChecker.notNull(bundle, "bundle");
-    Element e = _bundleCache.get(bundle);
-    Collection<V> result = new HashSet<V>();
-    if (e != null) {
-      if (e.getObjectValue() instanceof Collection<?>) {
-        result.addAll((Collection<V>) e.getObjectValue());
-      } else {
-        s_logger.warn("returned object {} from cache is not a Collection<T>", e.getObjectValue());
-      }
-    } else {
-      result = getUnderlying().get(bundle);
-      if (result != null) {
-        _bundleCache.put(new Element(bundle, result));
-        cacheItems(result);
+    final Collection<V> result = _bundleCache.get(bundle, new Callable<Collection<V>>() {
+      @Override
+      public Collection<V> call() {
+        final Collection<V> items = getUnderlying().get(bundle);
+        if (items != null) {
+          cacheItems(items);
+        }
+        return items;
       }
-    }
-    return result;
+    });
+    return result != null ? new HashSet<V>(result) : null;
   }
 
   @Override
@@ -112,41 +127,40 @@ public abstract class AbstractEHCachingSourceWithExternalBundle<V extends Unique
   public V getSingle(ExternalIdBundle bundle) {
     ArgumentChecker.notNull(bundle, "bundle");
     Collection<V> matched = get(bundle);
-    if (matched.isEmpty()) {
+    if (matched == null || matched.isEmpty()) {
       return null;
     }
     return matched.iterator().next();
   }
 
   @Override
-  public V getSingle(ExternalIdBundle bundle, VersionCorrection versionCorrection) {
+  public V getSingle(final ExternalIdBundle bundle, final VersionCorrection versionCorrection) {
     ArgumentChecker.notNull(bundle, "bundle");
     ArgumentChecker.notNull(versionCorrection, "versionCorrection");
-    V result = getFrontCache2().get(bundle, versionCorrection);
-    if (result != null) {
-      return result;
-    }
+    return _bundleSingleCache.get(Pair.of(bundle, versionCorrection), new Callable<V>() {
+      @Override
+      public V call() {
+        return loadSingle(bundle, versionCorrection);
+      }
+    });
+  }
+
+  private V loadSingle(final ExternalIdBundle bundle, final VersionCorrection versionCorrection) {
     final Instant correctedTo = versionCorrection.getCorrectedTo();
     final Instant versionAsOf = versionCorrection.getVersionAsOf();
     final BigInteger correctedToBucket = correctedTo == null ? s_latestBucket : versionCorrection.getCorrectedTo().toEpochNanos().divide(s_versionCorrectionBucketSizeInNanos);
     final BigInteger versionAsOfBucket = versionAsOf == null ? s_latestBucket : versionCorrection.getVersionAsOf().toEpochNanos().divide(s_versionCorrectionBucketSizeInNanos);
     final Triple<ExternalIdBundle, BigInteger, BigInteger> key = Triple.of(bundle, correctedToBucket, versionAsOfBucket);
-    final Element hintUid = _bundleHintCache.get(key);
-    if (hintUid != null) {
-      final ObjectId hint = (ObjectId) hintUid.getValue();
+    final ObjectId hint = _bundleHintCache.getIfPresent(key);
+    if (hint != null) {
       try {
         //Caching is based on the idea that this query is significantly faster
-        result = get(hint, versionCorrection);
+        final V result = get(hint, versionCorrection);
         if (result != null) {
           if (result.getExternalIdBundle().containsAny(bundle)) {
             //This is a good enough result with the current resolution logic,
             // h'ver as soon as we have rules about which of multiple matches to use this caching must be rewritten
-            final V existing = getFrontCache2().putIfAbsent(bundle, versionCorrection, result);
-            if (existing != null) {
-              return existing;
-            } else {
-              return result;
-            }
+            return result;
           }
         }
       } catch (DataNotFoundException dnfe) {
@@ -157,22 +171,19 @@ public abstract class AbstractEHCachingSourceWithExternalBundle<V extends Unique
     if (matched.isEmpty()) {
       return null;
     }
-    result = matched.iterator().next();
-    final V existing = getFrontCache2().putIfAbsent(bundle, versionCorrection, result);
-    if (existing != null) {
-      return existing;
-    }
-    final Element element = new Element(key, result.getUniqueId().getObjectId());
-    element.setTimeToLive(s_versionCorrectionBucketSizeInSeconds);
-    _bundleHintCache.put(element);
+    final V result = matched.iterator().next();
+    _bundleHintCache.put(key, result.getUniqueId().getObjectId());
     return result;
   }
 
-
   @Override
   public void shutdown() {
     super.shutdown();
-    getCacheManager().removeCache(BUNDLE_CACHE);
-    getCacheManager().removeCache(BUNDLE_HINT_CACHE);
+    _bundleCache.invalidateAll();
+    _bundleSingleCache.invalidateAll();
+    _bundleHintCache.invalidateAll();
+    getCacheManager().removeCache(getClass().getName() + BUNDLE_CACHE);
+    getCacheManager().removeCache(getClass().getName() + BUNDLE_SINGLE_CACHE);
+    getCacheManager().removeCache(getClass().getName() + BUNDLE_HINT_CACHE);
   }
 }
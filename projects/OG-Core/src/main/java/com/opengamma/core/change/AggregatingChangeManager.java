@@ -13,10 +13,11 @@ import com.opengamma.util.ArgumentChecker;
  * Change manager that aggregates entity change events from multiple underlying managers.
  * <p>
  * Events are sent when an entity is added, updated, removed or corrected.
+ * Batches of events from the underlying managers are forwarded together.
  * <p>
  * This class is mutable and thread-safe using concurrent collections.
  */
-public class AggregatingChangeManager extends BasicChangeManager implements ChangeListener {
+public class AggregatingChangeManager extends BasicChangeManager implements BatchChangeListener {
 
   /**
    * Creates an instance.
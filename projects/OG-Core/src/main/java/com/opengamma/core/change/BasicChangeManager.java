@@ -86,6 +86,21 @@ public class BasicChangeManager implements ChangeManager {
     handleEntityChanged(event);
   }
 
+  /**
+   * Handles a batch of events.
+   * <p>
+   * This is used to forward events received together, such as those passed to
+   * a {@link BatchChangeListener}.
+   * 
+   * @param events  the events that occurred, not null
+   */
+  public void entitiesChanged(final List<ChangeEvent> events) {
+    ArgumentChecker.noNulls(events, "events");
+    if (events.isEmpty() == false) {
+      handleEntitiesChanged(events);
+    }
+  }
+
   /**
    * Handles an event when an entity changes.
    * <p>
@@ -112,6 +127,39 @@ public class BasicChangeManager implements ChangeManager {
     }
   }
 
+  /**
+   * Handles a batch of events.
+   * <p>
+   * This implementation calls {@link #fireEntitiesChanged(List)} directly.
+   * An overriding method may use a more advanced mechanism to handle the events.
+   * 
+   * @param events  the events that occurred, not empty
+   */
+  protected void handleEntitiesChanged(final List<ChangeEvent> events) {
+    fireEntitiesChanged(events);
+  }
+
+  /**
+   * Fires a batch of events to the local listeners.
+   * <p>
+   * This implementation loops around the stored listeners and calls them in
+   * serial on the calling thread. A {@link BatchChangeListener} is called once
+   * with the whole batch, other listeners are called once for each event.
+   * 
+   * @param events  the events that occurred, not null
+   */
+  protected void fireEntitiesChanged(final List<ChangeEvent> events) {
+    for (ChangeListener listener : _listeners) {
+      if (listener instanceof BatchChangeListener) {
+        ((BatchChangeListener) listener).entitiesChanged(events);
+      } else {
+        for (ChangeEvent event : events) {
+          listener.entityChanged(event);
+        }
+      }
+    }
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Returns a debugging string for the manager.
@@ -0,0 +1,32 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.change;
+
+import java.util.List;
+
+import com.opengamma.util.PublicSPI;
+
+/**
+ * Listener interface used to receive entity change events in batches.
+ * <p>
+ * A change manager that receives several events together, such as one fed by a
+ * {@link BatchingJmsChangeManager}, passes them to this listener in a single call.
+ * This allows a listener to do its work once per batch rather than once per event.
+ * Events sent singly are still received through {@link #entityChanged(ChangeEvent)}.
+ */
+@PublicSPI
+public interface BatchChangeListener extends ChangeListener {
+
+  /**
+   * Called when a number of entities are changed.
+   * <p>
+   * There is at most one event for each object identifier in a batch.
+   *
+   * @param events  the event descriptions, not null
+   */
+  void entitiesChanged(List<ChangeEvent> events);
+
+}
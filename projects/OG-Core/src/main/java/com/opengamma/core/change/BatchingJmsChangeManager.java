@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.change;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.time.Instant;
+
+import com.opengamma.id.ObjectId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
+import com.opengamma.util.jms.JmsConnector;
+
+/**
+ * Manager for receiving and handling entity change events that sends them by JMS in batches.
+ * <p>
+ * Events are held for a short window and coalesced so that there is at most one event for each
+ * object identifier, before being sent together as a single message. This greatly reduces the
+ * work done by listeners when a bulk operation changes many entities, as a {@link BatchChangeListener}
+ * receives each batch in a single call. A batch is sent early if it reaches a maximum size.
+ * <p>
+ * Batches are only held while the manager is running. Otherwise events are sent immediately.
+ * <p>
+ * This class is mutable and thread-safe.
+ */
+public class BatchingJmsChangeManager extends JmsChangeManager {
+
+  /**
+   * The default time to hold events for, in milliseconds.
+   */
+  public static final long DEFAULT_BATCH_WINDOW_MILLIS = 100;
+  /**
+   * The default maximum number of events in a batch.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+  /**
+   * The time to hold events for, in milliseconds.
+   */
+  private final long _batchWindowMillis;
+  /**
+   * The maximum number of events in a batch.
+   */
+  private final int _maxBatchSize;
+  /**
+   * The events not yet sent, keyed by object identifier, guarded by the map itself.
+   */
+  private final Map<ObjectId, ChangeEvent> _pending = new LinkedHashMap<ObjectId, ChangeEvent>();
+  /**
+   * Whether a send of the pending events is scheduled, guarded by the pending map.
+   */
+  private boolean _sendScheduled;
+  /**
+   * The executor sending the batches, null if not running.
+   */
+  private volatile ScheduledExecutorService _executor;
+
+  /**
+   * Creates a change manager.
+   * <p>
+   * The topic name will be defaulted to the name of this class if not set.
+   *
+   * @param connector  the JMS connector, not null
+   */
+  public BatchingJmsChangeManager(final JmsConnector connector) {
+    this(connector, DEFAULT_BATCH_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a change manager.
+   * <p>
+   * The topic name will be defaulted to the name of this class if not set.
+   *
+   * @param connector  the JMS connector, not null
+   * @param batchWindowMillis  the time to hold events for, in milliseconds, not negative
+   * @param maxBatchSize  the maximum number of events in a batch, greater than zero
+   */
+  public BatchingJmsChangeManager(final JmsConnector connector, final long batchWindowMillis, final int maxBatchSize) {
+    super(connector);
+    ArgumentChecker.notNegative(batchWindowMillis, "batchWindowMillis");
+    ArgumentChecker.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than zero");
+    _batchWindowMillis = batchWindowMillis;
+    _maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Creates a change manager.
+   *
+   * @param connector  the JMS connector, not null
+   * @param topicName  the topic name to use, not null
+   * @param batchWindowMillis  the time to hold events for, in milliseconds, not negative
+   * @param maxBatchSize  the maximum number of events in a batch, greater than zero
+   */
+  public BatchingJmsChangeManager(final JmsConnector connector, final String topicName, final long batchWindowMillis, final int maxBatchSize) {
+    super(connector, topicName);
+    ArgumentChecker.notNegative(batchWindowMillis, "batchWindowMillis");
+    ArgumentChecker.isTrue(maxBatchSize > 0, "maxBatchSize must be greater than zero");
+    _batchWindowMillis = batchWindowMillis;
+    _maxBatchSize = maxBatchSize;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void start() {
+    super.start();
+    _executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadPoolFactory("BatchingJmsChangeManager", true));
+  }
+
+  @Override
+  public void stop() {
+    final ScheduledExecutorService executor = _executor;
+    _executor = null;
+    if (executor != null) {
+      executor.shutdown();
+    }
+    flush();
+    super.stop();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the time to hold events for.
+   *
+   * @return the time in milliseconds
+   */
+  public long getBatchWindowMillis() {
+    return _batchWindowMillis;
+  }
+
+  /**
+   * Gets the maximum number of events in a batch.
+   *
+   * @return the maximum batch size
+   */
+  public int getMaxBatchSize() {
+    return _maxBatchSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Handles an event when an entity changes.
+   * <p>
+   * This implementation holds the event to be sent in the next batch.
+   *
+   * @param event  the event that occurred, not null
+   */
+  @Override
+  protected void handleEntityChanged(final ChangeEvent event) {
+    hold(event);
+  }
+
+  /**
+   * Handles a batch of events.
+   * <p>
+   * This implementation holds the events to be sent in the next batch.
+   *
+   * @param events  the events that occurred, not empty
+   */
+  @Override
+  protected void handleEntitiesChanged(final List<ChangeEvent> events) {
+    for (ChangeEvent event : events) {
+      hold(event);
+    }
+  }
+
+  private void hold(final ChangeEvent event) {
+    final ScheduledExecutorService executor = _executor;
+    if (executor == null) {
+      super.handleEntityChanged(event);
+      return;
+    }
+    boolean sendNow = false;
+    boolean schedule = false;
+    synchronized (_pending) {
+      final ChangeEvent previous = _pending.get(event.getObjectId());
+      _pending.put(event.getObjectId(), previous != null ? coalesce(previous, event) : event);
+      if (_pending.size() >= _maxBatchSize) {
+        sendNow = true;
+      } else if (_sendScheduled == false) {
+        _sendScheduled = true;
+        schedule = true;
+      }
+    }
+    if (sendNow) {
+      flush();
+    } else if (schedule) {
+      try {
+        executor.schedule(new Runnable() {
+          @Override
+          public void run() {
+            flush();
+          }
+        }, _batchWindowMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException ex) {
+        // stopped since the executor was read, send now rather than leaving the event held
+        flush();
+      }
+    }
+  }
+
+  /**
+   * Sends the events held, if any, as a single batch.
+   */
+  public void flush() {
+    final List<ChangeEvent> events;
+    synchronized (_pending) {
+      _sendScheduled = false;
+      if (_pending.isEmpty()) {
+        return;
+      }
+      events = new ArrayList<ChangeEvent>(_pending.values());
+      _pending.clear();
+    }
+    super.handleEntitiesChanged(events);
+  }
+
+  /**
+   * Coalesces two events for the same object into one.
+   * <p>
+   * The result has the type of the later event, except that an addition followed by a change
+   * remains an addition. The version range covers both events, with null as an open end, and
+   * the version instant is that of the later event.
+   *
+   * @param earlier  the earlier event, not null
+   * @param later  the later event, not null
+   * @return the coalesced event, not null
+   */
+  static ChangeEvent coalesce(final ChangeEvent earlier, final ChangeEvent later) {
+    ChangeType type = later.getType();
+    if (earlier.getType() == ChangeType.ADDED && type == ChangeType.CHANGED) {
+      type = ChangeType.ADDED;
+    }
+    Instant versionFrom = null;
+    if (earlier.getVersionFrom() != null && later.getVersionFrom() != null) {
+      versionFrom = earlier.getVersionFrom().isBefore(later.getVersionFrom()) ? earlier.getVersionFrom() : later.getVersionFrom();
+    }
+    Instant versionTo = null;
+    if (earlier.getVersionTo() != null && later.getVersionTo() != null) {
+      versionTo = earlier.getVersionTo().isAfter(later.getVersionTo()) ? earlier.getVersionTo() : later.getVersionTo();
+    }
+    return new ChangeEvent(type, later.getObjectId(), versionFrom, versionTo, later.getVersionInstant());
+  }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.change;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.base.Predicate;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.ConcurrentCache;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Change listener that invalidates the {@link ConcurrentCache}s of a caching decorator when the underlying data changes.
+ * <p>
+ * Object caches hold entities keyed by {@link UniqueId}, {@link ObjectId}, or a {@link Pair} whose first element is
+ * one of those, for example an object identifier and a version-correction. When an entity changes only the entries
+ * for that entity are removed. Query caches hold the results of searches which could be affected by any change and
+ * are cleared whenever anything changes. A batch of changes is handled in a single pass over each cache.
+ * <p>
+ * This class is thread-safe.
+ */
+public class CacheInvalidatingChangeListener implements BatchChangeListener {
+
+  /**
+   * The caches keyed by object.
+   */
+  private final List<ConcurrentCache<?, ?>> _objectCaches = new CopyOnWriteArrayList<ConcurrentCache<?, ?>>();
+  /**
+   * The caches of query results.
+   */
+  private final List<ConcurrentCache<?, ?>> _queryCaches = new CopyOnWriteArrayList<ConcurrentCache<?, ?>>();
+
+  /**
+   * Adds a cache whose entries are removed when the entity in their key changes.
+   *
+   * @param cache  the cache, not null
+   * @return this listener, not null
+   */
+  public CacheInvalidatingChangeListener addObjectCache(final ConcurrentCache<?, ?> cache) {
+    ArgumentChecker.notNull(cache, "cache");
+    _objectCaches.add(cache);
+    return this;
+  }
+
+  /**
+   * Adds a cache that is cleared when any entity changes.
+   *
+   * @param cache  the cache, not null
+   * @return this listener, not null
+   */
+  public CacheInvalidatingChangeListener addQueryCache(final ConcurrentCache<?, ?> cache) {
+    ArgumentChecker.notNull(cache, "cache");
+    _queryCaches.add(cache);
+    return this;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void entityChanged(final ChangeEvent event) {
+    final Predicate<Object> keys = keysFor(event.getObjectId());
+    for (ConcurrentCache<?, ?> cache : _objectCaches) {
+      cache.invalidateAll(keys);
+    }
+    for (ConcurrentCache<?, ?> cache : _queryCaches) {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void entitiesChanged(final List<ChangeEvent> events) {
+    final Set<ObjectId> objectIds = new HashSet<ObjectId>();
+    for (ChangeEvent event : events) {
+      objectIds.add(event.getObjectId());
+    }
+    final Predicate<Object> keys = keysFor(objectIds);
+    for (ConcurrentCache<?, ?> cache : _objectCaches) {
+      cache.invalidateAll(keys);
+    }
+    for (ConcurrentCache<?, ?> cache : _queryCaches) {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Creates a predicate matching the object cache keys of an entity.
+   *
+   * @param objectId  the object identifier of the entity, not null
+   * @return the predicate, not null
+   */
+  public static Predicate<Object> keysFor(final ObjectId objectId) {
+    ArgumentChecker.notNull(objectId, "objectId");
+    return new Predicate<Object>() {
+      @Override
+      public boolean apply(final Object key) {
+        final Object id = (key instanceof Pair<?, ?>) ? ((Pair<?, ?>) key).getFirst() : key;
+        if (id instanceof UniqueId) {
+          return objectId.equals(((UniqueId) id).getObjectId());
+        }
+        return objectId.equals(id);
+      }
+    };
+  }
+
+  /**
+   * Creates a predicate matching the object cache keys of any of a set of entities.
+   *
+   * @param objectIds  the object identifiers of the entities, not null
+   * @return the predicate, not null
+   */
+  public static Predicate<Object> keysFor(final Set<ObjectId> objectIds) {
+    ArgumentChecker.notNull(objectIds, "objectIds");
+    return new Predicate<Object>() {
+      @Override
+      public boolean apply(final Object key) {
+        final Object id = (key instanceof Pair<?, ?>) ? ((Pair<?, ?>) key).getFirst() : key;
+        if (id instanceof UniqueId) {
+          return objectIds.contains(((UniqueId) id).getObjectId());
+        }
+        return objectIds.contains(id);
+      }
+    };
+  }
+
+}
@@ -5,6 +5,9 @@
  */
 package com.opengamma.core.change;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.jms.Connection;
 import javax.jms.JMSException;
 import javax.jms.Message;
@@ -14,9 +17,12 @@ import javax.jms.Session;
 import javax.jms.Topic;
 
 import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeField;
 import org.fudgemsg.FudgeMsg;
 import org.fudgemsg.FudgeMsgEnvelope;
+import org.fudgemsg.MutableFudgeMsg;
 import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.Lifecycle;
@@ -35,6 +41,7 @@ import com.opengamma.util.jms.JmsConnector;
  * Manager for receiving and handling entity change events.
  * <p>
  * Events are sent when an entity is added, updated, removed or corrected.
+ * A batch of events is sent as a single message, and received by all managers as a batch.
  * <p>
  * This class is mutable and thread-safe using concurrent collections.
  */
@@ -43,6 +50,10 @@ public class JmsChangeManager extends BasicChangeManager implements MessageListe
 
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(JmsChangeManager.class);
+  /**
+   * The field name holding each event of a batch message.
+   */
+  private static final String EVENT_FIELD_NAME = "event";
 
   /**
    * The JMS connector, not null
@@ -141,7 +152,35 @@ public class JmsChangeManager extends BasicChangeManager implements MessageListe
   protected void handleEntityChanged(final ChangeEvent event) {
     final FudgeMsgEnvelope msg = OpenGammaFudgeContext.getInstance().toFudgeMsg(event);
     s_logger.debug("Sending change message {}", msg);
-    final byte[] fudgeMsg = OpenGammaFudgeContext.getInstance().toByteArray(msg.getMessage());
+    send(msg.getMessage());
+  }
+
+  /**
+   * Handles a batch of events.
+   * <p>
+   * This implementation sends the events by JMS as a single message to be received
+   * by all change managers, including this one.
+   * 
+   * @param events  the events that occurred, not empty
+   */
+  @Override
+  protected void handleEntitiesChanged(final List<ChangeEvent> events) {
+    final FudgeSerializer serializer = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    final MutableFudgeMsg msg = serializer.newMessage();
+    for (ChangeEvent event : events) {
+      serializer.addToMessage(msg, EVENT_FIELD_NAME, null, event);
+    }
+    s_logger.debug("Sending batch change message of {} events", events.size());
+    send(msg);
+  }
+
+  /**
+   * Sends a message to the topic.
+   * 
+   * @param msg  the message, not null
+   */
+  private void send(final FudgeMsg msg) {
+    final byte[] fudgeMsg = OpenGammaFudgeContext.getInstance().toByteArray(msg);
     final JmsByteArrayMessageSender messageSender = new JmsByteArrayMessageSender(getJmsConnector().getTopicName(), getJmsConnector().getJmsTemplateTopic());
     messageSender.send(fudgeMsg);
   }
@@ -156,8 +195,16 @@ public class JmsChangeManager extends BasicChangeManager implements MessageListe
     final FudgeMsg msg = msgEnvelope.getMessage();
     s_logger.debug("Received change message {}", msg);
     final FudgeDeserializer deserializer = new FudgeDeserializer(fudgeContext);
-    final ChangeEvent event = deserializer.fudgeMsgToObject(ChangeEvent.class, msg);
-    fireEntityChanged(event);
+    if (msg.hasField(EVENT_FIELD_NAME)) {
+      final List<ChangeEvent> events = new ArrayList<ChangeEvent>();
+      for (FudgeField field : msg.getAllByName(EVENT_FIELD_NAME)) {
+        events.add(deserializer.fieldValueToObject(ChangeEvent.class, field));
+      }
+      fireEntitiesChanged(events);
+    } else {
+      final ChangeEvent event = deserializer.fudgeMsgToObject(ChangeEvent.class, msg);
+      fireEntityChanged(event);
+    }
   }
 
   //-------------------------------------------------------------------------
@@ -5,6 +5,7 @@
  */
 package com.opengamma.core.historicaltimeseries;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -499,6 +500,22 @@ public interface HistoricalTimeSeriesSource extends ChangeProvider {
       Set<ExternalIdBundle> identifierSet, String dataSource, String dataProvider, String dataField,
       LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd);
 
+  /**
+   * Finds multiple time-series by unique identifier, with all data points between start and end date.
+   * <p>
+   * This is a bulk version of {@link #getHistoricalTimeSeries(UniqueId, LocalDate, boolean, LocalDate, boolean)}
+   * allowing implementations to load many time-series with a small number of requests.
+   * 
+   * @param uniqueIds  the unique identifiers of the time-series required, not null
+   * @param start  the start date, null will load the earliest date 
+   * @param includeStart  whether or not the start date is included in the result
+   * @param end  the end date, null will load the latest date
+   * @param includeEnd  whether or not the end date is included in the result
+   * @return a map of each identifier found to the corresponding time-series, not null
+   */
+  Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd);
+
   //-------------------------------------------------------------------------
   
   /**
@@ -6,6 +6,8 @@
 package com.opengamma.core.historicaltimeseries.impl;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -218,6 +220,23 @@ public class DataHistoricalTimeSeriesSourceResource extends AbstractDataResource
     return responseOkFudge(FudgeMapWrapper.of(result));
   }
 
+  @SuppressWarnings("unchecked")
+  @POST
+  @Path("htsBulk")
+  public Response getBulk(FudgeMsgEnvelope request) {
+    FudgeMsg msg = request.getMessage();
+    FudgeDeserializer deserializationContext = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    List<UniqueId> uniqueIds = deserializationContext.fudgeMsgToObject(List.class, msg.getMessage("id"));
+    LocalDate start = deserializationContext.fieldValueToObject(LocalDate.class, msg.getByName("start"));
+    boolean inclusiveStart = msg.getBoolean("includeStart");
+    LocalDate end = deserializationContext.fieldValueToObject(LocalDate.class, msg.getByName("end"));
+    boolean includeEnd = msg.getBoolean("includeEnd");
+
+    Map<UniqueId, HistoricalTimeSeries> result = getHistoricalTimeSeriesSource().getHistoricalTimeSeries(
+        uniqueIds, start, inclusiveStart, end, includeEnd);
+    return responseOkFudge(FudgeMapWrapper.of(result));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * For debugging purposes only.
@@ -398,4 +417,21 @@ public class DataHistoricalTimeSeriesSourceResource extends AbstractDataResource
     return msg;
   }
 
+  public static URI uriGetBulk(URI baseUri) {
+    UriBuilder bld = UriBuilder.fromUri(baseUri).path("htsBulk");
+    return bld.build();
+  }
+
+  public static FudgeMsg uriGetBulkData(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    FudgeSerializer serializationContext = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    MutableFudgeMsg msg = serializationContext.newMessage();
+    serializationContext.addToMessage(msg, "id", null, new ArrayList<UniqueId>(uniqueIds));
+    serializationContext.addToMessage(msg, "start", null, start);
+    serializationContext.addToMessage(msg, "includeStart", null, includeStart);
+    serializationContext.addToMessage(msg, "end", null, end);
+    serializationContext.addToMessage(msg, "includeEnd", null, includeEnd);
+    return msg;
+  }
+
 }
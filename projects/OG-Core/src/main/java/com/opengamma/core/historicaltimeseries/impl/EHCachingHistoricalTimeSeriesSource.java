@@ -6,6 +6,7 @@
 package com.opengamma.core.historicaltimeseries.impl;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -667,6 +668,45 @@ public class EHCachingHistoricalTimeSeriesSource implements HistoricalTimeSeries
     return result;
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.notNull(uniqueIds, "uniqueIds");
+    SubSeriesKey subseriesKey = new SubSeriesKey(start, includeStart, end, includeEnd, null);
+    Map<UniqueId, HistoricalTimeSeries> result = new HashMap<UniqueId, HistoricalTimeSeries>();
+    Set<UniqueId> remainingIds = new HashSet<UniqueId>();
+    // caching works individually but all misses can be passed to underlying as one request
+    for (UniqueId uniqueId : uniqueIds) {
+      Element element = _dataCache.get(Pair.of(uniqueId, subseriesKey));
+      if (element == null) {
+        element = _dataCache.get(uniqueId);
+        if (element != null && !MISS.equals(element.getObjectValue())) {
+          result.put(uniqueId, getSubSeries((HistoricalTimeSeries) element.getObjectValue(), start, includeStart, end, includeEnd, null));
+        } else {
+          remainingIds.add(uniqueId);
+        }
+      } else if (!MISS.equals(element.getObjectValue())) {
+        result.put(uniqueId, (HistoricalTimeSeries) element.getObjectValue());
+      }
+    }
+    if (remainingIds.size() > 0) {
+      Map<UniqueId, HistoricalTimeSeries> remainingTsResults = _underlying.getHistoricalTimeSeries(remainingIds, start, includeStart, end, includeEnd);
+      for (UniqueId uniqueId : remainingIds) {
+        ObjectsPair<UniqueId, SubSeriesKey> key = Pair.of(uniqueId, subseriesKey);
+        HistoricalTimeSeries hts = remainingTsResults.get(uniqueId);
+        if (hts != null) {
+          s_logger.debug("Caching sub time-series {}", hts);
+          _dataCache.put(new Element(key, hts));
+          result.put(uniqueId, hts);
+        } else {
+          s_logger.debug("Caching miss {}", key);
+          _dataCache.put(new Element(key, MISS));
+        }
+      }
+    }
+    return result;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Attempts to retrieve the time-series with the given key from the cache.
@@ -5,6 +5,8 @@
  */
 package com.opengamma.core.historicaltimeseries.impl;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -294,6 +296,20 @@ public class MockHistoricalTimeSeriesSource implements HistoricalTimeSeriesSourc
     throw new UnsupportedOperationException(getClass().getName() + " does not support getHistoricalTimeSeries for multiple time-series");
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.notNull(uniqueIds, "uniqueIds");
+    Map<UniqueId, HistoricalTimeSeries> result = new HashMap<UniqueId, HistoricalTimeSeries>();
+    for (UniqueId uniqueId : uniqueIds) {
+      HistoricalTimeSeries hts = getHistoricalTimeSeries(uniqueId, start, includeStart, end, includeEnd);
+      if (hts != null) {
+        result.put(uniqueId, hts);
+      }
+    }
+    return result;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Stores a time-series in this source.
@@ -0,0 +1,717 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.time.calendar.Clock;
+import javax.time.calendar.LocalDate;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.core.change.BasicChangeManager;
+import com.opengamma.core.change.ChangeEvent;
+import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.change.ChangeManager;
+import com.opengamma.core.change.ChangeType;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.OpenGammaClock;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * A cache in front of a {@code HistoricalTimeSeriesSource} that holds the data points outside the Java heap.
+ * <p>
+ * Each series is loaded once in full and held in its primitive form in a direct buffer.
+ * Requests for different date ranges of the same series are served from the single cached copy,
+ * reading back only the requested points. Series requested by unique identifier are keyed by the
+ * object identifier and version, an unversioned identifier representing the latest version-correction.
+ * <p>
+ * Entries are discarded in least-recently-used order once the off-heap memory exceeds the maximum,
+ * and are invalidated by change events from the underlying source.
+ * The direct buffers of discarded entries are released when garbage collected.
+ * <p>
+ * Hit-rate and memory statistics are available through the {@link OffHeapCachingHistoricalTimeSeriesSourceMBean} interface.
+ */
+public class OffHeapCachingHistoricalTimeSeriesSource implements HistoricalTimeSeriesSource, OffHeapCachingHistoricalTimeSeriesSourceMBean {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(OffHeapCachingHistoricalTimeSeriesSource.class);
+
+  /**
+   * The default maximum off-heap memory, 1Gb.
+   */
+  public static final long DEFAULT_MAXIMUM_MEMORY = 1024L * 1024L * 1024L;
+  /**
+   * The cache entry recording that no time-series exists.
+   */
+  private static final Object MISS = new Object();
+
+  /**
+   * The underlying source.
+   */
+  private final HistoricalTimeSeriesSource _underlying;
+  /**
+   * The maximum off-heap memory in bytes.
+   */
+  private final long _maximumMemory;
+  /**
+   * The change manager.
+   */
+  private final ChangeManager _changeManager;
+  /**
+   * The listener on the underlying source.
+   */
+  private final ChangeListener _changeListener;
+  /**
+   * The cached entries in access order, used as the lock for all cache state.
+   */
+  private final LinkedHashMap<Object, Object> _entries = new LinkedHashMap<Object, Object>(256, 0.75f, true);
+  /**
+   * The cache keys by the object identifiers they depend on.
+   */
+  private final Map<ObjectId, Set<Object>> _keysByObjectId = new HashMap<ObjectId, Set<Object>>();
+  /**
+   * The off-heap memory in use.
+   */
+  private long _memoryUsed;
+  /**
+   * The count of change events processed, used to discard loads that overlap a change.
+   */
+  private long _changeCount;
+  /**
+   * The number of cache hits.
+   */
+  private final AtomicLong _hits = new AtomicLong();
+  /**
+   * The number of cache misses.
+   */
+  private final AtomicLong _misses = new AtomicLong();
+  /**
+   * The number of entries evicted to free memory.
+   */
+  private final AtomicLong _evictions = new AtomicLong();
+  /**
+   * The clock.
+   */
+  private final Clock _clock = OpenGammaClock.getInstance();
+
+  /**
+   * Creates an instance using the default maximum memory.
+   *
+   * @param underlying  the underlying source, not null
+   */
+  public OffHeapCachingHistoricalTimeSeriesSource(final HistoricalTimeSeriesSource underlying) {
+    this(underlying, DEFAULT_MAXIMUM_MEMORY);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param underlying  the underlying source, not null
+   * @param maximumMemory  the maximum off-heap memory to use in bytes, positive
+   */
+  public OffHeapCachingHistoricalTimeSeriesSource(final HistoricalTimeSeriesSource underlying, final long maximumMemory) {
+    ArgumentChecker.notNull(underlying, "underlying");
+    ArgumentChecker.isTrue(maximumMemory > 0, "maximumMemory must be positive");
+    _underlying = underlying;
+    _maximumMemory = maximumMemory;
+    _changeManager = new BasicChangeManager();
+    _changeListener = new ChangeListener() {
+      @Override
+      public void entityChanged(final ChangeEvent event) {
+        invalidate(event);
+        changeManager().entityChanged(event.getType(), event.getObjectId(), event.getVersionFrom(), event.getVersionTo(), event.getVersionInstant());
+      }
+    };
+    _underlying.changeManager().addChangeListener(_changeListener);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the underlying source.
+   *
+   * @return the underlying source, not null
+   */
+  public HistoricalTimeSeriesSource getUnderlying() {
+    return _underlying;
+  }
+
+  /**
+   * Gets the clock.
+   *
+   * @return the clock, not null
+   */
+  public Clock getClock() {
+    return _clock;
+  }
+
+  /**
+   * Stops listening to changes in the underlying source and clears the cache.
+   */
+  public void shutdown() {
+    _underlying.changeManager().removeChangeListener(_changeListener);
+    clear();
+  }
+
+  @Override
+  public ChangeManager changeManager() {
+    return _changeManager;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(final UniqueId uniqueId) {
+    return subSeries(get(uniqueId), null, true, null, true, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final UniqueId uniqueId, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return subSeries(get(uniqueId), start, includeStart, end, includeEnd, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final UniqueId uniqueId, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final int maxPoints) {
+    return subSeries(get(uniqueId), start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(final UniqueId uniqueId) {
+    return latest(get(uniqueId), null, true, null, true);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final UniqueId uniqueId, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return latest(get(uniqueId), start, includeStart, end, includeEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final ExternalIdBundle identifierBundle, final String dataSource, final String dataProvider, final String dataField) {
+    return getHistoricalTimeSeries(identifierBundle, LocalDate.now(getClock()), dataSource, dataProvider, dataField);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final ExternalIdBundle identifierBundle, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return getHistoricalTimeSeries(identifierBundle, LocalDate.now(getClock()), dataSource, dataProvider, dataField, start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final ExternalIdBundle identifierBundle, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final int maxPoints) {
+    return getHistoricalTimeSeries(identifierBundle, LocalDate.now(getClock()), dataSource, dataProvider, dataField, start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String dataSource, final String dataProvider, final String dataField) {
+    return subSeries(get(SeriesKey.of(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField)), null, true, null, true, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return subSeries(get(SeriesKey.of(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField)), start, includeStart, end, includeEnd, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final int maxPoints) {
+    return subSeries(get(SeriesKey.of(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField)), start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String dataSource, final String dataProvider, final String dataField) {
+    return latest(get(SeriesKey.of(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField)), null, true, null, true);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return latest(get(SeriesKey.of(identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField)), start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final ExternalIdBundle identifierBundle, final String dataSource, final String dataProvider, final String dataField) {
+    return getLatestDataPoint(identifierBundle, LocalDate.now(getClock()), dataSource, dataProvider, dataField);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final ExternalIdBundle identifierBundle, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return getLatestDataPoint(identifierBundle, LocalDate.now(getClock()), dataSource, dataProvider, dataField, start, includeStart, end, includeEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final String dataField, final ExternalIdBundle identifierBundle, final String resolutionKey) {
+    return getHistoricalTimeSeries(dataField, identifierBundle, LocalDate.now(getClock()), resolutionKey);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final String dataField, final ExternalIdBundle identifierBundle, final String resolutionKey,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return getHistoricalTimeSeries(dataField, identifierBundle, LocalDate.now(getClock()), resolutionKey, start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final String dataField, final ExternalIdBundle identifierBundle, final String resolutionKey,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final int maxPoints) {
+    return getHistoricalTimeSeries(dataField, identifierBundle, LocalDate.now(getClock()), resolutionKey, start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final String dataField, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String resolutionKey) {
+    return subSeries(get(SeriesKey.ofResolver(dataField, identifierBundle, identifierValidityDate, resolutionKey)), null, true, null, true, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final String dataField, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String resolutionKey,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return subSeries(get(SeriesKey.ofResolver(dataField, identifierBundle, identifierValidityDate, resolutionKey)), start, includeStart, end, includeEnd, null);
+  }
+
+  @Override
+  public HistoricalTimeSeries getHistoricalTimeSeries(
+      final String dataField, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String resolutionKey,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final int maxPoints) {
+    return subSeries(get(SeriesKey.ofResolver(dataField, identifierBundle, identifierValidityDate, resolutionKey)), start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final String dataField, final ExternalIdBundle identifierBundle, final String resolutionKey) {
+    return getLatestDataPoint(dataField, identifierBundle, LocalDate.now(getClock()), resolutionKey);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final String dataField, final ExternalIdBundle identifierBundle, final String resolutionKey,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return getLatestDataPoint(dataField, identifierBundle, LocalDate.now(getClock()), resolutionKey, start, includeStart, end, includeEnd);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final String dataField, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String resolutionKey) {
+    return latest(get(SeriesKey.ofResolver(dataField, identifierBundle, identifierValidityDate, resolutionKey)), null, true, null, true);
+  }
+
+  @Override
+  public Pair<LocalDate, Double> getLatestDataPoint(
+      final String dataField, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate, final String resolutionKey,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    return latest(get(SeriesKey.ofResolver(dataField, identifierBundle, identifierValidityDate, resolutionKey)), start, includeStart, end, includeEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Map<ExternalIdBundle, HistoricalTimeSeries> getHistoricalTimeSeries(
+      final Set<ExternalIdBundle> identifierSet, final String dataSource, final String dataProvider, final String dataField,
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    ArgumentChecker.notNull(identifierSet, "identifierSet");
+    final Map<ExternalIdBundle, HistoricalTimeSeries> result = new HashMap<ExternalIdBundle, HistoricalTimeSeries>();
+    final Set<ExternalIdBundle> remainingIds = new HashSet<ExternalIdBundle>();
+    // caching works individually but all misses can be passed to underlying as one request
+    for (ExternalIdBundle identifiers : identifierSet) {
+      final Object entry = getEntry(SeriesKey.of(identifiers, null, dataSource, dataProvider, dataField));
+      if (entry == null) {
+        remainingIds.add(identifiers);
+      } else if (entry != MISS) {
+        result.put(identifiers, subSeries(entry, start, includeStart, end, includeEnd, null));
+      }
+    }
+    if (remainingIds.size() > 0) {
+      final long changeCount = getChangeCount();
+      final Map<ExternalIdBundle, HistoricalTimeSeries> loaded = _underlying.getHistoricalTimeSeries(
+          remainingIds, dataSource, dataProvider, dataField, null, true, null, true);
+      for (ExternalIdBundle identifiers : remainingIds) {
+        final Object entry = putEntry(SeriesKey.of(identifiers, null, dataSource, dataProvider, dataField), null, loaded.get(identifiers), changeCount);
+        if (entry != MISS) {
+          result.put(identifiers, subSeries(entry, start, includeStart, end, includeEnd, null));
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      final Collection<UniqueId> uniqueIds, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    ArgumentChecker.notNull(uniqueIds, "uniqueIds");
+    final Map<UniqueId, HistoricalTimeSeries> result = new HashMap<UniqueId, HistoricalTimeSeries>();
+    final Set<UniqueId> remainingIds = new HashSet<UniqueId>();
+    for (UniqueId uniqueId : uniqueIds) {
+      final Object entry = getEntry(uniqueId);
+      if (entry == null) {
+        remainingIds.add(uniqueId);
+      } else if (entry != MISS) {
+        result.put(uniqueId, subSeries(entry, start, includeStart, end, includeEnd, null));
+      }
+    }
+    if (remainingIds.size() > 0) {
+      final long changeCount = getChangeCount();
+      final Map<UniqueId, HistoricalTimeSeries> loaded = _underlying.getHistoricalTimeSeries(remainingIds, null, true, null, true);
+      for (UniqueId uniqueId : remainingIds) {
+        final Object entry = putEntry(uniqueId, uniqueId.getObjectId(), loaded.get(uniqueId), changeCount);
+        if (entry != MISS) {
+          result.put(uniqueId, subSeries(entry, start, includeStart, end, includeEnd, null));
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public ExternalIdBundle getExternalIdBundle(final UniqueId uniqueId) {
+    return _underlying.getExternalIdBundle(uniqueId);
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public long getHitCount() {
+    return _hits.get();
+  }
+
+  @Override
+  public long getMissCount() {
+    return _misses.get();
+  }
+
+  @Override
+  public double getHitRate() {
+    final long hits = _hits.get();
+    final long total = hits + _misses.get();
+    return total > 0 ? (double) hits / (double) total : 0d;
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return _evictions.get();
+  }
+
+  @Override
+  public int getEntryCount() {
+    synchronized (_entries) {
+      return _entries.size();
+    }
+  }
+
+  @Override
+  public long getMemoryUsed() {
+    synchronized (_entries) {
+      return _memoryUsed;
+    }
+  }
+
+  @Override
+  public long getMaximumMemory() {
+    return _maximumMemory;
+  }
+
+  @Override
+  public void clear() {
+    synchronized (_entries) {
+      _entries.clear();
+      _keysByObjectId.clear();
+      _memoryUsed = 0;
+      _changeCount++;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the cached series by unique identifier, loading the full series on a miss.
+   *
+   * @param uniqueId  the unique identifier, not null
+   * @return the cache entry, not null
+   */
+  private Object get(final UniqueId uniqueId) {
+    ArgumentChecker.notNull(uniqueId, "uniqueId");
+    Object entry = getEntry(uniqueId);
+    if (entry == null) {
+      final long changeCount = getChangeCount();
+      entry = putEntry(uniqueId, uniqueId.getObjectId(), _underlying.getHistoricalTimeSeries(uniqueId), changeCount);
+    }
+    return entry;
+  }
+
+  /**
+   * Gets the cached series by search key, loading the full series on a miss.
+   *
+   * @param key  the key, not null
+   * @return the cache entry, not null
+   */
+  private Object get(final SeriesKey key) {
+    Object entry = getEntry(key);
+    if (entry == null) {
+      final long changeCount = getChangeCount();
+      final HistoricalTimeSeries hts;
+      if (key._resolver) {
+        hts = _underlying.getHistoricalTimeSeries(key._dataField, key._identifierBundle, key._identifierValidityDate, key._resolutionKey);
+      } else {
+        hts = _underlying.getHistoricalTimeSeries(key._identifierBundle, key._identifierValidityDate, key._dataSource, key._dataProvider, key._dataField);
+      }
+      entry = putEntry(key, null, hts, changeCount);
+    }
+    return entry;
+  }
+
+  private static HistoricalTimeSeries subSeries(
+      final Object entry, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final Integer maxPoints) {
+    if (entry == MISS) {
+      return null;
+    }
+    return ((OffHeapTimeSeries) entry).getSubSeries(start, includeStart, end, includeEnd, maxPoints);
+  }
+
+  private static Pair<LocalDate, Double> latest(
+      final Object entry, final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    if (entry == MISS) {
+      return null;
+    }
+    return ((OffHeapTimeSeries) entry).getLatestDataPoint(start, includeStart, end, includeEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  private long getChangeCount() {
+    synchronized (_entries) {
+      return _changeCount;
+    }
+  }
+
+  private Object getEntry(final Object key) {
+    final Object entry;
+    synchronized (_entries) {
+      entry = _entries.get(key);
+    }
+    if (entry != null) {
+      _hits.incrementAndGet();
+    } else {
+      _misses.incrementAndGet();
+    }
+    return entry;
+  }
+
+  /**
+   * Stores a loaded time-series, unless a change was received while it was being loaded.
+   *
+   * @param key  the cache key, not null
+   * @param objectId  the requested object identifier, null if not known
+   * @param hts  the loaded time-series, null if not found
+   * @param changeCount  the change count before the series was loaded
+   * @return the cache entry, not null
+   */
+  private Object putEntry(final Object key, final ObjectId objectId, final HistoricalTimeSeries hts, final long changeCount) {
+    final Object entry = (hts != null ? new OffHeapTimeSeries(hts) : MISS);
+    synchronized (_entries) {
+      if (changeCount != _changeCount) {
+        s_logger.debug("Not caching {} as it changed while loading", key);
+        return entry;
+      }
+      removeEntry(key);
+      _entries.put(key, entry);
+      if (objectId != null) {
+        index(objectId, key);
+      }
+      if (entry != MISS) {
+        final OffHeapTimeSeries series = (OffHeapTimeSeries) entry;
+        if (series.getUniqueId() != null) {
+          index(series.getUniqueId().getObjectId(), key);
+        }
+        _memoryUsed += series.getMemorySize();
+        evict(key);
+      }
+    }
+    return entry;
+  }
+
+  // must hold lock
+  private void index(final ObjectId objectId, final Object key) {
+    Set<Object> keys = _keysByObjectId.get(objectId);
+    if (keys == null) {
+      keys = new HashSet<Object>();
+      _keysByObjectId.put(objectId, keys);
+    }
+    keys.add(key);
+  }
+
+  // must hold lock
+  private void unindex(final ObjectId objectId, final Object key) {
+    final Set<Object> keys = _keysByObjectId.get(objectId);
+    if (keys != null && keys.remove(key) && keys.isEmpty()) {
+      _keysByObjectId.remove(objectId);
+    }
+  }
+
+  // must hold lock
+  private void removeEntry(final Object key) {
+    final Object entry = _entries.remove(key);
+    if (entry != null) {
+      released(key, entry);
+    }
+  }
+
+  // must hold lock
+  private void released(final Object key, final Object entry) {
+    if (key instanceof UniqueId) {
+      unindex(((UniqueId) key).getObjectId(), key);
+    }
+    if (entry != MISS) {
+      final OffHeapTimeSeries series = (OffHeapTimeSeries) entry;
+      if (series.getUniqueId() != null) {
+        unindex(series.getUniqueId().getObjectId(), key);
+      }
+      _memoryUsed -= series.getMemorySize();
+    }
+  }
+
+  // must hold lock
+  private void evict(final Object keep) {
+    final Iterator<Map.Entry<Object, Object>> it = _entries.entrySet().iterator();
+    while (_memoryUsed > _maximumMemory && it.hasNext()) {
+      final Map.Entry<Object, Object> cached = it.next();
+      if (cached.getKey().equals(keep)) {
+        continue;
+      }
+      it.remove();
+      released(cached.getKey(), cached.getValue());
+      _evictions.incrementAndGet();
+    }
+  }
+
+  private void invalidate(final ChangeEvent event) {
+    synchronized (_entries) {
+      _changeCount++;
+      final Set<Object> keys = _keysByObjectId.remove(event.getObjectId());
+      if (keys != null) {
+        for (Object key : keys) {
+          removeEntry(key);
+        }
+      }
+      if (event.getType() == ChangeType.ADDED) {
+        // a new time-series may now satisfy a previous search
+        final Iterator<Map.Entry<Object, Object>> it = _entries.entrySet().iterator();
+        while (it.hasNext()) {
+          final Map.Entry<Object, Object> cached = it.next();
+          if (cached.getValue() == MISS) {
+            it.remove();
+            released(cached.getKey(), cached.getValue());
+          }
+        }
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[" + getUnderlying() + "]";
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Cache key for series found by external identifier.
+   */
+  private static final class SeriesKey {
+    private final boolean _resolver;
+    private final ExternalIdBundle _identifierBundle;
+    private final LocalDate _identifierValidityDate;
+    private final String _dataSource;
+    private final String _dataProvider;
+    private final String _dataField;
+    private final String _resolutionKey;
+
+    private SeriesKey(final boolean resolver, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate,
+        final String dataSource, final String dataProvider, final String dataField, final String resolutionKey) {
+      ArgumentChecker.notNull(identifierBundle, "identifierBundle");
+      _resolver = resolver;
+      _identifierBundle = identifierBundle;
+      _identifierValidityDate = identifierValidityDate;
+      _dataSource = dataSource;
+      _dataProvider = dataProvider;
+      _dataField = dataField;
+      _resolutionKey = resolutionKey;
+    }
+
+    static SeriesKey of(final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate,
+        final String dataSource, final String dataProvider, final String dataField) {
+      return new SeriesKey(false, identifierBundle, identifierValidityDate, dataSource, dataProvider, dataField, null);
+    }
+
+    static SeriesKey ofResolver(final String dataField, final ExternalIdBundle identifierBundle, final LocalDate identifierValidityDate,
+        final String resolutionKey) {
+      return new SeriesKey(true, identifierBundle, identifierValidityDate, null, null, dataField, resolutionKey);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof SeriesKey) {
+        final SeriesKey other = (SeriesKey) obj;
+        return _resolver == other._resolver &&
+            _identifierBundle.equals(other._identifierBundle) &&
+            ObjectUtils.equals(_identifierValidityDate, other._identifierValidityDate) &&
+            ObjectUtils.equals(_dataSource, other._dataSource) &&
+            ObjectUtils.equals(_dataProvider, other._dataProvider) &&
+            ObjectUtils.equals(_dataField, other._dataField) &&
+            ObjectUtils.equals(_resolutionKey, other._resolutionKey);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = _identifierBundle.hashCode();
+      hash = hash * 31 + ObjectUtils.hashCode(_identifierValidityDate);
+      hash = hash * 31 + ObjectUtils.hashCode(_dataSource);
+      hash = hash * 31 + ObjectUtils.hashCode(_dataProvider);
+      hash = hash * 31 + ObjectUtils.hashCode(_dataField);
+      hash = hash * 31 + ObjectUtils.hashCode(_resolutionKey);
+      return _resolver ? ~hash : hash;
+    }
+
+    @Override
+    public String toString() {
+      return "SeriesKey[" + _identifierBundle + ", " + _identifierValidityDate + ", " +
+          (_resolver ? _resolutionKey : _dataSource + ", " + _dataProvider) + ", " + _dataField + "]";
+    }
+  }
+
+}
@@ -0,0 +1,22 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+/**
+ * JMX MBean interface for the off-heap time-series cache statistics.
+ */
+public interface OffHeapCachingHistoricalTimeSeriesSourceMBean {
+
+  long getHitCount();
+  long getMissCount();
+  double getHitRate();
+  long getEvictionCount();
+  int getEntryCount();
+  long getMemoryUsed();
+  long getMaximumMemory();
+  void clear();
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+import javax.time.calendar.LocalDate;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * A daily time-series held outside the Java heap in its primitive form.
+ * <p>
+ * The values are held as doubles followed by the dates as epoch days in a single direct buffer.
+ * Sub-series are located by binary search and only the requested range is read back onto the heap.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+/* package */ final class OffHeapTimeSeries {
+
+  /**
+   * The number of bytes used for each data point.
+   */
+  private static final int BYTES_PER_POINT = 12;
+
+  /**
+   * The unique identifier of the time-series.
+   */
+  private final UniqueId _uniqueId;
+  /**
+   * The number of data points.
+   */
+  private final int _size;
+  /**
+   * The dates, as epoch days, in ascending order.
+   */
+  private final IntBuffer _times;
+  /**
+   * The values.
+   */
+  private final DoubleBuffer _values;
+
+  /**
+   * Creates an instance copying the data points from a time-series.
+   *
+   * @param hts  the time-series, not null
+   */
+  /* package */ OffHeapTimeSeries(final HistoricalTimeSeries hts) {
+    _uniqueId = hts.getUniqueId();
+    final FastIntDoubleTimeSeries series = hts.getTimeSeries().toFastIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS);
+    _size = series.size();
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(_size * BYTES_PER_POINT, 1)).order(ByteOrder.nativeOrder());
+    buffer.limit(_size * 8);
+    _values = buffer.slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    _values.put(series.valuesArrayFast()).flip();
+    buffer.limit(_size * BYTES_PER_POINT).position(_size * 8);
+    _times = buffer.slice().order(ByteOrder.nativeOrder()).asIntBuffer();
+    _times.put(series.timesArrayFast()).flip();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the unique identifier of the time-series.
+   *
+   * @return the unique identifier, not null
+   */
+  /* package */ UniqueId getUniqueId() {
+    return _uniqueId;
+  }
+
+  /**
+   * Gets the number of bytes held off-heap.
+   *
+   * @return the size in bytes
+   */
+  /* package */ long getMemorySize() {
+    return (long) _size * BYTES_PER_POINT;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets a sub-series, the whole series if no range is specified.
+   *
+   * @param start  the start date, null for the earliest date
+   * @param includeStart  whether the start date is included
+   * @param end  the end date, null for the latest date
+   * @param includeEnd  whether the end date is included
+   * @param maxPoints  the maximum number of points, negative to take from the end, null for no limit
+   * @return the time-series, not null
+   */
+  /* package */ HistoricalTimeSeries getSubSeries(
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final Integer maxPoints) {
+    final long range = range(start, includeStart, end, includeEnd, maxPoints);
+    final int from = (int) (range >>> 32);
+    final int length = (int) range - from;
+    final int[] times = new int[length];
+    final double[] values = new double[length];
+    final IntBuffer timesBuffer = _times.duplicate();
+    timesBuffer.position(from);
+    timesBuffer.get(times);
+    final DoubleBuffer valuesBuffer = _values.duplicate();
+    valuesBuffer.position(from);
+    valuesBuffer.get(values);
+    final LocalDateDoubleTimeSeries series = new ArrayLocalDateDoubleTimeSeries(new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, times, values));
+    return new SimpleHistoricalTimeSeries(_uniqueId, series);
+  }
+
+  /**
+   * Gets the latest data point within a range.
+   *
+   * @param start  the start date, null for the earliest date
+   * @param includeStart  whether the start date is included
+   * @param end  the end date, null for the latest date
+   * @param includeEnd  whether the end date is included
+   * @return the latest date and value, null if there are no points in the range
+   */
+  /* package */ Pair<LocalDate, Double> getLatestDataPoint(
+      final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd) {
+    final long range = range(start, includeStart, end, includeEnd, null);
+    final int from = (int) (range >>> 32);
+    final int to = (int) range;
+    if (to <= from) {
+      return null;
+    }
+    return Pair.of(LocalDate.ofEpochDays(_times.get(to - 1)), _values.get(to - 1));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Finds the index range of the points to return.
+   *
+   * @return the start index, inclusive, in the upper word and end index, exclusive, in the lower word
+   */
+  private long range(final LocalDate start, final boolean includeStart, final LocalDate end, final boolean includeEnd, final Integer maxPoints) {
+    int from = 0;
+    int to = _size;
+    if (start != null) {
+      from = firstIndexAfter(start.toEpochDays() - (includeStart ? 1 : 0));
+    }
+    if (end != null) {
+      to = firstIndexAfter(end.toEpochDays() - (includeEnd ? 0 : 1));
+    }
+    if (to < from) {
+      to = from;
+    }
+    if (maxPoints != null && Math.abs((long) maxPoints) < to - from) {
+      if (maxPoints >= 0) {
+        to = from + maxPoints;
+      } else {
+        from = to + maxPoints;
+      }
+    }
+    return ((long) from << 32) | to;
+  }
+
+  /**
+   * Finds the index of the first point strictly after a date.
+   *
+   * @param epochDay  the date as epoch days
+   * @return the index, from zero to the size inclusive
+   */
+  private int firstIndexAfter(final long epochDay) {
+    int low = 0;
+    int high = _size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (_times.get(mid) <= epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+}
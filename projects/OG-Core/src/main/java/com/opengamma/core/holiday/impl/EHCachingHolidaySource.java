@@ -6,18 +6,16 @@
 package com.opengamma.core.holiday.impl;
 
 import static com.google.common.collect.Maps.newHashMap;
-import static com.opengamma.util.ehcache.EHCacheUtils.putException;
-import static com.opengamma.util.ehcache.EHCacheUtils.putValue;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.time.calendar.LocalDate;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
 import com.opengamma.DataNotFoundException;
 import com.opengamma.core.holiday.Holiday;
@@ -29,105 +27,95 @@ import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
 import com.opengamma.util.money.Currency;
+import com.opengamma.util.tuple.Pair;
 
 /**
- * An EHCache based {@link HolidaySource}. This is better than having no cache but is not very efficient. Also does not listen for changes to the underlying data.
+ * A caching {@link HolidaySource} using {@link ConcurrentCache}s sized from the {@code EHCache} configuration.
+ * Does not listen for changes to the underlying data.
  */
 public class EHCachingHolidaySource implements HolidaySource {
 
   /*package*/ static final String CACHE_NAME = "holiday";
+  /*package*/ static final String IS_HOLIDAY_CACHE_NAME = "holiday-isHoliday";
   private final HolidaySource _underlying;
-  private final Cache _cache;
+  /** The holidays keyed by unique identifier or by object identifier and version-correction. */
+  private final ConcurrentCache<Object, Holiday> _cache;
+  /** The results of the holiday checks keyed by their arguments. */
+  private final ConcurrentCache<List<?>, Boolean> _isHolidayCache;
 
   public EHCachingHolidaySource(final HolidaySource underlying, final CacheManager cacheManager) {
     ArgumentChecker.notNull(underlying, "underlying");
     ArgumentChecker.notNull(cacheManager, "cacheManager");
     _underlying = underlying;
-    EHCacheUtils.addCache(cacheManager, CACHE_NAME);
-    _cache = EHCacheUtils.getCacheFromManager(cacheManager, CACHE_NAME);
+    _cache = EHCacheUtils.createConcurrentCache(cacheManager, CACHE_NAME);
+    _isHolidayCache = EHCacheUtils.createConcurrentCache(cacheManager, IS_HOLIDAY_CACHE_NAME);
   }
 
   protected HolidaySource getUnderlying() {
     return _underlying;
   }
 
-  protected Cache getCache() {
-    return _cache;
+  /**
+   * Gets the statistics of the caches.
+   *
+   * @return the statistics of each cache, not null
+   */
+  public List<CacheStatistics> getCacheStatistics() {
+    return Arrays.asList(_cache.getStatistics(), _isHolidayCache.getStatistics());
   }
 
   @Override
   public Holiday get(final UniqueId uniqueId) {
-    final Element e = getCache().get(uniqueId);
-    if (e != null) {
-      return EHCacheUtils.get(e);
-    }
-    try {
-      return putValue(uniqueId, getUnderlying().get(uniqueId), getCache());
-    } catch (RuntimeException ex) {
-      return putException(uniqueId, ex, getCache());
-    }
+    return _cache.get(uniqueId, new Callable<Holiday>() {
+      @Override
+      public Holiday call() {
+        return getUnderlying().get(uniqueId);
+      }
+    });
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public Holiday get(final ObjectId objectId, final VersionCorrection versionCorrection) {
-    final Object key = Arrays.asList(objectId, versionCorrection);
-    final Element e = getCache().get(key);
-    if (e != null) {
-      return EHCacheUtils.get(e);
-    }
-    try {
-      return putValue(key, getUnderlying().get(objectId, versionCorrection), getCache());
-    } catch (RuntimeException ex) {
-      return putException(key, ex, getCache());
-    }
+    return _cache.get(Pair.of(objectId, versionCorrection), new Callable<Holiday>() {
+      @Override
+      public Holiday call() {
+        return getUnderlying().get(objectId, versionCorrection);
+      }
+    });
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public boolean isHoliday(final LocalDate dateToCheck, final Currency currency) {
-    final Object key = Arrays.asList(dateToCheck, currency);
-    final Element e = getCache().get(key);
-    if (e != null) {
-      return (Boolean) EHCacheUtils.get(e);
-    }
-    try {
-      return (Boolean) putValue(key, getUnderlying().isHoliday(dateToCheck, currency), getCache());
-    } catch (RuntimeException ex) {
-      return (Boolean) putException(key, ex, getCache());
-    }
+    return _isHolidayCache.get(Arrays.asList(dateToCheck, currency), new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return getUnderlying().isHoliday(dateToCheck, currency);
+      }
+    });
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public boolean isHoliday(final LocalDate dateToCheck, final HolidayType holidayType, final ExternalIdBundle regionOrExchangeIds) {
-    final Object key = Arrays.asList(dateToCheck, holidayType, regionOrExchangeIds);
-    final Element e = getCache().get(key);
-    if (e != null) {
-      return (Boolean) EHCacheUtils.get(e);
-    }
-    try {
-      return (Boolean) putValue(key, getUnderlying().isHoliday(dateToCheck, holidayType, regionOrExchangeIds), getCache());
-    } catch (RuntimeException ex) {
-      return (Boolean) putException(key, ex, getCache());
-    }
+    return _isHolidayCache.get(Arrays.asList(dateToCheck, holidayType, regionOrExchangeIds), new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return getUnderlying().isHoliday(dateToCheck, holidayType, regionOrExchangeIds);
+      }
+    });
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public boolean isHoliday(final LocalDate dateToCheck, final HolidayType holidayType, final ExternalId regionOrExchangeId) {
-    final Object key = Arrays.asList(dateToCheck, holidayType, regionOrExchangeId);
-    final Element e = getCache().get(key);
-    if (e != null) {
-      return (Boolean) EHCacheUtils.get(e);
-    }
-    try {
-      return (Boolean) putValue(key, getUnderlying().isHoliday(dateToCheck, holidayType, regionOrExchangeId), getCache());
-    } catch (RuntimeException ex) {
-      return (Boolean) putException(key, ex, getCache());
-    }
+    return _isHolidayCache.get(Arrays.asList(dateToCheck, holidayType, regionOrExchangeId), new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return getUnderlying().isHoliday(dateToCheck, holidayType, regionOrExchangeId);
+      }
+    });
   }
 
   @Override
@@ -5,14 +5,14 @@
  */
 package com.opengamma.core.position.impl;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
-import com.google.common.collect.MapMaker;
 import com.opengamma.core.change.BasicChangeManager;
+import com.opengamma.core.change.CacheInvalidatingChangeListener;
 import com.opengamma.core.change.ChangeEvent;
 import com.opengamma.core.change.ChangeListener;
 import com.opengamma.core.change.ChangeManager;
@@ -25,12 +25,15 @@ import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
 
 /**
  * A cache decorating a {@code PositionSource}.
  * <p>
- * The cache is implemented using {@code EHCache}.
+ * The cache is implemented using {@link ConcurrentCache}, sized from the {@code EHCache} configuration.
+ * Items requested by a latest unique identifier are not cached.
  */
 public class EHCachingPositionSource implements PositionSource {
 
@@ -62,19 +65,19 @@ public class EHCachingPositionSource implements PositionSource {
   /**
    * The portfolio cache.
    */
-  private final Cache _portfolioCache;
+  private final ConcurrentCache<UniqueId, Portfolio> _portfolioCache;
   /**
    * The node cache.
    */
-  private final Cache _portfolioNodeCache;
+  private final ConcurrentCache<UniqueId, PortfolioNode> _portfolioNodeCache;
   /**
    * The position cache.
    */
-  private final Cache _positionCache;
+  private final ConcurrentCache<UniqueId, Position> _positionCache;
   /**
    * The trade cache.
    */
-  private final Cache _tradeCache;
+  private final ConcurrentCache<UniqueId, Trade> _tradeCache;
   /**
    * Listens for changes in the underlying position source.
    */
@@ -84,8 +87,6 @@ public class EHCachingPositionSource implements PositionSource {
    */
   private final ChangeManager _changeManager;
 
-  private final ConcurrentMap<UniqueId, Object> _frontCache = new MapMaker().weakValues().makeMap();
-
   /**
    * Creates the cache around an underlying position source.
    * 
@@ -97,19 +98,17 @@ public class EHCachingPositionSource implements PositionSource {
     ArgumentChecker.notNull(cacheManager, "cacheManager");
     _underlying = underlying;
     _cacheManager = cacheManager;
-    EHCacheUtils.addCache(cacheManager, PORTFOLIO_CACHE);
-    EHCacheUtils.addCache(cacheManager, PORTFOLIONODE_CACHE);
-    EHCacheUtils.addCache(cacheManager, POSITION_CACHE);
-    EHCacheUtils.addCache(cacheManager, TRADE_CACHE);
-    _portfolioCache = EHCacheUtils.getCacheFromManager(cacheManager, PORTFOLIO_CACHE);
-    _portfolioNodeCache = EHCacheUtils.getCacheFromManager(cacheManager, PORTFOLIONODE_CACHE);
-    _positionCache = EHCacheUtils.getCacheFromManager(cacheManager, POSITION_CACHE);
-    _tradeCache = EHCacheUtils.getCacheFromManager(cacheManager, TRADE_CACHE);
+    _portfolioCache = EHCacheUtils.createConcurrentCache(cacheManager, PORTFOLIO_CACHE);
+    _portfolioNodeCache = EHCacheUtils.createConcurrentCache(cacheManager, PORTFOLIONODE_CACHE);
+    _positionCache = EHCacheUtils.createConcurrentCache(cacheManager, POSITION_CACHE);
+    _tradeCache = EHCacheUtils.createConcurrentCache(cacheManager, TRADE_CACHE);
+    final CacheInvalidatingChangeListener cacheInvalidator = new CacheInvalidatingChangeListener()
+        .addObjectCache(_portfolioCache).addObjectCache(_portfolioNodeCache).addObjectCache(_positionCache).addObjectCache(_tradeCache);
     _changeManager = new BasicChangeManager();
     _changeListener = new ChangeListener() {
       @Override
       public void entityChanged(ChangeEvent event) {
-        cleanCaches(event.getObjectId());        
+        cacheInvalidator.entityChanged(event);
         changeManager().entityChanged(event.getType(), event.getObjectId(), event.getVersionFrom(), event.getVersionTo(), event.getVersionInstant());
       }
     };
@@ -135,139 +134,76 @@ public class EHCachingPositionSource implements PositionSource {
     return _cacheManager;
   }
 
+  /**
+   * Gets the statistics of the caches.
+   * 
+   * @return the statistics of each cache, not null
+   */
+  public List<CacheStatistics> getCacheStatistics() {
+    return Arrays.asList(_portfolioCache.getStatistics(), _portfolioNodeCache.getStatistics(), _positionCache.getStatistics(),
+        _tradeCache.getStatistics());
+  }
+
   //-------------------------------------------------------------------------
   @Override
-  public Portfolio getPortfolio(UniqueId uniqueId) {
-    Object f = _frontCache.get(uniqueId);
-    if (f instanceof Portfolio) {
-      return (Portfolio) f;
-    }
+  public Portfolio getPortfolio(final UniqueId uniqueId) {
     if (uniqueId.isLatest()) {
-      Portfolio portfolio = getUnderlying().getPortfolio(uniqueId);
-      f = _frontCache.putIfAbsent(portfolio.getUniqueId(), portfolio);
-      if (f instanceof Portfolio) {
-        return (Portfolio) f;
-      } else {
-        _portfolioCache.put(new Element(portfolio.getUniqueId(), portfolio));
-        return portfolio;
-      }
+      final Portfolio portfolio = getUnderlying().getPortfolio(uniqueId);
+      _portfolioCache.put(portfolio.getUniqueId(), portfolio);
+      return portfolio;
     }
-    Element e = _portfolioCache.get(uniqueId);
-    if (e != null) {
-      final Portfolio portfolio = (Portfolio) e.getObjectValue();
-      f = _frontCache.putIfAbsent(uniqueId, portfolio);
-      if (f instanceof Portfolio) {
-        return (Portfolio) f;
-      } else {
-        return portfolio;
-      }
-    } else {
-      Portfolio portfolio = getUnderlying().getPortfolio(uniqueId);
-      f = _frontCache.putIfAbsent(uniqueId, portfolio);
-      if (f instanceof Portfolio) {
-        return (Portfolio) f;
-      } else {
-        _portfolioCache.put(new Element(portfolio.getUniqueId(), portfolio));
-        return portfolio;
+    return _portfolioCache.get(uniqueId, new Callable<Portfolio>() {
+      @Override
+      public Portfolio call() {
+        return getUnderlying().getPortfolio(uniqueId);
       }
-    }
+    });
   }
 
   @Override
   public Portfolio getPortfolio(ObjectId objectId, VersionCorrection versionCorrection) {
     Portfolio portfolio = getUnderlying().getPortfolio(objectId, versionCorrection);
-    _portfolioCache.put(new Element(portfolio.getUniqueId(), portfolio));
+    _portfolioCache.put(portfolio.getUniqueId(), portfolio);
     return portfolio;
   }
 
   @Override
-  public PortfolioNode getPortfolioNode(UniqueId uniqueId) {
-    Object f = _frontCache.get(uniqueId);
-    if (f instanceof PortfolioNode) {
-      return (PortfolioNode) f;
-    }
+  public PortfolioNode getPortfolioNode(final UniqueId uniqueId) {
     if (uniqueId.isLatest()) {
       return getUnderlying().getPortfolioNode(uniqueId);
     }
-    Element e = _portfolioNodeCache.get(uniqueId);
-    if (e != null) {
-      final PortfolioNode node = (PortfolioNode) e.getObjectValue();
-      f = _frontCache.putIfAbsent(uniqueId, node);
-      if (f instanceof PortfolioNode) {
-        return (PortfolioNode) f;
-      } else {
-        return (PortfolioNode) e.getObjectValue();
-      }
-    } else {
-      PortfolioNode node = getUnderlying().getPortfolioNode(uniqueId);
-      f = _frontCache.putIfAbsent(uniqueId, node);
-      if (f instanceof PortfolioNode) {
-        return (PortfolioNode) f;
-      } else {
-        _portfolioNodeCache.put(new Element(node.getUniqueId(), node));
-        return node;
+    return _portfolioNodeCache.get(uniqueId, new Callable<PortfolioNode>() {
+      @Override
+      public PortfolioNode call() {
+        return getUnderlying().getPortfolioNode(uniqueId);
       }
-    }
+    });
   }
 
   @Override
-  public Position getPosition(UniqueId uniqueId) {
-    Object f = _frontCache.get(uniqueId);
-    if (f instanceof Position) {
-      return (Position) f;
-    }
+  public Position getPosition(final UniqueId uniqueId) {
     if (uniqueId.isLatest()) {
       return getUnderlying().getPosition(uniqueId);
     }
-    Element e = _positionCache.get(uniqueId);
-    if (e != null) {
-      final Position position = (Position) e.getObjectValue();
-      f = _frontCache.putIfAbsent(uniqueId, position);
-      if (f instanceof Position) {
-        return (Position) f;
-      } else {
-        return position;
-      }
-    } else {
-      final Position position = getUnderlying().getPosition(uniqueId);
-      f = _frontCache.putIfAbsent(uniqueId, position);
-      if (f instanceof Position) {
-        return (Position) f;
-      } else {
-        _positionCache.put(new Element(position.getUniqueId(), position));
-        return position;
+    return _positionCache.get(uniqueId, new Callable<Position>() {
+      @Override
+      public Position call() {
+        return getUnderlying().getPosition(uniqueId);
       }
-    }
+    });
   }
 
   @Override
-  public Trade getTrade(UniqueId uniqueId) {
-    Object f = _frontCache.get(uniqueId);
-    if (f instanceof Trade) {
-      return (Trade) f;
-    }
+  public Trade getTrade(final UniqueId uniqueId) {
     if (uniqueId.isLatest()) {
       return getUnderlying().getTrade(uniqueId);
     }
-    Element e = _tradeCache.get(uniqueId);
-    if (e != null) {
-      final Trade trade = (Trade) e.getObjectValue();
-      f = _frontCache.putIfAbsent(uniqueId, trade);
-      if (f instanceof Trade) {
-        return (Trade) f;
-      } else {
-        return trade;
-      }
-    } else {
-      final Trade trade = getUnderlying().getTrade(uniqueId);
-      f = _frontCache.putIfAbsent(uniqueId, trade);
-      if (f instanceof Trade) {
-        return (Trade) f;
-      } else {
-        _tradeCache.put(new Element(trade.getUniqueId(), trade));
-        return trade;
+    return _tradeCache.get(uniqueId, new Callable<Trade>() {
+      @Override
+      public Trade call() {
+        return getUnderlying().getTrade(uniqueId);
       }
-    }
+    });
   }
 
   //-------------------------------------------------------------------------
@@ -277,26 +213,21 @@ public class EHCachingPositionSource implements PositionSource {
   }
 
   /**
-   * Call this at the end of a unit test run to clear the state of EHCache.
+   * Call this at the end of a unit test run to clear the state of the caches.
    * It should not be part of a generic lifecycle method.
    */
   protected void shutdown() {
     _underlying.changeManager().removeChangeListener(_changeListener);
+    _portfolioCache.invalidateAll();
+    _portfolioNodeCache.invalidateAll();
+    _positionCache.invalidateAll();
+    _tradeCache.invalidateAll();
     _cacheManager.removeCache(PORTFOLIO_CACHE);
     _cacheManager.removeCache(PORTFOLIONODE_CACHE);
     _cacheManager.removeCache(POSITION_CACHE);
     _cacheManager.removeCache(TRADE_CACHE);
   }
 
-  //-------------------------------------------------------------------------
-  private void cleanCaches(ObjectId oid) {    
-    _portfolioNodeCache.remove(oid);
-    _portfolioCache.remove(oid);
-    _positionCache.remove(oid);
-    _tradeCache.remove(oid);
-    _frontCache.remove(oid);
-  }
-
   //-------------------------------------------------------------------------
   @Override
   public String toString() {
@@ -0,0 +1,399 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.security.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.beans.Bean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.DataNotFoundException;
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.core.change.CacheInvalidatingChangeListener;
+import com.opengamma.core.change.ChangeManager;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
+import com.opengamma.util.cache.ConcurrentCache;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Wrapper around an existing {@link SecuritySource} that gathers the single lookups made by concurrent threads over a short
+ * window into bulk requests to the underlying. This suits a remote underlying, where dependency graph building would otherwise
+ * make a round trip for every target it resolves.
+ * <p>
+ * Lookups by unique identifier are sent as one call to {@link SecuritySource#get(Collection)}, lookups by bundle as one call
+ * to {@link RemoteSecuritySource#getSingle(Collection, VersionCorrection)} if the underlying is remote. A lookup made while
+ * no other batch is being fetched is fetched straight away. Otherwise the first thread to make a lookup waits for the batch
+ * window, or until the batch is full, and then fetches the batch for every thread waiting.
+ * <p>
+ * The securities loaded are then checked for an {@code underlyingId} property, as the option, future and swaption security
+ * beans have. The latest versions of those underlyings are fetched in the background in a further bulk request and held for
+ * a short time, so that resolving an option's underlying doesn't need another round trip.
+ * <p>
+ * This class is thread-safe.
+ */
+public class BatchingSecuritySource implements SecuritySource {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(BatchingSecuritySource.class);
+
+  /**
+   * The default time to gather lookups for before fetching them.
+   */
+  public static final long DEFAULT_BATCH_WINDOW_MILLIS = 5;
+  /**
+   * The default number of lookups that are fetched straight away rather than waiting for the rest of the batch window.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+  /**
+   * The time the prefetched underlying securities are held for.
+   */
+  private static final long PREFETCH_EXPIRY_SECONDS = 60;
+  /**
+   * The maximum number of prefetched underlying securities held.
+   */
+  private static final long PREFETCH_MAX_SIZE = 10000;
+  /**
+   * The name of the bean property holding the identifier of a security's underlying.
+   */
+  private static final String UNDERLYING_ID = "underlyingId";
+
+  /**
+   * The underlying source.
+   */
+  private final SecuritySource _underlying;
+  /**
+   * The batch window in nanoseconds.
+   */
+  private final long _batchWindowNanos;
+  /**
+   * The maximum number of lookups in a batch.
+   */
+  private final int _maxBatchSize;
+  /**
+   * The latest versions of the underlyings of the securities fetched, keyed by bundle.
+   */
+  private final ConcurrentCache<ExternalIdBundle, Security> _prefetched;
+  /**
+   * The executor fetching the underlyings of the securities fetched.
+   */
+  private final Executor _prefetchExecutor;
+  /**
+   * Lock guarding the current batch.
+   */
+  private final Object _lock = new Object();
+  /**
+   * The batch that lookups are being added to, null if there is none.
+   */
+  private Batch _batch;
+  /**
+   * The number of batches being fetched, guarded by the lock.
+   */
+  private int _fetching;
+
+  /**
+   * Creates an instance with the default batch window and size.
+   *
+   * @param underlying  the underlying source, not null
+   */
+  public BatchingSecuritySource(final SecuritySource underlying) {
+    this(underlying, DEFAULT_BATCH_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param underlying  the underlying source, not null
+   * @param batchWindowMillis  the time to gather lookups for before fetching them, zero or greater
+   * @param maxBatchSize  the number of lookups which are fetched without waiting for the rest of the window, greater than zero
+   */
+  public BatchingSecuritySource(final SecuritySource underlying, final long batchWindowMillis, final int maxBatchSize) {
+    this(underlying, batchWindowMillis, maxBatchSize,
+        Executors.newSingleThreadExecutor(new NamedThreadPoolFactory("BatchingSecuritySource-prefetch", true)));
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param underlying  the underlying source, not null
+   * @param batchWindowMillis  the time to gather lookups for before fetching them, zero or greater
+   * @param maxBatchSize  the number of lookups which are fetched without waiting for the rest of the window, greater than zero
+   * @param prefetchExecutor  the executor to fetch the underlyings of the securities fetched, not null
+   */
+  public BatchingSecuritySource(final SecuritySource underlying, final long batchWindowMillis, final int maxBatchSize, final Executor prefetchExecutor) {
+    ArgumentChecker.notNull(underlying, "underlying");
+    ArgumentChecker.isTrue(batchWindowMillis >= 0, "batchWindowMillis must not be negative");
+    ArgumentChecker.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+    ArgumentChecker.notNull(prefetchExecutor, "prefetchExecutor");
+    _underlying = underlying;
+    _batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+    _maxBatchSize = maxBatchSize;
+    _prefetchExecutor = prefetchExecutor;
+    _prefetched = ConcurrentCache.<ExternalIdBundle, Security>builder("BatchingSecuritySource-prefetch")
+        .maximumSize(PREFETCH_MAX_SIZE).expireAfterWrite(PREFETCH_EXPIRY_SECONDS, TimeUnit.SECONDS).build();
+    underlying.changeManager().addChangeListener(new CacheInvalidatingChangeListener().addQueryCache(_prefetched));
+  }
+
+  protected SecuritySource getUnderlying() {
+    return _underlying;
+  }
+
+  @Override
+  public ChangeManager changeManager() {
+    return getUnderlying().changeManager();
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public Security get(final UniqueId uniqueId) {
+    ArgumentChecker.notNull(uniqueId, "uniqueId");
+    final Security security = await(join(uniqueId, null))._securities.get(uniqueId);
+    if (security == null) {
+      throw new DataNotFoundException("Security not found: " + uniqueId);
+    }
+    return security;
+  }
+
+  @Override
+  public Map<UniqueId, Security> get(final Collection<UniqueId> uniqueIds) {
+    final Map<UniqueId, Security> result = getUnderlying().get(uniqueIds);
+    prefetchUnderlyings(result.values(), null);
+    return result;
+  }
+
+  @Override
+  public Security getSingle(final ExternalIdBundle bundle) {
+    return getSingle(bundle, VersionCorrection.LATEST);
+  }
+
+  @Override
+  public Security getSingle(final ExternalIdBundle bundle, final VersionCorrection versionCorrection) {
+    ArgumentChecker.notNull(bundle, "bundle");
+    ArgumentChecker.notNull(versionCorrection, "versionCorrection");
+    if (versionCorrection.equals(VersionCorrection.LATEST)) {
+      final Security security = _prefetched.getIfPresent(bundle);
+      if (security != null) {
+        return security;
+      }
+    }
+    final Pair<ExternalIdBundle, VersionCorrection> key = Pair.of(bundle, versionCorrection);
+    return await(join(null, key))._singles.get(key);
+  }
+
+  @Override
+  public Security get(final ObjectId objectId, final VersionCorrection versionCorrection) {
+    return getUnderlying().get(objectId, versionCorrection);
+  }
+
+  @Override
+  public Collection<Security> get(final ExternalIdBundle bundle, final VersionCorrection versionCorrection) {
+    return getUnderlying().get(bundle, versionCorrection);
+  }
+
+  @Override
+  public Collection<Security> get(final ExternalIdBundle bundle) {
+    return getUnderlying().get(bundle);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets single securities matching each of a set of bundles.
+   * <p>
+   * This makes one request if the underlying is a {@link RemoteSecuritySource} and one call for each bundle otherwise.
+   *
+   * @param bundles  the bundles, not null
+   * @param versionCorrection  the version-correction, not null
+   * @return the securities found, keyed by bundle, not null
+   */
+  protected Map<ExternalIdBundle, Security> getSingle(final Collection<ExternalIdBundle> bundles, final VersionCorrection versionCorrection) {
+    if (getUnderlying() instanceof RemoteSecuritySource) {
+      return ((RemoteSecuritySource) getUnderlying()).getSingle(bundles, versionCorrection);
+    }
+    final Map<ExternalIdBundle, Security> result = new HashMap<ExternalIdBundle, Security>();
+    for (ExternalIdBundle bundle : bundles) {
+      final Security security = getUnderlying().getSingle(bundle, versionCorrection);
+      if (security != null) {
+        result.put(bundle, security);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds a lookup to the current batch, starting a new batch if there is none. A new batch only waits for further
+   * lookups if another batch is being fetched, as an uncontended lookup would otherwise be delayed for nothing.
+   */
+  private Batch join(final UniqueId uniqueId, final Pair<ExternalIdBundle, VersionCorrection> bundle) {
+    synchronized (_lock) {
+      Batch batch = _batch;
+      if (batch == null) {
+        batch = new Batch(_fetching > 0);
+        _batch = batch;
+      }
+      if (uniqueId != null) {
+        batch._uniqueIds.add(uniqueId);
+      } else {
+        batch._bundles.add(bundle);
+      }
+      if (batch._uniqueIds.size() + batch._bundles.size() >= _maxBatchSize) {
+        _batch = null;
+        batch._full.countDown();
+      }
+      return batch;
+    }
+  }
+
+  /**
+   * Waits for a batch to be fetched, fetching it if this thread started it.
+   */
+  private Batch await(final Batch batch) {
+    if (batch._leader == Thread.currentThread()) {
+      if (batch._gather) {
+        try {
+          batch._full.await(_batchWindowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+          // fetch the batch now, the other threads are waiting for it
+          Thread.currentThread().interrupt();
+        }
+      }
+      synchronized (_lock) {
+        if (_batch == batch) {
+          _batch = null;
+        }
+        _fetching++;
+      }
+      try {
+        fetch(batch);
+      } finally {
+        synchronized (_lock) {
+          _fetching--;
+        }
+      }
+    } else {
+      try {
+        batch._done.await();
+      } catch (InterruptedException ex) {
+        throw new OpenGammaRuntimeException("Interrupted", ex);
+      }
+    }
+    if (batch._error != null) {
+      throw batch._error;
+    }
+    return batch;
+  }
+
+  /**
+   * Fetches a closed batch and releases the threads waiting for it, then prefetches the underlyings of the securities.
+   */
+  private void fetch(final Batch batch) {
+    s_logger.debug("Fetching {} securities by unique identifier and {} by bundle", batch._uniqueIds.size(), batch._bundles.size());
+    try {
+      if (!batch._uniqueIds.isEmpty()) {
+        batch._securities = getUnderlying().get(batch._uniqueIds);
+      }
+      final Map<VersionCorrection, Set<ExternalIdBundle>> bundles = new HashMap<VersionCorrection, Set<ExternalIdBundle>>();
+      for (Pair<ExternalIdBundle, VersionCorrection> bundle : batch._bundles) {
+        Set<ExternalIdBundle> set = bundles.get(bundle.getSecond());
+        if (set == null) {
+          set = new HashSet<ExternalIdBundle>();
+          bundles.put(bundle.getSecond(), set);
+        }
+        set.add(bundle.getFirst());
+      }
+      for (Map.Entry<VersionCorrection, Set<ExternalIdBundle>> entry : bundles.entrySet()) {
+        for (Map.Entry<ExternalIdBundle, Security> found : getSingle(entry.getValue(), entry.getKey()).entrySet()) {
+          batch._singles.put(Pair.of(found.getKey(), entry.getKey()), found.getValue());
+        }
+      }
+    } catch (RuntimeException ex) {
+      batch._error = ex;
+    } finally {
+      batch._done.countDown();
+    }
+    if (batch._error == null) {
+      prefetchUnderlyings(batch._securities.values(), batch._singles.values());
+    }
+  }
+
+  /**
+   * Fetches the latest versions of the underlyings of securities that haven't already been fetched. The fetch is made by
+   * the prefetch executor so the caller isn't held up.
+   */
+  private void prefetchUnderlyings(final Collection<Security> securities, final Collection<Security> moreSecurities) {
+    final Set<ExternalIdBundle> bundles = new HashSet<ExternalIdBundle>();
+    addUnderlyings(securities, bundles);
+    if (moreSecurities != null) {
+      addUnderlyings(moreSecurities, bundles);
+    }
+    if (bundles.isEmpty()) {
+      return;
+    }
+    _prefetchExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (Map.Entry<ExternalIdBundle, Security> entry : getSingle(bundles, VersionCorrection.LATEST).entrySet()) {
+            _prefetched.put(entry.getKey(), entry.getValue());
+          }
+        } catch (RuntimeException ex) {
+          // the underlyings will be fetched when they are asked for
+          s_logger.warn("Unable to prefetch underlying securities", ex);
+        }
+      }
+    });
+  }
+
+  private void addUnderlyings(final Collection<Security> securities, final Set<ExternalIdBundle> bundles) {
+    for (Security security : securities) {
+      if (security instanceof Bean && ((Bean) security).metaBean().metaPropertyExists(UNDERLYING_ID)) {
+        final Object underlyingId = ((Bean) security).property(UNDERLYING_ID).get();
+        if (underlyingId instanceof ExternalId) {
+          final ExternalIdBundle bundle = ((ExternalId) underlyingId).toBundle();
+          if (_prefetched.getIfPresent(bundle) == null) {
+            bundles.add(bundle);
+          }
+        }
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The lookups gathered over one batch window.
+   */
+  private static final class Batch {
+    private final Thread _leader = Thread.currentThread();
+    private final boolean _gather;
+    private final Set<UniqueId> _uniqueIds = new HashSet<UniqueId>();
+    private final Set<Pair<ExternalIdBundle, VersionCorrection>> _bundles = new HashSet<Pair<ExternalIdBundle, VersionCorrection>>();
+    private final CountDownLatch _full = new CountDownLatch(1);
+    private final CountDownLatch _done = new CountDownLatch(1);
+    private Map<UniqueId, Security> _securities = new HashMap<UniqueId, Security>();
+    private final Map<Pair<ExternalIdBundle, VersionCorrection>, Security> _singles = new HashMap<Pair<ExternalIdBundle, VersionCorrection>, Security>();
+    private RuntimeException _error;
+
+    private Batch(final boolean gather) {
+      _gather = gather;
+    }
+  }
+
+}
@@ -6,11 +6,14 @@
 package com.opengamma.core.security.impl;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
@@ -19,8 +22,11 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.fudgemsg.FudgeMsg;
 import org.fudgemsg.FudgeMsgEnvelope;
 import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
 
 import com.opengamma.core.security.Security;
 import com.opengamma.core.security.SecuritySource;
@@ -31,6 +37,7 @@ import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.fudgemsg.FudgeListWrapper;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
 import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
 import com.opengamma.util.rest.AbstractDataResource;
 
@@ -112,6 +119,35 @@ public class DataSecuritySourceResource extends AbstractDataResource {
     return responseOkFudge(FudgeListWrapper.of(result.values()));
   }
 
+  @SuppressWarnings("unchecked")
+  @POST
+  @Path("securitySearches/bulk")
+  public Response getBulk(FudgeMsgEnvelope request) {
+    // variant using POST, as many identifiers can exceed the maximum length of a URI
+    final FudgeDeserializer deserializer = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    final List<UniqueId> uids = deserializer.fudgeMsgToObject(List.class, request.getMessage().getMessage("id"));
+    Map<UniqueId, Security> result = getSecuritySource().get(uids);
+    return responseOkFudge(FudgeListWrapper.of(result.values()));
+  }
+
+  @SuppressWarnings("unchecked")
+  @POST
+  @Path("securitySearches/bulkSingle")
+  public Response searchBulkSingle(FudgeMsgEnvelope request) {
+    final FudgeMsg msg = request.getMessage();
+    final FudgeDeserializer deserializer = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    final List<ExternalIdBundle> bundles = deserializer.fudgeMsgToObject(List.class, msg.getMessage("id"));
+    final VersionCorrection vc = VersionCorrection.parse(msg.getString("versionAsOf"), msg.getString("correctedTo"));
+    final Map<ExternalIdBundle, Security> result = new LinkedHashMap<ExternalIdBundle, Security>();
+    for (ExternalIdBundle bundle : bundles) {
+      final Security security = getSecuritySource().getSingle(bundle, vc);
+      if (security != null) {
+        result.put(bundle, security);
+      }
+    }
+    return responseOkFudge(FudgeMapWrapper.of(result));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Builds a URI.
@@ -176,6 +212,59 @@ public class DataSecuritySourceResource extends AbstractDataResource {
     return bld.build();
   }
 
+  /**
+   * Builds a URI for the bulk lookup by unique identifier, posting the identifiers.
+   * 
+   * @param baseUri  the base URI, not null
+   * @return the URI, not null
+   */
+  public static URI uriBulk(URI baseUri) {
+    UriBuilder bld = UriBuilder.fromUri(baseUri).path("securitySearches/bulk");
+    return bld.build();
+  }
+
+  /**
+   * Builds the message posted to {@link #uriBulk(URI)}.
+   * 
+   * @param uniqueIds  the unique identifiers, not null
+   * @return the message, not null
+   */
+  public static FudgeMsg uriBulkData(Collection<UniqueId> uniqueIds) {
+    FudgeSerializer serializer = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    MutableFudgeMsg msg = serializer.newMessage();
+    serializer.addToMessage(msg, "id", null, new ArrayList<UniqueId>(uniqueIds));
+    return msg;
+  }
+
+  /**
+   * Builds a URI for the bulk lookup of single securities by bundle.
+   * 
+   * @param baseUri  the base URI, not null
+   * @return the URI, not null
+   */
+  public static URI uriSearchBulkSingle(URI baseUri) {
+    UriBuilder bld = UriBuilder.fromUri(baseUri).path("securitySearches/bulkSingle");
+    return bld.build();
+  }
+
+  /**
+   * Builds the message posted to {@link #uriSearchBulkSingle(URI)}.
+   * 
+   * @param bundles  the bundles, not null
+   * @param vc  the version-correction, null means latest
+   * @return the message, not null
+   */
+  public static FudgeMsg uriSearchBulkSingleData(Collection<ExternalIdBundle> bundles, VersionCorrection vc) {
+    FudgeSerializer serializer = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    MutableFudgeMsg msg = serializer.newMessage();
+    serializer.addToMessage(msg, "id", null, new ArrayList<ExternalIdBundle>(bundles));
+    if (vc != null) {
+      serializer.addToMessage(msg, "versionAsOf", null, vc.getVersionAsOfString());
+      serializer.addToMessage(msg, "correctedTo", null, vc.getCorrectedToString());
+    }
+    return msg;
+  }
+
   // deprecated
   //-------------------------------------------------------------------------
   @GET
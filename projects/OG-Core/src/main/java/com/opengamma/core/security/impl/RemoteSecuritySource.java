@@ -11,6 +11,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.fudgemsg.FudgeMsg;
+
 import com.opengamma.DataNotFoundException;
 import com.opengamma.core.AbstractRemoteSource;
 import com.opengamma.core.change.BasicChangeManager;
@@ -23,6 +25,7 @@ import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.fudgemsg.FudgeListWrapper;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
 import com.opengamma.util.rest.UniformInterfaceException404NotFound;
 
 /**
@@ -89,8 +92,9 @@ public class RemoteSecuritySource extends AbstractRemoteSource<Security> impleme
   public Map<UniqueId, Security> get(final Collection<UniqueId> uniqueIds) {
     ArgumentChecker.notNull(uniqueIds, "uniqueIds");
     
-    URI uri = DataSecuritySourceResource.uriBulk(getBaseUri(), uniqueIds);
-    List<Security> list = accessRemote(uri).get(FudgeListWrapper.class).getList();
+    URI uri = DataSecuritySourceResource.uriBulk(getBaseUri());
+    FudgeMsg msg = DataSecuritySourceResource.uriBulkData(uniqueIds);
+    List<Security> list = accessRemote(uri).post(FudgeListWrapper.class, msg).getList();
     Map<UniqueId, Security> result = new HashMap<UniqueId, Security>(list.size());
     for (Security security : list) {
       result.put(security.getUniqueId(), security);
@@ -98,6 +102,25 @@ public class RemoteSecuritySource extends AbstractRemoteSource<Security> impleme
     return result;
   }
 
+  /**
+   * Gets single securities matching each of a set of bundles in one request.
+   * <p>
+   * This is the bulk form of {@link #getSingle(ExternalIdBundle, VersionCorrection)}.
+   * 
+   * @param bundles  the bundles to search for, not null
+   * @param versionCorrection  the version-correction, not null
+   * @return the securities found, keyed by bundle, not null
+   */
+  @SuppressWarnings("unchecked")
+  public Map<ExternalIdBundle, Security> getSingle(final Collection<ExternalIdBundle> bundles, final VersionCorrection versionCorrection) {
+    ArgumentChecker.notNull(bundles, "bundles");
+    ArgumentChecker.notNull(versionCorrection, "versionCorrection");
+    
+    URI uri = DataSecuritySourceResource.uriSearchBulkSingle(getBaseUri());
+    FudgeMsg msg = DataSecuritySourceResource.uriSearchBulkSingleData(bundles, versionCorrection);
+    return accessRemote(uri).post(FudgeMapWrapper.class, msg).getMap();
+  }
+
   @Override
   public ChangeManager changeManager() {
     return _changeManager;
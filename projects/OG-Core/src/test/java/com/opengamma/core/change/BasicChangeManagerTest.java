@@ -8,6 +8,10 @@ package com.opengamma.core.change;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertSame;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.time.Instant;
 
 import org.testng.annotations.BeforeMethod;
@@ -109,4 +113,40 @@ public class BasicChangeManagerTest {
     _changeManager.entityChanged(ChangeType.CHANGED, UID_A_B_1.getObjectId(), NOW, NOW, NOW);
   }
 
+  //-------------------------------------------------------------------------
+  public void test_fire_batch() {
+    final ChangeEvent event1 = new ChangeEvent(ChangeType.ADDED, UID_A_B_1.getObjectId(), NOW, null, NOW);
+    final ChangeEvent event2 = new ChangeEvent(ChangeType.REMOVED, UniqueId.of("A", "C", "1").getObjectId(), NOW, null, NOW);
+    final List<List<ChangeEvent>> batches = new ArrayList<List<ChangeEvent>>();
+    final List<ChangeEvent> singles = new ArrayList<ChangeEvent>();
+    _changeManager.addChangeListener(new BatchChangeListener() {
+      @Override
+      public void entityChanged(ChangeEvent event) {
+        singles.add(event);
+      }
+      @Override
+      public void entitiesChanged(List<ChangeEvent> events) {
+        batches.add(events);
+      }
+    });
+    _changeManager.entitiesChanged(Arrays.asList(event1, event2));
+    assertEquals(1, batches.size());
+    assertEquals(Arrays.asList(event1, event2), batches.get(0));
+    assertEquals(0, singles.size());
+  }
+
+  public void test_fire_batch_plainListener() {
+    final ChangeEvent event1 = new ChangeEvent(ChangeType.ADDED, UID_A_B_1.getObjectId(), NOW, null, NOW);
+    final ChangeEvent event2 = new ChangeEvent(ChangeType.REMOVED, UniqueId.of("A", "C", "1").getObjectId(), NOW, null, NOW);
+    final List<ChangeEvent> singles = new ArrayList<ChangeEvent>();
+    _changeManager.addChangeListener(new ChangeListener() {
+      @Override
+      public void entityChanged(ChangeEvent event) {
+        singles.add(event);
+      }
+    });
+    _changeManager.entitiesChanged(Arrays.asList(event1, event2));
+    assertEquals(Arrays.asList(event1, event2), singles);
+  }
+
 }
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.change;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.id.ObjectId;
+import com.opengamma.util.jms.JmsConnector;
+import com.opengamma.util.test.ActiveMQTestUtils;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Test {@link BatchingJmsChangeManager}.
+ */
+@Test
+public class BatchingJmsChangeManagerTest {
+
+  private static final Instant NOW = Instant.now();
+  private static final Instant LATER = NOW.plusSeconds(10);
+  private static final ObjectId OID_A = ObjectId.of("Test", "A");
+  private static final ObjectId OID_B = ObjectId.of("Test", "B");
+  private static final ObjectId OID_C = ObjectId.of("Test", "C");
+  private static final long LONG_WINDOW_MILLIS = 60000;
+
+  /**
+   * Listener recording the events received.
+   */
+  private static final class RecordingListener implements BatchChangeListener {
+    private final BlockingQueue<List<ChangeEvent>> _batches = new LinkedBlockingQueue<List<ChangeEvent>>();
+    private final BlockingQueue<ChangeEvent> _singles = new LinkedBlockingQueue<ChangeEvent>();
+
+    @Override
+    public void entityChanged(final ChangeEvent event) {
+      _singles.add(event);
+    }
+
+    @Override
+    public void entitiesChanged(final List<ChangeEvent> events) {
+      _batches.add(new ArrayList<ChangeEvent>(events));
+    }
+
+    private List<ChangeEvent> nextBatch() throws InterruptedException {
+      final List<ChangeEvent> batch = _batches.poll(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+      assertNotNull(batch);
+      return batch;
+    }
+
+    private ChangeEvent nextSingle() throws InterruptedException {
+      final ChangeEvent event = _singles.poll(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+      assertNotNull(event);
+      return event;
+    }
+  }
+
+  private static JmsChangeManager createReceiver(final JmsConnector connector, final String topicName, final RecordingListener listener) {
+    final JmsChangeManager receiver = new JmsChangeManager(connector, topicName);
+    receiver.addChangeListener(listener);
+    receiver.start();
+    return receiver;
+  }
+
+  //-------------------------------------------------------------------------
+  public void test_batchRoundTrip() throws InterruptedException {
+    final String topicName = "BatchingJmsChangeManagerTest.test_batchRoundTrip";
+    final JmsConnector connector = ActiveMQTestUtils.createTestJmsConnector(topicName);
+    try {
+      final RecordingListener listener = new RecordingListener();
+      final JmsChangeManager receiver = createReceiver(connector, topicName, listener);
+      final JmsChangeManager sender = new JmsChangeManager(connector, topicName);
+      final ChangeEvent event1 = new ChangeEvent(ChangeType.ADDED, OID_A, NOW, null, NOW);
+      final ChangeEvent event2 = new ChangeEvent(ChangeType.REMOVED, OID_B, NOW, LATER, LATER);
+      sender.entitiesChanged(Arrays.asList(event1, event2));
+      assertEquals(Arrays.asList(event1, event2), listener.nextBatch());
+      assertTrue(listener._singles.isEmpty());
+      receiver.stop();
+    } finally {
+      connector.close();
+    }
+  }
+
+  public void test_hold_coalesces() throws InterruptedException {
+    final String topicName = "BatchingJmsChangeManagerTest.test_hold_coalesces";
+    final JmsConnector connector = ActiveMQTestUtils.createTestJmsConnector(topicName);
+    try {
+      final RecordingListener listener = new RecordingListener();
+      final JmsChangeManager receiver = createReceiver(connector, topicName, listener);
+      final BatchingJmsChangeManager sender = new BatchingJmsChangeManager(connector, topicName, LONG_WINDOW_MILLIS, 10);
+      sender.start();
+      sender.entityChanged(ChangeType.ADDED, OID_A, NOW, null, NOW);
+      sender.entityChanged(ChangeType.ADDED, OID_B, NOW, null, NOW);
+      sender.entityChanged(ChangeType.CHANGED, OID_A, LATER, null, LATER);
+      sender.flush();
+      final List<ChangeEvent> batch = listener.nextBatch();
+      assertEquals(Arrays.asList(new ChangeEvent(ChangeType.ADDED, OID_A, NOW, null, LATER), new ChangeEvent(ChangeType.ADDED, OID_B, NOW, null, NOW)), batch);
+      assertTrue(listener._singles.isEmpty());
+      sender.stop();
+      receiver.stop();
+      assertTrue(listener._batches.isEmpty());
+    } finally {
+      connector.close();
+    }
+  }
+
+  public void test_hold_sentAfterWindow() throws InterruptedException {
+    final String topicName = "BatchingJmsChangeManagerTest.test_hold_sentAfterWindow";
+    final JmsConnector connector = ActiveMQTestUtils.createTestJmsConnector(topicName);
+    try {
+      final RecordingListener listener = new RecordingListener();
+      final JmsChangeManager receiver = createReceiver(connector, topicName, listener);
+      final BatchingJmsChangeManager sender = new BatchingJmsChangeManager(connector, topicName, 10, 10);
+      sender.start();
+      sender.entityChanged(ChangeType.ADDED, OID_A, NOW, null, NOW);
+      assertEquals(Arrays.asList(new ChangeEvent(ChangeType.ADDED, OID_A, NOW, null, NOW)), listener.nextBatch());
+      sender.stop();
+      receiver.stop();
+    } finally {
+      connector.close();
+    }
+  }
+
+  public void test_hold_maxBatchSize() throws InterruptedException {
+    final String topicName = "BatchingJmsChangeManagerTest.test_hold_maxBatchSize";
+    final JmsConnector connector = ActiveMQTestUtils.createTestJmsConnector(topicName);
+    try {
+      final RecordingListener listener = new RecordingListener();
+      final JmsChangeManager receiver = createReceiver(connector, topicName, listener);
+      final BatchingJmsChangeManager sender = new BatchingJmsChangeManager(connector, topicName, LONG_WINDOW_MILLIS, 2);
+      sender.start();
+      sender.entityChanged(ChangeType.ADDED, OID_A, NOW, null, NOW);
+      sender.entityChanged(ChangeType.ADDED, OID_B, NOW, null, NOW);
+      sender.entityChanged(ChangeType.ADDED, OID_C, NOW, null, NOW);
+      assertEquals(2, listener.nextBatch().size());
+      // stopping sends the events still held
+      sender.stop();
+      assertEquals(Arrays.asList(new ChangeEvent(ChangeType.ADDED, OID_C, NOW, null, NOW)), listener.nextBatch());
+      receiver.stop();
+    } finally {
+      connector.close();
+    }
+  }
+
+  public void test_notRunning() throws InterruptedException {
+    final String topicName = "BatchingJmsChangeManagerTest.test_notRunning";
+    final JmsConnector connector = ActiveMQTestUtils.createTestJmsConnector(topicName);
+    try {
+      final RecordingListener listener = new RecordingListener();
+      final JmsChangeManager receiver = createReceiver(connector, topicName, listener);
+      final BatchingJmsChangeManager sender = new BatchingJmsChangeManager(connector, topicName, LONG_WINDOW_MILLIS, 10);
+      sender.entityChanged(ChangeType.REMOVED, OID_A, NOW, LATER, LATER);
+      assertEquals(new ChangeEvent(ChangeType.REMOVED, OID_A, NOW, LATER, LATER), listener.nextSingle());
+      assertTrue(listener._batches.isEmpty());
+      receiver.stop();
+    } finally {
+      connector.close();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  public void test_coalesce_addedChanged() {
+    final ChangeEvent added = new ChangeEvent(ChangeType.ADDED, OID_A, NOW, null, NOW);
+    final ChangeEvent changed = new ChangeEvent(ChangeType.CHANGED, OID_A, LATER, null, LATER);
+    final ChangeEvent coalesced = BatchingJmsChangeManager.coalesce(added, changed);
+    assertEquals(ChangeType.ADDED, coalesced.getType());
+    assertEquals(NOW, coalesced.getVersionFrom());
+    assertEquals(null, coalesced.getVersionTo());
+    assertEquals(LATER, coalesced.getVersionInstant());
+  }
+
+  public void test_coalesce_addedRemoved() {
+    final ChangeEvent added = new ChangeEvent(ChangeType.ADDED, OID_A, NOW, null, NOW);
+    final ChangeEvent removed = new ChangeEvent(ChangeType.REMOVED, OID_A, LATER, LATER, LATER);
+    final ChangeEvent coalesced = BatchingJmsChangeManager.coalesce(added, removed);
+    assertEquals(ChangeType.REMOVED, coalesced.getType());
+    assertEquals(NOW, coalesced.getVersionFrom());
+    assertEquals(null, coalesced.getVersionTo());
+  }
+
+  public void test_coalesce_versionRange() {
+    final ChangeEvent first = new ChangeEvent(ChangeType.CHANGED, OID_A, LATER, LATER.plusSeconds(10), LATER);
+    final ChangeEvent second = new ChangeEvent(ChangeType.CHANGED, OID_A, NOW, LATER, LATER.plusSeconds(20));
+    final ChangeEvent coalesced = BatchingJmsChangeManager.coalesce(first, second);
+    assertEquals(ChangeType.CHANGED, coalesced.getType());
+    assertEquals(NOW, coalesced.getVersionFrom());
+    assertEquals(LATER.plusSeconds(10), coalesced.getVersionTo());
+    assertEquals(LATER.plusSeconds(20), coalesced.getVersionInstant());
+  }
+
+}
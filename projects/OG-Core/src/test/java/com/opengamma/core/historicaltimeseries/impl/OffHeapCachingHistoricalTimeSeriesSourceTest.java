@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.historicaltimeseries.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.core.change.BasicChangeManager;
+import com.opengamma.core.change.ChangeManager;
+import com.opengamma.core.change.ChangeType;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Test {@link OffHeapCachingHistoricalTimeSeriesSource}.
+ */
+@Test
+public class OffHeapCachingHistoricalTimeSeriesSourceTest {
+
+  private static final UniqueId UID = UniqueId.of("A", "B", "1");
+  private static final ExternalIdBundle BUNDLE = ExternalIdBundle.of(ExternalId.of("C", "D"));
+  private static final LocalDate[] DATES = {LocalDate.of(2011, 6, 28), LocalDate.of(2011, 6, 29), LocalDate.of(2011, 6, 30), LocalDate.of(2011, 7, 1)};
+  private static final double[] VALUES = {1d, 2d, 3d, 4d};
+
+  private HistoricalTimeSeriesSource _underlyingSource;
+  private ChangeManager _underlyingChangeManager;
+  private OffHeapCachingHistoricalTimeSeriesSource _cachingSource;
+  private HistoricalTimeSeries _series;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    _underlyingSource = mock(HistoricalTimeSeriesSource.class);
+    _underlyingChangeManager = new BasicChangeManager();
+    when(_underlyingSource.changeManager()).thenReturn(_underlyingChangeManager);
+    _cachingSource = new OffHeapCachingHistoricalTimeSeriesSource(_underlyingSource);
+    _series = new SimpleHistoricalTimeSeries(UID, new ArrayLocalDateDoubleTimeSeries(DATES, VALUES));
+  }
+
+  //-------------------------------------------------------------------------
+  public void getHistoricalTimeSeries_UniqueId() {
+    when(_underlyingSource.getHistoricalTimeSeries(UID)).thenReturn(_series);
+    HistoricalTimeSeries series1 = _cachingSource.getHistoricalTimeSeries(UID);
+    HistoricalTimeSeries series2 = _cachingSource.getHistoricalTimeSeries(UID);
+    assertEquals(_series, series1);
+    assertEquals(_series, series2);
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID);
+    assertEquals(1, _cachingSource.getHitCount());
+    assertEquals(1, _cachingSource.getMissCount());
+    assertEquals(48, _cachingSource.getMemoryUsed());
+  }
+
+  public void getHistoricalTimeSeries_UniqueId_subSeries() {
+    when(_underlyingSource.getHistoricalTimeSeries(UID)).thenReturn(_series);
+    HistoricalTimeSeries series = _cachingSource.getHistoricalTimeSeries(UID, DATES[1], true, DATES[3], false);
+    assertEquals(UID, series.getUniqueId());
+    assertEquals(_series.getTimeSeries().subSeries(DATES[1], true, DATES[3], false), series.getTimeSeries());
+    series = _cachingSource.getHistoricalTimeSeries(UID, DATES[0], false, null, true, -2);
+    assertEquals(new ArrayLocalDateDoubleTimeSeries(new LocalDate[] {DATES[2], DATES[3]}, new double[] {3d, 4d}), series.getTimeSeries());
+    series = _cachingSource.getHistoricalTimeSeries(UID, LocalDate.of(2012, 1, 1), true, null, true);
+    assertEquals(0, series.getTimeSeries().size());
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID);
+  }
+
+  public void getLatestDataPoint_UniqueId() {
+    when(_underlyingSource.getHistoricalTimeSeries(UID)).thenReturn(_series);
+    assertEquals(Pair.of(DATES[3], 4d), _cachingSource.getLatestDataPoint(UID));
+    assertEquals(Pair.of(DATES[1], 2d), _cachingSource.getLatestDataPoint(UID, null, true, DATES[2], false));
+    assertNull(_cachingSource.getLatestDataPoint(UID, DATES[3], false, null, true));
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID);
+  }
+
+  public void getHistoricalTimeSeries_notFound() {
+    assertNull(_cachingSource.getHistoricalTimeSeries(UID));
+    assertNull(_cachingSource.getHistoricalTimeSeries(UID));
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(UID);
+  }
+
+  public void getHistoricalTimeSeries_bundle() {
+    LocalDate date = LocalDate.of(2011, 7, 1);
+    when(_underlyingSource.getHistoricalTimeSeries(BUNDLE, date, "S", "P", "F")).thenReturn(_series);
+    HistoricalTimeSeries series1 = _cachingSource.getHistoricalTimeSeries(BUNDLE, date, "S", "P", "F");
+    HistoricalTimeSeries series2 = _cachingSource.getHistoricalTimeSeries(BUNDLE, date, "S", "P", "F", DATES[2], true, null, true);
+    assertEquals(_series, series1);
+    assertEquals(2, series2.getTimeSeries().size());
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(BUNDLE, date, "S", "P", "F");
+  }
+
+  public void getHistoricalTimeSeries_bundleSet_notFound() {
+    ExternalIdBundle missing = ExternalIdBundle.of(ExternalId.of("C", "E"));
+    Set<ExternalIdBundle> bundles = ImmutableSet.of(BUNDLE, missing);
+    when(_underlyingSource.getHistoricalTimeSeries(bundles, "S", "P", "F", null, true, null, true))
+        .thenReturn(ImmutableMap.of(BUNDLE, _series));
+    Map<ExternalIdBundle, HistoricalTimeSeries> result1 = _cachingSource.getHistoricalTimeSeries(bundles, "S", "P", "F", null, true, null, true);
+    Map<ExternalIdBundle, HistoricalTimeSeries> result2 = _cachingSource.getHistoricalTimeSeries(bundles, "S", "P", "F", DATES[2], true, null, true);
+    // a series that is not found is left out rather than mapped to null, whether loaded or cached
+    assertEquals(1, result1.size());
+    assertEquals(_series, result1.get(BUNDLE));
+    assertEquals(1, result2.size());
+    assertFalse(result2.containsKey(missing));
+    assertEquals(2, result2.get(BUNDLE).getTimeSeries().size());
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(bundles, "S", "P", "F", null, true, null, true);
+  }
+
+  //-------------------------------------------------------------------------
+  public void changeInvalidates() {
+    when(_underlyingSource.getHistoricalTimeSeries(UID)).thenReturn(_series);
+    _cachingSource.getHistoricalTimeSeries(UID);
+    _underlyingChangeManager.entityChanged(ChangeType.CHANGED, UID.getObjectId(), null, null, Instant.now());
+    assertEquals(0, _cachingSource.getEntryCount());
+    assertEquals(0, _cachingSource.getMemoryUsed());
+    _cachingSource.getHistoricalTimeSeries(UID);
+    verify(_underlyingSource, times(2)).getHistoricalTimeSeries(UID);
+  }
+
+  public void addInvalidatesMisses() {
+    _cachingSource.getHistoricalTimeSeries(BUNDLE, LocalDate.of(2011, 7, 1), "S", "P", "F");
+    assertEquals(1, _cachingSource.getEntryCount());
+    _underlyingChangeManager.entityChanged(ChangeType.ADDED, UniqueId.of("A", "X").getObjectId(), null, null, Instant.now());
+    assertEquals(0, _cachingSource.getEntryCount());
+  }
+
+  public void eviction() {
+    _cachingSource = new OffHeapCachingHistoricalTimeSeriesSource(_underlyingSource, 60);
+    UniqueId other = UniqueId.of("A", "C", "1");
+    when(_underlyingSource.getHistoricalTimeSeries(UID)).thenReturn(_series);
+    when(_underlyingSource.getHistoricalTimeSeries(other)).thenReturn(new SimpleHistoricalTimeSeries(other, _series.getTimeSeries()));
+    _cachingSource.getHistoricalTimeSeries(UID);
+    _cachingSource.getHistoricalTimeSeries(other);
+    assertEquals(1, _cachingSource.getEntryCount());
+    assertEquals(1, _cachingSource.getEvictionCount());
+    assertEquals(48, _cachingSource.getMemoryUsed());
+    _cachingSource.getHistoricalTimeSeries(other);
+    verify(_underlyingSource, times(1)).getHistoricalTimeSeries(other);
+  }
+
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.security.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.beans.Bean;
+import org.joda.beans.MetaBean;
+import org.joda.beans.Property;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.DataNotFoundException;
+import com.opengamma.core.change.BasicChangeManager;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+
+/**
+ * Tests the {@link BatchingSecuritySource} class.
+ */
+@Test
+public class BatchingSecuritySourceTest {
+
+  private static final long LONG_WINDOW_MILLIS = 60000;
+
+  private static SecuritySource createUnderlying() {
+    final SecuritySource underlying = Mockito.mock(SecuritySource.class);
+    Mockito.when(underlying.changeManager()).thenReturn(new BasicChangeManager());
+    return underlying;
+  }
+
+  public void testGetSecurity_byUniqueId_uncontended() {
+    final UniqueId uidA = UniqueId.of("Test", "A");
+    final Security secA = Mockito.mock(Security.class);
+    final SecuritySource underlying = createUnderlying();
+    Mockito.when(underlying.get(ImmutableSet.of(uidA))).thenReturn(ImmutableMap.of(uidA, secA));
+    // a lookup is fetched straight away when no other batch is being fetched
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying, LONG_WINDOW_MILLIS, 10);
+    final long start = System.nanoTime();
+    assertSame(source.get(uidA), secA);
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(LONG_WINDOW_MILLIS));
+  }
+
+  public void testGetSecurity_byUniqueId_batched() throws Exception {
+    final UniqueId uidX = UniqueId.of("Test", "X");
+    final Security secX = Mockito.mock(Security.class);
+    final UniqueId uidA = UniqueId.of("Test", "A");
+    final Security secA = Mockito.mock(Security.class);
+    final UniqueId uidB = UniqueId.of("Test", "B");
+    final Security secB = Mockito.mock(Security.class);
+    final UniqueId uidC = UniqueId.of("Test", "C");
+    final Security secC = Mockito.mock(Security.class);
+    final SecuritySource underlying = createUnderlying();
+    final CountDownLatch fetching = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Mockito.when(underlying.get(ImmutableSet.of(uidX))).thenAnswer(blockingAnswer(fetching, release, ImmutableMap.of(uidX, secX)));
+    Mockito.when(underlying.get(ImmutableSet.of(uidA, uidB, uidC))).thenReturn(ImmutableMap.of(uidA, secA, uidB, secB, uidC, secC));
+    // while another batch is being fetched the next batch is only fetched when it is full
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying, LONG_WINDOW_MILLIS, 3);
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final Future<Security> x = executor.submit(get(source, uidX));
+      fetching.await();
+      final Future<Security> a = executor.submit(get(source, uidA));
+      final Future<Security> b = executor.submit(get(source, uidB));
+      final Future<Security> c = executor.submit(get(source, uidC));
+      assertSame(a.get(), secA);
+      assertSame(b.get(), secB);
+      assertSame(c.get(), secC);
+      release.countDown();
+      assertSame(x.get(), secX);
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+    Mockito.verify(underlying).get(ImmutableSet.of(uidA, uidB, uidC));
+    Mockito.verify(underlying, Mockito.never()).get(Mockito.any(UniqueId.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test(expectedExceptions = DataNotFoundException.class)
+  public void testGetSecurity_byUniqueId_missing() {
+    final SecuritySource underlying = createUnderlying();
+    Mockito.when(underlying.get(Mockito.any(Collection.class))).thenReturn(ImmutableMap.<UniqueId, Security>of());
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying, 0, 10);
+    source.get(UniqueId.of("Test", "A"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testGetSecurity_byUniqueId_error() {
+    final SecuritySource underlying = createUnderlying();
+    Mockito.when(underlying.get(Mockito.any(Collection.class))).thenThrow(new IllegalStateException());
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying, 0, 10);
+    source.get(UniqueId.of("Test", "A"));
+  }
+
+  public void testGetSingle_batched() throws Exception {
+    final UniqueId uidX = UniqueId.of("Test", "X");
+    final Security secX = Mockito.mock(Security.class);
+    final ExternalIdBundle bundleA = ExternalId.of("Test", "A").toBundle();
+    final Security secA = Mockito.mock(Security.class);
+    final ExternalIdBundle bundleB = ExternalId.of("Test", "B").toBundle();
+    final SecuritySource underlying = createUnderlying();
+    final CountDownLatch fetching = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Mockito.when(underlying.get(ImmutableSet.of(uidX))).thenAnswer(blockingAnswer(fetching, release, ImmutableMap.of(uidX, secX)));
+    Mockito.when(underlying.getSingle(bundleA, VersionCorrection.LATEST)).thenReturn(secA);
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying, LONG_WINDOW_MILLIS, 2);
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final Future<Security> x = executor.submit(get(source, uidX));
+      fetching.await();
+      final Future<Security> a = executor.submit(getSingle(source, bundleA));
+      final Future<Security> b = executor.submit(getSingle(source, bundleB));
+      assertSame(a.get(), secA);
+      assertNull(b.get());
+      release.countDown();
+      assertSame(x.get(), secX);
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+    Mockito.verify(underlying).getSingle(bundleA, VersionCorrection.LATEST);
+    Mockito.verify(underlying).getSingle(bundleB, VersionCorrection.LATEST);
+  }
+
+  public void testPrefetchUnderlyings() {
+    final UniqueId uidA = UniqueId.of("Test", "A");
+    final ExternalIdBundle underlyingBundle = ExternalId.of("Test", "U").toBundle();
+    final Security secA = createSecurityWithUnderlying(ExternalId.of("Test", "U"));
+    final Security secU = Mockito.mock(Security.class);
+    final SecuritySource underlying = createUnderlying();
+    Mockito.when(underlying.get(ImmutableSet.of(uidA))).thenReturn(ImmutableMap.of(uidA, secA));
+    Mockito.when(underlying.getSingle(underlyingBundle, VersionCorrection.LATEST)).thenReturn(secU);
+    final List<Runnable> prefetches = new ArrayList<Runnable>();
+    final Executor prefetchExecutor = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        prefetches.add(command);
+      }
+    };
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying, 0, 10, prefetchExecutor);
+    assertSame(source.get(uidA), secA);
+    // the underlying is fetched by the executor, not by the caller
+    assertEquals(prefetches.size(), 1);
+    Mockito.verify(underlying, Mockito.never()).getSingle(underlyingBundle, VersionCorrection.LATEST);
+    prefetches.get(0).run();
+    assertSame(source.getSingle(underlyingBundle), secU);
+    assertSame(source.getSingle(underlyingBundle), secU);
+    Mockito.verify(underlying, Mockito.times(1)).getSingle(underlyingBundle, VersionCorrection.LATEST);
+  }
+
+  public void testGetSecurities_passedThrough() {
+    final UniqueId uidA = UniqueId.of("Test", "A");
+    final Security secA = Mockito.mock(Security.class);
+    final SecuritySource underlying = createUnderlying();
+    final Map<UniqueId, Security> result = ImmutableMap.of(uidA, secA);
+    Mockito.when(underlying.get(ImmutableSet.of(uidA))).thenReturn(result);
+    final BatchingSecuritySource source = new BatchingSecuritySource(underlying);
+    assertSame(source.get(ImmutableSet.of(uidA)), result);
+  }
+
+  //-------------------------------------------------------------------------
+  @SuppressWarnings("unchecked")
+  private static Security createSecurityWithUnderlying(final ExternalId underlyingId) {
+    final Security security = Mockito.mock(Security.class, Mockito.withSettings().extraInterfaces(Bean.class));
+    final MetaBean metaBean = Mockito.mock(MetaBean.class);
+    final Property<Object> property = Mockito.mock(Property.class);
+    Mockito.when(((Bean) security).metaBean()).thenReturn(metaBean);
+    Mockito.when(metaBean.metaPropertyExists("underlyingId")).thenReturn(true);
+    Mockito.when(((Bean) security).<Object>property("underlyingId")).thenReturn(property);
+    Mockito.when(property.get()).thenReturn(underlyingId);
+    return security;
+  }
+
+  private static Answer<Map<UniqueId, Security>> blockingAnswer(final CountDownLatch fetching, final CountDownLatch release,
+      final Map<UniqueId, Security> result) {
+    return new Answer<Map<UniqueId, Security>>() {
+      @Override
+      public Map<UniqueId, Security> answer(final InvocationOnMock invocation) throws Throwable {
+        fetching.countDown();
+        release.await();
+        return result;
+      }
+    };
+  }
+
+  private static Callable<Security> get(final SecuritySource source, final UniqueId uniqueId) {
+    return new Callable<Security>() {
+      @Override
+      public Security call() {
+        return source.get(uniqueId);
+      }
+    };
+  }
+
+  private static Callable<Security> getSingle(final SecuritySource source, final ExternalIdBundle bundle) {
+    return new Callable<Security>() {
+      @Override
+      public Security call() {
+        return source.getSingle(bundle);
+      }
+    };
+  }
+
+}
@@ -18,10 +18,12 @@ import javax.time.Instant;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
+import org.fudgemsg.FudgeMsgEnvelope;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.opengamma.core.security.Security;
 import com.opengamma.core.security.SecuritySource;
 import com.opengamma.id.ExternalIdBundle;
@@ -29,6 +31,7 @@ import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.fudgemsg.FudgeListWrapper;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
 import com.sun.jersey.api.client.ClientResponse.Status;
 
 /**
@@ -94,4 +97,32 @@ public class DataSecuritySourceResourceTest {
     assertEquals(FudgeListWrapper.of(targetColl), test.getEntity());
   }
 
+  @Test
+  public void testGetBulk() {
+    final SimpleSecurity target = new SimpleSecurity("TEST");
+    target.setUniqueId(UID);
+    target.setExternalIdBundle(BUNDLE);
+    target.setName("Test");
+    
+    when(_underlying.get(eq(ImmutableList.of(UID)))).thenReturn(ImmutableMap.<UniqueId, Security>of(UID, target));
+    
+    Response test = _resource.getBulk(new FudgeMsgEnvelope(DataSecuritySourceResource.uriBulkData(ImmutableList.of(UID))));
+    assertEquals(Status.OK.getStatusCode(), test.getStatus());
+    assertEquals(FudgeListWrapper.of(ImmutableList.<Security>of(target)), test.getEntity());
+  }
+
+  @Test
+  public void testSearchBulkSingle() {
+    final SimpleSecurity target = new SimpleSecurity("TEST");
+    target.setExternalIdBundle(BUNDLE);
+    target.setName("Test");
+    final ExternalIdBundle missing = ExternalIdBundle.of("A", "C");
+    
+    when(_underlying.getSingle(eq(BUNDLE), eq(VC))).thenReturn(target);
+    
+    Response test = _resource.searchBulkSingle(new FudgeMsgEnvelope(DataSecuritySourceResource.uriSearchBulkSingleData(ImmutableList.of(BUNDLE, missing), VC)));
+    assertEquals(Status.OK.getStatusCode(), test.getStatus());
+    assertEquals(ImmutableMap.of(BUNDLE, target), ((FudgeMapWrapper) test.getEntity()).getMap());
+  }
+
 }
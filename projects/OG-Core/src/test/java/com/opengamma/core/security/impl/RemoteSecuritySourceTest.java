@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.security.impl;
+
+import static org.testng.Assert.assertEquals;
+
+import java.net.URI;
+import java.util.Map;
+
+import javax.time.Instant;
+
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.FudgeMsgEnvelope;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.fudgemsg.FudgeListWrapper;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
+import com.sun.jersey.api.client.UniformInterface;
+
+/**
+ * Tests the bulk requests made by {@link RemoteSecuritySource} to a {@link DataSecuritySourceResource}.
+ */
+@Test
+public class RemoteSecuritySourceTest {
+
+  private static final UniqueId UID_A = UniqueId.of("Test", "A", "1");
+  private static final UniqueId UID_B = UniqueId.of("Test", "B", "1");
+  private static final ExternalIdBundle BUNDLE_A = ExternalIdBundle.of("Ticker", "A");
+  private static final ExternalIdBundle BUNDLE_B = ExternalIdBundle.of("Ticker", "B");
+
+  private static SimpleSecurity createSecurity(final UniqueId uniqueId, final ExternalIdBundle bundle) {
+    final SimpleSecurity security = new SimpleSecurity("TEST");
+    security.setUniqueId(uniqueId);
+    security.setExternalIdBundle(bundle);
+    security.setName(uniqueId.getValue());
+    return security;
+  }
+
+  /**
+   * Creates a client whose posts are handled by a resource for the underlying source.
+   */
+  private static RemoteSecuritySource createClient(final SecuritySource underlying, final String expectedPath) {
+    final DataSecuritySourceResource server = new DataSecuritySourceResource(underlying);
+    return new RemoteSecuritySource(URI.create("http://localhost/")) {
+      @Override
+      protected UniformInterface accessRemote(final URI uri) {
+        assertEquals(uri.getPath(), expectedPath);
+        final UniformInterface builder = Mockito.mock(UniformInterface.class);
+        Mockito.when(builder.post(Mockito.eq(FudgeListWrapper.class), Mockito.any())).thenAnswer(new Answer<Object>() {
+          @Override
+          public Object answer(final InvocationOnMock invocation) throws Throwable {
+            return server.getBulk(new FudgeMsgEnvelope((FudgeMsg) invocation.getArguments()[1])).getEntity();
+          }
+        });
+        Mockito.when(builder.post(Mockito.eq(FudgeMapWrapper.class), Mockito.any())).thenAnswer(new Answer<Object>() {
+          @Override
+          public Object answer(final InvocationOnMock invocation) throws Throwable {
+            return server.searchBulkSingle(new FudgeMsgEnvelope((FudgeMsg) invocation.getArguments()[1])).getEntity();
+          }
+        });
+        return builder;
+      }
+    };
+  }
+
+  public void testGetBulk() {
+    final Security secA = createSecurity(UID_A, BUNDLE_A);
+    final Security secB = createSecurity(UID_B, BUNDLE_B);
+    final SecuritySource underlying = Mockito.mock(SecuritySource.class);
+    Mockito.when(underlying.get(ImmutableList.of(UID_A, UID_B))).thenReturn(ImmutableMap.of(UID_A, secA, UID_B, secB));
+    final RemoteSecuritySource client = createClient(underlying, "/securitySearches/bulk");
+    final Map<UniqueId, Security> result = client.get(ImmutableList.of(UID_A, UID_B));
+    assertEquals(result, ImmutableMap.of(UID_A, secA, UID_B, secB));
+  }
+
+  public void testGetSingleBulk() {
+    final Security secA = createSecurity(UID_A, BUNDLE_A);
+    final VersionCorrection vc = VersionCorrection.LATEST.withLatestFixed(Instant.now());
+    final SecuritySource underlying = Mockito.mock(SecuritySource.class);
+    Mockito.when(underlying.getSingle(BUNDLE_A, vc)).thenReturn(secA);
+    final RemoteSecuritySource client = createClient(underlying, "/securitySearches/bulkSingle");
+    final Map<ExternalIdBundle, Security> result = client.getSingle(ImmutableList.of(BUNDLE_A, BUNDLE_B), vc);
+    assertEquals(result, ImmutableMap.of(BUNDLE_A, secA));
+    Mockito.verify(underlying).getSingle(BUNDLE_B, vc);
+  }
+
+}
@@ -5,15 +5,19 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.List;
+
+import com.opengamma.core.change.BatchChangeListener;
 import com.opengamma.core.change.ChangeEvent;
-import com.opengamma.core.change.ChangeListener;
 import com.opengamma.core.change.ChangeType;
 import com.opengamma.id.UniqueId;
 
 /**
  * Change listener for a single view definition which notifies a computation job.
+ * <p>
+ * A batch of changes notifies the job at most once.
  */
-public class ViewDefinitionChangeListener implements ChangeListener {
+public class ViewDefinitionChangeListener implements BatchChangeListener {
 
   private final ViewComputationJob _computationJob;
   private final UniqueId _viewDefinitionId;
@@ -43,6 +47,20 @@ public class ViewDefinitionChangeListener implements ChangeListener {
     }
   }
 
+  @Override
+  public void entitiesChanged(List<ChangeEvent> events) {
+    if (getViewDefinitionId().isVersioned()) {
+      // Locked to a specific version
+      return;
+    }
+    for (ChangeEvent event : events) {
+      if (event.getType().equals(ChangeType.CHANGED)) {
+        getViewComputationJob().dirtyViewDefinition();
+        return;
+      }
+    }
+  }
+
   private UniqueId getViewDefinitionId() {
     return _viewDefinitionId;
   }
@@ -8,6 +8,7 @@ package com.opengamma.engine.view.compilation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.time.Instant;
@@ -29,6 +30,7 @@ public class CompiledViewDefinitionWithGraphsImpl extends CompiledViewDefinition
 
   private final Map<String, DependencyGraph> _graphsByConfiguration;
   private final long _functionInitId;
+  private final Map<String, Long> _compilationTimings;
 
   /**
    * Constructs an instance.
@@ -41,18 +43,35 @@ public class CompiledViewDefinitionWithGraphsImpl extends CompiledViewDefinition
   public CompiledViewDefinitionWithGraphsImpl(ViewDefinition viewDefinition,
       Map<String, DependencyGraph> graphsByConfiguration,
       Portfolio portfolio, long functionInitId) {
+    this(viewDefinition, graphsByConfiguration, portfolio, functionInitId, Collections.<String, Long>emptyMap());
+  }
+
+  /**
+   * Constructs an instance.
+   * 
+   * @param viewDefinition  the view definition, not null
+   * @param graphsByConfiguration  the dependency graphs by calculation configuration name, not null
+   * @param portfolio  the portfolio, possibly null
+   * @param functionInitId  the function init ID that was used when creating the dependency graphs
+   * @param compilationTimings  the time taken by each compilation phase in nanoseconds, not null
+   */
+  public CompiledViewDefinitionWithGraphsImpl(ViewDefinition viewDefinition,
+      Map<String, DependencyGraph> graphsByConfiguration,
+      Portfolio portfolio, long functionInitId, Map<String, Long> compilationTimings) {
     this(viewDefinition, portfolio, processCompiledCalculationConfigurations(graphsByConfiguration),
-        processValidityRange(graphsByConfiguration), graphsByConfiguration, functionInitId);
+        processValidityRange(graphsByConfiguration), graphsByConfiguration, functionInitId, compilationTimings);
   }
   
   private CompiledViewDefinitionWithGraphsImpl(ViewDefinition viewDefinition, Portfolio portfolio,
       Collection<CompiledViewCalculationConfiguration> compiledCalculationConfigurations,
       Pair<Instant, Instant> validityRange,
       Map<String, DependencyGraph> graphsByConfiguration,
-      long functionInitId) {
+      long functionInitId, Map<String, Long> compilationTimings) {
     super(viewDefinition, portfolio, compiledCalculationConfigurations, validityRange.getFirst(), validityRange.getSecond());
+    ArgumentChecker.notNull(compilationTimings, "compilationTimings");
     _functionInitId = functionInitId;
     _graphsByConfiguration = Collections.unmodifiableMap(graphsByConfiguration);
+    _compilationTimings = Collections.unmodifiableMap(new LinkedHashMap<String, Long>(compilationTimings));
   }
   
   //--------------------------------------------------------------------------
@@ -96,6 +115,16 @@ public class CompiledViewDefinitionWithGraphsImpl extends CompiledViewDefinition
     return _functionInitId;
   }
 
+  /**
+   * Gets the time taken by each phase of the compilation, in the order the phases ran.
+   * This is empty if the timings were not recorded.
+   * 
+   * @return an unmodifiable map of the elapsed time in nanoseconds keyed by phase name, not null
+   */
+  public Map<String, Long> getCompilationTimings() {
+    return _compilationTimings;
+  }
+
   //-------------------------------------------------------------------------
   
   @Override
@@ -7,6 +7,9 @@ package com.opengamma.engine.view.compilation;
 
 import java.util.concurrent.ExecutorService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.position.Portfolio;
@@ -29,6 +32,9 @@ import com.opengamma.id.VersionCorrection;
  */
 public final class PortfolioCompiler {
 
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(PortfolioCompiler.class);
+
   private PortfolioCompiler() {
   }
 
@@ -53,7 +59,7 @@ public final class PortfolioCompiler {
       return null;
     }
 
-    Portfolio portfolio = forcePortfolioResolution ? getPortfolio(compilationContext, versionCorrection) : null;
+    Portfolio portfolio = forcePortfolioResolution ? getResolvedPortfolio(compilationContext, versionCorrection) : null;
 
     for (ViewCalculationConfiguration calcConfig : compilationContext.getViewDefinition().getAllCalculationConfigurations()) {
       if (calcConfig.getAllPortfolioRequirements().size() == 0) {
@@ -63,13 +69,16 @@ public final class PortfolioCompiler {
 
       // Actually need the portfolio now
       if (portfolio == null) {
-        portfolio = getPortfolio(compilationContext, versionCorrection);
+        portfolio = getResolvedPortfolio(compilationContext, versionCorrection);
       }
       
       // Add portfolio requirements to the dependency graph
+      compilationContext.phaseStarted(ViewDefinitionCompiler.PHASE_PORTFOLIO_REQUIREMENTS);
+      final long t = System.nanoTime();
       final DependencyGraphBuilder builder = compilationContext.getBuilder(calcConfig.getName());
       final PortfolioCompilerTraversalCallback traversalCallback = new PortfolioCompilerTraversalCallback(calcConfig, builder);
       PortfolioNodeTraverser.parallel(traversalCallback, compilationContext.getServices().getExecutorService()).traverse(portfolio.getRootNode());
+      compilationContext.phaseCompleted(ViewDefinitionCompiler.PHASE_PORTFOLIO_REQUIREMENTS, System.nanoTime() - t);
 
       // TODO: Use a heuristic to decide whether to let the graph builds run in parallel, or sequentially. We will force sequential builds for the time being.
       try {
@@ -94,6 +103,34 @@ public final class PortfolioCompiler {
     return resultModelDefinition.getPositionOutputMode() != ResultOutputMode.NONE || resultModelDefinition.getAggregatePositionOutputMode() != ResultOutputMode.NONE;
   }
 
+  /**
+   * Fetches the portfolio for a view and resolves its securities.
+   * <p>
+   * The securities are resolved once, in parallel batches, so that the traversals for each calculation
+   * configuration find them already resolved. A security that cannot be resolved here is left for the
+   * traversal to handle, as it would be without this step. The links are resolved on a copy of the
+   * portfolio so that any instance held by a caching position source is not changed.
+   * 
+   * @param compilationContext  the compilation context containing the view being compiled, not null
+   * @param versionCorrection  the version-correction at which the portfolio is required, not null
+   * @return the portfolio, not null
+   */
+  private static Portfolio getResolvedPortfolio(ViewCompilationContext compilationContext, VersionCorrection versionCorrection) {
+    compilationContext.phaseStarted(ViewDefinitionCompiler.PHASE_PORTFOLIO_RESOLUTION);
+    final long t = System.nanoTime();
+    final Portfolio portfolio = new SimplePortfolio(getPortfolio(compilationContext, versionCorrection));
+    final SecuritySource securitySource = compilationContext.getServices().getComputationTargetResolver().getSecuritySource();
+    if (securitySource != null) {
+      try {
+        new SecurityLinkResolver(compilationContext, versionCorrection).resolveSecurities(portfolio.getRootNode());
+      } catch (OpenGammaRuntimeException ex) {
+        s_logger.warn("Unable to resolve all securities in portfolio " + portfolio.getUniqueId() + " for view definition '" + compilationContext.getViewDefinition().getName() + "'", ex);
+      }
+    }
+    compilationContext.phaseCompleted(ViewDefinitionCompiler.PHASE_PORTFOLIO_RESOLUTION, System.nanoTime() - t);
+    return portfolio;
+  }
+
   /**
    * Fully resolves the portfolio structure for a view. A fully resolved structure has resolved
    * {@link Security} objects for each {@link Position} within the portfolio. Note however that
@@ -8,9 +8,11 @@ package com.opengamma.engine.view.compilation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +48,14 @@ public final class SecurityLinkResolver {
 
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(SecurityLinkResolver.class);
+  /**
+   * The maximum number of unique links resolved by a single job.
+   */
+  private static final int MAX_BATCH_SIZE = 100;
+  /**
+   * The number of jobs to aim for when batching, allowing the work to spread across the executor.
+   */
+  private static final int MIN_JOBS = 32;
 
   /**
    * The executor service.
@@ -90,6 +100,11 @@ public final class SecurityLinkResolver {
    * Resolves security links in bulk.
    * <p>
    * Some caching of securities occurs within this instance.
+   * <p>
+   * The unique links are split into batches run on the compilation executor, which also compiles
+   * functions and builds the dependency graphs. Each batch resolves its links one at a time, as the
+   * security source can only look up many securities by unique identifier, whereas a link holds an
+   * object identifier to resolve at a version-correction or an external identifier bundle.
    * 
    * @param securityLinks  the bundles to lookup, not null
    * @throws RuntimeException if unable to resolve all the securities
@@ -97,7 +112,7 @@ public final class SecurityLinkResolver {
   @SuppressWarnings("unchecked")
   public void resolveSecurities(final Collection<SecurityLink> securityLinks) {
     ArgumentChecker.noNulls(securityLinks, "securityLinks");
-    final ExecutorCompletionService<Pair<ObjectId, ExternalIdBundle>> completionService = new ExecutorCompletionService<Pair<ObjectId, ExternalIdBundle>>(_executorService);
+    final ExecutorCompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(_executorService);
     // Filter the links down to collections of "identical" ones; resolving the same underlying.
     final Map<Pair<ObjectId, ExternalIdBundle>, Object> securityLinkMap = new HashMap<Pair<ObjectId, ExternalIdBundle>, Object>();
     for (SecurityLink link : securityLinks) {
@@ -133,27 +148,28 @@ public final class SecurityLinkResolver {
         _securitySource.addToCache(security);
       }
     }
-    s_logger.debug("Submitting {} resolution jobs for {} links", securityLinkMap.size(), securityLinks.size());
-    // Submit a job for each "unique" link. The job will serially resolve all "identical" links as they will
+    // Submit a job for each batch of "unique" links. The job will serially resolve all "identical" links as they will
     // be in the cache at that point.
-    for (Map.Entry<Pair<ObjectId, ExternalIdBundle>, Object> linkEntry : securityLinkMap.entrySet()) {
-      final Callable<Pair<ObjectId, ExternalIdBundle>> job;
-      if (linkEntry.getValue() instanceof Collection<?>) {
-        job = new MultipleSecurityResolutionJob(linkEntry.getKey(), (Collection<SecurityLink>) linkEntry.getValue(), _securitySource, _versionCorrection);
-      } else {
-        job = new SingleSecurityResolutionJob(linkEntry.getKey(), (SecurityLink) linkEntry.getValue(), _securitySource, _versionCorrection);
+    final int batchSize = getBatchSize(securityLinkMap.size());
+    final List<Future<Integer>> jobs = new ArrayList<Future<Integer>>();
+    List<Object> batch = new ArrayList<Object>(batchSize);
+    for (Object links : securityLinkMap.values()) {
+      batch.add(links);
+      if (batch.size() >= batchSize) {
+        jobs.add(completionService.submit(new SecurityResolutionJob(batch, _securitySource, _versionCorrection)));
+        batch = new ArrayList<Object>(batchSize);
       }
-      linkEntry.setValue(completionService.submit(job));
     }
+    if (!batch.isEmpty()) {
+      jobs.add(completionService.submit(new SecurityResolutionJob(batch, _securitySource, _versionCorrection)));
+    }
+    s_logger.debug("Submitted {} resolution jobs for {} unique links from {} links", new Object[] {jobs.size(), securityLinkMap.size(), securityLinks.size() });
     // Wait for the jobs to complete.
-    while (!securityLinkMap.isEmpty()) {
+    int remaining = jobs.size();
+    while (remaining > 0) {
       try {
-        final Future<Pair<ObjectId, ExternalIdBundle>> future = completionService.take();
-        final Pair<ObjectId, ExternalIdBundle> key = future.get();
-        if (securityLinkMap.remove(key) == null) {
-          s_logger.warn("Completion key {} wasn't in the job map {}", key, securityLinkMap);
-          throw new OpenGammaRuntimeException("Internal error resolving securities");
-        }
+        completionService.take().get();
+        remaining--;
       } catch (InterruptedException ex) {
         Thread.interrupted();
         s_logger.warn("Interrupted, so didn't finish resolution");
@@ -163,14 +179,27 @@ public final class SecurityLinkResolver {
         break;
       }
     }
-    if (!securityLinkMap.isEmpty()) {
-      for (Object future : securityLinkMap.values()) {
-        ((Future<SecurityLink>) future).cancel(false);
+    if (remaining > 0) {
+      for (Future<Integer> job : jobs) {
+        job.cancel(false);
       }
       throw new OpenGammaRuntimeException("Unable to resolve all securities");
     }
   }
 
+  /**
+   * Gets the number of unique links to resolve in each job.
+   * <p>
+   * Small portfolios use one link per job to maximise parallelism, larger ones use batches
+   * so that the overhead of scheduling a job is shared across several resolutions.
+   * 
+   * @param uniqueLinks  the number of unique links
+   * @return the batch size, at least one
+   */
+  private static int getBatchSize(final int uniqueLinks) {
+    return Math.max(1, Math.min(MAX_BATCH_SIZE, uniqueLinks / MIN_JOBS));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Resolves a security link making use of the caching of this instance.
@@ -221,8 +250,8 @@ public final class SecurityLinkResolver {
    * @throws RuntimeException if unable to resolve all the securities
    */
   public void resolveSecurities(final PortfolioNode node) {
-    final Collection<SecurityLink> links = new ArrayList<SecurityLink>(256);
-    PortfolioNodeTraverser.depthFirst(new AbstractPortfolioNodeTraversalCallback() {
+    final Collection<SecurityLink> links = new ConcurrentLinkedQueue<SecurityLink>();
+    PortfolioNodeTraverser.parallel(new AbstractPortfolioNodeTraversalCallback() {
       @Override
       public void preOrderOperation(Position position) {
         if (LinkUtils.isValid(position.getSecurityLink())) {
@@ -238,59 +267,41 @@ public final class SecurityLinkResolver {
           }
         }
       }
-    }).traverse(node);
+    }, _executorService).traverse(node);
     resolveSecurities(links);
   }
 
   //-------------------------------------------------------------------------
   /**
-   * A small job that can be run in an executor to resolve a security against a security source.
-   */
-  private static final class SingleSecurityResolutionJob implements Callable<Pair<ObjectId, ExternalIdBundle>> {
-    private final Pair<ObjectId, ExternalIdBundle> _key;
-    private final SecurityLink _link;
-    private final SecuritySource _securitySource;
-    private final VersionCorrection _versionCorrection;
-
-    private SingleSecurityResolutionJob(Pair<ObjectId, ExternalIdBundle> key, SecurityLink link, SecuritySource securitySource, VersionCorrection versionCorrection) {
-      _key = key;
-      _securitySource = securitySource;
-      _link = link;
-      _versionCorrection = versionCorrection;
-    }
-
-    @Override
-    public Pair<ObjectId, ExternalIdBundle> call() {
-      _link.resolve(_securitySource, _versionCorrection);
-      return _key;
-    }
-  }
-
-  /**
-   * Resolves a sequence of links.
+   * A job that can be run in an executor to resolve a batch of securities against a security source.
+   * <p>
+   * Each element of the batch is either a single link or a collection of links to the same security.
    */
-  private static final class MultipleSecurityResolutionJob implements Callable<Pair<ObjectId, ExternalIdBundle>> {
-    private final Pair<ObjectId, ExternalIdBundle> _key;
-    private final Collection<SecurityLink> _links;
+  private static final class SecurityResolutionJob implements Callable<Integer> {
+    private final List<Object> _batch;
     private final SecuritySource _securitySource;
     private final VersionCorrection _versionCorrection;
 
-    private MultipleSecurityResolutionJob(final Pair<ObjectId, ExternalIdBundle> key, final Collection<SecurityLink> link, final SecuritySource securitySource,
-        final VersionCorrection versionCorrection) {
-      _key = key;
-      _links = link;
+    private SecurityResolutionJob(final List<Object> batch, final SecuritySource securitySource, final VersionCorrection versionCorrection) {
+      _batch = batch;
       _securitySource = securitySource;
       _versionCorrection = versionCorrection;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
-    public Pair<ObjectId, ExternalIdBundle> call() {
-      for (SecurityLink link : _links) {
-        link.resolve(_securitySource, _versionCorrection);
+    public Integer call() {
+      for (Object links : _batch) {
+        if (links instanceof Collection<?>) {
+          for (SecurityLink link : (Collection<SecurityLink>) links) {
+            link.resolve(_securitySource, _versionCorrection);
+          }
+        } else {
+          ((SecurityLink) links).resolve(_securitySource, _versionCorrection);
+        }
       }
-      return _key;
+      return _batch.size();
     }
-
   }
 
   //-------------------------------------------------------------------------
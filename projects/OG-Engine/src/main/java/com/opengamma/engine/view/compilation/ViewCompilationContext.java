@@ -8,6 +8,7 @@ package com.opengamma.engine.view.compilation;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.time.Instant;
@@ -29,6 +30,8 @@ public class ViewCompilationContext {
   private final ViewDefinition _viewDefinition;
   private final ViewCompilationServices _services;
   private final Map<String, DependencyGraphBuilder> _configurationGraphs;
+  private final Map<String, Long> _phaseTimings = new LinkedHashMap<String, Long>();
+  private volatile String _currentPhase;
 
   /* package */ViewCompilationContext(ViewDefinition viewDefinition, ViewCompilationServices compilationServices, Instant valuationTime) {
     _viewDefinition = viewDefinition;
@@ -67,4 +70,48 @@ public class ViewCompilationContext {
     return Collections.unmodifiableCollection(_configurationGraphs.values());
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Records the start of a compilation phase.
+   * 
+   * @param phase  the name of the phase, not null
+   */
+  public void phaseStarted(final String phase) {
+    _currentPhase = phase;
+  }
+
+  /**
+   * Records the completion of a compilation phase.
+   * 
+   * @param phase  the name of the phase, not null
+   * @param elapsedNanos  the time taken by the phase in nanoseconds
+   */
+  public void phaseCompleted(final String phase, final long elapsedNanos) {
+    synchronized (_phaseTimings) {
+      final Long previous = _phaseTimings.get(phase);
+      _phaseTimings.put(phase, (previous != null) ? previous + elapsedNanos : elapsedNanos);
+    }
+    _currentPhase = null;
+  }
+
+  /**
+   * Gets the phase currently running, for reporting progress.
+   * 
+   * @return the phase name, null if between phases
+   */
+  public String getCurrentPhase() {
+    return _currentPhase;
+  }
+
+  /**
+   * Gets the time taken by each completed phase, in the order the phases first completed.
+   * 
+   * @return the elapsed time in nanoseconds keyed by phase name, not null
+   */
+  public Map<String, Long> getPhaseTimings() {
+    synchronized (_phaseTimings) {
+      return new LinkedHashMap<String, Long>(_phaseTimings);
+    }
+  }
+
 }
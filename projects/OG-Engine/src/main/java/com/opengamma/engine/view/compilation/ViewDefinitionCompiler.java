@@ -53,6 +53,23 @@ public final class ViewDefinitionCompiler {
   private static final boolean OUTPUT_LIVE_DATA_REQUIREMENTS = false;
   private static final boolean OUTPUT_FAILURE_REPORTS = false;
 
+  /**
+   * The compilation phase adding the specific requirements.
+   */
+  public static final String PHASE_SPECIFIC_REQUIREMENTS = "SpecificRequirements";
+  /**
+   * The compilation phase fetching the portfolio and resolving its securities.
+   */
+  public static final String PHASE_PORTFOLIO_RESOLUTION = "PortfolioResolution";
+  /**
+   * The compilation phase adding the portfolio requirements.
+   */
+  public static final String PHASE_PORTFOLIO_REQUIREMENTS = "PortfolioRequirements";
+  /**
+   * The compilation phase building the dependency graphs.
+   */
+  public static final String PHASE_DEPENDENCY_GRAPHS = "DependencyGraphs";
+
   private ViewDefinitionCompiler() {
   }
 
@@ -162,21 +179,28 @@ public final class ViewDefinitionCompiler {
       
       @Override
       public CompiledViewDefinitionWithGraphsImpl get() throws InterruptedException, ExecutionException {
-        long t = -System.nanoTime();
+        // the logged times are since the start of compilation, the phase timings are for each phase alone
+        final long start = System.nanoTime();
+        viewCompilationContext.phaseStarted(PHASE_SPECIFIC_REQUIREMENTS);
         EnumSet<ComputationTargetType> specificTargetTypes = SpecificRequirementsCompiler.execute(viewCompilationContext);
-        t += System.nanoTime();
-        s_logger.info("Added specific requirements after {}ms", (double) t / 1e6);
-        t -= System.nanoTime();
+        long t = System.nanoTime();
+        viewCompilationContext.phaseCompleted(PHASE_SPECIFIC_REQUIREMENTS, t - start);
+        s_logger.info("Added specific requirements after {}ms", (double) (t - start) / 1e6);
         boolean requirePortfolioResolution = specificTargetTypes.contains(ComputationTargetType.PORTFOLIO_NODE) || specificTargetTypes.contains(ComputationTargetType.POSITION);
         Portfolio portfolio = PortfolioCompiler.execute(viewCompilationContext, versionCorrection, requirePortfolioResolution);
-        t += System.nanoTime();
-        s_logger.info("Added portfolio requirements after {}ms", (double) t / 1e6);
-        t -= System.nanoTime();
+        t = System.nanoTime();
+        s_logger.info("Added portfolio requirements after {}ms", (double) (t - start) / 1e6);
+        final long graphStart = t;
+        viewCompilationContext.phaseStarted(PHASE_DEPENDENCY_GRAPHS);
         Map<String, DependencyGraph> graphsByConfiguration = processDependencyGraphs(viewCompilationContext);
-        t += System.nanoTime();
-        s_logger.info("Processed dependency graphs after {}ms", (double) t / 1e6);
+        t = System.nanoTime();
+        viewCompilationContext.phaseCompleted(PHASE_DEPENDENCY_GRAPHS, t - graphStart);
+        s_logger.info("Processed dependency graphs after {}ms", (double) (t - start) / 1e6);
         timer.finished();
-        _result = new CompiledViewDefinitionWithGraphsImpl(viewDefinition, graphsByConfiguration, portfolio, compilationServices.getFunctionCompilationContext().getFunctionInitId());
+        final Map<String, Long> timings = viewCompilationContext.getPhaseTimings();
+        s_logger.info("Compilation phase timings for {}: {}", viewDefinition.getName(), timings);
+        _result = new CompiledViewDefinitionWithGraphsImpl(viewDefinition, graphsByConfiguration, portfolio, compilationServices.getFunctionCompilationContext().getFunctionInitId(),
+            timings);
         if (OUTPUT_DEPENDENCY_GRAPHS) {
           outputDependencyGraphs(graphsByConfiguration);
         }
@@ -8,6 +8,8 @@ package com.opengamma.engine.view.compilation;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
@@ -24,6 +26,7 @@ import javax.time.Instant;
 
 import org.testng.annotations.Test;
 
+import com.opengamma.core.position.Position;
 import com.opengamma.core.position.impl.MockPositionSource;
 import com.opengamma.core.position.impl.SimplePortfolio;
 import com.opengamma.core.position.impl.SimplePortfolioNode;
@@ -136,6 +139,12 @@ public class ViewDefinitionCompilerTest {
     assertEquals(1, compiledViewDefinition.getAllDependencyGraphs().size());
     assertNotNull(compiledViewDefinition.getDependencyGraph("Fibble"));
     assertTargets(compiledViewDefinition, pn.getUniqueId());
+    assertTrue(compiledViewDefinition.getCompilationTimings().containsKey(ViewDefinitionCompiler.PHASE_PORTFOLIO_RESOLUTION));
+    assertTrue(compiledViewDefinition.getCompilationTimings().containsKey(ViewDefinitionCompiler.PHASE_PORTFOLIO_REQUIREMENTS));
+    assertTrue(compiledViewDefinition.getCompilationTimings().containsKey(ViewDefinitionCompiler.PHASE_DEPENDENCY_GRAPHS));
+    final Position resolvedPosition = compiledViewDefinition.getPortfolio().getRootNode().getPositions().get(0);
+    assertSame(defSec, resolvedPosition.getSecurityLink().getTarget());
+    assertNull(pos.getSecurityLink().getTarget());
   }
 
   public void testSingleValueExternalDependency() {
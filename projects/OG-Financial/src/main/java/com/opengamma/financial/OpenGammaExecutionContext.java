@@ -5,6 +5,8 @@
  */
 package com.opengamma.financial;
 
+import java.util.concurrent.ExecutorService;
+
 import com.opengamma.core.config.ConfigSource;
 import com.opengamma.core.exchange.ExchangeSource;
 import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
@@ -62,6 +64,11 @@ public final class OpenGammaExecutionContext {
    */
   public static final String CURVE_CALCULATION_CONFIG_NAME = "curveCalculationConfigurationSource";
 
+  /**
+   * The name under which an {@link ExecutorService} for functions to run parts of a calculation concurrently should be bound.
+   */
+  public static final String ANALYTICS_EXECUTOR_SERVICE_NAME = "analyticsExecutorService";
+
   /**
    * Restricted constructor.
    */
@@ -240,4 +247,28 @@ public final class OpenGammaExecutionContext {
   public static void setOverrideOperationCompiler(final FunctionExecutionContext context, final OverrideOperationCompiler overrideOperationCompiler) {
     context.put(OVERRIDE_OPERATION_COMPILER_NAME, overrideOperationCompiler);
   }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the {@code ExecutorService} for running parts of a calculation concurrently from the context.
+   * <p>
+   * A calculation node normally runs one job per core, so this is not set by default and functions
+   * should run their work on the calling thread when it is absent.
+   * 
+   * @param context the context to examine, not null
+   * @return the value, null if not found
+   */
+  public static ExecutorService getAnalyticsExecutorService(final FunctionExecutionContext context) {
+    return (ExecutorService) context.get(ANALYTICS_EXECUTOR_SERVICE_NAME);
+  }
+
+  /**
+   * Stores an {@code ExecutorService} for running parts of a calculation concurrently in the context.
+   * 
+   * @param context the context to store in, not null
+   * @param executorService the value to store, not null
+   */
+  public static void setAnalyticsExecutorService(final FunctionExecutionContext context, final ExecutorService executorService) {
+    context.put(ANALYTICS_EXECUTOR_SERVICE_NAME, executorService);
+  }
 }
@@ -7,8 +7,10 @@ package com.opengamma.financial.analytics.model.volatility.cube;
 
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -20,7 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Sets;
 import com.opengamma.OpenGammaRuntimeException;
-import com.opengamma.analytics.financial.model.volatility.smile.fitting.SABRModelFitter;
+import com.opengamma.analytics.financial.model.volatility.smile.fitting.SABRModelCubeFitter;
 import com.opengamma.analytics.financial.model.volatility.smile.function.SABRHaganVolatilityFunction;
 import com.opengamma.analytics.math.interpolation.FlatExtrapolator1D;
 import com.opengamma.analytics.math.interpolation.GridInterpolator2D;
@@ -43,6 +45,7 @@ import com.opengamma.engine.value.ValuePropertyNames;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueRequirementNames;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.financial.OpenGammaExecutionContext;
 import com.opengamma.financial.analytics.model.volatility.VolatilityDataFittingDefaults;
 import com.opengamma.financial.analytics.model.volatility.cube.fitted.FittedSmileDataPoints;
 import com.opengamma.financial.analytics.volatility.fittedresults.SABRFittedSurfaces;
@@ -97,6 +100,10 @@ public class SABRNonLinearLeastSquaresSwaptionCubeFittingFunction extends Abstra
     final SortedMap<Tenor, SortedMap<Tenor, Double[]>> smileRelativeStrikes = volatilityCubeData.getSmileRelativeStrikes();
     final DoubleArrayList swapMaturitiesList = new DoubleArrayList();
     final DoubleArrayList swaptionExpiriesList = new DoubleArrayList();
+    final DoubleArrayList forwardsList = new DoubleArrayList();
+    final List<double[]> strikesList = new ArrayList<double[]>();
+    final List<double[]> blackVolsList = new ArrayList<double[]>();
+    final List<double[]> errorsList = new ArrayList<double[]>();
     final DoubleArrayList alphaList = new DoubleArrayList();
     final DoubleArrayList betaList = new DoubleArrayList();
     final DoubleArrayList nuList = new DoubleArrayList();
@@ -137,17 +144,12 @@ public class SABRNonLinearLeastSquaresSwaptionCubeFittingFunction extends Abstra
             errors[k] = ERROR;
           }
           if (strikes.length > 4 && forward > 0) { //don't fit those smiles with insufficient data
-            final LeastSquareResultsWithTransform fittedResult = new SABRModelFitter(forward, strikes, swaptionExpiry, blackVols, errors, SABR_FUNCTION).solve(SABR_INITIAL_VALUES, FIXED);
-            final DoubleMatrix1D parameters = fittedResult.getModelParameters();
             swapMaturitiesList.add(maturity);
             swaptionExpiriesList.add(swaptionExpiry);
-            alphaList.add(parameters.getEntry(0));
-            betaList.add(parameters.getEntry(1));
-            rhoList.add(parameters.getEntry(2));
-            nuList.add(parameters.getEntry(3));
-            final DoublesPair expiryMaturityPair = new DoublesPair(swaptionExpiry, maturity);
-            inverseJacobians.put(expiryMaturityPair, fittedResult.getModelParameterSensitivityToData());
-            chiSqList.add(fittedResult.getChiSq());
+            forwardsList.add(forward);
+            strikesList.add(strikes);
+            blackVolsList.add(blackVols);
+            errorsList.add(errors);
             fittedSmileIds.put(tenorPair, externalIds);
             fittedRelativeStrikes.put(tenorPair, relativeStrikes);
           }
@@ -159,6 +161,19 @@ public class SABRNonLinearLeastSquaresSwaptionCubeFittingFunction extends Abstra
     }
     final double[] swapMaturities = swapMaturitiesList.toDoubleArray();
     final double[] swaptionExpiries = swaptionExpiriesList.toDoubleArray();
+    final SABRModelCubeFitter fitter = new SABRModelCubeFitter(swaptionExpiries, swapMaturities, forwardsList.toDoubleArray(), strikesList.toArray(new double[0][]),
+        blackVolsList.toArray(new double[0][]), errorsList.toArray(new double[0][]), SABR_FUNCTION);
+    final LeastSquareResultsWithTransform[] fittedResults = fitter.solve(SABR_INITIAL_VALUES, FIXED, OpenGammaExecutionContext.getAnalyticsExecutorService(executionContext));
+    for (int i = 0; i < fittedResults.length; i++) {
+      final DoubleMatrix1D parameters = fittedResults[i].getModelParameters();
+      alphaList.add(parameters.getEntry(0));
+      betaList.add(parameters.getEntry(1));
+      rhoList.add(parameters.getEntry(2));
+      nuList.add(parameters.getEntry(3));
+      final DoublesPair expiryMaturityPair = new DoublesPair(swaptionExpiries[i], swapMaturities[i]);
+      inverseJacobians.put(expiryMaturityPair, fittedResults[i].getModelParameterSensitivityToData());
+      chiSqList.add(fittedResults[i].getChiSq());
+    }
     final double[] alpha = alphaList.toDoubleArray();
     final double[] beta = betaList.toDoubleArray();
     final double[] nu = nuList.toDoubleArray();
@@ -8,6 +8,7 @@ package com.opengamma.financial.analytics.model.volatility.cube;
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,7 +25,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Sets;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.analytics.financial.model.interestrate.curve.ForwardCurve;
-import com.opengamma.analytics.financial.model.volatility.smile.fitting.SABRModelFitter;
+import com.opengamma.analytics.financial.model.volatility.smile.fitting.SABRModelCubeFitter;
 import com.opengamma.analytics.financial.model.volatility.smile.function.SABRHaganVolatilityFunction;
 import com.opengamma.analytics.financial.model.volatility.smile.function.VolatilityFunctionFactory;
 import com.opengamma.analytics.math.interpolation.CombinedInterpolatorExtrapolatorFactory;
@@ -133,6 +134,10 @@ public class SABRNonLinearSwaptionVolatilityCubeFittingFunctionNew extends Abstr
     final GridInterpolator2D interpolator = getInterpolator(desiredSurface);
     final DoubleArrayList swapMaturitiesList = new DoubleArrayList();
     final DoubleArrayList swaptionExpiriesList = new DoubleArrayList();
+    final DoubleArrayList forwardsList = new DoubleArrayList();
+    final List<double[]> strikesList = new ArrayList<double[]>();
+    final List<double[]> blackVolsList = new ArrayList<double[]>();
+    final List<double[]> errorsList = new ArrayList<double[]>();
     final DoubleArrayList alphaList = new DoubleArrayList();
     final DoubleArrayList betaList = new DoubleArrayList();
     final DoubleArrayList nuList = new DoubleArrayList();
@@ -175,19 +180,13 @@ public class SABRNonLinearSwaptionVolatilityCubeFittingFunctionNew extends Abstr
           }
         }
         if (smileStrikes.size() > 4 && forward > 0) { //don't fit those smiles with insufficient data
-          final LeastSquareResultsWithTransform fittedResult = new SABRModelFitter(forward, smileStrikes.toDoubleArray(), expiry, smileBlackVols.toDoubleArray(), errors.toDoubleArray(), SABR_FUNCTION)
-              .solve(initialValues, fixed);
-          final DoubleMatrix1D parameters = fittedResult.getModelParameters();
           swapMaturitiesList.add(maturity);
           swaptionExpiriesList.add(expiry);
-          alphaList.add(parameters.getEntry(0));
-          betaList.add(parameters.getEntry(1));
-          rhoList.add(parameters.getEntry(2));
-          nuList.add(parameters.getEntry(3));
+          forwardsList.add(forward);
+          strikesList.add(smileStrikes.toDoubleArray());
+          blackVolsList.add(smileBlackVols.toDoubleArray());
+          errorsList.add(errors.toDoubleArray());
           final Pair<Tenor, Tenor> tenorPair = Pair.of(swapTenor, swaptionExpiry);
-          final DoublesPair expiryMaturityPair = new DoublesPair(expiry, maturity);
-          inverseJacobians.put(expiryMaturityPair, fittedResult.getModelParameterSensitivityToData());
-          chiSqList.add(fittedResult.getChiSq());
           fittedSmileIds.put(tenorPair, externalIds.toArray(EMPTY_ARRAY));
           fittedRelativeStrikes.put(tenorPair, smileDeltas.toArray(ArrayUtils.EMPTY_DOUBLE_OBJECT_ARRAY));
         }
@@ -198,6 +197,19 @@ public class SABRNonLinearSwaptionVolatilityCubeFittingFunctionNew extends Abstr
     }
     final double[] swapMaturities = swapMaturitiesList.toDoubleArray();
     final double[] swaptionExpiries = swaptionExpiriesList.toDoubleArray();
+    final SABRModelCubeFitter fitter = new SABRModelCubeFitter(swaptionExpiries, swapMaturities, forwardsList.toDoubleArray(), strikesList.toArray(new double[0][]),
+        blackVolsList.toArray(new double[0][]), errorsList.toArray(new double[0][]), SABR_FUNCTION);
+    final LeastSquareResultsWithTransform[] fittedResults = fitter.solve(initialValues, fixed, OpenGammaExecutionContext.getAnalyticsExecutorService(executionContext));
+    for (int i = 0; i < fittedResults.length; i++) {
+      final DoubleMatrix1D parameters = fittedResults[i].getModelParameters();
+      alphaList.add(parameters.getEntry(0));
+      betaList.add(parameters.getEntry(1));
+      rhoList.add(parameters.getEntry(2));
+      nuList.add(parameters.getEntry(3));
+      final DoublesPair expiryMaturityPair = new DoublesPair(swaptionExpiries[i], swapMaturities[i]);
+      inverseJacobians.put(expiryMaturityPair, fittedResults[i].getModelParameterSensitivityToData());
+      chiSqList.add(fittedResults[i].getChiSq());
+    }
     final double[] alpha = alphaList.toDoubleArray();
     final double[] beta = betaList.toDoubleArray();
     final double[] nu = nuList.toDoubleArray();
@@ -21,7 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.OpenGammaRuntimeException;
-import com.opengamma.analytics.financial.model.volatility.BlackFormulaRepository;
+import com.opengamma.analytics.financial.model.volatility.BlackImpliedVolatilitySolver;
 import com.opengamma.analytics.math.MathException;
 import com.opengamma.analytics.math.curve.NodalDoublesCurve;
 import com.opengamma.analytics.util.time.TimeCalculator;
@@ -280,13 +280,13 @@ public class BondFutureOptionVolatilitySurfaceDataFunction extends AbstractFunct
 
   private static double getVolatility(final String surfaceQuoteType, final double strike, final double price, final double forward, final double t, final boolean isCall) {
     if (surfaceQuoteType.equals(SurfaceAndCubeQuoteType.CALL_STRIKE)) {
-      return BlackFormulaRepository.impliedVolatility(price, forward, strike, t, true);
+      return BlackImpliedVolatilitySolver.impliedVolatility(price, forward, strike, t, true);
     }
     if (surfaceQuoteType.equals(SurfaceAndCubeQuoteType.PUT_STRIKE)) {
-      return BlackFormulaRepository.impliedVolatility(price, forward, strike, t, false);
+      return BlackImpliedVolatilitySolver.impliedVolatility(price, forward, strike, t, false);
     }
     if (surfaceQuoteType.equals(SurfaceAndCubeQuoteType.CALL_AND_PUT_STRIKE)) {
-      return BlackFormulaRepository.impliedVolatility(price, forward, strike, t, isCall);
+      return BlackImpliedVolatilitySolver.impliedVolatility(price, forward, strike, t, isCall);
     }
     throw new OpenGammaRuntimeException("Cannot handle surface quote type " + surfaceQuoteType);
   }
@@ -21,7 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.OpenGammaRuntimeException;
-import com.opengamma.analytics.financial.model.volatility.BlackFormulaRepository;
+import com.opengamma.analytics.financial.model.volatility.BlackImpliedVolatilitySolver;
 import com.opengamma.analytics.math.MathException;
 import com.opengamma.analytics.math.curve.NodalDoublesCurve;
 import com.opengamma.core.config.ConfigSource;
@@ -287,10 +287,10 @@ public class IRFutureOptionVolatilitySurfaceDataFunction extends AbstractFunctio
   /** FIXME This function relies on callAboveStrike. Needs a rework */
   private static double getVolatility(final String surfaceQuoteType, final double strike, final double price, final double forward, final double t, final Double callAboveStrike) {
     if (surfaceQuoteType.equals(SurfaceAndCubeQuoteType.CALL_STRIKE)) {
-      return BlackFormulaRepository.impliedVolatility(price, forward, strike, t, true);
+      return BlackImpliedVolatilitySolver.impliedVolatility(price, forward, strike, t, true);
     }
     if (surfaceQuoteType.equals(SurfaceAndCubeQuoteType.PUT_STRIKE)) {
-      return BlackFormulaRepository.impliedVolatility(price, forward, strike, t, false);
+      return BlackImpliedVolatilitySolver.impliedVolatility(price, forward, strike, t, false);
     }
     if (surfaceQuoteType.equals(SurfaceAndCubeQuoteType.CALL_AND_PUT_STRIKE)) {
       if (callAboveStrike == null) {
@@ -299,7 +299,7 @@ public class IRFutureOptionVolatilitySurfaceDataFunction extends AbstractFunctio
       // Futures Options are priced as options on rates, not prices.
       // A Call ON Futures PRICE is a PUT ON Futures RATE
       final boolean callOnRates = strike < callAboveStrike;
-      return BlackFormulaRepository.impliedVolatility(price, 1 - forward, 1 - strike, t, callOnRates);
+      return BlackImpliedVolatilitySolver.impliedVolatility(price, 1 - forward, 1 - strike, t, callOnRates);
     }
     throw new OpenGammaRuntimeException("Cannot handle surface quote type " + surfaceQuoteType);
   }
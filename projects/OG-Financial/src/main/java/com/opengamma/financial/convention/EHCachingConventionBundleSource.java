@@ -5,21 +5,22 @@
  */
 package com.opengamma.financial.convention;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Callable;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
-import com.google.common.collect.MapMaker;
 import com.opengamma.id.ExternalId;
 import com.opengamma.id.ExternalIdBundle;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
 
 /**
  * A cached form of {@link ConventionBundleSource}.
+ * <p>
+ * Bundles are cached by the identifier they were looked up with, and by their unique identifier and identifier bundle.
  */
 public class EHCachingConventionBundleSource implements ConventionBundleSource {
 
@@ -28,17 +29,14 @@ public class EHCachingConventionBundleSource implements ConventionBundleSource {
   private final ConventionBundleSource _underlying;
   private final CacheManager _cacheManager;
 
-  private final Cache _conventionCache;
-
-  private final ConcurrentMap<Object, ConventionBundle> _frontCache = new MapMaker().weakValues().makeMap();
+  private final ConcurrentCache<Object, ConventionBundle> _conventionCache;
 
   public EHCachingConventionBundleSource(final ConventionBundleSource underlying, final CacheManager cacheManager) {
     ArgumentChecker.notNull(underlying, "underlying");
     ArgumentChecker.notNull(cacheManager, "cacheManager");
     _underlying = underlying;
     _cacheManager = cacheManager;
-    EHCacheUtils.addCache(cacheManager, CONVENTION_CACHE_NAME);
-    _conventionCache = EHCacheUtils.getCacheFromManager(cacheManager, CONVENTION_CACHE_NAME);
+    _conventionCache = EHCacheUtils.createConcurrentCache(cacheManager, CONVENTION_CACHE_NAME);
   }
 
   protected ConventionBundleSource getUnderlying() {
@@ -49,102 +47,75 @@ public class EHCachingConventionBundleSource implements ConventionBundleSource {
     return _cacheManager;
   }
 
+  /**
+   * Gets the statistics of the cache.
+   *
+   * @return the statistics, not null
+   */
+  public CacheStatistics getCacheStatistics() {
+    return _conventionCache.getStatistics();
+  }
+
   /**
    * Call this at the end of a unit test run to clear the state of EHCache. It should not be part of a generic lifecycle method.
    */
   protected void shutdown() {
+    _conventionCache.invalidateAll();
     getCacheManager().removeCache(CONVENTION_CACHE_NAME);
   }
 
   /**
-   * For use by test methods only to control the front cache.
+   * For use by test methods only to control the cache.
    */
-  /* package */void emptyFrontCache() {
-    _frontCache.clear();
+  /* package */void emptyCache() {
+    _conventionCache.invalidateAll();
   }
 
   /**
-   * For use by test methods only to control the EH cache.
+   * Caches a loaded bundle under its other keys. The key being loaded is left to the cache as it can't be put while loading.
    */
-  /* package */void emptyEHCache() {
-    EHCacheUtils.clear(getCacheManager(), CONVENTION_CACHE_NAME);
-  }
-
-  protected ConventionBundle frontCache(final ConventionBundle bundle) {
-    final ConventionBundle existing = _frontCache.putIfAbsent(bundle.getUniqueId(), bundle);
-    if (existing == null) {
-      _frontCache.put(bundle.getIdentifiers(), bundle);
-      return bundle;
+  private ConventionBundle cache(final Object key, final ConventionBundle bundle) {
+    if (bundle != null) {
+      if (!key.equals(bundle.getUniqueId())) {
+        _conventionCache.put(bundle.getUniqueId(), bundle);
+      }
+      if (!key.equals(bundle.getIdentifiers())) {
+        _conventionCache.put(bundle.getIdentifiers(), bundle);
+      }
     }
-    return existing;
+    return bundle;
   }
 
   // ConventionBundleSource
 
   @Override
   public ConventionBundle getConventionBundle(final ExternalId identifier) {
-    ConventionBundle bundle = _frontCache.get(identifier);
-    if (bundle != null) {
-      return bundle;
-    }
-    final Element e = _conventionCache.get(identifier);
-    if (e != null) {
-      bundle = frontCache((ConventionBundle) e.getObjectValue());
-      _frontCache.put(identifier, bundle);
-      return bundle;
-    }
-    bundle = getUnderlying().getConventionBundle(identifier);
-    if (bundle == null) {
-      // TODO: Is it worth caching the misses?
-      return null;
-    }
-    bundle = frontCache(bundle);
-    _conventionCache.put(new Element(identifier, bundle));
-    _frontCache.put(identifier, bundle);
-    return bundle;
+    return _conventionCache.get(identifier, new Callable<ConventionBundle>() {
+      @Override
+      public ConventionBundle call() {
+        return cache(identifier, getUnderlying().getConventionBundle(identifier));
+      }
+    });
   }
 
   @Override
   public ConventionBundle getConventionBundle(final ExternalIdBundle identifiers) {
-    ConventionBundle bundle = _frontCache.get(identifiers);
-    if (bundle != null) {
-      return bundle;
-    }
-    final Element e = _conventionCache.get(identifiers);
-    if (e != null) {
-      bundle = frontCache((ConventionBundle) e.getObjectValue());
-      _frontCache.put(identifiers, bundle);
-      return bundle;
-    }
-    bundle = getUnderlying().getConventionBundle(identifiers);
-    if (bundle == null) {
-      // TODO: is it worth caching the misses?
-      return null;
-    }
-    bundle = frontCache(bundle);
-    _conventionCache.put(new Element(identifiers, bundle));
-    _frontCache.put(identifiers, bundle);
-    return bundle;
+    return _conventionCache.get(identifiers, new Callable<ConventionBundle>() {
+      @Override
+      public ConventionBundle call() {
+        return cache(identifiers, getUnderlying().getConventionBundle(identifiers));
+      }
+    });
   }
 
   @Override
   public ConventionBundle getConventionBundle(final UniqueId identifier) {
-    ConventionBundle bundle = _frontCache.get(identifier);
-    if (bundle != null) {
-      return bundle;
-    }
-    final Element e = _conventionCache.get(identifier);
-    if (e != null) {
-      return frontCache((ConventionBundle) e.getObjectValue());
-    }
-    bundle = getUnderlying().getConventionBundle(identifier);
-    if (bundle == null) {
-      // TODO: is it worth caching the misses?
-      return null;
-    }
-    bundle = frontCache(bundle);
-    _conventionCache.put(new Element(identifier, bundle));
-    return bundle;
+    return _conventionCache.get(identifier, new Callable<ConventionBundle>() {
+      @Override
+      public ConventionBundle call() {
+        return cache(identifier, getUnderlying().getConventionBundle(identifier));
+      }
+    });
   }
 
 }
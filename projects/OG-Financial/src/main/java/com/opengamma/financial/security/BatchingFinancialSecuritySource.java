@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.security;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.impl.BatchingSecuritySource;
+
+/**
+ * Specialization of {@link BatchingSecuritySource} for {@link FinancialSecuritySource}.
+ */
+public class BatchingFinancialSecuritySource extends BatchingSecuritySource implements FinancialSecuritySource {
+
+  public BatchingFinancialSecuritySource(final FinancialSecuritySource underlying) {
+    super(underlying);
+  }
+
+  public BatchingFinancialSecuritySource(final FinancialSecuritySource underlying, final long batchWindowMillis, final int maxBatchSize) {
+    super(underlying, batchWindowMillis, maxBatchSize);
+  }
+
+  public BatchingFinancialSecuritySource(final FinancialSecuritySource underlying, final long batchWindowMillis, final int maxBatchSize,
+      final Executor prefetchExecutor) {
+    super(underlying, batchWindowMillis, maxBatchSize, prefetchExecutor);
+  }
+
+  protected FinancialSecuritySource getFinancialUnderlying() {
+    return (FinancialSecuritySource) getUnderlying();
+  }
+
+  @Override
+  public Collection<Security> getBondsWithIssuerName(final String issuerName) {
+    return getFinancialUnderlying().getBondsWithIssuerName(issuerName);
+  }
+
+}
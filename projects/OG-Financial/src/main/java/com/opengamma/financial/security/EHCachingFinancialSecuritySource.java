@@ -5,40 +5,37 @@
  */
 package com.opengamma.financial.security;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.opengamma.core.AbstractEHCachingSourceWithExternalBundle;
 import com.opengamma.core.security.Security;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
 
 /**
  * A cache decorating a {@code FinancialSecuritySource}.
  * <p>
- * The cache is implemented using {@code EHCache}.
+ * The cache is implemented using {@link ConcurrentCache}, sized from the {@code EHCache} configuration.
  */
 public class EHCachingFinancialSecuritySource
     extends AbstractEHCachingSourceWithExternalBundle<Security, FinancialSecuritySource>
     implements FinancialSecuritySource {
 
-  /** Logger. */
-  private static final Logger s_logger = LoggerFactory.getLogger(EHCachingFinancialSecuritySource.class);
-
   /** The mulitple bonds cache key */
   /* package for testing */static final String MULTI_BONDS_CACHE = "multi-bonds-cache";
 
   /**
    * The bond cache.
    */
-  private final Cache _bondCache;
+  private final ConcurrentCache<String, Collection<Security>> _bondCache;
 
   /**
    * Creates an instance over an underlying source specifying the cache manager.
@@ -48,38 +45,32 @@ public class EHCachingFinancialSecuritySource
    */
   public EHCachingFinancialSecuritySource(final FinancialSecuritySource underlying, final CacheManager cacheManager) {
     super(underlying, cacheManager);
-
-    EHCacheUtils.addCache(cacheManager, MULTI_BONDS_CACHE);
-    _bondCache = EHCacheUtils.getCacheFromManager(cacheManager, MULTI_BONDS_CACHE);
+    _bondCache = EHCacheUtils.createConcurrentCache(cacheManager, MULTI_BONDS_CACHE);
+    getCacheInvalidator().addQueryCache(_bondCache);
   }
 
   //-------------------------------------------------------------------------
-  @SuppressWarnings("unchecked")
   @Override
-  public Collection<Security> getBondsWithIssuerName(String issuerType) {
-    ArgumentChecker.notNull(issuerType, "issuerType");
-    Element e = _bondCache.get(issuerType);
-    Collection<Security> result = new HashSet<Security>();
-    if (e != null) {
-      if (e.getObjectValue() instanceof Collection<?>) {
-        result.addAll((Collection<Security>) e.getObjectValue());
-      } else {
-        s_logger.warn("returned object {} from bond cache is not a Collection<Security>", e.getObjectValue());
-      }
-    } else {
-      result = getUnderlying().getBondsWithIssuerName(issuerType);
-      if (result != null) {
-        _bondCache.put(new Element(issuerType, result));
-        cacheSecurities(result);
-      }
-    }
-    return result;
+  public List<CacheStatistics> getCacheStatistics() {
+    final List<CacheStatistics> statistics = new ArrayList<CacheStatistics>(super.getCacheStatistics());
+    statistics.add(_bondCache.getStatistics());
+    return statistics;
   }
 
-  private void cacheSecurities(Collection<Security> securities) {    
-    for (Security security : securities) {
-      getUidCache().put(new Element(security.getUniqueId(), security));
-    }
+  @Override
+  public Collection<Security> getBondsWithIssuerName(final String issuerType) {
+    ArgumentChecker.notNull(issuerType, "issuerType");
+    final Collection<Security> result = _bondCache.get(issuerType, new Callable<Collection<Security>>() {
+      @Override
+      public Collection<Security> call() {
+        final Collection<Security> bonds = getUnderlying().getBondsWithIssuerName(issuerType);
+        if (bonds != null) {
+          cacheItems(bonds);
+        }
+        return bonds;
+      }
+    });
+    return result != null ? new HashSet<Security>(result) : null;
   }
 
 }
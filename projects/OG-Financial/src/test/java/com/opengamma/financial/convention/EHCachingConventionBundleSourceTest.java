@@ -55,7 +55,7 @@ public class EHCachingConventionBundleSourceTest {
     }
   }
 
-  public void testByIdentifierFrontCacheHit() {
+  public void testByIdentifierCacheHit() {
     final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
     final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
     try {
@@ -63,24 +63,6 @@ public class EHCachingConventionBundleSourceTest {
       Mockito.when(mock.getConventionBundle(ExternalId.of("Test", "Foo"))).thenReturn(bundle);
       assertSame(cache.getConventionBundle(ExternalId.of("Test", "Foo")), bundle);
       Mockito.verify(mock).getConventionBundle(ExternalId.of("Test", "Foo"));
-      cache.emptyEHCache();
-      assertSame(cache.getConventionBundle(ExternalId.of("Test", "Foo")), bundle);
-      Mockito.verify(mock).getConventionBundle(ExternalId.of("Test", "Foo"));
-      Mockito.verifyNoMoreInteractions(mock);
-    } finally {
-      cache.shutdown();
-    }
-  }
-
-  public void testByIdentifierEHCacheHit() {
-    final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
-    final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
-    try {
-      final ConventionBundle bundle = createBundle();
-      Mockito.when(mock.getConventionBundle(ExternalId.of("Test", "Foo"))).thenReturn(bundle);
-      assertSame(cache.getConventionBundle(ExternalId.of("Test", "Foo")), bundle);
-      Mockito.verify(mock).getConventionBundle(ExternalId.of("Test", "Foo"));
-      cache.emptyFrontCache();
       assertSame(cache.getConventionBundle(ExternalId.of("Test", "Foo")), bundle);
       Mockito.verify(mock).getConventionBundle(ExternalId.of("Test", "Foo"));
       Mockito.verifyNoMoreInteractions(mock);
@@ -116,14 +98,13 @@ public class EHCachingConventionBundleSourceTest {
     }
   }
 
-  public void testByBundleFrontCacheHit() {
+  public void testByBundleCacheHitFromUniqueId() {
     final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
     final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
     try {
       final ConventionBundle bundle = createBundle();
       Mockito.when(mock.getConventionBundle(UniqueId.of("Mock", "0"))).thenReturn(bundle);
       cache.getConventionBundle(UniqueId.of("Mock", "0"));
-      cache.emptyEHCache();
       assertSame(cache.getConventionBundle(ExternalIdBundle.of(ExternalId.of("Test", "Foo"), ExternalId.of("Test", "Bar"))), bundle);
       Mockito.verify(mock).getConventionBundle(UniqueId.of("Mock", "0"));
       Mockito.verifyNoMoreInteractions(mock);
@@ -132,23 +113,6 @@ public class EHCachingConventionBundleSourceTest {
     }
   }
 
-  public void testByBundleEHCacheHit() {
-    final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
-    final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
-    try {
-      final ConventionBundle bundle = createBundle();
-      Mockito.when(mock.getConventionBundle(ExternalIdBundle.of(ExternalId.of("Test", "Foo"), ExternalId.of("Test", "Bar")))).thenReturn(bundle);
-      assertSame(cache.getConventionBundle(ExternalIdBundle.of(ExternalId.of("Test", "Foo"), ExternalId.of("Test", "Bar"))), bundle);
-      Mockito.verify(mock).getConventionBundle(ExternalIdBundle.of(ExternalId.of("Test", "Foo"), ExternalId.of("Test", "Bar")));
-      cache.emptyFrontCache();
-      assertSame(cache.getConventionBundle(ExternalIdBundle.of(ExternalId.of("Test", "Foo"), ExternalId.of("Test", "Bar"))), bundle);
-      Mockito.verify(mock).getConventionBundle(ExternalIdBundle.of(ExternalId.of("Test", "Foo"), ExternalId.of("Test", "Bar")));
-      Mockito.verifyNoMoreInteractions(mock);
-    } finally {
-      cache.shutdown();
-    }
-  }
-
   public void testByUniqueIdUnderlyingMiss() {
     final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
     final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
@@ -176,24 +140,7 @@ public class EHCachingConventionBundleSourceTest {
     }
   }
 
-  public void testByUniqueIdFrontCacheHit() {
-    final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
-    final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
-    try {
-      final ConventionBundle bundle = createBundle();
-      Mockito.when(mock.getConventionBundle(UniqueId.of("Mock", "0"))).thenReturn(bundle);
-      assertSame(cache.getConventionBundle(UniqueId.of("Mock", "0")), bundle);
-      Mockito.verify(mock).getConventionBundle(UniqueId.of("Mock", "0"));
-      cache.emptyEHCache();
-      assertSame(cache.getConventionBundle(UniqueId.of("Mock", "0")), bundle);
-      Mockito.verify(mock).getConventionBundle(UniqueId.of("Mock", "0"));
-      Mockito.verifyNoMoreInteractions(mock);
-    } finally {
-      cache.shutdown();
-    }
-  }
-
-  public void testByUniqueIdEHCacheHit() {
+  public void testByUniqueIdCacheHit() {
     final ConventionBundleSource mock = Mockito.mock(ConventionBundleSource.class);
     final EHCachingConventionBundleSource cache = new EHCachingConventionBundleSource(mock, EHCacheUtils.createCacheManager());
     try {
@@ -201,7 +148,6 @@ public class EHCachingConventionBundleSourceTest {
       Mockito.when(mock.getConventionBundle(UniqueId.of("Mock", "0"))).thenReturn(bundle);
       assertSame(cache.getConventionBundle(UniqueId.of("Mock", "0")), bundle);
       Mockito.verify(mock).getConventionBundle(UniqueId.of("Mock", "0"));
-      cache.emptyFrontCache();
       assertSame(cache.getConventionBundle(UniqueId.of("Mock", "0")), bundle);
       Mockito.verify(mock).getConventionBundle(UniqueId.of("Mock", "0"));
       Mockito.verifyNoMoreInteractions(mock);
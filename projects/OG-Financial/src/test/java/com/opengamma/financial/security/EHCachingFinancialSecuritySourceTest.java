@@ -12,9 +12,7 @@ import static org.testng.AssertJUnit.assertSame;
 
 import java.util.Collection;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -27,6 +25,7 @@ import com.opengamma.id.ExternalId;
 import com.opengamma.id.ExternalIdBundle;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.cache.CacheStatistics;
 import com.opengamma.util.ehcache.EHCacheUtils;
 
 /**
@@ -76,27 +75,25 @@ public class EHCachingFinancialSecuritySourceTest {
     assertNotNull(cachedSec);
     assertSame(underlyingSec, cachedSec);
     
-    Cache singleSecCache = _cacheManager.getCache(EHCachingFinancialSecuritySource.class.getName()+"-uid-cache");
-    assertEquals(1, singleSecCache.getSize());
-    Element element = singleSecCache.getQuiet(uid1);
-    assertNotNull(element);
+    assertEquals(1, getUidCacheStatistics().getSize());
     for (int i = 1; i < 10; i++) {
       cachedSec = _cachingSecuritySource.get(uid1);
       assertNotNull(cachedSec);
     }
+    CacheStatistics statistics = getUidCacheStatistics();
+    assertEquals(1, statistics.getLoadSuccessCount());
+    assertEquals(9, statistics.getHitCount());
   }
 
   @Test(expectedExceptions = DataNotFoundException.class)
   public void getSecurity_UniqueId_empty() {
-    Cache singleSecCache = _cacheManager.getCache(EHCachingFinancialSecuritySource.class.getName()+"-uid-cache");
-    
     UniqueId uid = UniqueId.of("Mock", "99");
     try {
       _cachingSecuritySource.get(uid);
     } finally {
-      assertEquals(0, singleSecCache.getSize());
-      Element element = singleSecCache.get(uid);
-      assertNull(element);
+      CacheStatistics statistics = getUidCacheStatistics();
+      assertEquals(0, statistics.getSize());
+      assertEquals(1, statistics.getLoadExceptionCount());
     }
   }
 
@@ -112,19 +109,17 @@ public class EHCachingFinancialSecuritySourceTest {
     assertNotNull(cachedSecurities);
     assertEquals(underlyingSecurities, cachedSecurities);
     
-    Cache singleSecCache = _cacheManager.getCache(EHCachingFinancialSecuritySource.class.getName()+"-uid-cache");
-    assertNotNull(singleSecCache);
-    assertEquals(2, singleSecCache.getSize());
-
-    Element sec1Element = singleSecCache.getQuiet(_security1.getUniqueId());
-    Element sec2Element = singleSecCache.getQuiet(_security2.getUniqueId());
-    assertNotNull(sec1Element);
-    assertNotNull(sec2Element);
+    assertEquals(2, getUidCacheStatistics().getSize());
     for (int i = 1; i < 10; i++) {
       _cachingSecuritySource.get(secKey);
-      assertEquals(0, sec1Element.getHitCount());
-      assertEquals(0, sec2Element.getHitCount());
     }
+    assertEquals(0, getUidCacheStatistics().getHitCount());
+    CacheStatistics bundleStatistics = getCacheStatistics("-bundle-cache");
+    assertEquals(1, bundleStatistics.getLoadSuccessCount());
+    assertEquals(9, bundleStatistics.getHitCount());
+    
+    assertSame(_security1, _cachingSecuritySource.get(_security1.getUniqueId()));
+    assertEquals(0, getUidCacheStatistics().getLoadSuccessCount());
   }
 
   @Test
@@ -145,11 +140,10 @@ public class EHCachingFinancialSecuritySourceTest {
   @Test
   public void getSecurities_ExternalIdBundle_empty() {
     ExternalIdBundle secKey = ExternalIdBundle.of(_secId1);
-    Cache singleSecCache = _cacheManager.getCache(EHCachingFinancialSecuritySource.class.getName()+"-uid-cache");
     
     Security cachedSec = _cachingSecuritySource.getSingle(secKey);
     assertNull(cachedSec);
-    assertEquals(0, singleSecCache.getSize());
+    assertEquals(0, getUidCacheStatistics().getSize());
   }
 
   //-------------------------------------------------------------------------
@@ -164,26 +158,34 @@ public class EHCachingFinancialSecuritySourceTest {
     assertNotNull(cachedSec);
     assertSame(underlyingSec, cachedSec);
         
-    Cache singleSecCache = _cacheManager.getCache(EHCachingFinancialSecuritySource.class.getName()+"-uid-cache");
-    assertNotNull(singleSecCache);
-    assertEquals(1, singleSecCache.getSize());
-    
-    Element sec1Element = singleSecCache.getQuiet(_security1.getUniqueId());
-    assertNotNull(sec1Element);
+    assertEquals(1, getUidCacheStatistics().getSize());
     for (int i = 1; i < 10; i++) {
       _cachingSecuritySource.get(secKey1);
-      assertEquals(0, sec1Element.getHitCount());
     }
+    assertEquals(0, getUidCacheStatistics().getHitCount());
   }
 
   @Test
   public void getSecurity_ExternalIdBundle_empty() {
     ExternalIdBundle secKey = ExternalIdBundle.of(_secId1);
-    Cache singleSecCache = _cacheManager.getCache(EHCachingFinancialSecuritySource.class.getName()+"-uid-cache");
     
     Security cachedSec = _cachingSecuritySource.getSingle(secKey);
     assertNull(cachedSec);
-    assertEquals(0, singleSecCache.getSize());
+    assertEquals(0, getUidCacheStatistics().getSize());
+  }
+
+  //-------------------------------------------------------------------------
+  private CacheStatistics getUidCacheStatistics() {
+    return getCacheStatistics("-uid-cache");
+  }
+
+  private CacheStatistics getCacheStatistics(String suffix) {
+    for (CacheStatistics statistics : _cachingSecuritySource.getCacheStatistics()) {
+      if (statistics.getName().equals(EHCachingFinancialSecuritySource.class.getName() + suffix)) {
+        return statistics;
+      }
+    }
+    throw new AssertionError("No cache " + suffix);
   }
 
   private void addSecuritiesToMock(Security ... securities) {
@@ -19,7 +19,8 @@ load_component_config() {
   LOGFILE=${LOGFILE:-${_COMPONENT}-console.log}
   MEM_OPTS=${MEM_OPTS:--Xms4096m -Xmx4096m -XX:MaxPermSize=256M}
   GC_OPTS=${GC_OPTS:--XX:+UseConcMarkSweepGC -XX:+CMSIncrementalMode -XX:+CMSIncrementalPacing}
-  EXTRA_JVM_OPTS=${EXTRA_JVM_OPTS:-""}
+  # the JDK keeps 5 idle HTTP connections to each server by default, too few for the remote components sharing them
+  EXTRA_JVM_OPTS=${EXTRA_JVM_OPTS:--Dhttp.maxConnections=20}
   LOGBACK_CONFIG=${LOGBACK_CONFIG:-engine-logback.xml}
   SHUTDOWN_WAIT=${SHUTDOWN_WAIT:-15}
 }
@@ -23,6 +23,7 @@ import com.opengamma.id.ExternalIdSearchType;
 import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.AbstractBulkMaster;
 import com.opengamma.master.portfolio.ManageablePortfolio;
 import com.opengamma.master.portfolio.ManageablePortfolioNode;
 import com.opengamma.master.portfolio.PortfolioDocument;
@@ -47,14 +48,26 @@ import com.opengamma.util.tuple.ObjectsPair;
 
 /**
  * A class that writes securities and portfolio positions and trades to the OG masters
+ * <p>
+ * If the position master can add documents in bulk, new positions are held and added in bulk,
+ * so may not have a unique identifier until the path changes or the writer is flushed.
  */
 public class MasterPortfolioWriter implements PortfolioWriter {
 
   private static final Logger s_logger = LoggerFactory.getLogger(MasterPortfolioWriter.class);
 
+  /**
+   * The number of new positions held before adding them in bulk.
+   */
+  private static final int BULK_SIZE = 1000;
+
   private final PortfolioMaster _portfolioMaster;
   private final PositionMaster _positionMaster;
   private final SecurityMaster _securityMaster;
+  /**
+   * The position master if it can add positions in bulk, null otherwise.
+   */
+  private final AbstractBulkMaster<PositionDocument> _bulkPositionMaster;
   
   private PortfolioDocument _portfolioDocument;
   private ManageablePortfolioNode _currentNode;
@@ -72,6 +85,8 @@ public class MasterPortfolioWriter implements PortfolioWriter {
 
   private boolean _keepCurrentPositions;
 
+  private final List<ObjectsPair<ManageablePortfolioNode, ManageablePosition>> _pendingPositions =
+      new ArrayList<ObjectsPair<ManageablePortfolioNode, ManageablePosition>>();
 
   public MasterPortfolioWriter(String portfolioName, PortfolioMaster portfolioMaster,
       PositionMaster positionMaster, SecurityMaster securityMaster, boolean overwrite,
@@ -89,6 +104,7 @@ public class MasterPortfolioWriter implements PortfolioWriter {
     _portfolioMaster = portfolioMaster;
     _positionMaster = positionMaster;
     _securityMaster = securityMaster;
+    _bulkPositionMaster = bulkMaster(positionMaster);
 
     _currentPath = new String[0];
 
@@ -129,6 +145,11 @@ public class MasterPortfolioWriter implements PortfolioWriter {
       ManageablePosition existingPosition = _securityIdToPosition.get(writtenSecurities.get(0).getUniqueId().getObjectId());
       existingPosition.setQuantity(existingPosition.getQuantity().add(position.getQuantity()));
 
+      // A position not yet added will be added with the new quantity
+      if (existingPosition.getUniqueId() == null) {
+        return new ObjectsPair<ManageablePosition, ManageableSecurity[]>(existingPosition, securities);
+      }
+
       // Save the updated position to the position master
       PositionDocument addedDoc = _positionMaster.update(new PositionDocument(existingPosition));
 
@@ -142,17 +163,14 @@ public class MasterPortfolioWriter implements PortfolioWriter {
 
     // Write position
     if (_overwrite) {
-      // Add the new position to the position master
-      PositionDocument addedDoc = _positionMaster.add(new PositionDocument(position));
-
-      // Add the new position to the portfolio
-      _currentNode.addPosition(addedDoc.getUniqueId());
+      // Add the new position to the position master and the portfolio
+      ManageablePosition addedPosition = addPosition(position);
 
       // Update position map
-      _securityIdToPosition.put(writtenSecurities.get(0).getUniqueId().getObjectId(), addedDoc.getPosition());
+      _securityIdToPosition.put(writtenSecurities.get(0).getUniqueId().getObjectId(), addedPosition);
 
       // Return the new position
-      return new ObjectsPair<ManageablePosition, ManageableSecurity[]>(addedDoc.getPosition(),
+      return new ObjectsPair<ManageablePosition, ManageableSecurity[]>(addedPosition,
           writtenSecurities.toArray(new ManageableSecurity[writtenSecurities.size()]));
 
     } else {
@@ -193,22 +211,59 @@ public class MasterPortfolioWriter implements PortfolioWriter {
         // TODO also confirm that all the associated trades are identical
       }
 
-      // Add the new position to the position master
-      PositionDocument addedDoc = _positionMaster.add(new PositionDocument(position));
-
-      // Add the new position to the portfolio
-      _currentNode.addPosition(addedDoc.getUniqueId());
+      // Add the new position to the position master and the portfolio
+      ManageablePosition addedPosition = addPosition(position);
 
       // Update position map
-      _securityIdToPosition.put(writtenSecurities.get(0).getUniqueId().getObjectId(), addedDoc.getPosition());
+      _securityIdToPosition.put(writtenSecurities.get(0).getUniqueId().getObjectId(), addedPosition);
 
       // Return the new position
-      return new ObjectsPair<ManageablePosition, ManageableSecurity[]>(addedDoc.getPosition(),
+      return new ObjectsPair<ManageablePosition, ManageableSecurity[]>(addedPosition,
           writtenSecurities.toArray(new ManageableSecurity[writtenSecurities.size()]));
     }
   }
 
 
+  @SuppressWarnings("unchecked")
+  private static AbstractBulkMaster<PositionDocument> bulkMaster(PositionMaster positionMaster) {
+    // a position master only stores position documents
+    return (positionMaster instanceof AbstractBulkMaster) ? (AbstractBulkMaster<PositionDocument>) positionMaster : null;
+  }
+
+  /*
+   * addPosition adds a new position to the current node, holding it to be added in bulk if the master supports it.
+   */
+  private ManageablePosition addPosition(ManageablePosition position) {
+    if (_bulkPositionMaster != null) {
+      _pendingPositions.add(ObjectsPair.of(_currentNode, position));
+      if (_pendingPositions.size() >= BULK_SIZE) {
+        flushPositions();
+      }
+      return position;
+    }
+    PositionDocument addedDoc = _positionMaster.add(new PositionDocument(position));
+    _currentNode.addPosition(addedDoc.getUniqueId());
+    return addedDoc.getPosition();
+  }
+
+  /*
+   * flushPositions adds the held positions in bulk, and then adds them to their nodes.
+   */
+  private void flushPositions() {
+    if (_pendingPositions.isEmpty()) {
+      return;
+    }
+    List<PositionDocument> documents = new ArrayList<PositionDocument>(_pendingPositions.size());
+    for (ObjectsPair<ManageablePortfolioNode, ManageablePosition> pending : _pendingPositions) {
+      documents.add(new PositionDocument(pending.getSecond()));
+    }
+    List<PositionDocument> addedDocs = _bulkPositionMaster.addAll(documents);
+    for (int i = 0; i < addedDocs.size(); i++) {
+      _pendingPositions.get(i).getFirst().addPosition(addedDocs.get(i).getUniqueId());
+    }
+    _pendingPositions.clear();
+  }
+
   /*
    * writeSecurity searches for an existing security that matches an external id search, and attempts to
    * reuse/update it wherever possible, instead of creating a new one.
@@ -280,6 +335,9 @@ public class MasterPortfolioWriter implements PortfolioWriter {
 
     if (!Arrays.equals(newPath, _currentPath)) {
 
+      // Add the positions held for the previous path
+      flushPositions();
+
       if (newPath.length == 0) {
         _currentNode = _portfolioDocument.getPortfolio().getRootNode();
         _originalNode = _originalRoot;
@@ -299,6 +357,7 @@ public class MasterPortfolioWriter implements PortfolioWriter {
 
   @Override
   public void flush() {
+    flushPositions();
     _portfolioDocument = _portfolioMaster.update(_portfolioDocument);
   }
   
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.integration.copier.portfolio.writer;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.AbstractBulkMaster;
+import com.opengamma.master.portfolio.ManageablePortfolioNode;
+import com.opengamma.master.portfolio.PortfolioMaster;
+import com.opengamma.master.portfolio.PortfolioSearchRequest;
+import com.opengamma.master.portfolio.impl.InMemoryPortfolioMaster;
+import com.opengamma.master.position.ManageablePosition;
+import com.opengamma.master.position.PositionDocument;
+import com.opengamma.master.position.impl.InMemoryPositionMaster;
+import com.opengamma.master.security.ManageableSecurity;
+import com.opengamma.master.security.SecurityMaster;
+import com.opengamma.master.security.impl.InMemorySecurityMaster;
+import com.opengamma.util.tuple.ObjectsPair;
+
+/**
+ * Tests MasterPortfolioWriter adding positions in bulk.
+ */
+@Test
+public class MasterPortfolioWriterTest {
+
+  private static final String PORTFOLIO_NAME = "test";
+  private static final String SECURITY_TYPE = "EQUITY";
+
+  /**
+   * Position master that records the size of each bulk add.
+   */
+  private static class BulkPositionMaster extends InMemoryPositionMaster implements AbstractBulkMaster<PositionDocument> {
+    private final List<Integer> _addAllSizes = new ArrayList<Integer>();
+
+    @Override
+    public List<PositionDocument> addAll(List<PositionDocument> documents) {
+      _addAllSizes.add(documents.size());
+      List<PositionDocument> added = new ArrayList<PositionDocument>(documents.size());
+      for (PositionDocument document : documents) {
+        added.add(add(document));
+      }
+      return added;
+    }
+
+    @Override
+    public List<PositionDocument> updateAll(List<PositionDocument> documents) {
+      List<PositionDocument> updated = new ArrayList<PositionDocument>(documents.size());
+      for (PositionDocument document : documents) {
+        updated.add(update(document));
+      }
+      return updated;
+    }
+  }
+
+  private PortfolioMaster _portfolioMaster;
+  private BulkPositionMaster _positionMaster;
+  private SecurityMaster _securityMaster;
+  private MasterPortfolioWriter _writer;
+
+  @BeforeMethod
+  public void setUp() {
+    _portfolioMaster = new InMemoryPortfolioMaster();
+    _positionMaster = new BulkPositionMaster();
+    _securityMaster = new InMemorySecurityMaster();
+    _writer = new MasterPortfolioWriter(PORTFOLIO_NAME, _portfolioMaster, _positionMaster, _securityMaster, false, true, false);
+  }
+
+  private static ManageableSecurity security(String id) {
+    return new ManageableSecurity(null, id, SECURITY_TYPE, ExternalIdBundle.of("TEST", id));
+  }
+
+  private ObjectsPair<ManageablePosition, ManageableSecurity[]> write(String id, int quantity) {
+    ManageablePosition position = new ManageablePosition(BigDecimal.valueOf(quantity), ExternalId.of("TEST", id));
+    return _writer.writePosition(position, new ManageableSecurity[] {security(id)});
+  }
+
+  private ManageablePortfolioNode savedRootNode() {
+    return _portfolioMaster.search(new PortfolioSearchRequest()).getFirstPortfolio().getRootNode();
+  }
+
+  private BigDecimal quantity(ObjectId positionId) {
+    return _positionMaster.get(positionId, VersionCorrection.LATEST).getPosition().getQuantity();
+  }
+
+  //-------------------------------------------------------------------------
+  public void test_mergeIntoPendingPosition() {
+    ManageablePosition first = write("A", 10).getFirst();
+    ManageablePosition merged = write("A", 5).getFirst();
+    // the position is held so the merged quantity is added with it
+    assertSame(first, merged);
+    assertNull(merged.getUniqueId());
+    assertEquals(BigDecimal.valueOf(15), merged.getQuantity());
+    assertEquals(0, _positionMaster._addAllSizes.size());
+
+    _writer.flush();
+    assertEquals(1, _positionMaster._addAllSizes.size());
+    assertEquals(1, (int) _positionMaster._addAllSizes.get(0));
+    List<ObjectId> positionIds = savedRootNode().getPositionIds();
+    assertEquals(1, positionIds.size());
+    assertEquals(BigDecimal.valueOf(15), quantity(positionIds.get(0)));
+  }
+
+  public void test_flushOnPathChange() {
+    _writer.setPath(new String[] {"a"});
+    write("A", 10);
+    write("B", 20);
+    assertEquals(0, _positionMaster._addAllSizes.size());
+
+    // the positions held for the previous path are added together
+    _writer.setPath(new String[] {"b"});
+    assertEquals(1, _positionMaster._addAllSizes.size());
+    assertEquals(2, (int) _positionMaster._addAllSizes.get(0));
+
+    write("C", 30);
+    _writer.flush();
+    assertEquals(2, _positionMaster._addAllSizes.size());
+    assertEquals(1, (int) _positionMaster._addAllSizes.get(1));
+
+    ManageablePortfolioNode root = savedRootNode();
+    ManageablePortfolioNode nodeA = root.findNodeByName("a");
+    ManageablePortfolioNode nodeB = root.findNodeByName("b");
+    assertNotNull(nodeA);
+    assertNotNull(nodeB);
+    assertEquals(2, nodeA.getPositionIds().size());
+    assertEquals(1, nodeB.getPositionIds().size());
+    assertEquals(BigDecimal.valueOf(30), quantity(nodeB.getPositionIds().get(0)));
+  }
+
+  public void test_noPendingPositions() {
+    _writer.flush();
+    assertEquals(0, _positionMaster._addAllSizes.size());
+    assertEquals(0, savedRootNode().getPositionIds().size());
+  }
+
+}
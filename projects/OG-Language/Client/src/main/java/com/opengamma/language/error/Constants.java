@@ -65,6 +65,18 @@ public final class Constants {
    */
   public static final int FIRST_OPENGAMMA_ERROR = 100, LAST_OPENGAMMA_ERROR = 999;
 
+  private static final int ERROR_VIEW_RESULT = FIRST_OPENGAMMA_ERROR;
+
+  /**
+   * A value was not produced by the view cycle, for example because the target does not have it.
+   */
+  public static final int ERROR_VALUE_NOT_AVAILABLE = declare(ERROR_VIEW_RESULT + 0);
+
+  /**
+   * A value could not be calculated by the view cycle. A description of the failure is in the string field.
+   */
+  public static final int ERROR_VALUE_NOT_CALCULATED = declare(ERROR_VIEW_RESULT + 1);
+
   /**
    * Errors 1000 to 9999 for use by a custom language binding only; these codes must not be used
    * by the core infrastructure or OpenGamma built-in functions.
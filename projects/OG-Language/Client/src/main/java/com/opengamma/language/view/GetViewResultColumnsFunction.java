@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+
+package com.opengamma.language.view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.view.ViewCalculationResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.calcnode.MissingInput;
+import com.opengamma.id.UniqueId;
+import com.opengamma.language.Value;
+import com.opengamma.language.ValueUtils;
+import com.opengamma.language.context.SessionContext;
+import com.opengamma.language.definition.Categories;
+import com.opengamma.language.definition.DefinitionAnnotater;
+import com.opengamma.language.definition.JavaTypeInfo;
+import com.opengamma.language.definition.MetaParameter;
+import com.opengamma.language.error.Constants;
+import com.opengamma.language.function.AbstractFunctionInvoker;
+import com.opengamma.language.function.MetaFunction;
+import com.opengamma.language.function.PublishedFunction;
+import com.opengamma.util.async.AsynchronousExecution;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Returns selected values from the latest result of a calculating view as columns of primitive values.
+ * <p>
+ * The result is an array of columns, each of which is an array of values with a header as its first element.
+ * The first column has the unique identifier of the view cycle as its header and holds the identifier of the
+ * target for each row. The remaining columns have the value name as their header and hold the values for each
+ * row as doubles or strings, or as an error code if the value was not available or not calculated. This is
+ * sent as a single message, avoiding the conversion of the whole result model and of each value individually.
+ * <p>
+ * If the identifier of the view cycle last exported from the view client is given, only the rows which have
+ * changed since that cycle are returned.
+ */
+public class GetViewResultColumnsFunction extends AbstractFunctionInvoker implements PublishedFunction {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(GetViewResultColumnsFunction.class);
+
+  /**
+   * Default instance.
+   */
+  public static final GetViewResultColumnsFunction INSTANCE = new GetViewResultColumnsFunction();
+
+  /**
+   * Holds the result last exported from a view client, for producing incremental updates.
+   */
+  private static final class LastExported extends UserViewClientData {
+
+    private volatile ViewComputationResultModel _result;
+
+  }
+
+  private static final UserViewClientBinding<LastExported> LAST_EXPORTED = new UserViewClientBinding<LastExported>() {
+    @Override
+    protected LastExported create(final UserViewClient viewClient) {
+      return new LastExported();
+    }
+  };
+
+  private final MetaFunction _meta;
+
+  private static List<MetaParameter> parameters() {
+    final MetaParameter viewClient = new MetaParameter("viewClient", JavaTypeInfo.builder(ViewClientHandle.class).get());
+    final MetaParameter valueName = new MetaParameter("valueName", JavaTypeInfo.builder(String.class).arrayOf().get());
+    final MetaParameter calculationConfiguration = new MetaParameter("calculationConfiguration", JavaTypeInfo.builder(String.class).defaultValue("Default").get());
+    final MetaParameter lastViewCycleId = new MetaParameter("lastViewCycleId", JavaTypeInfo.builder(UniqueId.class).allowNull().get());
+    return Arrays.asList(viewClient, valueName, calculationConfiguration, lastViewCycleId);
+  }
+
+  private GetViewResultColumnsFunction(final DefinitionAnnotater info) {
+    super(info.annotate(parameters()));
+    _meta = info.annotate(new MetaFunction(Categories.VIEW, "GetViewResultColumns", getParameters(), this));
+  }
+
+  protected GetViewResultColumnsFunction() {
+    this(new DefinitionAnnotater(GetViewResultColumnsFunction.class));
+  }
+
+  public static Value[][] invoke(final ViewClientHandle viewClientHandle, final String[] valueNames, final String calcConfigName, final UniqueId lastViewCycleId) {
+    try {
+      final UserViewClient viewClient = viewClientHandle.get();
+      final ViewComputationResultModel result = viewClient.getViewClient().getLatestResult();
+      if (result == null) {
+        s_logger.debug("No result available; returning NULL");
+        return null;
+      }
+      final LastExported lastExported = LAST_EXPORTED.get(viewClient, true);
+      ViewComputationResultModel previous = lastExported._result;
+      if ((lastViewCycleId == null) || (previous == null) || !lastViewCycleId.equals(previous.getViewCycleId())) {
+        s_logger.debug("Exporting full result {}", result.getViewCycleId());
+        previous = null;
+      } else {
+        s_logger.debug("Exporting changes from {} to {}", lastViewCycleId, result.getViewCycleId());
+      }
+      lastExported._result = result;
+      return invoke(result, previous, calcConfigName, valueNames);
+    } finally {
+      viewClientHandle.unlock();
+    }
+  }
+
+  /**
+   * Exports columns of values from a result model.
+   *
+   * @param result the result to export, not null
+   * @param previous the result previously exported, null to export all rows
+   * @param calcConfigName the calculation configuration to export from, not null
+   * @param valueNames the names of the values to export, not null
+   * @return the columns, each with a header element, not null
+   */
+  public static Value[][] invoke(final ViewComputationResultModel result, final ViewComputationResultModel previous, final String calcConfigName,
+      final String[] valueNames) {
+    final Map<String, Integer> columnIndex = new HashMap<String, Integer>();
+    for (int i = 0; i < valueNames.length; i++) {
+      if (!columnIndex.containsKey(valueNames[i])) {
+        columnIndex.put(valueNames[i], i);
+      }
+    }
+    final List<ComputationTargetSpecification> targets = new ArrayList<ComputationTargetSpecification>();
+    final List<Object[]> rows = new ArrayList<Object[]>();
+    final ViewCalculationResultModel calcResult = result.getCalculationResult(calcConfigName);
+    if (calcResult != null) {
+      final ViewCalculationResultModel previousCalcResult = (previous != null) ? previous.getCalculationResult(calcConfigName) : null;
+      for (ComputationTargetSpecification target : calcResult.getAllTargets()) {
+        final Object[] row = getRow(calcResult, target, columnIndex, valueNames.length);
+        if (row == null) {
+          continue;
+        }
+        if ((previousCalcResult != null) && Arrays.equals(row, getRow(previousCalcResult, target, columnIndex, valueNames.length))) {
+          continue;
+        }
+        targets.add(target);
+        rows.add(row);
+      }
+    } else {
+      s_logger.warn("No calculation configuration {} in result {}", calcConfigName, result.getViewCycleId());
+    }
+    final Value[][] columns = new Value[valueNames.length + 1][rows.size() + 1];
+    columns[0][0] = ValueUtils.of(result.getViewCycleId().toString());
+    for (int i = 0; i < valueNames.length; i++) {
+      columns[i + 1][0] = ValueUtils.of(valueNames[i]);
+    }
+    for (int j = 0; j < rows.size(); j++) {
+      columns[0][j + 1] = ValueUtils.of(targets.get(j).getUniqueId().toString());
+      final Object[] row = rows.get(j);
+      for (int i = 0; i < valueNames.length; i++) {
+        columns[i + 1][j + 1] = toValue(row[columnIndex.get(valueNames[i])]);
+      }
+    }
+    return columns;
+  }
+
+  private static Object[] getRow(final ViewCalculationResultModel calcResult, final ComputationTargetSpecification target, final Map<String, Integer> columnIndex,
+      final int columns) {
+    final Map<Pair<String, ValueProperties>, ComputedValueResult> values = calcResult.getValues(target);
+    if (values == null) {
+      return null;
+    }
+    Object[] row = null;
+    for (Map.Entry<Pair<String, ValueProperties>, ComputedValueResult> value : values.entrySet()) {
+      final Integer index = columnIndex.get(value.getKey().getFirst());
+      if (index != null) {
+        if (row == null) {
+          row = new Object[columns];
+        }
+        if (row[index] == null) {
+          row[index] = value.getValue().getValue();
+        }
+      }
+    }
+    return row;
+  }
+
+  private static Value toValue(final Object value) {
+    if (value == null) {
+      return ValueUtils.ofError(Constants.ERROR_VALUE_NOT_AVAILABLE);
+    } else if (value instanceof MissingInput) {
+      final Value error = ValueUtils.ofError(Constants.ERROR_VALUE_NOT_CALCULATED);
+      error.setStringValue(value.toString());
+      return error;
+    } else if (value instanceof Number) {
+      return ValueUtils.of(((Number) value).doubleValue());
+    } else if (value instanceof Boolean) {
+      return ValueUtils.of((Boolean) value);
+    } else {
+      return ValueUtils.of(value.toString());
+    }
+  }
+
+  // AbstractFunctionInvoker
+
+  @Override
+  protected Object invokeImpl(final SessionContext sessionContext, final Object[] parameters) throws AsynchronousExecution {
+    final ViewClientHandle viewClientHandle = (ViewClientHandle) parameters[0];
+    final String[] valueNames = (String[]) parameters[1];
+    final String calcConfigName = (String) parameters[2];
+    final UniqueId lastViewCycleId = (UniqueId) parameters[3];
+    return invoke(viewClientHandle, valueNames, calcConfigName, lastViewCycleId);
+  }
+
+  // PublishedFunction
+
+  @Override
+  public MetaFunction getMetaFunction() {
+    return _meta;
+  }
+
+}
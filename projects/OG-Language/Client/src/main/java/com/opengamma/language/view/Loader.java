@@ -107,6 +107,7 @@ public class Loader extends ContextInitializationBean {
     globalContext.getFunctionProvider().addProvider(new FunctionProviderBean(
         FetchViewDefinitionFunction.INSTANCE,
         GetViewPortfolioFunction.INSTANCE,
+        GetViewResultColumnsFunction.INSTANCE,
         GetViewResultFunction.INSTANCE,
         HistoricalExecutionSequenceFunction.INSTANCE,
         SetViewClientExecutionFlagFunction.INSTANCE,
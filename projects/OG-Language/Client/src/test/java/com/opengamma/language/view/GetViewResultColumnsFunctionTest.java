@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.language.view;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ExecutionLog;
+import com.opengamma.engine.view.InMemoryViewComputationResultModel;
+import com.opengamma.engine.view.cache.NotCalculatedSentinel;
+import com.opengamma.id.UniqueId;
+import com.opengamma.language.Value;
+import com.opengamma.language.error.Constants;
+
+/**
+ * Tests the {@link GetViewResultColumnsFunction} class.
+ */
+@Test
+public class GetViewResultColumnsFunctionTest {
+
+  private static final UniqueId TARGET_A = UniqueId.of("Test", "A");
+  private static final UniqueId TARGET_B = UniqueId.of("Test", "B");
+
+  private static ComputedValueResult value(final String valueName, final UniqueId target, final Object value) {
+    final ValueRequirement requirement = new ValueRequirement(valueName, ComputationTargetType.POSITION, target);
+    return new ComputedValueResult(new ValueSpecification(requirement, "FunctionId"), value, ExecutionLog.EMPTY);
+  }
+
+  private static InMemoryViewComputationResultModel result(final String cycle, final double valueB) {
+    final InMemoryViewComputationResultModel result = new InMemoryViewComputationResultModel();
+    result.setViewCycleId(UniqueId.of("Cycle", cycle));
+    result.addValue("Default", value("PV", TARGET_A, 1.5d));
+    result.addValue("Default", value("Name", TARGET_A, "Foo"));
+    result.addValue("Default", value("PV", TARGET_B, valueB));
+    result.addValue("Default", value("Name", TARGET_B, NotCalculatedSentinel.EVALUATION_ERROR));
+    return result;
+  }
+
+  private static int rowOf(final Value[][] columns, final UniqueId target) {
+    for (int i = 1; i < columns[0].length; i++) {
+      if (target.toString().equals(columns[0][i].getStringValue())) {
+        return i;
+      }
+    }
+    throw new AssertionError(target + " not found");
+  }
+
+  public void testFullResult() {
+    final Value[][] columns = GetViewResultColumnsFunction.invoke(result("1", 2d), null, "Default", new String[] {"PV", "Name", "Delta" });
+    assertEquals(columns.length, 4);
+    assertEquals(columns[0].length, 3);
+    assertEquals(columns[0][0].getStringValue(), UniqueId.of("Cycle", "1").toString());
+    assertEquals(columns[1][0].getStringValue(), "PV");
+    final int a = rowOf(columns, TARGET_A);
+    final int b = rowOf(columns, TARGET_B);
+    assertEquals((double) columns[1][a].getDoubleValue(), 1.5d);
+    assertEquals((double) columns[1][b].getDoubleValue(), 2d);
+    assertEquals(columns[2][a].getStringValue(), "Foo");
+    assertEquals(columns[2][b].getErrorValue(), (Integer) Constants.ERROR_VALUE_NOT_CALCULATED);
+    assertEquals(columns[3][a].getErrorValue(), (Integer) Constants.ERROR_VALUE_NOT_AVAILABLE);
+  }
+
+  public void testIncrementalResult() {
+    final Value[][] columns = GetViewResultColumnsFunction.invoke(result("2", 3d), result("1", 2d), "Default", new String[] {"PV", "Name" });
+    assertEquals(columns[0].length, 2);
+    assertEquals(columns[0][1].getStringValue(), TARGET_B.toString());
+    assertEquals((double) columns[1][1].getDoubleValue(), 3d);
+  }
+
+  public void testMissingCalculationConfiguration() {
+    final Value[][] columns = GetViewResultColumnsFunction.invoke(result("1", 2d), null, "Other", new String[] {"PV" });
+    assertEquals(columns.length, 2);
+    assertEquals(columns[0].length, 1);
+    assertEquals(columns[1].length, 1);
+  }
+
+}
@@ -59,6 +59,23 @@ static TCHAR *_InternalError (const TCHAR *pszMessage) {
 	return _tcsdup (sz);
 }
 
+/// Processes the ERROR_VALUE_NOT_AVAILABLE error.
+///
+/// @return the full error message
+static TCHAR *_ValueNotAvailableError () {
+	return _tcsdup (TEXT ("Value not available"));
+}
+
+/// Processes the ERROR_VALUE_NOT_CALCULATED error.
+///
+/// @param[in] pszMessage reason the value was not calculated, never NULL
+/// @return the full error message
+static TCHAR *_ValueNotCalculatedError (const TCHAR *pszMessage) {
+	TCHAR sz[MESSAGE_BUFFER_SIZE];
+	StringCbPrintf (sz, sizeof (sz), TEXT ("Value not calculated - %s"), pszMessage);
+	return _tcsdup (sz);
+}
+
 /// Processes any other errors
 ///
 /// @param[in] nCode error code
@@ -89,6 +106,10 @@ TCHAR *CError::ToString (const com_opengamma_language_Value *pValue) {
 			return _InvalidArgumentError (SAFE_INT (pValue->_intValue), SAFE_STRING (pValue->_stringValue));
 		case ERROR_INTERNAL :
 			return _InternalError (SAFE_STRING (pValue->_stringValue));
+		case ERROR_VALUE_NOT_AVAILABLE :
+			return _ValueNotAvailableError ();
+		case ERROR_VALUE_NOT_CALCULATED :
+			return _ValueNotCalculatedError (SAFE_STRING (pValue->_stringValue));
 		default :
 			return _DefaultError (*pValue->_errorValue);
 	}
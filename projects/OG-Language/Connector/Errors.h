@@ -25,6 +25,10 @@
 #define ERROR_FIRST_OPENGAMMA		100
 #define ERROR_LAST_OPENGAMMA		999
 
+#define ERROR_VIEW_RESULT(x)		(ERROR_FIRST_OPENGAMMA + x)
+#define ERROR_VALUE_NOT_AVAILABLE	ERROR_VIEW_RESULT (0)
+#define ERROR_VALUE_NOT_CALCULATED	ERROR_VIEW_RESULT (1)
+
 // Errors 1000 to 9999 for use by a custom language binding only; these codes must not be
 // used by the core infrastructure or OpenGamma built-in functions
 
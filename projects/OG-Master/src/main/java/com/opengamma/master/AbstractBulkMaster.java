@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.master;
+
+import java.util.List;
+
+/**
+ * A master that can add and update many documents at once.
+ * <p>
+ * This is equivalent to adding or updating each document in turn, but allows the master
+ * to write large numbers of documents much faster.
+ *
+ * @param <D>  the document type managed by the master
+ */
+public interface AbstractBulkMaster<D extends AbstractDocument> extends AbstractMaster<D> {
+
+  /**
+   * Adds a list of documents to the data store.
+   * <p>
+   * Each document is added as though by {@link #add}.
+   *
+   * @param documents  the documents, not null
+   * @return the added documents, in the same order, not null
+   * @throws IllegalArgumentException if the request is invalid
+   */
+  List<D> addAll(List<D> documents);
+
+  /**
+   * Updates a list of documents in the data store.
+   * <p>
+   * Each document is updated as though by {@link #update}.
+   *
+   * @param documents  the documents, each with a versioned unique identifier, not null
+   * @return the updated documents, in the same order, not null
+   * @throws IllegalArgumentException if the request is invalid
+   */
+  List<D> updateAll(List<D> documents);
+
+}
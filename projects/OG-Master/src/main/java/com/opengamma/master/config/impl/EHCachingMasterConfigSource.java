@@ -5,17 +5,14 @@
  */
 package com.opengamma.master.config.impl;
 
-import static com.opengamma.util.ehcache.EHCacheUtils.putValue;
-
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 
-import com.opengamma.core.change.ChangeEvent;
-import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.change.CacheInvalidatingChangeListener;
 import com.opengamma.core.config.impl.ConfigItem;
 import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
@@ -25,11 +22,18 @@ import com.opengamma.master.config.ConfigMaster;
 import com.opengamma.master.config.ConfigSearchRequest;
 import com.opengamma.master.config.ConfigSearchResult;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
 import com.opengamma.util.paging.PagingRequest;
+import com.opengamma.util.tuple.Pair;
 
 /**
  * A cache to optimize the results of {@code MasterConfigSource}.
+ * <p>
+ * The cache is implemented using {@link ConcurrentCache}, sized from the {@code EHCache} configuration.
+ * Documents are removed from the cache when they change in the master and the results of searches by
+ * name are cleared whenever anything changes in the master.
  */
 public class EHCachingMasterConfigSource extends MasterConfigSource {
 
@@ -37,16 +41,31 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
    * Cache key for configs.
    */
   /*package*/ static final String CONFIG_CACHE = "config";
+  /**
+   * Cache key for the single configs found by name.
+   */
+  /*package*/ static final String CONFIG_SINGLE_CACHE = "config-single";
+  /**
+   * Cache key for the results of searches by name.
+   */
+  /*package*/ static final String CONFIG_SEARCH_CACHE = "config-search";
 
   /**
    * The cache manager.
    */
   private final CacheManager _cacheManager;
-
   /**
-   * The result cache.
+   * The documents keyed by unique identifier or by object identifier and version-correction.
+   */
+  private final ConcurrentCache<Object, ConfigDocument> _configCache;
+  /**
+   * The single documents found by name.
+   */
+  private final ConcurrentCache<List<?>, ConfigDocument> _singleCache;
+  /**
+   * The results of searches by name.
    */
-  private final Cache _configCache;
+  private final ConcurrentCache<List<?>, ConfigSearchResult<?>> _searchCache;
 
   /**
    * Creates the cache around an underlying config source.
@@ -56,13 +75,13 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
    */
   public EHCachingMasterConfigSource(final ConfigMaster underlying, final CacheManager cacheManager) {
     super(underlying);
-
-    underlying.changeManager().addChangeListener(new ConfigDocumentChangeListener());
-
     ArgumentChecker.notNull(cacheManager, "cacheManager");
     _cacheManager = cacheManager;
-    EHCacheUtils.addCache(cacheManager, CONFIG_CACHE);
-    _configCache = EHCacheUtils.getCacheFromManager(cacheManager, CONFIG_CACHE);
+    _configCache = EHCacheUtils.createConcurrentCache(cacheManager, CONFIG_CACHE);
+    _singleCache = EHCacheUtils.createConcurrentCache(cacheManager, CONFIG_SINGLE_CACHE);
+    _searchCache = EHCacheUtils.createConcurrentCache(cacheManager, CONFIG_SEARCH_CACHE);
+    underlying.changeManager().addChangeListener(new CacheInvalidatingChangeListener()
+        .addObjectCache(_configCache).addQueryCache(_singleCache).addQueryCache(_searchCache));
   }
 
   //-------------------------------------------------------------------------
@@ -75,23 +94,27 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
     return _cacheManager;
   }
 
+  /**
+   * Gets the statistics of the caches.
+   *
+   * @return the statistics of each cache, not null
+   */
+  public List<CacheStatistics> getCacheStatistics() {
+    return Arrays.asList(_configCache.getStatistics(), _singleCache.getStatistics(), _searchCache.getStatistics());
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <R> R getConfig(final Class<R> clazz, final UniqueId uniqueId) {
     ArgumentChecker.notNull(clazz, "clazz");
     ArgumentChecker.notNull(uniqueId, "uniqueId");
-
-    final Element element = _configCache.get(uniqueId);
-    if (element != null) {
-      return (R) ((ConfigDocument) EHCacheUtils.get(element)).getConfig().getValue();
-    }
-    try {
-      final ConfigDocument doc = getMaster().get(uniqueId);
-      putValue(uniqueId.getObjectId(), doc, _configCache);
-      return (R) putValue(uniqueId, doc, _configCache).getConfig().getValue();
-    } catch (final RuntimeException ex) {
-      return EHCacheUtils.<R>putException(uniqueId, ex, _configCache);
-    }
+    final ConfigDocument doc = _configCache.get(uniqueId, new Callable<ConfigDocument>() {
+      @Override
+      public ConfigDocument call() {
+        return getMaster().get(uniqueId);
+      }
+    });
+    return (R) doc.getConfig().getValue();
   }
 
   @SuppressWarnings("unchecked")
@@ -100,21 +123,13 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
     ArgumentChecker.notNull(clazz, "clazz");
     ArgumentChecker.notNull(objectId, "objectId");
     ArgumentChecker.notNull(versionCorrection, "versionCorrection");
-
-    final Object searchKey = Arrays.asList(clazz, objectId, versionCorrection);
-    final Element element = _configCache.get(searchKey);
-    if (element != null) {
-      return ((R) ((ConfigDocument) EHCacheUtils.get(element)).getConfig().getValue());
-    }
-    try {
-      final ConfigDocument doc = getMaster().get(objectId, versionCorrection);
-      final ConfigItem<R> item = (ConfigItem<R>) doc.getConfig();
-      putValue(item.getUniqueId().getObjectId(), doc, _configCache);
-      putValue(item.getUniqueId(), doc, _configCache);
-      return (R) putValue(searchKey, doc, _configCache).getConfig().getValue();
-    } catch (final RuntimeException ex) {
-      return EHCacheUtils.<R>putException(searchKey, ex, _configCache);
-    }
+    final ConfigDocument doc = _configCache.get(Pair.of(objectId, versionCorrection), new Callable<ConfigDocument>() {
+      @Override
+      public ConfigDocument call() {
+        return cacheDocument(getMaster().get(objectId, versionCorrection));
+      }
+    });
+    return (R) doc.getConfig().getValue();
   }
 
   @SuppressWarnings("unchecked")
@@ -123,28 +138,16 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
     ArgumentChecker.notNull(clazz, "clazz");
     ArgumentChecker.notNull(configName, "configName");
     ArgumentChecker.notNull(versionCorrection, "versionCorrection");
-
-    final Object searchKey = Arrays.asList("single", clazz, configName, versionCorrection);
-    final Element element = _configCache.get(searchKey);
-    if (element != null) {
-      return (R) ((ConfigDocument) EHCacheUtils.get(element)).getConfig().getValue();
-    }
-    try {
-
-      final ConfigSearchRequest<R> searchRequest = new ConfigSearchRequest<R>(clazz);
-      searchRequest.setName(configName);
-      searchRequest.setVersionCorrection(versionCorrection);
-      final ConfigDocument doc = getMaster().search(searchRequest).getFirstDocument();
-      if (doc == null) {
-        return null;
+    final ConfigDocument doc = _singleCache.get(Arrays.asList(clazz, configName, versionCorrection), new Callable<ConfigDocument>() {
+      @Override
+      public ConfigDocument call() {
+        final ConfigSearchRequest<R> searchRequest = new ConfigSearchRequest<R>(clazz);
+        searchRequest.setName(configName);
+        searchRequest.setVersionCorrection(versionCorrection);
+        return cacheDocument(getMaster().search(searchRequest).getFirstDocument());
       }
-      putValue(doc.getUniqueId().getObjectId(), doc, _configCache);
-      putValue(doc.getUniqueId(), doc, _configCache);
-
-      return (R) putValue(searchKey, doc, _configCache).getConfig().getValue();
-    } catch (final RuntimeException ex) {
-      return EHCacheUtils.<R>putException(searchKey, ex, _configCache);
-    }
+    });
+    return doc != null ? (R) doc.getConfig().getValue() : null;
   }
 
   @SuppressWarnings("unchecked")
@@ -152,26 +155,20 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
   public <R> Collection<ConfigItem<R>> get(final Class<R> clazz, final String name, final VersionCorrection versionCorrection) {
     ArgumentChecker.notNull(clazz, "clazz");
     ArgumentChecker.notNull(name, "name");
-
-    final Object searchKey = Arrays.asList("search", clazz, name, versionCorrection);
-    final Element element = _configCache.get(searchKey);
-    if (element != null) {
-      return ((ConfigSearchResult) EHCacheUtils.get(element)).getValues();
-    }
-    try {
-      final ConfigSearchRequest<R> searchRequest = new ConfigSearchRequest<R>(clazz);
-      searchRequest.setName(name);
-      searchRequest.setVersionCorrection(versionCorrection);
-      final ConfigSearchResult<R> searchResult = getMaster().search(searchRequest);
-      for (final ConfigDocument doc : searchResult.getDocuments()) {
-        putValue(doc.getUniqueId().getObjectId(), doc, _configCache);
-        putValue(doc.getUniqueId(), doc, _configCache);
+    final ConfigSearchResult<?> searchResult = _searchCache.get(Arrays.asList(clazz, name, versionCorrection), new Callable<ConfigSearchResult<?>>() {
+      @Override
+      public ConfigSearchResult<?> call() {
+        final ConfigSearchRequest<R> searchRequest = new ConfigSearchRequest<R>(clazz);
+        searchRequest.setName(name);
+        searchRequest.setVersionCorrection(versionCorrection);
+        final ConfigSearchResult<R> result = getMaster().search(searchRequest);
+        for (final ConfigDocument doc : result.getDocuments()) {
+          cacheDocument(doc);
+        }
+        return result;
       }
-      putValue(searchKey, searchResult, _configCache);
-      return searchResult.getValues();
-    } catch (final RuntimeException ex) {
-      return EHCacheUtils.<Collection<ConfigItem<R>>>putException(searchKey, ex, _configCache);
-    }
+    });
+    return ((ConfigSearchResult<R>) searchResult).getValues();
   }
 
   @Override
@@ -193,30 +190,11 @@ public class EHCachingMasterConfigSource extends MasterConfigSource {
   }
 
   //-------------------------------------------------------------------------
-  private class ConfigDocumentChangeListener implements ChangeListener {
-    @Override
-    public void entityChanged(final ChangeEvent event) {
-      switch (event.getType()) {
-        case CHANGED:
-        case REMOVED:
-          cleanCaches(event);
-          break;
-        default:
-          break;
-      }
-    }
-
-    private void cleanCaches(final ChangeEvent event) {
-      final ObjectId objectId = event.getObjectId();
-      if (inCache(objectId)) {
-        _configCache.removeAll();
-      }
-    }
-
-    private boolean inCache(final ObjectId objectId) {
-      final Element element = _configCache.get(objectId);
-      return element != null;
+  private ConfigDocument cacheDocument(final ConfigDocument doc) {
+    if (doc != null) {
+      _configCache.put(doc.getUniqueId(), doc);
     }
+    return doc;
   }
 
 }
@@ -5,10 +5,14 @@
  */
 package com.opengamma.master.historicaltimeseries;
 
+import java.util.Collection;
+import java.util.Map;
+
 import javax.time.calendar.LocalDate;
 
 import com.opengamma.DataNotFoundException;
 import com.opengamma.core.change.ChangeProvider;
+import com.opengamma.id.ObjectId;
 import com.opengamma.id.ObjectIdentifiable;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
@@ -114,6 +118,21 @@ public interface HistoricalTimeSeriesMaster extends AbstractChangeProvidingMaste
    */
   ManageableHistoricalTimeSeries getTimeSeries(ObjectIdentifiable objectId, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter);
 
+  /**
+   * Returns a subset of the data points of each of the specified time-series, or the entire series.
+   * <p>
+   * This is a bulk version of {@link #getTimeSeries(ObjectIdentifiable, VersionCorrection, HistoricalTimeSeriesGetFilter)}
+   * allowing implementations to fetch many time-series with a small number of requests.
+   * Identifiers that cannot be found are omitted from the result rather than causing an exception.
+   * 
+   * @param objectIds  the time-series data points object identifiers, not null
+   * @param versionCorrection  the version-correction locator to search at, not null
+   * @param filter  the time-series subset filter, applied to every series, not null
+   * @return the filtered time-series data points keyed by object identifier, not null
+   * @throws IllegalArgumentException if the request is invalid
+   */
+  Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter);
+
   //-------------------------------------------------------------------------
   /**
    * Adds to the time-series by appending new data points.
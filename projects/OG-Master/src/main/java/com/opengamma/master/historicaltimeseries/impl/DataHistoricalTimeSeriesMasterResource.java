@@ -6,6 +6,10 @@
 package com.opengamma.master.historicaltimeseries.impl;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
@@ -17,14 +21,26 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.FudgeMsgEnvelope;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+
 import com.opengamma.id.ObjectId;
+import com.opengamma.id.ObjectIdentifiable;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesGetFilter;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoDocument;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoMetaDataRequest;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoMetaDataResult;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchRequest;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoSearchResult;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.fudgemsg.FudgeMapWrapper;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
 import com.opengamma.util.rest.AbstractDataResource;
 import com.opengamma.util.rest.RestUtils;
 
@@ -98,6 +114,19 @@ public class DataHistoricalTimeSeriesMasterResource extends AbstractDataResource
     return responseCreatedFudge(createdUri, result);
   }
 
+  @SuppressWarnings("unchecked")
+  @POST
+  @Path("dataPointsBulk")
+  public Response getTimeSeries(FudgeMsgEnvelope request) {
+    FudgeMsg msg = request.getMessage();
+    FudgeDeserializer deserializer = new FudgeDeserializer(OpenGammaFudgeContext.getInstance());
+    List<ObjectId> objectIds = deserializer.fudgeMsgToObject(List.class, msg.getMessage("id"));
+    VersionCorrection versionCorrection = deserializer.fieldValueToObject(VersionCorrection.class, msg.getByName("versionCorrection"));
+    HistoricalTimeSeriesGetFilter filter = deserializer.fieldValueToObject(HistoricalTimeSeriesGetFilter.class, msg.getByName("filter"));
+    Map<ObjectId, ManageableHistoricalTimeSeries> result = getHistoricalTimeSeriesMaster().getTimeSeries(objectIds, versionCorrection, filter);
+    return responseOkFudge(FudgeMapWrapper.of(result));
+  }
+
   //-------------------------------------------------------------------------
   @Path("infos/{infoId}")
   public DataHistoricalTimeSeriesResource findHistoricalTimeSeries(@PathParam("infoId") String idStr) {
@@ -150,4 +179,36 @@ public class DataHistoricalTimeSeriesMasterResource extends AbstractDataResource
     return bld.build();
   }
 
+  /**
+   * Builds a URI for bulk data points retrieval.
+   *
+   * @param baseUri  the base URI, not null
+   * @return the URI, not null
+   */
+  public static URI uriTimeSeriesBulk(URI baseUri) {
+    UriBuilder bld = UriBuilder.fromUri(baseUri).path("dataPointsBulk");
+    return bld.build();
+  }
+
+  /**
+   * Builds the message for bulk data points retrieval.
+   *
+   * @param objectIds  the object identifiers, not null
+   * @param versionCorrection  the version-correction locator, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the message, not null
+   */
+  public static FudgeMsg uriTimeSeriesBulkData(Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    List<ObjectId> ids = new ArrayList<ObjectId>(objectIds.size());
+    for (ObjectIdentifiable objectId : objectIds) {
+      ids.add(objectId.getObjectId());
+    }
+    FudgeSerializer serializer = new FudgeSerializer(OpenGammaFudgeContext.getInstance());
+    MutableFudgeMsg msg = serializer.newMessage();
+    serializer.addToMessage(msg, "id", null, ids);
+    serializer.addToMessage(msg, "versionCorrection", null, versionCorrection);
+    serializer.addToMessage(msg, "filter", null, filter);
+    return msg;
+  }
+
 }
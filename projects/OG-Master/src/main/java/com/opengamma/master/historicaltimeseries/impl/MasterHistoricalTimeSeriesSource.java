@@ -5,6 +5,7 @@
  */
 package com.opengamma.master.historicaltimeseries.impl;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -32,6 +33,7 @@ import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesInfoDocumen
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesMaster;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesResolutionResult;
 import com.opengamma.master.historicaltimeseries.HistoricalTimeSeriesResolver;
+import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeries;
 import com.opengamma.master.historicaltimeseries.ManageableHistoricalTimeSeriesInfo;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.OpenGammaClock;
@@ -472,6 +474,44 @@ public class MasterHistoricalTimeSeriesSource
     return result;
   }
 
+  @Override
+  public Map<UniqueId, HistoricalTimeSeries> getHistoricalTimeSeries(
+      Collection<UniqueId> uniqueIds, LocalDate start, boolean includeStart, LocalDate end, boolean includeEnd) {
+    ArgumentChecker.notNull(uniqueIds, "uniqueIds");
+    if (start != null && !includeStart) {
+      start = start.plusDays(1);
+    }
+    if (end != null && !includeEnd) {
+      end = end.minusDays(1);
+    }
+    final VersionCorrection vc = getVersionCorrection();  // lock against change
+    final Map<UniqueId, HistoricalTimeSeries> result = Maps.newHashMapWithExpectedSize(uniqueIds.size());
+    final Map<ObjectId, UniqueId> bulk = Maps.newHashMapWithExpectedSize(uniqueIds.size());
+    for (UniqueId uniqueId : uniqueIds) {
+      final UniqueId previous = bulk.get(uniqueId.getObjectId());
+      if ((vc != null || uniqueId.isLatest()) && (previous == null || previous.equals(uniqueId))) {
+        bulk.put(uniqueId.getObjectId(), uniqueId);
+      } else {
+        // specific versions are not expressible in the bulk request
+        final HistoricalTimeSeries hts = doGetHistoricalTimeSeries(uniqueId, start, end, null);
+        if (hts != null) {
+          result.put(uniqueId, hts);
+        }
+      }
+    }
+    if (bulk.isEmpty() == false) {
+      final Map<ObjectId, ManageableHistoricalTimeSeries> found = getMaster().getTimeSeries(
+          bulk.keySet(), Objects.firstNonNull(vc, VersionCorrection.LATEST), HistoricalTimeSeriesGetFilter.ofRange(start, end));
+      for (Map.Entry<ObjectId, UniqueId> entry : bulk.entrySet()) {
+        final ManageableHistoricalTimeSeries hts = found.get(entry.getKey());
+        if (hts != null) {
+          result.put(entry.getValue(), hts);
+        }
+      }
+    }
+    return result;
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public String toString() {
@@ -5,10 +5,13 @@
  */
 package com.opengamma.master.impl;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.id.ObjectId;
 import com.opengamma.master.AbstractDocument;
 import com.opengamma.master.AbstractMaster;
 import com.opengamma.master.AbstractSearchRequest;
@@ -22,6 +25,11 @@ import com.opengamma.util.paging.PagingRequest;
  * Large systems may store a large amount of data in each master.
  * A simple search request that pulls back the entire database is unrealistic.
  * This remote iterator allows the database to be queried in a consistent way remotely.
+ * <p>
+ * Where the request supports it, batches are fetched by object identifier, each search
+ * starting after the last document of the previous batch. This avoids counting and skipping
+ * the earlier results, so each batch costs the same however far through the results it is.
+ * If the master fails or does not honour this, iteration continues by index.
  * 
  * @param <D>  the type of the document
  * @param <M>  the type of the master
@@ -30,6 +38,15 @@ import com.opengamma.util.paging.PagingRequest;
 public abstract class AbstractSearchIterator<D extends AbstractDocument, M extends AbstractMaster<D>, R extends AbstractSearchRequest>
     implements Iterator<D> {
 
+  /**
+   * The size of the batches fetched by index.
+   */
+  private static final int BATCH_SIZE = 20;
+  /**
+   * The size of the batches fetched by object identifier.
+   */
+  private static final int KEYSET_BATCH_SIZE = 100;
+
   /**
    * The master that is being used.
    */
@@ -54,6 +71,14 @@ public abstract class AbstractSearchIterator<D extends AbstractDocument, M exten
    * The overall index of the last retrieved object.
    */
   private int _overallIndex;
+  /**
+   * Whether batches are being fetched by object identifier.
+   */
+  private boolean _keyset = true;
+  /**
+   * Whether the last batch fetched by object identifier was the final one.
+   */
+  private boolean _keysetComplete;
 
   /**
    * Creates an instance based on a request.
@@ -109,9 +134,12 @@ public abstract class AbstractSearchIterator<D extends AbstractDocument, M exten
   }
 
   private void doFetch() {
+    if (_keyset && doFetchKeyset()) {
+      return;
+    }
     try {
       // try to fetch a batch of 20 documents
-      _request.setPagingRequest(PagingRequest.ofIndex(_overallIndex, 20));
+      _request.setPagingRequest(PagingRequest.ofIndex(_overallIndex, BATCH_SIZE));
       _currentBatch = doSearch(_request);
       
     } catch (RuntimeException ex) {
@@ -129,6 +157,61 @@ public abstract class AbstractSearchIterator<D extends AbstractDocument, M exten
     }
   }
 
+  /**
+   * Fetches the next batch of documents following the last document returned.
+   * <p>
+   * The batch is rejected if it contains a document from the previous batch,
+   * which indicates that the master ignored the object identifier.
+   * 
+   * @return true if the batch was fetched, false to continue by index
+   */
+  private boolean doFetchKeyset() {
+    if (_keysetComplete) {
+      return true;
+    }
+    final ObjectId afterObjectId = (_current != null ? _current.getObjectId() : null);
+    if (setAfterObjectId(_request, afterObjectId) == false) {
+      _keyset = false;
+      return false;
+    }
+    final AbstractSearchResult<D> batch;
+    try {
+      _request.setPagingRequest(PagingRequest.ofIndex(0, KEYSET_BATCH_SIZE));
+      batch = doSearch(_request);
+    } catch (RuntimeException ex) {
+      return stopKeyset();
+    }
+    if (_currentBatch != null) {
+      final Set<ObjectId> previous = new HashSet<ObjectId>();
+      for (D document : _currentBatch.getDocuments()) {
+        previous.add(document.getObjectId());
+      }
+      for (D document : batch.getDocuments()) {
+        if (previous.contains(document.getObjectId())) {
+          return stopKeyset();
+        }
+      }
+    }
+    _currentBatch = batch;
+    _currentBatchIndex = 0;
+    _keysetComplete = (batch.getDocuments().size() < KEYSET_BATCH_SIZE);
+    
+    // ensure same vc for whole iterator
+    _request.setVersionCorrection(batch.getVersionCorrection());
+    return true;
+  }
+
+  /**
+   * Stops fetching by object identifier, continuing by index from the same point.
+   * 
+   * @return false
+   */
+  private boolean stopKeyset() {
+    _keyset = false;
+    setAfterObjectId(_request, null);
+    return false;
+  }
+
   /**
    * Fetches the next one document.
    * 
@@ -171,6 +254,20 @@ public abstract class AbstractSearchIterator<D extends AbstractDocument, M exten
    */
   protected abstract AbstractSearchResult<D> doSearch(R request);
 
+  /**
+   * Sets the object identifier that the results of the request must follow.
+   * <p>
+   * This returns false by default, in which case batches are fetched by index.
+   * Subclasses whose request supports it should set the identifier and return true.
+   * 
+   * @param request  the request to alter, not null
+   * @param afterObjectId  the object identifier, null to start from the first result
+   * @return true if the request was altered
+   */
+  protected boolean setAfterObjectId(R request, ObjectId afterObjectId) {
+    return false;
+  }
+
   //-----------------------------------------------------------------------
   /**
    * Gets the underlying master.
@@ -93,6 +93,13 @@ public class PositionSearchRequest extends AbstractSearchRequest {
    */
   @PropertyDefinition
   private BigDecimal _maxQuantity;
+  /**
+   * The object identifier that results must follow, null to start from the first result.
+   * When set, the results are ordered by object identifier, allowing a large search to be
+   * read in pages without the cost of counting and skipping the earlier results.
+   */
+  @PropertyDefinition
+  private ObjectId _afterObjectId;
 
   /**
    * Creates an instance.
@@ -236,6 +243,9 @@ public class PositionSearchRequest extends AbstractSearchRequest {
     if (getMaxQuantity() != null && (position.getQuantity() == null || position.getQuantity().compareTo(getMaxQuantity()) >= 0)) {
       return false;
     }
+    if (getAfterObjectId() != null && document.getObjectId().compareTo(getAfterObjectId()) <= 0) {
+      return false;
+    }
     return true;
   }
 
@@ -276,6 +286,8 @@ public class PositionSearchRequest extends AbstractSearchRequest {
         return getMinQuantity();
       case 747293199:  // maxQuantity
         return getMaxQuantity();
+      case 1489020598:  // afterObjectId
+        return getAfterObjectId();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -308,6 +320,9 @@ public class PositionSearchRequest extends AbstractSearchRequest {
       case 747293199:  // maxQuantity
         setMaxQuantity((BigDecimal) newValue);
         return;
+      case 1489020598:  // afterObjectId
+        setAfterObjectId((ObjectId) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -327,6 +342,7 @@ public class PositionSearchRequest extends AbstractSearchRequest {
           JodaBeanUtils.equal(getTradeProviderId(), other.getTradeProviderId()) &&
           JodaBeanUtils.equal(getMinQuantity(), other.getMinQuantity()) &&
           JodaBeanUtils.equal(getMaxQuantity(), other.getMaxQuantity()) &&
+          JodaBeanUtils.equal(getAfterObjectId(), other.getAfterObjectId()) &&
           super.equals(obj);
     }
     return false;
@@ -343,6 +359,7 @@ public class PositionSearchRequest extends AbstractSearchRequest {
     hash += hash * 31 + JodaBeanUtils.hashCode(getTradeProviderId());
     hash += hash * 31 + JodaBeanUtils.hashCode(getMinQuantity());
     hash += hash * 31 + JodaBeanUtils.hashCode(getMaxQuantity());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getAfterObjectId());
     return hash ^ super.hashCode();
   }
 
@@ -557,6 +574,35 @@ public class PositionSearchRequest extends AbstractSearchRequest {
     return metaBean().maxQuantity().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the object identifier that results must follow, null to start from the first result.
+   * When set, the results are ordered by object identifier, allowing a large search to be
+   * read in pages without the cost of counting and skipping the earlier results.
+   * @return the value of the property
+   */
+  public ObjectId getAfterObjectId() {
+    return _afterObjectId;
+  }
+
+  /**
+   * Sets the object identifier that results must follow, null to start from the first result.
+   * When set, the results are ordered by object identifier, allowing a large search to be
+   * read in pages without the cost of counting and skipping the earlier results.
+   * @param afterObjectId  the new value of the property
+   */
+  public void setAfterObjectId(ObjectId afterObjectId) {
+    this._afterObjectId = afterObjectId;
+  }
+
+  /**
+   * Gets the the {@code afterObjectId} property.
+   * @return the property, not null
+   */
+  public final Property<ObjectId> afterObjectId() {
+    return metaBean().afterObjectId().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code PositionSearchRequest}.
@@ -609,6 +655,11 @@ public class PositionSearchRequest extends AbstractSearchRequest {
      */
     private final MetaProperty<BigDecimal> _maxQuantity = DirectMetaProperty.ofReadWrite(
         this, "maxQuantity", PositionSearchRequest.class, BigDecimal.class);
+    /**
+     * The meta-property for the {@code afterObjectId} property.
+     */
+    private final MetaProperty<ObjectId> _afterObjectId = DirectMetaProperty.ofReadWrite(
+        this, "afterObjectId", PositionSearchRequest.class, ObjectId.class);
     /**
      * The meta-properties.
      */
@@ -621,7 +672,8 @@ public class PositionSearchRequest extends AbstractSearchRequest {
         "positionProviderId",
         "tradeProviderId",
         "minQuantity",
-        "maxQuantity");
+        "maxQuantity",
+        "afterObjectId");
 
     /**
      * Restricted constructor.
@@ -648,6 +700,8 @@ public class PositionSearchRequest extends AbstractSearchRequest {
           return _minQuantity;
         case 747293199:  // maxQuantity
           return _maxQuantity;
+        case 1489020598:  // afterObjectId
+          return _afterObjectId;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -732,6 +786,14 @@ public class PositionSearchRequest extends AbstractSearchRequest {
       return _maxQuantity;
     }
 
+    /**
+     * The meta-property for the {@code afterObjectId} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<ObjectId> afterObjectId() {
+      return _afterObjectId;
+    }
+
   }
 
   ///CLOVER:ON
@@ -6,6 +6,8 @@
 package com.opengamma.master.position.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -242,6 +244,13 @@ public class InMemoryPositionMaster
         list.add(clonePositionDocument(doc));
       }
     }
+    // ordered by object identifier so that a search following an identifier continues from the previous one
+    Collections.sort(list, new Comparator<PositionDocument>() {
+      @Override
+      public int compare(final PositionDocument doc1, final PositionDocument doc2) {
+        return doc1.getObjectId().compareTo(doc2.getObjectId());
+      }
+    });
     final PositionSearchResult result = new PositionSearchResult();
     result.setPaging(Paging.of(request.getPagingRequest(), list));
     result.getDocuments().addAll(request.getPagingRequest().select(list));
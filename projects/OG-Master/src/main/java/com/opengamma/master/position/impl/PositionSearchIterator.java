@@ -7,6 +7,7 @@ package com.opengamma.master.position.impl;
 
 import java.util.Iterator;
 
+import com.opengamma.id.ObjectId;
 import com.opengamma.master.impl.AbstractSearchIterator;
 import com.opengamma.master.position.PositionDocument;
 import com.opengamma.master.position.PositionMaster;
@@ -61,4 +62,10 @@ public class PositionSearchIterator extends AbstractSearchIterator<PositionDocum
     return getMaster().search(request);
   }
 
+  @Override
+  protected boolean setAfterObjectId(PositionSearchRequest request, ObjectId afterObjectId) {
+    request.setAfterObjectId(afterObjectId);
+    return true;
+  }
+
 }
@@ -7,15 +7,14 @@ package com.opengamma.master.region.impl;
 
 import static com.google.common.collect.Maps.newHashMap;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
-import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.opengamma.DataNotFoundException;
 import com.opengamma.core.region.Region;
@@ -25,23 +24,31 @@ import com.opengamma.id.ExternalIdBundle;
 import com.opengamma.id.ObjectId;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
-import com.opengamma.master.region.RegionSearchRequest;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.CacheStatistics;
+import com.opengamma.util.cache.ConcurrentCache;
 import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.tuple.Pair;
 
 /**
  * A cache decorating a {@code RegionSource}.
  * <p>
- * The cache is implemented using {@code EHCache}.
+ * The cache is implemented using {@link ConcurrentCache}, sized from the {@code EHCache} configuration.
  */
 public class EHCachingRegionSource implements RegionSource {
   
-  
-  private static final Logger s_logger = LoggerFactory.getLogger(EHCachingRegionSource.class);
   /**
    * The cache name.
    */
   private static final String CACHE_NAME = "RegionCache";
+  /**
+   * The bundle search cache name.
+   */
+  private static final String BUNDLE_CACHE_NAME = "RegionCache-bundle";
+  /**
+   * The highest level region cache name.
+   */
+  private static final String HIGHEST_LEVEL_CACHE_NAME = "RegionCache-highestLevel";
   /**
    * The cache manager.
    */
@@ -52,9 +59,17 @@ public class EHCachingRegionSource implements RegionSource {
    */
   private final RegionSource _underlying;
   /**
-   * The cache.
+   * The cache of regions by unique identifier or by object identifier and version-correction.
+   */
+  private final ConcurrentCache<Object, Region> _cache;
+  /**
+   * The cache of regions by bundle and version-correction, replaced when the time to live is set.
    */
-  private final Cache _cache;
+  private volatile ConcurrentCache<Pair<ExternalIdBundle, VersionCorrection>, Collection<? extends Region>> _bundleCache;
+  /**
+   * The cache of highest level regions by bundle, replaced when the time to live is set.
+   */
+  private volatile ConcurrentCache<ExternalIdBundle, Region> _highestLevelCache;
   
   /**
    * The time to live.
@@ -71,9 +86,22 @@ public class EHCachingRegionSource implements RegionSource {
     ArgumentChecker.notNull(underlying, "underlying");
     ArgumentChecker.notNull(cacheManager, "cacheManager");
     _underlying = underlying;
-    EHCacheUtils.addCache(cacheManager, CACHE_NAME);
-    _cache = EHCacheUtils.getCacheFromManager(cacheManager, CACHE_NAME);
     _cacheManager = cacheManager;
+    _cache = EHCacheUtils.createConcurrentCache(cacheManager, CACHE_NAME);
+    createSearchCaches();
+  }
+
+  private void createSearchCaches() {
+    final ConcurrentCache.Builder<Pair<ExternalIdBundle, VersionCorrection>, Collection<? extends Region>> bundleCache =
+        EHCacheUtils.concurrentCacheBuilder(_cacheManager, BUNDLE_CACHE_NAME);
+    final ConcurrentCache.Builder<ExternalIdBundle, Region> highestLevelCache =
+        EHCacheUtils.concurrentCacheBuilder(_cacheManager, HIGHEST_LEVEL_CACHE_NAME);
+    if (_ttl != null) {
+      bundleCache.expireAfterWrite(_ttl, TimeUnit.SECONDS);
+      highestLevelCache.expireAfterWrite(_ttl, TimeUnit.SECONDS);
+    }
+    _bundleCache = bundleCache.build();
+    _highestLevelCache = highestLevelCache.build();
   }
 
   //-------------------------------------------------------------------------
@@ -92,7 +120,7 @@ public class EHCachingRegionSource implements RegionSource {
    * @return the cache manager, not null
    */
   public CacheManager getCacheManager() {
-    return _cache.getCacheManager();
+    return _cacheManager;
   }
   
   /**
@@ -104,88 +132,66 @@ public class EHCachingRegionSource implements RegionSource {
   }
 
   /**
-   * Sets the ttl.
+   * Sets the time to live in seconds of the results of searches by bundle.
+   * This clears the cached search results.
    * @param ttl  the ttl
    */
   public void setTtl(Integer ttl) {
     _ttl = ttl;
+    createSearchCaches();
+  }
+
+  /**
+   * Gets the statistics of the caches.
+   * 
+   * @return the statistics of each cache, not null
+   */
+  public List<CacheStatistics> getCacheStatistics() {
+    return Arrays.asList(_cache.getStatistics(), _bundleCache.getStatistics(), _highestLevelCache.getStatistics());
   }
 
   @Override
-  public Region get(UniqueId uniqueId) {
+  public Region get(final UniqueId uniqueId) {
     ArgumentChecker.notNull(uniqueId, "uniqueId");
-    Region result = null;
     if (uniqueId.isLatest()) {
-      result = _underlying.get(uniqueId);
-      s_logger.debug("Caching region {}", result);
-      _cache.put(new Element(uniqueId, result));
-    } else {
-      Element element = _cache.get(uniqueId); 
-      if (element != null) {
-        s_logger.debug("Cache hit on {}", uniqueId);
-        if (element.getObjectValue() instanceof Region) {
-          result = (Region) element.getObjectValue();
-        }
-      } else {
-        s_logger.debug("Cache miss on {}", uniqueId);
-        result = _underlying.get(uniqueId);
-        s_logger.debug("Caching region {}", result);
-        _cache.put(new Element(uniqueId, result));
-      }
+      final Region result = _underlying.get(uniqueId);
+      _cache.put(uniqueId, result);
+      return result;
     }
-    return result;
+    return _cache.get(uniqueId, new Callable<Region>() {
+      @Override
+      public Region call() {
+        return _underlying.get(uniqueId);
+      }
+    });
   }
 
   @Override
-  public Region get(ObjectId objectId, VersionCorrection versionCorrection) {
-    RegionSearchRequest request = new RegionSearchRequest();
-    request.setVersionCorrection(versionCorrection);
-    request.addObjectId(objectId);
-    
-    Region result = null;
-    Element element = _cache.get(request);
-    if (element != null) {
-      s_logger.debug("Cache hit on {}", request);
-      result = (Region) element.getObjectValue();
-    } else {
-      s_logger.debug("Cache miss on {}", request);
-      result = _underlying.get(objectId, versionCorrection);
-      s_logger.debug("Caching regions {}", result);
-      _cache.put(new Element(request, result));
-      if (result != null) {
-        _cache.put(new Element(result.getUniqueId(), result));
+  public Region get(final ObjectId objectId, final VersionCorrection versionCorrection) {
+    return _cache.get(Pair.of(objectId, versionCorrection), new Callable<Region>() {
+      @Override
+      public Region call() {
+        final Region result = _underlying.get(objectId, versionCorrection);
+        cacheRegion(result);
+        return result;
       }
-    }
-    return result;
+    });
   }
 
-  @SuppressWarnings("unchecked")
   @Override
-  public Collection<? extends Region> get(ExternalIdBundle bundle, VersionCorrection versionCorrection) {
-    RegionSearchRequest request = new RegionSearchRequest(bundle);
-    request.setVersionCorrection(versionCorrection);
-    
-    Element element = _cache.get(request);
-    Collection<? extends Region> result = null;
-    if (element != null) {
-      s_logger.debug("Cache hit on {}", request);
-      result = (Collection<? extends Region>) element.getObjectValue();
-    } else {
-      s_logger.debug("Cache miss on {}", request);
-      result = _underlying.get(bundle, versionCorrection);
-      s_logger.debug("Caching regions {}", result);
-      element = new Element(request, result);
-      if (_ttl != null) {
-        element.setTimeToLive(_ttl);
-      }
-      _cache.put(element);
-      if (result != null) {
-        for (Region region : result) {
-          _cache.put(new Element(region.getUniqueId(), region));
+  public Collection<? extends Region> get(final ExternalIdBundle bundle, final VersionCorrection versionCorrection) {
+    return _bundleCache.get(Pair.of(bundle, versionCorrection), new Callable<Collection<? extends Region>>() {
+      @Override
+      public Collection<? extends Region> call() {
+        final Collection<? extends Region> result = _underlying.get(bundle, versionCorrection);
+        if (result != null) {
+          for (Region region : result) {
+            cacheRegion(region);
+          }
         }
+        return result;
       }
-    }
-    return result;
+    });
   }
 
   @Override
@@ -194,26 +200,21 @@ public class EHCachingRegionSource implements RegionSource {
   }
 
   @Override
-  public Region getHighestLevelRegion(ExternalIdBundle bundle) {
-    Region result = null;
-    Element element = _cache.get(bundle);
-    if (element != null) {
-      s_logger.debug("Cache hit on {}", bundle);
-      result = (Region) element.getObjectValue();
-    } else {
-      s_logger.debug("Cache miss on {}", bundle);
-      result = _underlying.getHighestLevelRegion(bundle);
-      s_logger.debug("Caching regions {}", result);
-      element = new Element(bundle, result);
-      if (_ttl != null) {
-        element.setTimeToLive(_ttl);
-      }
-      _cache.put(element);
-      if (result != null) {
-        _cache.put(new Element(result.getUniqueId(), result));
+  public Region getHighestLevelRegion(final ExternalIdBundle bundle) {
+    return _highestLevelCache.get(bundle, new Callable<Region>() {
+      @Override
+      public Region call() {
+        final Region result = _underlying.getHighestLevelRegion(bundle);
+        cacheRegion(result);
+        return result;
       }
+    });
+  }
+
+  private void cacheRegion(final Region region) {
+    if (region != null) {
+      _cache.put(region.getUniqueId(), region);
     }
-    return result;
   }
 
   @Override
@@ -231,11 +232,16 @@ public class EHCachingRegionSource implements RegionSource {
   }
 
   /**
-   * Call this at the end of a unit test run to clear the state of EHCache.
+   * Call this at the end of a unit test run to clear the state of the caches.
    * It should not be part of a generic lifecycle method.
    */
   protected void shutdown() {
+    _cache.invalidateAll();
+    _bundleCache.invalidateAll();
+    _highestLevelCache.invalidateAll();
     _cacheManager.removeCache(CACHE_NAME);
+    _cacheManager.removeCache(BUNDLE_CACHE_NAME);
+    _cacheManager.removeCache(HIGHEST_LEVEL_CACHE_NAME);
   }
 
   //-------------------------------------------------------------------------
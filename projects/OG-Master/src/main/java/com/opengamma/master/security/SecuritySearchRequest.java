@@ -94,6 +94,13 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
    */
   @PropertyDefinition
   private boolean _fullDetail = true;
+  /**
+   * The object identifier that results must follow, null to start from the first result.
+   * This allows a large search to be read in pages without the cost of counting and skipping
+   * the earlier results, and requires the sort order to be {@code OBJECT_ID_ASC}.
+   */
+  @PropertyDefinition
+  private ObjectId _afterObjectId;
 
   /**
    * Creates an instance.
@@ -206,6 +213,9 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
     if (getObjectIds() != null && getObjectIds().contains(document.getObjectId()) == false) {
       return false;
     }
+    if (getAfterObjectId() != null && document.getObjectId().compareTo(getAfterObjectId()) <= 0) {
+      return false;
+    }
     if (getExternalIdSearch() != null && getExternalIdSearch().matches(security.getExternalIdBundle()) == false) {
       return false;
     }
@@ -269,6 +279,8 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
         return getSortOrder();
       case -1233600576:  // fullDetail
         return isFullDetail();
+      case 1489020598:  // afterObjectId
+        return getAfterObjectId();
     }
     return super.propertyGet(propertyName, quiet);
   }
@@ -301,6 +313,9 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
       case -1233600576:  // fullDetail
         setFullDetail((Boolean) newValue);
         return;
+      case 1489020598:  // afterObjectId
+        setAfterObjectId((ObjectId) newValue);
+        return;
     }
     super.propertySet(propertyName, newValue, quiet);
   }
@@ -326,6 +341,7 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
           JodaBeanUtils.equal(getSecurityType(), other.getSecurityType()) &&
           JodaBeanUtils.equal(getSortOrder(), other.getSortOrder()) &&
           JodaBeanUtils.equal(isFullDetail(), other.isFullDetail()) &&
+          JodaBeanUtils.equal(getAfterObjectId(), other.getAfterObjectId()) &&
           super.equals(obj);
     }
     return false;
@@ -342,6 +358,7 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
     hash += hash * 31 + JodaBeanUtils.hashCode(getSecurityType());
     hash += hash * 31 + JodaBeanUtils.hashCode(getSortOrder());
     hash += hash * 31 + JodaBeanUtils.hashCode(isFullDetail());
+    hash += hash * 31 + JodaBeanUtils.hashCode(getAfterObjectId());
     return hash ^ super.hashCode();
   }
 
@@ -567,6 +584,35 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
     return metaBean().fullDetail().createProperty(this);
   }
 
+  //-----------------------------------------------------------------------
+  /**
+   * Gets the object identifier that results must follow, null to start from the first result.
+   * This allows a large search to be read in pages without the cost of counting and skipping
+   * the earlier results, and requires the sort order to be {@code OBJECT_ID_ASC}.
+   * @return the value of the property
+   */
+  public ObjectId getAfterObjectId() {
+    return _afterObjectId;
+  }
+
+  /**
+   * Sets the object identifier that results must follow, null to start from the first result.
+   * This allows a large search to be read in pages without the cost of counting and skipping
+   * the earlier results, and requires the sort order to be {@code OBJECT_ID_ASC}.
+   * @param afterObjectId  the new value of the property
+   */
+  public void setAfterObjectId(ObjectId afterObjectId) {
+    this._afterObjectId = afterObjectId;
+  }
+
+  /**
+   * Gets the the {@code afterObjectId} property.
+   * @return the property, not null
+   */
+  public final Property<ObjectId> afterObjectId() {
+    return metaBean().afterObjectId().createProperty(this);
+  }
+
   //-----------------------------------------------------------------------
   /**
    * The meta-bean for {@code SecuritySearchRequest}.
@@ -618,6 +664,11 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
      */
     private final MetaProperty<Boolean> _fullDetail = DirectMetaProperty.ofReadWrite(
         this, "fullDetail", SecuritySearchRequest.class, Boolean.TYPE);
+    /**
+     * The meta-property for the {@code afterObjectId} property.
+     */
+    private final MetaProperty<ObjectId> _afterObjectId = DirectMetaProperty.ofReadWrite(
+        this, "afterObjectId", SecuritySearchRequest.class, ObjectId.class);
     /**
      * The meta-properties.
      */
@@ -630,7 +681,8 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
         "name",
         "securityType",
         "sortOrder",
-        "fullDetail");
+        "fullDetail",
+        "afterObjectId");
 
     /**
      * Restricted constructor.
@@ -657,6 +709,8 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
           return _sortOrder;
         case -1233600576:  // fullDetail
           return _fullDetail;
+        case 1489020598:  // afterObjectId
+          return _afterObjectId;
       }
       return super.metaPropertyGet(propertyName);
     }
@@ -741,6 +795,14 @@ public class SecuritySearchRequest extends AbstractSearchRequest {
       return _fullDetail;
     }
 
+    /**
+     * The meta-property for the {@code afterObjectId} property.
+     * @return the meta-property, not null
+     */
+    public final MetaProperty<ObjectId> afterObjectId() {
+      return _afterObjectId;
+    }
+
   }
 
   ///CLOVER:ON
@@ -7,11 +7,13 @@ package com.opengamma.master.security.impl;
 
 import java.util.Iterator;
 
+import com.opengamma.id.ObjectId;
 import com.opengamma.master.impl.AbstractSearchIterator;
 import com.opengamma.master.security.SecurityDocument;
 import com.opengamma.master.security.SecurityMaster;
 import com.opengamma.master.security.SecuritySearchRequest;
 import com.opengamma.master.security.SecuritySearchResult;
+import com.opengamma.master.security.SecuritySearchSortOrder;
 import com.opengamma.util.ArgumentChecker;
 
 /**
@@ -61,4 +63,13 @@ public class SecuritySearchIterator extends AbstractSearchIterator<SecurityDocum
     return getMaster().search(request);
   }
 
+  @Override
+  protected boolean setAfterObjectId(SecuritySearchRequest request, ObjectId afterObjectId) {
+    if (request.getSortOrder() != SecuritySearchSortOrder.OBJECT_ID_ASC) {
+      return false;
+    }
+    request.setAfterObjectId(afterObjectId);
+    return true;
+  }
+
 }
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.master.position.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ObjectId;
+import com.opengamma.master.position.ManageablePosition;
+import com.opengamma.master.position.PositionDocument;
+import com.opengamma.master.position.PositionSearchRequest;
+import com.opengamma.master.position.PositionSearchResult;
+import com.opengamma.util.paging.PagingRequest;
+
+/**
+ * Test {@link PositionSearchIterator}.
+ */
+@Test
+public class PositionSearchIteratorTest {
+
+  private static final int POSITIONS = 250;
+
+  /**
+   * Master recording the paging and object identifier of each search.
+   */
+  private static class RecordingPositionMaster extends InMemoryPositionMaster {
+    private final List<PagingRequest> _paging = new ArrayList<PagingRequest>();
+    private final List<ObjectId> _afterObjectIds = new ArrayList<ObjectId>();
+
+    @Override
+    public PositionSearchResult search(final PositionSearchRequest request) {
+      _paging.add(request.getPagingRequest());
+      _afterObjectIds.add(request.getAfterObjectId());
+      return super.search(request);
+    }
+  }
+
+  /**
+   * Master that ignores the object identifier to follow, as an older server would.
+   */
+  private static class IgnoringPositionMaster extends RecordingPositionMaster {
+    @Override
+    public PositionSearchResult search(final PositionSearchRequest request) {
+      final ObjectId afterObjectId = request.getAfterObjectId();
+      request.setAfterObjectId(null);
+      try {
+        return super.search(request);
+      } finally {
+        request.setAfterObjectId(afterObjectId);
+      }
+    }
+  }
+
+  private static void populate(final InMemoryPositionMaster master) {
+    for (int i = 0; i < POSITIONS; i++) {
+      master.add(new PositionDocument(new ManageablePosition(BigDecimal.ONE, ExternalId.of("Test", "S" + i))));
+    }
+  }
+
+  private static List<ObjectId> iterate(final InMemoryPositionMaster master) {
+    final List<ObjectId> result = new ArrayList<ObjectId>();
+    for (PositionDocument document : PositionSearchIterator.iterable(master, new PositionSearchRequest())) {
+      result.add(document.getObjectId());
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  public void test_keyset() {
+    final RecordingPositionMaster master = new RecordingPositionMaster();
+    populate(master);
+    final List<ObjectId> result = iterate(master);
+    assertEquals(POSITIONS, result.size());
+    assertEquals(POSITIONS, new HashSet<ObjectId>(result).size());
+    // every batch starts after the last document of the previous one, the last batch isn't full
+    assertEquals(3, master._paging.size());
+    assertNull(master._afterObjectIds.get(0));
+    for (int i = 0; i < master._paging.size(); i++) {
+      assertEquals(0, master._paging.get(i).getFirstItem());
+      if (i > 0) {
+        assertNotNull(master._afterObjectIds.get(i));
+      }
+    }
+    assertEquals(result.get(99), master._afterObjectIds.get(1));
+    assertEquals(result.get(199), master._afterObjectIds.get(2));
+  }
+
+  public void test_fallbackToIndex() {
+    final IgnoringPositionMaster master = new IgnoringPositionMaster();
+    populate(master);
+    final List<ObjectId> result = iterate(master);
+    assertEquals(POSITIONS, result.size());
+    final Set<ObjectId> unique = new HashSet<ObjectId>(result);
+    assertEquals(POSITIONS, unique.size());
+    // the second batch repeats the first so iteration continues by index from the end of the first
+    assertTrue(master._paging.size() > 2);
+    assertEquals(0, master._paging.get(1).getFirstItem());
+    assertEquals(100, master._paging.get(2).getFirstItem());
+    assertNull(master._afterObjectIds.get(2));
+    for (int i = 3; i < master._paging.size(); i++) {
+      assertNull(master._afterObjectIds.get(i));
+      assertEquals(master._paging.get(i - 1).getFirstItem() + master._paging.get(i - 1).getPagingSize(), master._paging.get(i).getFirstItem());
+    }
+  }
+
+}
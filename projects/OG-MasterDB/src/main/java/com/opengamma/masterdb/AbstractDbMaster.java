@@ -8,6 +8,9 @@ package com.opengamma.masterdb;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.time.Instant;
 import javax.time.TimeSource;
@@ -68,6 +71,10 @@ public abstract class AbstractDbMaster {
    * The Hibernate template.
    */
   private HibernateTemplate _hibernateTemplate;
+  /**
+   * The identifiers allocated in blocks for a bulk operation on the current thread, null if none.
+   */
+  private final ThreadLocal<IdBlocks> _idBlocks = new ThreadLocal<IdBlocks>();
 
   /**
    * Creates an instance.
@@ -160,9 +167,78 @@ public abstract class AbstractDbMaster {
    * @return the next database id
    */
   protected long nextId(String sequenceName) {
+    final IdBlocks idBlocks = _idBlocks.get();
+    if (idBlocks != null) {
+      return idBlocks.next(sequenceName);
+    }
     return getJdbcTemplate().queryForLong(getDialect().sqlNextSequenceValueSelect(sequenceName));
   }
 
+  /**
+   * Allocates a number of identifiers from a sequence.
+   * This is a single query if the database supports it.
+   *
+   * @param sequenceName  the sequence name, not null
+   * @param count  the number of identifiers, greater than zero
+   * @return the identifiers, not null
+   */
+  protected long[] nextIds(final String sequenceName, final int count) {
+    final long[] ids = new long[count];
+    final String sql = getDialect().sqlNextSequenceValuesSelect(sequenceName, count);
+    if (sql != null) {
+      final List<Long> values = getJdbcTemplate().getJdbcOperations().queryForList(sql, Long.class);
+      if (values.size() != count) {
+        throw new IllegalStateException("Expected " + count + " sequence values but received " + values.size());
+      }
+      for (int i = 0; i < count; i++) {
+        ids[i] = values.get(i);
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        ids[i] = getJdbcTemplate().queryForLong(getDialect().sqlNextSequenceValueSelect(sequenceName));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Starts allocating identifiers in blocks on the current thread.
+   * <p>
+   * Until {@link #endIdBlocks()} is called, {@link #nextId(String)} on this thread takes
+   * identifiers from blocks allocated in a single query. This is intended for bulk operations.
+   * Identifiers left unused at the end are discarded, leaving gaps in the sequence.
+   * <p>
+   * If the database can't allocate a block in a single query, identifiers are still
+   * queried one at a time, as allocating a block would need a query for each identifier.
+   *
+   * @param blockSize  the number of identifiers to allocate at a time, greater than zero
+   */
+  protected void beginIdBlocks(final int blockSize) {
+    ArgumentChecker.isTrue(blockSize > 0, "blockSize must be greater than zero");
+    if (getDialect().isNextSequenceValuesSelectSupported()) {
+      _idBlocks.set(new IdBlocks(blockSize));
+    }
+  }
+
+  /**
+   * Stops allocating identifiers in blocks on the current thread.
+   */
+  protected void endIdBlocks() {
+    _idBlocks.remove();
+  }
+
+  /**
+   * Executes a batch update, avoiding the call to the database if there are no rows.
+   *
+   * @param sql  the SQL to execute, not null
+   * @param argsList  the arguments for each row, not null
+   */
+  protected void batchUpdate(final String sql, final List<DbMapSqlParameterSource> argsList) {
+    if (argsList.isEmpty() == false) {
+      getJdbcTemplate().batchUpdate(sql, argsList.toArray(new DbMapSqlParameterSource[argsList.size()]));
+    }
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Gets the time-source that determines the current time.
@@ -381,4 +457,30 @@ public abstract class AbstractDbMaster {
     return getClass().getSimpleName() + "[" + getUniqueIdScheme() + "]";
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * The identifiers allocated in blocks for a bulk operation, keyed by sequence.
+   */
+  private final class IdBlocks {
+    private final int _blockSize;
+    private final Map<String, long[]> _ids = new HashMap<String, long[]>();
+    private final Map<String, Integer> _index = new HashMap<String, Integer>();
+
+    private IdBlocks(final int blockSize) {
+      _blockSize = blockSize;
+    }
+
+    private long next(final String sequenceName) {
+      long[] ids = _ids.get(sequenceName);
+      int index = (ids != null ? _index.get(sequenceName) : 0);
+      if (ids == null || index >= ids.length) {
+        ids = nextIds(sequenceName, _blockSize);
+        _ids.put(sequenceName, ids);
+        index = 0;
+      }
+      _index.put(sequenceName, index + 1);
+      return ids[index];
+    }
+  }
+
 }
@@ -9,6 +9,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 import static com.opengamma.util.functional.Functional.functional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +26,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
 
+import com.google.common.collect.Lists;
 import com.opengamma.DataNotFoundException;
 import com.opengamma.core.change.BasicChangeManager;
 import com.opengamma.core.change.ChangeManager;
@@ -33,6 +35,7 @@ import com.opengamma.id.ObjectId;
 import com.opengamma.id.ObjectIdentifiable;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
+import com.opengamma.master.AbstractBulkMaster;
 import com.opengamma.master.AbstractDocument;
 import com.opengamma.master.AbstractDocumentsResult;
 import com.opengamma.master.AbstractHistoryRequest;
@@ -56,15 +59,23 @@ import com.opengamma.util.paging.PagingRequest;
  *
  * @param <D>  the type of the document
  */
-public abstract class AbstractDocumentDbMaster<D extends AbstractDocument> extends AbstractDbMaster implements AbstractMaster<D> {
+public abstract class AbstractDocumentDbMaster<D extends AbstractDocument> extends AbstractDbMaster implements AbstractBulkMaster<D> {
 
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(AbstractDocumentDbMaster.class);
+  /**
+   * The default number of documents written in each transaction by the bulk operations.
+   */
+  public static final int DEFAULT_BULK_CHUNK_SIZE = 100;
 
   /**
    * The change manager.
    */
   private ChangeManager _changeManager = new BasicChangeManager();
+  /**
+   * The number of documents written in each transaction by the bulk operations.
+   */
+  private int _bulkChunkSize = DEFAULT_BULK_CHUNK_SIZE;
 
   /**
    * Creates an instance.
@@ -96,6 +107,27 @@ public abstract class AbstractDocumentDbMaster<D extends AbstractDocument> exten
     _changeManager = changeManager;
   }
 
+  /**
+   * Gets the number of documents written in each transaction by the bulk operations.
+   * The default is 100.
+   *
+   * @return the chunk size, greater than zero
+   */
+  public int getBulkChunkSize() {
+    return _bulkChunkSize;
+  }
+
+  /**
+   * Sets the number of documents written in each transaction by the bulk operations.
+   * The default is 100.
+   *
+   * @param bulkChunkSize  the chunk size, greater than zero
+   */
+  public void setBulkChunkSize(final int bulkChunkSize) {
+    ArgumentChecker.isTrue(bulkChunkSize > 0, "bulkChunkSize must be greater than zero");
+    _bulkChunkSize = bulkChunkSize;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Gets the change manager that handles events.
@@ -293,6 +325,38 @@ public abstract class AbstractDocumentDbMaster<D extends AbstractDocument> exten
     }
   }
 
+  /**
+   * Searches for documents with paging, without counting the total number of matches.
+   * <p>
+   * This is used when paging by object identifier, where counting would cost as much as the search.
+   * The total in the resulting paging is the number of items up to the end of this page, plus one
+   * if the page is full to indicate that further results may follow.
+   *
+   * @param <T>  the type of the document
+   * @param pagingRequest  the paging request, not null
+   * @param sql  the query SQL, not null
+   * @param args  the query arguments, not null
+   * @param extractor  the extractor of results, not null
+   * @param result  the object to populate, not null
+   */
+  protected <T extends AbstractDocument> void searchWithoutCount(
+    final PagingRequest pagingRequest, final String sql, final DbMapSqlParameterSource args,
+    final ResultSetExtractor<List<T>> extractor, final AbstractDocumentsResult<T> result) {
+
+    s_logger.debug("with args {}", args);
+    if (pagingRequest.equals(PagingRequest.NONE)) {
+      result.setPaging(Paging.of(pagingRequest, 0));
+      return;
+    }
+    s_logger.debug("executing sql {}", sql);
+    final NamedParameterJdbcOperations namedJdbc = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations();
+    final List<T> documents = namedJdbc.query(sql, args, extractor);
+    result.getDocuments().addAll(documents);
+    final int size = documents.size();
+    final boolean more = pagingRequest.equals(PagingRequest.ALL) == false && size == pagingRequest.getPagingSize();
+    result.setPaging(Paging.of(pagingRequest, pagingRequest.getFirstItem() + size + (more ? 1 : 0)));
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public D add(final D document) {
@@ -372,6 +436,97 @@ public abstract class AbstractDocumentDbMaster<D extends AbstractDocument> exten
     return document;
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Adds a list of documents.
+   * <p>
+   * This is equivalent to calling {@link #add} for each document, but is much faster for large
+   * numbers of documents. The documents are written in chunks of {@link #getBulkChunkSize()},
+   * each chunk in a single transaction, with database identifiers allocated in blocks.
+   * If a chunk fails, the earlier chunks remain committed.
+   *
+   * @param documents  the documents to add, not null
+   * @return the added documents, in the same order, not null
+   */
+  @Override
+  public List<D> addAll(final List<D> documents) {
+    ArgumentChecker.noNulls(documents, "documents");
+    s_logger.debug("addAll {} documents", documents.size());
+    final List<D> result = new ArrayList<D>(documents.size());
+    beginIdBlocks(getBulkChunkSize());
+    try {
+      for (final List<D> chunk : Lists.partition(documents, getBulkChunkSize())) {
+        final List<D> added = getTransactionTemplateRetrying(getMaxRetries()).execute(new TransactionCallback<List<D>>() {
+          @Override
+          public List<D> doInTransaction(final TransactionStatus status) {
+            final List<D> added = new ArrayList<D>(chunk.size());
+            for (D document : chunk) {
+              added.add(doAddInTransaction(document));
+            }
+            return added;
+          }
+        });
+        for (D document : added) {
+          changeManager().entityChanged(ChangeType.ADDED, document.getObjectId(), document.getVersionFromInstant(), document.getVersionToInstant(), now());
+        }
+        result.addAll(added);
+      }
+    } finally {
+      endIdBlocks();
+    }
+    return result;
+  }
+
+  /**
+   * Updates a list of documents.
+   * <p>
+   * This is equivalent to calling {@link #update} for each document, but is much faster for large
+   * numbers of documents. The documents are written in chunks of {@link #getBulkChunkSize()},
+   * each chunk in a single transaction, with database identifiers allocated in blocks.
+   * If a chunk fails, the earlier chunks remain committed.
+   *
+   * @param documents  the documents to update, each with a versioned unique identifier, not null
+   * @return the updated documents, in the same order, not null
+   */
+  @Override
+  public List<D> updateAll(final List<D> documents) {
+    ArgumentChecker.noNulls(documents, "documents");
+    final List<UniqueId> beforeIds = new ArrayList<UniqueId>(documents.size());
+    for (D document : documents) {
+      ArgumentChecker.notNull(document.getUniqueId(), "document.uniqueId");
+      checkScheme(document.getUniqueId());
+      ArgumentChecker.isTrue(document.getUniqueId().isVersioned(), "UniqueId must be versioned");
+      beforeIds.add(document.getUniqueId());
+    }
+    s_logger.debug("updateAll {} documents", documents.size());
+    final List<D> result = new ArrayList<D>(documents.size());
+    beginIdBlocks(getBulkChunkSize());
+    try {
+      for (int start = 0; start < documents.size(); start += getBulkChunkSize()) {
+        final int end = Math.min(start + getBulkChunkSize(), documents.size());
+        final List<D> chunk = documents.subList(start, end);
+        final List<UniqueId> chunkBeforeIds = beforeIds.subList(start, end);
+        final List<D> updated = getTransactionTemplateRetrying(getMaxRetries()).execute(new TransactionCallback<List<D>>() {
+          @Override
+          public List<D> doInTransaction(final TransactionStatus status) {
+            final List<D> updated = new ArrayList<D>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+              updated.add(doUpdateInTransaction(chunkBeforeIds.get(i), chunk.get(i)));
+            }
+            return updated;
+          }
+        });
+        for (D document : updated) {
+          changeManager().entityChanged(ChangeType.CHANGED, document.getObjectId(), document.getVersionFromInstant(), document.getVersionToInstant(), now());
+        }
+        result.addAll(updated);
+      }
+    } finally {
+      endIdBlocks();
+    }
+    return result;
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public void remove(final ObjectIdentifiable objectIdentifiable) {
@@ -5,9 +5,22 @@
  */
 package com.opengamma.masterdb.batch;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import javax.time.Instant;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.collect.Maps;
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.batch.BatchRunWriter;
 import com.opengamma.batch.RunCreationMode;
 import com.opengamma.batch.SnapshotMode;
@@ -19,18 +32,111 @@ import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 
 /**
- * 
+ * Listener writing the results of a view process to the batch database.
+ * <p>
+ * The results are written on a background thread so that persisting a cycle does not hold up the calculation.
+ * Each fragment is written and committed separately, in the order received. Memory is bounded by
+ * blocking the calling thread when the maximum number of fragments are waiting to be written.
+ * <p>
+ * When the view process completes or terminates the listener waits for the outstanding writes to finish.
+ * Any writes that failed are then reported by throwing an exception from the callback, and are
+ * available from {@link #getWriteFailures()}.
  */
 public class BatchDbViewResultListener implements ViewResultListener {
 
-  private RiskRun _riskRun;
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(BatchDbViewResultListener.class);
+
+  /**
+   * The default maximum number of fragments waiting to be written.
+   */
+  public static final int DEFAULT_MAX_PENDING_WRITES = 16;
+  /**
+   * The default time to wait for outstanding writes when the process finishes, in seconds.
+   */
+  public static final long DEFAULT_SHUTDOWN_TIMEOUT_SECONDS = 300;
+
+  private volatile RiskRun _riskRun;
 
   private BatchRunWriter _batchRunWriter;
 
+  private final ExecutorService _writer;
+
+  private final long _shutdownTimeoutSeconds;
+
+  private final List<RuntimeException> _writeFailures = new CopyOnWriteArrayList<RuntimeException>();
+
   public BatchDbViewResultListener(BatchRunWriter batchRunWriter) {
+    this(batchRunWriter, DEFAULT_MAX_PENDING_WRITES);
+  }
+
+  public BatchDbViewResultListener(BatchRunWriter batchRunWriter, int maxPendingWrites) {
+    this(batchRunWriter, maxPendingWrites, DEFAULT_SHUTDOWN_TIMEOUT_SECONDS);
+  }
+
+  public BatchDbViewResultListener(BatchRunWriter batchRunWriter, int maxPendingWrites, long shutdownTimeoutSeconds) {
+    ArgumentChecker.notNull(batchRunWriter, "batchRunWriter");
+    ArgumentChecker.isTrue(maxPendingWrites > 0, "maxPendingWrites must be greater than zero");
+    ArgumentChecker.notNegative(shutdownTimeoutSeconds, "shutdownTimeoutSeconds");
     _batchRunWriter = batchRunWriter;
+    _shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+    _writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(maxPendingWrites),
+        new NamedThreadPoolFactory("BatchDbWriter", true), new RejectedExecutionHandler() {
+          @Override
+          public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+              s_logger.warn("Batch writer shut down, discarding {}", task);
+              return;
+            }
+            try {
+              executor.getQueue().put(task);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+              s_logger.warn("Interrupted waiting to write {}", task);
+            }
+          }
+        });
+  }
+
+  /**
+   * Queues a write, blocking if the maximum number of writes are already waiting.
+   * 
+   * @param description  the description of the write, not null
+   * @param write  the write, not null
+   */
+  private void write(final String description, final Runnable write) {
+    _writer.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          write.run();
+        } catch (RuntimeException ex) {
+          s_logger.error("Unable to " + description, ex);
+          _writeFailures.add(ex);
+        }
+      }
+
+      @Override
+      public String toString() {
+        return description;
+      }
+    });
+  }
+
+  /**
+   * Gets the risk run being written, logging if no run was started.
+   * 
+   * @return the risk run, null if not started
+   */
+  private RiskRun getRiskRun() {
+    if (_riskRun == null) {
+      s_logger.warn("No risk run started, results not written");
+    }
+    return _riskRun;
   }
 
   @Override
@@ -50,39 +156,110 @@ public class BatchDbViewResultListener implements ViewResultListener {
   }
 
   @Override
-  public void cycleStarted(ViewCycleMetadata cycleMetadata) {
-    _riskRun = _batchRunWriter.startRiskRun(cycleMetadata, Maps.<String, String>newHashMap(), RunCreationMode.AUTO, SnapshotMode.WRITE_THROUGH);
+  public void cycleStarted(final ViewCycleMetadata cycleMetadata) {
+    write("start risk run", new Runnable() {
+      @Override
+      public void run() {
+        _riskRun = null;
+        _riskRun = _batchRunWriter.startRiskRun(cycleMetadata, Maps.<String, String>newHashMap(), RunCreationMode.AUTO, SnapshotMode.WRITE_THROUGH);
+      }
+    });
   }
 
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
-    _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+    endRiskRun();
   }
 
   @Override
-  public void cycleFragmentCompleted(ViewComputationResultModel fullFragment, ViewDeltaResultModel deltaFragment) {
-    _batchRunWriter.addJobResults(_riskRun.getObjectId(), fullFragment);
+  public void cycleFragmentCompleted(final ViewComputationResultModel fullFragment, ViewDeltaResultModel deltaFragment) {
+    write("add job results", new Runnable() {
+      @Override
+      public void run() {
+        final RiskRun riskRun = getRiskRun();
+        if (riskRun != null) {
+          _batchRunWriter.addJobResults(riskRun.getObjectId(), fullFragment);
+        }
+      }
+    });
   }
 
   @Override
   public void cycleExecutionFailed(ViewCycleExecutionOptions executionOptions, Exception exception) {
-    _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+    endRiskRun();
   }
 
   @Override
   public void processCompleted() {
+    finishWriting();
   }
 
   @Override
   public void processTerminated(boolean executionInterrupted) {
     //TODO Shall we add info to the batchrun that it was interrupted?
     if (executionInterrupted) {
-      _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+      endRiskRun();
     }
+    finishWriting();
   }
 
   @Override
   public void clientShutdown(Exception e) {
+    finishWriting();
+  }
+
+  private void endRiskRun() {
+    write("end risk run", new Runnable() {
+      @Override
+      public void run() {
+        final RiskRun riskRun = getRiskRun();
+        if (riskRun != null) {
+          _batchRunWriter.endRiskRun(riskRun.getObjectId());
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits for the outstanding writes to finish, reporting any that failed.
+   * 
+   * @throws OpenGammaRuntimeException if a write failed or the writes did not finish in time
+   */
+  private void finishWriting() {
+    try {
+      if (!awaitWritten(_shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+        throw new OpenGammaRuntimeException("Batch results not written within " + _shutdownTimeoutSeconds + " seconds");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted waiting for batch results to be written", ex);
+    }
+    if (!_writeFailures.isEmpty()) {
+      throw new OpenGammaRuntimeException(_writeFailures.size() + " batch result writes failed", _writeFailures.get(0));
+    }
+  }
+
+  /**
+   * Gets the failures of any writes so far.
+   * 
+   * @return the failures, in the order they occurred, not null
+   */
+  public List<RuntimeException> getWriteFailures() {
+    return Collections.unmodifiableList(_writeFailures);
+  }
+
+  /**
+   * Waits for all queued results to be written.
+   * The listener cannot be used after this call.
+   * 
+   * @param timeout  the maximum time to wait
+   * @param unit  the unit of the timeout, not null
+   * @return true if all results were written, false if the timeout elapsed first
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitWritten(final long timeout, final TimeUnit unit) throws InterruptedException {
+    _writer.shutdown();
+    return _writer.awaitTermination(timeout, unit);
   }
   
 }
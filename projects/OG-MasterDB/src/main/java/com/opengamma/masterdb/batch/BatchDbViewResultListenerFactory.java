@@ -16,9 +16,13 @@ public class BatchDbViewResultListenerFactory implements ViewResultListenerFacto
 
   private BatchRunWriter _batchRunWriter;
 
+  private int _maxPendingWrites = BatchDbViewResultListener.DEFAULT_MAX_PENDING_WRITES;
+
+  private long _shutdownTimeoutSeconds = BatchDbViewResultListener.DEFAULT_SHUTDOWN_TIMEOUT_SECONDS;
+
   @Override
   public ViewResultListener createViewResultListener() {
-    return new BatchDbViewResultListener(_batchRunWriter);
+    return new BatchDbViewResultListener(_batchRunWriter, _maxPendingWrites, _shutdownTimeoutSeconds);
   }
 
   public BatchRunWriter getBatchRunMaster() {
@@ -28,4 +32,20 @@ public class BatchDbViewResultListenerFactory implements ViewResultListenerFacto
   public void setBatchRunMaster(BatchRunWriter batchRunWriter) {
     this._batchRunWriter = batchRunWriter;
   }
+
+  public int getMaxPendingWrites() {
+    return _maxPendingWrites;
+  }
+
+  public void setMaxPendingWrites(int maxPendingWrites) {
+    this._maxPendingWrites = maxPendingWrites;
+  }
+
+  public long getShutdownTimeoutSeconds() {
+    return _shutdownTimeoutSeconds;
+  }
+
+  public void setShutdownTimeoutSeconds(long shutdownTimeoutSeconds) {
+    this._shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+  }
 }
@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.db.DbConnector;
+import com.opengamma.util.db.DbMapSqlParameterSource;
+import com.opengamma.util.db.PostgresDbDialect;
+
+/**
+ * Writes rows to a single table in bulk, flushing every time a fixed number of rows has been added.
+ * <p>
+ * On PostgreSQL the rows are streamed using {@code COPY ... FROM STDIN}, avoiding the per-row
+ * statement overhead. Other databases, or a PostgreSQL connection that does not expose the
+ * copy API, use JDBC batched inserts.
+ * <p>
+ * The rows are written using the connection of the current transaction.
+ * Only the rows since the last flush are held in memory.
+ * <p>
+ * This class is not thread-safe.
+ */
+class BulkRowWriter {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(BulkRowWriter.class);
+
+  /**
+   * The database connector.
+   */
+  private final DbConnector _dbConnector;
+  /**
+   * The table name.
+   */
+  private final String _table;
+  /**
+   * The column names, matching the parameter names of the rows.
+   */
+  private final String[] _columns;
+  /**
+   * The insert SQL used when not copying.
+   */
+  private final String _insertSql;
+  /**
+   * The number of rows to hold before flushing.
+   */
+  private final int _flushSize;
+  /**
+   * The writer that must be flushed before this one, null if none.
+   */
+  private final BulkRowWriter _dependency;
+  /**
+   * The pending rows in copy format, null if using batched inserts.
+   */
+  private StringBuilder _copyBuffer;
+  /**
+   * The pending rows when using batched inserts.
+   */
+  private final List<DbMapSqlParameterSource> _insertBuffer = new ArrayList<DbMapSqlParameterSource>();
+  /**
+   * The number of pending rows.
+   */
+  private int _pending;
+  /**
+   * The number of rows written.
+   */
+  private int _written;
+
+  /**
+   * Creates an instance.
+   *
+   * @param dbConnector  the database connector, not null
+   * @param table  the table name, not null
+   * @param columns  the column names, matching the parameter names of the rows, not null
+   * @param insertSql  the SQL to insert a single row, not null
+   * @param flushSize  the number of rows to hold before flushing, greater than zero
+   * @param dependency  the writer of rows that the rows of this writer refer to, flushed first, null if none
+   */
+  BulkRowWriter(final DbConnector dbConnector, final String table, final String[] columns, final String insertSql, final int flushSize, final BulkRowWriter dependency) {
+    ArgumentChecker.notNull(dbConnector, "dbConnector");
+    ArgumentChecker.notNull(table, "table");
+    ArgumentChecker.notNull(columns, "columns");
+    ArgumentChecker.notNull(insertSql, "insertSql");
+    ArgumentChecker.isTrue(flushSize > 0, "flushSize must be greater than zero");
+    _dbConnector = dbConnector;
+    _table = table;
+    _columns = columns.clone();
+    _insertSql = insertSql;
+    _flushSize = flushSize;
+    _dependency = dependency;
+    if (dbConnector.getDialect() instanceof PostgresDbDialect) {
+      final DataSource dataSource = _dbConnector.getDataSource();
+      final Connection connection = DataSourceUtils.getConnection(dataSource);
+      try {
+        if (getCopyManager(connection) != null) {
+          _copyBuffer = new StringBuilder(1024);
+        }
+      } finally {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Adds a row, flushing if the number of pending rows has reached the flush size.
+   *
+   * @param row  the row, keyed by column name, not null
+   */
+  void add(final DbMapSqlParameterSource row) {
+    if (_copyBuffer != null) {
+      for (int i = 0; i < _columns.length; i++) {
+        if (i > 0) {
+          _copyBuffer.append('\t');
+        }
+        appendCopyValue(_copyBuffer, row.getValue(_columns[i]));
+      }
+      _copyBuffer.append('\n');
+    } else {
+      _insertBuffer.add(row);
+    }
+    if (++_pending >= _flushSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes all pending rows to the database.
+   */
+  void flush() {
+    if (_dependency != null) {
+      _dependency.flush();
+    }
+    if (_pending == 0) {
+      return;
+    }
+    if (_copyBuffer != null) {
+      copy(_copyBuffer.toString());
+      _copyBuffer.setLength(0);
+    } else {
+      _dbConnector.getJdbcTemplate().batchUpdate(_insertSql, _insertBuffer.toArray(new DbMapSqlParameterSource[_insertBuffer.size()]));
+      _insertBuffer.clear();
+    }
+    _written += _pending;
+    _pending = 0;
+  }
+
+  /**
+   * Gets the number of rows written to the database.
+   *
+   * @return the number of rows written, excluding pending rows
+   */
+  int getRowsWritten() {
+    return _written;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Copies the rows using the PostgreSQL copy API.
+   *
+   * @param rows  the rows in copy text format, not null
+   */
+  private void copy(final String rows) {
+    final StringBuilder sql = new StringBuilder("COPY ").append(_table).append(" (");
+    for (int i = 0; i < _columns.length; i++) {
+      sql.append(i > 0 ? ", " : "").append(_columns[i]);
+    }
+    sql.append(") FROM STDIN");
+    final DataSource dataSource = _dbConnector.getDataSource();
+    final Connection connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      final Object copyManager = getCopyManager(connection);
+      final Method copyIn = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+      copyIn.invoke(copyManager, sql.toString(), new StringReader(rows));
+    } catch (InvocationTargetException ex) {
+      throw new OpenGammaRuntimeException("Unable to copy rows into " + _table, ex.getCause());
+    } catch (Exception ex) {
+      throw new OpenGammaRuntimeException("Unable to copy rows into " + _table, ex);
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+  }
+
+  /**
+   * Gets the PostgreSQL copy API of a connection.
+   * Reflection is used as the PostgreSQL driver is an optional dependency.
+   *
+   * @param connection  the connection, not null
+   * @return the copy manager, null if not available
+   */
+  private static Object getCopyManager(final Connection connection) {
+    try {
+      final Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection");
+      if (connection.isWrapperFor(pgConnectionClass) == false) {
+        return null;
+      }
+      return pgConnectionClass.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnectionClass));
+    } catch (Exception ex) {
+      s_logger.debug("PostgreSQL copy API not available, using batched inserts", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Appends a value in the PostgreSQL copy text format.
+   *
+   * @param buf  the buffer to append to, not null
+   * @param value  the value, may be null
+   */
+  private static void appendCopyValue(final StringBuilder buf, final Object value) {
+    if (value == null) {
+      buf.append("\\N");
+      return;
+    }
+    final String str = value.toString();
+    for (int i = 0; i < str.length(); i++) {
+      final char ch = str.charAt(i);
+      switch (ch) {
+        case '\\':
+          buf.append("\\\\");
+          break;
+        case '\t':
+          buf.append("\\t");
+          break;
+        case '\n':
+          buf.append("\\n");
+          break;
+        case '\r':
+          buf.append("\\r");
+          break;
+        default:
+          buf.append(ch);
+      }
+    }
+  }
+
+}
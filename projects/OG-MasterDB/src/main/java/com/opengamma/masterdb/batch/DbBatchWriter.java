@@ -110,6 +110,29 @@ public class DbBatchWriter extends AbstractDbMaster {
    * The batch risk sequence name.
    */
   public static final String RSK_SEQUENCE_NAME = "rsk_batch_seq";
+  /**
+   * The default number of identifiers to allocate from the sequence at a time.
+   */
+  public static final int DEFAULT_ID_BLOCK_SIZE = 1000;
+  /**
+   * The default number of risk rows to hold in memory before writing them.
+   */
+  public static final int DEFAULT_BULK_FLUSH_SIZE = 10000;
+
+  /**
+   * The columns of a risk value row.
+   */
+  private static final String[] RISK_VALUE_COLUMNS = {"id", "calculation_configuration_id", "name", "value_specification_id",
+    "function_unique_id", "computation_target_id", "run_id", "value", "eval_instant", "compute_node_id" };
+  /**
+   * The columns of a risk failure row.
+   */
+  private static final String[] RISK_FAILURE_COLUMNS = {"id", "calculation_configuration_id", "name", "value_specification_id",
+    "function_unique_id", "computation_target_id", "run_id", "eval_instant", "compute_node_id" };
+  /**
+   * The columns of a risk failure reason row.
+   */
+  private static final String[] RISK_FAILURE_REASON_COLUMNS = {"id", "rsk_failure_id", "compute_failure_id" };
 
   public final Map<String, Long> _calculationConfigurations = newConcurrentMap();
   public final Map<ValueRequirement, Long> _riskValueRequirements = newConcurrentMap();
@@ -128,6 +151,26 @@ public class DbBatchWriter extends AbstractDbMaster {
    * The Result converter cache.
    */
   private ResultConverterCache _resultConverterCache;
+  /**
+   * The number of identifiers to allocate from the sequence at a time.
+   */
+  private int _idBlockSize = DEFAULT_ID_BLOCK_SIZE;
+  /**
+   * The number of risk rows to hold in memory before writing them.
+   */
+  private int _bulkFlushSize = DEFAULT_BULK_FLUSH_SIZE;
+  /**
+   * The lock guarding the identifier block.
+   */
+  private final Object _idBlockLock = new Object();
+  /**
+   * The allocated identifiers not yet used, guarded by the identifier block lock.
+   */
+  private long[] _idBlock = new long[0];
+  /**
+   * The index of the next unused identifier in the block, guarded by the identifier block lock.
+   */
+  private int _idBlockIndex;
 
   /**
    * Creates an instance.
@@ -140,6 +183,67 @@ public class DbBatchWriter extends AbstractDbMaster {
     setElSqlBundle(ElSqlBundle.of(dbConnector.getDialect().getElSqlConfig(), DbBatchWriter.class));
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of identifiers to allocate from the sequence at a time.
+   *
+   * @return the block size, greater than zero
+   */
+  public int getIdBlockSize() {
+    return _idBlockSize;
+  }
+
+  /**
+   * Sets the number of identifiers to allocate from the sequence at a time.
+   * Unused identifiers in a block are discarded when the writer is discarded.
+   *
+   * @param idBlockSize  the block size, greater than zero
+   */
+  public void setIdBlockSize(final int idBlockSize) {
+    ArgumentChecker.isTrue(idBlockSize > 0, "idBlockSize must be greater than zero");
+    _idBlockSize = idBlockSize;
+  }
+
+  /**
+   * Gets the number of risk rows to hold in memory before writing them.
+   *
+   * @return the flush size, greater than zero
+   */
+  public int getBulkFlushSize() {
+    return _bulkFlushSize;
+  }
+
+  /**
+   * Sets the number of risk rows to hold in memory before writing them.
+   *
+   * @param bulkFlushSize  the flush size, greater than zero
+   */
+  public void setBulkFlushSize(final int bulkFlushSize) {
+    ArgumentChecker.isTrue(bulkFlushSize > 0, "bulkFlushSize must be greater than zero");
+    _bulkFlushSize = bulkFlushSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the next risk identifier, allocating a block of identifiers from the sequence when needed.
+   * <p>
+   * Blocks are only allocated if the database can select many sequence values in one query.
+   *
+   * @return the identifier
+   */
+  protected long nextRiskId() {
+    if (!getDialect().isNextSequenceValuesSelectSupported()) {
+      return nextId(RSK_SEQUENCE_NAME);
+    }
+    synchronized (_idBlockLock) {
+      if (_idBlockIndex >= _idBlock.length) {
+        _idBlock = nextIds(RSK_SEQUENCE_NAME, getIdBlockSize());
+        _idBlockIndex = 0;
+      }
+      return _idBlock[_idBlockIndex++];
+    }
+  }
+
   public RiskRun getRiskRunById(final Long id) {
     return getHibernateTemplate().execute(new HibernateCallback<RiskRun>() {
       @Override
@@ -811,7 +915,7 @@ public class DbBatchWriter extends AbstractDbMaster {
       for (MarketDataValue value : values) {
         ComputationTargetSpecification targetSpecification = value.getComputationTargetSpecification();
 
-        final long id = nextId(RSK_SEQUENCE_NAME);
+        final long id = nextRiskId();
         ids.add(id);
         final DbMapSqlParameterSource insertArgs = new DbMapSqlParameterSource()
           .addValue("id", id)
@@ -851,6 +955,17 @@ public class DbBatchWriter extends AbstractDbMaster {
     // STAGE 1. Populate error information in the cache.
     Map<ValueSpecification, BatchResultWriterFailure> errorCache = populateErrorCache(computeFailureCache, resultModel.getAllResults());
 
+    // rows are streamed to the database as they are produced, failure reasons refer to failures
+    final BulkRowWriter successes = new BulkRowWriter(getDbConnector(), "rsk_value", RISK_VALUE_COLUMNS,
+        getElSqlBundle().getSql("InsertRiskSuccess"), getBulkFlushSize(), null);
+    final BulkRowWriter failures = new BulkRowWriter(getDbConnector(), "rsk_failure", RISK_FAILURE_COLUMNS,
+        getElSqlBundle().getSql("InsertRiskFailure"), getBulkFlushSize(), null);
+    final BulkRowWriter failureReasons = new BulkRowWriter(getDbConnector(), "rsk_failure_reason", RISK_FAILURE_REASON_COLUMNS,
+        getElSqlBundle().getSql("InsertRiskFailureReason"), getBulkFlushSize(), failures);
+    // the function and node identifiers repeat across values, so only look each up once
+    final Map<String, Long> functionUniqueIds = newHashMap();
+    final Map<String, Long> computeNodeIds = newHashMap();
+
     for (String calcConfigName : resultModel.getCalculationConfigurationNames()) {
 
 
@@ -912,9 +1027,7 @@ public class DbBatchWriter extends AbstractDbMaster {
       // STAGE 3. Based on the results of stage 2, work out
       // SQL statements to write risk into rsk_value and rsk_failure (& rsk_failure_reason)
 
-      List<DbMapSqlParameterSource> successes = newArrayList();
-      List<DbMapSqlParameterSource> failures = newArrayList();
-      List<DbMapSqlParameterSource> failureReasons = newArrayList();
+      int rowCount = 0;
 
       Instant evalInstant = Instant.now();
 
@@ -946,8 +1059,8 @@ public class DbBatchWriter extends AbstractDbMaster {
               ValueSpecification specification = computedValue.getSpecification();
 
               Long valueSpecificationId = _riskValueSpecifications.get(specification);
-              Long functionUniqueId = getFunctionUniqueIdInTransaction(specification.getFunctionUniqueId()).getId();
-              Long computeNodeId = getOrCreateComputeNode(computedValue.getComputeNodeId()).getId();
+              Long functionUniqueId = getFunctionUniqueId(functionUniqueIds, specification.getFunctionUniqueId());
+              Long computeNodeId = getComputeNodeId(computeNodeIds, computedValue.getComputeNodeId());
 
               ArgumentChecker.notNull(calcConfId, "calcConfId");
               ArgumentChecker.notNull(valueSpecificationId, "valueSpecificationId");
@@ -957,7 +1070,7 @@ public class DbBatchWriter extends AbstractDbMaster {
               ArgumentChecker.notNull(computeNodeId, "computeNodeId");
 
               final DbMapSqlParameterSource insertArgs = new DbMapSqlParameterSource();
-              final long successId = nextId(RSK_SEQUENCE_NAME);
+              final long successId = nextRiskId();
               insertArgs.addValue("id", successId);
               insertArgs.addValue("calculation_configuration_id", calcConfId);
               insertArgs.addValue("name", riskValueName);
@@ -969,6 +1082,7 @@ public class DbBatchWriter extends AbstractDbMaster {
               insertArgs.addTimestamp("eval_instant", evalInstant);
               insertArgs.addValue("compute_node_id", computeNodeId);
               successes.add(insertArgs);
+              rowCount++;
 
 
               // writhe through market data
@@ -996,8 +1110,8 @@ public class DbBatchWriter extends AbstractDbMaster {
             ValueSpecification specification = computedValue.getSpecification();
 
             Long valueSpecificationId = _riskValueSpecifications.get(specification);
-            Long functionUniqueId = getFunctionUniqueIdInTransaction(specification.getFunctionUniqueId()).getId();
-            Long computeNodeId = getOrCreateComputeNode(computedValue.getComputeNodeId()).getId();
+            Long functionUniqueId = getFunctionUniqueId(functionUniqueIds, specification.getFunctionUniqueId());
+            Long computeNodeId = getComputeNodeId(computeNodeIds, computedValue.getComputeNodeId());
 
             ArgumentChecker.notNull(calcConfId, "calcConfId");
             ArgumentChecker.notNull(valueSpecificationId, "valueSpecificationId");
@@ -1007,7 +1121,7 @@ public class DbBatchWriter extends AbstractDbMaster {
             ArgumentChecker.notNull(computeNodeId, "computeNodeId");
 
             final DbMapSqlParameterSource insertArgs = new DbMapSqlParameterSource();
-            final long failureId = nextId(RSK_SEQUENCE_NAME);
+            final long failureId = nextRiskId();
             insertArgs.addValue("id", failureId);
             insertArgs.addValue("calculation_configuration_id", calcConfId);
             insertArgs.addValue("name", specification.getValueName());
@@ -1018,6 +1132,7 @@ public class DbBatchWriter extends AbstractDbMaster {
             insertArgs.addTimestamp("eval_instant", evalInstant);
             insertArgs.addValue("compute_node_id", computeNodeId);
             failures.add(insertArgs);
+            rowCount++;
 
             switch (computedValue.getInvocationResult()) {
 
@@ -1029,11 +1144,12 @@ public class DbBatchWriter extends AbstractDbMaster {
                   for (Number computeFailureId : cachedFailure.getComputeFailureIds()) {
                     ArgumentChecker.notNull(computeFailureId, "computeFailureId");
                     final DbMapSqlParameterSource failureReasonsInsertArgs = new DbMapSqlParameterSource();
-                    final long failureReasonId = nextId(RSK_SEQUENCE_NAME);
+                    final long failureReasonId = nextRiskId();
                     failureReasonsInsertArgs.addValue("id", failureReasonId);
                     failureReasonsInsertArgs.addValue("rsk_failure_id", failureId);
                     failureReasonsInsertArgs.addValue("compute_failure_id", computeFailureId);
                     failureReasons.add(failureReasonsInsertArgs);
+                    rowCount++;
                   }
                 }
 
@@ -1058,25 +1174,55 @@ public class DbBatchWriter extends AbstractDbMaster {
       }
 
 
-      // STAGE 4. Actually execute the statements worked out in stage 3.
+      // STAGE 4. Write the status of the targets, the risk rows having been written as they were produced.
 
-      if (successes.isEmpty()
-        && failures.isEmpty()
-        && failureReasons.isEmpty()
+      if (rowCount == 0
         && successfulTargets.isEmpty()
         && failedTargets.isEmpty()) {
-        s_logger.debug("Nothing to write to DB for {}", resultModel);
-        return;
+        s_logger.debug("Nothing to write to DB for {} in {}", calcConfigName, resultModel);
+        continue;
       }
 
-      getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertRiskSuccess"), successes.toArray(new DbMapSqlParameterSource[successes.size()]));
-      getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertRiskFailure"), failures.toArray(new DbMapSqlParameterSource[failures.size()]));
-      getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertRiskFailureReason"), failureReasons.toArray(new DbMapSqlParameterSource[failureReasons.size()]));
-
       upsertStatusEntries(statusCache, calcConfigName, StatusEntry.Status.SUCCESS, successfulTargets);
       upsertStatusEntries(statusCache, calcConfigName, StatusEntry.Status.FAILURE, failedTargets);
 
     }
+    successes.flush();
+    failureReasons.flush();
+    s_logger.debug("Wrote {} values, {} failures and {} failure reasons",
+        newArray(successes.getRowsWritten(), failures.getRowsWritten(), failureReasons.getRowsWritten()));
+  }
+
+  /**
+   * Gets the identifier of a function, using and populating a cache.
+   *
+   * @param cache  the cache of identifiers by function unique identifier, not null
+   * @param uniqueId  the function unique identifier, not null
+   * @return the database identifier, not null
+   */
+  protected Long getFunctionUniqueId(final Map<String, Long> cache, final String uniqueId) {
+    Long id = cache.get(uniqueId);
+    if (id == null) {
+      id = getFunctionUniqueIdInTransaction(uniqueId).getId();
+      cache.put(uniqueId, id);
+    }
+    return id;
+  }
+
+  /**
+   * Gets the identifier of a compute node, using and populating a cache.
+   *
+   * @param cache  the cache of identifiers by node identifier, not null
+   * @param nodeId  the node identifier, not null
+   * @return the database identifier, not null
+   */
+  protected Long getComputeNodeId(final Map<String, Long> cache, final String nodeId) {
+    Long id = cache.get(nodeId);
+    if (id == null) {
+      id = getOrCreateComputeNode(nodeId).getId();
+      cache.put(nodeId, id);
+    }
+    return id;
   }
 
   /**
@@ -1117,7 +1263,7 @@ public class DbBatchWriter extends AbstractDbMaster {
         params.addValue("status", statusEntry.getStatus().ordinal());
         updates.add(params);
       } else {
-        final long statusId = nextId(RSK_SEQUENCE_NAME);
+        final long statusId = nextRiskId();
 
         final DbMapSqlParameterSource insertArgs = new DbMapSqlParameterSource();
         insertArgs.addValue("ID", statusId);
@@ -5,20 +5,28 @@
  */
 package com.opengamma.masterdb.historicaltimeseries;
 
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.time.Duration;
 import javax.time.Instant;
 import javax.time.calendar.LocalDate;
 
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -31,6 +39,7 @@ import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.change.ChangeType;
 import com.opengamma.elsql.ElSqlBundle;
+import com.opengamma.id.ObjectId;
 import com.opengamma.id.ObjectIdentifiable;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
@@ -41,6 +50,8 @@ import com.opengamma.masterdb.AbstractDbMaster;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.db.DbDateUtils;
 import com.opengamma.util.db.DbMapSqlParameterSource;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
 import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
 import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
 import com.opengamma.util.tuple.Pair;
@@ -67,6 +78,14 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
    * The prefix used for data point unique identifiers.
    */
   protected static final String DATA_POINT_PREFIX = "DP";
+  /**
+   * The maximum number of time-series to load in a single bulk query.
+   */
+  protected static final int MAX_BULK_SIZE = 1000;
+  /**
+   * An empty time-series.
+   */
+  private static final LocalDateDoubleTimeSeries EMPTY_SERIES = new ArrayLocalDateDoubleTimeSeries();
 
   /**
    * The master.
@@ -165,7 +184,117 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
     }
     return result;
   }
-    
+
+  /**
+   * Gets the data points of many time-series using a small number of set-based queries.
+   * <p>
+   * Series that cannot be found are omitted from the result.
+   * 
+   * @param objectIds  the time-series object identifiers, not null
+   * @param versionCorrection  the version-correction locator to search at, not null
+   * @param filter  the time-series subset filter, not null
+   * @return the time-series keyed by the requested object identifier, not null
+   */
+  public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    ArgumentChecker.notNull(objectIds, "objectIds");
+    ArgumentChecker.notNull(versionCorrection, "versionCorrection");
+    ArgumentChecker.notNull(filter, "filter");
+    final Map<ObjectId, ManageableHistoricalTimeSeries> result = new HashMap<ObjectId, ManageableHistoricalTimeSeries>(objectIds.size() * 2);
+    if (filter.getMaxPoints() != null) {
+      // the point limit is applied per series by the paging clause, so query each series in turn
+      for (ObjectIdentifiable objectId : objectIds) {
+        try {
+          result.put(objectId.getObjectId(), getTimeSeries(objectId, versionCorrection, filter));
+        } catch (DataNotFoundException ex) {
+          s_logger.debug("Time-series not found: {}", objectId);
+        }
+      }
+      return result;
+    }
+    final VersionCorrection vc = versionCorrection.withLatestFixed(now());
+    final Map<ObjectId, Long> requested = new HashMap<ObjectId, Long>(objectIds.size() * 2);
+    final Set<Long> oids = new LinkedHashSet<Long>();
+    for (ObjectIdentifiable objectId : objectIds) {
+      final long oid = extractOid(objectId);
+      requested.put(objectId.getObjectId(), oid);
+      oids.add(oid);
+    }
+    final List<Long> oidList = new ArrayList<Long>(oids);
+    final Map<Long, ManageableHistoricalTimeSeries> found = new HashMap<Long, ManageableHistoricalTimeSeries>(oidList.size() * 2);
+    for (int i = 0; i < oidList.size(); i += MAX_BULK_SIZE) {
+      getTimeSeries(oidList.subList(i, Math.min(i + MAX_BULK_SIZE, oidList.size())), vc, filter, found);
+    }
+    for (Map.Entry<ObjectId, Long> entry : requested.entrySet()) {
+      final ManageableHistoricalTimeSeries series = found.get(entry.getValue());
+      if (series != null) {
+        result.put(entry.getKey(), series);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the data points of a batch of time-series, adding them to the result map.
+   * 
+   * @param oids  the object identifiers, not empty, not null
+   * @param vc  the version-correction with fixed instants, not null
+   * @param filter  the time-series subset filter without a point limit, not null
+   * @param result  the map to add the time-series to, not null
+   */
+  protected void getTimeSeries(final List<Long> oids, final VersionCorrection vc, final HistoricalTimeSeriesGetFilter filter, final Map<Long, ManageableHistoricalTimeSeries> result) {
+    final DbMapSqlParameterSource args = new DbMapSqlParameterSource()
+      .addValue("sql_doc_oids", StringUtils.join(oids, ", "))
+      .addTimestamp("version_as_of_instant", vc.getVersionAsOf())
+      .addTimestamp("corrected_to_instant", vc.getCorrectedTo())
+      .addValue("start_date", DbDateUtils.toSqlDateNullFarPast(filter.getEarliestDate()))
+      .addValue("end_date", DbDateUtils.toSqlDateNullFarFuture(filter.getLatestDate()));
+    final NamedParameterJdbcOperations namedJdbc = getDbConnector().getJdbcTemplate().getNamedParameterJdbcOperations();
+
+    // Version metadata of the series that have data points
+    final Map<Long, ManageableHistoricalTimeSeries> withPoints = new HashMap<Long, ManageableHistoricalTimeSeries>(oids.size() * 2);
+    final String sqlVersion = getElSqlBundle().getSql("SelectDataPointsVersions", args);
+    namedJdbc.query(sqlVersion, args, new ManageableHTSBulkExtractor(withPoints));
+
+    // The remaining series either have no data points or never existed
+    if (withPoints.size() < oids.size()) {
+      final List<Long> missing = new ArrayList<Long>(oids.size() - withPoints.size());
+      for (Long oid : oids) {
+        if (withPoints.containsKey(oid) == false) {
+          missing.add(oid);
+        }
+      }
+      final DbMapSqlParameterSource existsArgs = new DbMapSqlParameterSource()
+        .addValue("sql_doc_oids", StringUtils.join(missing, ", "))
+        .addTimestamp("version_as_of_instant", vc.getVersionAsOf())
+        .addTimestamp("corrected_to_instant", vc.getCorrectedTo());
+      final Map<Long, ManageableHistoricalTimeSeries> existing = new HashMap<Long, ManageableHistoricalTimeSeries>(missing.size() * 2);
+      final String sqlExists = getElSqlBundle().getSql("SelectExistentials", existsArgs);
+      namedJdbc.query(sqlExists, existsArgs, new ManageableHTSBulkExtractor(existing));
+      for (ManageableHistoricalTimeSeries hts : existing.values()) {
+        hts.setTimeSeries(EMPTY_SERIES);
+      }
+      result.putAll(existing);
+    }
+    if (withPoints.isEmpty()) {
+      return;
+    }
+
+    // Stream the data points of all the series in one query
+    if (filter.getLatestDate() == null || filter.getEarliestDate() == null || !filter.getLatestDate().isBefore(filter.getEarliestDate())) {
+      if (withPoints.size() < oids.size()) {
+        args.addValue("sql_doc_oids", StringUtils.join(withPoints.keySet(), ", "));
+      }
+      final String sqlPoints = getElSqlBundle().getSql("SelectDataPointsBulk", args);
+      namedJdbc.query(sqlPoints, args, new DataPointsBulkExtractor(withPoints));
+    }
+    for (ManageableHistoricalTimeSeries hts : withPoints.values()) {
+      if (hts.getTimeSeries() == null) {
+        hts.setTimeSeries(EMPTY_SERIES);
+      }
+    }
+    result.putAll(withPoints);
+  }
+
   //-------------------------------------------------------------------------
   public UniqueId updateTimeSeriesDataPoints(final ObjectIdentifiable objectId, final LocalDateDoubleTimeSeries series) {
     ArgumentChecker.notNull(objectId, "objectId");
@@ -421,27 +550,89 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
   protected final class DataPointsExtractor implements ResultSetExtractor<LocalDateDoubleTimeSeries> {
     @Override
     public LocalDateDoubleTimeSeries extractData(final ResultSet rs) throws SQLException, DataAccessException {
-      final List<LocalDate> dates = new ArrayList<LocalDate>(256);
-      final List<Double> values = new ArrayList<Double>(256);
-      LocalDate last = null;
+      final IntArrayList dates = new IntArrayList(256);
+      final DoubleArrayList values = new DoubleArrayList(256);
+      int last = Integer.MIN_VALUE;
+      while (rs.next()) {
+        last = addDataPoint(rs, last, dates, values);
+      }
+      return createSeries(dates, values);
+    }
+  }
+
+  /**
+   * Mapper from SQL rows ordered by document to the data points of many time-series.
+   * <p>
+   * Each completed series is attached to the matching entry in the map supplied.
+   */
+  protected final class DataPointsBulkExtractor implements ResultSetExtractor<Void> {
+    private final Map<Long, ManageableHistoricalTimeSeries> _series;
+    public DataPointsBulkExtractor(final Map<Long, ManageableHistoricalTimeSeries> series) {
+      _series = series;
+    }
+    @Override
+    public Void extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      final IntArrayList dates = new IntArrayList(256);
+      final DoubleArrayList values = new DoubleArrayList(256);
+      long currentOid = -1;
+      int last = Integer.MIN_VALUE;
       while (rs.next()) {
-        LocalDate date = DbDateUtils.fromSqlDateAllowNull(rs.getDate("POINT_DATE"));
-        if (date.equals(last) == false) {
-          last = date;
-          Double value = (Double) rs.getObject("POINT_VALUE");
-          if (value != null) {
-            dates.add(date);
-            values.add(value);
-          }
-        } else {
-          // The data points query should return no more than one value per date
-          throw new OpenGammaRuntimeException("Unexpected duplicate data point entry");
+        final long oid = rs.getLong("DOC_OID");
+        if (oid != currentOid) {
+          complete(currentOid, dates, values);
+          currentOid = oid;
+          last = Integer.MIN_VALUE;
         }
+        last = addDataPoint(rs, last, dates, values);
       }
-      return new ArrayLocalDateDoubleTimeSeries(dates, values);
+      complete(currentOid, dates, values);
+      return null;
+    }
+    private void complete(final long oid, final IntArrayList dates, final DoubleArrayList values) {
+      final ManageableHistoricalTimeSeries hts = _series.get(oid);
+      if (hts != null) {
+        hts.setTimeSeries(createSeries(dates, values));
+      }
+      dates.clear();
+      values.clear();
     }
   }
 
+  /**
+   * Adds the data point of the current row to the builders.
+   * 
+   * @param rs  the result set positioned at the row, not null
+   * @param last  the date of the previous row in epoch days
+   * @param dates  the dates builder, not null
+   * @param values  the values builder, not null
+   * @return the date of this row in epoch days
+   * @throws SQLException if the row cannot be read
+   */
+  private static int addDataPoint(final ResultSet rs, final int last, final IntArrayList dates, final DoubleArrayList values) throws SQLException {
+    final int date = (int) DbDateUtils.fromSqlDateAllowNull(rs.getDate("POINT_DATE")).toEpochDays();
+    if (date == last) {
+      // The data points query should return no more than one value per date
+      throw new OpenGammaRuntimeException("Unexpected duplicate data point entry");
+    }
+    final double value = rs.getDouble("POINT_VALUE");
+    if (rs.wasNull() == false) {
+      dates.add(date);
+      values.add(value);
+    }
+    return date;
+  }
+
+  /**
+   * Creates a time-series from the builders.
+   * 
+   * @param dates  the dates builder, not null
+   * @param values  the values builder, not null
+   * @return the time-series, not null
+   */
+  private static LocalDateDoubleTimeSeries createSeries(final IntArrayList dates, final DoubleArrayList values) {
+    return new ArrayLocalDateDoubleTimeSeries(new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, dates.toIntArray(), values.toDoubleArray()));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Mapper from SQL rows to a UniqueId.
@@ -495,5 +686,36 @@ public class DbHistoricalTimeSeriesDataPointsWorker extends AbstractDbMaster {
     }
   }
 
+  /**
+   * Mapper from SQL rows to many ManageableHistoricalTimeSeries keyed by object identifier.
+   * <p>
+   * Only the first row for each object identifier is used.
+   */
+  protected final class ManageableHTSBulkExtractor implements ResultSetExtractor<Void> {
+    private final Map<Long, ManageableHistoricalTimeSeries> _series;
+    public ManageableHTSBulkExtractor(final Map<Long, ManageableHistoricalTimeSeries> series) {
+      _series = series;
+    }
+    @Override
+    public Void extractData(final ResultSet rs) throws SQLException, DataAccessException {
+      while (rs.next()) {
+        final long oid = rs.getLong("DOC_OID");
+        if (_series.containsKey(oid)) {
+          continue;
+        }
+        Timestamp ver = rs.getTimestamp("max_ver_instant");
+        Timestamp corr = rs.getTimestamp("max_corr_instant");
+        Instant verInstant = ver != null ? DbDateUtils.fromSqlTimestamp(ver) : null;
+        Instant corrInstant = (corr != null ? DbDateUtils.fromSqlTimestamp(corr) : verInstant);
+        ManageableHistoricalTimeSeries hts = new ManageableHistoricalTimeSeries();
+        hts.setUniqueId(createTimeSeriesUniqueId(oid, verInstant, corrInstant));
+        hts.setVersionInstant(verInstant);
+        hts.setCorrectionInstant(corrInstant);
+        _series.put(oid, hts);
+      }
+      return null;
+    }
+  }
+
 
 }
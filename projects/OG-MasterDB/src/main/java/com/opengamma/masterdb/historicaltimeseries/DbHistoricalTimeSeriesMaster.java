@@ -9,7 +9,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.time.Duration;
 import javax.time.Instant;
@@ -435,6 +437,15 @@ public class DbHistoricalTimeSeriesMaster extends AbstractDocumentDbMaster<Histo
     return getDataPointsWorker().getTimeSeries(objectId, versionCorrection, filter);
   }
 
+  @Override
+  public Map<ObjectId, ManageableHistoricalTimeSeries> getTimeSeries(Collection<? extends ObjectIdentifiable> objectIds, VersionCorrection versionCorrection, HistoricalTimeSeriesGetFilter filter) {
+    ArgumentChecker.notNull(objectIds, "objectIds");
+    for (ObjectIdentifiable objectId : objectIds) {
+      checkScheme(objectId);
+    }
+    return getDataPointsWorker().getTimeSeries(objectIds, versionCorrection, filter);
+  }
+
   //-------------------------------------------------------------------------
 
   @Override
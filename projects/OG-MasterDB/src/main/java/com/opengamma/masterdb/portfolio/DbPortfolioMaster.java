@@ -242,9 +242,9 @@ public class DbPortfolioMaster
     final String sqlPosition = getElSqlBundle().getSql("InsertPosition");
     final String sqlAttributes = getElSqlBundle().getSql("InsertAttribute");
     getJdbcTemplate().update(sqlDoc, docArgs);
-    getJdbcTemplate().batchUpdate(sqlNode, nodeList.toArray(new DbMapSqlParameterSource[nodeList.size()]));
-    getJdbcTemplate().batchUpdate(sqlPosition, posList.toArray(new DbMapSqlParameterSource[posList.size()]));
-    getJdbcTemplate().batchUpdate(sqlAttributes, prtAttrList.toArray(new DbMapSqlParameterSource[prtAttrList.size()]));
+    batchUpdate(sqlNode, nodeList);
+    batchUpdate(sqlPosition, posList);
+    batchUpdate(sqlAttributes, prtAttrList);
     
     // set the uniqueId
     document.getPortfolio().setUniqueId(portfolioUid);
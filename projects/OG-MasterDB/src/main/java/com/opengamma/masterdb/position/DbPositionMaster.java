@@ -160,11 +160,19 @@ public class DbPositionMaster
       buf.setLength(buf.length() - 2);
       args.addValue("sql_search_trade_ids", buf.toString());
     }
+    if (request.getAfterObjectId() != null) {
+      checkScheme(request.getAfterObjectId());
+      args.addValue("after_oid", extractOid(request.getAfterObjectId()));
+    }
     args.addValue("paging_offset", request.getPagingRequest().getFirstItem());
     args.addValue("paging_fetch", request.getPagingRequest().getPagingSize());
     
-    String[] sql = {getElSqlBundle().getSql("Search", args), getElSqlBundle().getSql("SearchCount", args)};
-    searchWithPaging(request.getPagingRequest(), sql, args, new PositionDocumentExtractor(), result);
+    if (request.getAfterObjectId() != null) {
+      searchWithoutCount(request.getPagingRequest(), getElSqlBundle().getSql("Search", args), args, new PositionDocumentExtractor(), result);
+    } else {
+      String[] sql = {getElSqlBundle().getSql("Search", args), getElSqlBundle().getSql("SearchCount", args)};
+      searchWithPaging(request.getPagingRequest(), sql, args, new PositionDocumentExtractor(), result);
+    }
     return result;
   }
 
@@ -333,12 +341,12 @@ public class DbPositionMaster
     final String sqlPositionAttributes = getElSqlBundle().getSql("InsertPositionAttributes");
     final String sqlTradeAttributes = getElSqlBundle().getSql("InsertTradeAttributes");
     getJdbcTemplate().update(sqlDoc, docArgs);
-    getJdbcTemplate().batchUpdate(sqlIdKey, idKeyList.toArray(new DbMapSqlParameterSource[idKeyList.size()]));
-    getJdbcTemplate().batchUpdate(sqlPosition2IdKey, posAssocList.toArray(new DbMapSqlParameterSource[posAssocList.size()]));
-    getJdbcTemplate().batchUpdate(sqlTrade, tradeList.toArray(new DbMapSqlParameterSource[tradeList.size()]));
-    getJdbcTemplate().batchUpdate(sqlTrade2IdKey, tradeAssocList.toArray(new DbMapSqlParameterSource[tradeAssocList.size()]));
-    getJdbcTemplate().batchUpdate(sqlPositionAttributes, posAttrList.toArray(new DbMapSqlParameterSource[posAttrList.size()]));
-    getJdbcTemplate().batchUpdate(sqlTradeAttributes, tradeAttributeList.toArray(new DbMapSqlParameterSource[tradeAttributeList.size()]));
+    batchUpdate(sqlIdKey, idKeyList);
+    batchUpdate(sqlPosition2IdKey, posAssocList);
+    batchUpdate(sqlTrade, tradeList);
+    batchUpdate(sqlTrade2IdKey, tradeAssocList);
+    batchUpdate(sqlPositionAttributes, posAttrList);
+    batchUpdate(sqlTradeAttributes, tradeAttributeList);
     
     // set the uniqueId
     position.setUniqueId(positionUid);
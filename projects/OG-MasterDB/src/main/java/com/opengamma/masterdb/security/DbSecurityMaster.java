@@ -187,6 +187,11 @@ public class DbSecurityMaster
       buf.setLength(buf.length() - 2);
       args.addValue("sql_search_object_ids", buf.toString());
     }
+    if (request.getAfterObjectId() != null) {
+      ArgumentChecker.isTrue(request.getSortOrder() == SecuritySearchSortOrder.OBJECT_ID_ASC, "Paging by object identifier requires sort order OBJECT_ID_ASC");
+      checkScheme(request.getAfterObjectId());
+      args.addValue("after_oid", extractOid(request.getAfterObjectId()));
+    }
     args.addValue("sort_order", ORDER_BY_MAP.get(request.getSortOrder()));
     args.addValue("paging_offset", request.getPagingRequest().getFirstItem());
     args.addValue("paging_fetch", request.getPagingRequest().getPagingSize());
@@ -196,8 +201,12 @@ public class DbSecurityMaster
       detailProvider.extendSearch(request, args);
     }
     
-    String[] sql = {getElSqlBundle().getSql("Search", args), getElSqlBundle().getSql("SearchCount", args)};
-    searchWithPaging(request.getPagingRequest(), sql, args, new SecurityDocumentExtractor(), result);
+    if (request.getAfterObjectId() != null) {
+      searchWithoutCount(request.getPagingRequest(), getElSqlBundle().getSql("Search", args), args, new SecurityDocumentExtractor(), result);
+    } else {
+      String[] sql = {getElSqlBundle().getSql("Search", args), getElSqlBundle().getSql("SearchCount", args)};
+      searchWithPaging(request.getPagingRequest(), sql, args, new SecurityDocumentExtractor(), result);
+    }
     if (request.isFullDetail()) {
       loadDetail(detailProvider, result.getDocuments());
     }
@@ -317,8 +326,8 @@ public class DbSecurityMaster
     final String sqlIdKey = getElSqlBundle().getSql("InsertIdKey");
     final String sqlDoc2IdKey = getElSqlBundle().getSql("InsertDoc2IdKey");
     getJdbcTemplate().update(sqlDoc, docArgs);
-    getJdbcTemplate().batchUpdate(sqlIdKey, idKeyList.toArray(new DbMapSqlParameterSource[idKeyList.size()]));
-    getJdbcTemplate().batchUpdate(sqlDoc2IdKey, assocList.toArray(new DbMapSqlParameterSource[assocList.size()]));
+    batchUpdate(sqlIdKey, idKeyList);
+    batchUpdate(sqlDoc2IdKey, assocList);
     // set the uniqueId
     final UniqueId uniqueId = createUniqueId(docOid, docId);
     document.getSecurity().setUniqueId(uniqueId);
@@ -348,7 +357,7 @@ public class DbSecurityMaster
       securityAttributeList.add(attributeArgs);
     }
     final String sqlAttributes = getElSqlBundle().getSql("InsertAttributes");
-    getJdbcTemplate().batchUpdate(sqlAttributes, securityAttributeList.toArray(new DbMapSqlParameterSource[securityAttributeList.size()]));
+    batchUpdate(sqlAttributes, securityAttributeList);
     return document;
   }
 
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.batch.BatchRunWriter;
+import com.opengamma.batch.RunCreationMode;
+import com.opengamma.batch.SnapshotMode;
+import com.opengamma.batch.domain.RiskRun;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.calc.ViewCycleMetadata;
+import com.opengamma.id.ObjectId;
+
+/**
+ * Test {@link BatchDbViewResultListener}.
+ */
+@Test
+public class BatchDbViewResultListenerTest {
+
+  private static final ObjectId RUN_ID = ObjectId.of("DbBat", "1");
+
+  private BatchRunWriter createWriter() {
+    final BatchRunWriter writer = mock(BatchRunWriter.class);
+    final RiskRun run = mock(RiskRun.class);
+    when(run.getObjectId()).thenReturn(RUN_ID);
+    when(writer.startRiskRun(any(ViewCycleMetadata.class), anyMapOf(String.class, String.class), any(RunCreationMode.class), any(SnapshotMode.class))).thenReturn(run);
+    return writer;
+  }
+
+  public void test_writesInOrder() throws Exception {
+    final BatchRunWriter writer = createWriter();
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer, 1);
+    final ViewCycleMetadata metadata = mock(ViewCycleMetadata.class);
+    final ViewComputationResultModel fragment1 = mock(ViewComputationResultModel.class);
+    final ViewComputationResultModel fragment2 = mock(ViewComputationResultModel.class);
+    listener.cycleStarted(metadata);
+    listener.cycleFragmentCompleted(fragment1, null);
+    listener.cycleFragmentCompleted(fragment2, null);
+    listener.cycleCompleted(null, null);
+    assertTrue(listener.awaitWritten(10, TimeUnit.SECONDS));
+    final InOrder order = inOrder(writer);
+    order.verify(writer).startRiskRun(metadata, new HashMap<String, String>(), RunCreationMode.AUTO, SnapshotMode.WRITE_THROUGH);
+    order.verify(writer).addJobResults(RUN_ID, fragment1);
+    order.verify(writer).addJobResults(RUN_ID, fragment2);
+    order.verify(writer).endRiskRun(RUN_ID);
+  }
+
+  public void test_writeFailureDoesNotStopWriter() throws Exception {
+    final BatchRunWriter writer = createWriter();
+    final ViewComputationResultModel fragment1 = mock(ViewComputationResultModel.class);
+    final ViewComputationResultModel fragment2 = mock(ViewComputationResultModel.class);
+    doThrow(new IllegalStateException()).when(writer).addJobResults(RUN_ID, fragment1);
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer);
+    listener.cycleStarted(mock(ViewCycleMetadata.class));
+    listener.cycleFragmentCompleted(fragment1, null);
+    listener.cycleFragmentCompleted(fragment2, null);
+    listener.cycleCompleted(null, null);
+    assertTrue(listener.awaitWritten(10, TimeUnit.SECONDS));
+    verify(writer).addJobResults(RUN_ID, fragment2);
+    verify(writer).endRiskRun(RUN_ID);
+  }
+
+  public void test_notStarted() throws Exception {
+    final BatchRunWriter writer = mock(BatchRunWriter.class);
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer);
+    listener.cycleFragmentCompleted(mock(ViewComputationResultModel.class), null);
+    listener.cycleCompleted(null, null);
+    assertTrue(listener.awaitWritten(10, TimeUnit.SECONDS));
+    verify(writer, never()).endRiskRun(any(ObjectId.class));
+  }
+
+  public void test_processCompletedWaitsForWrites() throws Exception {
+    final BatchRunWriter writer = createWriter();
+    final ViewComputationResultModel fragment = mock(ViewComputationResultModel.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        Thread.sleep(200);
+        return null;
+      }
+    }).when(writer).addJobResults(RUN_ID, fragment);
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer);
+    listener.cycleStarted(mock(ViewCycleMetadata.class));
+    listener.cycleFragmentCompleted(fragment, null);
+    listener.cycleCompleted(null, null);
+    listener.processCompleted();
+    verify(writer).addJobResults(RUN_ID, fragment);
+    verify(writer).endRiskRun(RUN_ID);
+  }
+
+  @Test(expectedExceptions = OpenGammaRuntimeException.class)
+  public void test_processCompletedReportsWriteFailure() throws Exception {
+    final BatchRunWriter writer = createWriter();
+    final ViewComputationResultModel fragment = mock(ViewComputationResultModel.class);
+    doThrow(new IllegalStateException()).when(writer).addJobResults(RUN_ID, fragment);
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer);
+    listener.cycleStarted(mock(ViewCycleMetadata.class));
+    listener.cycleFragmentCompleted(fragment, null);
+    listener.cycleCompleted(null, null);
+    try {
+      listener.processCompleted();
+    } finally {
+      assertEquals(1, listener.getWriteFailures().size());
+      verify(writer).endRiskRun(RUN_ID);
+    }
+  }
+
+}
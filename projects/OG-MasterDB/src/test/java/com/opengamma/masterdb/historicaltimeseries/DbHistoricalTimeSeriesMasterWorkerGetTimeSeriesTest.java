@@ -6,8 +6,12 @@
 package com.opengamma.masterdb.historicaltimeseries;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import javax.time.calendar.LocalDate;
 
 import org.slf4j.Logger;
@@ -265,6 +269,46 @@ public class DbHistoricalTimeSeriesMasterWorkerGetTimeSeriesTest extends Abstrac
     assertEquals(3.21d, timeSeries.getValueAt(0), 0.0001d);
   }
 
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_getBulk_latest() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    ObjectId oid102 = ObjectId.of("DbHts", "DP102");
+    ObjectId oid0 = ObjectId.of("DbHts", "DP0");
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101, oid102, oid0), VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofRange(null, null));
+    assertEquals(2, test.size());
+    assertFalse(test.containsKey(oid0));
+    ManageableHistoricalTimeSeries hts101 = test.get(oid101);
+    assertEquals(oid101, hts101.getUniqueId().getObjectId());
+    assertEquals(_version2Instant, hts101.getVersionInstant());
+    assertEquals(_version4Instant, hts101.getCorrectionInstant());
+    assertEquals(_htsMaster.getTimeSeries(oid101, VersionCorrection.LATEST).getTimeSeries(), hts101.getTimeSeries());
+    assertEquals(0, test.get(oid102).getTimeSeries().size());
+  }
+
+  @Test
+  public void test_getBulk_dateRange() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    HistoricalTimeSeriesGetFilter filter = HistoricalTimeSeriesGetFilter.ofRange(LocalDate.of(2011, 1, 2), LocalDate.of(2011, 1, 2));
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101), VersionCorrection.of(_version2Instant.plusSeconds(1), _version3Instant.plusSeconds(1)), filter);
+    LocalDateDoubleTimeSeries timeSeries = test.get(oid101).getTimeSeries();
+    assertEquals(1, timeSeries.size());
+    assertEquals(LocalDate.of(2011, 1, 2), timeSeries.getTimeAt(0));
+    assertEquals(3.21d, timeSeries.getValueAt(0), 0.0001d);
+  }
+
+  @Test
+  public void test_getBulk_maxPoints() {
+    ObjectId oid101 = ObjectId.of("DbHts", "DP101");
+    Map<ObjectId, ManageableHistoricalTimeSeries> test = _htsMaster.getTimeSeries(
+        Arrays.asList(oid101), VersionCorrection.LATEST, HistoricalTimeSeriesGetFilter.ofLatestPoint());
+    LocalDateDoubleTimeSeries timeSeries = test.get(oid101).getTimeSeries();
+    assertEquals(1, timeSeries.size());
+    assertEquals(LocalDate.of(2011, 1, 3), timeSeries.getTimeAt(0));
+  }
+
   //-------------------------------------------------------------------------
   @Test
   public void test_toString() {
@@ -10,6 +10,8 @@ import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.time.Instant;
 import javax.time.calendar.LocalDate;
@@ -418,4 +420,30 @@ public class ModifyPositionDbPositionMasterWorkerAddPositionTest extends Abstrac
     assertEquals(added, fromDb);
   }
 
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_addAll_addThenGet() {
+    _posMaster.setBulkChunkSize(2);
+    List<PositionDocument> docs = new ArrayList<PositionDocument>();
+    for (int i = 0; i < 5; i++) {
+      ManageablePosition position = new ManageablePosition(BigDecimal.valueOf(i), ExternalId.of("A", "B" + i));
+      LocalDate tradeDate = _now.toLocalDate();
+      OffsetTime tradeTime = _now.toOffsetTime().minusSeconds(500);
+      position.getTrades().add(new ManageableTrade(BigDecimal.valueOf(i), ExternalId.of("A", "B" + i), tradeDate, tradeTime, ExternalId.of("CPS", "CPV")));
+      docs.add(new PositionDocument(position));
+    }
+    List<PositionDocument> added = _posMaster.addAll(docs);
+    
+    assertEquals(5, added.size());
+    for (int i = 0; i < 5; i++) {
+      PositionDocument test = added.get(i);
+      assertNotNull(test.getUniqueId());
+      assertEquals("0", test.getUniqueId().getVersion());
+      PositionDocument fromDb = _posMaster.get(test.getUniqueId());
+      assertEquals(test, fromDb);
+      assertEquals(BigDecimal.valueOf(i), fromDb.getPosition().getQuantity());
+      assertEquals(1, fromDb.getPosition().getTrades().size());
+    }
+  }
+
 }
@@ -11,6 +11,8 @@ import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.time.Instant;
 import javax.time.calendar.LocalDate;
@@ -24,6 +26,9 @@ import org.testng.annotations.Factory;
 import org.testng.annotations.Test;
 
 import com.opengamma.DataNotFoundException;
+import com.opengamma.core.change.ChangeEvent;
+import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.change.ChangeType;
 import com.opengamma.elsql.ElSqlBundle;
 import com.opengamma.elsql.ElSqlConfig;
 import com.opengamma.id.ExternalId;
@@ -35,6 +40,9 @@ import com.opengamma.master.position.ManageableTrade;
 import com.opengamma.master.position.PositionDocument;
 import com.opengamma.master.position.PositionHistoryRequest;
 import com.opengamma.master.position.PositionHistoryResult;
+import com.opengamma.master.position.PositionSearchRequest;
+import com.opengamma.master.position.PositionSearchResult;
+import com.opengamma.util.paging.PagingRequest;
 import com.opengamma.util.test.DbTest;
 
 /**
@@ -262,6 +270,54 @@ public class ModifyPositionDbPositionMasterWorkerUpdatePositionTest extends Abst
 
   }
 
+  @Test
+  public void test_updateAll_getUpdateGet() {
+    Instant now = Instant.now(_posMaster.getTimeSource());
+    _posMaster.setBulkChunkSize(2);
+    final List<ChangeEvent> events = new ArrayList<ChangeEvent>();
+    _posMaster.changeManager().addChangeListener(new ChangeListener() {
+      @Override
+      public void entityChanged(ChangeEvent event) {
+        events.add(event);
+      }
+    });
+    
+    String[] ids = {"100", "120", "121", "122", "123"};
+    List<PositionDocument> bases = new ArrayList<PositionDocument>();
+    List<PositionDocument> inputs = new ArrayList<PositionDocument>();
+    for (int i = 0; i < ids.length; i++) {
+      PositionDocument base = _posMaster.get(UniqueId.of("DbPos", ids[i], "0"));
+      bases.add(base);
+      ManageablePosition pos = new ManageablePosition(BigDecimal.valueOf(i), ExternalId.of("A", "B" + i));
+      pos.setUniqueId(base.getUniqueId());
+      inputs.add(new PositionDocument(pos));
+    }
+    // spans three chunks
+    List<PositionDocument> updated = _posMaster.updateAll(inputs);
+    
+    assertEquals(ids.length, updated.size());
+    assertEquals(ids.length, events.size());
+    for (int i = 0; i < ids.length; i++) {
+      PositionDocument base = bases.get(i);
+      PositionDocument test = updated.get(i);
+      assertEquals(base.getObjectId(), test.getObjectId());
+      assertFalse(base.getUniqueId().equals(test.getUniqueId()));
+      assertEquals(now, test.getVersionFromInstant());
+      assertEquals(null, test.getVersionToInstant());
+      assertEquals(inputs.get(i).getPosition(), test.getPosition());
+      assertEquals(test, _posMaster.get(test.getObjectId(), VersionCorrection.LATEST));
+      
+      PositionDocument old = _posMaster.get(base.getUniqueId());
+      assertEquals(now, old.getVersionToInstant());  // old version ended
+      assertEquals(base.getPosition(), old.getPosition());
+      
+      ChangeEvent event = events.get(i);
+      assertEquals(ChangeType.CHANGED, event.getType());
+      assertEquals(base.getObjectId(), event.getObjectId());
+      assertEquals(now, event.getVersionFrom());
+    }
+  }
+
   @Test
   public void test_update_rollback() {
     DbPositionMaster w = new DbPositionMaster(_posMaster.getDbConnector());
@@ -281,4 +337,24 @@ public class ModifyPositionDbPositionMasterWorkerUpdatePositionTest extends Abst
     assertEquals(base, test);
   }
 
+  @Test
+  public void test_update_searchAfterObjectId() {
+    // the new version has a higher row id than the positions with later object identifiers
+    UniqueId uniqueId = UniqueId.of("DbPos", "120", "0");
+    PositionDocument base = _posMaster.get(uniqueId);
+    ManageablePosition pos = base.getPosition();
+    pos.setQuantity(BigDecimal.valueOf(125));
+    _posMaster.update(new PositionDocument(pos));
+    
+    PositionSearchRequest request = new PositionSearchRequest();
+    request.setAfterObjectId(ObjectId.of("DbPos", "100"));
+    request.setPagingRequest(PagingRequest.ofIndex(0, 2));
+    PositionSearchResult test = _posMaster.search(request);
+    
+    // the page is ordered by object identifier so the next page starts after the last document
+    assertEquals(2, test.getDocuments().size());
+    assertEquals(ObjectId.of("DbPos", "120"), test.getDocuments().get(0).getObjectId());
+    assertEquals(ObjectId.of("DbPos", "121"), test.getDocuments().get(1).getObjectId());
+  }
+
 }
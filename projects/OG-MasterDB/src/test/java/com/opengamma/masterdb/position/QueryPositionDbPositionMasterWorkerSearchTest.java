@@ -107,6 +107,39 @@ public class QueryPositionDbPositionMasterWorkerSearchTest extends AbstractDbPos
     assert222(test.getDocuments().get(1));
   }
 
+  //-------------------------------------------------------------------------
+  @Test
+  public void test_search_afterObjectId() {
+    PositionSearchRequest request = new PositionSearchRequest();
+    request.setAfterObjectId(ObjectId.of("DbPos", "121"));
+    request.setPagingRequest(PagingRequest.ofIndex(0, 2));
+    PositionSearchResult test = _posMaster.search(request);
+
+    assertEquals(2, test.getDocuments().size());
+    assert122(test.getDocuments().get(0));
+    assert123(test.getDocuments().get(1));
+    assertEquals(false, test.getPaging().isLastPage());
+  }
+
+  @Test
+  public void test_search_afterObjectId_lastPage() {
+    PositionSearchRequest request = new PositionSearchRequest();
+    request.setAfterObjectId(ObjectId.of("DbPos", "123"));
+    request.setPagingRequest(PagingRequest.ofIndex(0, 2));
+    PositionSearchResult test = _posMaster.search(request);
+
+    assertEquals(1, test.getDocuments().size());
+    assert222(test.getDocuments().get(0));
+    assertEquals(true, test.getPaging().isLastPage());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_search_afterObjectId_badScheme() {
+    PositionSearchRequest request = new PositionSearchRequest();
+    request.setAfterObjectId(ObjectId.of("Rubbish", "121"));
+    _posMaster.search(request);
+  }
+
   //-------------------------------------------------------------------------
   @Test
   public void test_search_positionIds_none() {
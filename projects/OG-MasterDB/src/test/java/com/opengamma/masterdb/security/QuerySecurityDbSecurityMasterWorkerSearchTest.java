@@ -24,6 +24,7 @@ import com.opengamma.id.VersionCorrection;
 import com.opengamma.master.security.SecurityDocument;
 import com.opengamma.master.security.SecuritySearchRequest;
 import com.opengamma.master.security.SecuritySearchResult;
+import com.opengamma.master.security.SecuritySearchSortOrder;
 import com.opengamma.util.paging.PagingRequest;
 import com.opengamma.util.test.DbTest;
 
@@ -57,6 +58,38 @@ public class QuerySecurityDbSecurityMasterWorkerSearchTest extends AbstractDbSec
   }
 
   //-------------------------------------------------------------------------
+  @Test
+  public void test_search_afterObjectId() {
+    SecuritySearchRequest request = new SecuritySearchRequest();
+    request.setAfterObjectId(ObjectId.of("DbSec", "101"));
+    request.setPagingRequest(PagingRequest.ofIndex(0, 1));
+    SecuritySearchResult test = _secMaster.search(request);
+    
+    assertEquals(1, test.getDocuments().size());
+    assert102(test.getDocuments().get(0));
+    assertEquals(false, test.getPaging().isLastPage());
+  }
+
+  @Test
+  public void test_search_afterObjectId_lastPage() {
+    SecuritySearchRequest request = new SecuritySearchRequest();
+    request.setAfterObjectId(ObjectId.of("DbSec", "102"));
+    request.setPagingRequest(PagingRequest.ofIndex(0, 2));
+    SecuritySearchResult test = _secMaster.search(request);
+    
+    assertEquals(1, test.getDocuments().size());
+    assert202(test.getDocuments().get(0));
+    assertEquals(true, test.getPaging().isLastPage());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void test_search_afterObjectId_badSortOrder() {
+    SecuritySearchRequest request = new SecuritySearchRequest();
+    request.setAfterObjectId(ObjectId.of("DbSec", "101"));
+    request.setSortOrder(SecuritySearchSortOrder.NAME_ASC);
+    _secMaster.search(request);
+  }
+
   @Test
   public void test_search_pageOne() {
     PagingRequest pr = PagingRequest.ofPage(1, 2);
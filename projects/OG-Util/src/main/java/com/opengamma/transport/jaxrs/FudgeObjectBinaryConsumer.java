@@ -5,6 +5,7 @@
  */
 package com.opengamma.transport.jaxrs;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
@@ -32,6 +33,11 @@ import org.fudgemsg.wire.FudgeMsgReader;
 @Consumes(FudgeRest.MEDIA)
 public class FudgeObjectBinaryConsumer extends FudgeBase implements MessageBodyReader<Object> {
 
+  /**
+   * The size of the buffer used when reading.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
   /**
    * Creates the consumer.
    */
@@ -54,7 +60,8 @@ public class FudgeObjectBinaryConsumer extends FudgeBase implements MessageBodyR
       MultivaluedMap<String, String> httpHeaders,
       InputStream entityStream) throws IOException, WebApplicationException {
     
-    FudgeMsgReader reader = new FudgeMsgReader(new FudgeDataInputStreamReader(getFudgeContext(), entityStream));
+    // the message is decoded as it arrives, the buffer avoids a call to the network or decompressing stream per field
+    FudgeMsgReader reader = new FudgeMsgReader(new FudgeDataInputStreamReader(getFudgeContext(), new BufferedInputStream(entityStream, BUFFER_SIZE)));
     FudgeMsg message = reader.nextMessage();
     if (message == null) {
       return null;
@@ -5,6 +5,7 @@
  */
 package com.opengamma.transport.jaxrs;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
@@ -33,6 +34,11 @@ import org.joda.beans.Bean;
 @Produces(FudgeRest.MEDIA)
 public class FudgeObjectBinaryProducer extends FudgeBase implements MessageBodyWriter<Object> {
 
+  /**
+   * The size of the buffer used when writing.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
   /**
    * Creates the producer.
    */
@@ -75,7 +81,8 @@ public class FudgeObjectBinaryProducer extends FudgeBase implements MessageBodyW
       msg = getFudgeContext().toFudgeMsg(obj);
     }
     
-    final FudgeMsgWriter writer = new FudgeMsgWriter(new FudgeDataOutputStreamWriter(getFudgeContext(), entityStream));
+    // the Fudge writer makes many small writes, which are expensive on a network or compressing stream
+    final FudgeMsgWriter writer = new FudgeMsgWriter(new FudgeDataOutputStreamWriter(getFudgeContext(), new BufferedOutputStream(entityStream, BUFFER_SIZE)));
     writer.writeMessageEnvelope(msg, getFudgeTaxonomyId());
     writer.flush();
   }
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.cache;
+
+/**
+ * A snapshot of the statistics of a {@link ConcurrentCache}.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class CacheStatistics {
+
+  /**
+   * The cache name.
+   */
+  private final String _name;
+  /**
+   * The approximate number of entries.
+   */
+  private final long _size;
+  /**
+   * The number of lookups that found a value.
+   */
+  private final long _hitCount;
+  /**
+   * The number of lookups that didn't find a value.
+   */
+  private final long _missCount;
+  /**
+   * The number of loads that returned a value.
+   */
+  private final long _loadSuccessCount;
+  /**
+   * The number of loads that threw an exception.
+   */
+  private final long _loadExceptionCount;
+  /**
+   * The total time spent loading values in nanoseconds.
+   */
+  private final long _totalLoadTime;
+  /**
+   * The number of entries evicted.
+   */
+  private final long _evictionCount;
+
+  /**
+   * Creates an instance.
+   *
+   * @param name  the cache name, not null
+   * @param size  the approximate number of entries
+   * @param hitCount  the number of lookups that found a value
+   * @param missCount  the number of lookups that didn't find a value
+   * @param loadSuccessCount  the number of loads that returned a value
+   * @param loadExceptionCount  the number of loads that threw an exception
+   * @param totalLoadTime  the total time spent loading values in nanoseconds
+   * @param evictionCount  the number of entries evicted
+   */
+  public CacheStatistics(String name, long size, long hitCount, long missCount, long loadSuccessCount, long loadExceptionCount,
+      long totalLoadTime, long evictionCount) {
+    _name = name;
+    _size = size;
+    _hitCount = hitCount;
+    _missCount = missCount;
+    _loadSuccessCount = loadSuccessCount;
+    _loadExceptionCount = loadExceptionCount;
+    _totalLoadTime = totalLoadTime;
+    _evictionCount = evictionCount;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the cache name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return _name;
+  }
+
+  /**
+   * Gets the approximate number of entries in the cache when the statistics were taken.
+   *
+   * @return the size
+   */
+  public long getSize() {
+    return _size;
+  }
+
+  /**
+   * Gets the number of lookups that found a value.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return _hitCount;
+  }
+
+  /**
+   * Gets the number of lookups that didn't find a value.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return _missCount;
+  }
+
+  /**
+   * Gets the total number of lookups.
+   *
+   * @return the request count
+   */
+  public long getRequestCount() {
+    return _hitCount + _missCount;
+  }
+
+  /**
+   * Gets the proportion of lookups that found a value.
+   *
+   * @return the hit rate, one if there have been no lookups
+   */
+  public double getHitRate() {
+    final long requestCount = getRequestCount();
+    return requestCount == 0 ? 1 : (double) _hitCount / requestCount;
+  }
+
+  /**
+   * Gets the number of loads that returned a value.
+   *
+   * @return the load success count
+   */
+  public long getLoadSuccessCount() {
+    return _loadSuccessCount;
+  }
+
+  /**
+   * Gets the number of loads that threw an exception.
+   *
+   * @return the load exception count
+   */
+  public long getLoadExceptionCount() {
+    return _loadExceptionCount;
+  }
+
+  /**
+   * Gets the total time spent loading values.
+   *
+   * @return the total load time in nanoseconds
+   */
+  public long getTotalLoadTime() {
+    return _totalLoadTime;
+  }
+
+  /**
+   * Gets the average time spent loading a value.
+   *
+   * @return the average load time in nanoseconds, zero if there have been no loads
+   */
+  public double getAverageLoadTime() {
+    final long loadCount = _loadSuccessCount + _loadExceptionCount;
+    return loadCount == 0 ? 0 : (double) _totalLoadTime / loadCount;
+  }
+
+  /**
+   * Gets the number of entries evicted because of the size limit or expiry.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return _evictionCount;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "CacheStatistics[" + _name + ", size=" + _size + ", hits=" + _hitCount + ", misses=" + _missCount + ", loads=" + _loadSuccessCount +
+        ", loadExceptions=" + _loadExceptionCount + ", totalLoadTime=" + _totalLoadTime + "ns, evictions=" + _evictionCount + "]";
+  }
+
+}
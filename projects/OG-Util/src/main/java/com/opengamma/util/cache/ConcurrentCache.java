@@ -0,0 +1,345 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An in-memory cache for use by the caching decorators of sources and other services.
+ * <p>
+ * Lookups of cached values don't lock. When several threads miss on the same key at the same time only one of
+ * them loads the value, the others wait for it and share the result. The cache is bounded by the number of
+ * entries or by the total weight of the entries, with the least recently used entries evicted first, and the
+ * entries can optionally expire a fixed time after they were loaded.
+ * <p>
+ * Null values are cached, exceptions thrown by a load are not. The number of hits, misses, loads and evictions
+ * and the time spent loading are available from {@link #getStatistics()}.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class ConcurrentCache<K, V> {
+
+  /**
+   * Placeholder for a null value, the underlying cache doesn't allow nulls.
+   */
+  private static final Object NULL = new Object();
+
+  /**
+   * The cache name.
+   */
+  private final String _name;
+  /**
+   * The underlying cache.
+   */
+  private final Cache<K, Object> _cache;
+  /**
+   * The number of lookups that found a value.
+   */
+  private final AtomicLong _hitCount = new AtomicLong();
+  /**
+   * The number of lookups that didn't find a value.
+   */
+  private final AtomicLong _missCount = new AtomicLong();
+  /**
+   * The number of loads that returned a value.
+   */
+  private final AtomicLong _loadSuccessCount = new AtomicLong();
+  /**
+   * The number of loads that threw an exception.
+   */
+  private final AtomicLong _loadExceptionCount = new AtomicLong();
+  /**
+   * The total time spent loading values in nanoseconds.
+   */
+  private final AtomicLong _totalLoadTime = new AtomicLong();
+  /**
+   * The number of entries evicted because of the size limit or expiry.
+   */
+  private final AtomicLong _evictionCount = new AtomicLong();
+
+  /**
+   * Creates a builder for a cache.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @param name  the cache name, used in logging and statistics, not null
+   * @return the builder, not null
+   */
+  public static <K, V> Builder<K, V> builder(final String name) {
+    return new Builder<K, V>(name);
+  }
+
+  private ConcurrentCache(final Builder<K, V> builder) {
+    _name = builder._name;
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+    if (builder._maximumWeight >= 0) {
+      final Weigher<? super K, ? super V> weigher = builder._weigher;
+      cacheBuilder.maximumWeight(builder._maximumWeight).weigher(new Weigher<K, Object>() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public int weigh(final K key, final Object value) {
+          return value == NULL ? 1 : weigher.weigh(key, (V) value);
+        }
+      });
+    } else if (builder._maximumSize >= 0) {
+      cacheBuilder.maximumSize(builder._maximumSize);
+    }
+    if (builder._expireAfterWriteNanos > 0) {
+      cacheBuilder.expireAfterWrite(builder._expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+    }
+    _cache = cacheBuilder.removalListener(new RemovalListener<K, Object>() {
+      @Override
+      public void onRemoval(final RemovalNotification<K, Object> notification) {
+        if (notification.wasEvicted()) {
+          _evictionCount.incrementAndGet();
+        }
+      }
+    }).build();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the cache name.
+   *
+   * @return the name, not null
+   */
+  public String getName() {
+    return _name;
+  }
+
+  /**
+   * Gets a value, loading it if it isn't in the cache.
+   * <p>
+   * If another thread is already loading the value for the key this waits for it rather than loading it again.
+   * An exception thrown by the loader is rethrown to every thread waiting for the value and nothing is cached.
+   *
+   * @param key  the key, not null
+   * @param loader  loads the value if it isn't in the cache, may return null, not null
+   * @return the value, null if the loader returned null
+   */
+  public V get(final K key, final Callable<? extends V> loader) {
+    ArgumentChecker.notNull(key, "key");
+    ArgumentChecker.notNull(loader, "loader");
+    Object value = _cache.getIfPresent(key);
+    if (value != null) {
+      _hitCount.incrementAndGet();
+      return unwrap(value);
+    }
+    _missCount.incrementAndGet();
+    try {
+      value = _cache.get(key, new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          final long start = System.nanoTime();
+          try {
+            final V loaded = loader.call();
+            _loadSuccessCount.incrementAndGet();
+            return loaded == null ? NULL : loaded;
+          } catch (Exception ex) {
+            _loadExceptionCount.incrementAndGet();
+            throw ex;
+          } finally {
+            _totalLoadTime.addAndGet(System.nanoTime() - start);
+          }
+        }
+      });
+    } catch (ExecutionException ex) {
+      throw new OpenGammaRuntimeException("Unable to load " + key + " into cache " + _name, ex.getCause());
+    } catch (UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+    return unwrap(value);
+  }
+
+  /**
+   * Gets a value if it is in the cache.
+   * <p>
+   * This is counted as a hit or miss in the statistics.
+   *
+   * @param key  the key, not null
+   * @return the value, null if not cached or the cached value is null
+   */
+  public V getIfPresent(final K key) {
+    ArgumentChecker.notNull(key, "key");
+    final Object value = _cache.getIfPresent(key);
+    if (value != null) {
+      _hitCount.incrementAndGet();
+      return unwrap(value);
+    }
+    _missCount.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Puts a value in the cache, replacing any existing value.
+   * <p>
+   * This is for caching values returned as a side effect of another lookup, for example the items of a search.
+   *
+   * @param key  the key, not null
+   * @param value  the value, null to cache a null value
+   */
+  public void put(final K key, final V value) {
+    ArgumentChecker.notNull(key, "key");
+    _cache.put(key, value == null ? NULL : value);
+  }
+
+  /**
+   * Removes the value for a key.
+   *
+   * @param key  the key, not null
+   */
+  public void invalidate(final K key) {
+    ArgumentChecker.notNull(key, "key");
+    _cache.invalidate(key);
+  }
+
+  /**
+   * Removes the values for all keys matching a predicate.
+   * <p>
+   * This has to check every key so should be used for occasional events such as changes to the underlying data.
+   *
+   * @param keys  the keys to remove, not null
+   */
+  public void invalidateAll(final Predicate<? super K> keys) {
+    ArgumentChecker.notNull(keys, "keys");
+    for (Iterator<K> it = _cache.asMap().keySet().iterator(); it.hasNext(); ) {
+      if (keys.apply(it.next())) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes all values.
+   */
+  public void invalidateAll() {
+    _cache.invalidateAll();
+  }
+
+  /**
+   * Gets the approximate number of entries in the cache.
+   *
+   * @return the number of entries
+   */
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Gets a snapshot of the statistics of the cache.
+   *
+   * @return the statistics, not null
+   */
+  public CacheStatistics getStatistics() {
+    return new CacheStatistics(_name, _cache.size(), _hitCount.get(), _missCount.get(), _loadSuccessCount.get(), _loadExceptionCount.get(),
+        _totalLoadTime.get(), _evictionCount.get());
+  }
+
+  @SuppressWarnings("unchecked")
+  private V unwrap(final Object value) {
+    return value == NULL ? null : (V) value;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "ConcurrentCache[" + _name + "]";
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Builder for {@link ConcurrentCache}. The cache is unbounded unless a maximum size or weight is set.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  public static final class Builder<K, V> {
+
+    private final String _name;
+    private long _maximumSize = -1;
+    private long _maximumWeight = -1;
+    private Weigher<? super K, ? super V> _weigher;
+    private long _expireAfterWriteNanos;
+
+    private Builder(final String name) {
+      ArgumentChecker.notNull(name, "name");
+      _name = name;
+    }
+
+    /**
+     * Sets the maximum number of entries.
+     *
+     * @param maximumSize  the maximum number of entries, zero or greater
+     * @return this builder, not null
+     */
+    public Builder<K, V> maximumSize(final long maximumSize) {
+      ArgumentChecker.isTrue(maximumSize >= 0, "maximumSize must not be negative");
+      ArgumentChecker.isTrue(_weigher == null, "maximumSize cannot be combined with maximumWeight");
+      _maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Sets the maximum total weight of the entries. Null values have a weight of one.
+     *
+     * @param maximumWeight  the maximum total weight, zero or greater
+     * @param weigher  calculates the weight of an entry, not null
+     * @return this builder, not null
+     */
+    public Builder<K, V> maximumWeight(final long maximumWeight, final Weigher<? super K, ? super V> weigher) {
+      ArgumentChecker.isTrue(maximumWeight >= 0, "maximumWeight must not be negative");
+      ArgumentChecker.notNull(weigher, "weigher");
+      ArgumentChecker.isTrue(_maximumSize < 0, "maximumWeight cannot be combined with maximumSize");
+      _maximumWeight = maximumWeight;
+      _weigher = weigher;
+      return this;
+    }
+
+    /**
+     * Sets the time after which an entry expires once it has been loaded or put.
+     *
+     * @param duration  the time, zero for no expiry
+     * @param unit  the unit of the time, not null
+     * @return this builder, not null
+     */
+    public Builder<K, V> expireAfterWrite(final long duration, final TimeUnit unit) {
+      ArgumentChecker.isTrue(duration >= 0, "duration must not be negative");
+      ArgumentChecker.notNull(unit, "unit");
+      _expireAfterWriteNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    /**
+     * Builds the cache.
+     *
+     * @return the cache, not null
+     */
+    public ConcurrentCache<K, V> build() {
+      return new ConcurrentCache<K, V>(this);
+    }
+  }
+
+}
@@ -218,6 +218,30 @@ public abstract class DbDialect {
     return "NEXT VALUE FOR " + sequenceName + " ";
   }
 
+  /**
+   * Builds SQL to query a block of values from a sequence in a single statement.
+   * <p>
+   * The values are returned as a single column, one row per value.
+   * Not all databases can do this, in which case null is returned and the
+   * values must be queried one at a time.
+   * 
+   * @param sequenceName  the sequence name, not null
+   * @param count  the number of values to query, greater than zero
+   * @return the SQL, not space terminated, null if not supported
+   */
+  public String sqlNextSequenceValuesSelect(final String sequenceName, final int count) {
+    return null;
+  }
+
+  /**
+   * Checks if a block of values can be queried from a sequence in a single statement.
+   * 
+   * @return true if {@link #sqlNextSequenceValuesSelect(String, int)} returns SQL
+   */
+  public boolean isNextSequenceValuesSelectSupported() {
+    return false;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Builds SQL to query the current timestamp.
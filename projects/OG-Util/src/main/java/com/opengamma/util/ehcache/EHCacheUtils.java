@@ -6,14 +6,17 @@
 package com.opengamma.util.ehcache;
 
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
 
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.cache.ConcurrentCache;
 
 /**
  * Utilities for working with EHCache.
@@ -123,6 +126,50 @@ public final class EHCacheUtils {
     }
   }
 
+  /**
+   * Creates a {@link ConcurrentCache} configured from the manager's configuration for a named cache.
+   * <p>
+   * This lets caching decorators move onto {@code ConcurrentCache} while keeping the sizes and
+   * time-to-live set in the EHCache configuration.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @param manager  the cache manager, not null
+   * @param name  the cache name, not null
+   * @return the cache, not null
+   * @see #concurrentCacheBuilder(CacheManager, String)
+   */
+  public static <K, V> ConcurrentCache<K, V> createConcurrentCache(final CacheManager manager, final String name) {
+    return EHCacheUtils.<K, V>concurrentCacheBuilder(manager, name).build();
+  }
+
+  /**
+   * Creates a builder for a {@link ConcurrentCache} configured from the manager's configuration for a named cache.
+   * <p>
+   * The maximum number of elements in memory is used as the maximum size, zero meaning unbounded, and the
+   * time-to-live as the expiry unless the cache is eternal. The named cache is added to the manager if necessary
+   * so the manager's default configuration applies to names it has no configuration for.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @param manager  the cache manager, not null
+   * @param name  the cache name, not null
+   * @return the builder, not null
+   */
+  public static <K, V> ConcurrentCache.Builder<K, V> concurrentCacheBuilder(final CacheManager manager, final String name) {
+    ArgumentChecker.notNull(manager, "manager");
+    ArgumentChecker.notNull(name, "name");
+    addCache(manager, name);
+    final CacheConfiguration config = getCacheFromManager(manager, name).getCacheConfiguration();
+    final ConcurrentCache.Builder<K, V> builder = ConcurrentCache.builder(name);
+    if (config.getMaxElementsInMemory() > 0) {
+      builder.maximumSize(config.getMaxElementsInMemory());
+    }
+    if (!config.isEternal() && config.getTimeToLiveSeconds() > 0) {
+      builder.expireAfterWrite(config.getTimeToLiveSeconds(), TimeUnit.SECONDS);
+    }
+    return builder;
+  }
 
   @SuppressWarnings("unchecked")
   public static <T> T get(final Element e) {
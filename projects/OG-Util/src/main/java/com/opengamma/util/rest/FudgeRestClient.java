@@ -6,6 +6,7 @@
 package com.opengamma.util.rest;
 
 import java.net.URI;
+import java.util.List;
 
 import com.opengamma.transport.jaxrs.FudgeObjectBinaryConsumer;
 import com.opengamma.transport.jaxrs.FudgeObjectBinaryProducer;
@@ -16,11 +17,22 @@ import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.WebResource.Builder;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 
 /**
  * Fudge-based client to call remote RESTful services.
  * <p>
  * This has configuration to rethrow exceptions sent across the network.
+ * <p>
+ * The clients created by {@link #create()} share one underlying Jersey client. Creating a Jersey client is
+ * expensive, and sharing one means the connections to a server are kept alive and reused by every remote
+ * component rather than each holding their own. Responses are compressed if the server supports it, and
+ * the time and size of the calls to each endpoint are recorded, see {@link #getEndpointStatistics()}.
+ * <p>
+ * The number of idle connections kept alive to each server is set by the JDK's {@code http.maxConnections}
+ * system property, which defaults to 5. This is too few for many remote components making concurrent calls,
+ * so it should be raised with {@code -Dhttp.maxConnections=20} on the command line, as the component server
+ * scripts do. It must be set at startup as the JDK only reads it once.
  */
 public class FudgeRestClient {
 
@@ -38,16 +50,37 @@ public class FudgeRestClient {
   }
 
   /**
-   * Creates an instance, initializing the providers
+   * Creates an instance, sharing the underlying client.
    * @return the RESTful client, not null
    */
   public static FudgeRestClient create() {
+    return new FudgeRestClient(SharedClient.CLIENT);
+  }
+
+  /**
+   * Creates a Jersey client, initializing the providers and filters.
+   * @param statistics  the filter recording the statistics of the calls, not null
+   * @return the client, not null
+   */
+  protected static Client createClient(final StatisticsClientFilter statistics) {
     ClientConfig config = new DefaultClientConfig();
     config.getClasses().add(FudgeObjectBinaryConsumer.class);
     config.getClasses().add(FudgeObjectBinaryProducer.class);
     Client client = Client.create(config);
+    // filters are added to the head of the chain, so the statistics are closest to the network
+    client.addFilter(statistics);
+    // requests aren't compressed as older servers can't decode them, responses are if the server can
+    client.addFilter(new GZIPContentEncodingFilter(false));
     client.addFilter(new ExceptionThrowingClientFilter());
-    return new FudgeRestClient(client);
+    return client;
+  }
+
+  /**
+   * Gets the statistics of the calls made by the shared client to each endpoint.
+   * @return the statistics, not null
+   */
+  public static List<RestEndpointStatistics> getEndpointStatistics() {
+    return SharedClient.STATISTICS.getStatistics();
   }
 
   //-------------------------------------------------------------------------
@@ -92,4 +125,13 @@ public class FudgeRestClient {
     return getClient().resource(uri).type(FudgeRest.MEDIA_TYPE).accept(FudgeRest.MEDIA_TYPE);
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Holder of the shared client, created on first use.
+   */
+  private static final class SharedClient {
+    private static final StatisticsClientFilter STATISTICS = new StatisticsClientFilter();
+    private static final Client CLIENT = createClient(STATISTICS);
+  }
+
 }
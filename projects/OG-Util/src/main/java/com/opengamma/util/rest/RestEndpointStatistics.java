@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.rest;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A snapshot of the calls made by RESTful clients to one endpoint.
+ * <p>
+ * The time of a call runs from sending the request to reading the last byte of the response, and the byte counts are
+ * those sent over the network, so are after compression.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class RestEndpointStatistics {
+
+  /**
+   * The endpoint, the HTTP method and the URI with identifiers removed from the path.
+   */
+  private final String _endpoint;
+  /**
+   * The number of calls.
+   */
+  private final long _callCount;
+  /**
+   * The number of calls that failed to return a response.
+   */
+  private final long _errorCount;
+  /**
+   * The total time of the calls in nanoseconds.
+   */
+  private final long _totalTime;
+  /**
+   * The total bytes sent.
+   */
+  private final long _bytesSent;
+  /**
+   * The total bytes received.
+   */
+  private final long _bytesReceived;
+
+  /**
+   * Creates an instance.
+   *
+   * @param endpoint  the endpoint, not null
+   * @param callCount  the number of calls
+   * @param errorCount  the number of calls that failed or returned an error status
+   * @param totalTime  the total time of the calls in nanoseconds
+   * @param bytesSent  the total bytes sent
+   * @param bytesReceived  the total bytes received
+   */
+  public RestEndpointStatistics(final String endpoint, final long callCount, final long errorCount, final long totalTime,
+      final long bytesSent, final long bytesReceived) {
+    ArgumentChecker.notNull(endpoint, "endpoint");
+    _endpoint = endpoint;
+    _callCount = callCount;
+    _errorCount = errorCount;
+    _totalTime = totalTime;
+    _bytesSent = bytesSent;
+    _bytesReceived = bytesReceived;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the endpoint, the HTTP method and the URI with identifiers removed from the path.
+   *
+   * @return the endpoint, not null
+   */
+  public String getEndpoint() {
+    return _endpoint;
+  }
+
+  /**
+   * Gets the number of calls.
+   *
+   * @return the number of calls
+   */
+  public long getCallCount() {
+    return _callCount;
+  }
+
+  /**
+   * Gets the number of calls that failed or returned an error status.
+   *
+   * @return the number of failed calls
+   */
+  public long getErrorCount() {
+    return _errorCount;
+  }
+
+  /**
+   * Gets the total time of the calls in nanoseconds.
+   *
+   * @return the total time
+   */
+  public long getTotalTime() {
+    return _totalTime;
+  }
+
+  /**
+   * Gets the mean time of a call in nanoseconds.
+   *
+   * @return the mean time, zero if there have been no calls
+   */
+  public double getAverageTime() {
+    return _callCount == 0 ? 0 : (double) _totalTime / _callCount;
+  }
+
+  /**
+   * Gets the total bytes sent.
+   *
+   * @return the bytes sent
+   */
+  public long getBytesSent() {
+    return _bytesSent;
+  }
+
+  /**
+   * Gets the total bytes received.
+   *
+   * @return the bytes received
+   */
+  public long getBytesReceived() {
+    return _bytesReceived;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "RestEndpointStatistics[" + _endpoint + ", calls=" + _callCount + ", errors=" + _errorCount +
+        ", averageTime=" + (long) getAverageTime() + "ns, sent=" + _bytesSent + ", received=" + _bytesReceived + "]";
+  }
+
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.io.CountingOutputStream;
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * A Jersey filter recording the number, time and size of the calls made to each endpoint.
+ * <p>
+ * Calls are grouped by HTTP method and URI path, with path segments that look like identifiers, those containing
+ * the {@code ~} scheme separator or only digits, replaced by <code>{id}</code>. The filter should be the first added
+ * to the client, so that it is closest to the network and counts the bytes actually transferred.
+ * <p>
+ * This class is thread-safe.
+ */
+public class StatisticsClientFilter extends ClientFilter {
+
+  /**
+   * The maximum number of endpoints recorded separately, further endpoints are recorded together.
+   */
+  private static final int MAX_ENDPOINTS = 1000;
+  /**
+   * The path segment used in place of an identifier.
+   */
+  private static final String ID_SEGMENT = "{id}";
+
+  /**
+   * The counters, keyed by endpoint.
+   */
+  private final ConcurrentMap<String, Counters> _endpoints = new ConcurrentHashMap<String, Counters>();
+
+  /**
+   * Creates the filter.
+   */
+  public StatisticsClientFilter() {
+    super();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets a snapshot of the statistics of each endpoint called.
+   *
+   * @return the statistics, not null
+   */
+  public List<RestEndpointStatistics> getStatistics() {
+    final List<RestEndpointStatistics> result = new ArrayList<RestEndpointStatistics>(_endpoints.size());
+    for (Counters counters : _endpoints.values()) {
+      result.add(counters.snapshot());
+    }
+    return result;
+  }
+
+  /**
+   * Clears the statistics.
+   */
+  public void reset() {
+    _endpoints.clear();
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public ClientResponse handle(final ClientRequest cr) throws ClientHandlerException {
+    final Call call = new Call(counters(endpoint(cr.getMethod(), cr.getURI())));
+    if (cr.getEntity() != null) {
+      cr.setAdapter(new AbstractClientRequestAdapter(cr.getAdapter()) {
+        @Override
+        public OutputStream adapt(final ClientRequest request, final OutputStream out) throws IOException {
+          final CountingOutputStream counting = new CountingOutputStream(out);
+          call._sent = counting;
+          return getAdapter().adapt(request, counting);
+        }
+      });
+    }
+    final ClientResponse response;
+    try {
+      response = getNext().handle(cr);
+    } catch (RuntimeException ex) {
+      call.finish(0, true);
+      throw ex;
+    }
+    final boolean error = response.getStatus() >= 400;
+    final InputStream entity = response.getEntityInputStream();
+    if (entity == null) {
+      call.finish(0, error);
+    } else {
+      // the call is finished once the response has been read
+      response.setEntityInputStream(new ResponseInputStream(entity, call, error));
+    }
+    return response;
+  }
+
+  private Counters counters(final String endpoint) {
+    Counters counters = _endpoints.get(endpoint);
+    if (counters == null) {
+      final String key = (_endpoints.size() < MAX_ENDPOINTS) ? endpoint : "other";
+      counters = new Counters(key);
+      final Counters existing = _endpoints.putIfAbsent(key, counters);
+      if (existing != null) {
+        counters = existing;
+      }
+    }
+    return counters;
+  }
+
+  /**
+   * Gets the endpoint of a call, the method and the URI without its query and with identifiers removed from the path.
+   *
+   * @param method  the HTTP method, not null
+   * @param uri  the URI, not null
+   * @return the endpoint, not null
+   */
+  static String endpoint(final String method, final URI uri) {
+    final StringBuilder buf = new StringBuilder(method).append(' ');
+    if (uri.getScheme() != null) {
+      buf.append(uri.getScheme()).append("://").append(uri.getAuthority());
+    }
+    if (uri.getPath() != null) {
+      for (String segment : StringUtils.split(uri.getPath(), '/')) {
+        buf.append('/').append(segment.indexOf('~') >= 0 || StringUtils.isNumeric(segment) ? ID_SEGMENT : segment);
+      }
+    }
+    return buf.toString();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The totals for an endpoint.
+   */
+  private static final class Counters {
+    private final String _endpoint;
+    private final AtomicLong _callCount = new AtomicLong();
+    private final AtomicLong _errorCount = new AtomicLong();
+    private final AtomicLong _totalTime = new AtomicLong();
+    private final AtomicLong _bytesSent = new AtomicLong();
+    private final AtomicLong _bytesReceived = new AtomicLong();
+
+    private Counters(final String endpoint) {
+      _endpoint = endpoint;
+    }
+
+    private RestEndpointStatistics snapshot() {
+      return new RestEndpointStatistics(_endpoint, _callCount.get(), _errorCount.get(), _totalTime.get(), _bytesSent.get(), _bytesReceived.get());
+    }
+  }
+
+  /**
+   * A call in progress.
+   */
+  private static final class Call {
+    private final Counters _counters;
+    private final long _start = System.nanoTime();
+    private final AtomicBoolean _finished = new AtomicBoolean();
+    private volatile CountingOutputStream _sent;
+
+    private Call(final Counters counters) {
+      _counters = counters;
+    }
+
+    private void finish(final long bytesReceived, final boolean error) {
+      if (_finished.compareAndSet(false, true)) {
+        _counters._callCount.incrementAndGet();
+        if (error) {
+          _counters._errorCount.incrementAndGet();
+        }
+        _counters._totalTime.addAndGet(System.nanoTime() - _start);
+        final CountingOutputStream sent = _sent;
+        if (sent != null) {
+          _counters._bytesSent.addAndGet(sent.getCount());
+        }
+        _counters._bytesReceived.addAndGet(bytesReceived);
+      }
+    }
+  }
+
+  /**
+   * The response stream, counting the bytes read and finishing the call when closed.
+   */
+  private static final class ResponseInputStream extends FilterInputStream {
+    private final Call _call;
+    private final boolean _error;
+    private long _count;
+
+    private ResponseInputStream(final InputStream in, final Call call, final boolean error) {
+      super(in);
+      _call = call;
+      _error = error;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int result = super.read();
+      if (result >= 0) {
+        _count++;
+      }
+      return result;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int result = super.read(b, off, len);
+      if (result > 0) {
+        _count += result;
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long result = super.skip(n);
+      _count += result;
+      return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        _call.finish(_count, _error);
+      }
+    }
+  }
+
+}
@@ -8,6 +8,11 @@ package com.opengamma.util.timeseries;
 import java.util.Arrays;
 import java.util.List;
 
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.FastTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+
 /**
  * 
  *
@@ -22,6 +27,9 @@ public class BulkTimeSeriesOperations {
       }
       return results;
     }
+    if (isAllFastInt(inputs)) {
+      return fastIntIntersection(inputs);
+    }
    
     DoubleTimeSeries<E> intersection = inputs[0];
     for (int i = 1; i < inputs.length; i++) {
@@ -33,6 +41,52 @@ public class BulkTimeSeriesOperations {
     return results;
   }
   
+  private static boolean isAllFastInt(final DoubleTimeSeries<?>[] inputs) {
+    DateTimeNumericEncoding encoding = null;
+    for (DoubleTimeSeries<?> input : inputs) {
+      if (!(input instanceof FastBackedDoubleTimeSeries<?>)) {
+        return false;
+      }
+      final FastTimeSeries<?> fastSeries = ((FastBackedDoubleTimeSeries<?>) input).getFastSeries();
+      if (!(fastSeries instanceof FastIntDoubleTimeSeries)) {
+        return false;
+      }
+      if (encoding == null) {
+        encoding = fastSeries.getEncoding();
+      } else if (encoding != fastSeries.getEncoding()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Intersects series backed by integer dates in one N-way merge of the date arrays rather than
+   * a chain of pairwise intersections.
+   */
+  @SuppressWarnings("unchecked")
+  private static <E> DoubleTimeSeries<E>[] fastIntIntersection(final DoubleTimeSeries<E>[] inputs) {
+    final int n = inputs.length;
+    final FastIntDoubleTimeSeries[] fastSeries = new FastIntDoubleTimeSeries[n];
+    final int[][] times = new int[n][];
+    int minLength = Integer.MAX_VALUE;
+    for (int i = 0; i < n; i++) {
+      fastSeries[i] = (FastIntDoubleTimeSeries) ((FastBackedDoubleTimeSeries<E>) inputs[i]).getFastSeries();
+      times[i] = fastSeries[i].timesArrayFast();
+      minLength = Math.min(minLength, times[i].length);
+    }
+    final int[][] indices = new int[n][minLength];
+    final int count = FastArrayIntDoubleTimeSeriesOperators.intersection(times, indices);
+    final int[] resultTimes = FastArrayIntDoubleTimeSeriesOperators.select(times[0], indices[0], count, new int[count]);
+    final DoubleTimeSeries<E>[] results = new DoubleTimeSeries[n];
+    for (int i = 0; i < n; i++) {
+      final double[] resultValues = FastArrayIntDoubleTimeSeriesOperators.select(fastSeries[i].valuesArrayFast(), indices[i], count, new double[count]);
+      final FastIntDoubleTimeSeries result = fastSeries[i].newInstanceFast(resultTimes, resultValues);
+      results[i] = ((FastBackedDoubleTimeSeries<E>) inputs[i]).getConverter().convertFromInt(inputs[i], result);
+    }
+    return results;
+  }
+
   @SuppressWarnings("unchecked")
   public <E> List<DoubleTimeSeries<E>> intersection(List<DoubleTimeSeries<E>> inputs) {
     return Arrays.asList(intersection((DoubleTimeSeries<E>[]) inputs.toArray()));
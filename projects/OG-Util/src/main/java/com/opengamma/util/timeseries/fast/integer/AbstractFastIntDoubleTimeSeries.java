@@ -5,6 +5,7 @@
  */
 package com.opengamma.util.timeseries.fast.integer;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -228,6 +229,9 @@ public abstract class AbstractFastIntDoubleTimeSeries
       }
     }
     final double[] bValues = other.valuesArrayFast();
+    if (Arrays.equals(aTimes, bTimes)) { // already aligned, no need to merge; aValues is our own copy so can be overwritten
+      return newInstanceFast(aTimes, FastArrayIntDoubleTimeSeriesOperators.operate(aValues, bValues, operator, aValues));
+    }
     int bCount = 0;
     final int[] resTimes = new int[aTimes.length + bTimes.length];
     final double[] resValues = new double[resTimes.length];
@@ -385,19 +389,11 @@ public abstract class AbstractFastIntDoubleTimeSeries
     double[] values = valuesArrayFast();
     if (days == 0) {
       return newInstanceFast(times, values);
-    } else if (days < 0) {
-      int[] resultTimes = new int[times.length + days]; // remember days is -ve
-      System.arraycopy(times, 0, resultTimes, 0, times.length + days);
-      Double[] resultValues = new Double[times.length + days];
-      System.arraycopy(values, -days, resultValues, 0, times.length + days);
-      return newInstanceFast(times, values);
-    } else { // if (days > 0) {
-      int[] resultTimes = new int[times.length - days]; // remember days is +ve
-      System.arraycopy(times, days, resultTimes, 0, times.length - days);
-      Double[] resultValues = new Double[times.length - days];
-      System.arraycopy(values, 0, resultValues, 0, times.length - days);
-      return newInstanceFast(times, values);
     }
+    int[] resultTimes = new int[Math.max(times.length - Math.abs(days), 0)];
+    double[] resultValues = new double[resultTimes.length];
+    FastArrayIntDoubleTimeSeriesOperators.lag(times, values, days, resultTimes, resultValues);
+    return newInstanceFast(resultTimes, resultValues);
   }
 
   @Override
@@ -0,0 +1,403 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.timeseries.DoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.DoubleTimeSeriesOperators.BinaryOperator;
+
+/**
+ * Bulk operations on the primitive arrays that back {@link FastArrayIntDoubleTimeSeries}.
+ * <p>
+ * The binary operations work on <i>aligned</i> series, i.e. series that have already been reduced to
+ * the same set of dates (see {@link #intersection(int[][], int[][])}), so that no date comparison is
+ * needed inside the loop. None of the methods allocate; the caller supplies the result arrays, which
+ * may be the same as one of the inputs for an in-place update. The loops are kept free of virtual calls
+ * so that the JIT can unroll and vectorise them.
+ */
+public final class FastArrayIntDoubleTimeSeriesOperators {
+
+  /**
+   * Restricted constructor.
+   */
+  private FastArrayIntDoubleTimeSeriesOperators() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Adds two aligned value arrays element by element.
+   *
+   * @param a  the first values, not null
+   * @param b  the second values, not null
+   * @param result  the array to write to, at least as long as the inputs, may be {@code a} or {@code b}
+   * @return {@code result}
+   */
+  public static double[] add(final double[] a, final double[] b, final double[] result) {
+    final int n = checkAligned(a, b, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = a[i] + b[i];
+    }
+    return result;
+  }
+
+  /**
+   * Subtracts the second aligned value array from the first element by element.
+   *
+   * @param a  the first values, not null
+   * @param b  the second values, not null
+   * @param result  the array to write to, at least as long as the inputs, may be {@code a} or {@code b}
+   * @return {@code result}
+   */
+  public static double[] subtract(final double[] a, final double[] b, final double[] result) {
+    final int n = checkAligned(a, b, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = a[i] - b[i];
+    }
+    return result;
+  }
+
+  /**
+   * Multiplies two aligned value arrays element by element.
+   *
+   * @param a  the first values, not null
+   * @param b  the second values, not null
+   * @param result  the array to write to, at least as long as the inputs, may be {@code a} or {@code b}
+   * @return {@code result}
+   */
+  public static double[] multiply(final double[] a, final double[] b, final double[] result) {
+    final int n = checkAligned(a, b, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = a[i] * b[i];
+    }
+    return result;
+  }
+
+  /**
+   * Divides the first aligned value array by the second element by element.
+   *
+   * @param a  the numerators, not null
+   * @param b  the denominators, not null
+   * @param result  the array to write to, at least as long as the inputs, may be {@code a} or {@code b}
+   * @return {@code result}
+   */
+  public static double[] divide(final double[] a, final double[] b, final double[] result) {
+    final int n = checkAligned(a, b, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = a[i] / b[i];
+    }
+    return result;
+  }
+
+  /**
+   * Applies a binary operator to two aligned value arrays element by element.
+   * <p>
+   * The standard arithmetic operators from {@link DoubleTimeSeriesOperators} are dispatched to the
+   * specialised loops; any other operator is applied through its interface.
+   *
+   * @param a  the first values, not null
+   * @param b  the second values, not null
+   * @param operator  the operator, not null
+   * @param result  the array to write to, at least as long as the inputs, may be {@code a} or {@code b}
+   * @return {@code result}
+   */
+  public static double[] operate(final double[] a, final double[] b, final BinaryOperator operator, final double[] result) {
+    if (operator == DoubleTimeSeriesOperators.ADD_OPERATOR) {
+      return add(a, b, result);
+    } else if (operator == DoubleTimeSeriesOperators.SUBTRACT_OPERATOR) {
+      return subtract(a, b, result);
+    } else if (operator == DoubleTimeSeriesOperators.MULTIPLY_OPERATOR) {
+      return multiply(a, b, result);
+    } else if (operator == DoubleTimeSeriesOperators.DIVIDE_OPERATOR) {
+      return divide(a, b, result);
+    }
+    final int n = checkAligned(a, b, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = operator.operate(a[i], b[i]);
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the one-period simple net returns, {@code v[i + 1] / v[i] - 1}, of a value array.
+   *
+   * @param values  the values, not null, at least two elements
+   * @param result  the array to write to, at least {@code values.length - 1} long, may be {@code values}
+   * @return {@code result}
+   */
+  public static double[] simpleReturns(final double[] values, final double[] result) {
+    final int n = checkReturns(values, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = values[i + 1] / values[i] - 1;
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the one-period continuously compounded returns, {@code ln(v[i + 1] / v[i])}, of a value array.
+   *
+   * @param values  the values, not null, at least two elements
+   * @param result  the array to write to, at least {@code values.length - 1} long, may be {@code values}
+   * @return {@code result}
+   */
+  public static double[] logReturns(final double[] values, final double[] result) {
+    final int n = checkReturns(values, result);
+    for (int i = 0; i < n; i++) {
+      result[i] = Math.log(values[i + 1] / values[i]);
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Lags a series by a number of observations.
+   * <p>
+   * For a positive lag, each value is moved to the date {@code lag} observations later, dropping the
+   * first {@code lag} dates and the last {@code lag} values. A negative lag moves the values earlier.
+   *
+   * @param times  the dates, not null
+   * @param values  the values, not null, the same length as the dates
+   * @param lag  the number of observations to lag by
+   * @param resultTimes  the array to write the dates to, at least {@code times.length - |lag|} long
+   * @param resultValues  the array to write the values to, at least {@code times.length - |lag|} long
+   * @return the number of elements written
+   */
+  public static int lag(final int[] times, final double[] values, final int lag, final int[] resultTimes, final double[] resultValues) {
+    ArgumentChecker.isTrue(times.length == values.length, "Arrays are of different sizes: {}, {}", times.length, values.length);
+    final int n = Math.max(times.length - Math.abs(lag), 0);
+    ArgumentChecker.isTrue(resultTimes.length >= n && resultValues.length >= n, "Result arrays too short for {} elements", n);
+    if (n == 0) {
+      return 0;
+    }
+    if (lag >= 0) {
+      System.arraycopy(times, lag, resultTimes, 0, n);
+      System.arraycopy(values, 0, resultValues, 0, n);
+    } else {
+      System.arraycopy(times, 0, resultTimes, 0, n);
+      System.arraycopy(values, -lag, resultValues, 0, n);
+    }
+    return n;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Calculates the sum over a rolling window of observations.
+   * <p>
+   * Element {@code i} of the result is the sum of {@code values[i]} to {@code values[i + window - 1]},
+   * so the result is associated with the dates starting at index {@code window - 1}.
+   *
+   * @param values  the values, not null
+   * @param window  the window length, greater than zero
+   * @param result  the array to write to, at least {@code values.length - window + 1} long, may be {@code values}
+   * @return the number of elements written
+   */
+  public static int rollingSum(final double[] values, final int window, final double[] result) {
+    final int n = checkRolling(values, window, result);
+    if (n == 0) {
+      return 0;
+    }
+    double sum = 0;
+    for (int i = 0; i < window; i++) {
+      sum += values[i];
+    }
+    double leaving = values[0];
+    result[0] = sum;
+    for (int i = 1; i < n; i++) {
+      // read the leaving value before result[i - 1] may have overwritten it in the in-place case
+      final double entering = values[i + window - 1];
+      final double nextLeaving = values[i];
+      sum += entering - leaving;
+      result[i] = sum;
+      leaving = nextLeaving;
+    }
+    return n;
+  }
+
+  /**
+   * Calculates the arithmetic mean over a rolling window of observations.
+   *
+   * @param values  the values, not null
+   * @param window  the window length, greater than zero
+   * @param result  the array to write to, at least {@code values.length - window + 1} long, may be {@code values}
+   * @return the number of elements written
+   * @see #rollingSum(double[], int, double[])
+   */
+  public static int rollingMean(final double[] values, final int window, final double[] result) {
+    final int n = rollingSum(values, window, result);
+    final double scale = 1. / window;
+    for (int i = 0; i < n; i++) {
+      result[i] *= scale;
+    }
+    return n;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Finds the dates common to any number of sorted date arrays using a single N-way merge.
+   * <p>
+   * On return, {@code indices[k][j]} holds the position in {@code times[k]} of the j-th common date,
+   * so the aligned values of each series can be extracted with {@link #select(double[], int[], int, double[])}.
+   * Each {@code indices[k]} must be at least as long as the shortest date array.
+   *
+   * @param times  the sorted date arrays, not null, not empty
+   * @param indices  the arrays to write the positions of the common dates to, not null, one per date array
+   * @return the number of common dates
+   */
+  public static int intersection(final int[][] times, final int[][] indices) {
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(indices, "indices");
+    ArgumentChecker.isTrue(times.length > 0, "Need at least one date array");
+    ArgumentChecker.isTrue(indices.length >= times.length, "Need one index array per date array");
+    final int m = times.length;
+    final int[] cursors = new int[m];
+    int count = 0;
+    outer:
+    while (true) {
+      // find the largest current head; every other cursor has to catch up with it
+      int target = Integer.MIN_VALUE;
+      for (int k = 0; k < m; k++) {
+        if (cursors[k] >= times[k].length) {
+          break outer;
+        }
+        final int head = times[k][cursors[k]];
+        if (head > target) {
+          target = head;
+        }
+      }
+      boolean aligned = true;
+      for (int k = 0; k < m; k++) {
+        final int[] kTimes = times[k];
+        int cursor = cursors[k];
+        while (cursor < kTimes.length && kTimes[cursor] < target) {
+          cursor++;
+        }
+        cursors[k] = cursor;
+        if (cursor >= kTimes.length) {
+          break outer;
+        }
+        if (kTimes[cursor] != target) {
+          aligned = false;
+        }
+      }
+      if (aligned) {
+        for (int k = 0; k < m; k++) {
+          indices[k][count] = cursors[k]++;
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Finds the dates common to any number of sorted date arrays.
+   *
+   * @param times  the sorted date arrays, not null, not empty
+   * @return the common dates, not null
+   */
+  public static int[] intersection(final int[][] times) {
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.isTrue(times.length > 0, "Need at least one date array");
+    final int[][] indices = new int[times.length][minLength(times)];
+    final int count = intersection(times, indices);
+    final int[] result = new int[count];
+    final int[] firstTimes = times[0];
+    final int[] firstIndices = indices[0];
+    for (int j = 0; j < count; j++) {
+      result[j] = firstTimes[firstIndices[j]];
+    }
+    return result;
+  }
+
+  /**
+   * Gathers the values at the given positions.
+   *
+   * @param values  the values, not null
+   * @param indices  the positions to extract, not null
+   * @param count  the number of positions to use
+   * @param result  the array to write to, at least {@code count} long
+   * @return {@code result}
+   */
+  public static double[] select(final double[] values, final int[] indices, final int count, final double[] result) {
+    for (int j = 0; j < count; j++) {
+      result[j] = values[indices[j]];
+    }
+    return result;
+  }
+
+  /**
+   * Gathers the dates at the given positions.
+   *
+   * @param times  the dates, not null
+   * @param indices  the positions to extract, not null
+   * @param count  the number of positions to use
+   * @param result  the array to write to, at least {@code count} long
+   * @return {@code result}
+   */
+  public static int[] select(final int[] times, final int[] indices, final int count, final int[] result) {
+    for (int j = 0; j < count; j++) {
+      result[j] = times[indices[j]];
+    }
+    return result;
+  }
+
+  /**
+   * Looks up the values of a sparse series on the dates of another series in a single merge pass.
+   * <p>
+   * This is used, for example, to line a dividend series up with a price series.
+   *
+   * @param times  the sorted dates to look up, not null
+   * @param otherTimes  the sorted dates of the sparse series, not null
+   * @param otherValues  the values of the sparse series, not null
+   * @param defaultValue  the value to use where the sparse series has no date
+   * @param result  the array to write to, at least as long as {@code times}
+   * @return {@code result}
+   */
+  public static double[] align(final int[] times, final int[] otherTimes, final double[] otherValues, final double defaultValue, final double[] result) {
+    ArgumentChecker.isTrue(otherTimes.length == otherValues.length, "Arrays are of different sizes: {}, {}", otherTimes.length, otherValues.length);
+    ArgumentChecker.isTrue(result.length >= times.length, "Result array too short for {} elements", times.length);
+    int j = 0;
+    for (int i = 0; i < times.length; i++) {
+      final int time = times[i];
+      while (j < otherTimes.length && otherTimes[j] < time) {
+        j++;
+      }
+      result[i] = (j < otherTimes.length && otherTimes[j] == time) ? otherValues[j] : defaultValue;
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  private static int checkAligned(final double[] a, final double[] b, final double[] result) {
+    final int n = a.length;
+    ArgumentChecker.isTrue(b.length == n, "Series are not aligned: {}, {}", n, b.length);
+    ArgumentChecker.isTrue(result.length >= n, "Result array too short for {} elements", n);
+    return n;
+  }
+
+  private static int checkReturns(final double[] values, final double[] result) {
+    ArgumentChecker.isTrue(values.length >= 2, "Need at least two values to calculate returns");
+    final int n = values.length - 1;
+    ArgumentChecker.isTrue(result.length >= n, "Result array too short for {} elements", n);
+    return n;
+  }
+
+  private static int checkRolling(final double[] values, final int window, final double[] result) {
+    ArgumentChecker.notNegativeOrZero(window, "window");
+    final int n = Math.max(values.length - window + 1, 0);
+    ArgumentChecker.isTrue(result.length >= n, "Result array too short for {} elements", n);
+    return n;
+  }
+
+  private static int minLength(final int[][] arrays) {
+    int min = Integer.MAX_VALUE;
+    for (final int[] array : arrays) {
+      min = Math.min(min, array.length);
+    }
+    return min;
+  }
+
+}
@@ -24,6 +24,8 @@ import javax.time.calendar.LocalDate;
 import com.opengamma.util.timeseries.DateTimeConverter;
 import com.opengamma.util.timeseries.DoubleTimeSeries;
 import com.opengamma.util.timeseries.ObjectTimeSeries;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
 import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
 import com.opengamma.util.timeseries.fast.integer.object.FastIntObjectTimeSeries;
 import com.opengamma.util.timeseries.fast.longint.FastLongDoubleTimeSeries;
@@ -90,6 +92,10 @@ public class LocalDateEpochDaysConverter implements DateTimeConverter<LocalDate>
 
   @Override
   public DoubleTimeSeries<LocalDate> convertFromInt(final DoubleTimeSeries<LocalDate> templateTS, final FastIntDoubleTimeSeries pidts) {
+    if (templateTS.getClass() == ArrayLocalDateDoubleTimeSeries.class && pidts instanceof FastArrayIntDoubleTimeSeries && pidts.getEncoding() == DateTimeNumericEncoding.DATE_EPOCH_DAYS) {
+      // wrap the immutable primitive result directly rather than boxing every date and value
+      return new ArrayLocalDateDoubleTimeSeries(this, pidts);
+    }
     final LocalDate[] dates = new LocalDate[pidts.size()];
     final Double[] values = new Double[pidts.size()];
     final Iterator<Entry<Integer, Double>> iterator = pidts.iterator();
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.cache.Weigher;
+
+/**
+ * Test.
+ */
+@Test
+public class ConcurrentCacheTest {
+
+  public void test_get() {
+    ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder("test").maximumSize(10).build();
+    CountingLoader loader = new CountingLoader("A");
+    assertEquals("A", cache.get("key", loader));
+    assertEquals("A", cache.get("key", loader));
+    assertEquals(1, loader._count.get());
+
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals("test", statistics.getName());
+    assertEquals(1, statistics.getSize());
+    assertEquals(1, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(1, statistics.getLoadSuccessCount());
+    assertEquals(0.5, statistics.getHitRate(), 0);
+  }
+
+  public void test_get_null() {
+    ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder("test").build();
+    CountingLoader loader = new CountingLoader(null);
+    assertNull(cache.get("key", loader));
+    assertNull(cache.get("key", loader));
+    assertEquals(1, loader._count.get());
+  }
+
+  public void test_get_exception() {
+    ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder("test").build();
+    final IllegalStateException ex = new IllegalStateException();
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.get("key", new Callable<String>() {
+          @Override
+          public String call() {
+            throw ex;
+          }
+        });
+      } catch (IllegalStateException caught) {
+        assertSame(ex, caught);
+      }
+    }
+    assertEquals(0, cache.size());
+    assertEquals(2, cache.getStatistics().getLoadExceptionCount());
+  }
+
+  public void test_maximumSize() {
+    ConcurrentCache<Integer, String> cache = ConcurrentCache.<Integer, String>builder("test").maximumSize(5).build();
+    for (int i = 0; i < 20; i++) {
+      cache.put(i, "value");
+    }
+    assertTrue(cache.size() <= 5);
+    assertEquals(20 - cache.size(), cache.getStatistics().getEvictionCount());
+  }
+
+  public void test_maximumWeight() {
+    ConcurrentCache<Integer, String> cache = ConcurrentCache.<Integer, String>builder("test").maximumWeight(20, new Weigher<Integer, String>() {
+      @Override
+      public int weigh(Integer key, String value) {
+        return value.length();
+      }
+    }).build();
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, "12345");
+    }
+    assertTrue(cache.size() <= 4);
+  }
+
+  public void test_expireAfterWrite() throws Exception {
+    ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder("test").expireAfterWrite(1, TimeUnit.MILLISECONDS).build();
+    cache.put("key", "value");
+    Thread.sleep(10);
+    assertNull(cache.getIfPresent("key"));
+  }
+
+  public void test_invalidate() {
+    ConcurrentCache<Integer, String> cache = ConcurrentCache.<Integer, String>builder("test").build();
+    for (int i = 0; i < 10; i++) {
+      cache.put(i, "value");
+    }
+    cache.invalidate(0);
+    assertEquals(9, cache.size());
+    cache.invalidateAll(new Predicate<Integer>() {
+      @Override
+      public boolean apply(Integer key) {
+        return key % 2 == 0;
+      }
+    });
+    assertEquals(5, cache.size());
+    assertNull(cache.getIfPresent(2));
+    assertEquals("value", cache.getIfPresent(3));
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+
+  /**
+   * Concurrent misses on the same key are loaded once.
+   */
+  public void test_coalescing() throws Exception {
+    final ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder("test").build();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger count = new AtomicInteger();
+    final Callable<String> loader = new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        count.incrementAndGet();
+        loading.countDown();
+        release.await();
+        return "A";
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> futures = new ArrayList<Future<String>>();
+      futures.add(executor.submit(new Callable<String>() {
+        @Override
+        public String call() {
+          return cache.get("key", loader);
+        }
+      }));
+      loading.await();
+      for (int i = 0; i < 3; i++) {
+        futures.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            return cache.get("key", loader);
+          }
+        }));
+      }
+      Thread.sleep(50);
+      release.countDown();
+      for (Future<String> future : futures) {
+        assertEquals("A", future.get());
+      }
+      assertEquals(1, count.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  private static final class CountingLoader implements Callable<String> {
+    private final String _value;
+    private final AtomicInteger _count = new AtomicInteger();
+
+    private CountingLoader(String value) {
+      _value = value;
+    }
+
+    @Override
+    public String call() {
+      _count.incrementAndGet();
+      return _value;
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.rest;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+
+/**
+ * Test StatisticsClientFilter.
+ */
+@Test
+public class StatisticsClientFilterTest {
+
+  public void test_endpoint() {
+    assertEquals("GET http://host:8080/jax/securitySource/securities/{id}",
+        StatisticsClientFilter.endpoint("GET", URI.create("http://host:8080/jax/securitySource/securities/DbSec~123?version=2")));
+    assertEquals("POST http://host/jax/positionMaster/positionSearches",
+        StatisticsClientFilter.endpoint("POST", URI.create("http://host/jax/positionMaster/positionSearches")));
+    assertEquals("GET http://host/jax/viewProcessor/{id}/results",
+        StatisticsClientFilter.endpoint("GET", URI.create("http://host/jax/viewProcessor/42/results")));
+  }
+
+  public void test_statistics() throws IOException {
+    final StatisticsClientFilter filter = new StatisticsClientFilter();
+    final Client client = new Client(new ClientHandler() {
+      @Override
+      public ClientResponse handle(final ClientRequest cr) throws ClientHandlerException {
+        final InBoundHeaders headers = new InBoundHeaders();
+        headers.add("Content-Type", "text/plain");
+        return new ClientResponse(200, headers, new ByteArrayInputStream("response".getBytes()), null);
+      }
+    });
+    client.addFilter(filter);
+    read(client.resource("http://host/jax/test/A~1").get(ClientResponse.class));
+    read(client.resource("http://host/jax/test/A~2").get(ClientResponse.class));
+
+    final List<RestEndpointStatistics> statistics = filter.getStatistics();
+    assertEquals(1, statistics.size());
+    assertEquals("GET http://host/jax/test/{id}", statistics.get(0).getEndpoint());
+    assertEquals(2, statistics.get(0).getCallCount());
+    assertEquals(0, statistics.get(0).getErrorCount());
+    assertEquals(16, statistics.get(0).getBytesReceived());
+  }
+
+  public void test_statistics_errorStatus() throws IOException {
+    final StatisticsClientFilter filter = new StatisticsClientFilter();
+    final Client client = new Client(new ClientHandler() {
+      @Override
+      public ClientResponse handle(final ClientRequest cr) throws ClientHandlerException {
+        final InBoundHeaders headers = new InBoundHeaders();
+        headers.add("Content-Type", "text/plain");
+        final int status = cr.getURI().getPath().endsWith("A~1") ? 200 : 404;
+        return new ClientResponse(status, headers, new ByteArrayInputStream("response".getBytes()), null);
+      }
+    });
+    client.addFilter(filter);
+    read(client.resource("http://host/jax/test/A~1").get(ClientResponse.class));
+    read(client.resource("http://host/jax/test/A~2").get(ClientResponse.class));
+
+    final List<RestEndpointStatistics> statistics = filter.getStatistics();
+    assertEquals(1, statistics.size());
+    assertEquals(2, statistics.get(0).getCallCount());
+    assertEquals(1, statistics.get(0).getErrorCount());
+  }
+
+  private static void read(final ClientResponse response) throws IOException {
+    IOUtils.toByteArray(response.getEntityInputStream());
+    response.close();
+  }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.timeseries.fast.integer;
+
+import static org.testng.internal.junit.ArrayAsserts.assertArrayEquals;
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.timeseries.DoubleTimeSeriesOperators;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+
+/**
+ * Test FastArrayIntDoubleTimeSeriesOperators.
+ */
+@Test
+public class FastArrayIntDoubleTimeSeriesOperatorsTest {
+
+  private static final double EPS = 1e-15;
+
+  public void testArithmetic() {
+    final double[] a = new double[] {1, 2, 3, 4 };
+    final double[] b = new double[] {2, 4, 6, 8 };
+    assertArrayEquals(new double[] {3, 6, 9, 12 }, FastArrayIntDoubleTimeSeriesOperators.add(a, b, new double[4]), EPS);
+    assertArrayEquals(new double[] {-1, -2, -3, -4 }, FastArrayIntDoubleTimeSeriesOperators.subtract(a, b, new double[4]), EPS);
+    assertArrayEquals(new double[] {2, 8, 18, 32 }, FastArrayIntDoubleTimeSeriesOperators.multiply(a, b, new double[4]), EPS);
+    assertArrayEquals(new double[] {0.5, 0.5, 0.5, 0.5 }, FastArrayIntDoubleTimeSeriesOperators.divide(a, b, new double[4]), EPS);
+    assertArrayEquals(new double[] {1, 2, 3, 4 }, FastArrayIntDoubleTimeSeriesOperators.operate(a, b, DoubleTimeSeriesOperators.MINIMUM_OPERATOR, new double[4]), EPS);
+  }
+
+  public void testInPlace() {
+    final double[] a = new double[] {1, 2, 3, 4 };
+    final double[] b = new double[] {2, 4, 6, 8 };
+    final double[] result = FastArrayIntDoubleTimeSeriesOperators.add(a, b, a);
+    assertEquals(a, result);
+    assertArrayEquals(new double[] {3, 6, 9, 12 }, a, EPS);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNotAligned() {
+    FastArrayIntDoubleTimeSeriesOperators.add(new double[2], new double[3], new double[3]);
+  }
+
+  public void testReturns() {
+    final double[] values = new double[] {100, 110, 99 };
+    assertArrayEquals(new double[] {0.1, -0.1 }, FastArrayIntDoubleTimeSeriesOperators.simpleReturns(values, new double[2]), 1e-12);
+    assertArrayEquals(new double[] {Math.log(1.1), Math.log(0.9) }, FastArrayIntDoubleTimeSeriesOperators.logReturns(values, new double[2]), 1e-12);
+  }
+
+  public void testLag() {
+    final int[] times = new int[] {1, 2, 3, 4, 5 };
+    final double[] values = new double[] {10, 20, 30, 40, 50 };
+    int[] resultTimes = new int[5];
+    double[] resultValues = new double[5];
+    assertEquals(3, FastArrayIntDoubleTimeSeriesOperators.lag(times, values, 2, resultTimes, resultValues));
+    assertArrayEquals(new int[] {3, 4, 5 }, subArray(resultTimes, 3));
+    assertArrayEquals(new double[] {10, 20, 30 }, subArray(resultValues, 3), EPS);
+    assertEquals(3, FastArrayIntDoubleTimeSeriesOperators.lag(times, values, -2, resultTimes, resultValues));
+    assertArrayEquals(new int[] {1, 2, 3 }, subArray(resultTimes, 3));
+    assertArrayEquals(new double[] {30, 40, 50 }, subArray(resultValues, 3), EPS);
+    assertEquals(0, FastArrayIntDoubleTimeSeriesOperators.lag(times, values, 7, resultTimes, resultValues));
+    assertEquals(0, FastArrayIntDoubleTimeSeriesOperators.lag(times, values, -7, new int[0], new double[0]));
+  }
+
+  public void testSeriesLag() {
+    final FastIntDoubleTimeSeries ts = new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, new int[] {1, 2, 3 }, new double[] {10, 20, 30 });
+    final FastIntDoubleTimeSeries lagged = ts.lag(1);
+    assertArrayEquals(new int[] {2, 3 }, lagged.timesArrayFast());
+    assertArrayEquals(new double[] {10, 20 }, lagged.valuesArrayFast(), EPS);
+  }
+
+  public void testSeriesLagBeyondLength() {
+    final FastIntDoubleTimeSeries ts = new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, new int[] {1, 2, 3 }, new double[] {10, 20, 30 });
+    assertEquals(0, ts.lag(5).size());
+    assertEquals(0, ts.lag(-5).size());
+  }
+
+  public void testRolling() {
+    final double[] values = new double[] {1, 2, 3, 4, 5 };
+    final double[] result = new double[3];
+    assertEquals(3, FastArrayIntDoubleTimeSeriesOperators.rollingSum(values, 3, result));
+    assertArrayEquals(new double[] {6, 9, 12 }, result, EPS);
+    assertEquals(3, FastArrayIntDoubleTimeSeriesOperators.rollingMean(values, 3, result));
+    assertArrayEquals(new double[] {2, 3, 4 }, result, EPS);
+    assertEquals(0, FastArrayIntDoubleTimeSeriesOperators.rollingSum(values, 6, result));
+  }
+
+  public void testRollingInPlace() {
+    final double[] values = new double[] {1, 2, 3, 4, 5 };
+    assertEquals(4, FastArrayIntDoubleTimeSeriesOperators.rollingSum(values, 2, values));
+    assertArrayEquals(new double[] {3, 5, 7, 9 }, subArray(values, 4), EPS);
+  }
+
+  public void testIntersection() {
+    final int[][] times = new int[][] {
+      {1, 2, 3, 5, 8, 13 },
+      {2, 3, 4, 5, 6, 7, 8 },
+      {0, 3, 5, 8, 9 } };
+    final int[][] indices = new int[3][5];
+    final int count = FastArrayIntDoubleTimeSeriesOperators.intersection(times, indices);
+    assertEquals(3, count);
+    assertArrayEquals(new int[] {2, 3, 4 }, subArray(indices[0], count));
+    assertArrayEquals(new int[] {1, 3, 6 }, subArray(indices[1], count));
+    assertArrayEquals(new int[] {1, 2, 3 }, subArray(indices[2], count));
+    assertArrayEquals(new int[] {3, 5, 8 }, FastArrayIntDoubleTimeSeriesOperators.intersection(times));
+    final double[] values = new double[] {10, 20, 30, 50, 80, 130 };
+    assertArrayEquals(new double[] {30, 50, 80 }, FastArrayIntDoubleTimeSeriesOperators.select(values, indices[0], count, new double[count]), EPS);
+  }
+
+  public void testEmptyIntersection() {
+    assertEquals(0, FastArrayIntDoubleTimeSeriesOperators.intersection(new int[][] { {1, 2 }, {3, 4 } }).length);
+    assertEquals(0, FastArrayIntDoubleTimeSeriesOperators.intersection(new int[][] { {1, 2 }, {} }).length);
+  }
+
+  public void testAlign() {
+    final int[] times = new int[] {1, 2, 3, 4, 5 };
+    final int[] dividendTimes = new int[] {0, 2, 5, 6 };
+    final double[] dividends = new double[] {9, 1, 2, 9 };
+    assertArrayEquals(new double[] {0, 1, 0, 0, 2 }, FastArrayIntDoubleTimeSeriesOperators.align(times, dividendTimes, dividends, 0, new double[5]), EPS);
+  }
+
+  private static int[] subArray(final int[] array, final int length) {
+    final int[] result = new int[length];
+    System.arraycopy(array, 0, result, 0, length);
+    return result;
+  }
+
+  private static double[] subArray(final double[] array, final int length) {
+    final double[] result = new double[length];
+    System.arraycopy(array, 0, result, 0, length);
+    return result;
+  }
+
+}
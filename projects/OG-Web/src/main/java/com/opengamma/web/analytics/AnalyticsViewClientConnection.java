@@ -6,6 +6,7 @@
 package com.opengamma.web.analytics;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.google.common.collect.Lists;
 import com.opengamma.OpenGammaRuntimeException;
@@ -33,40 +34,44 @@ import com.opengamma.util.ArgumentChecker;
 import com.opengamma.web.server.AggregatedViewDefinitionManager;
 
 /**
- * Connects the engine to an {@link AnalyticsView}. Contains the logic for setting up a {@link ViewClient},
- * connecting it to a view process, handling events from the engine and forwarding data to the {@code ViewClient}.
+ * Connects the engine to the {@link AnalyticsView}s of the users looking at the same view. Contains the logic for
+ * setting up a {@link ViewClient}, connecting it to a view process, handling events from the engine and forwarding
+ * data to the views. A view added after the view process has produced results is sent the latest structure and
+ * results when it's added.
  */
 /* package */ class AnalyticsViewClientConnection {
 
-  private final AnalyticsView _view;
+  /** The views receiving data from the engine. */
+  private final List<AnalyticsView> _views = new CopyOnWriteArrayList<AnalyticsView>();
+  private final Object _lock = new Object();
   private final ViewClient _viewClient;
   private final AggregatedViewDefinition _aggregatedViewDef;
   private final ViewExecutionOptions _executionOptions;
   private final NamedMarketDataSpecificationRepository _marketDataSpecRepo;
 
   private EngineResourceReference<? extends ViewCycle> _cycleReference = EmptyViewCycle.REFERENCE;
+  /** The latest compiled view definition, null until the view definition has been compiled. */
+  private CompiledViewDefinition _compiledViewDefinition;
+  /** The latest results, null until the first results arrive. */
+  private ViewResultModel _latestResults;
 
   /**
    * @param viewRequest Defines the view that should be created
    * @param viewClient Connects this class to the calculation engine
-   * @param view The object that encapsulates the state of the view user interface
    * @param marketDataSpecRepo For looking up sources of market data
    * @param aggregatedViewDefManager For looking up view definitions
    * @param snapshotMaster For looking up snapshots
    */
   /* package */ AnalyticsViewClientConnection(ViewRequest viewRequest,
                                               ViewClient viewClient,
-                                              AnalyticsView view,
                                               NamedMarketDataSpecificationRepository marketDataSpecRepo,
                                               AggregatedViewDefinitionManager aggregatedViewDefManager,
                                               MarketDataSnapshotMaster snapshotMaster) {
     ArgumentChecker.notNull(viewRequest, "viewRequest");
     ArgumentChecker.notNull(viewClient, "viewClient");
-    ArgumentChecker.notNull(view, "view");
     ArgumentChecker.notNull(marketDataSpecRepo, "marketDataSpecRepo");
     ArgumentChecker.notNull(aggregatedViewDefManager, "aggregatedViewDefManager");
     ArgumentChecker.notNull(snapshotMaster, "snapshotMaster");
-    _view = view;
     _viewClient = viewClient;
     _aggregatedViewDef = new AggregatedViewDefinition(aggregatedViewDefManager, viewRequest);
     _marketDataSpecRepo = marketDataSpecRepo;
@@ -131,16 +136,42 @@ import com.opengamma.web.server.AggregatedViewDefinitionManager;
     try {
       _viewClient.detachFromViewProcess();
     } finally {
-      _cycleReference.release();
+      synchronized (_lock) {
+        _cycleReference.release();
+        _latestResults = null;
+      }
       _aggregatedViewDef.close();
     }
   }
 
   /**
-   * @return The view to which this object sends data received from the engine.
+   * Adds a view that will receive data from the engine. If the view process has already produced results the view
+   * is sent the latest structure and results.
+   * @param view The view
+   */
+  /* package */ void addView(AnalyticsView view) {
+    ArgumentChecker.notNull(view, "view");
+    synchronized (_lock) {
+      _views.add(view);
+      if (_compiledViewDefinition != null) {
+        view.updateStructure(_compiledViewDefinition);
+      }
+      if (_latestResults != null) {
+        view.updateResults(_latestResults, _cycleReference.get());
+      }
+    }
+  }
+
+  /**
+   * Removes a view so it no longer receives data from the engine.
+   * @param view The view
+   * @return true if there are no views left receiving data, in which case the connection can be closed
    */
-  /* package */ AnalyticsView getView() {
-    return _view;
+  /* package */ boolean removeView(AnalyticsView view) {
+    synchronized (_lock) {
+      _views.remove(view);
+      return _views.isEmpty();
+    }
   }
 
   /**
@@ -151,19 +182,26 @@ import com.opengamma.web.server.AggregatedViewDefinitionManager;
 
     @Override
     public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
-      _cycleReference.release();
-      ViewResultModel results = deltaResult != null ? deltaResult : fullResult;
-      // always retain a reference to the most recent cycle so the dependency graphs are available at all times.
-      // without this it would be necessary to wait at least one cycle before it would be possible to access the graphs.
-      // this allows dependency graphs grids to be opened and populated without any delay
-      EngineResourceReference<? extends ViewCycle> cycleReference = _viewClient.createCycleReference(results.getViewCycleId());
-      if (cycleReference == null) {
-        // this shouldn't happen if everything in the engine is working as it should
-        _cycleReference = EmptyViewCycle.REFERENCE;
-      } else {
-        _cycleReference = cycleReference;
+      synchronized (_lock) {
+        _cycleReference.release();
+        ViewResultModel results = deltaResult != null ? deltaResult : fullResult;
+        // always retain a reference to the most recent cycle so the dependency graphs are available at all times.
+        // without this it would be necessary to wait at least one cycle before it would be possible to access the graphs.
+        // this allows dependency graphs grids to be opened and populated without any delay
+        EngineResourceReference<? extends ViewCycle> cycleReference = _viewClient.createCycleReference(results.getViewCycleId());
+        if (cycleReference == null) {
+          // this shouldn't happen if everything in the engine is working as it should
+          _cycleReference = EmptyViewCycle.REFERENCE;
+        } else {
+          _cycleReference = cycleReference;
+        }
+        // the views share a results cache which only takes the first copy of the results so a view added later
+        // can be given the latest results even if they're a delta
+        _latestResults = results;
+        for (AnalyticsView view : _views) {
+          view.updateResults(results, _cycleReference.get());
+        }
       }
-      _view.updateResults(results, _cycleReference.get());
     }
 
     @Override
@@ -173,7 +211,12 @@ import com.opengamma.web.server.AggregatedViewDefinitionManager;
 
     @Override
     public void viewDefinitionCompiled(CompiledViewDefinition compiledViewDefinition, boolean hasMarketDataPermissions) {
-      _view.updateStructure(compiledViewDefinition);
+      synchronized (_lock) {
+        _compiledViewDefinition = compiledViewDefinition;
+        for (AnalyticsView view : _views) {
+          view.updateStructure(compiledViewDefinition);
+        }
+      }
     }
   }
 
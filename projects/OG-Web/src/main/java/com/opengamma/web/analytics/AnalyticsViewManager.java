@@ -7,10 +7,13 @@ package com.opengamma.web.analytics;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Maps;
 import com.opengamma.DataNotFoundException;
 import com.opengamma.engine.ComputationTargetResolver;
 import com.opengamma.engine.marketdata.NamedMarketDataSpecificationRepository;
@@ -19,6 +22,7 @@ import com.opengamma.engine.view.client.ViewClient;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.master.marketdatasnapshot.MarketDataSnapshotMaster;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
 import com.opengamma.web.analytics.push.ClientConnection;
 import com.opengamma.web.server.AggregatedViewDefinitionManager;
 
@@ -39,7 +43,10 @@ public class AnalyticsViewManager {
   private final ViewProcessor _viewProcessor;
   private final AggregatedViewDefinitionManager _aggregatedViewDefManager;
   private final MarketDataSnapshotMaster _snapshotMaster;
-  private final Map<String, AnalyticsViewClientConnection> _viewConnections = new ConcurrentHashMap<String, AnalyticsViewClientConnection>();
+  /** The open views keyed by view ID. */
+  private final Map<String, ViewHandle> _views = new ConcurrentHashMap<String, ViewHandle>();
+  /** Subscriptions to the engine shared by the views a user opens with the same request, guarded by this manager. */
+  private final Map<Pair<UserPrincipal, ViewRequest>, SharedSubscription> _subscriptions = Maps.newHashMap();
   private final ComputationTargetResolver _targetResolver;
   private final NamedMarketDataSpecificationRepository _marketDataSpecificationRepository;
 
@@ -61,7 +68,9 @@ public class AnalyticsViewManager {
   }
 
   /**
-   * Creates a new view.
+   * Creates a new view. Views created by the same user with equal requests share a connection to the engine and a
+   * results cache, each view has its own grids and viewports. Views belonging to different users never share a
+   * connection because the engine's view client is created with the user's identity.
    * @param request Details of the view
    * @param clientId ID of the client connection
    * @param user User requesting the view
@@ -79,25 +88,46 @@ public class AnalyticsViewManager {
                          Object viewCallbackId,
                          String portfolioGridId,
                          String primitivesGridId) {
-    if (_viewConnections.containsKey(viewId)) {
-      throw new IllegalArgumentException("View ID " + viewId + " is already in use");
+    ArgumentChecker.notNull(request, "request");
+    synchronized (this) {
+      if (_views.containsKey(viewId)) {
+        throw new IllegalArgumentException("View ID " + viewId + " is already in use");
+      }
+      Pair<UserPrincipal, ViewRequest> subscriptionKey = Pair.of(user, request);
+      SharedSubscription subscription = _subscriptions.get(subscriptionKey);
+      boolean newSubscription = (subscription == null);
+      if (newSubscription) {
+        ViewClient viewClient = _viewProcessor.createViewClient(user);
+        AnalyticsViewClientConnection connection = new AnalyticsViewClientConnection(request,
+                                                                                     viewClient,
+                                                                                     _marketDataSpecificationRepository,
+                                                                                     _aggregatedViewDefManager,
+                                                                                     _snapshotMaster);
+        subscription = new SharedSubscription(connection);
+        _subscriptions.put(subscriptionKey, subscription);
+        s_logger.debug("Client ID {} creating new view with ID {}", clientId, viewId);
+      } else {
+        s_logger.debug("Client ID {} creating new view with ID {} sharing an existing view client", clientId, viewId);
+      }
+      SimpleAnalyticsView view =
+          new SimpleAnalyticsView(viewId, portfolioGridId, primitivesGridId, _targetResolver, subscription._cache);
+      AnalyticsView lockingView = new LockingAnalyticsView(view, subscription._lock);
+      AnalyticsView notifyingView = new NotifyingAnalyticsView(lockingView, clientConnection);
+      _views.put(viewId, new ViewHandle(subscriptionKey, view, notifyingView, subscription));
+      // need to notify the listener that the view has been created
+      // TODO would it be neater to leave this to the constructor of NotifyingAnalyticsView
+      clientConnection.itemUpdated(viewCallbackId);
+      subscription._connection.addView(notifyingView);
+      if (newSubscription) {
+        try {
+          subscription._connection.start();
+        } catch (RuntimeException e) {
+          _views.remove(viewId);
+          _subscriptions.remove(subscriptionKey);
+          throw e;
+        }
+      }
     }
-    ViewClient viewClient = _viewProcessor.createViewClient(user);
-    s_logger.debug("Client ID {} creating new view with ID {}", clientId, viewId);
-    AnalyticsView view = new SimpleAnalyticsView(viewId, portfolioGridId, primitivesGridId, _targetResolver);
-    AnalyticsView lockingView = new LockingAnalyticsView(view);
-    AnalyticsView notifyingView = new NotifyingAnalyticsView(lockingView, clientConnection);
-    AnalyticsViewClientConnection connection = new AnalyticsViewClientConnection(request,
-                                                                                 viewClient,
-                                                                                 notifyingView,
-                                                                                 _marketDataSpecificationRepository,
-                                                                                 _aggregatedViewDefManager,
-                                                                                 _snapshotMaster);
-    _viewConnections.put(viewId, connection);
-    // need to notify the listener that the view has been created
-    // TODO would it be neater to leave this to the constructor of NotifyingAnalyticsView
-    clientConnection.itemUpdated(viewCallbackId);
-    connection.start();
     clientConnection.addDisconnectionListener(new DisconnectionListener(viewId));
   }
 
@@ -107,12 +137,9 @@ public class AnalyticsViewManager {
    * @throws DataNotFoundException If there's no view with the specified ID
    */
   public void deleteView(String viewId) {
-    AnalyticsViewClientConnection connection = _viewConnections.remove(viewId);
-    if (connection == null) {
+    if (!closeView(viewId)) {
       throw new DataNotFoundException("No view found with ID " + viewId);
     }
-    s_logger.debug("Closing view with ID {}", viewId);
-    connection.close();
   }
 
   /**
@@ -122,11 +149,76 @@ public class AnalyticsViewManager {
    * @throws DataNotFoundException If there's no view with the specified ID
    */
   public AnalyticsView getView(String viewId) {
-    AnalyticsViewClientConnection connection = _viewConnections.get(viewId);
-    if (connection == null) {
+    ViewHandle handle = _views.get(viewId);
+    if (handle == null) {
       throw new DataNotFoundException("No view found with ID " + viewId);
     }
-    return connection.getView();
+    return handle._notifyingView;
+  }
+
+  /**
+   * Closes a view, closing its connection to the engine if no other views are sharing it.
+   * @param viewId ID of the view
+   * @return true if the view was found
+   */
+  private synchronized boolean closeView(String viewId) {
+    ViewHandle handle = _views.remove(viewId);
+    if (handle == null) {
+      return false;
+    }
+    s_logger.debug("Closing view with ID {}", viewId);
+    SharedSubscription subscription = handle._subscription;
+    // stop the cache keeping items for the view's viewports
+    subscription._lock.writeLock().lock();
+    try {
+      handle._view.close();
+    } finally {
+      subscription._lock.writeLock().unlock();
+    }
+    if (subscription._connection.removeView(handle._notifyingView)) {
+      s_logger.debug("Closing view client for {}, no views are using it", handle._subscriptionKey);
+      _subscriptions.remove(handle._subscriptionKey);
+      subscription._connection.close();
+    }
+    return true;
+  }
+
+  /**
+   * A connection to the engine and the results cache shared by the views a user opens with the same request.
+   */
+  private static final class SharedSubscription {
+
+    private final AnalyticsViewClientConnection _connection;
+    /** Only retains items for values in the viewports of the views sharing it. */
+    private final ResultsCache _cache = new ResultsCache(true);
+    /** Shared by the views because they all update the cache. */
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+
+    private SharedSubscription(AnalyticsViewClientConnection connection) {
+      _connection = connection;
+    }
+  }
+
+  /**
+   * The objects making up an open view.
+   */
+  private static final class ViewHandle {
+
+    /** The user and request whose subscription the view shares. */
+    private final Pair<UserPrincipal, ViewRequest> _subscriptionKey;
+    private final SimpleAnalyticsView _view;
+    private final AnalyticsView _notifyingView;
+    private final SharedSubscription _subscription;
+
+    private ViewHandle(Pair<UserPrincipal, ViewRequest> subscriptionKey,
+                       SimpleAnalyticsView view,
+                       AnalyticsView notifyingView,
+                       SharedSubscription subscription) {
+      _subscriptionKey = subscriptionKey;
+      _view = view;
+      _notifyingView = notifyingView;
+      _subscription = subscription;
+    }
   }
 
   /**
@@ -142,10 +234,8 @@ public class AnalyticsViewManager {
 
     @Override
     public void clientDisconnected() {
-      AnalyticsViewClientConnection connection = _viewConnections.remove(_viewId);
-      if (connection != null) {
-        s_logger.debug("Client disconnected, closing view with ID {}", _viewId);
-        connection.close();
+      if (closeView(_viewId)) {
+        s_logger.debug("Client disconnected, closed view with ID {}", _viewId);
       }
     }
   }
@@ -22,14 +22,24 @@ import com.opengamma.util.ArgumentChecker;
 /* package */ class LockingAnalyticsView implements AnalyticsView {
 
   private final AnalyticsView _delegate;
-  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+  private final ReadWriteLock _lock;
 
   /**
    * @param delegate The delegate view (presumably not a thread safe implementation)
    */
   /* package */ LockingAnalyticsView(AnalyticsView delegate) {
+    this(delegate, new ReentrantReadWriteLock());
+  }
+
+  /**
+   * @param delegate The delegate view (presumably not a thread safe implementation)
+   * @param lock The lock protecting the view, shared with any views that share state with the delegate
+   */
+  /* package */ LockingAnalyticsView(AnalyticsView delegate, ReadWriteLock lock) {
     ArgumentChecker.notNull(delegate, "delegate");
+    ArgumentChecker.notNull(lock, "lock");
     _delegate = delegate;
+    _lock = lock;
   }
 
   @Override
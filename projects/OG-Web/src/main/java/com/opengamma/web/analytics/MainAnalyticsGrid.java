@@ -8,6 +8,7 @@ package com.opengamma.web.analytics;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 
@@ -78,6 +79,17 @@ import com.opengamma.util.tuple.Pair;
     return updatedIds;
   }
 
+  /**
+   * Adds the values displayed in the viewports of the main grid to a map of value specifications keyed by
+   * calculation configuration name.
+   * @param viewportValues The map of values
+   */
+  /* package */ void addViewportValues(Map<String, Set<ValueSpecification>> viewportValues) {
+    for (MainGridViewport viewport : _viewports.values()) {
+      viewport.addViewportValues(viewportValues);
+    }
+  }
+
   /**
    * Updates a viewport on the main grid, e.g. in response the the user scrolling the grid.
    *
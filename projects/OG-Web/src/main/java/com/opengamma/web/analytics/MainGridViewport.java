@@ -5,10 +5,14 @@
  */
 package com.opengamma.web.analytics;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.tuple.Pair;
@@ -21,6 +25,8 @@ import com.opengamma.util.tuple.Pair;
   static final int LABEL_COLUMN = 0;
   /** Row and column structure of the grid. */
   private final MainGridStructure _gridStructure;
+  /** Sequence number of the latest results, incremented every time the results are updated. */
+  private long _sequenceNumber;
 
   /**
    * @param gridStructure Row and column structure of the grid
@@ -40,7 +46,9 @@ import com.opengamma.util.tuple.Pair;
    */
   /* package */ String updateResults(ResultsCache cache) {
     boolean updated = false;
+    _sequenceNumber++;
     List<ViewportResults.Cell> results = Lists.newArrayList();
+    BitSet updatedCells = new BitSet();
     for (GridCell cell : _viewportDefinition) {
       int rowIndex = cell.getRow();
       int colIndex = cell.getColumn();
@@ -57,6 +65,9 @@ import com.opengamma.util.tuple.Pair;
           ValueSpecification valueSpec = cellTarget.getSecond();
           ResultsCache.Result cacheResult = cache.getResult(calcConfigName, valueSpec, columnType);
           updated = updated || cacheResult.isUpdated();
+          if (cacheResult.isUpdated()) {
+            updatedCells.set(results.size());
+          }
           results.add(ViewportResults.valueCell(cacheResult.getValue(), valueSpec, cacheResult.getHistory(), colIndex));
         } else {
           Collection<Object> emptyHistory = cache.getEmptyHistory(columnType);
@@ -64,10 +75,24 @@ import com.opengamma.util.tuple.Pair;
         }
       }
     }
+    // cells keep the sequence number of the results they last changed in unless the viewport has been redefined
+    boolean sameCells = _latestResults != null &&
+        _latestResults.getViewportDefinition() == _viewportDefinition &&
+        _latestResults.getResults().size() == results.size();
+    long[] cellSequenceNumbers = new long[results.size()];
+    for (int i = 0; i < cellSequenceNumbers.length; i++) {
+      if (sameCells && !updatedCells.get(i)) {
+        cellSequenceNumbers[i] = _latestResults.getCellSequenceNumber(i);
+      } else {
+        cellSequenceNumbers[i] = _sequenceNumber;
+      }
+    }
     _latestResults = new ViewportResults(results,
                                          _viewportDefinition,
                                          _gridStructure.getColumnStructure(),
-                                         cache.getLastCalculationDuration());
+                                         cache.getLastCalculationDuration(),
+                                         _sequenceNumber,
+                                         cellSequenceNumbers);
     if (updated) {
       return _callbackId;
     } else {
@@ -75,6 +100,32 @@ import com.opengamma.util.tuple.Pair;
     }
   }
 
+  /**
+   * Adds the values displayed in this viewport's cells to a map of value specifications keyed by calculation
+   * configuration name.
+   * @param viewportValues The map of values
+   */
+  /* package */ void addViewportValues(Map<String, Set<ValueSpecification>> viewportValues) {
+    if (_viewportDefinition == null) {
+      return;
+    }
+    for (GridCell cell : _viewportDefinition) {
+      int colIndex = cell.getColumn();
+      if (_gridStructure.isColumnFixed(colIndex)) {
+        continue;
+      }
+      Pair<String, ValueSpecification> cellTarget = _gridStructure.getTargetForCell(cell.getRow(), colIndex);
+      if (cellTarget != null) {
+        Set<ValueSpecification> calcConfigValues = viewportValues.get(cellTarget.getFirst());
+        if (calcConfigValues == null) {
+          calcConfigValues = Sets.newHashSet();
+          viewportValues.put(cellTarget.getFirst(), calcConfigValues);
+        }
+        calcConfigValues.add(cellTarget.getSecond());
+      }
+    }
+  }
+
   /**
    * Returns a result for the specified row and column.
    * @param rowIndex Index of the row
@@ -18,11 +18,13 @@ import org.apache.commons.collections.buffer.CircularFifoBuffer;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.ViewResultEntry;
 import com.opengamma.engine.view.ViewResultModel;
 import com.opengamma.engine.view.calcnode.MissingInput;
+import com.opengamma.id.UniqueId;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.money.CurrencyAmount;
 import com.opengamma.util.tuple.Pair;
@@ -32,6 +34,13 @@ import com.opengamma.util.tuple.Pair;
  * set of results is a full set and subsequent results are deltas. This cache maintains a full set of results
  * which includes every target that has ever had a value calculated. It also keeps track of which values were
  * updated in the previous calculation cycle.</p>
+ * <p>A cache created for viewports only creates cache items for values that are covered by a viewport or have
+ * history. The latest values of everything else are kept as they are received and are moved into cache items when
+ * a viewport scrolls over them, so the cost of ingesting a cycle's results doesn't depend on the size of the
+ * view.</p>
+ * <p>A cache can be shared by the views of several users looking at the same view process. Each set of results is
+ * only put into the cache once however many views receive it and the values covered by the viewports of all the
+ * views are cached as items.</p>
  * <p>This class isn't thread safe.</p>
  */
 /* package */ class ResultsCache {
@@ -48,64 +57,143 @@ import com.opengamma.util.tuple.Pair;
   /** Empty result for types that have history, makes for cleaner code than using null. */
   private static final Result s_emptyResultWithHistory = Result.emptyWithHistory();
 
-  /** The cached results. */
-  private final Map<ResultKey, CacheItem> _results = Maps.newHashMap();
+  /** The cached results keyed by calculation configuration name. */
+  private final Map<String, CalcConfigResults> _results = Maps.newHashMap();
 
-  /** ID that's incremented each time results are received, used for keeping track of which items were updated. */
+  /** Whether cache items are only created for values covered by a viewport or with history. */
+  private final boolean _viewportValuesOnly;
+
+  /** ID that's incremented each time a cycle's results are received, used for keeping track of which items were updated. */
   private long _lastUpdateId = 0;
 
   /** Duration of the last calculation cycle. */
   private Duration _lastCalculationDuration = Duration.ZERO;
 
+  /** Time taken to put the last set of results into the cache. */
+  private Duration _lastIngestDuration = Duration.ZERO;
+
+  /** ID of the calculation cycle that produced the last set of results, null if it didn't have one. */
+  private UniqueId _lastViewCycleId;
+
+  /** Values covered by viewports keyed by the view that owns the viewports. */
+  private final Map<Object, Map<String, Set<ValueSpecification>>> _viewportValuesByOwner = Maps.newHashMap();
+
+  /**
+   * Creates a cache that creates cache items for every value it receives.
+   */
+  /* package */ ResultsCache() {
+    this(false);
+  }
+
+  /**
+   * @param viewportValuesOnly Whether cache items should only be created for values covered by the viewports
+   * set by {@link #setViewportValues} and values that have history
+   */
+  /* package */ ResultsCache(boolean viewportValuesOnly) {
+    _viewportValuesOnly = viewportValuesOnly;
+  }
+
   /**
    * Puts a set of results into the cache.
    * @param results The results, not null
    */
   /* package */ void put(ViewResultModel results) {
     ArgumentChecker.notNull(results, "results");
+    UniqueId viewCycleId = results.getViewCycleId();
+    if (viewCycleId != null && viewCycleId.equals(_lastViewCycleId)) {
+      // the results have already been put into the cache by another view sharing it
+      return;
+    }
+    _lastViewCycleId = viewCycleId;
+    long startTime = System.nanoTime();
     _lastUpdateId++;
     _lastCalculationDuration = results.getCalculationDuration();
     List<ViewResultEntry> allResults = results.getAllResults();
+    String calcConfigName = null;
+    CalcConfigResults calcConfigResults = null;
     for (ViewResultEntry result : allResults) {
+      // the entries are grouped by calculation configuration so this only looks up the configuration when it changes
+      if (calcConfigResults == null || !calcConfigName.equals(result.getCalculationConfiguration())) {
+        calcConfigName = result.getCalculationConfiguration();
+        calcConfigResults = getCalcConfigResults(calcConfigName);
+      }
       ComputedValue computedValue = result.getComputedValue();
-      put(result.getCalculationConfiguration(), computedValue.getSpecification(), computedValue.getValue());
+      calcConfigResults.put(computedValue.getSpecification(), computedValue.getValue());
     }
+    _lastIngestDuration = Duration.ofNanos(System.nanoTime() - startTime);
   }
 
   /**
-   * Puts a set of results into the cache.
+   * Puts a set of results from a dependency graph into the cache. The values were calculated by the same cycle as
+   * the last set of results so they don't advance the update ID. If they did, the values from the last results would
+   * no longer be flagged as updated for any viewport that reads them after a dependency graph has been updated.
    * @param calcConfigName The name of the calculation configuration used to calculate the results
    * @param results The results
    * @param duration Duration of the calculation cycle that produced the results
    */
   /* package */ void put(String calcConfigName, List<Pair<ValueSpecification, Object>> results, Duration duration) {
-    _lastUpdateId++;
+    long startTime = System.nanoTime();
     _lastCalculationDuration = duration;
+    CalcConfigResults calcConfigResults = getCalcConfigResults(calcConfigName);
     for (Pair<ValueSpecification, Object> result : results) {
       ValueSpecification spec = result.getFirst();
       Object value = result.getSecond();
-      put(calcConfigName, spec, value);
+      calcConfigResults.putIfNotUpdated(spec, value);
+    }
+    _lastIngestDuration = Duration.ofNanos(System.nanoTime() - startTime);
+  }
+
+  private CalcConfigResults getCalcConfigResults(String calcConfigName) {
+    CalcConfigResults calcConfigResults = _results.get(calcConfigName);
+    if (calcConfigResults == null) {
+      calcConfigResults = new CalcConfigResults();
+      _results.put(calcConfigName, calcConfigResults);
     }
+    return calcConfigResults;
   }
 
   /**
-   * Puts a single value into the cache.
-   * @param calcConfigName The name of the calculation configuration used to calculate the results
-   * @param spec The value's specification
-   * @param value The value
+   * Sets the values covered by the viewports of a view. Cache items are created for the latest values that are newly
+   * covered by any view's viewports and values without history that are no longer covered are kept without an item.
+   * This has no effect on a cache that creates items for every value.
+   * @param owner The view that owns the viewports, not null
+   * @param viewportValues The value specifications covered by the view's viewports keyed by calculation
+   * configuration name, not null
    */
-  private void put(String calcConfigName, ValueSpecification spec, Object value) {
-    ResultKey key = new ResultKey(calcConfigName, spec);
-    CacheItem cacheResult = _results.get(key);
-    if (cacheResult == null) {
-      // don't create an item for an error value
-      if (value instanceof MissingInput) {
-        return;
-      }
-      CacheItem newResult = CacheItem.forValue(value, _lastUpdateId);
-      _results.put(key, newResult);
+  /* package */ void setViewportValues(Object owner, Map<String, Set<ValueSpecification>> viewportValues) {
+    ArgumentChecker.notNull(owner, "owner");
+    ArgumentChecker.notNull(viewportValues, "viewportValues");
+    if (!_viewportValuesOnly) {
+      return;
+    }
+    if (viewportValues.isEmpty()) {
+      _viewportValuesByOwner.remove(owner);
     } else {
-      cacheResult.setLatestValue(value, _lastUpdateId);
+      _viewportValuesByOwner.put(owner, viewportValues);
+    }
+    Map<String, Set<ValueSpecification>> allViewportValues;
+    if (_viewportValuesByOwner.size() == 1) {
+      allViewportValues = _viewportValuesByOwner.values().iterator().next();
+    } else {
+      allViewportValues = Maps.newHashMap();
+      for (Map<String, Set<ValueSpecification>> ownerValues : _viewportValuesByOwner.values()) {
+        for (Map.Entry<String, Set<ValueSpecification>> entry : ownerValues.entrySet()) {
+          Set<ValueSpecification> calcConfigValues = allViewportValues.get(entry.getKey());
+          if (calcConfigValues == null) {
+            calcConfigValues = Sets.newHashSet();
+            allViewportValues.put(entry.getKey(), calcConfigValues);
+          }
+          calcConfigValues.addAll(entry.getValue());
+        }
+      }
+    }
+    for (Map.Entry<String, CalcConfigResults> entry : _results.entrySet()) {
+      if (!allViewportValues.containsKey(entry.getKey())) {
+        entry.getValue().setViewportValues(Collections.<ValueSpecification>emptySet());
+      }
+    }
+    for (Map.Entry<String, Set<ValueSpecification>> entry : allViewportValues.entrySet()) {
+      getCalcConfigResults(entry.getKey()).setViewportValues(entry.getValue());
     }
   }
 
@@ -130,20 +218,54 @@ import com.opengamma.util.tuple.Pair;
    * @return A cache result, not null
    */
   /* package */ Result getResult(String calcConfigName, ValueSpecification valueSpec, Class<?> columnType) {
-    CacheItem item = _results.get(new ResultKey(calcConfigName, valueSpec));
+    CalcConfigResults calcConfigResults = _results.get(calcConfigName);
+    CacheItem item = calcConfigResults != null ? calcConfigResults._items.get(valueSpec) : null;
     if (item != null) {
       // flag whether this result was updated by the last set of results that were put into the cache
       boolean updatedByLastResults = (item.getLastUpdateId() == _lastUpdateId);
       return new Result(item.getValue(), item.getHistory(), updatedByLastResults);
+    }
+    Object pendingValue = calcConfigResults != null ? calcConfigResults._pendingValues.get(valueSpec) : null;
+    if (pendingValue != null) {
+      // the value is new to the viewport asking for it so it's flagged as updated
+      return new Result(pendingValue, null, true);
+    }
+    if (s_historyTypes.contains(columnType)) {
+      return s_emptyResultWithHistory;
     } else {
-      if (s_historyTypes.contains(columnType)) {
-        return s_emptyResultWithHistory;
-      } else {
-        return s_emptyResult;
-      }
+      return s_emptyResult;
     }
   }
 
+  /**
+   * @return Time taken to put the last set of results into the cache
+   */
+  public Duration getLastIngestDuration() {
+    return _lastIngestDuration;
+  }
+
+  /**
+   * @return The number of values stored as cache items, i.e. with their update state and history
+   */
+  public int getItemCount() {
+    int count = 0;
+    for (CalcConfigResults calcConfigResults : _results.values()) {
+      count += calcConfigResults._items.size();
+    }
+    return count;
+  }
+
+  /**
+   * @return The number of values that are only stored as their latest value until a viewport covers them
+   */
+  public int getPendingValueCount() {
+    int count = 0;
+    for (CalcConfigResults calcConfigResults : _results.values()) {
+      count += calcConfigResults._pendingValues.size();
+    }
+    return count;
+  }
+
   /**
    * @return Duration of the last calculation cycle
    */
@@ -284,38 +406,82 @@ import com.opengamma.util.tuple.Pair;
   }
 
   /**
-   * Immutable key for items in the cache, this is in implelemtation detail.
+   * The results calculated by one calculation configuration, this is an implementation detail.
    */
-  private static class ResultKey {
-
-    private final String _calcConfigName;
-    private final ValueSpecification _valueSpec;
+  private class CalcConfigResults {
 
-    private ResultKey(String calcConfigName, ValueSpecification valueSpec) {
-      _calcConfigName = calcConfigName;
-      _valueSpec = valueSpec;
-    }
+    /** Items for values covered by a viewport, with history, or in a cache that stores every value. */
+    private final Map<ValueSpecification, CacheItem> _items = Maps.newHashMap();
+    /** Latest values that don't have an item, only used by a cache that creates items for viewport values. */
+    private final Map<ValueSpecification, Object> _pendingValues = Maps.newHashMap();
+    /** The values covered by viewports. */
+    private Set<ValueSpecification> _viewportValues = Collections.emptySet();
 
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
+    /**
+     * Puts a single value into the cache.
+     * @param spec The value's specification
+     * @param value The value
+     */
+    private void put(ValueSpecification spec, Object value) {
+      CacheItem cacheResult = _items.get(spec);
+      if (cacheResult != null) {
+        cacheResult.setLatestValue(value, _lastUpdateId);
+        return;
       }
-      if (o == null || getClass() != o.getClass()) {
-        return false;
+      if (value instanceof MissingInput) {
+        // don't create an item for an error value but don't leave a stale value for a viewport either
+        if (_pendingValues.containsKey(spec)) {
+          _pendingValues.put(spec, value);
+        }
+        return;
       }
-      ResultKey resultKey = (ResultKey) o;
-      if (!_calcConfigName.equals(resultKey._calcConfigName)) {
-        return false;
+      if (!_viewportValuesOnly || s_historyTypes.contains(value.getClass()) || _viewportValues.contains(spec)) {
+        _items.put(spec, CacheItem.forValue(value, _lastUpdateId));
+        if (_viewportValuesOnly) {
+          _pendingValues.remove(spec);
+        }
+      } else {
+        _pendingValues.put(spec, value);
       }
-      return _valueSpec.equals(resultKey._valueSpec);
     }
 
-    @Override
-    public int hashCode() {
-      int result = _calcConfigName.hashCode();
-      result = 31 * result + _valueSpec.hashCode();
-      return result;
+    /**
+     * Puts a single value into the cache unless its item has already been updated with the last results. This stops
+     * a value being added to an item's history twice when the same cycle's value is put by a dependency graph.
+     * @param spec The value's specification
+     * @param value The value
+     */
+    private void putIfNotUpdated(ValueSpecification spec, Object value) {
+      CacheItem cacheResult = _items.get(spec);
+      if (cacheResult != null && cacheResult.getLastUpdateId() == _lastUpdateId) {
+        return;
+      }
+      put(spec, value);
+    }
+
+    /**
+     * Creates items for the values that are newly covered by viewports and removes the items for values that are no
+     * longer covered and don't have history.
+     * @param viewportValues The values covered by viewports
+     */
+    private void setViewportValues(Set<ValueSpecification> viewportValues) {
+      for (ValueSpecification spec : _viewportValues) {
+        if (!viewportValues.contains(spec)) {
+          CacheItem item = _items.get(spec);
+          if (item != null && item.getHistory() == null) {
+            _items.remove(spec);
+            _pendingValues.put(spec, item.getValue());
+          }
+        }
+      }
+      for (ValueSpecification spec : viewportValues) {
+        Object pendingValue = _pendingValues.remove(spec);
+        if (pendingValue != null) {
+          // the value is new to the viewport that covers it so it's flagged as updated
+          _items.put(spec, CacheItem.forValue(pendingValue, _lastUpdateId));
+        }
+      }
+      _viewportValues = viewportValues;
     }
   }
 }
@@ -6,13 +6,18 @@
 package com.opengamma.web.analytics;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.ViewResultModel;
 import com.opengamma.engine.view.calc.ViewCycle;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
@@ -29,7 +34,7 @@ import com.opengamma.util.ArgumentChecker;
 
   private static final Logger s_logger = LoggerFactory.getLogger(SimpleAnalyticsView.class);
 
-  private final ResultsCache _cache = new ResultsCache();
+  private final ResultsCache _cache;
   private final ComputationTargetResolver _targetResolver;
   private final String _viewId;
 
@@ -49,12 +54,32 @@ import com.opengamma.util.ArgumentChecker;
                                     String portoflioCallbackId,
                                     String primitivesCallbackId,
                                     ComputationTargetResolver targetResolver) {
+    this(viewId, portoflioCallbackId, primitivesCallbackId, targetResolver, new ResultsCache(true));
+  }
+
+  /**
+   * @param viewId ID of the view
+   * @param portoflioCallbackId ID that is passed to the listener when the structure of the portfolio grid changes.
+   * This class makes no assumptions about its value
+   * @param primitivesCallbackId ID that is passed to the listener when the structure of the primitives grid changes.
+   * This class makes no assumptions about its value
+   * @param targetResolver For looking up calculation targets by specification
+   * @param cache Cache of the results, can be shared with other views receiving the same results. All the views
+   * sharing a cache must be protected by the same lock.
+   */
+  /* package */ SimpleAnalyticsView(String viewId,
+                                    String portoflioCallbackId,
+                                    String primitivesCallbackId,
+                                    ComputationTargetResolver targetResolver,
+                                    ResultsCache cache) {
     _viewId = viewId;
     ArgumentChecker.notEmpty(viewId, "viewId");
     ArgumentChecker.notEmpty(portoflioCallbackId, "portoflioGridId");
     ArgumentChecker.notEmpty(primitivesCallbackId, "primitivesGridId");
     ArgumentChecker.notNull(targetResolver, "targetResolver");
+    ArgumentChecker.notNull(cache, "cache");
     _targetResolver = targetResolver;
+    _cache = cache;
     _portfolioGrid = PortfolioAnalyticsGrid.empty(portoflioCallbackId);
     _primitivesGrid = PrimitivesAnalyticsGrid.empty(primitivesCallbackId);
   }
@@ -71,18 +96,39 @@ import com.opengamma.util.ArgumentChecker;
     gridIds.add(_primitivesGrid.getCallbackId());
     gridIds.addAll(_portfolioGrid.getDependencyGraphCallbackIds());
     gridIds.addAll(_primitivesGrid.getDependencyGraphCallbackIds());
+    updateViewportValues();
     return gridIds;
   }
 
   @Override
   public List<String> updateResults(ViewResultModel results, ViewCycle viewCycle) {
     _cache.put(results);
+    s_logger.debug("View {} put results into the cache in {}, {} cache items, {} values not in a viewport",
+                   new Object[]{_viewId, _cache.getLastIngestDuration(), _cache.getItemCount(), _cache.getPendingValueCount()});
     List<String> updatedIds = Lists.newArrayList();
     updatedIds.addAll(_portfolioGrid.updateResults(_cache, viewCycle));
     updatedIds.addAll(_primitivesGrid.updateResults(_cache, viewCycle));
     return updatedIds;
   }
 
+  /**
+   * Removes this view's viewports from the results cache, which might be shared with other views.
+   */
+  /* package */ void close() {
+    _cache.setViewportValues(this, Collections.<String, Set<ValueSpecification>>emptyMap());
+  }
+
+  /**
+   * Tells the cache which values are displayed in the viewports of the main grids so it only has to create cache
+   * items for those values. This must be called whenever a main grid viewport is created, updated or deleted.
+   */
+  private void updateViewportValues() {
+    Map<String, Set<ValueSpecification>> viewportValues = Maps.newHashMap();
+    _portfolioGrid.addViewportValues(viewportValues);
+    _primitivesGrid.addViewportValues(viewportValues);
+    _cache.setViewportValues(this, viewportValues);
+  }
+
   private MainAnalyticsGrid getGrid(GridType gridType) {
     switch (gridType) {
       case PORTFORLIO:
@@ -104,6 +150,7 @@ import com.opengamma.util.ArgumentChecker;
   @Override
   public boolean createViewport(int requestId, GridType gridType, int viewportId, String callbackId, ViewportDefinition viewportDefinition) {
     boolean hasData = getGrid(gridType).createViewport(viewportId, callbackId, viewportDefinition);
+    updateViewportValues();
     s_logger.debug("View {} created viewport ID {} for the {} grid from {}",
                    new Object[]{_viewId, viewportId, gridType, viewportDefinition});
     return hasData;
@@ -113,13 +160,16 @@ import com.opengamma.util.ArgumentChecker;
   public String updateViewport(GridType gridType, int viewportId, ViewportDefinition viewportDefinition) {
     s_logger.debug("View {} updating viewport {} for {} grid to {}",
                    new Object[]{_viewId, viewportId, gridType, viewportDefinition});
-    return getGrid(gridType).updateViewport(viewportId, viewportDefinition);
+    String callbackId = getGrid(gridType).updateViewport(viewportId, viewportDefinition);
+    updateViewportValues();
+    return callbackId;
   }
 
   @Override
   public void deleteViewport(GridType gridType, int viewportId) {
     s_logger.debug("View {} deleting viewport {} from the {} grid", new Object[]{_viewId, viewportId, gridType});
     getGrid(gridType).deleteViewport(viewportId);
+    updateViewportValues();
   }
 
   @Override
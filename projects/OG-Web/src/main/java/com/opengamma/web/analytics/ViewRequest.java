@@ -9,6 +9,8 @@ import java.util.List;
 
 import javax.time.Instant;
 
+import org.apache.commons.lang.ObjectUtils;
+
 import com.google.common.collect.ImmutableList;
 import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
 import com.opengamma.id.UniqueId;
@@ -90,4 +92,49 @@ public class ViewRequest {
   public VersionCorrection getPortfolioVersionCorrection() {
     return _portfolioVersionCorrection;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ViewRequest that = (ViewRequest) o;
+    if (!_viewDefinitionId.equals(that._viewDefinitionId)) {
+      return false;
+    }
+    if (!_aggregators.equals(that._aggregators)) {
+      return false;
+    }
+    if (!_marketDataSpecs.equals(that._marketDataSpecs)) {
+      return false;
+    }
+    if (!_portfolioVersionCorrection.equals(that._portfolioVersionCorrection)) {
+      return false;
+    }
+    return ObjectUtils.equals(_valuationTime, that._valuationTime);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = _viewDefinitionId.hashCode();
+    result = 31 * result + _aggregators.hashCode();
+    result = 31 * result + _marketDataSpecs.hashCode();
+    result = 31 * result + _portfolioVersionCorrection.hashCode();
+    result = 31 * result + ObjectUtils.hashCode(_valuationTime);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ViewRequest [" +
+        "_viewDefinitionId=" + _viewDefinitionId +
+        ", _aggregators=" + _aggregators +
+        ", _marketDataSpecs=" + _marketDataSpecs +
+        ", _valuationTime=" + _valuationTime +
+        ", _portfolioVersionCorrection=" + _portfolioVersionCorrection +
+        "]";
+  }
 }
@@ -29,8 +29,15 @@ public class ViewportResults {
   private final ViewportDefinition _viewportDefinition;
   /** Duration of the last calculation cycle. */
   private final Duration _calculationDuration;
+  /** Sequence number of the results, incremented by the viewport each time its results are updated. */
+  private final long _sequenceNumber;
+  /** Sequence number of the results in which each cell last changed, null if changes aren't tracked. */
+  private final long[] _cellSequenceNumbers;
+  /** Only cells that changed after this sequence number are sent to the client, -1 to send every cell. */
+  private final long _changesSince;
 
   /**
+   * Creates results that don't track which cells have changed, every cell is always sent to the client.
    * @param allResults Cells in the viewport containing the data, history and the value specification. The outer
    * list contains the data by rows and the inner lists contain the data for each row
    * @param viewportDefinition Definition of the rows and columns in the viewport
@@ -40,6 +47,38 @@ public class ViewportResults {
                                 ViewportDefinition viewportDefinition,
                                 AnalyticsColumnGroups columns,
                                 Duration calculationDuration) {
+    this(allResults, viewportDefinition, columns, calculationDuration, 0, null, -1);
+  }
+
+  /**
+   * Creates results that track which cells have changed so the client can be sent the cells that have changed since
+   * the last results it received.
+   * @param allResults Cells in the viewport containing the data, history and the value specification
+   * @param viewportDefinition Definition of the rows and columns in the viewport
+   * @param columns The columns in the viewport's grid
+   * @param calculationDuration Duration of the last calculation cycle
+   * @param sequenceNumber Sequence number of the results
+   * @param cellSequenceNumbers Sequence number of the results in which each cell last changed, the same length as
+   * {@code allResults}
+   */
+  /* package */ ViewportResults(List<Cell> allResults,
+                                ViewportDefinition viewportDefinition,
+                                AnalyticsColumnGroups columns,
+                                Duration calculationDuration,
+                                long sequenceNumber,
+                                long[] cellSequenceNumbers) {
+    this(allResults, viewportDefinition, columns, calculationDuration, sequenceNumber, cellSequenceNumbers, -1);
+    ArgumentChecker.notNull(cellSequenceNumbers, "cellSequenceNumbers");
+    ArgumentChecker.isTrue(cellSequenceNumbers.length == allResults.size(), "One sequence number is required per cell");
+  }
+
+  private ViewportResults(List<Cell> allResults,
+                          ViewportDefinition viewportDefinition,
+                          AnalyticsColumnGroups columns,
+                          Duration calculationDuration,
+                          long sequenceNumber,
+                          long[] cellSequenceNumbers,
+                          long changesSince) {
     ArgumentChecker.notNull(allResults, "allResults");
     ArgumentChecker.notNull(columns, "columns");
     ArgumentChecker.notNull(viewportDefinition, "viewportDefinition");
@@ -48,6 +87,62 @@ public class ViewportResults {
     _viewportDefinition = viewportDefinition;
     _columns = columns;
     _calculationDuration = calculationDuration;
+    _sequenceNumber = sequenceNumber;
+    _cellSequenceNumbers = cellSequenceNumbers;
+    _changesSince = changesSince;
+  }
+
+  /**
+   * Returns the same results restricted to the cells that have changed since a set of results the client has
+   * already received. All cells are included if these results don't track changes or the viewport has been
+   * redefined since the client's results.
+   * @param sequenceNumber Sequence number of the last results the client received, negative if it hasn't received any
+   * @return The results that need to be sent to the client
+   */
+  public ViewportResults changesSince(long sequenceNumber) {
+    if (_cellSequenceNumbers == null || sequenceNumber < 0 || sequenceNumber > _sequenceNumber) {
+      return this;
+    }
+    return new ViewportResults(_allResults, _viewportDefinition, _columns, _calculationDuration,
+                               _sequenceNumber, _cellSequenceNumbers, sequenceNumber);
+  }
+
+  /**
+   * @return true if only the cells that have changed since the client's last results should be sent
+   */
+  /* package */ boolean isDelta() {
+    return _changesSince >= 0;
+  }
+
+  /**
+   * @return true if the results track which cells have changed and therefore have a meaningful sequence number
+   */
+  /* package */ boolean isTrackingChanges() {
+    return _cellSequenceNumbers != null;
+  }
+
+  /**
+   * @return Sequence number of the results, the client sends it back to request the cells that change after it
+   */
+  /* package */ long getSequenceNumber() {
+    return _sequenceNumber;
+  }
+
+  /**
+   * @param cellIndex Index of a cell in the list returned by {@link #getResults()}
+   * @return Whether the cell needs to be sent to the client
+   */
+  /* package */ boolean isChanged(int cellIndex) {
+    return _changesSince < 0 || _cellSequenceNumbers[cellIndex] > _changesSince;
+  }
+
+  /**
+   * @param cellIndex Index of a cell in the list returned by {@link #getResults()}
+   * @return Sequence number of the results in which the cell last changed, {@link #getSequenceNumber()} if changes
+   * aren't tracked
+   */
+  /* package */ long getCellSequenceNumber(int cellIndex) {
+    return _cellSequenceNumbers != null ? _cellSequenceNumbers[cellIndex] : _sequenceNumber;
   }
 
   /**
@@ -75,6 +170,13 @@ public class ViewportResults {
     return _viewportDefinition.getVersion();
   }
 
+  /**
+   * @return The definition of the viewport used when creating the results
+   */
+  /* package */ ViewportDefinition getViewportDefinition() {
+    return _viewportDefinition;
+  }
+
   /**
    * @param colIndex The column index in the grid (zero based)
    * @return The type of the specified column
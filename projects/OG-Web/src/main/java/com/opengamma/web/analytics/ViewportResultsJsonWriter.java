@@ -14,7 +14,6 @@ import java.util.Map;
 
 import org.json.JSONObject;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.opengamma.engine.value.ValueSpecification;
@@ -39,6 +38,8 @@ public class ViewportResultsJsonWriter {
   private static final String POSITION_ID = "positionId";
   private static final String NODE_ID = "nodeId";
   private static final String CALCULATION_DURATION = "calculationDuration";
+  private static final String SEQUENCE_NUMBER = "sequence";
+  private static final String CHANGES = "changes";
 
   private final ResultsFormatter _formatter;
   private final DoubleValueOptionalDecimalPlaceFormatter _durationFormatter = new DoubleValueOptionalDecimalPlaceFormatter();
@@ -47,45 +48,70 @@ public class ViewportResultsJsonWriter {
     _formatter = formatter;
   }
 
+  /**
+   * Returns the JSON for a set of results. If the results are a delta the data is a map of the changed cells keyed
+   * by their index in the viewport, otherwise it's a list of all the cells.
+   * @param viewportResults The results
+   * @return JSON for the results
+   */
   public String getJson(ViewportResults viewportResults) {
     List<ViewportResults.Cell> viewportCells = viewportResults.getResults();
-    List<Object> results = Lists.newArrayListWithCapacity(viewportCells.size());
-    for (ViewportResults.Cell cell : viewportCells) {
-      Object formattedValue;
-      Object cellValue = cell.getValue();
-      ValueSpecification cellValueSpec = cell.getValueSpecification();
-      formattedValue = _formatter.format(cellValue, cellValueSpec, viewportResults.getFormat());
-      Collection<Object> history = cell.getHistory();
-      Class<?> columnType = viewportResults.getColumnType(cell.getColumn());
-      DataType columnFormat = _formatter.getDataType(columnType);
-      Map<String, Object> valueMap = Maps.newHashMap();
-      valueMap.put(VALUE, formattedValue);
-      if (columnFormat == UNKNOWN) {
-        // if the the column type isn't known then send the type with the value
-        valueMap.put(TYPE, _formatter.getDataTypeForValue(cellValue, cellValueSpec).name());
-      }
-      if (history != null) {
-        valueMap.put(HISTORY, formatHistory(cellValueSpec, history));
-      }
-      if (cell.isError() || isError(formattedValue)) {
-        valueMap.put(ERROR, true);
+    Object data;
+    if (viewportResults.isDelta()) {
+      Map<String, Object> changedCells = Maps.newHashMap();
+      for (int i = 0; i < viewportCells.size(); i++) {
+        if (viewportResults.isChanged(i)) {
+          changedCells.put(Integer.toString(i), formatCell(viewportResults, viewportCells.get(i)));
+        }
       }
-      if (cell.getPositionId() != null) {
-        valueMap.put(POSITION_ID, cell.getPositionId());
+      data = changedCells;
+    } else {
+      List<Object> results = Lists.newArrayListWithCapacity(viewportCells.size());
+      for (ViewportResults.Cell cell : viewportCells) {
+        results.add(formatCell(viewportResults, cell));
       }
-      if (cell.getNodeId() != null) {
-        valueMap.put(NODE_ID, cell.getNodeId());
-      }
-      // TODO add logging metadata to results
-      results.add(valueMap);
+      data = results;
     }
     String duration = _durationFormatter.format(new BigDecimal(viewportResults.getCalculationDuration().toMillisLong()));
-    ImmutableMap<String, Object> resultsMap = ImmutableMap.of(VERSION, viewportResults.getVersion(),
-                                                              CALCULATION_DURATION, duration,
-                                                              DATA, results);
+    Map<String, Object> resultsMap = Maps.newHashMap();
+    resultsMap.put(VERSION, viewportResults.getVersion());
+    resultsMap.put(CALCULATION_DURATION, duration);
+    if (viewportResults.isTrackingChanges()) {
+      resultsMap.put(SEQUENCE_NUMBER, viewportResults.getSequenceNumber());
+    }
+    resultsMap.put(viewportResults.isDelta() ? CHANGES : DATA, data);
     return new JSONObject(resultsMap).toString();
   }
 
+  private Map<String, Object> formatCell(ViewportResults viewportResults, ViewportResults.Cell cell) {
+    Object cellValue = cell.getValue();
+    ValueSpecification cellValueSpec = cell.getValueSpecification();
+    Object formattedValue = _formatter.format(cellValue, cellValueSpec, viewportResults.getFormat());
+    Collection<Object> history = cell.getHistory();
+    Class<?> columnType = viewportResults.getColumnType(cell.getColumn());
+    DataType columnFormat = _formatter.getDataType(columnType);
+    Map<String, Object> valueMap = Maps.newHashMap();
+    valueMap.put(VALUE, formattedValue);
+    if (columnFormat == UNKNOWN) {
+      // if the the column type isn't known then send the type with the value
+      valueMap.put(TYPE, _formatter.getDataTypeForValue(cellValue, cellValueSpec).name());
+    }
+    if (history != null) {
+      valueMap.put(HISTORY, formatHistory(cellValueSpec, history));
+    }
+    if (cell.isError() || isError(formattedValue)) {
+      valueMap.put(ERROR, true);
+    }
+    if (cell.getPositionId() != null) {
+      valueMap.put(POSITION_ID, cell.getPositionId());
+    }
+    if (cell.getNodeId() != null) {
+      valueMap.put(NODE_ID, cell.getNodeId());
+    }
+    // TODO add logging metadata to results
+    return valueMap;
+  }
+
   private static boolean isError(Object value) {
     return value instanceof MissingInput;
   }
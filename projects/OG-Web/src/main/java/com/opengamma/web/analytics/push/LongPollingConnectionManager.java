@@ -45,11 +45,8 @@ public class LongPollingConnectionManager {
    */
   /* package */ boolean longPollHttpConnect(String userId, String clientId, Continuation continuation) {
     // TODO check args
-    LongPollingUpdateListener listener = _updateListeners.get(clientId);
+    LongPollingUpdateListener listener = getListener(userId, clientId);
     if (listener != null) {
-      if (!Objects.equal(userId, listener.getUserId())) {
-        throw new IllegalArgumentException("User ID " + userId + " doesn't correspond to client ID: " + clientId);
-      }
       listener.connect(continuation);
       return true;
     } else {
@@ -57,6 +54,45 @@ public class LongPollingConnectionManager {
     }
   }
 
+  /**
+   * Associates a streaming connection with a client so updates can be written to it as they arrive.
+   *
+   * @param userId The ID of the user
+   * @param clientId The client ID of the connection
+   * @param continuation For writing updates to the client, must be suspended with the response
+   * @return true if the connection was successful, false if the client ID doesn't correspond to
+   * an existing connection
+   */
+  /* package */ boolean streamingHttpConnect(String userId, String clientId, Continuation continuation) {
+    LongPollingUpdateListener listener = getListener(userId, clientId);
+    if (listener != null) {
+      listener.connectStreaming(continuation);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Called by the HTTP container when a streaming connection has been idle for the keep-alive period.
+   *
+   * @param clientId The client ID associated with the idle connection
+   * @param continuation The continuation associated with the idle HTTP connection
+   * @return true if the connection should stay open
+   */
+  /* package */ boolean streamingHttpKeepAlive(String clientId, Continuation continuation) {
+    LongPollingUpdateListener listener = _updateListeners.get(clientId);
+    return listener != null && listener.keepAlive(continuation);
+  }
+
+  private LongPollingUpdateListener getListener(String userId, String clientId) {
+    LongPollingUpdateListener listener = _updateListeners.get(clientId);
+    if (listener != null && !Objects.equal(userId, listener.getUserId())) {
+      throw new IllegalArgumentException("User ID " + userId + " doesn't correspond to client ID: " + clientId);
+    }
+    return listener;
+  }
+
   // for testing
   /* package */ boolean isClientConnected(String clientId) {
     LongPollingUpdateListener listener = _updateListeners.get(clientId);
@@ -5,6 +5,8 @@
  */
 package com.opengamma.web.analytics.push;
 
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.Collection;
 import java.util.Set;
 
@@ -22,6 +24,9 @@ import com.opengamma.util.ArgumentChecker;
  * If any updates arrive while there is no connection they are queued and sent as soon as the connection
  * is re-established.  If multiple updates for the same object are queued only one is sent.  All updates
  * only contain the REST URL of the updated object so they are identical.
+ * <p>The connection can also be a streaming connection which stays open after an update is sent.  Each update is
+ * written as a line of JSON and an empty line is written if there haven't been any updates for
+ * {@link #KEEP_ALIVE_PERIOD} milliseconds so the client doesn't have to make a request for every update.</p>
  */
 /* package */ class LongPollingUpdateListener implements UpdateListener {
 
@@ -29,6 +34,8 @@ import com.opengamma.util.ArgumentChecker;
 
   /** Key for the array of updated URLs in the JSON */
   static final String UPDATES = "updates";
+  /** Time in milliseconds after which a keep-alive is sent on an idle streaming connection */
+  /* package */ static final long KEEP_ALIVE_PERIOD = 20000;
 
   private final Object _lock = new Object();
   private final Set<Object> _updates = Sets.newHashSet();
@@ -37,6 +44,8 @@ import com.opengamma.util.ArgumentChecker;
   private final String _clientId;
 
   private Continuation _continuation;
+  /** Whether the continuation is for a streaming connection that stays open after sending an update */
+  private boolean _streaming;
 
   /**
    * Creates a new listener for a user.
@@ -63,14 +72,16 @@ import com.opengamma.util.ArgumentChecker;
   public void itemUpdated(Object callbackId) {
     ArgumentChecker.notNull(callbackId, "url");
     synchronized (_lock) {
+      boolean sent = false;
       if (_continuation != null) {
         try {
-          sendUpdate(formatUpdate(callbackId));
+          sent = sendUpdate(formatUpdate(callbackId));
         } catch (JSONException e) {
           // this shouldn't ever happen
           s_logger.warn("Unable to format callback ID as JSON: " + callbackId, e);
         }
-      } else {
+      }
+      if (!sent) {
         _updates.add(callbackId);
       }
     }
@@ -89,14 +100,16 @@ import com.opengamma.util.ArgumentChecker;
       return;
     }
     synchronized (_lock) {
+      boolean sent = false;
       if (_continuation != null) {
         try {
-          sendUpdate(formatUpdate(callbackIds));
+          sent = sendUpdate(formatUpdate(callbackIds));
         } catch (JSONException e) {
           // this shouldn't ever happen, the updates are all URLs
           s_logger.warn("Unable to format URLs as JSON. URLs: " + callbackIds, e);
         }
-      } else {
+      }
+      if (!sent) {
         _updates.addAll(callbackIds);
       }
     }
@@ -112,28 +125,111 @@ import com.opengamma.util.ArgumentChecker;
       _timeoutTask.reset();
       _continuation = continuation;
       _continuation.setTimeout(10000);
-      // if there are updates queued sent them immediately otherwise save the continuation until an update
-      if (!_updates.isEmpty()) {
-        try {
-          sendUpdate(formatUpdate(_updates));
-        } catch (JSONException e) {
-          // this shouldn't ever happen, the updates are all URLs
-          s_logger.warn("Unable to format updates as JSON. updates: " + _updates, e);
+      _streaming = false;
+      sendQueuedUpdates();
+    }
+  }
+
+  /**
+   * Invoked when a client establishes a streaming HTTP connection. The continuation must have been suspended with
+   * the response so the updates can be written to it.
+   * @param continuation The connection's continuation
+   */
+  /* package */ void connectStreaming(Continuation continuation) {
+    synchronized (_lock) {
+      _timeoutTask.reset();
+      if (_continuation != null && _continuation != continuation && _continuation.isSuspended()) {
+        // the client has opened a new connection, the old one won't receive any more updates
+        _continuation.complete();
+      }
+      _continuation = continuation;
+      _continuation.setTimeout(KEEP_ALIVE_PERIOD);
+      _streaming = true;
+      sendQueuedUpdates();
+    }
+  }
+
+  /**
+   * Invoked when a streaming connection has been idle for {@link #KEEP_ALIVE_PERIOD}. Writes an empty line to keep
+   * the connection open.
+   * @param continuation The connection's continuation
+   * @return true if the connection should stay open, false if it has been replaced or can't be written to
+   */
+  /* package */ boolean keepAlive(Continuation continuation) {
+    synchronized (_lock) {
+      if (continuation != _continuation) {
+        return false;
+      }
+      if (!write("")) {
+        _continuation = null;
+        return false;
+      }
+      _continuation.setTimeout(KEEP_ALIVE_PERIOD);
+      return true;
+    }
+  }
+
+  /**
+   * Sends any updates that were queued while the client wasn't connected.
+   */
+  private void sendQueuedUpdates() {
+    // if there are updates queued sent them immediately otherwise save the continuation until an update
+    if (!_updates.isEmpty()) {
+      try {
+        if (sendUpdate(formatUpdate(_updates))) {
+          _updates.clear();
         }
+      } catch (JSONException e) {
+        // this shouldn't ever happen, the updates are all URLs
+        s_logger.warn("Unable to format updates as JSON. updates: " + _updates, e);
         _updates.clear();
       }
     }
   }
 
   /**
-   * Adds {@code urls} to the connection's continuation and resumes it so the response is sent to the client.
+   * Sends an update to the client. A long-polling connection's continuation is resumed so the response is sent,
+   * a streaming connection has the update written to it as a line of text.
    * @param update URLs of the changed items
+   * @return true if the update was sent, false if the streaming connection couldn't be written to
    */
-  private void sendUpdate(String update) {
-    _continuation.setAttribute(LongPollingServlet.RESULTS, update);
-    _continuation.resume();
-    _continuation = null;
+  private boolean sendUpdate(String update) {
+    if (_streaming) {
+      if (!write(update)) {
+        _continuation = null;
+        return false;
+      }
+    } else {
+      _continuation.setAttribute(LongPollingServlet.RESULTS, update);
+      _continuation.resume();
+      _continuation = null;
+    }
     s_logger.debug("Sent update to client {}: {}", _clientId, update);
+    return true;
+  }
+
+  /**
+   * Writes a line to the streaming connection and flushes it.
+   * @param line The line
+   * @return true if the line was written, false if the connection is broken
+   */
+  private boolean write(String line) {
+    try {
+      PrintWriter writer = _continuation.getServletResponse().getWriter();
+      writer.write(line);
+      writer.write('\n');
+      writer.flush();
+      if (writer.checkError()) {
+        s_logger.debug("Streaming connection for client {} is closed", _clientId);
+        return false;
+      }
+    } catch (IOException e) {
+      s_logger.debug("Unable to write to streaming connection for client " + _clientId, e);
+      return false;
+    }
+    // the connection is open so the client is still there
+    _timeoutTask.reset();
+    return true;
   }
 
   // for testing
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.web.analytics.push;
+
+import java.io.IOException;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.continuation.Continuation;
+import org.eclipse.jetty.continuation.ContinuationSupport;
+
+/**
+ * Streams updates to a client over a single HTTP connection using Jetty continuations.  The response is never
+ * completed while the client is connected, each update is written as a line of JSON in the same format as
+ * {@link LongPollingServlet} and an empty line is written if the connection is idle.  This saves the client making
+ * a new request for every update.  The URL is assumed to be {@code <servlet path>/{clientId}}.
+ */
+public class StreamingServlet extends HttpServlet {
+
+  /** Serialization version. */
+  private static final long serialVersionUID = 1L;
+  /** Request parameter name. */
+  private static final String METHOD = "method";
+  /** Request parameter value. */
+  private static final String GET = "GET";
+
+  /**
+   * Manages connections for each client.
+   */
+  private LongPollingConnectionManager _connectionManager;
+
+  @Override
+  public void init(ServletConfig config) throws ServletException {
+    super.init(config);
+    _connectionManager = WebPushServletContextUtils.getLongPollingConnectionManager(config.getServletContext());
+  }
+
+  //-------------------------------------------------------------------------
+  // this is a hack to get round a problem with browsers caching GET requests even when they're told not to
+  @Override
+  protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    String method = req.getParameter(METHOD);
+    if (GET.equals(method)) {
+      doGet(req, resp);
+    } else {
+      resp.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    }
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Continuation continuation = ContinuationSupport.getContinuation(request);
+    if (continuation.isExpired()) {
+      // the connection has been idle, keep it open unless the client has gone or opened another connection
+      String clientId = (String) continuation.getAttribute(LongPollingServlet.CLIENT_ID);
+      if (clientId != null) {
+        continuation.suspend(response);
+        if (!_connectionManager.streamingHttpKeepAlive(clientId, continuation)) {
+          continuation.complete();
+        }
+      }
+      return;
+    }
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-cache");
+    // suspend with the response so the updates can be written to it from other threads
+    continuation.suspend(response); // always suspend before registration
+    // the handshake registers the client under the remote user so this checks the client belongs to the same user
+    String userId = request.getRemoteUser();
+    String clientId = LongPollingServlet.getClientId(request);
+    continuation.setAttribute(LongPollingServlet.CLIENT_ID, clientId);
+    boolean connected = (clientId != null) && _connectionManager.streamingHttpConnect(userId, clientId, continuation);
+    if (!connected) {
+      // couldn't get the client ID from the URL or the client ID didn't correspond to a known client
+      response.sendError(404, "Problem accessing " + request.getRequestURI() + ".  Reason: Unknown client ID " + clientId);
+      continuation.complete();
+    } else {
+      // commit the response so the client sees the connection is open before the first update
+      response.flushBuffer();
+    }
+  }
+}
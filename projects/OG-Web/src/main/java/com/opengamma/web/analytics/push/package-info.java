@@ -139,6 +139,14 @@
  * the notification arrives.  When the client re-establishes the connection the notifications will be delivered
  * immediately.</p>
  *
+ * <h2>Streaming Notifications</h2>
+ * <p>A client can instead make a single request to the streaming URL for its client ID.</p>
+ * <pre>
+ *   /streaming/{clientId}</pre>
+ * <p>The response is never completed while the client is connected.  Each notification is written to it as a line
+ * of JSON in the same format as above and an empty line is written if there haven't been any notifications for
+ * 20 seconds.</p>
+ *
  * <h2>Notifications Generated by Entities and Queries</h2>
  * <p>The URL used to make the original REST request is published when an entity or query changes (see example
  * above).</p>
@@ -150,6 +158,12 @@
  *   /jax/viewports/{viewportId}/data</pre>
  * <p>The format of the JSON returned from these URLs is unchanged from the Cometd implementation.  <em>TODO is
  * that documented anywhere?</em></p>
+ * <p>The data for a viewport includes a {@code sequence} number.  A client that has received data for a viewport
+ * can request only the cells that have changed since then by adding {@code changes} to the viewport URL:</p>
+ * <pre>
+ *   {viewportUrl}/changes?since={sequence}</pre>
+ * <p>The response contains a {@code changes} map of the changed cells keyed by their index in the viewport instead
+ * of the {@code data} list.  All cells are included if the viewport has been updated since the client's data.</p>
  *
  * <h1>Cancelling Subscriptions</h1>
  * <p>There is no way to unsubscribe for notifications for a particular URL.  When any notification is published
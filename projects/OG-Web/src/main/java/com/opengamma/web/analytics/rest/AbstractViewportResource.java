@@ -8,9 +8,12 @@ package com.opengamma.web.analytics.rest;
 import java.util.List;
 
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
 import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
 
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.web.analytics.AnalyticsView;
@@ -79,4 +82,19 @@ public abstract class AbstractViewportResource {
    */
   @GET
   public abstract ViewportResults getData();
+
+  /**
+   * Returns the cells whose data has changed since the last results the client received. The response contains
+   * a map of the changed cells keyed by their index in the viewport and the sequence number of the results, which
+   * the client sends with its next request.
+   * @param sequenceNumber Sequence number of the last results the client received, defaults to -1 if the client
+   * hasn't received any results, in which case every cell is returned
+   * @return The data that has changed since the client's results
+   */
+  @GET
+  @Path("changes")
+  public ViewportResults getChanges(@QueryParam("since") @DefaultValue("-1") long sequenceNumber) {
+    ViewportResults results = getData();
+    return results != null ? results.changesSince(sequenceNumber) : null;
+  }
 }
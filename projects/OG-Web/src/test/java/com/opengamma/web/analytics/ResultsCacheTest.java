@@ -12,10 +12,16 @@ import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.Duration;
 
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.opengamma.engine.ComputationTargetType;
 import com.opengamma.engine.value.ComputedValueResult;
@@ -25,6 +31,7 @@ import com.opengamma.engine.view.ExecutionLog;
 import com.opengamma.engine.view.InMemoryViewComputationResultModel;
 import com.opengamma.engine.view.cache.NotCalculatedSentinel;
 import com.opengamma.id.UniqueId;
+import com.opengamma.util.tuple.Pair;
 
 public class ResultsCacheTest {
 
@@ -123,4 +130,143 @@ public class ResultsCacheTest {
     assertEquals(1d, history.get(0));
     assertEquals(NotCalculatedSentinel.EVALUATION_ERROR, history.get(1));
   }
+
+  @Test
+  public void viewportValuesOnly() {
+    InMemoryViewComputationResultModel results1 = new InMemoryViewComputationResultModel();
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec1, "spec1value1", ExecutionLog.EMPTY));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec2, 1d, ExecutionLog.EMPTY));
+    ResultsCache cache = new ResultsCache(true);
+    cache.put(results1);
+
+    // values with history always have an item, others are pending until a viewport covers them
+    assertEquals(1, cache.getItemCount());
+    assertEquals(1, cache.getPendingValueCount());
+    ResultsCache.Result result1 = cache.getResult(CALC_CONFIG, _spec1, String.class);
+    assertEquals("spec1value1", result1.getValue());
+    assertTrue(result1.isUpdated());
+
+    Map<String, Set<ValueSpecification>> viewportValues = ImmutableMap.<String, Set<ValueSpecification>>of(CALC_CONFIG, Collections.singleton(_spec1));
+    cache.setViewportValues(this, viewportValues);
+    assertEquals(2, cache.getItemCount());
+    assertEquals(0, cache.getPendingValueCount());
+
+    InMemoryViewComputationResultModel results2 = new InMemoryViewComputationResultModel();
+    results2.addValue(CALC_CONFIG, new ComputedValueResult(_spec2, 2d, ExecutionLog.EMPTY));
+    cache.put(results2);
+    ResultsCache.Result result2 = cache.getResult(CALC_CONFIG, _spec1, String.class);
+    assertEquals("spec1value1", result2.getValue());
+    assertFalse(result2.isUpdated());
+    assertEquals(2, cache.getResult(CALC_CONFIG, _spec2, Double.class).getHistory().size());
+
+    // scrolling away keeps the latest value but not the item
+    cache.setViewportValues(this, Collections.<String, Set<ValueSpecification>>emptyMap());
+    assertEquals(1, cache.getItemCount());
+    assertEquals(1, cache.getPendingValueCount());
+    InMemoryViewComputationResultModel results3 = new InMemoryViewComputationResultModel();
+    results3.addValue(CALC_CONFIG, new ComputedValueResult(_spec1, "spec1value2", ExecutionLog.EMPTY));
+    cache.put(results3);
+    assertEquals("spec1value2", cache.getResult(CALC_CONFIG, _spec1, String.class).getValue());
+    assertEquals(1, cache.getItemCount());
+  }
+
+  @Test
+  public void sharedBetweenViews() {
+    ResultsCache cache = new ResultsCache(true);
+    Object view1 = new Object();
+    Object view2 = new Object();
+    cache.setViewportValues(view1, ImmutableMap.<String, Set<ValueSpecification>>of(CALC_CONFIG, Collections.singleton(_spec1)));
+    cache.setViewportValues(view2, ImmutableMap.<String, Set<ValueSpecification>>of(CALC_CONFIG, Collections.singleton(_spec2)));
+    InMemoryViewComputationResultModel results1 = new InMemoryViewComputationResultModel();
+    results1.setViewCycleId(UniqueId.of("Cycle", "1"));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec1, "spec1value1", ExecutionLog.EMPTY));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec2, "spec2value1", ExecutionLog.EMPTY));
+    // each view puts the results of every cycle, the second put is ignored
+    cache.put(results1);
+    cache.put(results1);
+    assertEquals(2, cache.getItemCount());
+    assertEquals(0, cache.getPendingValueCount());
+    assertTrue(cache.getResult(CALC_CONFIG, _spec1, String.class).isUpdated());
+
+    // closing one view only drops the values in its viewports
+    cache.setViewportValues(view2, Collections.<String, Set<ValueSpecification>>emptyMap());
+    assertEquals(1, cache.getItemCount());
+    assertEquals(1, cache.getPendingValueCount());
+    assertEquals("spec2value1", cache.getResult(CALC_CONFIG, _spec2, String.class).getValue());
+  }
+
+  /**
+   * A dependency graph puts its values after the main grid's results have been put. That mustn't hide the changes to
+   * the main grid's values from a viewport that's updated after the dependency graph.
+   */
+  @Test
+  public void dependencyGraphDoesntHideUpdates() {
+    ValueRequirement req3 = new ValueRequirement("req3", ComputationTargetType.POSITION, UniqueId.of("fake", "id3"));
+    ValueSpecification spec3 = new ValueSpecification(req3, "fn3");
+    ResultsCache cache = new ResultsCache();
+
+    InMemoryViewComputationResultModel results1 = new InMemoryViewComputationResultModel();
+    results1.setViewCycleId(UniqueId.of("Cycle", "1"));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec1, "spec1value1", ExecutionLog.EMPTY));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec2, 1d, ExecutionLog.EMPTY));
+    cache.put(results1);
+    // the dependency graph includes a value from the main results and an intermediate value
+    List<Pair<ValueSpecification, Object>> depGraphResults1 = Lists.<Pair<ValueSpecification, Object>>newArrayList(
+        Pair.<ValueSpecification, Object>of(_spec2, 1d),
+        Pair.<ValueSpecification, Object>of(spec3, "spec3value1"));
+    cache.put(CALC_CONFIG, depGraphResults1, Duration.ZERO);
+    assertTrue(cache.getResult(CALC_CONFIG, _spec1, String.class).isUpdated());
+    assertTrue(cache.getResult(CALC_CONFIG, _spec2, Double.class).isUpdated());
+    assertTrue(cache.getResult(CALC_CONFIG, spec3, String.class).isUpdated());
+    // the dependency graph's copy of a value isn't added to its history again
+    assertEquals(1, cache.getResult(CALC_CONFIG, _spec2, Double.class).getHistory().size());
+
+    InMemoryViewComputationResultModel results2 = new InMemoryViewComputationResultModel();
+    results2.setViewCycleId(UniqueId.of("Cycle", "2"));
+    results2.addValue(CALC_CONFIG, new ComputedValueResult(_spec1, "spec1value2", ExecutionLog.EMPTY));
+    cache.put(results2);
+    List<Pair<ValueSpecification, Object>> depGraphResults2 = Lists.<Pair<ValueSpecification, Object>>newArrayList(
+        Pair.<ValueSpecification, Object>of(_spec2, 1d),
+        Pair.<ValueSpecification, Object>of(spec3, "spec3value2"));
+    cache.put(CALC_CONFIG, depGraphResults2, Duration.ZERO);
+    ResultsCache.Result result1 = cache.getResult(CALC_CONFIG, _spec1, String.class);
+    assertEquals("spec1value2", result1.getValue());
+    assertTrue(result1.isUpdated());
+    assertTrue(cache.getResult(CALC_CONFIG, spec3, String.class).isUpdated());
+    assertEquals(2, cache.getResult(CALC_CONFIG, _spec2, Double.class).getHistory().size());
+  }
+
+  /**
+   * One view's dependency graph mustn't clear the updated flags of the values in another view sharing the cache.
+   */
+  @Test
+  public void dependencyGraphInSharedCache() {
+    ValueRequirement req3 = new ValueRequirement("req3", ComputationTargetType.POSITION, UniqueId.of("fake", "id3"));
+    ValueSpecification spec3 = new ValueSpecification(req3, "fn3");
+    ResultsCache cache = new ResultsCache(true);
+    Object view1 = new Object();
+    Object view2 = new Object();
+    cache.setViewportValues(view1, ImmutableMap.<String, Set<ValueSpecification>>of(CALC_CONFIG, Collections.singleton(_spec1)));
+    cache.setViewportValues(view2, ImmutableMap.<String, Set<ValueSpecification>>of(CALC_CONFIG, Collections.singleton(_spec2)));
+
+    InMemoryViewComputationResultModel results1 = new InMemoryViewComputationResultModel();
+    results1.setViewCycleId(UniqueId.of("Cycle", "1"));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec1, "spec1value1", ExecutionLog.EMPTY));
+    results1.addValue(CALC_CONFIG, new ComputedValueResult(_spec2, "spec2value1", ExecutionLog.EMPTY));
+    InMemoryViewComputationResultModel results2 = new InMemoryViewComputationResultModel();
+    results2.setViewCycleId(UniqueId.of("Cycle", "2"));
+    results2.addValue(CALC_CONFIG, new ComputedValueResult(_spec2, "spec2value2", ExecutionLog.EMPTY));
+    List<Pair<ValueSpecification, Object>> depGraphResults = Lists.<Pair<ValueSpecification, Object>>newArrayList(
+        Pair.<ValueSpecification, Object>of(spec3, "spec3value1"));
+
+    for (InMemoryViewComputationResultModel results : Lists.newArrayList(results1, results2)) {
+      // view1 has a dependency graph open and is updated before view2
+      cache.put(results);
+      cache.put(CALC_CONFIG, depGraphResults, Duration.ZERO);
+      cache.put(results);
+      assertTrue(cache.getResult(CALC_CONFIG, _spec2, String.class).isUpdated());
+    }
+    assertEquals("spec2value2", cache.getResult(CALC_CONFIG, _spec2, String.class).getValue());
+    assertFalse(cache.getResult(CALC_CONFIG, _spec1, String.class).isUpdated());
+  }
 }
@@ -118,4 +118,26 @@ public class ViewportResultsJsonWriterTest {
     String expectedJson = "{\"version\":0, \"calculationDuration\":\"1,234\", \"data\":[{\"v\":\"3.0\",\"h\":[1,null,3]}]}";
     assertTrue(JsonTestUtils.equal(new JSONObject(expectedJson), new JSONObject(json)));
   }
+
+  @Test
+  public void changedCells() throws JSONException {
+    ViewportDefinition viewportDefinition =
+        ViewportDefinition.create(0, ImmutableList.of(0, 1), ImmutableList.of(0), ImmutableList.<GridCell>of(), TypeFormatter.Format.CELL);
+    List<ViewportResults.Cell> results = ImmutableList.of(ViewportResults.valueCell("val1", _valueSpec, null, 0),
+                                                          ViewportResults.valueCell("val2", _valueSpec, null, 0));
+    ViewportResults viewportResults =
+        new ViewportResults(results, viewportDefinition, createColumns(String.class), DURATION, 3, new long[]{1, 3});
+
+    String fullJson = _writer.getJson(viewportResults);
+    String expectedFullJson = "{\"version\":0, \"calculationDuration\":\"1,234\", \"sequence\":3, \"data\":[{\"v\":\"val1\"},{\"v\":\"val2\"}]}";
+    assertTrue(JsonTestUtils.equal(new JSONObject(expectedFullJson), new JSONObject(fullJson)));
+
+    String deltaJson = _writer.getJson(viewportResults.changesSince(2));
+    String expectedDeltaJson = "{\"version\":0, \"calculationDuration\":\"1,234\", \"sequence\":3, \"changes\":{\"1\":{\"v\":\"val2\"}}}";
+    assertTrue(JsonTestUtils.equal(new JSONObject(expectedDeltaJson), new JSONObject(deltaJson)));
+
+    String noChangesJson = _writer.getJson(viewportResults.changesSince(3));
+    String expectedNoChangesJson = "{\"version\":0, \"calculationDuration\":\"1,234\", \"sequence\":3, \"changes\":{}}";
+    assertTrue(JsonTestUtils.equal(new JSONObject(expectedNoChangesJson), new JSONObject(noChangesJson)));
+  }
 }
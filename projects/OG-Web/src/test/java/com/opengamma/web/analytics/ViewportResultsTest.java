@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.web.analytics;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+
+import javax.time.Duration;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.opengamma.web.analytics.formatting.TypeFormatter;
+
+public class ViewportResultsTest {
+
+  private static final Duration DURATION = Duration.ofMillis(1234);
+
+  private final ViewportDefinition _viewportDefinition =
+      ViewportDefinition.create(0, ImmutableList.of(0, 1, 2), ImmutableList.of(0), ImmutableList.<GridCell>of(), TypeFormatter.Format.CELL);
+  private final List<ViewportResults.Cell> _cells = ImmutableList.of(ViewportResults.stringCell("val1", 0),
+                                                                     ViewportResults.stringCell("val2", 0),
+                                                                     ViewportResults.stringCell("val3", 0));
+
+  private static AnalyticsColumnGroups createColumns() {
+    AnalyticsColumn column = new AnalyticsColumn("header", "desc", String.class);
+    return new AnalyticsColumnGroups(ImmutableList.of(new AnalyticsColumnGroup("grp", ImmutableList.of(column))));
+  }
+
+  private ViewportResults createResults() {
+    return new ViewportResults(_cells, _viewportDefinition, createColumns(), DURATION, 5, new long[]{2, 5, 4});
+  }
+
+  @Test
+  public void changesSince() {
+    ViewportResults results = createResults();
+    ViewportResults changes = results.changesSince(3);
+    assertTrue(changes.isDelta());
+    assertEquals(5, changes.getSequenceNumber());
+    assertFalse(changes.isChanged(0));
+    assertTrue(changes.isChanged(1));
+    assertTrue(changes.isChanged(2));
+    assertEquals(4, changes.getCellSequenceNumber(2));
+    assertEquals(results, changes);
+  }
+
+  @Test
+  public void noChangesSinceLatest() {
+    ViewportResults changes = createResults().changesSince(5);
+    assertTrue(changes.isDelta());
+    for (int i = 0; i < _cells.size(); i++) {
+      assertFalse(changes.isChanged(i));
+    }
+  }
+
+  @Test
+  public void allCellsIfNoResultsReceived() {
+    ViewportResults results = createResults();
+    ViewportResults changes = results.changesSince(-1);
+    assertSame(results, changes);
+    assertFalse(changes.isDelta());
+    for (int i = 0; i < _cells.size(); i++) {
+      assertTrue(changes.isChanged(i));
+    }
+  }
+
+  /**
+   * A sequence number later than the results' comes from before the viewport was redefined.
+   */
+  @Test
+  public void allCellsIfViewportRedefined() {
+    ViewportResults results = createResults();
+    assertSame(results, results.changesSince(6));
+  }
+
+  @Test
+  public void allCellsIfChangesNotTracked() {
+    ViewportResults results = new ViewportResults(_cells, _viewportDefinition, createColumns(), DURATION);
+    assertFalse(results.isTrackingChanges());
+    assertSame(results, results.changesSince(0));
+    assertEquals(0, results.getCellSequenceNumber(1));
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.web.analytics.push;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import javax.servlet.ServletResponse;
+
+import org.eclipse.jetty.continuation.Continuation;
+import org.json.JSONException;
+import org.testng.annotations.Test;
+
+/**
+ * Tests pushing updates to a streaming connection.
+ */
+public class LongPollingUpdateListenerTest {
+
+  private static final String CLIENT_ID = "CLIENT_ID";
+  private static final String RESULT1 = "RESULT1";
+  private static final String RESULT2 = "RESULT2";
+
+  /**
+   * Writer for a connection that the client has closed.
+   */
+  private static class BrokenWriter extends Writer {
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      throw new IOException("Connection closed");
+    }
+
+    @Override
+    public void flush() throws IOException {
+      throw new IOException("Connection closed");
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+  }
+
+  private static Continuation continuation(Writer writer) throws IOException {
+    ServletResponse response = mock(ServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(writer));
+    Continuation continuation = mock(Continuation.class);
+    when(continuation.getServletResponse()).thenReturn(response);
+    when(continuation.isSuspended()).thenReturn(true);
+    return continuation;
+  }
+
+  private static String[] lines(StringWriter writer) {
+    return writer.toString().split("\n", -1);
+  }
+
+  @Test
+  public void connectStreaming() throws IOException {
+    ConnectionTimeoutTask timeoutTask = mock(ConnectionTimeoutTask.class);
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", timeoutTask);
+    StringWriter writer = new StringWriter();
+    Continuation continuation = continuation(writer);
+    listener.connectStreaming(continuation);
+    assertTrue(listener.isConnected());
+    verify(timeoutTask).reset();
+    verify(continuation).setTimeout(LongPollingUpdateListener.KEEP_ALIVE_PERIOD);
+    // nothing is written until there is an update
+    assertEquals("", writer.toString());
+  }
+
+  @Test
+  public void writeUpdates() throws IOException, JSONException {
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", mock(ConnectionTimeoutTask.class));
+    StringWriter writer = new StringWriter();
+    Continuation continuation = continuation(writer);
+    listener.connectStreaming(continuation);
+    listener.itemUpdated(RESULT1);
+    listener.itemUpdated(RESULT2);
+    // the connection stays open after each update
+    assertTrue(listener.isConnected());
+    verify(continuation, never()).resume();
+    verify(continuation, never()).complete();
+    String[] lines = lines(writer);
+    assertEquals(3, lines.length);
+    WebPushTestUtils.checkJsonResults(lines[0], RESULT1);
+    WebPushTestUtils.checkJsonResults(lines[1], RESULT2);
+    assertEquals("", lines[2]);
+  }
+
+  @Test
+  public void sendQueuedUpdatesOnConnect() throws IOException, JSONException {
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", mock(ConnectionTimeoutTask.class));
+    listener.itemUpdated(RESULT1);
+    listener.itemUpdated(RESULT2);
+    StringWriter writer = new StringWriter();
+    listener.connectStreaming(continuation(writer));
+    String[] lines = lines(writer);
+    assertEquals(2, lines.length);
+    WebPushTestUtils.checkJsonResults(lines[0], RESULT1, RESULT2);
+  }
+
+  @Test
+  public void keepAlive() throws IOException {
+    ConnectionTimeoutTask timeoutTask = mock(ConnectionTimeoutTask.class);
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", timeoutTask);
+    StringWriter writer = new StringWriter();
+    Continuation continuation = continuation(writer);
+    listener.connectStreaming(continuation);
+    assertTrue(listener.keepAlive(continuation));
+    assertEquals("\n", writer.toString());
+    // reset on connection and again when the keep-alive is written
+    verify(timeoutTask, times(2)).reset();
+    verify(continuation, times(2)).setTimeout(LongPollingUpdateListener.KEEP_ALIVE_PERIOD);
+  }
+
+  @Test
+  public void keepAliveReplacedConnection() throws IOException {
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", mock(ConnectionTimeoutTask.class));
+    StringWriter oldWriter = new StringWriter();
+    Continuation oldContinuation = continuation(oldWriter);
+    listener.connectStreaming(oldContinuation);
+    StringWriter newWriter = new StringWriter();
+    listener.connectStreaming(continuation(newWriter));
+    // the old connection is closed when the client opens a new one
+    verify(oldContinuation).complete();
+    assertFalse(listener.keepAlive(oldContinuation));
+    assertEquals("", oldWriter.toString());
+    assertTrue(listener.isConnected());
+  }
+
+  @Test
+  public void keepAliveBrokenConnection() throws IOException {
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", mock(ConnectionTimeoutTask.class));
+    Continuation continuation = continuation(new BrokenWriter());
+    listener.connectStreaming(continuation);
+    assertFalse(listener.keepAlive(continuation));
+    assertFalse(listener.isConnected());
+  }
+
+  /**
+   * Tests an update that can't be written is queued and sent when the client reconnects.
+   */
+  @Test
+  public void requeueOnWriteFailure() throws IOException, JSONException {
+    ConnectionTimeoutTask timeoutTask = mock(ConnectionTimeoutTask.class);
+    LongPollingUpdateListener listener = new LongPollingUpdateListener(CLIENT_ID, "userId", timeoutTask);
+    listener.connectStreaming(continuation(new BrokenWriter()));
+    listener.itemUpdated(RESULT1);
+    assertFalse(listener.isConnected());
+    // a failed write doesn't count as activity from the client
+    verify(timeoutTask).reset();
+    listener.itemUpdated(RESULT2);
+    StringWriter writer = new StringWriter();
+    listener.connectStreaming(continuation(writer));
+    String[] lines = lines(writer);
+    assertEquals(2, lines.length);
+    WebPushTestUtils.checkJsonResults(lines[0], RESULT1, RESULT2);
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.web.analytics.push;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+
+import org.eclipse.jetty.server.Server;
+import org.json.JSONException;
+import org.springframework.web.context.WebApplicationContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Tests pushing results to a streaming HTTP connection.
+ */
+@Test
+public class StreamingTest {
+
+  private static final String RESULT1 = "RESULT1";
+  private static final String RESULT2 = "RESULT2";
+  private static final String RESULT3 = "RESULT3";
+
+  private Server _server;
+  private TestConnectionManager _updateManager;
+  private LongPollingConnectionManager _longPollingConnectionManager;
+  private WebPushTestUtils _webPushTestUtils = new WebPushTestUtils();
+
+  @BeforeClass
+  void createJettyServer() throws Exception {
+    Pair<Server, WebApplicationContext> serverAndContext =
+        _webPushTestUtils.createJettyServer("classpath:/com/opengamma/web/analytics/push/long-poll-test.xml");
+    _server = serverAndContext.getFirst();
+    WebApplicationContext context = serverAndContext.getSecond();
+    _updateManager = context.getBean(TestConnectionManager.class);
+    _longPollingConnectionManager = context.getBean(LongPollingConnectionManager.class);
+  }
+
+  @AfterClass
+  void shutdownJettyServer() throws Exception {
+    _server.stop();
+  }
+
+  /**
+   * Tests updates are written to the same connection as they arrive.
+   */
+  @Test
+  public void streamUpdates() throws IOException, JSONException {
+    String clientId = _webPushTestUtils.handshake();
+    HttpURLConnection connection = _webPushTestUtils.connectToPath("/streaming/" + clientId);
+    try {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+      waitForConnection(clientId);
+      _updateManager.sendUpdate(RESULT1);
+      _webPushTestUtils.checkJsonResults(reader.readLine(), RESULT1);
+      _updateManager.sendUpdate(RESULT2);
+      _webPushTestUtils.checkJsonResults(reader.readLine(), RESULT2);
+      _updateManager.sendUpdate(RESULT3);
+      _webPushTestUtils.checkJsonResults(reader.readLine(), RESULT3);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Tests updates sent while the client isn't connected are written when it connects.
+   */
+  @Test
+  public void streamQueuedUpdates() throws IOException, JSONException {
+    String clientId = _webPushTestUtils.handshake();
+    _updateManager.sendUpdate(RESULT1);
+    _updateManager.sendUpdate(RESULT2);
+    HttpURLConnection connection = _webPushTestUtils.connectToPath("/streaming/" + clientId);
+    try {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+      _webPushTestUtils.checkJsonResults(reader.readLine(), RESULT1, RESULT2);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  @Test
+  public void unknownClient() throws IOException {
+    HttpURLConnection connection = _webPushTestUtils.connectToPath("/streaming/UNKNOWN_CLIENT_ID");
+    try {
+      assertEquals(404, connection.getResponseCode());
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Waits until the client is connected so updates are written rather than queued.
+   */
+  private void waitForConnection(String clientId) {
+    while (!_longPollingConnectionManager.isClientConnected(clientId)) {
+      try {
+        Thread.sleep(200);
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2013 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.web.analytics.rest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+import javax.ws.rs.DefaultValue;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.web.analytics.AnalyticsView;
+import com.opengamma.web.analytics.ViewportResults;
+
+/**
+ * Tests the changes resource of a viewport.
+ */
+public class MainGridViewportResourceTest {
+
+  private static final int VIEWPORT_ID = 3;
+
+  @Test
+  public void changes() {
+    AnalyticsView view = mock(AnalyticsView.class);
+    ViewportResults results = mock(ViewportResults.class);
+    ViewportResults changes = mock(ViewportResults.class);
+    when(view.getData(AnalyticsView.GridType.PORTFORLIO, VIEWPORT_ID)).thenReturn(results);
+    when(results.changesSince(7)).thenReturn(changes);
+    MainGridViewportResource resource = new MainGridViewportResource(AnalyticsView.GridType.PORTFORLIO, view, VIEWPORT_ID);
+    assertSame(changes, resource.getChanges(7));
+    verify(results).changesSince(7);
+  }
+
+  @Test
+  public void noResults() {
+    AnalyticsView view = mock(AnalyticsView.class);
+    MainGridViewportResource resource = new MainGridViewportResource(AnalyticsView.GridType.PORTFORLIO, view, VIEWPORT_ID);
+    assertNull(resource.getChanges(7));
+  }
+
+  /**
+   * A client that hasn't received any results omits the sequence number and is sent every cell.
+   */
+  @Test
+  public void sinceDefaultsToAllCells() throws NoSuchMethodException {
+    Method method = AbstractViewportResource.class.getMethod("getChanges", long.class);
+    DefaultValue defaultValue = null;
+    for (Annotation annotation : method.getParameterAnnotations()[0]) {
+      if (annotation instanceof DefaultValue) {
+        defaultValue = (DefaultValue) annotation;
+      }
+    }
+    assertNotNull(defaultValue);
+    assertEquals(-1, Long.parseLong(defaultValue.value()));
+  }
+}